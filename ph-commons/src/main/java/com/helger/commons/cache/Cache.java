@@ -57,4 +57,32 @@ public class Cache <KEYTYPE, VALUETYPE> extends MappedCache <KEYTYPE, KEYTYPE, V
   {
     super (x -> x, aCacheValueProvider, nMaxSize, sCacheName, bAllowNullValues);
   }
+
+  /**
+   * Constructor
+   *
+   * @param aCacheValueProvider
+   *        The cache value provider. May not be <code>null</code>.
+   * @param nMaxSize
+   *        The maximum size of the cache. All values &le; 0 indicate an
+   *        unlimited size.
+   * @param sCacheName
+   *        The internal name of the cache. May neither be <code>null</code> nor
+   *        empty.
+   * @param bAllowNullValues
+   *        <code>true</code> if <code>null</code> values are allowed to be in
+   *        the cache, <code>false</code> if not.
+   * @param aSettings
+   *        The cache settings defining the engine to use. May not be
+   *        <code>null</code>.
+   * @since 11.0.1
+   */
+  public Cache (@Nonnull final Function <KEYTYPE, VALUETYPE> aCacheValueProvider,
+                final int nMaxSize,
+                @Nonnull @Nonempty final String sCacheName,
+                final boolean bAllowNullValues,
+                @Nonnull final CacheSettings aSettings)
+  {
+    super (x -> x, aCacheValueProvider, nMaxSize, sCacheName, bAllowNullValues, aSettings);
+  }
 }
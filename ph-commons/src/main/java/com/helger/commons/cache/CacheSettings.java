@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.lang.ICloneable;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Settings for the creation of a {@link MappedCache}. The expiration and
+ * concurrency settings are only considered by the
+ * {@link ECacheEngine#CONCURRENT} engine.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@NotThreadSafe
+public class CacheSettings implements ICloneable <CacheSettings>
+{
+  /** Default concurrency level: 0 means "determine automatically" */
+  public static final int DEFAULT_CONCURRENCY_LEVEL = 0;
+
+  private static final AtomicReference <ECacheEngine> DEFAULT_ENGINE = new AtomicReference <> (ECacheEngine.DEFAULT);
+
+  private ECacheEngine m_eEngine;
+  private Duration m_aExpireAfterWrite;
+  private Duration m_aExpireAfterAccess;
+  private int m_nConcurrencyLevel = DEFAULT_CONCURRENCY_LEVEL;
+
+  /**
+   * Constructor using the current global default engine.
+   *
+   * @see #getDefaultEngine()
+   */
+  public CacheSettings ()
+  {
+    this (getDefaultEngine ());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param eEngine
+   *        The cache engine to use. May not be <code>null</code>.
+   */
+  public CacheSettings (@Nonnull final ECacheEngine eEngine)
+  {
+    setEngine (eEngine);
+  }
+
+  /**
+   * Copy constructor
+   *
+   * @param aOther
+   *        The settings to copy from. May not be <code>null</code>.
+   */
+  public CacheSettings (@Nonnull final CacheSettings aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    m_eEngine = aOther.m_eEngine;
+    m_aExpireAfterWrite = aOther.m_aExpireAfterWrite;
+    m_aExpireAfterAccess = aOther.m_aExpireAfterAccess;
+    m_nConcurrencyLevel = aOther.m_nConcurrencyLevel;
+  }
+
+  /**
+   * @return The cache engine to be used for all caches that are created
+   *         without explicit settings. Never <code>null</code>. Defaults to
+   *         {@link ECacheEngine#DEFAULT}.
+   */
+  @Nonnull
+  public static ECacheEngine getDefaultEngine ()
+  {
+    return DEFAULT_ENGINE.get ();
+  }
+
+  /**
+   * Set the cache engine to be used for all caches that are created without
+   * explicit settings. This only affects caches created after this call, so
+   * this should be called early in the application startup.
+   *
+   * @param eEngine
+   *        The new default engine. May not be <code>null</code>.
+   * @return The previous default engine. Never <code>null</code>.
+   */
+  @Nonnull
+  public static ECacheEngine setDefaultEngine (@Nonnull final ECacheEngine eEngine)
+  {
+    ValueEnforcer.notNull (eEngine, "Engine");
+    return DEFAULT_ENGINE.getAndSet (eEngine);
+  }
+
+  /**
+   * @return The cache engine to use. Never <code>null</code>.
+   */
+  @Nonnull
+  public final ECacheEngine getEngine ()
+  {
+    return m_eEngine;
+  }
+
+  /**
+   * @param eEngine
+   *        The cache engine to use. May not be <code>null</code>.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CacheSettings setEngine (@Nonnull final ECacheEngine eEngine)
+  {
+    ValueEnforcer.notNull (eEngine, "Engine");
+    m_eEngine = eEngine;
+    return this;
+  }
+
+  /**
+   * @return The duration after which an entry expires, measured from its
+   *         creation or last replacement. May be <code>null</code> if entries
+   *         don't expire after write.
+   */
+  @Nullable
+  public final Duration getExpireAfterWrite ()
+  {
+    return m_aExpireAfterWrite;
+  }
+
+  /**
+   * @param aExpireAfterWrite
+   *        The duration after which an entry expires, measured from its
+   *        creation or last replacement. May be <code>null</code> to disable
+   *        this expiration. Must be positive if present.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CacheSettings setExpireAfterWrite (@Nullable final Duration aExpireAfterWrite)
+  {
+    if (aExpireAfterWrite != null)
+      ValueEnforcer.isTrue ( () -> !aExpireAfterWrite.isNegative () && !aExpireAfterWrite.isZero (),
+                             "ExpireAfterWrite must be positive");
+    m_aExpireAfterWrite = aExpireAfterWrite;
+    return this;
+  }
+
+  /**
+   * @return The duration after which an entry expires, measured from its last
+   *         access. May be <code>null</code> if entries don't expire after
+   *         access.
+   */
+  @Nullable
+  public final Duration getExpireAfterAccess ()
+  {
+    return m_aExpireAfterAccess;
+  }
+
+  /**
+   * @param aExpireAfterAccess
+   *        The duration after which an entry expires, measured from its last
+   *        access. May be <code>null</code> to disable this expiration. Must be
+   *        positive if present.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CacheSettings setExpireAfterAccess (@Nullable final Duration aExpireAfterAccess)
+  {
+    if (aExpireAfterAccess != null)
+      ValueEnforcer.isTrue ( () -> !aExpireAfterAccess.isNegative () && !aExpireAfterAccess.isZero (),
+                             "ExpireAfterAccess must be positive");
+    m_aExpireAfterAccess = aExpireAfterAccess;
+    return this;
+  }
+
+  /**
+   * @return The number of lock stripes to use. 0 means "determine
+   *         automatically" based on the number of processors.
+   */
+  @Nonnegative
+  public final int getConcurrencyLevel ()
+  {
+    return m_nConcurrencyLevel;
+  }
+
+  /**
+   * @param nConcurrencyLevel
+   *        The number of lock stripes to use. Will be rounded up to the next
+   *        power of two. 0 means "determine automatically".
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CacheSettings setConcurrencyLevel (@Nonnegative final int nConcurrencyLevel)
+  {
+    ValueEnforcer.isGE0 (nConcurrencyLevel, "ConcurrencyLevel");
+    m_nConcurrencyLevel = nConcurrencyLevel;
+    return this;
+  }
+
+  @Nonnull
+  public CacheSettings getClone ()
+  {
+    return new CacheSettings (this);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Engine", m_eEngine)
+                                       .appendIfNotNull ("ExpireAfterWrite", m_aExpireAfterWrite)
+                                       .appendIfNotNull ("ExpireAfterAccess", m_aExpireAfterAccess)
+                                       .append ("ConcurrencyLevel", m_nConcurrencyLevel)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,764 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.lang.GenericReflection;
+import com.helger.commons.state.EChange;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.commons.system.SystemHelper;
+
+/**
+ * A thread-safe, size-bounded cache storage without a global lock. It is the
+ * backing store for {@link ECacheEngine#CONCURRENT}.
+ * <ul>
+ * <li>Lookups are lock-free: they are served from a {@link ConcurrentHashMap}
+ * and only try (but never wait) to acquire the stripe lock to update the
+ * access order.</li>
+ * <li>Missing values are loaded only once per key: concurrent callers for the
+ * same key wait for the loading thread, whereas callers for other keys are not
+ * blocked at all.</li>
+ * <li>The eviction order is maintained per lock stripe as a segmented LRU: new
+ * entries start in a probation segment and are promoted to a protected segment
+ * upon the first hit, so that one-hit wonders are evicted first.</li>
+ * <li>Each entry has a weight (default 1). If the total weight of all entries
+ * exceeds the maximum weight, the least recently used entries of the written
+ * stripe are evicted first, and afterwards the ones of other stripes that are
+ * not locked at that time. So the maximum weight is a global bound that is
+ * independent of the distribution of the keys onto the stripes.</li>
+ * <li>Optionally entries expire a certain time after write or after the last
+ * access.</li>
+ * </ul>
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ * @param <KEYTYPE>
+ *        The key type
+ * @param <VALUETYPE>
+ *        The value type. <code>null</code> values are not supported.
+ */
+@ThreadSafe
+public class ConcurrentCacheStorage <KEYTYPE, VALUETYPE>
+{
+  /** The percentage of a stripe's weight reserved for the protected segment */
+  public static final int PROTECTED_PERCENTAGE = 80;
+  /**
+   * The minimum average weight per stripe when a maximum weight is defined
+   */
+  private static final long MIN_WEIGHT_PER_STRIPE = 16;
+
+  private static final int LIST_NONE = 0;
+  private static final int LIST_PROBATION = 1;
+  private static final int LIST_PROTECTED = 2;
+
+  private static final class Node <K, V>
+  {
+    private final K m_aKey;
+    // Only used while loading
+    private final CountDownLatch m_aLoadLatch;
+    private final Thread m_aLoadingThread;
+    // null while loading
+    private volatile V m_aValue;
+    private volatile long m_nWriteNanos;
+    private volatile long m_nAccessNanos;
+    // Guarded by the stripe lock
+    private long m_nWeight;
+    private int m_nList = LIST_NONE;
+    private Node <K, V> m_aPrev;
+    private Node <K, V> m_aNext;
+
+    Node (@Nonnull final K aKey, @Nullable final V aValue)
+    {
+      m_aKey = aKey;
+      m_aValue = aValue;
+      if (aValue == null)
+      {
+        m_aLoadLatch = new CountDownLatch (1);
+        m_aLoadingThread = Thread.currentThread ();
+      }
+      else
+      {
+        m_aLoadLatch = null;
+        m_aLoadingThread = null;
+      }
+    }
+
+    void awaitLoaded ()
+    {
+      if (m_aLoadLatch != null)
+      {
+        if (m_aLoadingThread == Thread.currentThread ())
+          throw new IllegalStateException ("Recursive load of cache key '" + m_aKey + "' detected");
+
+        boolean bInterrupted = false;
+        while (true)
+        {
+          try
+          {
+            m_aLoadLatch.await ();
+            break;
+          }
+          catch (final InterruptedException ex)
+          {
+            bInterrupted = true;
+          }
+        }
+        if (bInterrupted)
+          Thread.currentThread ().interrupt ();
+      }
+    }
+
+    void loadFinished ()
+    {
+      m_aLoadLatch.countDown ();
+    }
+  }
+
+  /**
+   * A single lock stripe with its two LRU lists. Head is the most recently
+   * used element, tail the least recently used one.
+   */
+  private static final class Stripe <K, V>
+  {
+    private final ReentrantLock m_aLock = new ReentrantLock ();
+    // The total weight of all stripes
+    private final AtomicLong m_aTotalWeight;
+    @GuardedBy ("m_aLock")
+    private final Node <K, V> [] m_aHead;
+    @GuardedBy ("m_aLock")
+    private final Node <K, V> [] m_aTail;
+    @GuardedBy ("m_aLock")
+    private long m_nProbationWeight;
+    @GuardedBy ("m_aLock")
+    private long m_nProtectedWeight;
+
+    Stripe (@Nonnull final AtomicLong aTotalWeight)
+    {
+      m_aTotalWeight = aTotalWeight;
+      // Index 0 is unused
+      m_aHead = GenericReflection.uncheckedCast (new Node <?, ?> [3]);
+      m_aTail = GenericReflection.uncheckedCast (new Node <?, ?> [3]);
+    }
+
+    private void _addWeight (final int nList, final long nDelta)
+    {
+      if (nList == LIST_PROBATION)
+        m_nProbationWeight += nDelta;
+      else
+        m_nProtectedWeight += nDelta;
+      m_aTotalWeight.addAndGet (nDelta);
+    }
+
+    void linkFirst (@Nonnull final Node <K, V> aNode, final int nList)
+    {
+      final Node <K, V> aOldHead = m_aHead[nList];
+      aNode.m_aPrev = null;
+      aNode.m_aNext = aOldHead;
+      if (aOldHead == null)
+        m_aTail[nList] = aNode;
+      else
+        aOldHead.m_aPrev = aNode;
+      m_aHead[nList] = aNode;
+      aNode.m_nList = nList;
+      _addWeight (nList, aNode.m_nWeight);
+    }
+
+    void unlink (@Nonnull final Node <K, V> aNode)
+    {
+      final int nList = aNode.m_nList;
+      if (nList == LIST_NONE)
+        return;
+
+      final Node <K, V> aPrev = aNode.m_aPrev;
+      final Node <K, V> aNext = aNode.m_aNext;
+      if (aPrev == null)
+        m_aHead[nList] = aNext;
+      else
+        aPrev.m_aNext = aNext;
+      if (aNext == null)
+        m_aTail[nList] = aPrev;
+      else
+        aNext.m_aPrev = aPrev;
+      aNode.m_aPrev = null;
+      aNode.m_aNext = null;
+      aNode.m_nList = LIST_NONE;
+      _addWeight (nList, -aNode.m_nWeight);
+    }
+
+    @Nullable
+    Node <K, V> getEvictionCandidate (@Nullable final Node <K, V> aExcludedNode)
+    {
+      for (int nList = LIST_PROBATION; nList <= LIST_PROTECTED; ++nList)
+      {
+        Node <K, V> ret = m_aTail[nList];
+        if (ret != null && ret == aExcludedNode)
+          ret = ret.m_aPrev;
+        if (ret != null)
+          return ret;
+      }
+      return null;
+    }
+  }
+
+  private final ConcurrentHashMap <KEYTYPE, Node <KEYTYPE, VALUETYPE>> m_aMap;
+  private final Stripe <KEYTYPE, VALUETYPE> [] m_aStripes;
+  private final int m_nStripeMask;
+  private final long m_nMaxWeight;
+  private final long m_nMaxProtectedWeightPerStripe;
+  private final ToLongBiFunction <? super KEYTYPE, ? super VALUETYPE> m_aWeigher;
+  private final long m_nExpireAfterWriteNanos;
+  private final long m_nExpireAfterAccessNanos;
+  // Is the access order needed at all?
+  private final boolean m_bTrackOrder;
+  private final AtomicLong m_aTotalWeight = new AtomicLong (0);
+  private final AtomicInteger m_aLoadingCount = new AtomicInteger (0);
+  private final LongAdder m_aEvictionCount = new LongAdder ();
+
+  /**
+   * Constructor
+   *
+   * @param nMaxWeight
+   *        The maximum total weight of all entries. Values &le; 0 mean no
+   *        limit.
+   * @param aWeigher
+   *        The function to determine the weight of an entry. May be
+   *        <code>null</code> in which case every entry has the weight 1. The
+   *        weigher must return values &ge; 0.
+   * @param aSettings
+   *        The cache settings with the expiration and concurrency level. May
+   *        not be <code>null</code>.
+   */
+  public ConcurrentCacheStorage (final long nMaxWeight,
+                                 @Nullable final ToLongBiFunction <? super KEYTYPE, ? super VALUETYPE> aWeigher,
+                                 @Nonnull final CacheSettings aSettings)
+  {
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    int nStripes = aSettings.getConcurrencyLevel ();
+    if (nStripes == 0)
+      nStripes = SystemHelper.getNumberOfProcessors () * 4;
+    if (nMaxWeight > 0)
+    {
+      // Avoid stripes that can hold close to nothing
+      nStripes = (int) Math.min (nStripes, Math.max (1, nMaxWeight / MIN_WEIGHT_PER_STRIPE));
+    }
+    // Round up to the next power of 2
+    nStripes = nStripes <= 1 ? 1 : Integer.highestOneBit (nStripes - 1) << 1;
+
+    m_aMap = new ConcurrentHashMap <> (16, 0.75f, nStripes);
+    m_aStripes = GenericReflection.uncheckedCast (new Stripe <?, ?> [nStripes]);
+    for (int i = 0; i < nStripes; ++i)
+      m_aStripes[i] = new Stripe <> (m_aTotalWeight);
+    m_nStripeMask = nStripes - 1;
+    m_nMaxWeight = nMaxWeight > 0 ? nMaxWeight : 0;
+    if (m_nMaxWeight > 0)
+    {
+      // The protected segments are maintained per stripe, based on the average
+      // weight per stripe (rounded up)
+      m_nMaxProtectedWeightPerStripe = (m_nMaxWeight + nStripes - 1) / nStripes * PROTECTED_PERCENTAGE / 100;
+    }
+    else
+      m_nMaxProtectedWeightPerStripe = 0;
+    m_aWeigher = aWeigher;
+    m_nExpireAfterWriteNanos = aSettings.getExpireAfterWrite () == null ? 0 : aSettings.getExpireAfterWrite ().toNanos ();
+    m_nExpireAfterAccessNanos = aSettings.getExpireAfterAccess () == null ? 0 : aSettings.getExpireAfterAccess ().toNanos ();
+    m_bTrackOrder = m_nMaxWeight > 0 || m_nExpireAfterWriteNanos > 0 || m_nExpireAfterAccessNanos > 0;
+  }
+
+  /**
+   * @return The maximum total weight. 0 means unlimited.
+   */
+  @Nonnegative
+  public final long getMaxWeight ()
+  {
+    return m_nMaxWeight;
+  }
+
+  /**
+   * @return The number of lock stripes. Always a power of 2.
+   */
+  @Nonnegative
+  public final int getStripeCount ()
+  {
+    return m_aStripes.length;
+  }
+
+  private boolean _isExpiring ()
+  {
+    return m_nExpireAfterWriteNanos > 0 || m_nExpireAfterAccessNanos > 0;
+  }
+
+  private boolean _isExpired (@Nonnull final Node <KEYTYPE, VALUETYPE> aNode, final long nNowNanos)
+  {
+    if (m_nExpireAfterWriteNanos > 0 && nNowNanos - aNode.m_nWriteNanos >= m_nExpireAfterWriteNanos)
+      return true;
+    if (m_nExpireAfterAccessNanos > 0 && nNowNanos - aNode.m_nAccessNanos >= m_nExpireAfterAccessNanos)
+      return true;
+    return false;
+  }
+
+  @Nonnull
+  private Stripe <KEYTYPE, VALUETYPE> _getStripe (@Nonnull final Object aKey)
+  {
+    // Spread the bits like HashMap does
+    final int h = aKey.hashCode ();
+    return m_aStripes[(h ^ (h >>> 16)) & m_nStripeMask];
+  }
+
+  private long _getWeight (@Nonnull final KEYTYPE aKey, @Nonnull final VALUETYPE aValue)
+  {
+    if (m_aWeigher == null)
+      return 1;
+    final long nWeight = m_aWeigher.applyAsLong (aKey, aValue);
+    if (nWeight < 0)
+      throw new IllegalStateException ("The weight of cache key '" + aKey + "' is negative: " + nWeight);
+    return nWeight;
+  }
+
+  /**
+   * Remove the provided node from the map and from its stripe.
+   *
+   * @return <code>true</code> if the node was removed by this call
+   */
+  private boolean _removeNode (@Nonnull final Node <KEYTYPE, VALUETYPE> aNode)
+  {
+    if (!m_aMap.remove (aNode.m_aKey, aNode))
+      return false;
+
+    if (m_bTrackOrder)
+    {
+      final Stripe <KEYTYPE, VALUETYPE> aStripe = _getStripe (aNode.m_aKey);
+      aStripe.m_aLock.lock ();
+      try
+      {
+        aStripe.unlink (aNode);
+      }
+      finally
+      {
+        aStripe.m_aLock.unlock ();
+      }
+    }
+    return true;
+  }
+
+  @GuardedBy ("aStripe.m_aLock")
+  private void _evictOverweightNotLocked (@Nonnull final Stripe <KEYTYPE, VALUETYPE> aStripe,
+                                         @Nullable final Node <KEYTYPE, VALUETYPE> aExcludedNode)
+  {
+    while (m_aTotalWeight.get () > m_nMaxWeight)
+    {
+      final Node <KEYTYPE, VALUETYPE> aVictim = aStripe.getEvictionCandidate (aExcludedNode);
+      if (aVictim == null)
+        break;
+      aStripe.unlink (aVictim);
+      m_aMap.remove (aVictim.m_aKey, aVictim);
+      m_aEvictionCount.increment ();
+    }
+  }
+
+  @GuardedBy ("aStripe.m_aLock")
+  private void _evictNotLocked (@Nonnull final Stripe <KEYTYPE, VALUETYPE> aStripe,
+                                @Nullable final Node <KEYTYPE, VALUETYPE> aWrittenNode,
+                                final long nNowNanos)
+  {
+    // Remove expired entries from the end of the LRU lists
+    if (_isExpiring ())
+      for (int nList = LIST_PROBATION; nList <= LIST_PROTECTED; ++nList)
+      {
+        Node <KEYTYPE, VALUETYPE> aTail;
+        while ((aTail = aStripe.m_aTail[nList]) != null && _isExpired (aTail, nNowNanos))
+        {
+          aStripe.unlink (aTail);
+          m_aMap.remove (aTail.m_aKey, aTail);
+        }
+      }
+
+    // Remove the least recently used entries until the total weight fits
+    if (m_nMaxWeight > 0 && m_aTotalWeight.get () > m_nMaxWeight)
+    {
+      if (aWrittenNode != null && aWrittenNode.m_nList != LIST_NONE && aWrittenNode.m_nWeight > m_nMaxWeight)
+      {
+        // The written entry can never fit
+        aStripe.unlink (aWrittenNode);
+        m_aMap.remove (aWrittenNode.m_aKey, aWrittenNode);
+        m_aEvictionCount.increment ();
+      }
+
+      // Prefer the entries of this stripe, except for the one just written
+      _evictOverweightNotLocked (aStripe, aWrittenNode);
+
+      // Use other stripes without waiting for their locks, to avoid deadlocks
+      for (final Stripe <KEYTYPE, VALUETYPE> aOtherStripe : m_aStripes)
+      {
+        if (m_aTotalWeight.get () <= m_nMaxWeight)
+          break;
+        if (aOtherStripe != aStripe && aOtherStripe.m_aLock.tryLock ())
+          try
+          {
+            _evictOverweightNotLocked (aOtherStripe, null);
+          }
+          finally
+          {
+            aOtherStripe.m_aLock.unlock ();
+          }
+      }
+
+    }
+  }
+
+  /**
+   * Register a node that is contained in the map with a value in the LRU
+   * order and perform eviction if necessary.
+   */
+  private void _onWrite (@Nonnull final Node <KEYTYPE, VALUETYPE> aNode,
+                         @Nonnull final VALUETYPE aValue,
+                         final long nNowNanos)
+  {
+    if (!m_bTrackOrder)
+      return;
+
+    final long nWeight = _getWeight (aNode.m_aKey, aValue);
+    final Stripe <KEYTYPE, VALUETYPE> aStripe = _getStripe (aNode.m_aKey);
+    aStripe.m_aLock.lock ();
+    try
+    {
+      // The node may have been removed concurrently in the meantime
+      if (m_aMap.get (aNode.m_aKey) == aNode)
+      {
+        aStripe.unlink (aNode);
+        aNode.m_nWeight = nWeight;
+        aStripe.linkFirst (aNode, LIST_PROBATION);
+      }
+      _evictNotLocked (aStripe, aNode, nNowNanos);
+    }
+    finally
+    {
+      aStripe.m_aLock.unlock ();
+    }
+  }
+
+  /**
+   * Record a cache hit in the LRU order. This is best effort only: if the
+   * stripe is currently locked by another thread, the reordering is skipped.
+   */
+  private void _onRead (@Nonnull final Node <KEYTYPE, VALUETYPE> aNode, final long nNowNanos)
+  {
+    if (m_nExpireAfterAccessNanos > 0)
+      aNode.m_nAccessNanos = nNowNanos;
+
+    if (!m_bTrackOrder)
+      return;
+
+    final Stripe <KEYTYPE, VALUETYPE> aStripe = _getStripe (aNode.m_aKey);
+    if (aStripe.m_aLock.tryLock ())
+      try
+      {
+        if (aNode.m_nList == LIST_PROBATION)
+        {
+          // Promote
+          aStripe.unlink (aNode);
+          aStripe.linkFirst (aNode, LIST_PROTECTED);
+
+          // Demote the least recently used protected entries if necessary
+          if (m_nMaxProtectedWeightPerStripe > 0)
+            while (aStripe.m_nProtectedWeight > m_nMaxProtectedWeightPerStripe)
+            {
+              final Node <KEYTYPE, VALUETYPE> aDemote = aStripe.m_aTail[LIST_PROTECTED];
+              if (aDemote == null || aDemote == aNode)
+                break;
+              aStripe.unlink (aDemote);
+              aStripe.linkFirst (aDemote, LIST_PROBATION);
+            }
+        }
+        else
+          if (aNode.m_nList == LIST_PROTECTED && aStripe.m_aHead[LIST_PROTECTED] != aNode)
+          {
+            aStripe.unlink (aNode);
+            aStripe.linkFirst (aNode, LIST_PROTECTED);
+          }
+      }
+      finally
+      {
+        aStripe.m_aLock.unlock ();
+      }
+  }
+
+  private long _now ()
+  {
+    return _isExpiring () ? System.nanoTime () : 0;
+  }
+
+  /**
+   * Get the value of the provided key without loading it.
+   *
+   * @param aKey
+   *        The key to query. May not be <code>null</code>.
+   * @return <code>null</code> if no such value is present, if it is expired
+   *         or if it is currently being loaded.
+   */
+  @Nullable
+  public VALUETYPE get (@Nonnull final KEYTYPE aKey)
+  {
+    final Node <KEYTYPE, VALUETYPE> aNode = m_aMap.get (aKey);
+    if (aNode == null)
+      return null;
+
+    final VALUETYPE aValue = aNode.m_aValue;
+    if (aValue == null)
+    {
+      // Still loading
+      return null;
+    }
+
+    final long nNow = _now ();
+    if (_isExpiring () && _isExpired (aNode, nNow))
+    {
+      _removeNode (aNode);
+      return null;
+    }
+    _onRead (aNode, nNow);
+    return aValue;
+  }
+
+  /**
+   * Get the value of the provided key, loading it via the provided function if
+   * it is not present. The loader is invoked at most once per key at a time,
+   * and outside of any lock. If the loader throws an exception, nothing is
+   * stored and the exception is propagated.
+   *
+   * @param aKey
+   *        The key to query. May not be <code>null</code>.
+   * @param aLoader
+   *        The loader to be invoked if no value is present. It may not return
+   *        <code>null</code> and may not recursively load the same key.
+   * @return The cached or loaded value. Never <code>null</code>.
+   */
+  @Nonnull
+  public VALUETYPE computeIfAbsent (@Nonnull final KEYTYPE aKey,
+                                    @Nonnull final Function <? super KEYTYPE, ? extends VALUETYPE> aLoader)
+  {
+    while (true)
+    {
+      final Node <KEYTYPE, VALUETYPE> aNode = m_aMap.get (aKey);
+      if (aNode != null)
+      {
+        VALUETYPE aValue = aNode.m_aValue;
+        if (aValue == null)
+        {
+          // Another thread is loading
+          aNode.awaitLoaded ();
+          aValue = aNode.m_aValue;
+          if (aValue == null)
+          {
+            // Loading failed in the other thread - try ourselves
+            continue;
+          }
+        }
+
+        final long nNow = _now ();
+        if (_isExpiring () && _isExpired (aNode, nNow))
+        {
+          _removeNode (aNode);
+          continue;
+        }
+        _onRead (aNode, nNow);
+        return aValue;
+      }
+
+      final Node <KEYTYPE, VALUETYPE> aNewNode = new Node <> (aKey, null);
+      if (m_aMap.putIfAbsent (aKey, aNewNode) != null)
+      {
+        // Lost the race
+        continue;
+      }
+      m_aLoadingCount.incrementAndGet ();
+
+      final VALUETYPE aValue;
+      try
+      {
+        aValue = aLoader.apply (aKey);
+        if (aValue == null)
+          throw new IllegalStateException ("The loaded cache value of key '" + aKey + "' is null");
+      }
+      catch (final RuntimeException | Error ex)
+      {
+        _removeNode (aNewNode);
+        m_aLoadingCount.decrementAndGet ();
+        aNewNode.loadFinished ();
+        throw ex;
+      }
+
+      final long nNow = _now ();
+      aNewNode.m_nWriteNanos = nNow;
+      aNewNode.m_nAccessNanos = nNow;
+      aNewNode.m_aValue = aValue;
+      m_aLoadingCount.decrementAndGet ();
+      aNewNode.loadFinished ();
+      _onWrite (aNewNode, aValue, nNow);
+      return aValue;
+    }
+  }
+
+  /**
+   * Put a value into the storage, replacing any existing value.
+   *
+   * @param aKey
+   *        The key to use. May not be <code>null</code>.
+   * @param aValue
+   *        The value to use. May not be <code>null</code>.
+   */
+  public void put (@Nonnull final KEYTYPE aKey, @Nonnull final VALUETYPE aValue)
+  {
+    ValueEnforcer.notNull (aKey, "Key");
+    ValueEnforcer.notNull (aValue, "Value");
+
+    final long nNow = _now ();
+    final Node <KEYTYPE, VALUETYPE> aNewNode = new Node <> (aKey, aValue);
+    aNewNode.m_nWriteNanos = nNow;
+    aNewNode.m_nAccessNanos = nNow;
+    final Node <KEYTYPE, VALUETYPE> aOldNode = m_aMap.put (aKey, aNewNode);
+    if (aOldNode != null && m_bTrackOrder)
+    {
+      final Stripe <KEYTYPE, VALUETYPE> aStripe = _getStripe (aKey);
+      aStripe.m_aLock.lock ();
+      try
+      {
+        aStripe.unlink (aOldNode);
+      }
+      finally
+      {
+        aStripe.m_aLock.unlock ();
+      }
+    }
+    _onWrite (aNewNode, aValue, nNow);
+  }
+
+  /**
+   * Remove the value with the provided key.
+   *
+   * @param aKey
+   *        The key to be removed. May not be <code>null</code>.
+   * @return {@link EChange#CHANGED} if a value was removed.
+   */
+  @Nonnull
+  public EChange remove (@Nonnull final KEYTYPE aKey)
+  {
+    final Node <KEYTYPE, VALUETYPE> aNode = m_aMap.get (aKey);
+    if (aNode == null || aNode.m_aValue == null)
+      return EChange.UNCHANGED;
+    return EChange.valueOf (_removeNode (aNode));
+  }
+
+  /**
+   * Remove all values.
+   *
+   * @return {@link EChange#CHANGED} if at least one value was removed.
+   */
+  @Nonnull
+  public EChange clear ()
+  {
+    EChange ret = EChange.UNCHANGED;
+    for (final Node <KEYTYPE, VALUETYPE> aNode : m_aMap.values ())
+      if (aNode.m_aValue != null && _removeNode (aNode))
+        ret = EChange.CHANGED;
+    return ret;
+  }
+
+  /**
+   * Remove all expired entries. This happens automatically upon writes, so
+   * calling this method is only necessary for caches with a very low write
+   * rate.
+   */
+  public void cleanUp ()
+  {
+    if (!_isExpiring ())
+      return;
+
+    final long nNow = _now ();
+    for (final Node <KEYTYPE, VALUETYPE> aNode : m_aMap.values ())
+      if (aNode.m_aValue != null && _isExpired (aNode, nNow))
+        _removeNode (aNode);
+  }
+
+  /**
+   * @return The number of entries, excluding the ones currently being loaded.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    return Math.max (m_aMap.size () - m_aLoadingCount.get (), 0);
+  }
+
+  /**
+   * @return <code>true</code> if no entry is present, excluding the ones
+   *         currently being loaded.
+   */
+  public boolean isEmpty ()
+  {
+    return size () == 0;
+  }
+
+  /**
+   * @return The current total weight of all entries or -1 if the weight is not
+   *         tracked because no maximum weight and no expiration is defined.
+   */
+  @CheckForSigned
+  public long getTotalWeight ()
+  {
+    if (!m_bTrackOrder)
+      return -1;
+    return m_aTotalWeight.get ();
+  }
+
+  /**
+   * @return The number of entries that were evicted because of the maximum
+   *         weight.
+   */
+  @Nonnegative
+  public long getEvictionCount ()
+  {
+    return m_aEvictionCount.sum ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("MaxWeight", m_nMaxWeight)
+                                       .append ("StripeCount", m_aStripes.length)
+                                       .append ("ExpireAfterWriteNanos", m_nExpireAfterWriteNanos)
+                                       .append ("ExpireAfterAccessNanos", m_nExpireAfterAccessNanos)
+                                       .append ("Size", size ())
+                                       .append ("EvictionCount", m_aEvictionCount.sum ())
+                                       .getToString ();
+  }
+}
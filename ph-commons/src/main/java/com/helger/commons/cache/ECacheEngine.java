@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.cache;
+
+/**
+ * Defines the internal storage engine that is used by a {@link MappedCache}.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+public enum ECacheEngine
+{
+  /**
+   * The classical engine: a soft-reference based map guarded by a single
+   * read-write lock. The garbage collector may remove entries at any time.
+   */
+  SOFT_MAP,
+  /**
+   * A lock-striped engine with strong references, lock-free reads, per-key
+   * compute-once loading, segmented LRU eviction and optional expiration.
+   *
+   * @see ConcurrentCacheStorage
+   */
+  CONCURRENT;
+
+  /** The default engine to be used */
+  public static final ECacheEngine DEFAULT = SOFT_MAP;
+}
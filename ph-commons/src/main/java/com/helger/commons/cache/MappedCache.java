@@ -41,6 +41,7 @@ import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.collection.map.SoftHashMap;
 import com.helger.commons.collection.map.SoftLinkedHashMap;
 import com.helger.commons.concurrent.SimpleReadWriteLock;
+import com.helger.commons.mutable.MutableBoolean;
 import com.helger.commons.state.EChange;
 import com.helger.commons.statistics.IMutableStatisticsHandlerCache;
 import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
@@ -49,7 +50,10 @@ import com.helger.commons.string.ToStringGenerator;
 import com.helger.commons.wrapper.Wrapper;
 
 /**
- * Base implementation of {@link ICache} and {@link IMutableCache}.
+ * Base implementation of {@link ICache} and {@link IMutableCache}. The internal
+ * storage is determined by the {@link ECacheEngine} of the {@link CacheSettings}
+ * provided in the constructor. By default the global default engine from
+ * {@link CacheSettings#getDefaultEngine()} is used.
  *
  * @author Philip Helger
  * @since 9.3.8 generalized from the existing {@link Cache} class.
@@ -80,6 +84,9 @@ public class MappedCache <KEYTYPE, KEYSTORETYPE, VALUETYPE> implements IMutableC
   private final int m_nMaxSize;
   private final String m_sName;
   private final boolean m_bAllowNullValues;
+  private final CacheSettings m_aSettings;
+  // Only present for the concurrent engine
+  private final ConcurrentCacheStorage <KEYSTORETYPE, Wrapper <VALUETYPE>> m_aConcurrentCache;
   // Status vars
   // The main cache. Uses a generic Wrapper to allow to store null values and
   // determine them as such. Lazily created.
@@ -112,10 +119,48 @@ public class MappedCache <KEYTYPE, KEYSTORETYPE, VALUETYPE> implements IMutableC
                       final int nMaxSize,
                       @Nonnull @Nonempty final String sCacheName,
                       final boolean bAllowNullValues)
+  {
+    this (aCacheKeyProvider, aValueProvider, nMaxSize, sCacheName, bAllowNullValues, new CacheSettings ());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aCacheKeyProvider
+   *        The cache key provider, that takes any KEYTYPE and creates a
+   *        non-<code>null</code> KEYSTORETYPE instance. May not be
+   *        <code>null</code>.
+   * @param aValueProvider
+   *        The cache value provider. The value to be cached may be
+   *        <code>null</code> depending on the parameter
+   *        {@code bAllowNullValues}. May not be <code>null</code>.
+   * @param nMaxSize
+   *        The maximum size of the cache. All values &le; 0 indicate an
+   *        unlimited size. For the {@link ECacheEngine#CONCURRENT} engine this
+   *        is the maximum total weight as determined by
+   *        {@link #getWeight(Object, Object)}.
+   * @param sCacheName
+   *        The internal name of the cache. May neither be <code>null</code> nor
+   *        empty. This name is NOT checked for uniqueness.
+   * @param bAllowNullValues
+   *        <code>true</code> if <code>null</code> values are allowed to be in
+   *        the cache, <code>false</code> if not.
+   * @param aSettings
+   *        The cache settings defining the engine to use. May not be
+   *        <code>null</code>. The settings are copied internally.
+   * @since 11.0.1
+   */
+  public MappedCache (@Nonnull final Function <KEYTYPE, KEYSTORETYPE> aCacheKeyProvider,
+                      @Nonnull final Function <KEYTYPE, VALUETYPE> aValueProvider,
+                      final int nMaxSize,
+                      @Nonnull @Nonempty final String sCacheName,
+                      final boolean bAllowNullValues,
+                      @Nonnull final CacheSettings aSettings)
   {
     ValueEnforcer.notNull (aCacheKeyProvider, "CacheKeyProvider");
     ValueEnforcer.notNull (aValueProvider, "ValueProvider");
     ValueEnforcer.notEmpty (sCacheName, "CacheName");
+    ValueEnforcer.notNull (aSettings, "Settings");
 
     m_aStatsCacheAccess = StatisticsManager.getCacheHandler (STATISTICS_PREFIX + sCacheName + "$access");
     m_aStatsCountRemove = StatisticsManager.getCounterHandler (STATISTICS_PREFIX + sCacheName + "$remove");
@@ -126,6 +171,11 @@ public class MappedCache <KEYTYPE, KEYSTORETYPE, VALUETYPE> implements IMutableC
     m_nMaxSize = nMaxSize;
     m_sName = sCacheName;
     m_bAllowNullValues = bAllowNullValues;
+    m_aSettings = aSettings.getClone ();
+    if (m_aSettings.getEngine () == ECacheEngine.CONCURRENT)
+      m_aConcurrentCache = new ConcurrentCacheStorage <> (nMaxSize, (k, v) -> getWeight (k, v.get ()), m_aSettings);
+    else
+      m_aConcurrentCache = null;
   }
 
   /**
@@ -190,7 +240,50 @@ public class MappedCache <KEYTYPE, KEYSTORETYPE, VALUETYPE> implements IMutableC
   }
 
   /**
-   * Create a new cache map. This is the internal map that is used to store the
+   * @return A copy of the settings used to create this cache. Never
+   *         <code>null</code>.
+   * @since 11.0.1
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public final CacheSettings getSettings ()
+  {
+    return m_aSettings.getClone ();
+  }
+
+  /**
+   * @return The cache engine used by this cache. Never <code>null</code>.
+   * @since 11.0.1
+   */
+  @Nonnull
+  public final ECacheEngine getEngine ()
+  {
+    return m_aSettings.getEngine ();
+  }
+
+  /**
+   * Determine the weight of a single cache entry. This is only used by the
+   * {@link ECacheEngine#CONCURRENT} engine, where the max size of the cache is
+   * the maximum sum of all weights. By default every entry has a weight of 1.
+   *
+   * @param aCacheKey
+   *        The cache key. Never <code>null</code>.
+   * @param aValue
+   *        The cache value. May be <code>null</code> if null values are
+   *        allowed.
+   * @return The weight of the entry. Must be &ge; 0.
+   * @since 11.0.1
+   */
+  @Nonnegative
+  @OverrideOnDemand
+  protected long getWeight (@Nonnull final KEYSTORETYPE aCacheKey, @Nullable final VALUETYPE aValue)
+  {
+    return 1;
+  }
+
+  /**
+   * Create a new cache map. This is only used by the
+   * {@link ECacheEngine#SOFT_MAP} engine. This is the internal map that is used to store the
    * items.
    *
    * @return Never <code>null</code>.
@@ -228,6 +321,12 @@ public class MappedCache <KEYTYPE, KEYSTORETYPE, VALUETYPE> implements IMutableC
     ValueEnforcer.notNull (aCacheKey, "CacheKey");
     ValueEnforcer.notNull (aCacheValue, "CacheValue");
 
+    if (m_aConcurrentCache != null)
+    {
+      m_aConcurrentCache.put (aCacheKey, aCacheValue);
+      return;
+    }
+
     // try again in write lock
     if (m_aCache == null)
     {
@@ -278,13 +377,18 @@ public class MappedCache <KEYTYPE, KEYSTORETYPE, VALUETYPE> implements IMutableC
   {
     final KEYSTORETYPE aCacheKey = _getCacheKeyNonnull (aKey);
     final Wrapper <VALUETYPE> aCacheValue = _getCacheValue (aKey, aValue);
-    m_aRWLock.writeLocked ( () -> putInCacheNotLocked (aCacheKey, aCacheValue));
+    if (m_aConcurrentCache != null)
+      m_aConcurrentCache.put (aCacheKey, aCacheValue);
+    else
+      m_aRWLock.writeLocked ( () -> putInCacheNotLocked (aCacheKey, aCacheValue));
   }
 
   @Nullable
   @MustBeLocked (ELockType.READ)
   protected final Wrapper <VALUETYPE> getFromCacheNoStatsNotLocked (@Nullable final KEYSTORETYPE aCacheKey)
   {
+    if (m_aConcurrentCache != null)
+      return aCacheKey == null ? null : m_aConcurrentCache.get (aCacheKey);
     return m_aCache == null ? null : m_aCache.get (aCacheKey);
   }
 
@@ -295,6 +399,8 @@ public class MappedCache <KEYTYPE, KEYSTORETYPE, VALUETYPE> implements IMutableC
     // null cache keys can never be in the cache
     if (aCacheKey == null)
       return null;
+    if (m_aConcurrentCache != null)
+      return m_aConcurrentCache.get (aCacheKey);
     return m_aRWLock.readLockedGet ( () -> getFromCacheNoStatsNotLocked (aCacheKey));
   }
 
@@ -315,11 +421,38 @@ public class MappedCache <KEYTYPE, KEYSTORETYPE, VALUETYPE> implements IMutableC
     return getFromCacheNoStats (aCacheKey) != null;
   }
 
+  private VALUETYPE _getFromConcurrentCache (final KEYTYPE aKey, @Nonnull final KEYSTORETYPE aCacheKey)
+  {
+    // Lock-free fast path
+    Wrapper <VALUETYPE> aCacheValue = m_aConcurrentCache.get (aCacheKey);
+    if (aCacheValue == null)
+    {
+      // The value provider is invoked at most once per key
+      final MutableBoolean aLoaded = new MutableBoolean (false);
+      aCacheValue = m_aConcurrentCache.computeIfAbsent (aCacheKey, k -> {
+        aLoaded.set (true);
+        return _getCacheValue (aKey, m_aValueProvider.apply (aKey));
+      });
+      if (aLoaded.booleanValue ())
+        m_aStatsCacheAccess.cacheMiss ();
+      else
+        m_aStatsCacheAccess.cacheHit ();
+    }
+    else
+      m_aStatsCacheAccess.cacheHit ();
+
+    // the get() may resolve to a null value
+    return aCacheValue.get ();
+  }
+
   public VALUETYPE getFromCache (final KEYTYPE aKey)
   {
     // Determine the internal key
     final KEYSTORETYPE aCacheKey = _getCacheKeyNonnull (aKey);
 
+    if (m_aConcurrentCache != null)
+      return _getFromConcurrentCache (aKey, aCacheKey);
+
     Wrapper <VALUETYPE> aCacheValue = getFromCacheNoStats (aCacheKey);
     if (aCacheValue == null)
     {
@@ -362,15 +495,23 @@ public class MappedCache <KEYTYPE, KEYSTORETYPE, VALUETYPE> implements IMutableC
   {
     final KEYSTORETYPE aCacheKey = _getCacheKeyNonnull (aKey);
 
-    m_aRWLock.writeLock ().lock ();
-    try
+    if (m_aConcurrentCache != null)
     {
-      if (m_aCache == null || m_aCache.remove (aCacheKey) == null)
+      if (m_aConcurrentCache.remove (aCacheKey).isUnchanged ())
         return EChange.UNCHANGED;
     }
-    finally
+    else
     {
-      m_aRWLock.writeLock ().unlock ();
+      m_aRWLock.writeLock ().lock ();
+      try
+      {
+        if (m_aCache == null || m_aCache.remove (aCacheKey) == null)
+          return EChange.UNCHANGED;
+      }
+      finally
+      {
+        m_aRWLock.writeLock ().unlock ();
+      }
     }
 
     m_aStatsCountRemove.increment ();
@@ -383,17 +524,25 @@ public class MappedCache <KEYTYPE, KEYSTORETYPE, VALUETYPE> implements IMutableC
   @OverridingMethodsMustInvokeSuper
   public EChange clearCache ()
   {
-    m_aRWLock.writeLock ().lock ();
-    try
+    if (m_aConcurrentCache != null)
     {
-      if (m_aCache == null || m_aCache.isEmpty ())
+      if (m_aConcurrentCache.clear ().isUnchanged ())
         return EChange.UNCHANGED;
-
-      m_aCache.clear ();
     }
-    finally
+    else
     {
-      m_aRWLock.writeLock ().unlock ();
+      m_aRWLock.writeLock ().lock ();
+      try
+      {
+        if (m_aCache == null || m_aCache.isEmpty ())
+          return EChange.UNCHANGED;
+
+        m_aCache.clear ();
+      }
+      finally
+      {
+        m_aRWLock.writeLock ().unlock ();
+      }
     }
 
     m_aStatsCountClear.increment ();
@@ -405,17 +554,23 @@ public class MappedCache <KEYTYPE, KEYSTORETYPE, VALUETYPE> implements IMutableC
   @Nonnegative
   public int size ()
   {
+    if (m_aConcurrentCache != null)
+      return m_aConcurrentCache.size ();
     return m_aRWLock.readLockedInt ( () -> CollectionHelper.getSize (m_aCache));
   }
 
   public boolean isEmpty ()
   {
+    if (m_aConcurrentCache != null)
+      return m_aConcurrentCache.isEmpty ();
     return m_aRWLock.readLockedBoolean ( () -> CollectionHelper.isEmpty (m_aCache));
   }
 
   @Override
   public boolean isNotEmpty ()
   {
+    if (m_aConcurrentCache != null)
+      return !m_aConcurrentCache.isEmpty ();
     return m_aRWLock.readLockedBoolean ( () -> CollectionHelper.isNotEmpty (m_aCache));
   }
 
@@ -427,6 +582,8 @@ public class MappedCache <KEYTYPE, KEYSTORETYPE, VALUETYPE> implements IMutableC
                                        .append ("MaxSize", m_nMaxSize)
                                        .append ("Name", m_sName)
                                        .append ("AllowNullValues", m_bAllowNullValues)
+                                       .append ("Settings", m_aSettings)
+                                       .appendIfNotNull ("ConcurrentCache", m_aConcurrentCache)
                                        .append ("Cache", m_aCache)
                                        .getToString ();
   }
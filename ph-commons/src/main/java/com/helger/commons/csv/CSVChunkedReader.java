@@ -0,0 +1,614 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.csv;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.WillNotClose;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.concurrent.BasicThreadFactory;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A high throughput CSV reader for large inputs. The input is read in chunks
+ * of raw bytes. The reading thread only determines the record boundaries
+ * (respecting quoted fields that span multiple lines) and hands complete
+ * records chunk-wise to the decoding and tokenizing step, which can run in
+ * parallel. The records are passed to the callback as a reusable
+ * {@link CSVRowCursor}, so no objects are created per record or field unless
+ * the callback asks for Strings.<br>
+ * The separator, quote and escape handling is configured via a
+ * {@link CSVParser} and behaves like {@link CSVReader} with a
+ * {@link CSVParser}: line terminators are <code>\n</code>, <code>\r</code>
+ * and <code>\r\n</code> and line breaks inside quoted fields are returned as
+ * <code>\n</code>. Carriage returns cannot be kept. Only charsets that encode
+ * ASCII characters as single bytes that never occur inside multi byte
+ * sequences are supported (e.g. UTF-8, US-ASCII, ISO-8859-x and windows-125x).
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@NotThreadSafe
+public class CSVChunkedReader
+{
+  /** The default number of bytes per chunk */
+  public static final int DEFAULT_CHUNK_SIZE = 4 * CGlobal.BYTES_PER_MEGABYTE;
+  /** The default charset */
+  public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+
+  /**
+   * Per worker state that is reused for all chunks processed by it.
+   */
+  private static final class WorkerContext
+  {
+    private final CharsetDecoder m_aDecoder;
+    private final CSVRowCursor m_aRow = new CSVRowCursor ();
+    private char [] m_aChars = new char [0];
+
+    WorkerContext (@Nonnull final Charset aCharset)
+    {
+      m_aDecoder = aCharset.newDecoder ()
+                           .onMalformedInput (CodingErrorAction.REPLACE)
+                           .onUnmappableCharacter (CodingErrorAction.REPLACE);
+    }
+  }
+
+  private final CSVParser m_aParser;
+  private Charset m_aCharset = DEFAULT_CHARSET;
+  private int m_nChunkSize = DEFAULT_CHUNK_SIZE;
+  private int m_nSkipLines = CCSV.DEFAULT_SKIP_LINES;
+  private int m_nParallelism = Runtime.getRuntime ().availableProcessors ();
+
+  /**
+   * Constructor using a default {@link CSVParser}.
+   */
+  public CSVChunkedReader ()
+  {
+    this (new CSVParser ());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param aParser
+   *        The parser that defines the separator, quote and escape handling.
+   *        The settings are read when reading starts. May not be
+   *        <code>null</code>.
+   */
+  public CSVChunkedReader (@Nonnull final CSVParser aParser)
+  {
+    ValueEnforcer.notNull (aParser, "Parser");
+    m_aParser = aParser;
+  }
+
+  /**
+   * @return The parser with the CSV settings. Never <code>null</code>.
+   */
+  @Nonnull
+  public CSVParser getParser ()
+  {
+    return m_aParser;
+  }
+
+  /**
+   * Check if the passed charset can be used with this class.
+   *
+   * @param aCharset
+   *        The charset to check. May not be <code>null</code>.
+   * @return <code>true</code> if it is supported.
+   */
+  public static boolean isSupportedCharset (@Nonnull final Charset aCharset)
+  {
+    ValueEnforcer.notNull (aCharset, "Charset");
+    final String sName = aCharset.name ().toLowerCase (Locale.ROOT);
+    return aCharset.equals (StandardCharsets.UTF_8) ||
+           aCharset.equals (StandardCharsets.US_ASCII) ||
+           sName.startsWith ("iso-8859-") ||
+           sName.startsWith ("windows-125");
+  }
+
+  /**
+   * @return The charset of the input. Never <code>null</code>.
+   */
+  @Nonnull
+  public Charset getCharset ()
+  {
+    return m_aCharset;
+  }
+
+  /**
+   * @param aCharset
+   *        The charset of the input. May not be <code>null</code> and must be
+   *        supported.
+   * @return this
+   * @see #isSupportedCharset(Charset)
+   */
+  @Nonnull
+  public CSVChunkedReader setCharset (@Nonnull final Charset aCharset)
+  {
+    ValueEnforcer.isTrue (isSupportedCharset (aCharset), () -> "Charset " + aCharset.name () + " is not supported");
+    m_aCharset = aCharset;
+    return this;
+  }
+
+  /**
+   * @return The number of bytes per chunk. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getChunkSize ()
+  {
+    return m_nChunkSize;
+  }
+
+  /**
+   * @param nChunkSize
+   *        The number of bytes per chunk. Must be &gt; 0. Chunks are
+   *        automatically enlarged if a single record does not fit.
+   * @return this
+   */
+  @Nonnull
+  public CSVChunkedReader setChunkSize (@Nonnegative final int nChunkSize)
+  {
+    ValueEnforcer.isGT0 (nChunkSize, "ChunkSize");
+    m_nChunkSize = nChunkSize;
+    return this;
+  }
+
+  /**
+   * @return The number of lines to skip at the beginning. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getSkipLines ()
+  {
+    return m_nSkipLines;
+  }
+
+  /**
+   * @param nSkipLines
+   *        The number of lines to skip at the beginning. Must be &ge; 0.
+   * @return this
+   */
+  @Nonnull
+  public CSVChunkedReader setSkipLines (@Nonnegative final int nSkipLines)
+  {
+    ValueEnforcer.isGE0 (nSkipLines, "SkipLines");
+    m_nSkipLines = nSkipLines;
+    return this;
+  }
+
+  /**
+   * @return The maximum number of chunks processed in parallel by the
+   *         <code>readParallel</code> methods. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getParallelism ()
+  {
+    return m_nParallelism;
+  }
+
+  /**
+   * @param nParallelism
+   *        The maximum number of chunks processed in parallel by the
+   *        <code>readParallel</code> methods. Must be &gt; 0. Defaults to the
+   *        number of available processors.
+   * @return this
+   */
+  @Nonnull
+  public CSVChunkedReader setParallelism (@Nonnegative final int nParallelism)
+  {
+    ValueEnforcer.isGT0 (nParallelism, "Parallelism");
+    m_nParallelism = nParallelism;
+    return this;
+  }
+
+  private static void _processChunk (@Nonnull final WorkerContext aCtx,
+                                     @Nonnull final CSVRecordTokenizer aTokenizer,
+                                     @Nonnull final byte [] aBytes,
+                                     @Nonnegative final int nStart,
+                                     @Nonnegative final int nEnd,
+                                     final long nFirstRecordIndex,
+                                     @Nonnull final Consumer <? super CSVRowCursor> aRecordConsumer) throws CharacterCodingException
+  {
+    // Decode the whole chunk. It ends at a record boundary, so no multi byte
+    // sequence is split.
+    final CharsetDecoder aDecoder = aCtx.m_aDecoder;
+    final int nBytes = nEnd - nStart;
+    final int nMaxChars = (int) Math.ceil (nBytes * (double) aDecoder.maxCharsPerByte ());
+    if (aCtx.m_aChars.length < nMaxChars)
+      aCtx.m_aChars = new char [nMaxChars];
+    final char [] aChars = aCtx.m_aChars;
+
+    final CharBuffer aCB = CharBuffer.wrap (aChars);
+    aDecoder.reset ();
+    CoderResult aResult = aDecoder.decode (ByteBuffer.wrap (aBytes, nStart, nBytes), aCB, true);
+    if (!aResult.isUnderflow ())
+      aResult.throwException ();
+    aResult = aDecoder.flush (aCB);
+    if (!aResult.isUnderflow ())
+      aResult.throwException ();
+    final int nChars = aCB.position ();
+
+    final CSVRowCursor aRow = aCtx.m_aRow;
+    long nRecordIndex = nFirstRecordIndex;
+    int nPos = 0;
+    while (nPos < nChars)
+    {
+      nPos = aTokenizer.parseRecord (aChars, nPos, nChars, aRow, nRecordIndex++);
+      aRecordConsumer.accept (aRow);
+    }
+  }
+
+  private long _read (@Nonnull @WillNotClose final ReadableByteChannel aChannel,
+                      @Nullable final ExecutorService aES,
+                      @Nonnull final Consumer <? super CSVRowCursor> aRecordConsumer) throws IOException
+  {
+    ValueEnforcer.notNull (aChannel, "Channel");
+    ValueEnforcer.notNull (aRecordConsumer, "RecordConsumer");
+
+    final CSVRecordTokenizer aTokenizer = new CSVRecordTokenizer (m_aParser);
+    final int nWorkers = aES == null ? 1 : m_nParallelism;
+
+    // Bounded pools - this limits the number of chunks in memory
+    final int nMaxBuffers = nWorkers + 2;
+    final BlockingQueue <byte []> aFreeBuffers = new ArrayBlockingQueue <> (nMaxBuffers);
+    final BlockingQueue <WorkerContext> aFreeContexts = new ArrayBlockingQueue <> (nWorkers);
+    for (int i = 0; i < nWorkers; ++i)
+      aFreeContexts.add (new WorkerContext (m_aCharset));
+    final ICommonsList <Future <?>> aFutures = new CommonsArrayList <> ();
+    final AtomicBoolean aFailed = new AtomicBoolean (false);
+
+    int nAllocatedBuffers = 1;
+    byte [] aBuf = new byte [m_nChunkSize];
+    // Valid bytes in aBuf
+    int nLen = 0;
+    // Start of the first record of the current chunk
+    int nChunkStart = 0;
+    // End of the last complete record of the current chunk
+    int nScanPos = 0;
+    int nChunkRecords = 0;
+    long nRecordIndex = 0;
+    int nLinesToSkip = m_nSkipLines;
+    boolean bEOF = false;
+    boolean bSuccess = false;
+    try
+    {
+      while (!bEOF && !aFailed.get ())
+      {
+        if (nLen == aBuf.length)
+        {
+          if (nChunkRecords > 0)
+          {
+            // Hand off all complete records and move the rest to a new buffer
+            byte [] aNext = aFreeBuffers.poll ();
+            if (aNext == null)
+            {
+              if (nAllocatedBuffers < nMaxBuffers)
+              {
+                nAllocatedBuffers++;
+                aNext = new byte [aBuf.length];
+              }
+              else
+                aNext = aFreeBuffers.take ();
+            }
+            if (aNext.length < aBuf.length)
+              aNext = new byte [aBuf.length];
+            final int nRest = nLen - nScanPos;
+            System.arraycopy (aBuf, nScanPos, aNext, 0, nRest);
+
+            final byte [] aChunk = aBuf;
+            final int nStart = nChunkStart;
+            final int nEnd = nScanPos;
+            final long nFirstRecordIndex = nRecordIndex;
+            if (aES == null)
+            {
+              final WorkerContext aCtx = aFreeContexts.take ();
+              _processChunk (aCtx, aTokenizer, aChunk, nStart, nEnd, nFirstRecordIndex, aRecordConsumer);
+              aFreeContexts.add (aCtx);
+              aFreeBuffers.add (aChunk);
+            }
+            else
+              aFutures.add (aES.submit ( () -> {
+                try
+                {
+                  if (!aFailed.get ())
+                  {
+                    final WorkerContext aCtx = aFreeContexts.take ();
+                    try
+                    {
+                      _processChunk (aCtx, aTokenizer, aChunk, nStart, nEnd, nFirstRecordIndex, aRecordConsumer);
+                    }
+                    finally
+                    {
+                      aFreeContexts.add (aCtx);
+                    }
+                  }
+                }
+                catch (final Exception ex)
+                {
+                  aFailed.set (true);
+                  throw ex;
+                }
+                finally
+                {
+                  aFreeBuffers.add (aChunk);
+                }
+                return null;
+              }));
+
+            nRecordIndex += nChunkRecords;
+            aBuf = aNext;
+            nLen = nRest;
+            nChunkStart = 0;
+            nScanPos = 0;
+            nChunkRecords = 0;
+          }
+          else
+            if (nChunkStart > 0)
+            {
+              // Only skipped lines so far - compact
+              System.arraycopy (aBuf, nChunkStart, aBuf, 0, nLen - nChunkStart);
+              nLen -= nChunkStart;
+              nScanPos = Math.max (nScanPos - nChunkStart, 0);
+              nChunkStart = 0;
+            }
+            else
+            {
+              // A single record is larger than the buffer
+              aBuf = Arrays.copyOf (aBuf, aBuf.length << 1);
+            }
+        }
+
+        final int nRead = aChannel.read (ByteBuffer.wrap (aBuf, nLen, aBuf.length - nLen));
+        if (nRead < 0)
+          bEOF = true;
+        else
+          nLen += nRead;
+
+        while (nLinesToSkip > 0 && nChunkStart < nLen)
+        {
+          final int nLineEnd = CSVRecordTokenizer.skipLine (aBuf, nChunkStart, nLen, bEOF);
+          if (nLineEnd < 0)
+            break;
+          nChunkStart = nLineEnd;
+          nLinesToSkip--;
+        }
+
+        if (nLinesToSkip == 0)
+        {
+          if (nScanPos < nChunkStart)
+            nScanPos = nChunkStart;
+          while (nScanPos < nLen)
+          {
+            final int nRecordEnd = aTokenizer.findRecordEnd (aBuf, nScanPos, nLen, bEOF);
+            if (nRecordEnd < 0)
+              break;
+            nScanPos = nRecordEnd;
+            nChunkRecords++;
+          }
+        }
+      }
+
+      if (nChunkRecords > 0 && !aFailed.get ())
+      {
+        // The last chunk is processed in the reading thread
+        final WorkerContext aCtx = aFreeContexts.take ();
+        _processChunk (aCtx, aTokenizer, aBuf, nChunkStart, nScanPos, nRecordIndex, aRecordConsumer);
+        aFreeContexts.add (aCtx);
+        nRecordIndex += nChunkRecords;
+      }
+
+      for (final Future <?> aFuture : aFutures)
+        aFuture.get ();
+      bSuccess = true;
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new InterruptedIOException ("Interrupted while reading CSV");
+    }
+    catch (final ExecutionException ex)
+    {
+      final Throwable aCause = ex.getCause ();
+      if (aCause instanceof IOException)
+        throw (IOException) aCause;
+      if (aCause instanceof RuntimeException)
+        throw (RuntimeException) aCause;
+      throw new IOException ("Failed to process CSV chunk", aCause);
+    }
+    finally
+    {
+      if (!bSuccess)
+      {
+        // Don't start any pending chunk
+        aFailed.set (true);
+        for (final Future <?> aFuture : aFutures)
+          aFuture.cancel (false);
+      }
+    }
+    return nRecordIndex;
+  }
+
+  /**
+   * Read all records from the passed channel in the calling thread.
+   *
+   * @param aChannel
+   *        The blocking channel to read from. May not be <code>null</code>. Is
+   *        not closed.
+   * @param aRecordConsumer
+   *        The consumer for each record. May not be <code>null</code>.
+   * @return The number of records read. Always &ge; 0.
+   * @throws IOException
+   *         In case reading fails
+   */
+  @Nonnegative
+  public long read (@Nonnull @WillNotClose final ReadableByteChannel aChannel,
+                    @Nonnull final Consumer <? super CSVRowCursor> aRecordConsumer) throws IOException
+  {
+    return _read (aChannel, null, aRecordConsumer);
+  }
+
+  /**
+   * Read all records from the passed file in the calling thread.
+   *
+   * @param aPath
+   *        The file to read from. May not be <code>null</code>.
+   * @param aRecordConsumer
+   *        The consumer for each record. May not be <code>null</code>.
+   * @return The number of records read. Always &ge; 0.
+   * @throws IOException
+   *         In case reading fails
+   */
+  @Nonnegative
+  public long read (@Nonnull final Path aPath, @Nonnull final Consumer <? super CSVRowCursor> aRecordConsumer) throws IOException
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+    try (final FileChannel aFC = FileChannel.open (aPath, StandardOpenOption.READ))
+    {
+      return read (aFC, aRecordConsumer);
+    }
+  }
+
+  /**
+   * Read all records from the passed channel and tokenize the chunks using the
+   * provided executor. The consumer is invoked concurrently from multiple
+   * threads and in no particular record order - use
+   * {@link CSVRowCursor#getRecordIndex()} to determine the position of a
+   * record.
+   *
+   * @param aChannel
+   *        The blocking channel to read from. May not be <code>null</code>. Is
+   *        not closed.
+   * @param aES
+   *        The executor to use. May not be <code>null</code>. Is not shut down.
+   * @param aRecordConsumer
+   *        The thread-safe consumer for each record. May not be
+   *        <code>null</code>.
+   * @return The number of records read. Always &ge; 0.
+   * @throws IOException
+   *         In case reading fails
+   */
+  @Nonnegative
+  public long readParallel (@Nonnull @WillNotClose final ReadableByteChannel aChannel,
+                            @Nonnull final ExecutorService aES,
+                            @Nonnull final Consumer <? super CSVRowCursor> aRecordConsumer) throws IOException
+  {
+    ValueEnforcer.notNull (aES, "ExecutorService");
+    return _read (aChannel, aES, aRecordConsumer);
+  }
+
+  /**
+   * Read all records from the passed channel and tokenize the chunks using
+   * {@link #getParallelism()} threads. The consumer is invoked concurrently
+   * from multiple threads and in no particular record order - use
+   * {@link CSVRowCursor#getRecordIndex()} to determine the position of a
+   * record.
+   *
+   * @param aChannel
+   *        The blocking channel to read from. May not be <code>null</code>. Is
+   *        not closed.
+   * @param aRecordConsumer
+   *        The thread-safe consumer for each record. May not be
+   *        <code>null</code>.
+   * @return The number of records read. Always &ge; 0.
+   * @throws IOException
+   *         In case reading fails
+   */
+  @Nonnegative
+  public long readParallel (@Nonnull @WillNotClose final ReadableByteChannel aChannel,
+                            @Nonnull final Consumer <? super CSVRowCursor> aRecordConsumer) throws IOException
+  {
+    final ExecutorService aES = Executors.newFixedThreadPool (m_nParallelism,
+                                                              BasicThreadFactory.builder ()
+                                                                                .namingPattern ("CSV-Reader-%d")
+                                                                                .daemon (true)
+                                                                                .build ());
+    try
+    {
+      return readParallel (aChannel, aES, aRecordConsumer);
+    }
+    finally
+    {
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    }
+  }
+
+  /**
+   * Read all records from the passed file and tokenize the chunks using
+   * {@link #getParallelism()} threads.
+   *
+   * @param aPath
+   *        The file to read from. May not be <code>null</code>.
+   * @param aRecordConsumer
+   *        The thread-safe consumer for each record. May not be
+   *        <code>null</code>.
+   * @return The number of records read. Always &ge; 0.
+   * @throws IOException
+   *         In case reading fails
+   * @see #readParallel(ReadableByteChannel, Consumer)
+   */
+  @Nonnegative
+  public long readParallel (@Nonnull final Path aPath, @Nonnull final Consumer <? super CSVRowCursor> aRecordConsumer) throws IOException
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+    try (final FileChannel aFC = FileChannel.open (aPath, StandardOpenOption.READ))
+    {
+      return readParallel (aFC, aRecordConsumer);
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Charset", m_aCharset)
+                                       .append ("ChunkSize", m_nChunkSize)
+                                       .append ("SkipLines", m_nSkipLines)
+                                       .append ("Parallelism", m_nParallelism)
+                                       .getToString ();
+  }
+}
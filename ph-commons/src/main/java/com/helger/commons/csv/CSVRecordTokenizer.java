@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.csv;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * The record splitting and field tokenizing logic of {@link CSVChunkedReader}.
+ * It implements the same state machine as {@link CSVParser} (including the
+ * handling of multi line records), but works on arrays instead of Strings and
+ * does not allocate. The byte based methods only track the quoting state and
+ * are used to find record boundaries in the raw input. This is only valid for
+ * charsets in which the special characters are encoded as single ASCII bytes
+ * that never occur inside multi byte sequences.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@Immutable
+final class CSVRecordTokenizer
+{
+  private final char m_cSeparatorChar;
+  private final char m_cQuoteChar;
+  private final char m_cEscapeChar;
+  private final boolean m_bStrictQuotes;
+  private final boolean m_bIgnoreLeadingWhiteSpace;
+  private final boolean m_bIgnoreQuotations;
+  private final byte m_nSeparatorByte;
+  private final byte m_nQuoteByte;
+  private final byte m_nEscapeByte;
+
+  CSVRecordTokenizer (@Nonnull final CSVParser aParser)
+  {
+    m_cSeparatorChar = aParser.getSeparatorChar ();
+    m_cQuoteChar = aParser.getQuoteChar ();
+    m_cEscapeChar = aParser.getEscapeChar ();
+    m_bStrictQuotes = aParser.isStrictQuotes ();
+    m_bIgnoreLeadingWhiteSpace = aParser.isIgnoreLeadingWhiteSpace ();
+    m_bIgnoreQuotations = aParser.isIgnoreQuotations ();
+    if (m_cSeparatorChar > 0x7f || m_cQuoteChar > 0x7f || m_cEscapeChar > 0x7f)
+      throw new IllegalArgumentException ("The separator, quote and escape characters must be ASCII characters");
+    m_nSeparatorByte = (byte) m_cSeparatorChar;
+    m_nQuoteByte = (byte) m_cQuoteChar;
+    m_nEscapeByte = (byte) m_cEscapeChar;
+  }
+
+  /**
+   * Skip a single line like {@link java.io.BufferedReader#readLine()} does.
+   *
+   * @return The position after the line terminator or -1 if the line is not
+   *         complete in the passed range.
+   */
+  @CheckForSigned
+  static int skipLine (@Nonnull final byte [] a, @Nonnegative final int nPos, @Nonnegative final int nEnd, final boolean bEOF)
+  {
+    for (int i = nPos; i < nEnd; ++i)
+    {
+      final byte b = a[i];
+      if (b == '\n')
+        return i + 1;
+      if (b == '\r')
+      {
+        if (i + 1 < nEnd)
+          return a[i + 1] == '\n' ? i + 2 : i + 1;
+        // Cannot decide if a '\n' follows
+        return bEOF ? nEnd : -1;
+      }
+    }
+    return bEOF ? nEnd : -1;
+  }
+
+  /**
+   * Find the end of the record starting at the passed position.
+   *
+   * @param a
+   *        The raw bytes.
+   * @param nPos
+   *        The start of the record. Must be &lt; nEnd.
+   * @param nEnd
+   *        The end of the available bytes.
+   * @param bEOF
+   *        <code>true</code> if no more bytes follow after nEnd.
+   * @return The position after the record including its line terminator, or
+   *         -1 if the record is not complete in the passed range.
+   */
+  @CheckForSigned
+  int findRecordEnd (@Nonnull final byte [] a, @Nonnegative final int nPos, @Nonnegative final int nEnd, final boolean bEOF)
+  {
+    boolean bInQuotes = false;
+    boolean bInField = false;
+    int nLineStart = nPos;
+    while (true)
+    {
+      // Find the end of the line and remember if any special char is contained
+      boolean bSpecial = false;
+      int nLineEnd = nLineStart;
+      while (nLineEnd < nEnd)
+      {
+        final byte b = a[nLineEnd];
+        if (b == '\n' || b == '\r')
+          break;
+        if (b == m_nQuoteByte || b == m_nEscapeByte)
+          bSpecial = true;
+        nLineEnd++;
+      }
+
+      final int nNext;
+      if (nLineEnd == nEnd)
+      {
+        if (!bEOF)
+          return -1;
+        nNext = nEnd;
+      }
+      else
+        if (a[nLineEnd] == '\r')
+        {
+          if (nLineEnd + 1 == nEnd && !bEOF)
+            return -1;
+          nNext = nLineEnd + 1 < nEnd && a[nLineEnd + 1] == '\n' ? nLineEnd + 2 : nLineEnd + 1;
+        }
+        else
+          nNext = nLineEnd + 1;
+
+      if (bSpecial || bInQuotes)
+      {
+        for (int i = nLineStart; i < nLineEnd; ++i)
+        {
+          final byte b = a[i];
+          if (b == m_nEscapeByte)
+          {
+            if (((bInQuotes && !m_bIgnoreQuotations) || bInField) &&
+                i + 1 < nLineEnd &&
+                (a[i + 1] == m_nQuoteByte || a[i + 1] == m_nEscapeByte))
+              i++;
+          }
+          else
+            if (b == m_nQuoteByte)
+            {
+              if (((bInQuotes && !m_bIgnoreQuotations) || bInField) && i + 1 < nLineEnd && a[i + 1] == m_nQuoteByte)
+                i++;
+              else
+                bInQuotes = !bInQuotes;
+              bInField = !bInField;
+            }
+            else
+              if (b == m_nSeparatorByte && !(bInQuotes && !m_bIgnoreQuotations))
+                bInField = false;
+              else
+                if (!m_bStrictQuotes || (bInQuotes && !m_bIgnoreQuotations))
+                  bInField = true;
+        }
+      }
+
+      if (!bInQuotes || m_bIgnoreQuotations)
+        return nNext;
+
+      // The record continues on the next line
+      if (nNext >= nEnd)
+        return bEOF ? nEnd : -1;
+      nLineStart = nNext;
+    }
+  }
+
+  @Nonnegative
+  private static int _findLineEnd (@Nonnull final char [] a, @Nonnegative final int nPos, @Nonnegative final int nEnd)
+  {
+    int i = nPos;
+    while (i < nEnd && a[i] != '\n' && a[i] != '\r')
+      i++;
+    return i;
+  }
+
+  @Nonnegative
+  private static int _skipLineTerminator (@Nonnull final char [] a, @Nonnegative final int nLineEnd, @Nonnegative final int nEnd)
+  {
+    if (nLineEnd == nEnd)
+      return nEnd;
+    if (a[nLineEnd] == '\r' && nLineEnd + 1 < nEnd && a[nLineEnd + 1] == '\n')
+      return nLineEnd + 2;
+    return nLineEnd + 1;
+  }
+
+  /**
+   * Parse the record starting at the passed position into the passed cursor.
+   * The range must only contain complete records.
+   *
+   * @param a
+   *        The decoded characters.
+   * @param nPos
+   *        The start of the record. Must be &lt; nEnd.
+   * @param nEnd
+   *        The end of the range.
+   * @param aRow
+   *        The cursor to fill.
+   * @param nRecordIndex
+   *        The index of the record to set in the cursor.
+   * @return The position after the record including its line terminator.
+   */
+  @Nonnegative
+  int parseRecord (@Nonnull final char [] a,
+                   @Nonnegative final int nPos,
+                   @Nonnegative final int nEnd,
+                   @Nonnull final CSVRowCursor aRow,
+                   final long nRecordIndex)
+  {
+    if (!m_bStrictQuotes)
+    {
+      // Fast path: a single line without quote and escape chars can be
+      // referenced directly
+      aRow.startDirectRecord (a, nRecordIndex);
+      int nFieldStart = nPos;
+      int i = nPos;
+      for (; i < nEnd; ++i)
+      {
+        final char c = a[i];
+        if (c == m_cSeparatorChar)
+        {
+          aRow.addDirectField (nFieldStart, i - nFieldStart);
+          nFieldStart = i + 1;
+        }
+        else
+          if (c == '\n' || c == '\r' || c == m_cQuoteChar || c == m_cEscapeChar)
+            break;
+      }
+      if (i == nEnd || a[i] == '\n' || a[i] == '\r')
+      {
+        aRow.addDirectField (nFieldStart, i - nFieldStart);
+        return _skipLineTerminator (a, i, nEnd);
+      }
+    }
+
+    // Generic path - same logic as CSVParser
+    aRow.startBufferedRecord (nRecordIndex);
+    boolean bInQuotes = false;
+    boolean bInField = false;
+    int nLineStart = nPos;
+    while (true)
+    {
+      final int nLineEnd = _findLineEnd (a, nLineStart, nEnd);
+      final int nNext = _skipLineTerminator (a, nLineEnd, nEnd);
+      for (int i = nLineStart; i < nLineEnd; ++i)
+      {
+        final char c = a[i];
+        if (c == m_cEscapeChar)
+        {
+          if (((bInQuotes && !m_bIgnoreQuotations) || bInField) &&
+              i + 1 < nLineEnd &&
+              (a[i + 1] == m_cQuoteChar || a[i + 1] == m_cEscapeChar))
+          {
+            aRow.append (a[i + 1]);
+            i++;
+          }
+        }
+        else
+          if (c == m_cQuoteChar)
+          {
+            if (((bInQuotes && !m_bIgnoreQuotations) || bInField) && i + 1 < nLineEnd && a[i + 1] == m_cQuoteChar)
+            {
+              aRow.append (a[i + 1]);
+              i++;
+            }
+            else
+            {
+              bInQuotes = !bInQuotes;
+
+              // the tricky case of an embedded quote in the middle: a,bc"d"ef,g
+              if (!m_bStrictQuotes &&
+                  i - nLineStart > 2 &&
+                  a[i - 1] != m_cSeparatorChar &&
+                  i + 1 < nLineEnd &&
+                  a[i + 1] != m_cSeparatorChar)
+              {
+                if (m_bIgnoreLeadingWhiteSpace && aRow.isCurrentFieldAllWhitespace ())
+                  aRow.clearCurrentField ();
+                else
+                  aRow.append (c);
+              }
+            }
+            bInField = !bInField;
+          }
+          else
+            if (c == m_cSeparatorChar && !(bInQuotes && !m_bIgnoreQuotations))
+            {
+              aRow.endBufferedField ();
+              bInField = false;
+            }
+            else
+              if (!m_bStrictQuotes || (bInQuotes && !m_bIgnoreQuotations))
+              {
+                aRow.append (c);
+                bInField = true;
+              }
+      }
+
+      if (!bInQuotes || m_bIgnoreQuotations)
+      {
+        aRow.endBufferedField ();
+        return nNext;
+      }
+
+      if (nNext >= nEnd)
+      {
+        // Un-terminated quoted field at the end of the input - like CSVReader
+        // the pending field is dropped
+        return nEnd;
+      }
+
+      // continuing a quoted section, re-append newline
+      aRow.append ('\n');
+      nLineStart = nNext;
+    }
+  }
+}
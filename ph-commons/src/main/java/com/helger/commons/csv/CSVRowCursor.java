@@ -0,0 +1,475 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.csv;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A reusable cursor on a single CSV record as read by
+ * {@link CSVChunkedReader}. The same cursor object is handed out for every
+ * record processed by one worker, so neither the cursor itself nor the
+ * {@link CharSequence} field views returned by {@link #getField(int)} may be
+ * kept after the record callback returns. Use {@link #getFieldAsString(int)}
+ * or {@link #getAsList()} to retain values.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@NotThreadSafe
+public final class CSVRowCursor
+{
+  private static final int INITIAL_FIELD_COUNT = 16;
+  private static final double [] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15 };
+
+  /**
+   * A mutable {@link CharSequence} view on a single field.
+   */
+  private static final class FieldView implements CharSequence
+  {
+    private char [] m_aData;
+    private int m_nOfs;
+    private int m_nLen;
+
+    public int length ()
+    {
+      return m_nLen;
+    }
+
+    public char charAt (final int nIndex)
+    {
+      if (nIndex < 0 || nIndex >= m_nLen)
+        throw new IndexOutOfBoundsException ("Index " + nIndex + " is out of bounds for length " + m_nLen);
+      return m_aData[m_nOfs + nIndex];
+    }
+
+    @Nonnull
+    public CharSequence subSequence (final int nStart, final int nEnd)
+    {
+      return toString ().substring (nStart, nEnd);
+    }
+
+    @Override
+    @Nonnull
+    public String toString ()
+    {
+      return new String (m_aData, m_nOfs, m_nLen);
+    }
+  }
+
+  // The array the field offsets of the current record refer to
+  private char [] m_aData;
+  // The own buffer for fields that need unescaping
+  private char [] m_aBuf = new char [CCSV.INITIAL_STRING_SIZE];
+  private int m_nBufLen;
+  private int m_nFieldStart;
+  private int [] m_aFieldOfs = new int [INITIAL_FIELD_COUNT];
+  private int [] m_aFieldLen = new int [INITIAL_FIELD_COUNT];
+  private FieldView [] m_aViews = new FieldView [INITIAL_FIELD_COUNT];
+  private int m_nFieldCount;
+  private long m_nRecordIndex;
+
+  CSVRowCursor ()
+  {}
+
+  private void _ensureFieldCapacity ()
+  {
+    if (m_nFieldCount == m_aFieldOfs.length)
+    {
+      final int nNewSize = m_nFieldCount << 1;
+      m_aFieldOfs = Arrays.copyOf (m_aFieldOfs, nNewSize);
+      m_aFieldLen = Arrays.copyOf (m_aFieldLen, nNewSize);
+      m_aViews = Arrays.copyOf (m_aViews, nNewSize);
+    }
+  }
+
+  /**
+   * Start a new record whose fields are stored in the own buffer.
+   *
+   * @param nRecordIndex
+   *        The 0-based index of the record in the whole input.
+   */
+  void startBufferedRecord (final long nRecordIndex)
+  {
+    m_aData = m_aBuf;
+    m_nBufLen = 0;
+    m_nFieldStart = 0;
+    m_nFieldCount = 0;
+    m_nRecordIndex = nRecordIndex;
+  }
+
+  /**
+   * Start a new record whose fields directly reference the passed array.
+   *
+   * @param aData
+   *        The array the fields are contained in.
+   * @param nRecordIndex
+   *        The 0-based index of the record in the whole input.
+   */
+  void startDirectRecord (@Nonnull final char [] aData, final long nRecordIndex)
+  {
+    m_aData = aData;
+    m_nFieldCount = 0;
+    m_nRecordIndex = nRecordIndex;
+  }
+
+  void addDirectField (final int nOfs, final int nLen)
+  {
+    _ensureFieldCapacity ();
+    m_aFieldOfs[m_nFieldCount] = nOfs;
+    m_aFieldLen[m_nFieldCount] = nLen;
+    m_nFieldCount++;
+  }
+
+  void append (final char c)
+  {
+    if (m_nBufLen == m_aBuf.length)
+    {
+      m_aBuf = Arrays.copyOf (m_aBuf, m_nBufLen << 1);
+      m_aData = m_aBuf;
+    }
+    m_aBuf[m_nBufLen++] = c;
+  }
+
+  int getCurrentFieldLength ()
+  {
+    return m_nBufLen - m_nFieldStart;
+  }
+
+  boolean isCurrentFieldAllWhitespace ()
+  {
+    if (m_nBufLen == m_nFieldStart)
+      return false;
+    for (int i = m_nFieldStart; i < m_nBufLen; ++i)
+      if (!Character.isWhitespace (m_aBuf[i]))
+        return false;
+    return true;
+  }
+
+  void clearCurrentField ()
+  {
+    m_nBufLen = m_nFieldStart;
+  }
+
+  void endBufferedField ()
+  {
+    addDirectField (m_nFieldStart, m_nBufLen - m_nFieldStart);
+    m_nFieldStart = m_nBufLen;
+  }
+
+  /**
+   * @return The 0-based index of the current record in the whole input,
+   *         excluding skipped lines.
+   */
+  @Nonnegative
+  public long getRecordIndex ()
+  {
+    return m_nRecordIndex;
+  }
+
+  /**
+   * @return The number of fields of the current record. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getFieldCount ()
+  {
+    return m_nFieldCount;
+  }
+
+  private void _checkIndex (final int nIndex)
+  {
+    if (nIndex < 0 || nIndex >= m_nFieldCount)
+      throw new IndexOutOfBoundsException ("Field index " + nIndex + " is out of bounds for " + m_nFieldCount + " fields");
+  }
+
+  /**
+   * Get a view on the field with the provided index. The returned object is
+   * reused and only valid until the cursor moves to the next record.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @return The field view. Never <code>null</code>.
+   * @throws IndexOutOfBoundsException
+   *         if the index is invalid
+   */
+  @Nonnull
+  public CharSequence getField (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    FieldView ret = m_aViews[nIndex];
+    if (ret == null)
+    {
+      ret = new FieldView ();
+      m_aViews[nIndex] = ret;
+    }
+    ret.m_aData = m_aData;
+    ret.m_nOfs = m_aFieldOfs[nIndex];
+    ret.m_nLen = m_aFieldLen[nIndex];
+    return ret;
+  }
+
+  /**
+   * @param nIndex
+   *        The 0-based field index.
+   * @return The number of characters of the field. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getFieldLength (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    return m_aFieldLen[nIndex];
+  }
+
+  /**
+   * @param nIndex
+   *        The 0-based field index.
+   * @return <code>true</code> if the field has no characters.
+   */
+  public boolean isFieldEmpty (final int nIndex)
+  {
+    return getFieldLength (nIndex) == 0;
+  }
+
+  /**
+   * @param nIndex
+   *        The 0-based field index.
+   * @return A new String with the content of the field. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public String getFieldAsString (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    return new String (m_aData, m_aFieldOfs[nIndex], m_aFieldLen[nIndex]);
+  }
+
+  /**
+   * Get the field as an <code>int</code> without creating a String.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @return The parsed value.
+   * @throws NumberFormatException
+   *         if the field is not a valid decimal integer
+   */
+  public int getInt (final int nIndex)
+  {
+    return Integer.parseInt (getField (nIndex), 0, m_aFieldLen[nIndex], 10);
+  }
+
+  /**
+   * Get the field as an <code>int</code> without creating a String.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @param nDefault
+   *        The value to be returned if the field is empty or not a valid
+   *        decimal integer.
+   * @return The parsed value or the default.
+   */
+  public int getInt (final int nIndex, final int nDefault)
+  {
+    if (isFieldEmpty (nIndex))
+      return nDefault;
+    try
+    {
+      return getInt (nIndex);
+    }
+    catch (final NumberFormatException ex)
+    {
+      return nDefault;
+    }
+  }
+
+  /**
+   * Get the field as a <code>long</code> without creating a String.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @return The parsed value.
+   * @throws NumberFormatException
+   *         if the field is not a valid decimal integer
+   */
+  public long getLong (final int nIndex)
+  {
+    return Long.parseLong (getField (nIndex), 0, m_aFieldLen[nIndex], 10);
+  }
+
+  /**
+   * Get the field as a <code>long</code> without creating a String.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @param nDefault
+   *        The value to be returned if the field is empty or not a valid
+   *        decimal integer.
+   * @return The parsed value or the default.
+   */
+  public long getLong (final int nIndex, final long nDefault)
+  {
+    if (isFieldEmpty (nIndex))
+      return nDefault;
+    try
+    {
+      return getLong (nIndex);
+    }
+    catch (final NumberFormatException ex)
+    {
+      return nDefault;
+    }
+  }
+
+  /**
+   * Parse plain decimals like <code>-123.45</code> with at most 15 significant
+   * digits. Both the mantissa and the power of ten are exactly representable,
+   * so the division is correctly rounded.
+   *
+   * @return {@link Double#NaN} if the fast path is not applicable.
+   */
+  private static double _parseDoubleFast (@Nonnull final char [] aData, final int nOfs, final int nLen)
+  {
+    final int nEnd = nOfs + nLen;
+    int i = nOfs;
+    boolean bNegative = false;
+    if (aData[i] == '-' || aData[i] == '+')
+    {
+      bNegative = aData[i] == '-';
+      i++;
+    }
+    long nMantissa = 0;
+    int nDigits = 0;
+    int nFractionDigits = -1;
+    for (; i < nEnd; ++i)
+    {
+      final char c = aData[i];
+      if (c >= '0' && c <= '9')
+      {
+        if (++nDigits > 15)
+          return Double.NaN;
+        nMantissa = nMantissa * 10 + (c - '0');
+        if (nFractionDigits >= 0)
+          nFractionDigits++;
+      }
+      else
+        if (c == '.' && nFractionDigits < 0)
+          nFractionDigits = 0;
+        else
+          return Double.NaN;
+    }
+    if (nDigits == 0)
+      return Double.NaN;
+    double ret = nMantissa;
+    if (nFractionDigits > 0)
+      ret /= POW10[nFractionDigits];
+    return bNegative ? -ret : ret;
+  }
+
+  /**
+   * Get the field as a <code>double</code>. Plain decimal numbers are parsed
+   * without creating a String.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @return The parsed value.
+   * @throws NumberFormatException
+   *         if the field is not a valid floating point number
+   */
+  public double getDouble (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    final int nLen = m_aFieldLen[nIndex];
+    if (nLen > 0)
+    {
+      final double ret = _parseDoubleFast (m_aData, m_aFieldOfs[nIndex], nLen);
+      if (!Double.isNaN (ret))
+        return ret;
+    }
+    return Double.parseDouble (getFieldAsString (nIndex));
+  }
+
+  /**
+   * Get the field as a <code>double</code>.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @param dDefault
+   *        The value to be returned if the field is empty or not a valid
+   *        floating point number.
+   * @return The parsed value or the default.
+   */
+  public double getDouble (final int nIndex, final double dDefault)
+  {
+    if (isFieldEmpty (nIndex))
+      return dDefault;
+    try
+    {
+      return getDouble (nIndex);
+    }
+    catch (final NumberFormatException ex)
+    {
+      return dDefault;
+    }
+  }
+
+  /**
+   * Get the field as a <code>boolean</code> with the semantics of
+   * {@link Boolean#parseBoolean(String)}.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @return <code>true</code> if the field equals "true" ignoring the case.
+   */
+  public boolean getBoolean (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    if (m_aFieldLen[nIndex] != 4)
+      return false;
+    final int nOfs = m_aFieldOfs[nIndex];
+    return Character.toLowerCase (m_aData[nOfs]) == 't' &&
+           Character.toLowerCase (m_aData[nOfs + 1]) == 'r' &&
+           Character.toLowerCase (m_aData[nOfs + 2]) == 'u' &&
+           Character.toLowerCase (m_aData[nOfs + 3]) == 'e';
+  }
+
+  /**
+   * @return All fields of the current record as a new list of Strings, like
+   *         {@link CSVReader#readNext()} returns them. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAsList ()
+  {
+    final ICommonsList <String> ret = new CommonsArrayList <> (m_nFieldCount);
+    for (int i = 0; i < m_nFieldCount; ++i)
+      ret.add (new String (m_aData, m_aFieldOfs[i], m_aFieldLen[i]));
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("RecordIndex", m_nRecordIndex).append ("Fields", getAsList ()).getToString ();
+  }
+}
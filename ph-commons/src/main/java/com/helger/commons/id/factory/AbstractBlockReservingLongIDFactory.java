@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.id.factory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.concurrent.BasicThreadFactory;
+import com.helger.commons.concurrent.SimpleLock;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * An {@link ILongIDFactory} that reserves blocks of IDs from a device, like
+ * {@link AbstractPersistingLongIDFactory}, but hands out the IDs of the current
+ * block lock-free via an atomic counter. When half of a block is consumed, the
+ * next block is reserved asynchronously, so that threads rarely have to wait
+ * for IO. The reserve count adapts to the consumption rate: it is doubled if a
+ * block was consumed in less than half of the target block duration and
+ * halved if a block lasted longer than four times the target duration. All IDs
+ * of a reserved block that are not handed out before shutdown are lost.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+public abstract class AbstractBlockReservingLongIDFactory implements ILongIDFactory
+{
+  /** The default initial number of IDs to reserve at once */
+  public static final int DEFAULT_INITIAL_RESERVE_COUNT = 1_000;
+  /** The default maximum number of IDs to reserve at once */
+  public static final int DEFAULT_MAX_RESERVE_COUNT = 1_000_000;
+  /** The default duration a single block should last */
+  public static final Duration DEFAULT_TARGET_BLOCK_DURATION = Duration.ofSeconds (10);
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (AbstractBlockReservingLongIDFactory.class);
+  private static final ExecutorService PREFETCH_EXECUTOR = Executors.newSingleThreadExecutor (BasicThreadFactory.builder ()
+                                                                                                                 .namingPattern ("IDFactory-Prefetch-%d")
+                                                                                                                 .daemon (true)
+                                                                                                                 .build ());
+
+  /**
+   * A reserved range of IDs.
+   */
+  private static final class Block
+  {
+    private final long m_nStart;
+    private final long m_nEnd;
+    // When this ID is handed out, the next block is prefetched
+    private final long m_nPrefetchID;
+    private final AtomicLong m_aNextID;
+    private long m_nActivationNanos;
+
+    Block (final long nStart, final long nEnd)
+    {
+      m_nStart = nStart;
+      m_nEnd = nEnd;
+      m_nPrefetchID = nStart + (nEnd - nStart) / 2;
+      m_aNextID = new AtomicLong (nStart);
+    }
+  }
+
+  // The initial empty block that triggers the first reservation
+  private static final Block NO_BLOCK = new Block (0, 0);
+
+  protected final SimpleLock m_aLock = new SimpleLock ();
+  private final int m_nInitialReserveCount;
+  private final int m_nMaxReserveCount;
+  private final long m_nTargetBlockNanos;
+  private final AtomicReference <Block> m_aCurrentBlock = new AtomicReference <> (NO_BLOCK);
+  @GuardedBy ("m_aLock")
+  private int m_nReserveCount;
+  @GuardedBy ("m_aLock")
+  private CompletableFuture <Block> m_aPrefetchedBlock;
+  @GuardedBy ("m_aLock")
+  private long m_nLastEnd = -1L;
+
+  /**
+   * Constructor.
+   *
+   * @param nInitialReserveCount
+   *        The number of IDs to reserve initially. Must be &gt; 0.
+   * @param nMaxReserveCount
+   *        The maximum number of IDs to reserve at once. Must be &ge; the
+   *        initial reserve count.
+   * @param aTargetBlockDuration
+   *        The duration a single block should last. May not be
+   *        <code>null</code> and must be positive.
+   */
+  protected AbstractBlockReservingLongIDFactory (@Nonnegative final int nInitialReserveCount,
+                                                 @Nonnegative final int nMaxReserveCount,
+                                                 @Nonnull final Duration aTargetBlockDuration)
+  {
+    ValueEnforcer.isGT0 (nInitialReserveCount, "InitialReserveCount");
+    ValueEnforcer.isTrue (nMaxReserveCount >= nInitialReserveCount, "MaxReserveCount must be >= InitialReserveCount");
+    ValueEnforcer.notNull (aTargetBlockDuration, "TargetBlockDuration");
+    ValueEnforcer.isFalse (aTargetBlockDuration.isNegative () || aTargetBlockDuration.isZero (), "TargetBlockDuration must be positive");
+    m_nInitialReserveCount = nInitialReserveCount;
+    m_nMaxReserveCount = nMaxReserveCount;
+    m_nTargetBlockNanos = aTargetBlockDuration.toNanos ();
+    m_nReserveCount = nInitialReserveCount;
+  }
+
+  /**
+   * @return The initial number of IDs to reserve, as provided in the
+   *         constructor. Always &gt; 0.
+   */
+  @Nonnegative
+  public final int getInitialReserveCount ()
+  {
+    return m_nInitialReserveCount;
+  }
+
+  /**
+   * @return The maximum number of IDs to reserve, as provided in the
+   *         constructor. Always &gt; 0.
+   */
+  @Nonnegative
+  public final int getMaxReserveCount ()
+  {
+    return m_nMaxReserveCount;
+  }
+
+  /**
+   * @return The number of IDs that will be reserved with the next device
+   *         access. Always &gt; 0.
+   */
+  @Nonnegative
+  public final int getReserveCount ()
+  {
+    return m_aLock.lockedInt ( () -> m_nReserveCount);
+  }
+
+  /**
+   * Read the current ID from the device and write the read value plus the
+   * passed reserve count back to the device. The contract is identical to
+   * {@link AbstractPersistingLongIDFactory#readAndUpdateIDCounter(int)}. The
+   * method may be called from a background thread, but never concurrently
+   * for the same instance. The returned block is only used after this method
+   * returned, so the update must be durable at that point.
+   *
+   * @param nReserveCount
+   *        the number that should be added to the read value. Always &gt; 0.
+   * @return 0 if this method is called for a non-initialized device, the value
+   *         read from the device otherwise or {@link CGlobal#ILLEGAL_ULONG} in
+   *         case of an error.
+   */
+  protected abstract long readAndUpdateIDCounter (@Nonnegative int nReserveCount);
+
+  @Nonnull
+  private Block _reserveBlock (@Nonnegative final int nReserveCount)
+  {
+    final long nStart = readAndUpdateIDCounter (nReserveCount);
+    if (nStart == CGlobal.ILLEGAL_ULONG)
+      throw new IllegalStateException ("Failed to reserve " + nReserveCount + " IDs");
+    return new Block (nStart, nStart + nReserveCount);
+  }
+
+  private void _prefetchNextBlock (@Nonnull final Block aCurrentBlock)
+  {
+    m_aLock.locked ( () -> {
+      // Only prefetch, if the block was not yet switched
+      if (m_aCurrentBlock.get () == aCurrentBlock && m_aPrefetchedBlock == null)
+      {
+        final int nReserveCount = m_nReserveCount;
+        m_aPrefetchedBlock = CompletableFuture.supplyAsync ( () -> _reserveBlock (nReserveCount), PREFETCH_EXECUTOR);
+      }
+    });
+  }
+
+  private void _switchBlock (@Nonnull final Block aExhaustedBlock)
+  {
+    m_aLock.locked ( () -> {
+      if (m_aCurrentBlock.get () != aExhaustedBlock)
+      {
+        // Another thread already switched
+        return;
+      }
+
+      Block aNextBlock = null;
+      if (m_aPrefetchedBlock != null)
+      {
+        try
+        {
+          aNextBlock = m_aPrefetchedBlock.join ();
+        }
+        catch (final CompletionException ex)
+        {
+          LOGGER.warn ("Failed to prefetch the next ID block - retrying synchronously", ex.getCause ());
+        }
+        m_aPrefetchedBlock = null;
+      }
+      if (aNextBlock == null)
+        aNextBlock = _reserveBlock (m_nReserveCount);
+
+      // the new block may not start before the previous block ended!
+      if (m_nLastEnd >= 0 && aNextBlock.m_nStart < m_nLastEnd)
+        throw new IllegalStateException ("The read value " +
+                                         aNextBlock.m_nStart +
+                                         " is smaller than the last known ID " +
+                                         m_nLastEnd +
+                                         "!");
+
+      // Adapt the reserve count to the consumption rate
+      final long nNow = System.nanoTime ();
+      if (aExhaustedBlock != NO_BLOCK)
+      {
+        final long nDuration = nNow - aExhaustedBlock.m_nActivationNanos;
+        if (nDuration < m_nTargetBlockNanos / 2)
+          m_nReserveCount = (int) Math.min ((long) m_nReserveCount * 2, m_nMaxReserveCount);
+        else
+          if (nDuration > m_nTargetBlockNanos * 4)
+            m_nReserveCount = Math.max (m_nReserveCount / 2, m_nInitialReserveCount);
+      }
+
+      aNextBlock.m_nActivationNanos = nNow;
+      m_nLastEnd = aNextBlock.m_nEnd;
+      m_aCurrentBlock.set (aNextBlock);
+    });
+  }
+
+  /**
+   * Wait until a pending asynchronous reservation of the next block is
+   * finished. This may e.g. be used before shutdown or before the underlying
+   * device is removed.
+   */
+  public final void waitUntilPrefetchFinished ()
+  {
+    final CompletableFuture <Block> aPrefetchedBlock = m_aLock.lockedGet ( () -> m_aPrefetchedBlock);
+    if (aPrefetchedBlock != null)
+    {
+      try
+      {
+        aPrefetchedBlock.join ();
+      }
+      catch (final CompletionException ex)
+      {
+        // Will be retried synchronously on the next block switch
+      }
+    }
+  }
+
+  public final long getNewID ()
+  {
+    while (true)
+    {
+      final Block aBlock = m_aCurrentBlock.get ();
+      final long nID = aBlock.m_aNextID.getAndIncrement ();
+      if (nID < aBlock.m_nEnd)
+      {
+        // Exactly one thread hands out this ID
+        if (nID == aBlock.m_nPrefetchID)
+          _prefetchNextBlock (aBlock);
+        return nID;
+      }
+      _switchBlock (aBlock);
+    }
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final AbstractBlockReservingLongIDFactory rhs = (AbstractBlockReservingLongIDFactory) o;
+    return m_nInitialReserveCount == rhs.m_nInitialReserveCount &&
+           m_nMaxReserveCount == rhs.m_nMaxReserveCount &&
+           m_nTargetBlockNanos == rhs.m_nTargetBlockNanos;
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_nInitialReserveCount)
+                                       .append (m_nMaxReserveCount)
+                                       .append (m_nTargetBlockNanos)
+                                       .getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("InitialReserveCount", m_nInitialReserveCount)
+                                       .append ("MaxReserveCount", m_nMaxReserveCount)
+                                       .append ("TargetBlockNanos", m_nTargetBlockNanos)
+                                       .getToString ();
+  }
+}
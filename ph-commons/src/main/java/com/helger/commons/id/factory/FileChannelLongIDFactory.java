@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.id.factory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.io.file.FileHelper;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * {@link File} based block reserving {@link ILongIDFactory} implementation.
+ * In contrast to {@link FileLongIDFactory} the counter is stored in a small
+ * binary record that is updated in place via a {@link FileChannel} and forced
+ * to disk, instead of rewriting and renaming files. The record consists of two
+ * slots that are written alternately. Each slot contains the next free ID, a
+ * sequence number and a checksum, so that a torn write only affects the slot
+ * being written and the previous reservation stays readable. The first
+ * reservation is written to the first slot, so a file shorter than a single
+ * slot is the result of a torn initial write and is treated like a new file.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+public class FileChannelLongIDFactory extends AbstractBlockReservingLongIDFactory
+{
+  /** The size of a single slot in bytes */
+  public static final int SLOT_SIZE = 3 * Long.BYTES;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (FileChannelLongIDFactory.class);
+  private static final long CHECKSUM_SEED = 0x5DEECE66DL;
+
+  private final File m_aFile;
+  // Only accessed from readAndUpdateIDCounter which is never called
+  // concurrently
+  private final ByteBuffer m_aRecord = ByteBuffer.allocate (2 * SLOT_SIZE);
+
+  public FileChannelLongIDFactory (@Nonnull final File aFile)
+  {
+    this (aFile, DEFAULT_INITIAL_RESERVE_COUNT, DEFAULT_MAX_RESERVE_COUNT, DEFAULT_TARGET_BLOCK_DURATION);
+  }
+
+  public FileChannelLongIDFactory (@Nonnull final File aFile,
+                                   @Nonnegative final int nInitialReserveCount,
+                                   @Nonnegative final int nMaxReserveCount,
+                                   @Nonnull final Duration aTargetBlockDuration)
+  {
+    super (nInitialReserveCount, nMaxReserveCount, aTargetBlockDuration);
+    ValueEnforcer.notNull (aFile, "File");
+    if (!FileHelper.canReadAndWriteFile (aFile))
+      throw new IllegalArgumentException ("Cannot read and/or write the file " + aFile + "!");
+    m_aFile = aFile;
+  }
+
+  /**
+   * @return The {@link File} to write to, as provided in the constructor. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public final File getFile ()
+  {
+    return m_aFile;
+  }
+
+  private static long _getChecksum (final long nValue, final long nSequence)
+  {
+    return ((nValue ^ CHECKSUM_SEED) * 0x9E3779B97F4A7C15L) + nSequence * 31;
+  }
+
+  @Override
+  protected final long readAndUpdateIDCounter (@Nonnegative final int nReserveCount)
+  {
+    try (final FileChannel aFC = FileChannel.open (m_aFile.toPath (),
+                                                   StandardOpenOption.CREATE,
+                                                   StandardOpenOption.READ,
+                                                   StandardOpenOption.WRITE))
+    {
+      final long nFileSize = aFC.size ();
+      m_aRecord.clear ();
+      while (m_aRecord.hasRemaining () && aFC.read (m_aRecord, m_aRecord.position ()) > 0)
+      {
+        // read until full or EOF
+      }
+
+      // Use the valid slot with the highest sequence
+      long nValue = 0;
+      long nSequence = 0;
+      boolean bFoundSlot = false;
+      for (int nSlot = 0; nSlot < 2; ++nSlot)
+      {
+        final int nOfs = nSlot * SLOT_SIZE;
+        if (m_aRecord.position () >= nOfs + SLOT_SIZE)
+        {
+          final long nSlotValue = m_aRecord.getLong (nOfs);
+          final long nSlotSequence = m_aRecord.getLong (nOfs + Long.BYTES);
+          final long nSlotChecksum = m_aRecord.getLong (nOfs + 2 * Long.BYTES);
+          if (nSlotSequence > 0 && nSlotChecksum == _getChecksum (nSlotValue, nSlotSequence) && nSlotSequence > nSequence)
+          {
+            nValue = nSlotValue;
+            nSequence = nSlotSequence;
+            bFoundSlot = true;
+          }
+        }
+      }
+      if (!bFoundSlot && nFileSize >= SLOT_SIZE)
+      {
+        LOGGER.error ("The ID file '" +
+                      m_aFile.getAbsolutePath () +
+                      "' contains no valid ID record. Please resolve this conflict manually.");
+        return CGlobal.ILLEGAL_ULONG;
+      }
+
+      // Write the other slot
+      final long nNewValue = nValue + nReserveCount;
+      final long nNewSequence = nSequence + 1;
+      final ByteBuffer aSlot = ByteBuffer.allocate (SLOT_SIZE);
+      aSlot.putLong (nNewValue).putLong (nNewSequence).putLong (_getChecksum (nNewValue, nNewSequence)).flip ();
+      final long nPos = ((nNewSequence - 1) % 2) * SLOT_SIZE;
+      while (aSlot.hasRemaining ())
+        aFC.write (aSlot, nPos + aSlot.position ());
+      aFC.force (true);
+      return nValue;
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.error ("Error reserving " + nReserveCount + " IDs in '" + m_aFile.getAbsolutePath () + "'", ex);
+      return CGlobal.ILLEGAL_ULONG;
+    }
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (!super.equals (o))
+      return false;
+    final FileChannelLongIDFactory rhs = (FileChannelLongIDFactory) o;
+    return m_aFile.equals (rhs.m_aFile);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return HashCodeGenerator.getDerived (super.hashCode ()).append (m_aFile).getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return ToStringGenerator.getDerived (super.toString ()).append ("File", m_aFile).getToString ();
+  }
+}
@@ -48,14 +48,15 @@ public final class GlobalIDFactory
   public static final int STRING_ID_MAX_LENGTH = 20;
 
   private static final Logger LOGGER = LoggerFactory.getLogger (GlobalIDFactory.class);
+  // Only used for modifications - the volatile fields are read without locking
   private static final SimpleReadWriteLock RW_LOCK = new SimpleReadWriteLock ();
 
-  private static IIntIDFactory s_aIntIDFactory = new MemoryIntIDFactory ();
-  private static IIntIDFactory s_aPersistentIntIDFactory;
-  private static ILongIDFactory s_aLongIDFactory = new MemoryLongIDFactory ();
-  private static ILongIDFactory s_aPersistentLongIDFactory;
-  private static IStringIDFactory s_aStringIDFactory = new StringIDFromGlobalIntIDFactory ();
-  private static IStringIDFactory s_aPersistentStringIDFactory = new StringIDFromGlobalPersistentIntIDFactory ();
+  private static volatile IIntIDFactory s_aIntIDFactory = new MemoryIntIDFactory ();
+  private static volatile IIntIDFactory s_aPersistentIntIDFactory;
+  private static volatile ILongIDFactory s_aLongIDFactory = new MemoryLongIDFactory ();
+  private static volatile ILongIDFactory s_aPersistentLongIDFactory;
+  private static volatile IStringIDFactory s_aStringIDFactory = new StringIDFromGlobalIntIDFactory ();
+  private static volatile IStringIDFactory s_aPersistentStringIDFactory = new StringIDFromGlobalPersistentIntIDFactory ();
 
   @PresentForCodeCoverage
   private static final GlobalIDFactory INSTANCE = new GlobalIDFactory ();
@@ -75,7 +76,7 @@ public final class GlobalIDFactory
   @Nullable
   public static IIntIDFactory getIntIDFactory ()
   {
-    return RW_LOCK.readLockedGet ( () -> s_aIntIDFactory);
+    return s_aIntIDFactory;
   }
 
   @Nonnull
@@ -102,7 +103,7 @@ public final class GlobalIDFactory
   @Nullable
   public static IIntIDFactory getPersistentIntIDFactory ()
   {
-    return RW_LOCK.readLockedGet ( () -> s_aPersistentIntIDFactory);
+    return s_aPersistentIntIDFactory;
   }
 
   @Nonnull
@@ -130,7 +131,7 @@ public final class GlobalIDFactory
   @Nullable
   public static ILongIDFactory getLongIDFactory ()
   {
-    return RW_LOCK.readLockedGet ( () -> s_aLongIDFactory);
+    return s_aLongIDFactory;
   }
 
   @Nonnull
@@ -158,7 +159,7 @@ public final class GlobalIDFactory
   @Nullable
   public static ILongIDFactory getPersistentLongIDFactory ()
   {
-    return RW_LOCK.readLockedGet ( () -> s_aPersistentLongIDFactory);
+    return s_aPersistentLongIDFactory;
   }
 
   @Nonnull
@@ -186,7 +187,7 @@ public final class GlobalIDFactory
   @Nullable
   public static IStringIDFactory getStringIDFactory ()
   {
-    return RW_LOCK.readLockedGet ( () -> s_aStringIDFactory);
+    return s_aStringIDFactory;
   }
 
   @Nonnull
@@ -214,7 +215,7 @@ public final class GlobalIDFactory
   @Nullable
   public static IStringIDFactory getPersistentStringIDFactory ()
   {
-    return RW_LOCK.readLockedGet ( () -> s_aPersistentStringIDFactory);
+    return s_aPersistentStringIDFactory;
   }
 
   @Nonnull
@@ -235,12 +236,10 @@ public final class GlobalIDFactory
    */
   public static int getNewIntID ()
   {
-    return RW_LOCK.readLockedInt ( () -> {
-      final IIntIDFactory aFactory = s_aIntIDFactory;
-      if (aFactory == null)
-        throw new IllegalStateException ("No in-memory int ID factory has been supplied!");
-      return aFactory.getNewID ();
-    });
+    final IIntIDFactory aFactory = s_aIntIDFactory;
+    if (aFactory == null)
+      throw new IllegalStateException ("No in-memory int ID factory has been supplied!");
+    return aFactory.getNewID ();
   }
 
   /**
@@ -248,12 +247,10 @@ public final class GlobalIDFactory
    */
   public static int getNewPersistentIntID ()
   {
-    return RW_LOCK.readLockedInt ( () -> {
-      final IIntIDFactory aFactory = s_aPersistentIntIDFactory;
-      if (aFactory == null)
-        throw new IllegalStateException ("No persistent int ID factory has been supplied. Don't know how to create persistent IDs!");
-      return aFactory.getNewID ();
-    });
+    final IIntIDFactory aFactory = s_aPersistentIntIDFactory;
+    if (aFactory == null)
+      throw new IllegalStateException ("No persistent int ID factory has been supplied. Don't know how to create persistent IDs!");
+    return aFactory.getNewID ();
   }
 
   /**
@@ -261,12 +258,10 @@ public final class GlobalIDFactory
    */
   public static long getNewLongID ()
   {
-    return RW_LOCK.readLockedLong ( () -> {
-      final ILongIDFactory aFactory = s_aLongIDFactory;
-      if (aFactory == null)
-        throw new IllegalStateException ("No in-memory long ID factory has been supplied!");
-      return aFactory.getNewID ();
-    });
+    final ILongIDFactory aFactory = s_aLongIDFactory;
+    if (aFactory == null)
+      throw new IllegalStateException ("No in-memory long ID factory has been supplied!");
+    return aFactory.getNewID ();
   }
 
   /**
@@ -274,12 +269,10 @@ public final class GlobalIDFactory
    */
   public static long getNewPersistentLongID ()
   {
-    return RW_LOCK.readLockedLong ( () -> {
-      final ILongIDFactory aFactory = s_aPersistentLongIDFactory;
-      if (aFactory == null)
-        throw new IllegalStateException ("No persistent long ID factory has been supplied. Don't know how to create persistent IDs!");
-      return aFactory.getNewID ();
-    });
+    final ILongIDFactory aFactory = s_aPersistentLongIDFactory;
+    if (aFactory == null)
+      throw new IllegalStateException ("No persistent long ID factory has been supplied. Don't know how to create persistent IDs!");
+    return aFactory.getNewID ();
   }
 
   /**
@@ -288,19 +281,17 @@ public final class GlobalIDFactory
   @Nonnull
   public static String getNewStringID ()
   {
-    return RW_LOCK.readLockedGet ( () -> {
-      final IStringIDFactory aFactory = s_aStringIDFactory;
-      if (aFactory == null)
-        throw new IllegalStateException ("No in-memory string ID factory has been supplied!");
-
-      final String ret = aFactory.getNewID ();
-      if (ret.length () > STRING_ID_MAX_LENGTH)
-        throw new IllegalStateException ("The created String ID has a length of " +
-                                         ret.length () +
-                                         " which exceeds the maximum allowed length of " +
-                                         STRING_ID_MAX_LENGTH);
-      return ret;
-    });
+    final IStringIDFactory aFactory = s_aStringIDFactory;
+    if (aFactory == null)
+      throw new IllegalStateException ("No in-memory string ID factory has been supplied!");
+
+    final String ret = aFactory.getNewID ();
+    if (ret.length () > STRING_ID_MAX_LENGTH)
+      throw new IllegalStateException ("The created String ID has a length of " +
+                                       ret.length () +
+                                       " which exceeds the maximum allowed length of " +
+                                       STRING_ID_MAX_LENGTH);
+    return ret;
   }
 
   /**
@@ -309,19 +300,17 @@ public final class GlobalIDFactory
   @Nonnull
   public static String getNewPersistentStringID ()
   {
-    return RW_LOCK.readLockedGet ( () -> {
-      final IStringIDFactory aFactory = s_aPersistentStringIDFactory;
-      if (aFactory == null)
-        throw new IllegalStateException ("No persistent string ID factory has been supplied!");
-
-      final String ret = aFactory.getNewID ();
-      if (ret.length () > STRING_ID_MAX_LENGTH)
-        throw new IllegalStateException ("The created String ID has a length of " +
-                                         ret.length () +
-                                         " which exceeds the maximum allowed length of " +
-                                         STRING_ID_MAX_LENGTH);
-      return ret;
-    });
+    final IStringIDFactory aFactory = s_aPersistentStringIDFactory;
+    if (aFactory == null)
+      throw new IllegalStateException ("No persistent string ID factory has been supplied!");
+
+    final String ret = aFactory.getNewID ();
+    if (ret.length () > STRING_ID_MAX_LENGTH)
+      throw new IllegalStateException ("The created String ID has a length of " +
+                                       ret.length () +
+                                       " which exceeds the maximum allowed length of " +
+                                       STRING_ID_MAX_LENGTH);
+    return ret;
   }
 
   /**
@@ -333,16 +322,14 @@ public final class GlobalIDFactory
   {
     ValueEnforcer.isGT0 (nCount, "Count");
 
-    return RW_LOCK.readLockedGet ( () -> {
-      final IIntIDFactory aFactory = s_aIntIDFactory;
-      if (aFactory == null)
-        throw new IllegalStateException ("No in-memory int ID factory has been supplied!");
+    final IIntIDFactory aFactory = s_aIntIDFactory;
+    if (aFactory == null)
+      throw new IllegalStateException ("No in-memory int ID factory has been supplied!");
 
-      final int [] ret = new int [nCount];
-      for (int i = 0; i < nCount; ++i)
-        ret[i] = aFactory.getNewID ();
-      return ret;
-    });
+    final int [] ret = new int [nCount];
+    for (int i = 0; i < nCount; ++i)
+      ret[i] = aFactory.getNewID ();
+    return ret;
   }
 
   /**
@@ -354,16 +341,14 @@ public final class GlobalIDFactory
   {
     ValueEnforcer.isGT0 (nCount, "Count");
 
-    return RW_LOCK.readLockedGet ( () -> {
-      final IIntIDFactory aFactory = s_aPersistentIntIDFactory;
-      if (aFactory == null)
-        throw new IllegalStateException ("No persistent int ID factory has been supplied. Don't know how to create persistent IDs!");
+    final IIntIDFactory aFactory = s_aPersistentIntIDFactory;
+    if (aFactory == null)
+      throw new IllegalStateException ("No persistent int ID factory has been supplied. Don't know how to create persistent IDs!");
 
-      final int [] ret = new int [nCount];
-      for (int i = 0; i < nCount; ++i)
-        ret[i] = aFactory.getNewID ();
-      return ret;
-    });
+    final int [] ret = new int [nCount];
+    for (int i = 0; i < nCount; ++i)
+      ret[i] = aFactory.getNewID ();
+    return ret;
   }
 
   /**
@@ -375,16 +360,14 @@ public final class GlobalIDFactory
   {
     ValueEnforcer.isGT0 (nCount, "Count");
 
-    return RW_LOCK.readLockedGet ( () -> {
-      final ILongIDFactory aFactory = s_aLongIDFactory;
-      if (aFactory == null)
-        throw new IllegalStateException ("No in-memory long ID factory has been supplied!");
+    final ILongIDFactory aFactory = s_aLongIDFactory;
+    if (aFactory == null)
+      throw new IllegalStateException ("No in-memory long ID factory has been supplied!");
 
-      final long [] ret = new long [nCount];
-      for (int i = 0; i < nCount; ++i)
-        ret[i] = aFactory.getNewID ();
-      return ret;
-    });
+    final long [] ret = new long [nCount];
+    for (int i = 0; i < nCount; ++i)
+      ret[i] = aFactory.getNewID ();
+    return ret;
   }
 
   /**
@@ -396,16 +379,14 @@ public final class GlobalIDFactory
   {
     ValueEnforcer.isGT0 (nCount, "Count");
 
-    return RW_LOCK.readLockedGet ( () -> {
-      final ILongIDFactory aFactory = s_aPersistentLongIDFactory;
-      if (aFactory == null)
-        throw new IllegalStateException ("No persistent long ID factory has been supplied. Don't know how to create persistent IDs!");
+    final ILongIDFactory aFactory = s_aPersistentLongIDFactory;
+    if (aFactory == null)
+      throw new IllegalStateException ("No persistent long ID factory has been supplied. Don't know how to create persistent IDs!");
 
-      final long [] ret = new long [nCount];
-      for (int i = 0; i < nCount; ++i)
-        ret[i] = aFactory.getNewID ();
-      return ret;
-    });
+    final long [] ret = new long [nCount];
+    for (int i = 0; i < nCount; ++i)
+      ret[i] = aFactory.getNewID ();
+    return ret;
   }
 
   /**
@@ -418,23 +399,21 @@ public final class GlobalIDFactory
   {
     ValueEnforcer.isGT0 (nCount, "Count");
 
-    return RW_LOCK.readLockedGet ( () -> {
-      final IStringIDFactory aFactory = s_aStringIDFactory;
-      if (aFactory == null)
-        throw new IllegalStateException ("No in-memory string ID factory has been supplied!");
-
-      final String [] ret = new String [nCount];
-      for (int i = 0; i < nCount; ++i)
-      {
-        ret[i] = aFactory.getNewID ();
-        if (ret[i].length () > STRING_ID_MAX_LENGTH)
-          throw new IllegalStateException ("The created String ID has a length of " +
-                                           ret[i].length () +
-                                           " which exceeds the maximum allowed length of " +
-                                           STRING_ID_MAX_LENGTH);
-      }
-      return ret;
-    });
+    final IStringIDFactory aFactory = s_aStringIDFactory;
+    if (aFactory == null)
+      throw new IllegalStateException ("No in-memory string ID factory has been supplied!");
+
+    final String [] ret = new String [nCount];
+    for (int i = 0; i < nCount; ++i)
+    {
+      ret[i] = aFactory.getNewID ();
+      if (ret[i].length () > STRING_ID_MAX_LENGTH)
+        throw new IllegalStateException ("The created String ID has a length of " +
+                                         ret[i].length () +
+                                         " which exceeds the maximum allowed length of " +
+                                         STRING_ID_MAX_LENGTH);
+    }
+    return ret;
   }
 
   /**
@@ -447,22 +426,20 @@ public final class GlobalIDFactory
   {
     ValueEnforcer.isGT0 (nCount, "Count");
 
-    return RW_LOCK.readLockedGet ( () -> {
-      final IStringIDFactory aFactory = s_aPersistentStringIDFactory;
-      if (aFactory == null)
-        throw new IllegalStateException ("No persistent string ID factory has been supplied!");
-
-      final String [] ret = new String [nCount];
-      for (int i = 0; i < nCount; ++i)
-      {
-        ret[i] = aFactory.getNewID ();
-        if (ret[i].length () > STRING_ID_MAX_LENGTH)
-          throw new IllegalStateException ("The created String ID has a length of " +
-                                           ret[i].length () +
-                                           " which exceeds the maximum allowed length of " +
-                                           STRING_ID_MAX_LENGTH);
-      }
-      return ret;
-    });
+    final IStringIDFactory aFactory = s_aPersistentStringIDFactory;
+    if (aFactory == null)
+      throw new IllegalStateException ("No persistent string ID factory has been supplied!");
+
+    final String [] ret = new String [nCount];
+    for (int i = 0; i < nCount; ++i)
+    {
+      ret[i] = aFactory.getNewID ();
+      if (ret[i].length () > STRING_ID_MAX_LENGTH)
+        throw new IllegalStateException ("The created String ID has a length of " +
+                                         ret[i].length () +
+                                         " which exceeds the maximum allowed length of " +
+                                         STRING_ID_MAX_LENGTH);
+    }
+    return ret;
   }
 }
@@ -19,6 +19,7 @@ package com.helger.commons.io.channel;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
+import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
@@ -169,6 +170,94 @@ public final class ChannelHelper
     return nBytesWritten;
   }
 
+  /**
+   * Copy the content of a file channel, starting at its current position, to
+   * the destination channel using {@link FileChannel#transferTo(long, long,
+   * WritableByteChannel)}. Depending on the operating system this avoids
+   * copying the data into the Java heap. The position of the source channel is
+   * advanced by the number of bytes copied.
+   *
+   * @param aSrc
+   *        Source channel. May not be <code>null</code>. Is not closed after
+   *        the operation.
+   * @param aDest
+   *        Destination channel. May not be <code>null</code>. Is not closed
+   *        after the operation.
+   * @param nLimit
+   *        The maximum number of bytes to copy. May be &lt; 0 to indicate no
+   *        limit.
+   * @return The number of bytes copied. Only the bytes up to the size of the
+   *         source channel at the time of the call are copied.
+   * @throws IOException
+   *         In case of IO error
+   * @since 11.0.1
+   */
+  @Nonnegative
+  public static long transferTo (@Nonnull @WillNotClose final FileChannel aSrc,
+                                 @Nonnull @WillNotClose final WritableByteChannel aDest,
+                                 final long nLimit) throws IOException
+  {
+    ValueEnforcer.notNull (aSrc, "SourceChannel");
+    ValueEnforcer.notNull (aDest, "DestinationChannel");
+
+    final long nStartPos = aSrc.position ();
+    long nRest = Math.max (0, aSrc.size () - nStartPos);
+    if (nLimit >= 0)
+      nRest = Math.min (nRest, nLimit);
+
+    long nPos = nStartPos;
+    while (nRest > 0)
+    {
+      // May transfer less than requested
+      final long nTransferred = aSrc.transferTo (nPos, nRest, aDest);
+      if (nTransferred <= 0)
+      {
+        // Source was truncated in the meantime
+        break;
+      }
+      nPos += nTransferred;
+      nRest -= nTransferred;
+    }
+    aSrc.position (nPos);
+    return nPos - nStartPos;
+  }
+
+  /**
+   * Write the remaining content of the passed buffer to the destination
+   * channel. If the buffer is a memory mapped buffer, no copy into the Java
+   * heap is needed. The position of the buffer is advanced by the number of
+   * bytes written.
+   *
+   * @param aSrc
+   *        Source buffer. May not be <code>null</code>.
+   * @param aDest
+   *        Destination channel. May not be <code>null</code>. Is not closed
+   *        after the operation.
+   * @param nLimit
+   *        The maximum number of bytes to write. May be &lt; 0 to indicate no
+   *        limit.
+   * @return The number of bytes written.
+   * @throws IOException
+   *         In case of IO error
+   * @since 11.0.1
+   */
+  @Nonnegative
+  public static long writeFully (@Nonnull final ByteBuffer aSrc,
+                                 @Nonnull @WillNotClose final WritableByteChannel aDest,
+                                 final long nLimit) throws IOException
+  {
+    ValueEnforcer.notNull (aSrc, "SourceBuffer");
+    ValueEnforcer.notNull (aDest, "DestinationChannel");
+
+    final int nBytes = nLimit >= 0 && nLimit < aSrc.remaining () ? (int) nLimit : aSrc.remaining ();
+    final ByteBuffer aSlice = aSrc.duplicate ();
+    aSlice.limit (aSlice.position () + nBytes);
+    while (aSlice.hasRemaining ())
+      aDest.write (aSlice);
+    aSrc.position (aSrc.position () + nBytes);
+    return nBytes;
+  }
+
   @Nonnull
   public static ESuccess close (@Nullable final Channel aChannel)
   {
@@ -0,0 +1,348 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.Charset;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.WillNotClose;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.IWriteToStream;
+import com.helger.commons.lang.IHasSize;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A non-synchronized byte array output stream that stores its content in a
+ * list of chunks instead of a single array. In contrast to
+ * {@link NonBlockingByteArrayOutputStream} growing never copies already
+ * written data - a new chunk is simply appended. Chunk sizes double until
+ * the configured maximum chunk size is reached. After {@link #reset()} all
+ * allocated chunks are reused.<br>
+ * The content can be written to a {@link GatheringByteChannel} without
+ * copying via {@link #writeTo(GatheringByteChannel)}.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+public class ChunkedByteArrayOutputStream extends OutputStream implements IHasSize, IWriteToStream
+{
+  /** The default size of the first chunk */
+  public static final int DEFAULT_INITIAL_CHUNK_SIZE = 1024;
+  /** The default maximum size of a single chunk */
+  public static final int DEFAULT_MAX_CHUNK_SIZE = 1024 * 1024;
+
+  private final int m_nMaxChunkSize;
+  private final ICommonsList <byte []> m_aChunks = new CommonsArrayList <> ();
+  // Index of the chunk currently written to
+  private int m_nChunkIndex;
+  // Position inside the current chunk
+  private int m_nChunkPos;
+  private long m_nCount;
+
+  /**
+   * Creates a new chunked output stream with the default chunk sizes.
+   */
+  public ChunkedByteArrayOutputStream ()
+  {
+    this (DEFAULT_INITIAL_CHUNK_SIZE, DEFAULT_MAX_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a new chunked output stream.
+   *
+   * @param nInitialChunkSize
+   *        The size of the first chunk. Must be &gt; 0.
+   * @param nMaxChunkSize
+   *        The maximum size of a single chunk. Must be &ge; the initial chunk
+   *        size.
+   */
+  public ChunkedByteArrayOutputStream (@Nonnegative final int nInitialChunkSize, @Nonnegative final int nMaxChunkSize)
+  {
+    ValueEnforcer.isGT0 (nInitialChunkSize, "InitialChunkSize");
+    ValueEnforcer.isTrue (nMaxChunkSize >= nInitialChunkSize, "MaxChunkSize must be >= InitialChunkSize");
+    m_nMaxChunkSize = nMaxChunkSize;
+    m_aChunks.add (new byte [nInitialChunkSize]);
+  }
+
+  private void _nextChunk ()
+  {
+    m_nChunkIndex++;
+    m_nChunkPos = 0;
+    if (m_nChunkIndex == m_aChunks.size ())
+    {
+      // Allocate a new chunk - nothing is copied
+      final int nLastSize = m_aChunks.getLast ().length;
+      m_aChunks.add (new byte [(int) Math.min ((long) nLastSize << 1, m_nMaxChunkSize)]);
+    }
+    // else reuse the chunk allocated before the last reset
+  }
+
+  @Override
+  public void write (final int b)
+  {
+    byte [] aChunk = m_aChunks.get (m_nChunkIndex);
+    if (m_nChunkPos == aChunk.length)
+    {
+      _nextChunk ();
+      aChunk = m_aChunks.get (m_nChunkIndex);
+    }
+    aChunk[m_nChunkPos++] = (byte) b;
+    m_nCount++;
+  }
+
+  @Override
+  public void write (@Nonnull final byte [] aBuf, final int nOfs, final int nLen)
+  {
+    int nSrcOfs = nOfs;
+    int nRest = nLen;
+    while (nRest > 0)
+    {
+      byte [] aChunk = m_aChunks.get (m_nChunkIndex);
+      if (m_nChunkPos == aChunk.length)
+      {
+        _nextChunk ();
+        aChunk = m_aChunks.get (m_nChunkIndex);
+      }
+      final int nPart = Math.min (nRest, aChunk.length - m_nChunkPos);
+      System.arraycopy (aBuf, nSrcOfs, aChunk, m_nChunkPos, nPart);
+      m_nChunkPos += nPart;
+      nSrcOfs += nPart;
+      nRest -= nPart;
+    }
+    if (nLen > 0)
+      m_nCount += nLen;
+  }
+
+  /**
+   * Reads the given {@link InputStream} completely into this stream.
+   *
+   * @param aIS
+   *        the InputStream to read from. May not be <code>null</code>. Is not
+   *        closed internally.
+   * @throws IOException
+   *         If reading fails
+   */
+  public void readFrom (@Nonnull @WillNotClose final InputStream aIS) throws IOException
+  {
+    while (true)
+    {
+      byte [] aChunk = m_aChunks.get (m_nChunkIndex);
+      if (m_nChunkPos == aChunk.length)
+      {
+        _nextChunk ();
+        aChunk = m_aChunks.get (m_nChunkIndex);
+      }
+
+      final int nBytesRead = aIS.read (aChunk, m_nChunkPos, aChunk.length - m_nChunkPos);
+      if (nBytesRead < 0)
+        return;
+      m_nChunkPos += nBytesRead;
+      m_nCount += nBytesRead;
+    }
+  }
+
+  /**
+   * Writes the complete content of this stream to the specified output stream.
+   * The content of this stream is not altered by calling this method.
+   *
+   * @param aOS
+   *        the output stream to which to write the data. May not be
+   *        <code>null</code>.
+   * @exception IOException
+   *            if an I/O error occurs.
+   */
+  public void writeTo (@Nonnull @WillNotClose final OutputStream aOS) throws IOException
+  {
+    for (int i = 0; i < m_nChunkIndex; ++i)
+    {
+      final byte [] aChunk = m_aChunks.get (i);
+      aOS.write (aChunk, 0, aChunk.length);
+    }
+    if (m_nChunkPos > 0)
+      aOS.write (m_aChunks.get (m_nChunkIndex), 0, m_nChunkPos);
+  }
+
+  /**
+   * Writes the complete content of this stream to the specified channel using
+   * gathering writes, so that no chunk is copied. The content of this stream
+   * is not altered by calling this method.
+   *
+   * @param aChannel
+   *        The channel to write to. May not be <code>null</code>.
+   * @return The number of bytes written. Always &ge; 0.
+   * @exception IOException
+   *            if an I/O error occurs.
+   */
+  @Nonnegative
+  public long writeTo (@Nonnull @WillNotClose final GatheringByteChannel aChannel) throws IOException
+  {
+    ValueEnforcer.notNull (aChannel, "Channel");
+
+    final ByteBuffer [] aBuffers = getAsByteBuffers ();
+    int nFirst = 0;
+    long nTotal = 0;
+    while (nTotal < m_nCount)
+    {
+      nTotal += aChannel.write (aBuffers, nFirst, aBuffers.length - nFirst);
+      // Skip all completely written buffers
+      while (nFirst < aBuffers.length && !aBuffers[nFirst].hasRemaining ())
+        nFirst++;
+    }
+    return nTotal;
+  }
+
+  /**
+   * Resets this stream to be empty. All allocated chunks are kept and reused
+   * for subsequent writes.
+   */
+  public void reset ()
+  {
+    m_nChunkIndex = 0;
+    m_nChunkPos = 0;
+    m_nCount = 0;
+  }
+
+  /**
+   * @return A copy of the current content as a single byte array. Never
+   *         <code>null</code>.
+   * @throws IllegalStateException
+   *         If the content is too large for a single array.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public byte [] toByteArray ()
+  {
+    if (m_nCount > Integer.MAX_VALUE - 8)
+      throw new IllegalStateException ("The content of " + m_nCount + " bytes is too large for a single array");
+
+    final byte [] ret = new byte [(int) m_nCount];
+    int nDstOfs = 0;
+    for (int i = 0; i < m_nChunkIndex; ++i)
+    {
+      final byte [] aChunk = m_aChunks.get (i);
+      System.arraycopy (aChunk, 0, ret, nDstOfs, aChunk.length);
+      nDstOfs += aChunk.length;
+    }
+    System.arraycopy (m_aChunks.get (m_nChunkIndex), 0, ret, nDstOfs, m_nChunkPos);
+    return ret;
+  }
+
+  /**
+   * Get the current content as byte buffers <b>WITHOUT COPYING</b> the
+   * chunks. Any later modification of this stream may be visible in the
+   * returned buffers.
+   *
+   * @return A new array with one buffer per used chunk. Never
+   *         <code>null</code> and never empty.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ByteBuffer [] getAsByteBuffers ()
+  {
+    final ByteBuffer [] ret = new ByteBuffer [m_nChunkIndex + 1];
+    for (int i = 0; i < m_nChunkIndex; ++i)
+      ret[i] = ByteBuffer.wrap (m_aChunks.get (i));
+    ret[m_nChunkIndex] = ByteBuffer.wrap (m_aChunks.get (m_nChunkIndex), 0, m_nChunkPos);
+    return ret;
+  }
+
+  /**
+   * Create a new InputStream on the contained chunks <b>WITHOUT COPYING</b>
+   * them.
+   *
+   * @return A new {@link ByteBuffersInputStream}. Never <code>null</code>.
+   */
+  @Nonnull
+  public ByteBuffersInputStream getAsInputStream ()
+  {
+    return new ByteBuffersInputStream (getAsByteBuffers ());
+  }
+
+  /**
+   * Get the content as a string without modifying this stream.
+   *
+   * @param aCharset
+   *        The charset to be used. May not be <code>null</code>.
+   * @return The String representation. Never <code>null</code>.
+   */
+  @Nonnull
+  public String getAsString (@Nonnull final Charset aCharset)
+  {
+    return new String (toByteArray (), aCharset);
+  }
+
+  /**
+   * @return The number of bytes written so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getSizeLong ()
+  {
+    return m_nCount;
+  }
+
+  /**
+   * @return The number of bytes written so far, limited to
+   *         {@link Integer#MAX_VALUE}.
+   * @see #getSizeLong()
+   */
+  @Nonnegative
+  public int size ()
+  {
+    return (int) Math.min (m_nCount, Integer.MAX_VALUE);
+  }
+
+  public boolean isEmpty ()
+  {
+    return m_nCount == 0;
+  }
+
+  /**
+   * @return The number of allocated chunks. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getChunkCount ()
+  {
+    return m_aChunks.size ();
+  }
+
+  /**
+   * Closing this stream has no effect. The methods in this class can be called
+   * after the stream has been closed.
+   */
+  @Override
+  public void close ()
+  {}
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("MaxChunkSize", m_nMaxChunkSize)
+                                       .append ("Chunks#", m_aChunks.size ())
+                                       .append ("Count", m_nCount)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.stream;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.annotation.PresentForCodeCoverage;
+import com.helger.commons.annotation.ReturnsMutableObject;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.StatisticsManager;
+
+/**
+ * A thread-local recycler for the default copy buffers of {@link StreamHelper}.
+ * Each thread keeps at most one byte buffer and one char buffer of
+ * {@link StreamHelper#DEFAULT_BUFSIZE}. A buffer that was acquired is owned
+ * exclusively by the caller until it is released again, so nested copy
+ * operations on the same thread simply receive a freshly allocated buffer.
+ * Buffers of a different size are never retained.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+public final class StreamBufferRecycler
+{
+  /** By default recycling is enabled */
+  public static final boolean DEFAULT_ENABLED = true;
+
+  private static final IMutableStatisticsHandlerCounter STATS_REUSED = StatisticsManager.getCounterHandler (StreamBufferRecycler.class.getName () +
+                                                                                                           "$REUSED");
+  private static final IMutableStatisticsHandlerCounter STATS_ALLOCATED = StatisticsManager.getCounterHandler (StreamBufferRecycler.class.getName () +
+                                                                                                              "$ALLOCATED");
+
+  private static final class Slots
+  {
+    private byte [] m_aBytes;
+    private char [] m_aChars;
+  }
+
+  private static final ThreadLocal <Slots> SLOTS = ThreadLocal.withInitial (Slots::new);
+  private static final AtomicBoolean ENABLED = new AtomicBoolean (DEFAULT_ENABLED);
+
+  @PresentForCodeCoverage
+  private static final StreamBufferRecycler INSTANCE = new StreamBufferRecycler ();
+
+  private StreamBufferRecycler ()
+  {}
+
+  /**
+   * @return <code>true</code> if buffers are recycled, <code>false</code> if
+   *         every acquisition allocates a new buffer.
+   */
+  public static boolean isEnabled ()
+  {
+    return ENABLED.get ();
+  }
+
+  /**
+   * Enable or disable buffer recycling. Disabling it also drops the buffers
+   * cached for the calling thread. Buffers cached by other threads are
+   * released once these threads die.
+   *
+   * @param bEnabled
+   *        <code>true</code> to enable recycling, <code>false</code> to
+   *        disable it.
+   */
+  public static void setEnabled (final boolean bEnabled)
+  {
+    ENABLED.set (bEnabled);
+    if (!bEnabled)
+      SLOTS.remove ();
+  }
+
+  /**
+   * Acquire a byte buffer of {@link StreamHelper#DEFAULT_BUFSIZE} bytes. The
+   * content of the returned buffer is undefined.
+   *
+   * @return A buffer exclusively owned by the caller. Never <code>null</code>.
+   * @see #releaseBytes(byte[])
+   */
+  @Nonnull
+  @ReturnsMutableObject
+  public static byte [] acquireBytes ()
+  {
+    if (ENABLED.get ())
+    {
+      final Slots aSlots = SLOTS.get ();
+      final byte [] ret = aSlots.m_aBytes;
+      if (ret != null)
+      {
+        aSlots.m_aBytes = null;
+        STATS_REUSED.increment ();
+        return ret;
+      }
+    }
+    STATS_ALLOCATED.increment ();
+    return new byte [StreamHelper.DEFAULT_BUFSIZE];
+  }
+
+  /**
+   * Return a byte buffer previously acquired via {@link #acquireBytes()}. The
+   * caller must not use the buffer afterwards.
+   *
+   * @param aBuffer
+   *        The buffer to return. May be <code>null</code>. Buffers of a
+   *        different size are silently ignored.
+   */
+  public static void releaseBytes (@Nullable final byte [] aBuffer)
+  {
+    if (aBuffer != null && aBuffer.length == StreamHelper.DEFAULT_BUFSIZE && ENABLED.get ())
+      SLOTS.get ().m_aBytes = aBuffer;
+  }
+
+  /**
+   * Acquire a char buffer of {@link StreamHelper#DEFAULT_BUFSIZE} chars. The
+   * content of the returned buffer is undefined.
+   *
+   * @return A buffer exclusively owned by the caller. Never <code>null</code>.
+   * @see #releaseChars(char[])
+   */
+  @Nonnull
+  @ReturnsMutableObject
+  public static char [] acquireChars ()
+  {
+    if (ENABLED.get ())
+    {
+      final Slots aSlots = SLOTS.get ();
+      final char [] ret = aSlots.m_aChars;
+      if (ret != null)
+      {
+        aSlots.m_aChars = null;
+        STATS_REUSED.increment ();
+        return ret;
+      }
+    }
+    STATS_ALLOCATED.increment ();
+    return new char [StreamHelper.DEFAULT_BUFSIZE];
+  }
+
+  /**
+   * Return a char buffer previously acquired via {@link #acquireChars()}. The
+   * caller must not use the buffer afterwards.
+   *
+   * @param aBuffer
+   *        The buffer to return. May be <code>null</code>. Buffers of a
+   *        different size are silently ignored.
+   */
+  public static void releaseChars (@Nullable final char [] aBuffer)
+  {
+    if (aBuffer != null && aBuffer.length == StreamHelper.DEFAULT_BUFSIZE && ENABLED.get ())
+      SLOTS.get ().m_aChars = aBuffer;
+  }
+}
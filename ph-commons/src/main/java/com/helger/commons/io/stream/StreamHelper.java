@@ -17,6 +17,8 @@
 package com.helger.commons.io.stream;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -45,6 +47,7 @@ import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.exception.mock.IMockException;
 import com.helger.commons.io.IHasInputStream;
+import com.helger.commons.io.channel.ChannelHelper;
 import com.helger.commons.mutable.MutableLong;
 import com.helger.commons.state.ESuccess;
 import com.helger.commons.statistics.IMutableStatisticsHandlerSize;
@@ -280,6 +283,7 @@ public final class StreamHelper
   {
     public static final boolean DEFAULT_CLOSE_SOURCE = false;
     public static final boolean DEFAULT_CLOSE_DESTINATION = false;
+    public static final boolean DEFAULT_USE_CHANNELS = false;
 
     private InputStream m_aIS;
     private boolean m_bCloseIS = DEFAULT_CLOSE_SOURCE;
@@ -289,6 +293,7 @@ public final class StreamHelper
     private long m_nLimit = CGlobal.ILLEGAL_ULONG;
     private IExceptionCallback <IOException> m_aExceptionCallback;
     private MutableLong m_aCopyByteCount;
+    private boolean m_bUseChannels = DEFAULT_USE_CHANNELS;
 
     /**
      * @param a
@@ -342,7 +347,9 @@ public final class StreamHelper
 
     /**
      * @param a
-     *        The buffer to use. May be <code>null</code>.
+     *        The buffer to use. May be <code>null</code>. If no buffer is
+     *        provided, a recycled one from {@link StreamBufferRecycler} is
+     *        used.
      * @return this for chaining
      */
     @Nonnull
@@ -422,6 +429,71 @@ public final class StreamHelper
       return this;
     }
 
+    /**
+     * @param b
+     *        <code>true</code> to copy via NIO channels if both ends support it,
+     *        <code>false</code> to always copy via the byte buffer. Channels are
+     *        used if the source is a {@link FileInputStream} or a (memory
+     *        mapped) {@link ByteBufferInputStream} and the destination is a
+     *        {@link FileOutputStream}. Subclasses of these streams are never
+     *        copied via channels. Default is {@link #DEFAULT_USE_CHANNELS}.
+     * @return this for chaining
+     * @since 11.0.1
+     */
+    @Nonnull
+    public CopyByteStreamBuilder useChannels (final boolean b)
+    {
+      m_bUseChannels = b;
+      return this;
+    }
+
+    /**
+     * Copy as much as possible without a heap buffer. Subclasses of the file
+     * streams are not considered, as they might change the read or write
+     * behaviour. The position of the streams is shared with their channels, so
+     * the remaining bytes (e.g. of a growing file) can afterwards be copied with
+     * the regular stream methods.
+     *
+     * @return The number of bytes copied. Always &ge; 0.
+     */
+    @Nonnegative
+    private static long _copyViaChannels (@Nonnull @WillNotClose final InputStream aIS,
+                                          @Nonnull @WillNotClose final OutputStream aOS,
+                                          final long nLimit) throws IOException
+    {
+      if (aOS.getClass () != FileOutputStream.class)
+        return 0;
+
+      final FileChannel aDstChannel = ((FileOutputStream) aOS).getChannel ();
+      if (aIS.getClass () == FileInputStream.class)
+      {
+        final FileChannel aSrcChannel = ((FileInputStream) aIS).getChannel ();
+        final long nSize;
+        try
+        {
+          nSize = aSrcChannel.size () - aSrcChannel.position ();
+        }
+        catch (final IOException ex)
+        {
+          // E.g. a pipe - use the stream
+          return 0;
+        }
+        if (nSize <= 0)
+          return 0;
+        return ChannelHelper.transferTo (aSrcChannel, aDstChannel, nLimit);
+      }
+
+      if (aIS.getClass () == ByteBufferInputStream.class)
+      {
+        final ByteBufferInputStream aBBIS = (ByteBufferInputStream) aIS;
+        if (aBBIS.isClosed ())
+          return 0;
+        final ByteBuffer aSrcBuffer = aBBIS.getBuffer ();
+        return ChannelHelper.writeFully (aSrcBuffer, aDstChannel, nLimit);
+      }
+      return 0;
+    }
+
     @Nonnegative
     private static long _copyInputStreamToOutputStream (@Nonnull @WillNotClose final InputStream aIS,
                                                         @Nonnull @WillNotClose final OutputStream aOS,
@@ -495,14 +567,31 @@ public final class StreamHelper
           return ESuccess.FAILURE;
         }
 
-        final byte [] aBuffer = m_aBuffer != null && m_aBuffer.length > 0 ? m_aBuffer : createDefaultCopyBufferBytes ();
-
         // both streams are not null
-        final long nTotalBytesCopied;
-        if (m_nLimit < 0)
-          nTotalBytesCopied = _copyInputStreamToOutputStream (m_aIS, m_aOS, aBuffer);
-        else
-          nTotalBytesCopied = _copyInputStreamToOutputStreamWithLimit (m_aIS, m_aOS, aBuffer, m_nLimit);
+        long nTotalBytesCopied = 0;
+        if (m_bUseChannels)
+          nTotalBytesCopied = _copyViaChannels (m_aIS, m_aOS, m_nLimit);
+
+        // Copy the rest via the stream API
+        final long nRestLimit = m_nLimit < 0 ? CGlobal.ILLEGAL_ULONG : m_nLimit - nTotalBytesCopied;
+        if (nRestLimit != 0)
+        {
+          // Use a recycled buffer if none was provided
+          final boolean bOwnBuffer = m_aBuffer == null || m_aBuffer.length == 0;
+          final byte [] aBuffer = bOwnBuffer ? StreamBufferRecycler.acquireBytes () : m_aBuffer;
+          try
+          {
+            if (nRestLimit < 0)
+              nTotalBytesCopied += _copyInputStreamToOutputStream (m_aIS, m_aOS, aBuffer);
+            else
+              nTotalBytesCopied += _copyInputStreamToOutputStreamWithLimit (m_aIS, m_aOS, aBuffer, nRestLimit);
+          }
+          finally
+          {
+            if (bOwnBuffer)
+              StreamBufferRecycler.releaseBytes (aBuffer);
+          }
+        }
 
         // Add to statistics
         STATS_COPY_BYTES.addSize (nTotalBytesCopied);
@@ -822,7 +911,9 @@ public final class StreamHelper
 
     /**
      * @param a
-     *        The buffer to use. May be <code>null</code>.
+     *        The buffer to use. May be <code>null</code>. If no buffer is
+     *        provided, a recycled one from {@link StreamBufferRecycler} is
+     *        used.
      * @return this for chaining
      */
     @Nonnull
@@ -973,13 +1064,23 @@ public final class StreamHelper
           return ESuccess.FAILURE;
         }
 
-        final char [] aBuffer = m_aBuffer != null && m_aBuffer.length > 0 ? m_aBuffer : createDefaultCopyBufferChars ();
+        // Use a recycled buffer if none was provided
+        final boolean bOwnBuffer = m_aBuffer == null || m_aBuffer.length == 0;
+        final char [] aBuffer = bOwnBuffer ? StreamBufferRecycler.acquireChars () : m_aBuffer;
         // both streams are not null
         final long nTotalCharsCopied;
-        if (m_nLimit < 0)
-          nTotalCharsCopied = _copyReaderToWriter (m_aReader, m_aWriter, aBuffer);
-        else
-          nTotalCharsCopied = _copyReaderToWriterWithLimit (m_aReader, m_aWriter, aBuffer, m_nLimit);
+        try
+        {
+          if (m_nLimit < 0)
+            nTotalCharsCopied = _copyReaderToWriter (m_aReader, m_aWriter, aBuffer);
+          else
+            nTotalCharsCopied = _copyReaderToWriterWithLimit (m_aReader, m_aWriter, aBuffer, m_nLimit);
+        }
+        finally
+        {
+          if (bOwnBuffer)
+            StreamBufferRecycler.releaseChars (aBuffer);
+        }
 
         // Add to statistics
         STATS_COPY_CHARS.addSize (nTotalCharsCopied);
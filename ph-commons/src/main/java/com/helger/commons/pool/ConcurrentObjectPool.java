@@ -0,0 +1,370 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.pool;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.state.ESuccess;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCache;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.IMutableStatisticsHandlerTimer;
+import com.helger.commons.statistics.StatisticsManager;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.commons.timing.StopWatch;
+
+/**
+ * A high concurrency generic object pool that does not use any lock. Compared
+ * to {@link ObjectPool} it has the following characteristics:
+ * <ul>
+ * <li>Each thread remembers the last object it returned and gets it back on the
+ * next borrow, as long as no other thread took it in between.</li>
+ * <li>All other idle objects are kept on a lock-free shared stack.</li>
+ * <li>Returning an object is an O(1) operation.</li>
+ * <li>Borrowing never blocks: if no idle object is present, a new one is
+ * created via the factory. On return only up to the configured number of
+ * objects is retained, all others are discarded.</li>
+ * <li>Idle objects that were not used for longer than the configured maximum
+ * idle duration are discarded.</li>
+ * </ul>
+ * The time spent in {@link #borrowObject()} for creating new objects, the
+ * hit/miss ratio and the number of discarded objects are recorded in the
+ * {@link StatisticsManager} using the provided statistics name.
+ *
+ * @author Philip Helger
+ * @param <DATATYPE>
+ *        The type of the objects contained in the pool.
+ * @since 11.0.1
+ */
+@ThreadSafe
+public final class ConcurrentObjectPool <DATATYPE> implements IMutableObjectPool <DATATYPE>
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (ConcurrentObjectPool.class);
+
+  private static final int STATE_IDLE = 0;
+  private static final int STATE_BORROWED = 1;
+  private static final int STATE_DISCARDED = 2;
+
+  /**
+   * The internal handle for a single pooled object.
+   *
+   * @author Philip Helger
+   * @param <T>
+   *        object type
+   */
+  private static final class Entry <T>
+  {
+    private final T m_aObject;
+    private final AtomicInteger m_aState = new AtomicInteger (STATE_IDLE);
+    // Is this entry contained in the shared stack?
+    private final AtomicBoolean m_aInStack = new AtomicBoolean (false);
+    private volatile long m_nLastReturnNanos;
+
+    Entry (@Nonnull final T aObject)
+    {
+      m_aObject = aObject;
+    }
+
+    boolean tryBorrow ()
+    {
+      return m_aState.compareAndSet (STATE_IDLE, STATE_BORROWED);
+    }
+
+    boolean tryDiscardIdle ()
+    {
+      return m_aState.compareAndSet (STATE_IDLE, STATE_DISCARDED);
+    }
+  }
+
+  /**
+   * Identity based key, because the pooled objects may implement equals and
+   * hashCode differently.
+   */
+  private static final class IdentityKey
+  {
+    private final Object m_aObject;
+
+    IdentityKey (@Nonnull final Object aObject)
+    {
+      m_aObject = aObject;
+    }
+
+    @Override
+    public boolean equals (final Object o)
+    {
+      return o instanceof IdentityKey && ((IdentityKey) o).m_aObject == m_aObject;
+    }
+
+    @Override
+    public int hashCode ()
+    {
+      return System.identityHashCode (m_aObject);
+    }
+  }
+
+  private final int m_nMaxRetained;
+  private final Supplier <? extends DATATYPE> m_aFactory;
+  private final IMutableStatisticsHandlerCache m_aStatsCache;
+  private final IMutableStatisticsHandlerTimer m_aStatsWait;
+  private final IMutableStatisticsHandlerCounter m_aStatsDiscarded;
+
+  private final ThreadLocal <Entry <DATATYPE>> m_aThreadSlot = new ThreadLocal <> ();
+  private final ConcurrentLinkedDeque <Entry <DATATYPE>> m_aIdleStack = new ConcurrentLinkedDeque <> ();
+  private final ConcurrentHashMap <IdentityKey, Entry <DATATYPE>> m_aBorrowed = new ConcurrentHashMap <> ();
+  // The number of objects that are idle or borrowed
+  private final AtomicInteger m_aRetainedCount = new AtomicInteger (0);
+  private volatile long m_nMaxIdleNanos = 0;
+
+  /**
+   * Create a new object pool.
+   *
+   * @param sStatisticsName
+   *        The name under which the statistics of this pool are recorded. May
+   *        neither be <code>null</code> nor empty.
+   * @param nMaxRetained
+   *        The maximum number of objects that are retained by the pool. Must
+   *        be &ge; 1.
+   * @param aFactory
+   *        The factory to create object. May not be <code>null</code>. The
+   *        factory may not create <code>null</code> objects, as this leads to
+   *        an error!
+   */
+  public ConcurrentObjectPool (@Nonnull final String sStatisticsName,
+                               @Nonnegative final int nMaxRetained,
+                               @Nonnull final Supplier <? extends DATATYPE> aFactory)
+  {
+    ValueEnforcer.notEmpty (sStatisticsName, "StatisticsName");
+    ValueEnforcer.isGT0 (nMaxRetained, "MaxRetained");
+    ValueEnforcer.notNull (aFactory, "Factory");
+
+    m_nMaxRetained = nMaxRetained;
+    m_aFactory = aFactory;
+    m_aStatsCache = StatisticsManager.getCacheHandler (sStatisticsName);
+    m_aStatsWait = StatisticsManager.getTimerHandler (sStatisticsName + "$wait");
+    m_aStatsDiscarded = StatisticsManager.getCounterHandler (sStatisticsName + "$discarded");
+  }
+
+  /**
+   * @return The maximum number of objects retained by this pool. Always &ge;
+   *         1.
+   */
+  @Nonnegative
+  public int getMaxRetained ()
+  {
+    return m_nMaxRetained;
+  }
+
+  /**
+   * @return The maximum duration an object may be idle, before it is
+   *         discarded. <code>null</code> if idle objects are never discarded.
+   */
+  @Nullable
+  public Duration getMaxIdleDuration ()
+  {
+    final long n = m_nMaxIdleNanos;
+    return n <= 0 ? null : Duration.ofNanos (n);
+  }
+
+  /**
+   * Set the maximum duration an object may be idle in the pool. Objects idle
+   * for a longer time are discarded upon the next borrow.
+   *
+   * @param aMaxIdleDuration
+   *        The maximum idle duration. May be <code>null</code> to never
+   *        discard idle objects.
+   * @return this for chaining
+   */
+  @Nonnull
+  public ConcurrentObjectPool <DATATYPE> setMaxIdleDuration (@Nullable final Duration aMaxIdleDuration)
+  {
+    m_nMaxIdleNanos = aMaxIdleDuration == null || aMaxIdleDuration.isNegative () ? 0 : aMaxIdleDuration.toNanos ();
+    return this;
+  }
+
+  /**
+   * @return The number of objects currently borrowed from this pool.
+   */
+  @Nonnegative
+  public int getBorrowedCount ()
+  {
+    return m_aBorrowed.size ();
+  }
+
+  /**
+   * @return The number of objects currently idle or borrowed, and retained by
+   *         this pool.
+   */
+  @Nonnegative
+  public int getRetainedCount ()
+  {
+    return m_aRetainedCount.get ();
+  }
+
+  private void _discard (@Nonnull final Entry <DATATYPE> aEntry)
+  {
+    // State was already set to discarded
+    m_aRetainedCount.decrementAndGet ();
+    m_aStatsDiscarded.increment ();
+  }
+
+  private boolean _isExpired (@Nonnull final Entry <DATATYPE> aEntry, final long nNowNanos)
+  {
+    final long nMaxIdleNanos = m_nMaxIdleNanos;
+    return nMaxIdleNanos > 0 && nNowNanos - aEntry.m_nLastReturnNanos > nMaxIdleNanos;
+  }
+
+  @Nullable
+  private Entry <DATATYPE> _borrowIdle ()
+  {
+    final long nNowNanos = System.nanoTime ();
+
+    // Try the entry last used by this thread
+    final Entry <DATATYPE> aLocal = m_aThreadSlot.get ();
+    if (aLocal != null)
+    {
+      if (aLocal.tryBorrow ())
+      {
+        if (!_isExpired (aLocal, nNowNanos))
+          return aLocal;
+
+        // Expired - discard it; no need to use CAS as we "own" it
+        aLocal.m_aState.set (STATE_DISCARDED);
+        _discard (aLocal);
+      }
+      m_aThreadSlot.remove ();
+    }
+
+    // Try the shared stack
+    Entry <DATATYPE> aEntry;
+    while ((aEntry = m_aIdleStack.pollFirst ()) != null)
+    {
+      // The flag must be cleared before trying to borrow it, so that a
+      // concurrent return re-adds it to the stack if necessary
+      aEntry.m_aInStack.set (false);
+      if (_isExpired (aEntry, nNowNanos))
+      {
+        if (aEntry.tryDiscardIdle ())
+          _discard (aEntry);
+      }
+      else
+        if (aEntry.tryBorrow ())
+          return aEntry;
+      // Entry was already borrowed by its owning thread or was discarded -
+      // just drop it from the stack
+    }
+    return null;
+  }
+
+  /**
+   * Borrow an object from the pool. In contrast to the interface description,
+   * this method never blocks: if no idle object is available, a new object is
+   * created.
+   *
+   * @return The borrowed object. Never <code>null</code>.
+   */
+  @Nonnull
+  public DATATYPE borrowObject ()
+  {
+    Entry <DATATYPE> aEntry = _borrowIdle ();
+    if (aEntry != null)
+      m_aStatsCache.cacheHit ();
+    else
+    {
+      m_aStatsCache.cacheMiss ();
+      final StopWatch aSW = StopWatch.createdStarted ();
+      final DATATYPE aObject = m_aFactory.get ();
+      if (aObject == null)
+        throw new IllegalStateException ("The factory returned a null object!");
+      aEntry = new Entry <> (aObject);
+      aEntry.m_aState.set (STATE_BORROWED);
+      m_aRetainedCount.incrementAndGet ();
+      m_aStatsWait.addTime (aSW.stopAndGetMillis ());
+    }
+    m_aBorrowed.put (new IdentityKey (aEntry.m_aObject), aEntry);
+    return aEntry.m_aObject;
+  }
+
+  @Nonnull
+  public ESuccess returnObject (@Nonnull final DATATYPE aItem)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+
+    final Entry <DATATYPE> aEntry = m_aBorrowed.remove (new IdentityKey (aItem));
+    if (aEntry == null)
+    {
+      if (!ObjectPool.isSilentMode ())
+        if (LOGGER.isWarnEnabled ())
+          LOGGER.warn ("Object " + aItem + " is not pooled!");
+      return ESuccess.FAILURE;
+    }
+
+    if (m_aRetainedCount.get () > m_nMaxRetained)
+    {
+      // Too many objects were created because of high load - get rid of this
+      // one
+      aEntry.m_aState.set (STATE_DISCARDED);
+      _discard (aEntry);
+      return ESuccess.SUCCESS;
+    }
+
+    aEntry.m_nLastReturnNanos = System.nanoTime ();
+    // The state must be set before the stack flag is checked - see
+    // _borrowIdle
+    aEntry.m_aState.set (STATE_IDLE);
+    m_aThreadSlot.set (aEntry);
+    if (aEntry.m_aInStack.compareAndSet (false, true))
+      m_aIdleStack.offerFirst (aEntry);
+    return ESuccess.SUCCESS;
+  }
+
+  /**
+   * Discard all idle objects. Borrowed objects are not affected.
+   */
+  public void clearUnusedItems ()
+  {
+    Entry <DATATYPE> aEntry;
+    while ((aEntry = m_aIdleStack.pollFirst ()) != null)
+    {
+      aEntry.m_aInStack.set (false);
+      if (aEntry.tryDiscardIdle ())
+        _discard (aEntry);
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("MaxRetained", m_nMaxRetained)
+                                       .append ("MaxIdleNanos", m_nMaxIdleNanos)
+                                       .append ("RetainedCount", m_aRetainedCount.get ())
+                                       .append ("BorrowedCount", m_aBorrowed.size ())
+                                       .getToString ();
+  }
+}
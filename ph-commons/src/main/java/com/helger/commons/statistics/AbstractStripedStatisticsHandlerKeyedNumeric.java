@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsSet;
+
+/**
+ * Abstract base class for a keyed numeric statistic handler that does not use
+ * any lock. This is the contention-free counterpart of
+ * {@link AbstractStatisticsHandlerKeyedNumeric}.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+public abstract class AbstractStripedStatisticsHandlerKeyedNumeric implements IStatisticsHandlerKeyedNumeric
+{
+  private final LongAdder m_aInvocationCount = new LongAdder ();
+  // ConcurrentHashMap does not support null keys
+  private final StripedNumericValue m_aNullKeyValue = new StripedNumericValue ();
+  private final ConcurrentHashMap <String, StripedNumericValue> m_aMap = new ConcurrentHashMap <> ();
+
+  @Nonnegative
+  public final int getInvocationCount ()
+  {
+    final long nCount = m_aInvocationCount.sum ();
+    return nCount > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) nCount;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsSet <String> getAllKeys ()
+  {
+    final ICommonsSet <String> ret = new CommonsHashSet <> (m_aMap.keySet ());
+    if (m_aNullKeyValue.getCount () > 0)
+      ret.add (null);
+    return ret;
+  }
+
+  @Nullable
+  private StripedNumericValue _get (@Nullable final String sKey)
+  {
+    if (sKey == null)
+      return m_aNullKeyValue.getCount () > 0 ? m_aNullKeyValue : null;
+    return m_aMap.get (sKey);
+  }
+
+  protected final void addValue (@Nullable final String sKey, final long nValue)
+  {
+    m_aInvocationCount.increment ();
+
+    final StripedNumericValue aValue;
+    if (sKey == null)
+      aValue = m_aNullKeyValue;
+    else
+    {
+      // Avoid the locking computeIfAbsent for existing keys
+      final StripedNumericValue aExisting = m_aMap.get (sKey);
+      aValue = aExisting != null ? aExisting : m_aMap.computeIfAbsent (sKey, k -> new StripedNumericValue ());
+    }
+    aValue.add (nValue);
+  }
+
+  @CheckForSigned
+  public final int getInvocationCount (@Nullable final String sKey)
+  {
+    final StripedNumericValue aValue = _get (sKey);
+    return aValue == null ? CGlobal.ILLEGAL_UINT : aValue.getInvocationCount ();
+  }
+
+  @Nullable
+  public final BigInteger getSum (@Nullable final String sKey)
+  {
+    final StripedNumericValue aValue = _get (sKey);
+    return aValue == null ? null : aValue.getSum ();
+  }
+
+  @CheckForSigned
+  public final long getMin (@Nullable final String sKey)
+  {
+    final StripedNumericValue aValue = _get (sKey);
+    return aValue == null ? CGlobal.ILLEGAL_ULONG : aValue.getMin ();
+  }
+
+  @CheckForSigned
+  public final long getAverage (@Nullable final String sKey)
+  {
+    final StripedNumericValue aValue = _get (sKey);
+    return aValue == null ? CGlobal.ILLEGAL_ULONG : aValue.getAverage ();
+  }
+
+  @CheckForSigned
+  public long getMax (@Nullable final String sKey)
+  {
+    final StripedNumericValue aValue = _get (sKey);
+    return aValue == null ? CGlobal.ILLEGAL_ULONG : aValue.getMax ();
+  }
+}
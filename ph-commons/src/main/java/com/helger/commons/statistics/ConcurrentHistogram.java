@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.ValueEnforcer;
+
+/**
+ * A lock-free histogram of long values with a constant memory footprint and
+ * allocation-free recording, using HDR-style log-linear buckets: values below
+ * {@link #SUB_BUCKET_COUNT} are recorded exactly, larger values are recorded
+ * with {@link #SUB_BUCKET_HALF_COUNT} buckets per power of two. When using the
+ * bucket middle as the representative value, the relative error of the
+ * determined percentiles is less than 1.6%.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+final class ConcurrentHistogram
+{
+  /** The number of bits used for the linear sub buckets */
+  private static final int SUB_BUCKET_BITS = 6;
+  static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+  static final int BUCKET_COUNT = getBucketIndex (Long.MAX_VALUE) + 1;
+
+  private final AtomicLongArray m_aCounts = new AtomicLongArray (BUCKET_COUNT);
+
+  static int getBucketIndex (final long nValue)
+  {
+    if (nValue < SUB_BUCKET_COUNT)
+    {
+      // Negative values are counted as 0
+      return nValue < 0 ? 0 : (int) nValue;
+    }
+
+    // Position of the highest bit, at least SUB_BUCKET_BITS
+    final int nMagnitude = 63 - Long.numberOfLeadingZeros (nValue);
+    final int nShift = nMagnitude - (SUB_BUCKET_BITS - 1);
+    // Between SUB_BUCKET_HALF_COUNT and SUB_BUCKET_COUNT - 1
+    final int nSubBucket = (int) (nValue >>> nShift);
+    return SUB_BUCKET_COUNT + (nShift - 1) * SUB_BUCKET_HALF_COUNT + (nSubBucket - SUB_BUCKET_HALF_COUNT);
+  }
+
+  static long getBucketLowerBound (final int nIndex)
+  {
+    if (nIndex < SUB_BUCKET_COUNT)
+      return nIndex;
+
+    final int nRest = nIndex - SUB_BUCKET_COUNT;
+    final int nShift = nRest / SUB_BUCKET_HALF_COUNT + 1;
+    final long nSubBucket = nRest % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+    return nSubBucket << nShift;
+  }
+
+  static long getBucketUpperBound (final int nIndex)
+  {
+    if (nIndex < SUB_BUCKET_COUNT)
+      return nIndex;
+
+    final int nShift = (nIndex - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+    final long nLower = getBucketLowerBound (nIndex);
+    // Avoid overflow for the last bucket
+    return nLower + ((1L << nShift) - 1);
+  }
+
+  public void add (final long nValue)
+  {
+    m_aCounts.incrementAndGet (getBucketIndex (nValue));
+  }
+
+  /**
+   * Get the value at the given percentile.
+   *
+   * @param dPercentile
+   *        The percentile to query. Must be &gt; 0 and &le; 100.
+   * @param nMin
+   *        The exact minimum recorded value, used to narrow the result.
+   * @param nMax
+   *        The exact maximum recorded value, used to narrow the result.
+   * @return {@link CGlobal#ILLEGAL_ULONG} if no value was recorded.
+   */
+  @CheckForSigned
+  public long getValueAtPercentile (final double dPercentile, final long nMin, final long nMax)
+  {
+    ValueEnforcer.isTrue (dPercentile > 0 && dPercentile <= 100, () -> "Percentile must be in (0, 100]: " + dPercentile);
+
+    // Take a snapshot so that concurrent modifications don't interfere
+    final int nBuckets = m_aCounts.length ();
+    final long [] aCounts = new long [nBuckets];
+    long nTotal = 0;
+    for (int i = 0; i < nBuckets; ++i)
+    {
+      aCounts[i] = m_aCounts.get (i);
+      nTotal += aCounts[i];
+    }
+    if (nTotal == 0)
+      return CGlobal.ILLEGAL_ULONG;
+    if (dPercentile == 100)
+    {
+      // The maximum is known exactly
+      return nMax;
+    }
+
+    final long nRank = Math.max (1, (long) Math.ceil (dPercentile / 100 * nTotal));
+    long nCumulated = 0;
+    for (int i = 0; i < nBuckets; ++i)
+    {
+      nCumulated += aCounts[i];
+      if (nCumulated >= nRank)
+      {
+        final long nLower = getBucketLowerBound (i);
+        final long nValue = nLower + (getBucketUpperBound (i) - nLower) / 2;
+        return Math.max (nMin, Math.min (nMax, nValue));
+      }
+    }
+    return nMax;
+  }
+
+  @Nonnegative
+  public long getTotalCount ()
+  {
+    long ret = 0;
+    for (int i = 0; i < m_aCounts.length (); ++i)
+      ret += m_aCounts.get (i);
+    return ret;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * The default implementation of {@link IStatisticsHandlerFactory} creating
+ * the lock based handlers like {@link StatisticsHandlerTimer}.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@Immutable
+public class DefaultStatisticsHandlerFactory implements IStatisticsHandlerFactory
+{
+  @Nonnull
+  public IMutableStatisticsHandlerCache createCacheHandler ()
+  {
+    return new StatisticsHandlerCache ();
+  }
+
+  @Nonnull
+  public IMutableStatisticsHandlerTimer createTimerHandler ()
+  {
+    return new StatisticsHandlerTimer ();
+  }
+
+  @Nonnull
+  public IMutableStatisticsHandlerKeyedTimer createKeyedTimerHandler ()
+  {
+    return new StatisticsHandlerKeyedTimer ();
+  }
+
+  @Nonnull
+  public IMutableStatisticsHandlerSize createSizeHandler ()
+  {
+    return new StatisticsHandlerSize ();
+  }
+
+  @Nonnull
+  public IMutableStatisticsHandlerKeyedSize createKeyedSizeHandler ()
+  {
+    return new StatisticsHandlerKeyedSize ();
+  }
+
+  @Nonnull
+  public IMutableStatisticsHandlerCounter createCounterHandler ()
+  {
+    return new StatisticsHandlerCounter ();
+  }
+
+  @Nonnull
+  public IMutableStatisticsHandlerKeyedCounter createKeyedCounterHandler ()
+  {
+    return new StatisticsHandlerKeyedCounter ();
+  }
+}
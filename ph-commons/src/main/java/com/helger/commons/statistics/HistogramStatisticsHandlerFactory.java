@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Implementation of {@link IStatisticsHandlerFactory} that creates the
+ * contention-free handlers of {@link StripedStatisticsHandlerFactory}, but uses
+ * histogram based timers that can provide percentiles.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ * @see IStatisticsHandlerHistogram
+ * @see IStatisticsHandlerKeyedHistogram
+ */
+@Immutable
+public class HistogramStatisticsHandlerFactory extends StripedStatisticsHandlerFactory
+{
+  @Override
+  @Nonnull
+  public IMutableStatisticsHandlerTimer createTimerHandler ()
+  {
+    return new HistogramStatisticsHandlerTimer ();
+  }
+
+  @Override
+  @Nonnull
+  public IMutableStatisticsHandlerKeyedTimer createKeyedTimerHandler ()
+  {
+    return new HistogramStatisticsHandlerKeyedTimer ();
+  }
+}
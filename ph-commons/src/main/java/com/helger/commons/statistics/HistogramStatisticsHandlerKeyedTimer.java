@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.CGlobal;
+
+/**
+ * Lock-free implementation of {@link IMutableStatisticsHandlerKeyedTimer} that
+ * additionally records all values per key in a histogram with constant memory
+ * usage, so that percentiles can be determined.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+public class HistogramStatisticsHandlerKeyedTimer extends AbstractStripedStatisticsHandlerKeyedNumeric implements
+                                                  IMutableStatisticsHandlerKeyedTimer,
+                                                  IStatisticsHandlerKeyedHistogram
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (HistogramStatisticsHandlerKeyedTimer.class);
+
+  // ConcurrentHashMap does not support null keys
+  private final ConcurrentHistogram m_aNullKeyHistogram = new ConcurrentHistogram ();
+  private final ConcurrentHashMap <String, ConcurrentHistogram> m_aHistograms = new ConcurrentHashMap <> ();
+
+  public void addTime (@Nullable final String sKey, @Nonnegative final long nMillis)
+  {
+    if (nMillis < 0)
+      if (LOGGER.isWarnEnabled ())
+        LOGGER.warn ("A negative value (" + nMillis + ") for key '" + sKey + "' is added to " + getClass ().getName ());
+    addValue (sKey, nMillis);
+
+    final ConcurrentHistogram aHistogram;
+    if (sKey == null)
+      aHistogram = m_aNullKeyHistogram;
+    else
+    {
+      // Avoid the locking computeIfAbsent for existing keys
+      final ConcurrentHistogram aExisting = m_aHistograms.get (sKey);
+      aHistogram = aExisting != null ? aExisting : m_aHistograms.computeIfAbsent (sKey, k -> new ConcurrentHistogram ());
+    }
+    aHistogram.add (nMillis);
+  }
+
+  @CheckForSigned
+  public long getValueAtPercentile (@Nullable final String sKey, final double dPercentile)
+  {
+    final ConcurrentHistogram aHistogram = sKey == null ? m_aNullKeyHistogram : m_aHistograms.get (sKey);
+    if (aHistogram == null)
+      return CGlobal.ILLEGAL_ULONG;
+    return aHistogram.getValueAtPercentile (dPercentile, getMin (sKey), getMax (sKey));
+  }
+}
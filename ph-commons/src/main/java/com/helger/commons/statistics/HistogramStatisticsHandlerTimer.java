@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lock-free implementation of {@link IMutableStatisticsHandlerTimer} that
+ * additionally records all values in a histogram with constant memory usage,
+ * so that percentiles can be determined.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+public class HistogramStatisticsHandlerTimer extends AbstractStripedStatisticsHandlerNumeric implements
+                                             IMutableStatisticsHandlerTimer,
+                                             IStatisticsHandlerHistogram
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (HistogramStatisticsHandlerTimer.class);
+
+  private final ConcurrentHistogram m_aHistogram = new ConcurrentHistogram ();
+
+  public void addTime (@Nonnegative final long nMillis)
+  {
+    if (nMillis < 0)
+      if (LOGGER.isWarnEnabled ())
+        LOGGER.warn ("A negative value (" + nMillis + ") is added to " + getClass ().getName ());
+    addValue (nMillis);
+    m_aHistogram.add (nMillis);
+  }
+
+  @CheckForSigned
+  public long getValueAtPercentile (final double dPercentile)
+  {
+    return m_aHistogram.getValueAtPercentile (dPercentile, getMin (), getMax ());
+  }
+}
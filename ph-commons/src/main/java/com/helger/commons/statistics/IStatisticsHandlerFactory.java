@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Factory for the statistics handlers that are created by the
+ * {@link StatisticsManager}.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ * @see StatisticsManager#setHandlerFactory(IStatisticsHandlerFactory)
+ */
+public interface IStatisticsHandlerFactory
+{
+  @Nonnull
+  IMutableStatisticsHandlerCache createCacheHandler ();
+
+  @Nonnull
+  IMutableStatisticsHandlerTimer createTimerHandler ();
+
+  @Nonnull
+  IMutableStatisticsHandlerKeyedTimer createKeyedTimerHandler ();
+
+  @Nonnull
+  IMutableStatisticsHandlerSize createSizeHandler ();
+
+  @Nonnull
+  IMutableStatisticsHandlerKeyedSize createKeyedSizeHandler ();
+
+  @Nonnull
+  IMutableStatisticsHandlerCounter createCounterHandler ();
+
+  @Nonnull
+  IMutableStatisticsHandlerKeyedCounter createKeyedCounterHandler ();
+}
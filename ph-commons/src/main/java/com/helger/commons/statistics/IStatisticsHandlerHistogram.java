@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import javax.annotation.CheckForSigned;
+
+/**
+ * Read-only interface for numeric statistics handlers that can determine
+ * percentiles of the recorded values.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+public interface IStatisticsHandlerHistogram extends IStatisticsHandlerNumeric
+{
+  /**
+   * Get the value below which the given percentage of all recorded values
+   * lie.
+   *
+   * @param dPercentile
+   *        The percentile to query. Must be &gt; 0 and &le; 100.
+   * @return The approximated value at the given percentile or
+   *         {@link com.helger.commons.CGlobal#ILLEGAL_ULONG} if no value was
+   *         recorded.
+   */
+  @CheckForSigned
+  long getValueAtPercentile (double dPercentile);
+
+  /**
+   * @return The median (50th percentile) of all values.
+   */
+  @CheckForSigned
+  default long getPercentile50 ()
+  {
+    return getValueAtPercentile (50);
+  }
+
+  /**
+   * @return The 90th percentile of all values.
+   */
+  @CheckForSigned
+  default long getPercentile90 ()
+  {
+    return getValueAtPercentile (90);
+  }
+
+  /**
+   * @return The 99th percentile of all values.
+   */
+  @CheckForSigned
+  default long getPercentile99 ()
+  {
+    return getValueAtPercentile (99);
+  }
+
+  /**
+   * @return The 99.9th percentile of all values.
+   */
+  @CheckForSigned
+  default long getPercentile999 ()
+  {
+    return getValueAtPercentile (99.9);
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nullable;
+
+/**
+ * Read-only interface for keyed numeric statistics handlers that can determine
+ * percentiles of the recorded values per key.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+public interface IStatisticsHandlerKeyedHistogram extends IStatisticsHandlerKeyedNumeric
+{
+  /**
+   * Get the value below which the given percentage of all recorded values of
+   * the given key lie.
+   *
+   * @param sKey
+   *        The key to query. May be <code>null</code>.
+   * @param dPercentile
+   *        The percentile to query. Must be &gt; 0 and &le; 100.
+   * @return The approximated value at the given percentile or
+   *         {@link com.helger.commons.CGlobal#ILLEGAL_ULONG} if no value was
+   *         recorded for the key.
+   */
+  @CheckForSigned
+  long getValueAtPercentile (@Nullable String sKey, double dPercentile);
+
+  @CheckForSigned
+  default long getPercentile50 (@Nullable final String sKey)
+  {
+    return getValueAtPercentile (sKey, 50);
+  }
+
+  @CheckForSigned
+  default long getPercentile90 (@Nullable final String sKey)
+  {
+    return getValueAtPercentile (sKey, 90);
+  }
+
+  @CheckForSigned
+  default long getPercentile99 (@Nullable final String sKey)
+  {
+    return getValueAtPercentile (sKey, 99);
+  }
+
+  @CheckForSigned
+  default long getPercentile999 (@Nullable final String sKey)
+  {
+    return getValueAtPercentile (sKey, 99.9);
+  }
+}
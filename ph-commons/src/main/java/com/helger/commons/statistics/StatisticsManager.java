@@ -16,6 +16,8 @@
  */
 package com.helger.commons.statistics;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -30,15 +32,43 @@ import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.collection.impl.ICommonsSet;
 import com.helger.commons.concurrent.SimpleReadWriteLock;
+import com.helger.commons.system.SystemProperties;
 
 /**
- * Provides a central manager for the internal statistics.
+ * Provides a central manager for the internal statistics.<br>
+ * The handler implementations are created by an
+ * {@link IStatisticsHandlerFactory}. By default the lock based
+ * {@link DefaultStatisticsHandlerFactory} is used. To use the contention-free
+ * {@link StripedStatisticsHandlerFactory} for all handlers, either set the
+ * system property {@value #SYSTEM_PROPERTY_STRIPED} to <code>true</code> or
+ * call {@link #setHandlerFactory(IStatisticsHandlerFactory)} before the first
+ * handler is requested. To additionally get percentiles for all timers, set
+ * the system property {@value #SYSTEM_PROPERTY_HISTOGRAM} to
+ * <code>true</code> or use the {@link HistogramStatisticsHandlerFactory}.
  *
  * @author Philip Helger
  */
 @ThreadSafe
 public final class StatisticsManager
 {
+  /**
+   * System property to be set to <code>true</code> to use the
+   * {@link StripedStatisticsHandlerFactory} by default.
+   *
+   * @since 11.0.1
+   */
+  public static final String SYSTEM_PROPERTY_STRIPED = "ph.statistics.striped";
+
+  /**
+   * System property to be set to <code>true</code> to use the
+   * {@link HistogramStatisticsHandlerFactory} by default. Takes precedence over
+   * {@link #SYSTEM_PROPERTY_STRIPED}.
+   *
+   * @since 11.0.1
+   */
+  public static final String SYSTEM_PROPERTY_HISTOGRAM = "ph.statistics.histogram";
+
+  private static final AtomicReference <IStatisticsHandlerFactory> HANDLER_FACTORY = new AtomicReference <> (_createDefaultHandlerFactory ());
   private static final SimpleReadWriteLock RWL_CACHE = new SimpleReadWriteLock ();
   private static final SimpleReadWriteLock RWL_TIMER = new SimpleReadWriteLock ();
   private static final SimpleReadWriteLock RWL_KEYED_TIMER = new SimpleReadWriteLock ();
@@ -46,13 +76,13 @@ public final class StatisticsManager
   private static final SimpleReadWriteLock RWL_KEYED_SIZE = new SimpleReadWriteLock ();
   private static final SimpleReadWriteLock RWL_COUNTER = new SimpleReadWriteLock ();
   private static final SimpleReadWriteLock RWL_KEYED_COUNTER = new SimpleReadWriteLock ();
-  private static final ICommonsMap <String, StatisticsHandlerCache> HDL_CACHE = new CommonsHashMap <> ();
-  private static final ICommonsMap <String, StatisticsHandlerTimer> HDL_TIMER = new CommonsHashMap <> ();
-  private static final ICommonsMap <String, StatisticsHandlerKeyedTimer> HDL_KEYED_TIMER = new CommonsHashMap <> ();
-  private static final ICommonsMap <String, StatisticsHandlerSize> HDL_SIZE = new CommonsHashMap <> ();
-  private static final ICommonsMap <String, StatisticsHandlerKeyedSize> HDL_KEYED_SIZE = new CommonsHashMap <> ();
-  private static final ICommonsMap <String, StatisticsHandlerCounter> HDL_COUNTER = new CommonsHashMap <> ();
-  private static final ICommonsMap <String, StatisticsHandlerKeyedCounter> HDL_KEYED_COUNTER = new CommonsHashMap <> ();
+  private static final ICommonsMap <String, IMutableStatisticsHandlerCache> HDL_CACHE = new CommonsHashMap <> ();
+  private static final ICommonsMap <String, IMutableStatisticsHandlerTimer> HDL_TIMER = new CommonsHashMap <> ();
+  private static final ICommonsMap <String, IMutableStatisticsHandlerKeyedTimer> HDL_KEYED_TIMER = new CommonsHashMap <> ();
+  private static final ICommonsMap <String, IMutableStatisticsHandlerSize> HDL_SIZE = new CommonsHashMap <> ();
+  private static final ICommonsMap <String, IMutableStatisticsHandlerKeyedSize> HDL_KEYED_SIZE = new CommonsHashMap <> ();
+  private static final ICommonsMap <String, IMutableStatisticsHandlerCounter> HDL_COUNTER = new CommonsHashMap <> ();
+  private static final ICommonsMap <String, IMutableStatisticsHandlerKeyedCounter> HDL_KEYED_COUNTER = new CommonsHashMap <> ();
 
   private static final Logger LOGGER = LoggerFactory.getLogger (StatisticsManager.class);
 
@@ -62,6 +92,48 @@ public final class StatisticsManager
   private StatisticsManager ()
   {}
 
+  @Nonnull
+  private static IStatisticsHandlerFactory _createDefaultHandlerFactory ()
+  {
+    if ("true".equalsIgnoreCase (SystemProperties.getPropertyValueOrNull (SYSTEM_PROPERTY_HISTOGRAM)))
+      return new HistogramStatisticsHandlerFactory ();
+    if ("true".equalsIgnoreCase (SystemProperties.getPropertyValueOrNull (SYSTEM_PROPERTY_STRIPED)))
+      return new StripedStatisticsHandlerFactory ();
+    return new DefaultStatisticsHandlerFactory ();
+  }
+
+  /**
+   * @return The factory used to create new statistics handlers. Never
+   *         <code>null</code>.
+   * @since 11.0.1
+   */
+  @Nonnull
+  public static IStatisticsHandlerFactory getHandlerFactory ()
+  {
+    return HANDLER_FACTORY.get ();
+  }
+
+  /**
+   * Set the factory to be used to create new statistics handlers. Handlers
+   * that were already created are not affected, because they are usually
+   * referenced directly by the code using them. So this method should be
+   * called as early as possible in the application lifecycle.
+   *
+   * @param aHandlerFactory
+   *        The new handler factory. May not be <code>null</code>.
+   * @return The previous handler factory. Never <code>null</code>.
+   * @since 11.0.1
+   */
+  @Nonnull
+  public static IStatisticsHandlerFactory setHandlerFactory (@Nonnull final IStatisticsHandlerFactory aHandlerFactory)
+  {
+    ValueEnforcer.notNull (aHandlerFactory, "HandlerFactory");
+    final IStatisticsHandlerFactory ret = HANDLER_FACTORY.getAndSet (aHandlerFactory);
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Statistics handler factory was set to " + aHandlerFactory);
+    return ret;
+  }
+
   @Nonnull
   public static IMutableStatisticsHandlerCache getCacheHandler (@Nonnull final Class <?> aClass)
   {
@@ -75,12 +147,12 @@ public final class StatisticsManager
   {
     ValueEnforcer.notEmpty (sName, "Name");
 
-    StatisticsHandlerCache aHdl = RWL_CACHE.readLockedGet ( () -> HDL_CACHE.get (sName));
+    IMutableStatisticsHandlerCache aHdl = RWL_CACHE.readLockedGet ( () -> HDL_CACHE.get (sName));
 
     if (aHdl == null)
     {
       // Try again in write lock
-      aHdl = RWL_CACHE.writeLockedGet ( () -> HDL_CACHE.computeIfAbsent (sName, k -> new StatisticsHandlerCache ()));
+      aHdl = RWL_CACHE.writeLockedGet ( () -> HDL_CACHE.computeIfAbsent (sName, k -> HANDLER_FACTORY.get ().createCacheHandler ()));
     }
 
     return aHdl;
@@ -107,10 +179,10 @@ public final class StatisticsManager
   {
     ValueEnforcer.notEmpty (sName, "Name");
 
-    StatisticsHandlerTimer aHdl = RWL_TIMER.readLockedGet ( () -> HDL_TIMER.get (sName));
+    IMutableStatisticsHandlerTimer aHdl = RWL_TIMER.readLockedGet ( () -> HDL_TIMER.get (sName));
     if (aHdl == null)
     {
-      aHdl = RWL_TIMER.writeLockedGet ( () -> HDL_TIMER.computeIfAbsent (sName, k -> new StatisticsHandlerTimer ()));
+      aHdl = RWL_TIMER.writeLockedGet ( () -> HDL_TIMER.computeIfAbsent (sName, k -> HANDLER_FACTORY.get ().createTimerHandler ()));
     }
 
     return aHdl;
@@ -136,11 +208,11 @@ public final class StatisticsManager
   {
     ValueEnforcer.notEmpty (sName, "Name");
 
-    StatisticsHandlerKeyedTimer aHdl = RWL_KEYED_TIMER.readLockedGet ( () -> HDL_KEYED_TIMER.get (sName));
+    IMutableStatisticsHandlerKeyedTimer aHdl = RWL_KEYED_TIMER.readLockedGet ( () -> HDL_KEYED_TIMER.get (sName));
 
     if (aHdl == null)
     {
-      aHdl = RWL_KEYED_TIMER.writeLockedGet ( () -> HDL_KEYED_TIMER.computeIfAbsent (sName, k -> new StatisticsHandlerKeyedTimer ()));
+      aHdl = RWL_KEYED_TIMER.writeLockedGet ( () -> HDL_KEYED_TIMER.computeIfAbsent (sName, k -> HANDLER_FACTORY.get ().createKeyedTimerHandler ()));
     }
     return aHdl;
   }
@@ -165,11 +237,11 @@ public final class StatisticsManager
   {
     ValueEnforcer.notEmpty (sName, "Name");
 
-    StatisticsHandlerSize aHdl = RWL_SIZE.readLockedGet ( () -> HDL_SIZE.get (sName));
+    IMutableStatisticsHandlerSize aHdl = RWL_SIZE.readLockedGet ( () -> HDL_SIZE.get (sName));
 
     if (aHdl == null)
     {
-      aHdl = RWL_SIZE.writeLockedGet ( () -> HDL_SIZE.computeIfAbsent (sName, k -> new StatisticsHandlerSize ()));
+      aHdl = RWL_SIZE.writeLockedGet ( () -> HDL_SIZE.computeIfAbsent (sName, k -> HANDLER_FACTORY.get ().createSizeHandler ()));
     }
     return aHdl;
   }
@@ -194,11 +266,11 @@ public final class StatisticsManager
   {
     ValueEnforcer.notEmpty (sName, "Name");
 
-    StatisticsHandlerKeyedSize aHdl = RWL_KEYED_SIZE.readLockedGet ( () -> HDL_KEYED_SIZE.get (sName));
+    IMutableStatisticsHandlerKeyedSize aHdl = RWL_KEYED_SIZE.readLockedGet ( () -> HDL_KEYED_SIZE.get (sName));
 
     if (aHdl == null)
     {
-      aHdl = RWL_KEYED_SIZE.writeLockedGet ( () -> HDL_KEYED_SIZE.computeIfAbsent (sName, k -> new StatisticsHandlerKeyedSize ()));
+      aHdl = RWL_KEYED_SIZE.writeLockedGet ( () -> HDL_KEYED_SIZE.computeIfAbsent (sName, k -> HANDLER_FACTORY.get ().createKeyedSizeHandler ()));
     }
     return aHdl;
   }
@@ -223,11 +295,11 @@ public final class StatisticsManager
   {
     ValueEnforcer.notEmpty (sName, "Name");
 
-    StatisticsHandlerCounter aHdl = RWL_COUNTER.readLockedGet ( () -> HDL_COUNTER.get (sName));
+    IMutableStatisticsHandlerCounter aHdl = RWL_COUNTER.readLockedGet ( () -> HDL_COUNTER.get (sName));
 
     if (aHdl == null)
     {
-      aHdl = RWL_COUNTER.writeLockedGet ( () -> HDL_COUNTER.computeIfAbsent (sName, k -> new StatisticsHandlerCounter ()));
+      aHdl = RWL_COUNTER.writeLockedGet ( () -> HDL_COUNTER.computeIfAbsent (sName, k -> HANDLER_FACTORY.get ().createCounterHandler ()));
     }
     return aHdl;
   }
@@ -252,12 +324,12 @@ public final class StatisticsManager
   {
     ValueEnforcer.notEmpty (sName, "Name");
 
-    StatisticsHandlerKeyedCounter aHdl = RWL_KEYED_COUNTER.readLockedGet ( () -> HDL_KEYED_COUNTER.get (sName));
+    IMutableStatisticsHandlerKeyedCounter aHdl = RWL_KEYED_COUNTER.readLockedGet ( () -> HDL_KEYED_COUNTER.get (sName));
 
     if (aHdl == null)
     {
       aHdl = RWL_KEYED_COUNTER.writeLockedGet ( () -> HDL_KEYED_COUNTER.computeIfAbsent (sName,
-                                                                                              k -> new StatisticsHandlerKeyedCounter ()));
+                                                                                              k -> HANDLER_FACTORY.get ().createKeyedCounterHandler ()));
     }
     return aHdl;
   }
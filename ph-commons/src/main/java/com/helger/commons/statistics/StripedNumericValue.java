@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Contention-free aggregation of numeric values. Count and sum use striped
+ * {@link LongAdder} cells, min and max use striped CAS based
+ * {@link LongAccumulator}s, so adding a value never blocks and never
+ * allocates.<br>
+ * To avoid a long overflow of the sum, each value is split into its upper and
+ * lower 32 bits which are summed up independently and only combined into a
+ * {@link BigInteger} upon reading.<br>
+ * The read methods are not atomic in relation to each other, so while values
+ * are added concurrently, e.g. sum and count may be from slightly different
+ * points in time.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+final class StripedNumericValue
+{
+  private static final long LOW_MASK = 0xffff_ffffL;
+
+  private final LongAdder m_aCount = new LongAdder ();
+  private final LongAdder m_aSumLow = new LongAdder ();
+  private final LongAdder m_aSumHigh = new LongAdder ();
+  private final LongAccumulator m_aMin = new LongAccumulator (Math::min, Long.MAX_VALUE);
+  private final LongAccumulator m_aMax = new LongAccumulator (Math::max, Long.MIN_VALUE);
+
+  public void add (final long nValue)
+  {
+    m_aCount.increment ();
+    m_aSumLow.add (nValue & LOW_MASK);
+    m_aSumHigh.add (nValue >> 32);
+    m_aMin.accumulate (nValue);
+    m_aMax.accumulate (nValue);
+  }
+
+  @Nonnegative
+  public long getCount ()
+  {
+    return m_aCount.sum ();
+  }
+
+  @Nonnegative
+  public int getInvocationCount ()
+  {
+    final long nCount = m_aCount.sum ();
+    return nCount > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) nCount;
+  }
+
+  @Nonnull
+  public BigInteger getSum ()
+  {
+    final long nLow = m_aSumLow.sum ();
+    final long nHigh = m_aSumHigh.sum ();
+    if (nHigh == 0 && nLow >= 0)
+    {
+      // Fast path - no need for big arithmetics
+      return BigInteger.valueOf (nLow);
+    }
+
+    // The lower sum is an unsigned 64 bit value
+    BigInteger aLow = BigInteger.valueOf (nLow >>> 1).shiftLeft (1);
+    if ((nLow & 1) != 0)
+      aLow = aLow.add (BigInteger.ONE);
+    return BigInteger.valueOf (nHigh).shiftLeft (32).add (aLow);
+  }
+
+  @CheckForSigned
+  public long getMin ()
+  {
+    return m_aCount.sum () == 0 ? CGlobal.ILLEGAL_ULONG : m_aMin.get ();
+  }
+
+  @CheckForSigned
+  public long getMax ()
+  {
+    return m_aCount.sum () == 0 ? CGlobal.ILLEGAL_ULONG : m_aMax.get ();
+  }
+
+  @CheckForSigned
+  public long getAverage ()
+  {
+    final long nCount = m_aCount.sum ();
+    if (nCount == 0)
+      return CGlobal.ILLEGAL_ULONG;
+    return getSum ().divide (BigInteger.valueOf (nCount)).longValue ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    // No object ID needed for toString
+    return new ToStringGenerator (null).append ("invocations", getCount ())
+                                       .append ("min", getMin ())
+                                       .append ("max", getMax ())
+                                       .append ("sum", getSum ())
+                                       .getToString ();
+  }
+}
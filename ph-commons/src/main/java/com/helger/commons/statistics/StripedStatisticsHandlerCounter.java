@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Lock-free implementation of {@link IMutableStatisticsHandlerCounter} based on
+ * {@link LongAdder}.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+public class StripedStatisticsHandlerCounter implements IMutableStatisticsHandlerCounter
+{
+  private final LongAdder m_aInvocationCount = new LongAdder ();
+  private final LongAdder m_aCount = new LongAdder ();
+
+  @Nonnegative
+  public int getInvocationCount ()
+  {
+    return m_aInvocationCount.intValue ();
+  }
+
+  @CheckForSigned
+  public long getCount ()
+  {
+    return m_aCount.sum ();
+  }
+
+  public void increment (final long nByHowMany)
+  {
+    m_aInvocationCount.increment ();
+    m_aCount.add (nByHowMany);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Implementation of {@link IStatisticsHandlerFactory} creating the
+ * contention-free handlers like {@link StripedStatisticsHandlerTimer}. Use this
+ * for high-throughput applications where the statistics are updated by many
+ * threads concurrently.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@Immutable
+public class StripedStatisticsHandlerFactory implements IStatisticsHandlerFactory
+{
+  @Nonnull
+  public IMutableStatisticsHandlerCache createCacheHandler ()
+  {
+    return new StripedStatisticsHandlerCache ();
+  }
+
+  @Nonnull
+  public IMutableStatisticsHandlerTimer createTimerHandler ()
+  {
+    return new StripedStatisticsHandlerTimer ();
+  }
+
+  @Nonnull
+  public IMutableStatisticsHandlerKeyedTimer createKeyedTimerHandler ()
+  {
+    return new StripedStatisticsHandlerKeyedTimer ();
+  }
+
+  @Nonnull
+  public IMutableStatisticsHandlerSize createSizeHandler ()
+  {
+    return new StripedStatisticsHandlerSize ();
+  }
+
+  @Nonnull
+  public IMutableStatisticsHandlerKeyedSize createKeyedSizeHandler ()
+  {
+    return new StripedStatisticsHandlerKeyedSize ();
+  }
+
+  @Nonnull
+  public IMutableStatisticsHandlerCounter createCounterHandler ()
+  {
+    return new StripedStatisticsHandlerCounter ();
+  }
+
+  @Nonnull
+  public IMutableStatisticsHandlerKeyedCounter createKeyedCounterHandler ()
+  {
+    return new StripedStatisticsHandlerKeyedCounter ();
+  }
+}
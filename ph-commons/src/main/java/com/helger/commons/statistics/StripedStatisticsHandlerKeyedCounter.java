@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Lock-free implementation of {@link IMutableStatisticsHandlerKeyedCounter}
+ * based on {@link LongAdder}.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+public class StripedStatisticsHandlerKeyedCounter implements IMutableStatisticsHandlerKeyedCounter
+{
+  private static final class Value
+  {
+    private final LongAdder m_aInvocationCount = new LongAdder ();
+    private final LongAdder m_aCount = new LongAdder ();
+
+    public void increment (final long nByHowMany)
+    {
+      m_aInvocationCount.increment ();
+      m_aCount.add (nByHowMany);
+    }
+
+    @Nonnegative
+    public int getInvocationCount ()
+    {
+      return m_aInvocationCount.intValue ();
+    }
+
+    public long getCount ()
+    {
+      return m_aCount.sum ();
+    }
+
+    @Override
+    public String toString ()
+    {
+      // No object needed for ctor
+      return new ToStringGenerator (null).append ("invocations", getInvocationCount ())
+                                         .append ("count", getCount ())
+                                         .getToString ();
+    }
+  }
+
+  private final LongAdder m_aInvocationCount = new LongAdder ();
+  // ConcurrentHashMap does not support null keys
+  private final Value m_aNullKeyValue = new Value ();
+  private final ConcurrentHashMap <String, Value> m_aMap = new ConcurrentHashMap <> ();
+
+  @Nonnegative
+  public int getInvocationCount ()
+  {
+    return m_aInvocationCount.intValue ();
+  }
+
+  public void increment (@Nullable final String sKey, final long nByHowMany)
+  {
+    m_aInvocationCount.increment ();
+
+    final Value aValue;
+    if (sKey == null)
+      aValue = m_aNullKeyValue;
+    else
+    {
+      // Avoid the locking computeIfAbsent for existing keys
+      final Value aExisting = m_aMap.get (sKey);
+      aValue = aExisting != null ? aExisting : m_aMap.computeIfAbsent (sKey, k -> new Value ());
+    }
+    aValue.increment (nByHowMany);
+  }
+
+  @Nullable
+  private Value _get (@Nullable final String sKey)
+  {
+    if (sKey == null)
+      return m_aNullKeyValue.getInvocationCount () > 0 ? m_aNullKeyValue : null;
+    return m_aMap.get (sKey);
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsSet <String> getAllKeys ()
+  {
+    final ICommonsSet <String> ret = new CommonsHashSet <> (m_aMap.keySet ());
+    if (m_aNullKeyValue.getInvocationCount () > 0)
+      ret.add (null);
+    return ret;
+  }
+
+  @CheckForSigned
+  public long getCount (@Nullable final String sKey)
+  {
+    final Value aValue = _get (sKey);
+    return aValue == null ? CGlobal.ILLEGAL_ULONG : aValue.getCount ();
+  }
+
+  @CheckForSigned
+  public int getInvocationCount (@Nullable final String sKey)
+  {
+    final Value aValue = _get (sKey);
+    return aValue == null ? CGlobal.ILLEGAL_UINT : aValue.getInvocationCount ();
+  }
+}
@@ -21,7 +21,9 @@ import javax.annotation.Nonnull;
 import com.helger.commons.callback.ICallback;
 import com.helger.commons.statistics.IStatisticsHandlerCache;
 import com.helger.commons.statistics.IStatisticsHandlerCounter;
+import com.helger.commons.statistics.IStatisticsHandlerHistogram;
 import com.helger.commons.statistics.IStatisticsHandlerKeyedCounter;
+import com.helger.commons.statistics.IStatisticsHandlerKeyedHistogram;
 import com.helger.commons.statistics.IStatisticsHandlerKeyedSize;
 import com.helger.commons.statistics.IStatisticsHandlerKeyedTimer;
 import com.helger.commons.statistics.IStatisticsHandlerSize;
@@ -56,6 +58,27 @@ public interface IStatisticsVisitorCallback extends ICallback
   default void onTimer (@Nonnull final String sName, @Nonnull final IStatisticsHandlerTimer aHandler)
   {}
 
+  /**
+   * Called per timer entry that additionally records a histogram, instead of
+   * {@link #onTimer(String, IStatisticsHandlerTimer)}. By default
+   * {@link #onTimer(String, IStatisticsHandlerTimer)} is invoked.
+   *
+   * @param sName
+   *        Name. Never <code>null</code>.
+   * @param aHandler
+   *        Statistics handler. Never <code>null</code>.
+   * @param aHistogram
+   *        The histogram view of the same statistics handler. Never
+   *        <code>null</code>.
+   * @since 11.0.1
+   */
+  default void onHistogramTimer (@Nonnull final String sName,
+                                 @Nonnull final IStatisticsHandlerTimer aHandler,
+                                 @Nonnull final IStatisticsHandlerHistogram aHistogram)
+  {
+    onTimer (sName, aHandler);
+  }
+
   /**
    * Called per keyed-timer entry
    * 
@@ -67,6 +90,28 @@ public interface IStatisticsVisitorCallback extends ICallback
   default void onKeyedTimer (@Nonnull final String sName, @Nonnull final IStatisticsHandlerKeyedTimer aHandler)
   {}
 
+  /**
+   * Called per keyed-timer entry that additionally records a histogram per
+   * key, instead of {@link #onKeyedTimer(String, IStatisticsHandlerKeyedTimer)}.
+   * By default {@link #onKeyedTimer(String, IStatisticsHandlerKeyedTimer)} is
+   * invoked.
+   *
+   * @param sName
+   *        Name. Never <code>null</code>.
+   * @param aHandler
+   *        Statistics handler. Never <code>null</code>.
+   * @param aHistogram
+   *        The histogram view of the same statistics handler. Never
+   *        <code>null</code>.
+   * @since 11.0.1
+   */
+  default void onKeyedHistogramTimer (@Nonnull final String sName,
+                                      @Nonnull final IStatisticsHandlerKeyedTimer aHandler,
+                                      @Nonnull final IStatisticsHandlerKeyedHistogram aHistogram)
+  {
+    onKeyedTimer (sName, aHandler);
+  }
+
   /**
    * Called per size entry
    * 
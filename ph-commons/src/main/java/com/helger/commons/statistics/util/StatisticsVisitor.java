@@ -26,7 +26,9 @@ import com.helger.commons.annotation.PresentForCodeCoverage;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.statistics.IStatisticsHandlerCache;
 import com.helger.commons.statistics.IStatisticsHandlerCounter;
+import com.helger.commons.statistics.IStatisticsHandlerHistogram;
 import com.helger.commons.statistics.IStatisticsHandlerKeyedCounter;
+import com.helger.commons.statistics.IStatisticsHandlerKeyedHistogram;
 import com.helger.commons.statistics.IStatisticsHandlerKeyedSize;
 import com.helger.commons.statistics.IStatisticsHandlerKeyedTimer;
 import com.helger.commons.statistics.IStatisticsHandlerSize;
@@ -70,7 +72,10 @@ public final class StatisticsVisitor
     for (final String sName : aHandlers)
     {
       final IStatisticsHandlerTimer aHandler = StatisticsManager.getTimerHandler (sName);
-      aCallback.onTimer (sName, aHandler);
+      if (aHandler instanceof IStatisticsHandlerHistogram)
+        aCallback.onHistogramTimer (sName, aHandler, (IStatisticsHandlerHistogram) aHandler);
+      else
+        aCallback.onTimer (sName, aHandler);
     }
 
     // For all keyed timer handler
@@ -78,7 +83,10 @@ public final class StatisticsVisitor
     for (final String sName : aHandlers)
     {
       final IStatisticsHandlerKeyedTimer aHandler = StatisticsManager.getKeyedTimerHandler (sName);
-      aCallback.onKeyedTimer (sName, aHandler);
+      if (aHandler instanceof IStatisticsHandlerKeyedHistogram)
+        aCallback.onKeyedHistogramTimer (sName, aHandler, (IStatisticsHandlerKeyedHistogram) aHandler);
+      else
+        aCallback.onKeyedTimer (sName, aHandler);
     }
 
     // For all size handler
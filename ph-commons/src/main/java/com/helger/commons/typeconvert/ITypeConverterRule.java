@@ -68,4 +68,26 @@ public interface ITypeConverterRule <SRC, DST> extends ITypeConverter <SRC, DST>
    *         otherwise.
    */
   boolean canConvert (@Nonnull Class <?> aSrcClass, @Nonnull Class <?> aDstClass);
+
+  /**
+   * Get the converter to be used for the conversion from the passed source to
+   * the passed destination class. This method is only invoked after
+   * {@link #canConvert(Class, Class)} returned <code>true</code> for the same
+   * classes. The returned converter is cached for these classes by the
+   * {@link TypeConverterRegistry}, so rules whose conversion depends on the
+   * classes must return a converter that is bound to them.
+   *
+   * @param aSrcClass
+   *        Source class to convert from. Never <code>null</code>.
+   * @param aDstClass
+   *        Destination class to convert to. Never <code>null</code>.
+   * @return The converter to use. May not be <code>null</code>. By default
+   *         this rule itself.
+   * @since 11.0.1
+   */
+  @Nonnull
+  default ITypeConverter <SRC, DST> getConverterFor (@Nonnull final Class <?> aSrcClass, @Nonnull final Class <?> aDstClass)
+  {
+    return this;
+  }
 }
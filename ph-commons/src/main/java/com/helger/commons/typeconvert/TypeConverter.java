@@ -18,6 +18,7 @@ package com.helger.commons.typeconvert;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
@@ -78,9 +79,79 @@ public final class TypeConverter
     return SILENT_MODE.getAndSet (bSilentMode);
   }
 
+  // Maximum number of decimal digits that always fit into an int/long
+  private static final int MAX_INT_DIGITS = 9;
+  private static final int MAX_LONG_DIGITS = 18;
+
+  /**
+   * Check if the passed object is one of the JDK primitive wrapper numbers, for
+   * which the registered converters to other primitive wrapper types simply
+   * call the respective {@link Number} method.
+   */
+  private static boolean _isPrimitiveWrapperNumber (@Nonnull final Object aSrcValue)
+  {
+    return aSrcValue instanceof Integer ||
+           aSrcValue instanceof Long ||
+           aSrcValue instanceof Double ||
+           aSrcValue instanceof Float ||
+           aSrcValue instanceof Short ||
+           aSrcValue instanceof Byte;
+  }
+
+  /**
+   * Check if the passed string is a plain decimal integer with an optional sign
+   * and at most the provided number of digits. For such strings the fast
+   * parsing methods of {@link Integer} and {@link Long} deliver the same result
+   * as the registered {@link java.math.BigDecimal} based converters.
+   */
+  private static boolean _isPlainInteger (@Nonnull final String sSrc, @Nonnegative final int nMaxDigits)
+  {
+    final int nLen = sSrc.length ();
+    int nStart = 0;
+    if (nLen > 0)
+    {
+      final char c = sSrc.charAt (0);
+      if (c == '-' || c == '+')
+        nStart = 1;
+    }
+    final int nDigits = nLen - nStart;
+    if (nDigits == 0 || nDigits > nMaxDigits)
+      return false;
+    for (int i = nStart; i < nLen; ++i)
+    {
+      final char c = sSrc.charAt (i);
+      if (c < '0' || c > '9')
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Check if the passed string is a decimal number that can be passed to
+   * {@link Double#parseDouble(String)} without any modification. Strings
+   * containing the decimal comma or special values are left to the registered
+   * converters.
+   */
+  private static boolean _isPlainDecimal (@Nonnull final String sSrc)
+  {
+    final int nLen = sSrc.length ();
+    if (nLen == 0)
+      return false;
+    for (int i = 0; i < nLen; ++i)
+    {
+      final char c = sSrc.charAt (i);
+      if ((c < '0' || c > '9') && c != '.' && c != '-' && c != '+' && c != 'e' && c != 'E')
+        return false;
+    }
+    return true;
+  }
+
   @Nullable
   public static <DSTTYPE> DSTTYPE convert (final boolean aSrcValue, @Nonnull final Class <DSTTYPE> aDstClass)
   {
+    // Fast path without registry lookup
+    if (aDstClass == String.class)
+      return GenericReflection.uncheckedCast (Boolean.toString (aSrcValue));
     return convert (Boolean.valueOf (aSrcValue), aDstClass);
   }
 
@@ -99,6 +170,13 @@ public final class TypeConverter
   @Nullable
   public static <DSTTYPE> DSTTYPE convert (final double aSrcValue, @Nonnull final Class <DSTTYPE> aDstClass)
   {
+    // Fast paths without registry lookup
+    if (aDstClass == String.class)
+      return GenericReflection.uncheckedCast (Double.toString (aSrcValue));
+    if (aDstClass == Integer.class || aDstClass == int.class)
+      return GenericReflection.uncheckedCast (Integer.valueOf ((int) aSrcValue));
+    if (aDstClass == Long.class || aDstClass == long.class)
+      return GenericReflection.uncheckedCast (Long.valueOf ((long) aSrcValue));
     return convert (Double.valueOf (aSrcValue), aDstClass);
   }
 
@@ -111,12 +189,26 @@ public final class TypeConverter
   @Nullable
   public static <DSTTYPE> DSTTYPE convert (final int aSrcValue, @Nonnull final Class <DSTTYPE> aDstClass)
   {
+    // Fast paths without registry lookup
+    if (aDstClass == String.class)
+      return GenericReflection.uncheckedCast (Integer.toString (aSrcValue));
+    if (aDstClass == Long.class || aDstClass == long.class)
+      return GenericReflection.uncheckedCast (Long.valueOf (aSrcValue));
+    if (aDstClass == Double.class || aDstClass == double.class)
+      return GenericReflection.uncheckedCast (Double.valueOf (aSrcValue));
     return convert (Integer.valueOf (aSrcValue), aDstClass);
   }
 
   @Nullable
   public static <DSTTYPE> DSTTYPE convert (final long aSrcValue, @Nonnull final Class <DSTTYPE> aDstClass)
   {
+    // Fast paths without registry lookup
+    if (aDstClass == String.class)
+      return GenericReflection.uncheckedCast (Long.toString (aSrcValue));
+    if (aDstClass == Integer.class || aDstClass == int.class)
+      return GenericReflection.uncheckedCast (Integer.valueOf ((int) aSrcValue));
+    if (aDstClass == Double.class || aDstClass == double.class)
+      return GenericReflection.uncheckedCast (Double.valueOf (aSrcValue));
     return convert (Long.valueOf (aSrcValue), aDstClass);
   }
 
@@ -246,6 +338,32 @@ public final class TypeConverter
     return aValue == null ? cDefault : aValue.charValue ();
   }
 
+  /**
+   * Fast conversion to double for the most common source types with the same
+   * semantics as the registered converters.
+   *
+   * @return {@link Double#NaN} if no fast conversion is possible.
+   */
+  private static double _convertToDoubleFast (@Nonnull final Object aSrcValue)
+  {
+    if (_isPrimitiveWrapperNumber (aSrcValue))
+      return ((Number) aSrcValue).doubleValue ();
+    if (aSrcValue instanceof String)
+    {
+      final String sSrc = (String) aSrcValue;
+      if (_isPlainDecimal (sSrc))
+        try
+        {
+          return Double.parseDouble (sSrc);
+        }
+        catch (final NumberFormatException ex)
+        {
+          // Fall through to the generic path
+        }
+    }
+    return Double.NaN;
+  }
+
   /**
    * Convert the passed source value to double
    *
@@ -263,6 +381,9 @@ public final class TypeConverter
   {
     if (aSrcValue == null)
       throw new TypeConverterException (double.class, EReason.NULL_SOURCE_NOT_ALLOWED);
+    final double dValue = _convertToDoubleFast (aSrcValue);
+    if (!Double.isNaN (dValue))
+      return dValue;
     final Double aValue = convert (aSrcValue, Double.class);
     return aValue.doubleValue ();
   }
@@ -282,6 +403,11 @@ public final class TypeConverter
    */
   public static double convertToDouble (@Nullable final Object aSrcValue, final double dDefault)
   {
+    if (aSrcValue == null)
+      return dDefault;
+    final double dValue = _convertToDoubleFast (aSrcValue);
+    if (!Double.isNaN (dValue))
+      return dValue;
     final Double aValue = convert (aSrcValue, Double.class, null);
     return aValue == null ? dDefault : aValue.doubleValue ();
   }
@@ -343,6 +469,10 @@ public final class TypeConverter
   {
     if (aSrcValue == null)
       throw new TypeConverterException (int.class, EReason.NULL_SOURCE_NOT_ALLOWED);
+    if (_isPrimitiveWrapperNumber (aSrcValue))
+      return ((Number) aSrcValue).intValue ();
+    if (aSrcValue instanceof String && _isPlainInteger ((String) aSrcValue, MAX_INT_DIGITS))
+      return Integer.parseInt ((String) aSrcValue);
     final Integer aValue = convert (aSrcValue, Integer.class);
     return aValue.intValue ();
   }
@@ -362,6 +492,12 @@ public final class TypeConverter
    */
   public static int convertToInt (@Nullable final Object aSrcValue, final int nDefault)
   {
+    if (aSrcValue == null)
+      return nDefault;
+    if (_isPrimitiveWrapperNumber (aSrcValue))
+      return ((Number) aSrcValue).intValue ();
+    if (aSrcValue instanceof String && _isPlainInteger ((String) aSrcValue, MAX_INT_DIGITS))
+      return Integer.parseInt ((String) aSrcValue);
     final Integer aValue = convert (aSrcValue, Integer.class, null);
     return aValue == null ? nDefault : aValue.intValue ();
   }
@@ -383,6 +519,10 @@ public final class TypeConverter
   {
     if (aSrcValue == null)
       throw new TypeConverterException (long.class, EReason.NULL_SOURCE_NOT_ALLOWED);
+    if (_isPrimitiveWrapperNumber (aSrcValue))
+      return ((Number) aSrcValue).longValue ();
+    if (aSrcValue instanceof String && _isPlainInteger ((String) aSrcValue, MAX_LONG_DIGITS))
+      return Long.parseLong ((String) aSrcValue);
     final Long aValue = convert (aSrcValue, Long.class);
     return aValue.longValue ();
   }
@@ -402,6 +542,12 @@ public final class TypeConverter
    */
   public static long convertToLong (@Nullable final Object aSrcValue, final long nDefault)
   {
+    if (aSrcValue == null)
+      return nDefault;
+    if (_isPrimitiveWrapperNumber (aSrcValue))
+      return ((Number) aSrcValue).longValue ();
+    if (aSrcValue instanceof String && _isPlainInteger ((String) aSrcValue, MAX_LONG_DIGITS))
+      return Long.parseLong ((String) aSrcValue);
     final Long aValue = convert (aSrcValue, Long.class, null);
     return aValue == null ? nDefault : aValue.longValue ();
   }
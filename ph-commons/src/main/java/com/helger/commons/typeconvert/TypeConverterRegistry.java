@@ -18,6 +18,7 @@ package com.helger.commons.typeconvert;
 
 import java.lang.ref.WeakReference;
 import java.util.Map;
+import java.util.function.BiFunction;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -38,6 +39,7 @@ import com.helger.commons.collection.impl.CommonsWeakHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.collection.impl.ICommonsSortedMap;
+import com.helger.commons.concurrent.SimpleLock;
 import com.helger.commons.concurrent.SimpleReadWriteLock;
 import com.helger.commons.debug.GlobalDebug;
 import com.helger.commons.lang.ClassHelper;
@@ -66,6 +68,44 @@ public final class TypeConverterRegistry implements ITypeConverterRegistry
 
   private static boolean s_bDefaultInstantiated = false;
 
+  // The marker for "no converter" in the resolved converter caches
+  private static final Object NO_CONVERTER = new Object ();
+
+  /**
+   * Cache for the resolved converters from source class to destination class,
+   * including negative results. Weak keys are used on both levels, so that the
+   * cache keeps neither the source nor the destination classes (and therefore
+   * their class loaders) alive.<br>
+   * Note: a {@link ClassValue} must not be used here. A value stored for a
+   * class of the bootstrap class loader (like {@link String}) would keep this
+   * registry and its class loader alive for the lifetime of the JVM.
+   */
+  private static final class ResolvedConverterCache
+  {
+    private final SimpleLock m_aLock = new SimpleLock ();
+    // A WeakHashMap modifies itself on reading, so a simple lock is used
+    @GuardedBy ("m_aLock")
+    private final ICommonsMap <Class <?>, ICommonsMap <Class <?>, Object>> m_aMap = new CommonsWeakHashMap <> ();
+
+    /**
+     * @return The cached converter, {@link TypeConverterRegistry#NO_CONVERTER}
+     *         or <code>null</code> if nothing is cached.
+     */
+    @Nullable
+    Object get (@Nonnull final Class <?> aSrcClass, @Nonnull final Class <?> aDstClass)
+    {
+      return m_aLock.lockedGet ( () -> {
+        final ICommonsMap <Class <?>, Object> aDstMap = m_aMap.get (aSrcClass);
+        return aDstMap == null ? null : aDstMap.get (aDstClass);
+      });
+    }
+
+    void put (@Nonnull final Class <?> aSrcClass, @Nonnull final Class <?> aDstClass, @Nonnull final Object aValue)
+    {
+      m_aLock.locked ( () -> m_aMap.computeIfAbsent (aSrcClass, k -> new CommonsWeakHashMap <> ()).put (aDstClass, aValue));
+    }
+  }
+
   private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
 
   // Use a weak hash map, because the key is a class
@@ -74,6 +114,13 @@ public final class TypeConverterRegistry implements ITypeConverterRegistry
   @GuardedBy ("m_aRWLock")
   private final ICommonsSortedMap <ITypeConverterRule.ESubType, ICommonsList <ITypeConverterRule <?, ?>>> m_aRules = new CommonsTreeMap <> ();
 
+  // Caches for the resolved converters. They are replaced upon every
+  // modification, so that resolutions based on the old state, that are still
+  // in progress, don't end up in the new caches.
+  private volatile ResolvedConverterCache m_aRuleBasedCache;
+  private volatile ResolvedConverterCache m_aFuzzyCache;
+  private volatile ResolvedConverterCache m_aBestMatchCache;
+
   private TypeConverterRegistry ()
   {
     _reinitialize ();
@@ -92,6 +139,48 @@ public final class TypeConverterRegistry implements ITypeConverterRegistry
     return ret;
   }
 
+  /**
+   * Replace all resolved converter caches with empty ones. Must be called
+   * inside the write lock.
+   */
+  private void _clearResolvedConverterCaches ()
+  {
+    m_aRuleBasedCache = new ResolvedConverterCache ();
+    m_aFuzzyCache = new ResolvedConverterCache ();
+    m_aBestMatchCache = new ResolvedConverterCache ();
+  }
+
+  /**
+   * Get a converter from the provided cache or resolve and cache it.
+   *
+   * @param aCache
+   *        The cache to use. May not be <code>null</code>.
+   * @param aSrcClass
+   *        Source class. May not be <code>null</code>.
+   * @param aDstClass
+   *        Destination class. May not be <code>null</code>.
+   * @param aResolver
+   *        The resolver to be invoked inside the read lock, if nothing is
+   *        cached yet. May not be <code>null</code>.
+   * @return <code>null</code> if no such type converter exists, the converter
+   *         object otherwise.
+   */
+  @Nullable
+  private ITypeConverter <?, ?> _getCachedConverter (@Nonnull final ResolvedConverterCache aCache,
+                                                     @Nonnull final Class <?> aSrcClass,
+                                                     @Nonnull final Class <?> aDstClass,
+                                                     @Nonnull final BiFunction <Class <?>, Class <?>, ITypeConverter <?, ?>> aResolver)
+  {
+    Object ret = aCache.get (aSrcClass, aDstClass);
+    if (ret == null)
+    {
+      final ITypeConverter <?, ?> aConverter = m_aRWLock.readLockedGet ( () -> aResolver.apply (aSrcClass, aDstClass));
+      ret = aConverter == null ? NO_CONVERTER : aConverter;
+      aCache.put (aSrcClass, aDstClass, ret);
+    }
+    return ret == NO_CONVERTER ? null : (ITypeConverter <?, ?>) ret;
+  }
+
   @Nonnull
   @ReturnsMutableObject ("internal use only")
   private ICommonsMap <Class <?>, ITypeConverter <?, ?>> _getOrCreateConverterMap (@Nonnull final Class <?> aClass)
@@ -141,6 +230,8 @@ public final class TypeConverterRegistry implements ITypeConverterRegistry
       throw new IllegalArgumentException ("A mapping from " + aSrcClass + " to " + aDstClass + " is already defined!");
 
     m_aRWLock.writeLocked ( () -> {
+      _clearResolvedConverterCaches ();
+
       // Automatically register the destination class, and all parent
       // classes/interfaces
       for (final WeakReference <Class <?>> aCurWRDstClass : ClassHierarchyCache.getClassHierarchyIterator (aDstClass))
@@ -193,10 +284,14 @@ public final class TypeConverterRegistry implements ITypeConverterRegistry
   @Nullable
   ITypeConverter <?, ?> getExactConverter (@Nullable final Class <?> aSrcClass, @Nullable final Class <?> aDstClass)
   {
-    return m_aRWLock.readLockedGet ( () -> {
-      final Map <Class <?>, ITypeConverter <?, ?>> aConverterMap = m_aConverter.get (aSrcClass);
-      return aConverterMap == null ? null : aConverterMap.get (aDstClass);
-    });
+    return m_aRWLock.readLockedGet ( () -> _getExactConverter (aSrcClass, aDstClass));
+  }
+
+  @Nullable
+  private ITypeConverter <?, ?> _getExactConverter (@Nullable final Class <?> aSrcClass, @Nullable final Class <?> aDstClass)
+  {
+    final Map <Class <?>, ITypeConverter <?, ?>> aConverterMap = m_aConverter.get (aSrcClass);
+    return aConverterMap == null ? null : aConverterMap.get (aDstClass);
   }
 
   /**
@@ -216,15 +311,19 @@ public final class TypeConverterRegistry implements ITypeConverterRegistry
     if (aSrcClass == null || aDstClass == null)
       return null;
 
-    return m_aRWLock.readLockedGet ( () -> {
-      // Check all rules in the correct order
-      for (final Map.Entry <ITypeConverterRule.ESubType, ICommonsList <ITypeConverterRule <?, ?>>> aEntry : m_aRules.entrySet ())
-        for (final ITypeConverterRule <?, ?> aRule : aEntry.getValue ())
-          if (aRule.canConvert (aSrcClass, aDstClass))
-            return aRule;
+    return _getCachedConverter (m_aRuleBasedCache, aSrcClass, aDstClass, this::_getRuleBasedConverter);
+  }
+
+  @Nullable
+  private ITypeConverter <?, ?> _getRuleBasedConverter (@Nonnull final Class <?> aSrcClass, @Nonnull final Class <?> aDstClass)
+  {
+    // Check all rules in the correct order
+    for (final Map.Entry <ITypeConverterRule.ESubType, ICommonsList <ITypeConverterRule <?, ?>>> aEntry : m_aRules.entrySet ())
+      for (final ITypeConverterRule <?, ?> aRule : aEntry.getValue ())
+        if (aRule.canConvert (aSrcClass, aDstClass))
+          return aRule.getConverterFor (aSrcClass, aDstClass);
 
-      return null;
-    });
+    return null;
   }
 
   /**
@@ -286,34 +385,79 @@ public final class TypeConverterRegistry implements ITypeConverterRegistry
     if (aSrcClass == null || aDstClass == null)
       return null;
 
-    return m_aRWLock.readLockedGet ( () -> {
-      if (GlobalDebug.isDebugMode ())
-      {
-        // Perform a check, whether there is more than one potential converter
-        // present!
-        final ICommonsList <String> aAllConverters = new CommonsArrayList <> ();
-        _iterateFuzzyConverters (aSrcClass, aDstClass, (aCurSrcClass, aCurDstClass, aConverter) -> {
-          final boolean bExact = aSrcClass.equals (aCurSrcClass) && aDstClass.equals (aCurDstClass);
-          aAllConverters.add ("[" + aCurSrcClass.getName () + "->" + aCurDstClass.getName () + "]");
-          return bExact ? EContinue.BREAK : EContinue.CONTINUE;
-        });
-        if (aAllConverters.size () > 1)
-          LOGGER.warn ("The fuzzy type converter resolver returned more than 1 match for the conversion from " +
-                       aSrcClass +
-                       " to " +
-                       aDstClass +
-                       ": " +
-                       aAllConverters);
-      }
+    return _getCachedConverter (m_aFuzzyCache, aSrcClass, aDstClass, this::_getFuzzyConverter);
+  }
 
-      // Iterate and find the first matching type converter
-      final Wrapper <ITypeConverter <?, ?>> ret = new Wrapper <> ();
+  @Nullable
+  private ITypeConverter <?, ?> _getFuzzyConverter (@Nonnull final Class <?> aSrcClass, @Nonnull final Class <?> aDstClass)
+  {
+    if (GlobalDebug.isDebugMode ())
+    {
+      // Perform a check, whether there is more than one potential converter
+      // present!
+      final ICommonsList <String> aAllConverters = new CommonsArrayList <> ();
       _iterateFuzzyConverters (aSrcClass, aDstClass, (aCurSrcClass, aCurDstClass, aConverter) -> {
-        ret.set (aConverter);
-        return EContinue.BREAK;
+        final boolean bExact = aSrcClass.equals (aCurSrcClass) && aDstClass.equals (aCurDstClass);
+        aAllConverters.add ("[" + aCurSrcClass.getName () + "->" + aCurDstClass.getName () + "]");
+        return bExact ? EContinue.BREAK : EContinue.CONTINUE;
       });
-      return ret.get ();
+      if (aAllConverters.size () > 1)
+        LOGGER.warn ("The fuzzy type converter resolver returned more than 1 match for the conversion from " +
+                     aSrcClass +
+                     " to " +
+                     aDstClass +
+                     ": " +
+                     aAllConverters);
+    }
+
+    // Iterate and find the first matching type converter
+    final Wrapper <ITypeConverter <?, ?>> ret = new Wrapper <> ();
+    _iterateFuzzyConverters (aSrcClass, aDstClass, (aCurSrcClass, aCurDstClass, aConverter) -> {
+      ret.set (aConverter);
+      return EContinue.BREAK;
     });
+    return ret.get ();
+  }
+
+  /**
+   * Get the best matching converter that can convert objects from aSrcClass to
+   * aDstClass. First an exact match is searched, then a rule based converter
+   * and finally a fuzzy converter is looked up. The result is cached, so
+   * subsequent calls for the same classes require no lookup.
+   *
+   * @param aSrcClass
+   *        Source class. May not be <code>null</code>.
+   * @param aDstClass
+   *        Destination class. May not be <code>null</code>.
+   * @return <code>null</code> if no such type converter exists, the converter
+   *         object otherwise.
+   * @since 11.0.1
+   */
+  @Nullable
+  ITypeConverter <?, ?> getBestMatchConverter (@Nullable final Class <?> aSrcClass, @Nullable final Class <?> aDstClass)
+  {
+    if (aSrcClass == null || aDstClass == null)
+      return null;
+
+    return _getCachedConverter (m_aBestMatchCache, aSrcClass, aDstClass, this::_getBestMatchConverter);
+  }
+
+  @Nullable
+  private ITypeConverter <?, ?> _getBestMatchConverter (@Nonnull final Class <?> aSrcClass, @Nonnull final Class <?> aDstClass)
+  {
+    // Find exact hit first
+    ITypeConverter <?, ?> ret = _getExactConverter (aSrcClass, aDstClass);
+    if (ret == null)
+    {
+      // No exact match was found -> try rule based converter
+      ret = _getRuleBasedConverter (aSrcClass, aDstClass);
+      if (ret == null)
+      {
+        // No exact match was found -> try fuzzy converter
+        ret = _getFuzzyConverter (aSrcClass, aDstClass);
+      }
+    }
+    return ret;
   }
 
   /**
@@ -352,8 +496,10 @@ public final class TypeConverterRegistry implements ITypeConverterRegistry
   {
     ValueEnforcer.notNull (aTypeConverterRule, "TypeConverterRule");
 
-    m_aRWLock.writeLockedBoolean ( () -> m_aRules.computeIfAbsent (aTypeConverterRule.getSubType (), x -> new CommonsArrayList <> ())
-                                                 .add (aTypeConverterRule));
+    m_aRWLock.writeLocked ( () -> {
+      _clearResolvedConverterCaches ();
+      m_aRules.computeIfAbsent (aTypeConverterRule.getSubType (), x -> new CommonsArrayList <> ()).add (aTypeConverterRule);
+    });
 
     if (LOGGER.isTraceEnabled ())
       LOGGER.trace ("Registered type converter rule " +
@@ -378,6 +524,7 @@ public final class TypeConverterRegistry implements ITypeConverterRegistry
     m_aRWLock.writeLocked ( () -> {
       m_aConverter.clear ();
       m_aRules.clear ();
+      _clearResolvedConverterCaches ();
 
       // Register all custom type converter.
       // Must be in writeLock to ensure no reads happen during initialization
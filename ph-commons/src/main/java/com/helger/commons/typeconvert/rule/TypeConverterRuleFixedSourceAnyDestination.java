@@ -22,6 +22,7 @@ import javax.annotation.Nonnull;
 
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.string.ToStringGenerator;
+import com.helger.commons.typeconvert.ITypeConverter;
 import com.helger.commons.typeconvert.TypeConverter;
 
 /**
@@ -69,6 +70,14 @@ public class TypeConverterRuleFixedSourceAnyDestination <SRC> extends AbstractTy
     return TypeConverter.convert (aInBetweenValue, m_aEffectiveDstClass);
   }
 
+  @Override
+  @Nonnull
+  public ITypeConverter <SRC, Object> getConverterFor (@Nonnull final Class <?> aSrcClass, @Nonnull final Class <?> aDstClass)
+  {
+    // Don't rely on the status var, as the converter is cached
+    return aSource -> TypeConverter.convert (getInBetweenValue (aSource), aDstClass);
+  }
+
   @Nonnull
   public final Class <?> getSourceClass ()
   {
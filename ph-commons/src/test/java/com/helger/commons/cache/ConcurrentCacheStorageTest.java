@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.concurrent.ThreadHelper;
+
+/**
+ * Test class for class {@link ConcurrentCacheStorage}.
+ *
+ * @author Philip Helger
+ */
+public final class ConcurrentCacheStorageTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final ConcurrentCacheStorage <String, String> c = new ConcurrentCacheStorage <> (0,
+                                                                                   null,
+                                                                                   new CacheSettings (ECacheEngine.CONCURRENT));
+    assertTrue (c.isEmpty ());
+    assertNull (c.get ("a"));
+    assertEquals ("A", c.computeIfAbsent ("a", String::toUpperCase));
+    assertEquals ("A", c.get ("a"));
+    assertEquals ("A", c.computeIfAbsent ("a", x -> "other"));
+    c.put ("a", "B");
+    assertEquals ("B", c.get ("a"));
+    assertEquals (1, c.size ());
+    // Weight is not tracked for unbounded, non-expiring storages
+    assertEquals (-1, c.getTotalWeight ());
+    assertTrue (c.remove ("a").isChanged ());
+    assertFalse (c.remove ("a").isChanged ());
+    assertTrue (c.isEmpty ());
+  }
+
+  @Test
+  public void testSegmentedLRU ()
+  {
+    final ConcurrentCacheStorage <Integer, String> c = new ConcurrentCacheStorage <> (10,
+                                                                                    null,
+                                                                                    new CacheSettings (ECacheEngine.CONCURRENT));
+    assertEquals (1, c.getStripeCount ());
+
+    // Make 0 and 1 "popular"
+    for (int i = 0; i < 10; ++i)
+      c.computeIfAbsent (Integer.valueOf (i), Object::toString);
+    assertNotNull (c.get (Integer.valueOf (0)));
+    assertNotNull (c.get (Integer.valueOf (1)));
+
+    // Scan with many one-hit wonders
+    for (int i = 100; i < 200; ++i)
+      c.computeIfAbsent (Integer.valueOf (i), Object::toString);
+    assertEquals (10, c.size ());
+    assertEquals (10, c.getTotalWeight ());
+    assertEquals (100, c.getEvictionCount ());
+
+    // The popular ones survived the scan
+    assertNotNull (c.get (Integer.valueOf (0)));
+    assertNotNull (c.get (Integer.valueOf (1)));
+    assertNull (c.get (Integer.valueOf (2)));
+    assertNull (c.get (Integer.valueOf (100)));
+    assertNotNull (c.get (Integer.valueOf (199)));
+  }
+
+  @Test
+  public void testGlobalMaxWeight ()
+  {
+    final ConcurrentCacheStorage <Integer, String> c = new ConcurrentCacheStorage <> (1000,
+                                                                                    null,
+                                                                                    new CacheSettings (ECacheEngine.CONCURRENT).setConcurrencyLevel (64));
+    assertEquals (64, c.getStripeCount ());
+
+    // All keys end up in the same stripe
+    for (int i = 0; i < 1000; ++i)
+      c.computeIfAbsent (Integer.valueOf (i * 64), Object::toString);
+    assertEquals (1000, c.size ());
+    assertEquals (1000, c.getTotalWeight ());
+    assertEquals (0, c.getEvictionCount ());
+
+    // Now the bound is reached - entries of other stripes are evicted as well
+    for (int i = 1; i <= 10; ++i)
+      c.put (Integer.valueOf (i), "x");
+    assertEquals (1000, c.size ());
+    assertEquals (1000, c.getTotalWeight ());
+    assertEquals (10, c.getEvictionCount ());
+    for (int i = 1; i <= 10; ++i)
+      assertEquals ("x", c.get (Integer.valueOf (i)));
+
+    // An entry that can never fit is not kept
+    final ConcurrentCacheStorage <String, String> c2 = new ConcurrentCacheStorage <> (10,
+                                                                                    (k, v) -> v.length (),
+                                                                                    new CacheSettings (ECacheEngine.CONCURRENT));
+    c2.put ("a", "abc");
+    c2.put ("b", "01234567890");
+    assertNull (c2.get ("b"));
+    assertEquals ("abc", c2.get ("a"));
+    assertEquals (3, c2.getTotalWeight ());
+  }
+
+  @Test
+  public void testSizeWhileLoading ()
+  {
+    final ConcurrentCacheStorage <String, String> c = new ConcurrentCacheStorage <> (0,
+                                                                                   null,
+                                                                                   new CacheSettings (ECacheEngine.CONCURRENT));
+    assertEquals ("b", c.computeIfAbsent ("a", x -> {
+      // The entry being loaded is not counted
+      assertEquals (0, c.size ());
+      assertTrue (c.isEmpty ());
+      return "b";
+    }));
+    assertEquals (1, c.size ());
+    assertFalse (c.isEmpty ());
+  }
+
+  @Test
+  public void testExpireAfterWrite ()
+  {
+    final ConcurrentCacheStorage <String, String> c = new ConcurrentCacheStorage <> (0,
+                                                                                   null,
+                                                                                   new CacheSettings (ECacheEngine.CONCURRENT).setExpireAfterWrite (Duration.ofMillis (50)));
+    c.put ("a", "b");
+    assertEquals ("b", c.get ("a"));
+    ThreadHelper.sleep (100);
+    assertNull (c.get ("a"));
+    assertEquals (0, c.size ());
+
+    c.put ("a", "b");
+    ThreadHelper.sleep (100);
+    c.cleanUp ();
+    assertEquals (0, c.size ());
+    assertEquals ("c", c.computeIfAbsent ("a", x -> "c"));
+  }
+
+  @Test
+  public void testLoaderException ()
+  {
+    final ConcurrentCacheStorage <String, String> c = new ConcurrentCacheStorage <> (0,
+                                                                                   null,
+                                                                                   new CacheSettings (ECacheEngine.CONCURRENT));
+    try
+    {
+      c.computeIfAbsent ("a", x -> {
+        throw new IllegalArgumentException ("oops");
+      });
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+    assertTrue (c.isEmpty ());
+
+    try
+    {
+      c.computeIfAbsent ("a", x -> null);
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+    assertTrue (c.isEmpty ());
+
+    try
+    {
+      // Recursive load of the same key
+      c.computeIfAbsent ("a", x -> c.computeIfAbsent ("a", y -> "b"));
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+    assertTrue (c.isEmpty ());
+  }
+
+  @Test
+  public void testComputeOnce ()
+  {
+    final ConcurrentCacheStorage <Integer, String> c = new ConcurrentCacheStorage <> (0,
+                                                                                    null,
+                                                                                    new CacheSettings (ECacheEngine.CONCURRENT));
+    final AtomicInteger aLoads = new AtomicInteger ();
+    final int nKeys = 20;
+    final ExecutorService aES = Executors.newFixedThreadPool (16);
+    for (int i = 0; i < 1000; ++i)
+    {
+      final Integer aKey = Integer.valueOf (i % nKeys);
+      aES.submit ( () -> c.computeIfAbsent (aKey, k -> {
+        aLoads.incrementAndGet ();
+        ThreadHelper.sleep (5);
+        return k.toString ();
+      }));
+    }
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    assertEquals (nKeys, aLoads.get ());
+    assertEquals (nKeys, c.size ());
+  }
+}
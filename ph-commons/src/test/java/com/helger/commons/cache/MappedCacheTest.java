@@ -167,4 +167,109 @@ public final class MappedCacheTest
     assertEquals (2, c.size ());
     assertTrue (c.isInCache ("b"));
   }
+
+  @Test
+  public void testConcurrentEngineMaxSize ()
+  {
+    final int nMaxSize = 5;
+    final Cache <String, String> c = new Cache <> (x -> x,
+                                                   nMaxSize,
+                                                   "Mock",
+                                                   false,
+                                                   new CacheSettings (ECacheEngine.CONCURRENT));
+    assertEquals (ECacheEngine.CONCURRENT, c.getEngine ());
+    assertTrue (c.hasMaxSize ());
+
+    for (int i = 0; i < nMaxSize * 2; ++i)
+      c.getFromCache ("anything" + i);
+    assertEquals (nMaxSize, c.size ());
+    assertFalse (c.isInCache ("anything0"));
+    assertFalse (c.isInCache ("anything4"));
+    assertTrue (c.isInCache ("anything5"));
+    assertTrue (c.isInCache ("anything9"));
+
+    assertTrue (c.removeFromCache ("anything9").isChanged ());
+    assertFalse (c.removeFromCache ("anything9").isChanged ());
+    assertEquals (nMaxSize - 1, c.size ());
+    assertTrue (c.clearCache ().isChanged ());
+    assertTrue (c.isEmpty ());
+    assertFalse (c.clearCache ().isChanged ());
+  }
+
+  @Test
+  public void testConcurrentEngineNullValues ()
+  {
+    final CacheSettings aSettings = new CacheSettings (ECacheEngine.CONCURRENT);
+    final Cache <String, String> c = new Cache <> (aKey -> "blub".equals (aKey) ? null : aKey,
+                                                   MappedCache.NO_MAX_SIZE,
+                                                   "Mock",
+                                                   true,
+                                                   aSettings);
+    assertEquals ("v1", c.getFromCache ("v1"));
+    assertNull (c.getFromCache ("blub"));
+    assertEquals (2, c.size ());
+    assertTrue (c.isInCache ("blub"));
+
+    final Cache <String, String> c2 = new Cache <> (aKey -> "blub".equals (aKey) ? null : aKey,
+                                                    MappedCache.NO_MAX_SIZE,
+                                                    "Mock",
+                                                    false,
+                                                    aSettings);
+    try
+    {
+      // null value not allowed
+      c2.getFromCache ("blub");
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+    assertTrue (c2.isEmpty ());
+    assertFalse (c2.isInCache ("blub"));
+  }
+
+  @Test
+  public void testConcurrentEngineWeight ()
+  {
+    final MappedCache <String, String, String> c = new MappedCache <String, String, String> (x -> x,
+                                                                                            x -> x,
+                                                                                            10,
+                                                                                            "Mock",
+                                                                                            false,
+                                                                                            new CacheSettings (ECacheEngine.CONCURRENT))
+    {
+      @Override
+      protected long getWeight (final String aCacheKey, final String aValue)
+      {
+        return aValue.length ();
+      }
+    };
+    c.getFromCache ("aaaa");
+    c.getFromCache ("bbbb");
+    assertEquals (2, c.size ());
+    // Exceeds the max weight of 10
+    c.getFromCache ("cccc");
+    assertEquals (2, c.size ());
+    assertFalse (c.isInCache ("aaaa"));
+    assertTrue (c.isInCache ("cccc"));
+  }
+
+  @Test
+  public void testDefaultEngine ()
+  {
+    final ECacheEngine eOld = CacheSettings.setDefaultEngine (ECacheEngine.CONCURRENT);
+    try
+    {
+      final Cache <String, String> c = new Cache <> (x -> x, "Mock");
+      assertEquals (ECacheEngine.CONCURRENT, c.getEngine ());
+      assertEquals ("a", c.getFromCache ("a"));
+      assertTrue (c.isInCache ("a"));
+    }
+    finally
+    {
+      CacheSettings.setDefaultEngine (eOld);
+    }
+    assertEquals (eOld, new Cache <> (x -> x, "Mock").getEngine ());
+  }
 }
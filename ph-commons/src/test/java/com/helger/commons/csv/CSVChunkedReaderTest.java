@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+import com.helger.commons.io.stream.NonBlockingStringReader;
+
+/**
+ * Test class for class {@link CSVChunkedReader}.
+ *
+ * @author Philip Helger
+ */
+public final class CSVChunkedReaderTest
+{
+  private static final String [] INPUTS = { "",
+                                            "a,b,aReader\n",
+                                            "a,\"b,b,b\",aReader\n,,\n",
+                                            "a,\"PO Box 123,\nKippax,ACT. 2615.\nAustralia\",d.\n",
+                                            "\"Glen \"\"The Man\"\" Smith\",Athlete,Developer\n",
+                                            "\"\"\"\"\"\",\"test\"\n\"a\nb\",b,\"\nd\",e\n",
+                                            "a,b\r\nc,d\re,f\n\ng,h",
+                                            "a\\\"b,\"c\\\"d\",\\\\e\n",
+                                            "ab,cd\"e\"fg,h\n  \"x\",  y\n",
+                                            "a,  \"b\" ,c\r\n\r\n",
+                                            "a,\"unterminated\nfield",
+                                            "äöü,€\n\"€\r\nß\",x" };
+
+  @Nonnull
+  private static ICommonsList <CSVParser> _getAllParsers ()
+  {
+    return new CommonsArrayList <> (new CSVParser (),
+                                    new CSVParser ().setStrictQuotes (true),
+                                    new CSVParser ().setIgnoreQuotations (true),
+                                    new CSVParser ().setIgnoreLeadingWhiteSpace (false),
+                                    new CSVParser ().setSeparatorChar (';').setEscapeChar (CCSV.NULL_CHARACTER));
+  }
+
+  @Nonnull
+  private static ICommonsList <ICommonsList <String>> _readClassic (@Nonnull final String sCSV,
+                                                                   @Nonnull final CSVParser aParser,
+                                                                   final int nSkipLines) throws IOException
+  {
+    // CSVParser is stateful - use a fresh copy
+    final CSVParser aFreshParser = new CSVParser ().setSeparatorChar (aParser.getSeparatorChar ())
+                                                  .setQuoteChar (aParser.getQuoteChar ())
+                                                  .setEscapeChar (aParser.getEscapeChar ())
+                                                  .setStrictQuotes (aParser.isStrictQuotes ())
+                                                  .setIgnoreLeadingWhiteSpace (aParser.isIgnoreLeadingWhiteSpace ())
+                                                  .setIgnoreQuotations (aParser.isIgnoreQuotations ());
+    try (final CSVReader aReader = new CSVReader (new NonBlockingStringReader (sCSV), aFreshParser, false))
+    {
+      aReader.setSkipLines (nSkipLines);
+      return aReader.readAll ();
+    }
+  }
+
+  @Nonnull
+  private static ICommonsList <ICommonsList <String>> _readChunked (@Nonnull final String sCSV,
+                                                                   @Nonnull final CSVParser aParser,
+                                                                   final int nSkipLines,
+                                                                   final int nChunkSize,
+                                                                   final boolean bParallel) throws IOException
+  {
+    final CSVChunkedReader aReader = new CSVChunkedReader (aParser).setChunkSize (nChunkSize)
+                                                                   .setSkipLines (nSkipLines)
+                                                                   .setParallelism (3);
+    final Map <Long, ICommonsList <String>> aRecords = new ConcurrentSkipListMap <> ();
+    final NonBlockingByteArrayInputStream aIS = new NonBlockingByteArrayInputStream (sCSV.getBytes (StandardCharsets.UTF_8));
+    final long nCount;
+    if (bParallel)
+      nCount = aReader.readParallel (Channels.newChannel (aIS), r -> aRecords.put (Long.valueOf (r.getRecordIndex ()), r.getAsList ()));
+    else
+      nCount = aReader.read (Channels.newChannel (aIS), r -> aRecords.put (Long.valueOf (r.getRecordIndex ()), r.getAsList ()));
+    assertEquals (nCount, aRecords.size ());
+    // Indices must be dense
+    long nExpected = 0;
+    for (final Long aIndex : aRecords.keySet ())
+      assertEquals (nExpected++, aIndex.longValue ());
+    return new CommonsArrayList <> (aRecords.values ());
+  }
+
+  private static void _assertSame (@Nonnull final String sCSV, @Nonnull final CSVParser aParser, final int nSkipLines) throws IOException
+  {
+    final ICommonsList <ICommonsList <String>> aExpected = _readClassic (sCSV, aParser, nSkipLines);
+    for (final int nChunkSize : new int [] { 1, 3, 7, 64, CSVChunkedReader.DEFAULT_CHUNK_SIZE })
+      for (final boolean bParallel : new boolean [] { false, true })
+        assertEquals ("Chunk size " + nChunkSize + ", parallel=" + bParallel + ", input: " + sCSV,
+                      aExpected,
+                      _readChunked (sCSV, aParser, nSkipLines, nChunkSize, bParallel));
+  }
+
+  @Test
+  public void testSameAsCSVReader () throws IOException
+  {
+    for (final CSVParser aParser : _getAllParsers ())
+      for (final String sCSV : INPUTS)
+      {
+        _assertSame (sCSV, aParser, 0);
+        _assertSame (sCSV, aParser, 1);
+      }
+  }
+
+  @Test
+  public void testRandomInputs () throws IOException
+  {
+    final char [] aAlphabet = { 'a', 'b', ' ', ',', ';', '"', '"', '\\', '\n', '\n', '\r', 'ä', '€' };
+    final Random aRandom = new Random (4711);
+    for (int i = 0; i < 300; ++i)
+    {
+      final StringBuilder aSB = new StringBuilder ();
+      final int nLen = aRandom.nextInt (80);
+      for (int j = 0; j < nLen; ++j)
+        aSB.append (aAlphabet[aRandom.nextInt (aAlphabet.length)]);
+      final String sCSV = aSB.toString ();
+      for (final CSVParser aParser : _getAllParsers ())
+        _assertSame (sCSV, aParser, i % 3);
+    }
+  }
+
+  @Test
+  public void testReadFile () throws IOException
+  {
+    final File aFile = File.createTempFile ("csvchunked", ".csv");
+    try
+    {
+      final StringBuilder aSB = new StringBuilder ();
+      for (int i = 0; i < 10_000; ++i)
+        aSB.append (i).append (",\"name ").append (i).append ("\",").append (i * 0.5).append ('\n');
+      Files.write (aFile.toPath (), aSB.toString ().getBytes (StandardCharsets.ISO_8859_1));
+
+      final CSVChunkedReader aReader = new CSVChunkedReader ().setCharset (StandardCharsets.ISO_8859_1).setChunkSize (4096);
+      final AtomicLong aSum = new AtomicLong ();
+      assertEquals (10_000, aReader.readParallel (aFile.toPath (), r -> {
+        assertEquals (3, r.getFieldCount ());
+        assertEquals (r.getRecordIndex (), r.getLong (0));
+        assertEquals ("name " + r.getRecordIndex (), r.getFieldAsString (1));
+        assertEquals (r.getRecordIndex () * 0.5, r.getDouble (2), 0);
+        aSum.addAndGet (r.getInt (0));
+      }));
+      assertEquals (10_000L * 9_999 / 2, aSum.get ());
+
+      aSum.set (0);
+      assertEquals (10_000, aReader.read (aFile.toPath (), r -> aSum.addAndGet (r.getInt (0))));
+      assertEquals (10_000L * 9_999 / 2, aSum.get ());
+    }
+    finally
+    {
+      aFile.delete ();
+    }
+  }
+
+  @Test
+  public void testConsumerException () throws IOException
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    for (int i = 0; i < 1000; ++i)
+      aSB.append (i).append ('\n');
+    final CSVChunkedReader aReader = new CSVChunkedReader ().setChunkSize (64);
+    try
+    {
+      aReader.readParallel (Channels.newChannel (new NonBlockingByteArrayInputStream (aSB.toString ().getBytes (StandardCharsets.UTF_8))),
+                            r -> {
+                              if (r.getRecordIndex () == 500)
+                                throw new IllegalStateException ("Stop");
+                            });
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      assertEquals ("Stop", ex.getMessage ());
+    }
+  }
+
+  @Test
+  public void testSupportedCharsets ()
+  {
+    assertNotNull (new CSVChunkedReader ().setCharset (StandardCharsets.UTF_8));
+    assertNotNull (new CSVChunkedReader ().setCharset (Charset.forName ("windows-1252")));
+    try
+    {
+      new CSVChunkedReader ().setCharset (StandardCharsets.UTF_16);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+
+/**
+ * Test class for class {@link CSVRowCursor}.
+ *
+ * @author Philip Helger
+ */
+public final class CSVRowCursorTest
+{
+  private static void _read (@Nonnull final String sCSV, @Nonnull final Consumer <CSVRowCursor> aConsumer) throws IOException
+  {
+    final NonBlockingByteArrayInputStream aIS = new NonBlockingByteArrayInputStream (sCSV.getBytes (StandardCharsets.UTF_8));
+    assertEquals (1, new CSVChunkedReader ().read (Channels.newChannel (aIS), aConsumer));
+  }
+
+  @Test
+  public void testPrimitives () throws IOException
+  {
+    _read ("42,-9876543210,3.25,-0.5,1e3,TRUE,no,,x\n", r -> {
+      assertEquals (9, r.getFieldCount ());
+      assertEquals (42, r.getInt (0));
+      assertEquals (-9876543210L, r.getLong (1));
+      assertEquals (-1, r.getInt (1, -1));
+      assertEquals (3.25, r.getDouble (2), 0);
+      assertEquals (-0.5, r.getDouble (3), 0);
+      assertEquals (1000, r.getDouble (4), 0);
+      assertTrue (r.getBoolean (5));
+      assertFalse (r.getBoolean (6));
+      assertTrue (r.isFieldEmpty (7));
+      assertEquals (7, r.getInt (7, 7));
+      assertEquals (1.5, r.getDouble (8, 1.5), 0);
+      try
+      {
+        r.getLong (8);
+        fail ();
+      }
+      catch (final NumberFormatException ex)
+      {}
+    });
+  }
+
+  @Test
+  public void testFieldViews () throws IOException
+  {
+    // Quoted fields use the internal buffer, plain ones reference the chunk
+    for (final String sCSV : new String [] { "abc,de\n", "\"abc\",\"d\"\"e\"\n" })
+      _read (sCSV, r -> {
+        final CharSequence aField = r.getField (0);
+        assertEquals (3, aField.length ());
+        assertEquals ('b', aField.charAt (1));
+        assertEquals ("bc", aField.subSequence (1, 3).toString ());
+        assertEquals ("abc", aField.toString ());
+        assertEquals (sCSV.startsWith ("\"") ? "d\"e" : "de", r.getFieldAsString (1));
+        assertEquals (r.getAsList ().getFirst (), r.getFieldAsString (0));
+        try
+        {
+          r.getField (2);
+          fail ();
+        }
+        catch (final IndexOutOfBoundsException ex)
+        {}
+      });
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.id.factory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.io.file.FileOperations;
+import com.helger.commons.mock.CommonsTestHelper;
+
+/**
+ * Test class for class {@link FileChannelLongIDFactory}.
+ *
+ * @author Philip Helger
+ */
+public final class FileChannelLongIDFactoryTest
+{
+  @Test
+  public void testAll ()
+  {
+    final File f = new File ("my-channel-file-with.ids");
+    final File f2 = new File ("my-other-channel-file-with.ids");
+    try
+    {
+      final FileChannelLongIDFactory x = new FileChannelLongIDFactory (f);
+      CommonsTestHelper.testDefaultImplementationWithEqualContentObject (x, new FileChannelLongIDFactory (f));
+      CommonsTestHelper.testDefaultImplementationWithDifferentContentObject (x, new FileChannelLongIDFactory (f2));
+      CommonsTestHelper.testDefaultImplementationWithDifferentContentObject (x,
+                                                                             new FileChannelLongIDFactory (f,
+                                                                                                           10,
+                                                                                                           100,
+                                                                                                           Duration.ofSeconds (1)));
+
+      for (int i = 0; i < x.getInitialReserveCount () * 10; ++i)
+        assertEquals (i, x.getNewID ());
+
+      // A new instance continues after all reserved IDs
+      final long nLast = x.getNewID ();
+      x.waitUntilPrefetchFinished ();
+      final FileChannelLongIDFactory y = new FileChannelLongIDFactory (f);
+      assertTrue (y.getNewID () > nLast);
+      y.waitUntilPrefetchFinished ();
+    }
+    finally
+    {
+      FileOperations.deleteFile (f);
+      FileOperations.deleteFileIfExisting (f2);
+    }
+
+    try
+    {
+      new FileChannelLongIDFactory (null);
+      fail ();
+    }
+    catch (final NullPointerException ex)
+    {}
+    try
+    {
+      // Invalid reserve count
+      new FileChannelLongIDFactory (new File ("any"), 0, 10, Duration.ofSeconds (1));
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+
+  @Test
+  public void testAdaptiveReserveCount ()
+  {
+    final File f = new File ("my-adaptive-file-with.ids");
+    try
+    {
+      final FileChannelLongIDFactory x = new FileChannelLongIDFactory (f, 10, 1000, Duration.ofHours (1));
+      for (int i = 0; i < 5000; ++i)
+        assertEquals (i, x.getNewID ());
+      // Blocks are consumed way faster than the target duration
+      assertEquals (1000, x.getReserveCount ());
+      x.waitUntilPrefetchFinished ();
+    }
+    finally
+    {
+      FileOperations.deleteFile (f);
+    }
+  }
+
+  @Test
+  public void testConcurrent () throws Exception
+  {
+    final File f = new File ("my-concurrent-file-with.ids");
+    try
+    {
+      final FileChannelLongIDFactory x = new FileChannelLongIDFactory (f, 16, 4096, Duration.ofSeconds (1));
+      final int nThreads = 8;
+      final int nPerThread = 20_000;
+      final long [] aIDs = new long [nThreads * nPerThread];
+      final ExecutorService aES = Executors.newFixedThreadPool (nThreads);
+      final ICommonsList <Future <?>> aFutures = new CommonsArrayList <> ();
+      for (int t = 0; t < nThreads; ++t)
+      {
+        final int nOfs = t * nPerThread;
+        aFutures.add (aES.submit ( () -> {
+          long nPrev = -1;
+          for (int i = 0; i < nPerThread; ++i)
+          {
+            final long nID = x.getNewID ();
+            // IDs are increasing per thread
+            if (nID <= nPrev)
+              throw new IllegalStateException (nID + " after " + nPrev);
+            aIDs[nOfs + i] = nPrev = nID;
+          }
+        }));
+      }
+      for (final Future <?> aFuture : aFutures)
+        aFuture.get ();
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+      x.waitUntilPrefetchFinished ();
+
+      Arrays.sort (aIDs);
+      for (int i = 1; i < aIDs.length; ++i)
+        assertTrue ("Duplicate ID " + aIDs[i], aIDs[i] > aIDs[i - 1]);
+    }
+    finally
+    {
+      FileOperations.deleteFile (f);
+    }
+  }
+
+  @Test
+  public void testRecordSlots () throws IOException
+  {
+    final File f = new File ("my-slot-file-with.ids");
+    try
+    {
+      new FileChannelLongIDFactory (f, 10, 10, Duration.ofSeconds (1)).getNewID ();
+      new FileChannelLongIDFactory (f, 10, 10, Duration.ofSeconds (1)).getNewID ();
+      assertEquals (2 * FileChannelLongIDFactory.SLOT_SIZE, f.length ());
+
+      // Destroy the newer slot - the older one is used
+      final byte [] aContent = Files.readAllBytes (f.toPath ());
+      aContent[FileChannelLongIDFactory.SLOT_SIZE + 3] ^= 0x55;
+      Files.write (f.toPath (), aContent);
+      assertEquals (10, new FileChannelLongIDFactory (f, 10, 10, Duration.ofSeconds (1)).getNewID ());
+
+      // Torn initial write - treated as a new file
+      Files.write (f.toPath (), new byte [FileChannelLongIDFactory.SLOT_SIZE - 1]);
+      assertEquals (0, new FileChannelLongIDFactory (f, 10, 10, Duration.ofSeconds (1)).getNewID ());
+      assertEquals (10, new FileChannelLongIDFactory (f, 10, 10, Duration.ofSeconds (1)).getNewID ());
+
+      // Garbage only
+      Files.write (f.toPath (), new byte [FileChannelLongIDFactory.SLOT_SIZE]);
+      try
+      {
+        new FileChannelLongIDFactory (f).getNewID ();
+        fail ();
+      }
+      catch (final IllegalStateException ex)
+      {}
+      Files.write (f.toPath (), new byte [2 * FileChannelLongIDFactory.SLOT_SIZE]);
+      try
+      {
+        new FileChannelLongIDFactory (f).getNewID ();
+        fail ();
+      }
+      catch (final IllegalStateException ex)
+      {}
+    }
+    finally
+    {
+      FileOperations.deleteFile (f);
+    }
+  }
+}
@@ -110,10 +110,13 @@ public final class GlobalIDFactoryTest
       assertTrue (GlobalIDFactory.hasPersistentLongIDFactory ());
       GlobalIDFactory.getNewLongID ();
       GlobalIDFactory.getNewPersistentLongID ();
+      assertTrue (GlobalIDFactory.setPersistentLongIDFactory (new FileChannelLongIDFactory (new File (FILE_IDLONG_DAT + "2"))).isChanged ());
+      GlobalIDFactory.getNewPersistentLongID ();
     }
     finally
     {
       FileOperations.deleteFileIfExisting (new File (FILE_IDLONG_DAT));
+      FileOperations.deleteFileIfExisting (new File (FILE_IDLONG_DAT + "2"));
     }
 
     // string factories
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link ChunkedByteArrayOutputStream}.
+ *
+ * @author Philip Helger
+ */
+public final class ChunkedByteArrayOutputStreamTest
+{
+  @Test
+  public void testWriteAndRead () throws IOException
+  {
+    final byte [] aSrc = new byte [100_000];
+    ThreadLocalRandom.current ().nextBytes (aSrc);
+
+    try (final ChunkedByteArrayOutputStream aOS = new ChunkedByteArrayOutputStream (16, 4096))
+    {
+      assertTrue (aOS.isEmpty ());
+      assertEquals (0, aOS.toByteArray ().length);
+      assertEquals (1, aOS.getAsByteBuffers ().length);
+
+      aOS.write (aSrc[0]);
+      aOS.write (aSrc, 1, 9);
+      aOS.write (aSrc, 10, aSrc.length - 10);
+      assertEquals (aSrc.length, aOS.size ());
+      assertEquals (aSrc.length, aOS.getSizeLong ());
+      assertTrue (aOS.getChunkCount () > 1);
+      assertArrayEquals (aSrc, aOS.toByteArray ());
+      assertArrayEquals (aSrc, StreamHelper.getAllBytes (aOS.getAsInputStream ()));
+
+      final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+      aOS.writeTo (aBAOS);
+      assertArrayEquals (aSrc, aBAOS.toByteArray ());
+
+      // Reset keeps the chunks
+      final int nChunks = aOS.getChunkCount ();
+      aOS.reset ();
+      assertTrue (aOS.isEmpty ());
+      aOS.readFrom (new NonBlockingByteArrayInputStream (aSrc));
+      assertEquals (nChunks, aOS.getChunkCount ());
+      assertArrayEquals (aSrc, aOS.toByteArray ());
+
+      aOS.reset ();
+      aOS.write ("abc".getBytes (StandardCharsets.ISO_8859_1));
+      assertEquals ("abc", aOS.getAsString (StandardCharsets.ISO_8859_1));
+    }
+  }
+
+  @Test
+  public void testWriteToChannel () throws IOException
+  {
+    final byte [] aSrc = new byte [50_000];
+    ThreadLocalRandom.current ().nextBytes (aSrc);
+
+    final File aFile = File.createTempFile ("chunked", ".bin");
+    try
+    {
+      final ChunkedByteArrayOutputStream aOS = new ChunkedByteArrayOutputStream (100, 1000);
+      aOS.write (aSrc);
+      try (final FileChannel aFC = FileChannel.open (aFile.toPath (), StandardOpenOption.WRITE))
+      {
+        assertEquals (aSrc.length, aOS.writeTo (aFC));
+      }
+      assertArrayEquals (aSrc, Files.readAllBytes (aFile.toPath ()));
+      // Content is unchanged
+      assertArrayEquals (aSrc, aOS.toByteArray ());
+    }
+    finally
+    {
+      aFile.delete ();
+    }
+  }
+
+  @SuppressWarnings ("resource")
+  @Test
+  public void testInvalid ()
+  {
+    try
+    {
+      new ChunkedByteArrayOutputStream (0, 10);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+    try
+    {
+      new ChunkedByteArrayOutputStream (100, 10);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {}
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link StreamBufferRecycler}.
+ *
+ * @author Philip Helger
+ */
+public final class StreamBufferRecyclerTest
+{
+  @Test
+  public void testBytes ()
+  {
+    final byte [] a = StreamBufferRecycler.acquireBytes ();
+    assertEquals (StreamHelper.DEFAULT_BUFSIZE, a.length);
+    // Nested acquisition gets a different buffer
+    final byte [] b = StreamBufferRecycler.acquireBytes ();
+    assertNotSame (a, b);
+    StreamBufferRecycler.releaseBytes (b);
+    StreamBufferRecycler.releaseBytes (a);
+    assertSame (a, StreamBufferRecycler.acquireBytes ());
+
+    // Foreign sizes are not retained
+    StreamBufferRecycler.releaseBytes (new byte [10]);
+    assertEquals (StreamHelper.DEFAULT_BUFSIZE, StreamBufferRecycler.acquireBytes ().length);
+    StreamBufferRecycler.releaseBytes (null);
+  }
+
+  @Test
+  public void testChars ()
+  {
+    final char [] a = StreamBufferRecycler.acquireChars ();
+    assertEquals (StreamHelper.DEFAULT_BUFSIZE, a.length);
+    StreamBufferRecycler.releaseChars (a);
+    assertSame (a, StreamBufferRecycler.acquireChars ());
+    StreamBufferRecycler.releaseChars (a);
+  }
+
+  @Test
+  public void testDisabled ()
+  {
+    StreamBufferRecycler.setEnabled (false);
+    try
+    {
+      final byte [] a = StreamBufferRecycler.acquireBytes ();
+      StreamBufferRecycler.releaseBytes (a);
+      assertNotSame (a, StreamBufferRecycler.acquireBytes ());
+    }
+    finally
+    {
+      StreamBufferRecycler.setEnabled (StreamBufferRecycler.DEFAULT_ENABLED);
+    }
+  }
+
+  @Test
+  public void testCopyReusesBuffer ()
+  {
+    final byte [] a = StreamBufferRecycler.acquireBytes ();
+    StreamBufferRecycler.releaseBytes (a);
+    final byte [] aSrc = "Hello recycled world".getBytes (StandardCharsets.ISO_8859_1);
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    StreamHelper.copyByteStream ().from (new NonBlockingByteArrayInputStream (aSrc)).to (aBAOS).build ();
+    assertEquals (aSrc.length, aBAOS.size ());
+    // The buffer was handed back after copying
+    assertSame (a, StreamBufferRecycler.acquireBytes ());
+  }
+}
@@ -26,6 +26,9 @@ import static org.junit.Assert.fail;
 
 import java.io.Closeable;
 import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilterOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
@@ -33,6 +36,11 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
 
 import org.junit.Test;
 
@@ -40,6 +48,7 @@ import com.helger.commons.collection.ArrayHelper;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.exception.mock.MockIOException;
 import com.helger.commons.io.IHasInputStream;
+import com.helger.commons.io.file.FileChannelHelper;
 import com.helger.commons.io.resource.ClassPathResource;
 import com.helger.commons.io.resource.IReadableResource;
 import com.helger.commons.io.streamprovider.ByteArrayInputStreamProvider;
@@ -238,6 +247,92 @@ public final class StreamHelperTest
                             .isSuccess ());
   }
 
+  private static byte [] _copyFile (@Nonnull final File aSrc,
+                                    @Nonnull final File aDst,
+                                    final boolean bUseChannels,
+                                    final long nLimit,
+                                    final int nSkip) throws IOException
+  {
+    try (final FileInputStream aFIS = new FileInputStream (aSrc); final FileOutputStream aFOS = new FileOutputStream (aDst))
+    {
+      assertEquals (nSkip, aFIS.skip (nSkip));
+      final MutableLong aML = new MutableLong (-1);
+      assertTrue (StreamHelper.copyByteStream ()
+                              .from (aFIS)
+                              .to (aFOS)
+                              .useChannels (bUseChannels)
+                              .limit (nLimit)
+                              .copyByteCount (aML)
+                              .build ()
+                              .isSuccess ());
+      final byte [] ret = Files.readAllBytes (aDst.toPath ());
+      assertEquals (ret.length, aML.longValue ());
+      // Stream position must be advanced as well
+      assertEquals (nSkip + ret.length, aFIS.getChannel ().position ());
+      return ret;
+    }
+  }
+
+  @Test
+  public void testCopyFileStreamsViaChannels () throws IOException
+  {
+    final byte [] aContent = new byte [100_000];
+    new Random (4711).nextBytes (aContent);
+    final File aSrc = File.createTempFile ("streamhelper", ".src");
+    final File aDst = File.createTempFile ("streamhelper", ".dst");
+    try
+    {
+      Files.write (aSrc.toPath (), aContent);
+      for (final boolean bUseChannels : new boolean [] { true, false })
+      {
+        assertArrayEquals (aContent, _copyFile (aSrc, aDst, bUseChannels, -1, 0));
+        assertArrayEquals (Arrays.copyOfRange (aContent, 0, 1000), _copyFile (aSrc, aDst, bUseChannels, 1000, 0));
+        assertArrayEquals (Arrays.copyOfRange (aContent, 17, 1017), _copyFile (aSrc, aDst, bUseChannels, 1000, 17));
+        assertArrayEquals (Arrays.copyOfRange (aContent, 17, aContent.length), _copyFile (aSrc, aDst, bUseChannels, -1, 17));
+        assertArrayEquals (aContent, _copyFile (aSrc, aDst, bUseChannels, 1_000_000, 0));
+        assertArrayEquals (new byte [0], _copyFile (aSrc, aDst, bUseChannels, 0, 0));
+      }
+
+      // Append to an existing file
+      try (final FileInputStream aFIS = new FileInputStream (aSrc); final FileOutputStream aFOS = new FileOutputStream (aDst, true))
+      {
+        assertTrue (StreamHelper.copyByteStream ().from (aFIS).to (aFOS).useChannels (true).limit (10).build ().isSuccess ());
+      }
+      assertEquals (10, Files.size (aDst.toPath ()));
+      try (final FileInputStream aFIS = new FileInputStream (aSrc); final FileOutputStream aFOS = new FileOutputStream (aDst, true))
+      {
+        assertTrue (StreamHelper.copyByteStream ().from (aFIS).to (aFOS).build ().isSuccess ());
+      }
+      assertEquals (10 + aContent.length, Files.size (aDst.toPath ()));
+
+      // From a memory mapped stream
+      try (final InputStream aIS = FileChannelHelper.getMappedInputStream (aSrc);
+           final FileOutputStream aFOS = new FileOutputStream (aDst))
+      {
+        assertTrue (aIS instanceof ByteBufferInputStream);
+        final MutableLong aML = new MutableLong (-1);
+        assertTrue (StreamHelper.copyByteStream ()
+                                .from (aIS)
+                                .to (aFOS)
+                                .useChannels (true)
+                                .limit (5000)
+                                .copyByteCount (aML)
+                                .build ()
+                                .isSuccess ());
+        assertEquals (5000, aML.longValue ());
+        assertTrue (StreamHelper.copyByteStream ().from (aIS).to (aFOS).copyByteCount (aML).build ().isSuccess ());
+        assertEquals (aContent.length - 5000, aML.longValue ());
+      }
+      assertArrayEquals (aContent, Files.readAllBytes (aDst.toPath ()));
+    }
+    finally
+    {
+      // May fail on Windows while the file is still mapped
+      aSrc.delete ();
+      aDst.delete ();
+    }
+  }
+
   @Test
   public void testGetAvailable ()
   {
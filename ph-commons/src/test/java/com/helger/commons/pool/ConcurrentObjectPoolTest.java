@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.helger.commons.concurrent.ThreadHelper;
+
+/**
+ * Test class for class {@link ConcurrentObjectPool}.
+ *
+ * @author Philip Helger
+ */
+public final class ConcurrentObjectPoolTest
+{
+  private static final String STATS_NAME = ConcurrentObjectPoolTest.class.getName ();
+
+  @Test
+  public void testSimple ()
+  {
+    final AtomicInteger aCreated = new AtomicInteger (0);
+    final ConcurrentObjectPool <StringBuilder> aOP = new ConcurrentObjectPool <> (STATS_NAME, 2, () -> {
+      aCreated.incrementAndGet ();
+      return new StringBuilder ();
+    });
+
+    // Same thread gets the same object back
+    final StringBuilder a1 = aOP.borrowObject ();
+    assertNotNull (a1);
+    assertEquals (1, aOP.getBorrowedCount ());
+    assertTrue (aOP.returnObject (a1).isSuccess ());
+    assertSame (a1, aOP.borrowObject ());
+
+    // Pool is not blocking
+    final StringBuilder a2 = aOP.borrowObject ();
+    final StringBuilder a3 = aOP.borrowObject ();
+    assertNotSame (a2, a3);
+    assertEquals (3, aCreated.get ());
+    assertEquals (3, aOP.getRetainedCount ());
+
+    // Too many objects - one is discarded
+    assertTrue (aOP.returnObject (a1).isSuccess ());
+    assertEquals (2, aOP.getRetainedCount ());
+    assertTrue (aOP.returnObject (a2).isSuccess ());
+    assertTrue (aOP.returnObject (a3).isSuccess ());
+    assertEquals (0, aOP.getBorrowedCount ());
+    assertEquals (2, aOP.getRetainedCount ());
+
+    // Cannot return twice or unknown objects
+    assertTrue (aOP.returnObject (a3).isFailure ());
+    assertTrue (aOP.returnObject (new StringBuilder ()).isFailure ());
+
+    // No new objects required
+    aOP.borrowObject ();
+    aOP.borrowObject ();
+    assertEquals (3, aCreated.get ());
+
+    aOP.clearUnusedItems ();
+    assertEquals (2, aOP.getRetainedCount ());
+  }
+
+  @Test
+  public void testIdleEviction ()
+  {
+    final ConcurrentObjectPool <Object> aOP = new ConcurrentObjectPool <> (STATS_NAME, 5, Object::new);
+    aOP.setMaxIdleDuration (Duration.ofMillis (10));
+    assertEquals (Duration.ofMillis (10), aOP.getMaxIdleDuration ());
+
+    final Object a1 = aOP.borrowObject ();
+    aOP.returnObject (a1);
+    ThreadHelper.sleep (50);
+    assertNotSame (a1, aOP.borrowObject ());
+    assertEquals (1, aOP.getRetainedCount ());
+
+    aOP.setMaxIdleDuration (null);
+    assertEquals (null, aOP.getMaxIdleDuration ());
+  }
+
+  @Test
+  public void testClearUnused ()
+  {
+    final ConcurrentObjectPool <Object> aOP = new ConcurrentObjectPool <> (STATS_NAME, 5, Object::new);
+    final Object a1 = aOP.borrowObject ();
+    final Object a2 = aOP.borrowObject ();
+    aOP.returnObject (a1);
+    aOP.clearUnusedItems ();
+    assertEquals (1, aOP.getRetainedCount ());
+    assertNotSame (a1, aOP.borrowObject ());
+    assertTrue (aOP.returnObject (a2).isSuccess ());
+  }
+
+  @Test
+  public void testMultiThreaded () throws InterruptedException
+  {
+    final ConcurrentObjectPool <Object> aOP = new ConcurrentObjectPool <> (STATS_NAME, 4, Object::new);
+    final Set <Object> aInUse = ConcurrentHashMap.newKeySet ();
+    final AtomicInteger aErrors = new AtomicInteger (0);
+    final ExecutorService aES = Executors.newFixedThreadPool (8);
+    for (int i = 0; i < 8; ++i)
+      aES.submit ( () -> {
+        for (int j = 0; j < 10_000; ++j)
+        {
+          final Object o = aOP.borrowObject ();
+          // No object may be used by two threads at the same time
+          if (!aInUse.add (o))
+            aErrors.incrementAndGet ();
+          aInUse.remove (o);
+          if (aOP.returnObject (o).isFailure ())
+            aErrors.incrementAndGet ();
+        }
+      });
+    aES.shutdown ();
+    assertTrue (aES.awaitTermination (1, TimeUnit.MINUTES));
+    assertEquals (0, aErrors.get ());
+    assertEquals (0, aOP.getBorrowedCount ());
+    assertTrue (aOP.getRetainedCount () <= 4);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.helger.commons.CGlobal;
+
+/**
+ * Test class for class {@link ConcurrentHistogram}.
+ *
+ * @author Philip Helger
+ */
+public final class ConcurrentHistogramTest
+{
+  @Test
+  public void testBuckets ()
+  {
+    // Exact values
+    for (int i = 0; i < ConcurrentHistogram.SUB_BUCKET_COUNT; ++i)
+    {
+      assertEquals (i, ConcurrentHistogram.getBucketIndex (i));
+      assertEquals (i, ConcurrentHistogram.getBucketLowerBound (i));
+      assertEquals (i, ConcurrentHistogram.getBucketUpperBound (i));
+    }
+    assertEquals (0, ConcurrentHistogram.getBucketIndex (-1));
+
+    // Buckets are consecutive and contain their boundaries
+    long nExpectedLower = 0;
+    for (int i = 0; i < ConcurrentHistogram.BUCKET_COUNT; ++i)
+    {
+      final long nLower = ConcurrentHistogram.getBucketLowerBound (i);
+      final long nUpper = ConcurrentHistogram.getBucketUpperBound (i);
+      assertEquals (nExpectedLower, nLower);
+      assertTrue (nUpper >= nLower);
+      assertEquals (i, ConcurrentHistogram.getBucketIndex (nLower));
+      assertEquals (i, ConcurrentHistogram.getBucketIndex (nUpper));
+      nExpectedLower = nUpper + 1;
+    }
+    assertEquals (Long.MAX_VALUE, ConcurrentHistogram.getBucketUpperBound (ConcurrentHistogram.BUCKET_COUNT - 1));
+  }
+
+  @Test
+  public void testPercentiles ()
+  {
+    final ConcurrentHistogram aHistogram = new ConcurrentHistogram ();
+    assertEquals (0, aHistogram.getTotalCount ());
+    assertEquals (CGlobal.ILLEGAL_ULONG, aHistogram.getValueAtPercentile (50, 0, 0));
+
+    for (int i = 1; i <= 100_000; ++i)
+      aHistogram.add (i);
+    assertEquals (100_000, aHistogram.getTotalCount ());
+
+    for (final double dPercentile : new double [] { 50, 90, 99, 99.9 })
+    {
+      final long nExpected = (long) (dPercentile * 1000);
+      final long nValue = aHistogram.getValueAtPercentile (dPercentile, 1, 100_000);
+      assertTrue (dPercentile + ": " + nValue, Math.abs (nValue - nExpected) <= nExpected * 0.016);
+    }
+    assertEquals (100_000, aHistogram.getValueAtPercentile (100, 1, 100_000));
+    assertEquals (1, aHistogram.getValueAtPercentile (0.0001, 1, 100_000));
+  }
+}
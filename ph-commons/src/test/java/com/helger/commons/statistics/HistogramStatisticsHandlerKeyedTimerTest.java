@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.helger.commons.CGlobal;
+
+/**
+ * Test class for class {@link HistogramStatisticsHandlerKeyedTimer}.
+ *
+ * @author Philip Helger
+ */
+public final class HistogramStatisticsHandlerKeyedTimerTest
+{
+  @Test
+  public void testAll ()
+  {
+    final HistogramStatisticsHandlerKeyedTimer sh = new HistogramStatisticsHandlerKeyedTimer ();
+    assertEquals (0, sh.getInvocationCount ());
+    assertEquals (CGlobal.ILLEGAL_ULONG, sh.getPercentile50 ("key1"));
+    assertEquals (CGlobal.ILLEGAL_ULONG, sh.getPercentile50 (null));
+
+    for (int i = 1; i <= 1000; ++i)
+    {
+      sh.addTime ("key1", i);
+      sh.addTime ("key2", 7);
+    }
+    sh.addTime (null, 42);
+    assertEquals (2001, sh.getInvocationCount ());
+    assertEquals (1000, sh.getInvocationCount ("key1"));
+    assertEquals (1, sh.getInvocationCount (null));
+
+    assertEquals (500, sh.getPercentile50 ("key1"), 500 * 0.016);
+    assertEquals (990, sh.getPercentile99 ("key1"), 990 * 0.016);
+    assertEquals (1000, sh.getValueAtPercentile ("key1", 100));
+    assertEquals (7, sh.getPercentile50 ("key2"));
+    assertEquals (7, sh.getPercentile999 ("key2"));
+    assertEquals (42, sh.getPercentile90 (null));
+    assertEquals (CGlobal.ILLEGAL_ULONG, sh.getPercentile50 ("key3"));
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+import com.helger.commons.CGlobal;
+
+/**
+ * Test class for class {@link HistogramStatisticsHandlerTimer}.
+ *
+ * @author Philip Helger
+ */
+public final class HistogramStatisticsHandlerTimerTest
+{
+  @Test
+  public void testAll ()
+  {
+    final HistogramStatisticsHandlerTimer sh = new HistogramStatisticsHandlerTimer ();
+    assertEquals (0, sh.getInvocationCount ());
+    assertEquals (CGlobal.ILLEGAL_ULONG, sh.getPercentile50 ());
+    assertEquals (CGlobal.ILLEGAL_ULONG, sh.getPercentile999 ());
+
+    sh.addTime (10);
+    assertEquals (1, sh.getInvocationCount ());
+    assertEquals (10, sh.getPercentile50 ());
+    assertEquals (10, sh.getPercentile999 ());
+
+    // 98 fast and 2 slow calls
+    for (int i = 0; i < 97; ++i)
+      sh.addTime (10);
+    sh.addTime (5000);
+    sh.addTime (5000);
+    assertEquals (100, sh.getInvocationCount ());
+    assertEquals (10, sh.getMin ());
+    assertEquals (5000, sh.getMax ());
+    assertEquals (BigInteger.valueOf (10_980), sh.getSum ());
+    assertEquals (10, sh.getPercentile50 ());
+    assertEquals (10, sh.getPercentile90 ());
+    // Approximated
+    assertEquals (5000, sh.getPercentile99 (), 5000 * 0.016);
+    assertEquals (5000, sh.getPercentile999 (), 5000 * 0.016);
+  }
+}
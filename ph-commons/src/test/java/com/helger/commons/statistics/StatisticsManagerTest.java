@@ -18,6 +18,7 @@ package com.helger.commons.statistics;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.junit.Test;
@@ -240,4 +241,22 @@ public final class StatisticsManagerTest
     catch (final IllegalArgumentException ex)
     {}
   }
+
+  @Test
+  public void testHandlerFactory ()
+  {
+    final IStatisticsHandlerFactory aOld = StatisticsManager.setHandlerFactory (new StripedStatisticsHandlerFactory ());
+    try
+    {
+      assertTrue (StatisticsManager.getTimerHandler ("testHandlerFactory") instanceof StripedStatisticsHandlerTimer);
+      assertTrue (StatisticsManager.getKeyedCounterHandler ("testHandlerFactory") instanceof StripedStatisticsHandlerKeyedCounter);
+    }
+    finally
+    {
+      StatisticsManager.setHandlerFactory (aOld);
+    }
+    // Existing handlers are not affected
+    assertTrue (StatisticsManager.getTimerHandler ("testHandlerFactory") instanceof StripedStatisticsHandlerTimer);
+    assertTrue (StatisticsManager.getSizeHandler ("testHandlerFactory") instanceof StatisticsHandlerSize);
+  }
 }
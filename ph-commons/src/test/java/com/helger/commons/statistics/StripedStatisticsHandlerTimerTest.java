@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.statistics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Test class for class {@link StripedStatisticsHandlerTimer}.
+ *
+ * @author Philip Helger
+ */
+public final class StripedStatisticsHandlerTimerTest
+{
+  @SuppressFBWarnings ("TQ_NEVER_VALUE_USED_WHERE_ALWAYS_REQUIRED")
+  @Test
+  public void testAll ()
+  {
+    final StripedStatisticsHandlerTimer sh = new StripedStatisticsHandlerTimer ();
+    assertEquals (0, sh.getInvocationCount ());
+    assertEquals (CGlobal.ILLEGAL_UINT, sh.getMin ());
+    assertEquals (CGlobal.ILLEGAL_UINT, sh.getAverage ());
+    assertEquals (CGlobal.ILLEGAL_UINT, sh.getMax ());
+    assertEquals (BigInteger.ZERO, sh.getSum ());
+    sh.addTime (5);
+    assertEquals (1, sh.getInvocationCount ());
+    assertEquals (5, sh.getMin ());
+    assertEquals (5, sh.getAverage ());
+    assertEquals (5, sh.getMax ());
+    assertEquals (BigInteger.valueOf (5), sh.getSum ());
+    sh.addTime (45);
+    assertEquals (2, sh.getInvocationCount ());
+    assertEquals (5, sh.getMin ());
+    assertEquals (25, sh.getAverage ());
+    assertEquals (45, sh.getMax ());
+    assertEquals (BigInteger.valueOf (50), sh.getSum ());
+    sh.addTime (25);
+    assertEquals (3, sh.getInvocationCount ());
+    assertEquals (5, sh.getMin ());
+    assertEquals (25, sh.getAverage ());
+    assertEquals (45, sh.getMax ());
+    assertEquals (BigInteger.valueOf (75), sh.getSum ());
+    sh.addTime (-1);
+  }
+
+  @Test
+  public void testNoOverflow ()
+  {
+    final StripedStatisticsHandlerTimer sh = new StripedStatisticsHandlerTimer ();
+    sh.addTime (Long.MAX_VALUE);
+    sh.addTime (Long.MAX_VALUE);
+    sh.addTime (1);
+    assertEquals (3, sh.getInvocationCount ());
+    assertEquals (BigInteger.valueOf (Long.MAX_VALUE).multiply (BigInteger.valueOf (2)).add (BigInteger.ONE), sh.getSum ());
+    assertEquals (1, sh.getMin ());
+    assertEquals (Long.MAX_VALUE, sh.getMax ());
+    assertEquals (BigInteger.valueOf (Long.MAX_VALUE).multiply (BigInteger.valueOf (2)).add (BigInteger.ONE).divide (BigInteger.valueOf (3)).longValue (),
+                  sh.getAverage ());
+  }
+
+  @Test
+  public void testMultiThreaded ()
+  {
+    final StripedStatisticsHandlerTimer sh = new StripedStatisticsHandlerTimer ();
+    final ExecutorService aES = Executors.newFixedThreadPool (8);
+    for (int i = 0; i < 8; ++i)
+      aES.submit ( () -> {
+        for (int j = 1; j <= 10_000; ++j)
+          sh.addTime (j);
+      });
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    assertEquals (80_000, sh.getInvocationCount ());
+    assertEquals (1, sh.getMin ());
+    assertEquals (10_000, sh.getMax ());
+    assertEquals (BigInteger.valueOf (8L * 10_000 * 10_001 / 2), sh.getSum ());
+  }
+}
@@ -16,8 +16,21 @@
  */
 package com.helger.commons.statistics.util;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import javax.annotation.Nonnull;
+
 import org.junit.Test;
 
+import com.helger.commons.mutable.MutableInt;
+import com.helger.commons.statistics.HistogramStatisticsHandlerFactory;
+import com.helger.commons.statistics.IMutableStatisticsHandlerTimer;
+import com.helger.commons.statistics.IStatisticsHandlerFactory;
+import com.helger.commons.statistics.IStatisticsHandlerHistogram;
+import com.helger.commons.statistics.IStatisticsHandlerTimer;
+import com.helger.commons.statistics.StatisticsManager;
+
 /**
  * Test class for class {@link StatisticsVisitor}.
  *
@@ -32,4 +45,48 @@ public final class StatisticsVisitorTest
     StatisticsVisitor.visitStatistics (new IStatisticsVisitorCallback ()
     {});
   }
+
+  @Test
+  public void testHistogramTimer ()
+  {
+    final String sName = "StatisticsVisitorTest.histogram";
+    final IStatisticsHandlerFactory aOldFactory = StatisticsManager.setHandlerFactory (new HistogramStatisticsHandlerFactory ());
+    final IMutableStatisticsHandlerTimer aTimer;
+    try
+    {
+      aTimer = StatisticsManager.getTimerHandler (sName);
+    }
+    finally
+    {
+      StatisticsManager.setHandlerFactory (aOldFactory);
+    }
+    aTimer.addTime (5);
+
+    final MutableInt aTimerCount = new MutableInt (0);
+    final MutableInt aHistogramCount = new MutableInt (0);
+    StatisticsVisitor.visitStatistics (new IStatisticsVisitorCallback ()
+    {
+      @Override
+      public void onTimer (@Nonnull final String sCurName, @Nonnull final IStatisticsHandlerTimer aHandler)
+      {
+        if (sCurName.equals (sName))
+          aTimerCount.inc ();
+      }
+
+      @Override
+      public void onHistogramTimer (@Nonnull final String sCurName,
+                                    @Nonnull final IStatisticsHandlerTimer aHandler,
+                                    @Nonnull final IStatisticsHandlerHistogram aHistogram)
+      {
+        if (sCurName.equals (sName))
+        {
+          assertSame (aTimer, aHistogram);
+          assertEquals (5, aHistogram.getPercentile50 ());
+          aHistogramCount.inc ();
+        }
+      }
+    });
+    assertEquals (0, aTimerCount.intValue ());
+    assertEquals (1, aHistogramCount.intValue ());
+  }
 }
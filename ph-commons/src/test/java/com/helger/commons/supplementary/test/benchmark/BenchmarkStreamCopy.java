@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.supplementary.test.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.io.file.FileChannelHelper;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.timing.StopWatch;
+
+/**
+ * Compare the throughput of {@link StreamHelper#copyByteStream()} between two
+ * files via the byte buffer, via {@link java.nio.channels.FileChannel} and from
+ * a memory mapped source, for file sizes from 1 KB to 1 GB.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkStreamCopy
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (BenchmarkStreamCopy.class);
+  private static final long [] SIZES = { CGlobal.BYTES_PER_KILOBYTE,
+                                         64 * CGlobal.BYTES_PER_KILOBYTE,
+                                         CGlobal.BYTES_PER_MEGABYTE,
+                                         64 * CGlobal.BYTES_PER_MEGABYTE,
+                                         CGlobal.BYTES_PER_GIGABYTE };
+  // Copy at least this many bytes per measurement
+  private static final long BYTES_PER_MEASUREMENT = 2 * CGlobal.BYTES_PER_GIGABYTE;
+
+  @FunctionalInterface
+  private interface ISourceFactory
+  {
+    @Nonnull
+    InputStream create (@Nonnull File aFile) throws IOException;
+  }
+
+  private BenchmarkStreamCopy ()
+  {}
+
+  private static void _createFile (@Nonnull final File aFile, final long nSize) throws IOException
+  {
+    final byte [] aChunk = new byte [(int) Math.min (nSize, CGlobal.BYTES_PER_MEGABYTE)];
+    new Random (nSize).nextBytes (aChunk);
+    try (final RandomAccessFile aRAF = new RandomAccessFile (aFile, "rw"))
+    {
+      aRAF.setLength (0);
+      long nRest = nSize;
+      while (nRest > 0)
+      {
+        final int nBytes = (int) Math.min (nRest, aChunk.length);
+        aRAF.write (aChunk, 0, nBytes);
+        nRest -= nBytes;
+      }
+    }
+  }
+
+  private static double _measure (@Nonnull final File aSrc,
+                                  @Nonnull final File aDst,
+                                  final long nSize,
+                                  @Nonnull final ISourceFactory aSourceFactory,
+                                  final boolean bUseChannels) throws IOException
+  {
+    final int nRuns = (int) Math.max (3, Math.min (10_000, BYTES_PER_MEASUREMENT / nSize));
+    long nBestNanos = Long.MAX_VALUE;
+    for (int i = 0; i < nRuns; ++i)
+    {
+      final StopWatch aSW = StopWatch.createdStarted ();
+      try (final InputStream aIS = aSourceFactory.create (aSrc); final OutputStream aOS = new FileOutputStream (aDst))
+      {
+        if (StreamHelper.copyByteStream ().from (aIS).to (aOS).useChannels (bUseChannels).build ().isFailure ())
+          throw new IllegalStateException ("Copying failed");
+      }
+      nBestNanos = Math.min (nBestNanos, aSW.stopAndGetDuration ().toNanos ());
+    }
+    if (aDst.length () != nSize)
+      throw new IllegalStateException ("Size mismatch");
+    // MB per second
+    return nSize / (double) CGlobal.BYTES_PER_MEGABYTE / (nBestNanos / 1_000_000_000d);
+  }
+
+  public static void main (final String [] args) throws IOException
+  {
+    final File aSrc = File.createTempFile ("benchmark", ".src");
+    final File aDst = File.createTempFile ("benchmark", ".dst");
+    try
+    {
+      for (final long nSize : SIZES)
+      {
+        _createFile (aSrc, nSize);
+        final double dBuffer = _measure (aSrc, aDst, nSize, FileInputStream::new, false);
+        final double dChannel = _measure (aSrc, aDst, nSize, FileInputStream::new, true);
+        final double dMapped = _measure (aSrc, aDst, nSize, FileChannelHelper::getMappedInputStream, true);
+        LOGGER.info (nSize / CGlobal.BYTES_PER_KILOBYTE +
+                     " KB: buffer " +
+                     (long) dBuffer +
+                     " MB/s; channel " +
+                     (long) dChannel +
+                     " MB/s; mapped " +
+                     (long) dMapped +
+                     " MB/s");
+      }
+    }
+    finally
+    {
+      aSrc.delete ();
+      aDst.delete ();
+    }
+  }
+}
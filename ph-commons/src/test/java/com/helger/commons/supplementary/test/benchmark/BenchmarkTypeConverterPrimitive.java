@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.supplementary.test.benchmark;
+
+import com.helger.commons.typeconvert.TypeConverter;
+
+/**
+ * This code benchmarks the primitive fast paths of {@link TypeConverter}
+ * against the generic conversion via the wrapper classes.
+ */
+public final class BenchmarkTypeConverterPrimitive extends AbstractBenchmarkTask
+{
+  private static final String [] INT_STRINGS = new String [] { "0", "17", "-4711", "123456789", "+42" };
+  private static final Object [] NUMBERS = new Object [] { Integer.valueOf (17),
+                                                           Long.valueOf (4711),
+                                                           Double.valueOf (3.5),
+                                                           Short.valueOf ((short) 8) };
+  private static final String [] DOUBLE_STRINGS = new String [] { "0.5", "17", "-4.711", "1e5" };
+
+  private BenchmarkTypeConverterPrimitive ()
+  {}
+
+  public static void main (final String [] aArgs)
+  {
+    logSystemInfo ();
+    _run ();
+  }
+
+  private static void _run ()
+  {
+    final int nRuns = 10_000;
+    double dTime = benchmarkTask (new StringToIntGeneric (nRuns));
+    LOGGER.info ("String to int generic:    " + dTime + " µs");
+    dTime = benchmarkTask (new StringToIntFast (nRuns));
+    LOGGER.info ("String to int fast:       " + dTime + " µs");
+
+    dTime = benchmarkTask (new NumberToLongGeneric (nRuns));
+    LOGGER.info ("Number to long generic:   " + dTime + " µs");
+    dTime = benchmarkTask (new NumberToLongFast (nRuns));
+    LOGGER.info ("Number to long fast:      " + dTime + " µs");
+
+    dTime = benchmarkTask (new StringToDoubleGeneric (nRuns));
+    LOGGER.info ("String to double generic: " + dTime + " µs");
+    dTime = benchmarkTask (new StringToDoubleFast (nRuns));
+    LOGGER.info ("String to double fast:    " + dTime + " µs");
+
+    dTime = benchmarkTask (new IntToStringGeneric (nRuns));
+    LOGGER.info ("int to String generic:    " + dTime + " µs");
+    dTime = benchmarkTask (new IntToStringFast (nRuns));
+    LOGGER.info ("int to String fast:       " + dTime + " µs");
+  }
+
+  private abstract static class AbstractRunner implements Runnable
+  {
+    protected final int m_nRuns;
+
+    protected AbstractRunner (final int nRuns)
+    {
+      m_nRuns = nRuns;
+    }
+  }
+
+  private static final class StringToIntGeneric extends AbstractRunner
+  {
+    public StringToIntGeneric (final int nRuns)
+    {
+      super (nRuns);
+    }
+
+    public void run ()
+    {
+      long n = 0;
+      for (int i = 0; i < m_nRuns; i++)
+        for (final String s : INT_STRINGS)
+          n += TypeConverter.convert (s, Integer.class).intValue ();
+      if (n == 0)
+        throw new IllegalStateException ();
+    }
+  }
+
+  private static final class StringToIntFast extends AbstractRunner
+  {
+    public StringToIntFast (final int nRuns)
+    {
+      super (nRuns);
+    }
+
+    public void run ()
+    {
+      long n = 0;
+      for (int i = 0; i < m_nRuns; i++)
+        for (final String s : INT_STRINGS)
+          n += TypeConverter.convertToInt (s);
+      if (n == 0)
+        throw new IllegalStateException ();
+    }
+  }
+
+  private static final class NumberToLongGeneric extends AbstractRunner
+  {
+    public NumberToLongGeneric (final int nRuns)
+    {
+      super (nRuns);
+    }
+
+    public void run ()
+    {
+      long n = 0;
+      for (int i = 0; i < m_nRuns; i++)
+        for (final Object o : NUMBERS)
+          n += TypeConverter.convert (o, Long.class).longValue ();
+      if (n == 0)
+        throw new IllegalStateException ();
+    }
+  }
+
+  private static final class NumberToLongFast extends AbstractRunner
+  {
+    public NumberToLongFast (final int nRuns)
+    {
+      super (nRuns);
+    }
+
+    public void run ()
+    {
+      long n = 0;
+      for (int i = 0; i < m_nRuns; i++)
+        for (final Object o : NUMBERS)
+          n += TypeConverter.convertToLong (o);
+      if (n == 0)
+        throw new IllegalStateException ();
+    }
+  }
+
+  private static final class StringToDoubleGeneric extends AbstractRunner
+  {
+    public StringToDoubleGeneric (final int nRuns)
+    {
+      super (nRuns);
+    }
+
+    public void run ()
+    {
+      double d = 0;
+      for (int i = 0; i < m_nRuns; i++)
+        for (final String s : DOUBLE_STRINGS)
+          d += TypeConverter.convert (s, Double.class).doubleValue ();
+      if (d == 0)
+        throw new IllegalStateException ();
+    }
+  }
+
+  private static final class StringToDoubleFast extends AbstractRunner
+  {
+    public StringToDoubleFast (final int nRuns)
+    {
+      super (nRuns);
+    }
+
+    public void run ()
+    {
+      double d = 0;
+      for (int i = 0; i < m_nRuns; i++)
+        for (final String s : DOUBLE_STRINGS)
+          d += TypeConverter.convertToDouble (s);
+      if (d == 0)
+        throw new IllegalStateException ();
+    }
+  }
+
+  private static final class IntToStringGeneric extends AbstractRunner
+  {
+    public IntToStringGeneric (final int nRuns)
+    {
+      super (nRuns);
+    }
+
+    public void run ()
+    {
+      long n = 0;
+      for (int i = 0; i < m_nRuns; i++)
+        n += TypeConverter.convert (Integer.valueOf (i), String.class).length ();
+      if (n == 0)
+        throw new IllegalStateException ();
+    }
+  }
+
+  private static final class IntToStringFast extends AbstractRunner
+  {
+    public IntToStringFast (final int nRuns)
+    {
+      super (nRuns);
+    }
+
+    public void run ()
+    {
+      long n = 0;
+      for (int i = 0; i < m_nRuns; i++)
+        n += TypeConverter.convert (i, String.class).length ();
+      if (n == 0)
+        throw new IllegalStateException ();
+    }
+  }
+}
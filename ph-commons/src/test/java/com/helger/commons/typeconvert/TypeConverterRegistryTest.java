@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.typeconvert;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.ref.WeakReference;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.typeconvert.rule.AbstractTypeConverterRule;
+
+/**
+ * Test class for class {@link TypeConverterRegistry}.
+ *
+ * @author Philip Helger
+ */
+public final class TypeConverterRegistryTest
+{
+  public static final class MockSrc
+  {}
+
+  public static final class MockDst
+  {}
+
+  private static final class MockClassLoader extends ClassLoader
+  {
+    MockClassLoader ()
+    {
+      super (null);
+    }
+
+    @Nonnull
+    Class <?> define (@Nonnull final String sClassName, @Nonnull final byte [] aBytes)
+    {
+      return defineClass (sClassName, aBytes, 0, aBytes.length);
+    }
+  }
+
+  @Test
+  public void testResolvedConverterCache ()
+  {
+    final TypeConverterRegistry aTCR = TypeConverterRegistry.getInstance ();
+    try
+    {
+      // Negative results are cached
+      assertNull (aTCR.getBestMatchConverter (MockSrc.class, MockDst.class));
+      assertNull (aTCR.getFuzzyConverter (MockSrc.class, MockDst.class));
+      assertNull (aTCR.getRuleBasedConverter (MockSrc.class, MockDst.class));
+      assertNull (aTCR.getBestMatchConverter (MockSrc.class, MockDst.class));
+
+      // Registration must invalidate the cache
+      final ITypeConverter <MockSrc, MockDst> aConverter = x -> new MockDst ();
+      aTCR.registerTypeConverter (MockSrc.class, MockDst.class, aConverter);
+      assertSame (aConverter, aTCR.getBestMatchConverter (MockSrc.class, MockDst.class));
+      assertSame (aConverter, aTCR.getFuzzyConverter (MockSrc.class, MockDst.class));
+      assertSame (aConverter, aTCR.getBestMatchConverter (MockSrc.class, MockDst.class));
+      assertNotNull (TypeConverter.convert (new MockSrc (), MockDst.class));
+
+      // Same for rules
+      assertNull (aTCR.getRuleBasedConverter (MockDst.class, MockSrc.class));
+      final ITypeConverterRule <MockDst, MockSrc> aRule = new AbstractTypeConverterRule <MockDst, MockSrc> (ITypeConverterRule.ESubType.FIXED_SRC_ANY_DST)
+      {
+        public boolean canConvert (final Class <?> aSrcClass, final Class <?> aDstClass)
+        {
+          return aSrcClass == MockDst.class && aDstClass == MockSrc.class;
+        }
+
+        public MockSrc apply (final MockDst aSource)
+        {
+          return new MockSrc ();
+        }
+      };
+      aTCR.registerTypeConverterRule (aRule);
+      assertSame (aRule, aTCR.getRuleBasedConverter (MockDst.class, MockSrc.class));
+      assertSame (aRule, aTCR.getBestMatchConverter (MockDst.class, MockSrc.class));
+    }
+    finally
+    {
+      aTCR.reinitialize ();
+    }
+
+    // And reinitialize as well
+    assertNull (aTCR.getBestMatchConverter (MockSrc.class, MockDst.class));
+    assertNull (aTCR.getBestMatchConverter (MockDst.class, MockSrc.class));
+    assertNull (aTCR.getRuleBasedConverter (MockDst.class, MockSrc.class));
+  }
+
+  @Nonnull
+  private static WeakReference <ClassLoader> _resolveWithOwnClassLoader ()
+  {
+    final byte [] aBytes = StreamHelper.getAllBytes (TypeConverterRegistryTest.class.getResourceAsStream ("TypeConverterRegistryTest$MockDst.class"));
+    assertNotNull (aBytes);
+    final MockClassLoader aClassLoader = new MockClassLoader ();
+    final Class <?> aClass = aClassLoader.define (MockDst.class.getName (), aBytes);
+    assertNotSame (MockDst.class, aClass);
+
+    // Fill the caches for a class of the bootstrap class loader as well as for
+    // a class of this class loader
+    final TypeConverterRegistry aTCR = TypeConverterRegistry.getInstance ();
+    for (int i = 0; i < 2; ++i)
+    {
+      aTCR.getBestMatchConverter (String.class, aClass);
+      aTCR.getFuzzyConverter (String.class, aClass);
+      aTCR.getRuleBasedConverter (String.class, aClass);
+      aTCR.getBestMatchConverter (aClass, String.class);
+      aTCR.getFuzzyConverter (aClass, String.class);
+      aTCR.getRuleBasedConverter (aClass, String.class);
+    }
+    return new WeakReference <> (aClassLoader);
+  }
+
+  @Test
+  public void testResolvedConverterCacheDoesNotPreventUnloading () throws InterruptedException
+  {
+    // The caches must not keep the class loader of the converted classes alive
+    final WeakReference <ClassLoader> aClassLoaderRef = _resolveWithOwnClassLoader ();
+    for (int i = 0; i < 100 && aClassLoaderRef.get () != null; ++i)
+    {
+      System.gc ();
+      Thread.sleep (10);
+    }
+    assertNull (aClassLoaderRef.get ());
+  }
+}
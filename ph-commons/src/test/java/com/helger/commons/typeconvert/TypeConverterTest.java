@@ -467,6 +467,45 @@ public final class TypeConverterTest
     assertEquals ("-6", TypeConverter.convert ((short) -6, String.class));
   }
 
+  @Test
+  public void testPrimitiveFastPaths ()
+  {
+    assertEquals (123, TypeConverter.convertToInt ("123"));
+    assertEquals (5, TypeConverter.convertToInt ("+5"));
+    assertEquals (-5, TypeConverter.convertToInt ("-5"));
+    assertEquals (1, TypeConverter.convertToInt ("1.5"));
+    assertEquals (1, TypeConverter.convertToInt ("1,5"));
+    assertEquals (3, TypeConverter.convertToInt (Double.valueOf (3.9)));
+    assertEquals (Integer.MAX_VALUE, TypeConverter.convertToInt (Integer.toString (Integer.MAX_VALUE)));
+    assertEquals (7, TypeConverter.convertToInt ("abc", 7));
+    assertEquals (7, TypeConverter.convertToInt ("-", 7));
+    assertEquals (7, TypeConverter.convertToInt (null, 7));
+
+    assertEquals (Long.MAX_VALUE, TypeConverter.convertToLong (Long.toString (Long.MAX_VALUE)));
+    assertEquals (Long.MIN_VALUE, TypeConverter.convertToLong (Long.toString (Long.MIN_VALUE)));
+    assertEquals (1234567890123L, TypeConverter.convertToLong ("1234567890123"));
+    assertEquals (17L, TypeConverter.convertToLong (Integer.valueOf (17)));
+    assertEquals (8L, TypeConverter.convertToLong ("x", 8L));
+
+    assertEquals (1.5, TypeConverter.convertToDouble ("1.5"), 0);
+    assertEquals (1.5, TypeConverter.convertToDouble ("1,5"), 0);
+    assertEquals (1e5, TypeConverter.convertToDouble ("1e5"), 0);
+    assertEquals (2.0, TypeConverter.convertToDouble (Integer.valueOf (2)), 0);
+    assertEquals (0.25, TypeConverter.convertToDouble ("abc", 0.25), 0);
+    assertEquals (0.25, TypeConverter.convertToDouble ("1-2", 0.25), 0);
+    assertTrue (Double.isNaN (TypeConverter.convertToDouble (Double.valueOf (Double.NaN))));
+
+    assertEquals ("5", TypeConverter.convert (5, String.class));
+    assertEquals ("-5", TypeConverter.convert (-5L, String.class));
+    assertEquals ("1.5", TypeConverter.convert (1.5, String.class));
+    assertEquals ("true", TypeConverter.convert (true, String.class));
+    assertEquals (Long.valueOf (5), TypeConverter.convert (5, Long.class));
+    assertEquals (Double.valueOf (5), TypeConverter.convert (5, Double.class));
+    assertEquals (Integer.valueOf (5), TypeConverter.convert (5L, Integer.class));
+    assertEquals (Integer.valueOf (5), TypeConverter.convert (5.7, Integer.class));
+    assertEquals (Long.valueOf (5), TypeConverter.convert (5.7, long.class));
+  }
+
   @Test
   public void testSpecials ()
   {
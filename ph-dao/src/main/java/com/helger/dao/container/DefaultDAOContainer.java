@@ -16,8 +16,13 @@
  */
 package com.helger.dao.container;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -26,7 +31,14 @@ import com.helger.commons.annotation.Nonempty;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.concurrent.BasicThreadFactory;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.functional.IThrowingSupplier;
+import com.helger.commons.statistics.IMutableStatisticsHandlerTimer;
+import com.helger.commons.statistics.StatisticsManager;
 import com.helger.commons.string.ToStringGenerator;
+import com.helger.commons.timing.StopWatch;
+import com.helger.dao.DAOException;
 import com.helger.dao.IDAO;
 
 /**
@@ -37,6 +49,9 @@ import com.helger.dao.IDAO;
  */
 public class DefaultDAOContainer extends AbstractDAOContainer
 {
+  private static final IMutableStatisticsHandlerTimer STATS_INIT_TIMER = StatisticsManager.getTimerHandler (DefaultDAOContainer.class.getName () +
+                                                                                                           "$init");
+
   private final ICommonsList <IDAO> m_aDAOs;
 
   public DefaultDAOContainer (@Nonnull @Nonempty final IDAO... aDAOs)
@@ -51,6 +66,95 @@ public class DefaultDAOContainer extends AbstractDAOContainer
     m_aDAOs = new CommonsArrayList <> (aDAOs);
   }
 
+  /**
+   * Create a new container by invoking all provided DAO factories in parallel,
+   * using at most as many threads as processors are available. See
+   * {@link #createInParallel(Iterable, int)} for details.
+   *
+   * @param aDAOFactories
+   *        The DAO factories to invoke. May neither be <code>null</code> nor
+   *        empty.
+   * @return The new container and never <code>null</code>.
+   * @throws DAOException
+   *         If creating any of the DAOs failed
+   * @since 11.0.1
+   */
+  @Nonnull
+  public static DefaultDAOContainer createInParallel (@Nonnull @Nonempty final Iterable <? extends IThrowingSupplier <? extends IDAO, DAOException>> aDAOFactories) throws DAOException
+  {
+    return createInParallel (aDAOFactories, Runtime.getRuntime ().availableProcessors ());
+  }
+
+  /**
+   * Create a new container by invoking all provided DAO factories in parallel.
+   * As the DAOs perform their initial read (including WAL recovery) in the
+   * constructor, this parallelizes the startup of independent DAOs. The
+   * factories must therefore not depend on each other. The order of the DAOs in
+   * the container is the order of the factories.
+   *
+   * @param aDAOFactories
+   *        The DAO factories to invoke. May neither be <code>null</code> nor
+   *        empty.
+   * @param nMaxThreads
+   *        The maximum number of threads to use. Must be &gt; 0.
+   * @return The new container and never <code>null</code>.
+   * @throws DAOException
+   *         If creating any of the DAOs failed. The first error in factory
+   *         order is propagated.
+   * @since 11.0.1
+   */
+  @Nonnull
+  public static DefaultDAOContainer createInParallel (@Nonnull @Nonempty final Iterable <? extends IThrowingSupplier <? extends IDAO, DAOException>> aDAOFactories,
+                                                      @Nonnegative final int nMaxThreads) throws DAOException
+  {
+    ValueEnforcer.notEmptyNoNullValue (aDAOFactories, "DAOFactories");
+    ValueEnforcer.isGT0 (nMaxThreads, "MaxThreads");
+
+    final ICommonsList <IThrowingSupplier <? extends IDAO, DAOException>> aFactories = new CommonsArrayList <> (aDAOFactories);
+    final int nThreads = Math.min (nMaxThreads, aFactories.size ());
+    final StopWatch aSW = StopWatch.createdStarted ();
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads,
+                                                              BasicThreadFactory.builder ()
+                                                                                .namingPattern ("DAO-Init-%d")
+                                                                                .daemon (true)
+                                                                                .build ());
+    try
+    {
+      final ICommonsList <Future <? extends IDAO>> aFutures = new CommonsArrayList <> (aFactories.size ());
+      for (final IThrowingSupplier <? extends IDAO, DAOException> aFactory : aFactories)
+        aFutures.add (aES.submit (aFactory::get));
+
+      final ICommonsList <IDAO> aDAOs = new CommonsArrayList <> (aFutures.size ());
+      for (final Future <? extends IDAO> aFuture : aFutures)
+      {
+        try
+        {
+          aDAOs.add (aFuture.get ());
+        }
+        catch (final InterruptedException ex)
+        {
+          Thread.currentThread ().interrupt ();
+          throw new DAOException ("Interrupted while creating DAOs", ex);
+        }
+        catch (final ExecutionException ex)
+        {
+          final Throwable aCause = ex.getCause ();
+          if (aCause instanceof DAOException)
+            throw (DAOException) aCause;
+          if (aCause instanceof RuntimeException)
+            throw (RuntimeException) aCause;
+          throw new DAOException ("Failed to create DAO", aCause);
+        }
+      }
+      return new DefaultDAOContainer (aDAOs);
+    }
+    finally
+    {
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+      STATS_INIT_TIMER.addTime (aSW.stopAndGetMillis ());
+    }
+  }
+
   @Nonnull
   @ReturnsMutableCopy
   public ICommonsList <IDAO> getAllContainedDAOs ()
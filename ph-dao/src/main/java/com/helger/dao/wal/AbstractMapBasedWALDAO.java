@@ -16,8 +16,11 @@
  */
 package com.helger.dao.wal;
 
+import java.io.File;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.concurrent.Callable;
 import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
@@ -28,6 +31,7 @@ import java.util.function.Supplier;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.OverridingMethodsMustInvokeSuper;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -53,6 +57,7 @@ import com.helger.commons.io.relative.IFileRelativeIO;
 import com.helger.commons.lang.ClassHelper;
 import com.helger.commons.state.EChange;
 import com.helger.commons.string.StringHelper;
+import com.helger.commons.string.StringParser;
 import com.helger.commons.string.ToStringGenerator;
 import com.helger.commons.wrapper.Wrapper;
 import com.helger.dao.DAOException;
@@ -61,10 +66,19 @@ import com.helger.xml.microdom.IMicroDocument;
 import com.helger.xml.microdom.IMicroElement;
 import com.helger.xml.microdom.MicroDocument;
 import com.helger.xml.microdom.convert.MicroTypeConverter;
+import com.helger.xml.microdom.serialize.MicroReader;
 
 /**
  * Base class for WAL based DAO that uses a simple {@link ICommonsMap} for data
- * storage.
+ * storage. For large data sets, the items can be distributed onto multiple
+ * segment files (see {@link InitSettings#setSegmentCount(int)}), so that the
+ * write costs depend on the number of changed items and not on the total
+ * number of items. Changed segments are always written to new files, that are
+ * referenced by the main file, so that the previous state on disk stays intact
+ * until the main file was written.<br>
+ * Note: a main file that references segment files cannot be read by versions
+ * prior to 11.0.1, so segmentation must not be enabled while older versions
+ * may still need to read the data.
  *
  * @author Philip Helger
  * @param <INTERFACETYPE>
@@ -91,6 +105,8 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
     private boolean m_bDoInitialRead = true;
     private Supplier <ICommonsMap <String, IMPLTYPE>> m_aMapSupplier = CommonsHashMap::new;
     private Predicate <IMicroElement> m_aReadElementFilter = Predicates.all ();
+    private int m_nSegmentCount = DEFAULT_SEGMENT_COUNT;
+    private boolean m_bParallelRecovery = DEFAULT_PARALLEL_RECOVERY;
 
     @Nonnull
     public InitSettings <IMPLTYPE> setDoInitialRead (final boolean bDoInitialRead)
@@ -118,15 +134,78 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
       m_aReadElementFilter = ValueEnforcer.notNull (aReadElementFilter, "ReadElementFilter");
       return this;
     }
+
+    /**
+     * Set the number of segments to be used. If it is &gt; 0, the items are
+     * distributed by the hash code of their ID onto that many segment files
+     * and only the segments containing changed items are written. The main
+     * file only references the segments. If it is 0 (the default) all items
+     * are written to the main file. The number of segments can be changed
+     * between application runs - the data is migrated automatically.
+     *
+     * @param nSegmentCount
+     *        The number of segments. Must be &ge; 0.
+     * @return this for chaining
+     * @since 11.0.1
+     */
+    @Nonnull
+    public InitSettings <IMPLTYPE> setSegmentCount (@Nonnegative final int nSegmentCount)
+    {
+      m_nSegmentCount = ValueEnforcer.isGE0 (nSegmentCount, "SegmentCount");
+      return this;
+    }
+
+    /**
+     * Enable or disable parallel recovery upon initial read. If enabled, the
+     * segment files are parsed in parallel and the WAL entries are converted
+     * in parallel.
+     *
+     * @param bParallelRecovery
+     *        <code>true</code> to enable, <code>false</code> to disable.
+     * @return this for chaining
+     * @since 11.0.1
+     * @see AbstractWALDAO#setParallelRecovery(boolean)
+     */
+    @Nonnull
+    public InitSettings <IMPLTYPE> setParallelRecovery (final boolean bParallelRecovery)
+    {
+      m_bParallelRecovery = bParallelRecovery;
+      return this;
+    }
   }
 
+  /**
+   * The default number of segments - 0 means that segmentation is disabled.
+   *
+   * @since 11.0.1
+   */
+  public static final int DEFAULT_SEGMENT_COUNT = 0;
+
   protected static final String ELEMENT_ROOT = "root";
   protected static final String ELEMENT_ITEM = "item";
+  protected static final String ATTR_SEGMENT_COUNT = "segmentcount";
+  protected static final String ELEMENT_SEGMENT = "segment";
+  protected static final String ATTR_INDEX = "index";
+  protected static final String ATTR_GENERATION = "generation";
 
   @GuardedBy ("m_aRWLock")
   private final ICommonsMap <String, IMPLTYPE> m_aMap;
   private final CallbackList <IDAOChangeCallback <INTERFACETYPE>> m_aCallbacks = new CallbackList <> ();
   private final Predicate <IMicroElement> m_aReadElementFilter;
+  private final int m_nSegmentCount;
+  // Initially all segments need to be written
+  @GuardedBy ("m_aRWLock")
+  private final BitSet m_aDirtySegments = new BitSet ();
+  // The number of segments referenced by the main file on disk
+  @GuardedBy ("m_aRWLock")
+  private int m_nPersistedSegmentCount = 0;
+  // The generation of each segment file referenced by the main file on disk
+  @GuardedBy ("m_aRWLock")
+  private int [] m_aPersistedGenerations = new int [0];
+  // The generation of each segment file referenced by the main file currently
+  // being written
+  @GuardedBy ("m_aRWLock")
+  private int [] m_aPendingGenerations;
 
   /**
    * Default constructor. Automatically tries to read the file in the
@@ -153,15 +232,49 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
     super (aImplClass, aIO, () -> sFilename);
     m_aMap = aInitSettings.m_aMapSupplier.get ();
     m_aReadElementFilter = aInitSettings.m_aReadElementFilter;
+    m_nSegmentCount = aInitSettings.m_nSegmentCount;
+    m_aDirtySegments.set (0, m_nSegmentCount);
+    setParallelRecovery (aInitSettings.m_bParallelRecovery);
     if (aInitSettings.m_bDoInitialRead)
       initialRead ();
   }
 
+  /**
+   * @return The number of segments used. 0 means that segmentation is
+   *         disabled.
+   * @since 11.0.1
+   */
+  @Nonnegative
+  public final int getSegmentCount ()
+  {
+    return m_nSegmentCount;
+  }
+
+  @Nonnull
+  private static String _getSegmentFilename (@Nonnull final String sFilename,
+                                             @Nonnegative final int nSegmentCount,
+                                             @Nonnegative final int nSegment,
+                                             @Nonnegative final int nGeneration)
+  {
+    // Contains the segment count and the generation, so that neither changing
+    // the count nor writing a segment ever overwrites a segment file that is
+    // still referenced by the main file on disk
+    return sFilename + ".seg" + nSegmentCount + "." + nSegment + "." + nGeneration;
+  }
+
+  @MustBeLocked (ELockType.WRITE)
+  private void _markSegmentDirty (@Nonnull final String sID)
+  {
+    if (m_nSegmentCount > 0)
+      m_aDirtySegments.set (Math.floorMod (sID.hashCode (), m_nSegmentCount));
+  }
+
   @Override
   @MustBeLocked (ELockType.WRITE)
   protected void onRecoveryCreate (@Nonnull final IMPLTYPE aItem)
   {
     _addItem (aItem, EDAOActionType.CREATE);
+    _markSegmentDirty (aItem.getID ());
   }
 
   @Override
@@ -169,24 +282,23 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
   protected void onRecoveryUpdate (@Nonnull final IMPLTYPE aItem)
   {
     _addItem (aItem, EDAOActionType.UPDATE);
+    _markSegmentDirty (aItem.getID ());
   }
 
   @Override
   @MustBeLocked (ELockType.WRITE)
   protected void onRecoveryDelete (@Nonnull final IMPLTYPE aItem)
   {
-    m_aMap.remove (aItem.getID (), aItem);
+    if (m_aMap.remove (aItem.getID (), aItem))
+      _markSegmentDirty (aItem.getID ());
   }
 
-  @Override
-  @Nonnull
-  protected EChange onRead (@Nonnull final IMicroDocument aDoc)
+  @MustBeLocked (ELockType.WRITE)
+  private void _readItems (@Nonnull final IMicroElement eRoot, @Nonnull final Wrapper <EChange> aChange)
   {
     // Read all child elements independent of the name - soft migration
     final Class <IMPLTYPE> aDataTypeClass = getDataTypeClass ();
-    final Wrapper <EChange> aChange = new Wrapper <> (EChange.UNCHANGED);
-
-    aDoc.getDocumentElement ().forAllChildElements (m_aReadElementFilter, eItem -> {
+    eRoot.forAllChildElements (m_aReadElementFilter, eItem -> {
       final IMPLTYPE aItem = MicroTypeConverter.convertToNative (eItem, aDataTypeClass);
       _addItem (aItem, EDAOActionType.CREATE);
       if (aItem instanceof IDAOReadChangeAware)
@@ -194,8 +306,83 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
         {
           // Remember that something was changed while reading
           aChange.set (EChange.CHANGED);
+          _markSegmentDirty (aItem.getID ());
         }
     });
+  }
+
+  @Override
+  @Nonnull
+  protected EChange onRead (@Nonnull final IMicroDocument aDoc)
+  {
+    final Wrapper <EChange> aChange = new Wrapper <> (EChange.UNCHANGED);
+    final IMicroElement eRoot = aDoc.getDocumentElement ();
+
+    // Only changed items need to be written
+    m_aDirtySegments.clear ();
+
+    final int nPersistedSegmentCount = StringParser.parseInt (eRoot.getAttributeValue (ATTR_SEGMENT_COUNT), 0);
+    final int [] aPersistedGenerations = new int [Math.max (nPersistedSegmentCount, 0)];
+    if (nPersistedSegmentCount > 0)
+    {
+      // The main file only references the segment files
+      eRoot.forAllChildElements (IMicroElement.filterName (ELEMENT_SEGMENT), eSegment -> {
+        final int nIndex = StringParser.parseInt (eSegment.getAttributeValue (ATTR_INDEX), -1);
+        if (nIndex >= 0 && nIndex < nPersistedSegmentCount)
+          aPersistedGenerations[nIndex] = StringParser.parseInt (eSegment.getAttributeValue (ATTR_GENERATION), 0);
+      });
+
+      final String sFilename = getFilenameProvider ().get ();
+      final File [] aSegmentFiles = new File [nPersistedSegmentCount];
+      final IMicroDocument [] aSegmentDocs = new IMicroDocument [nPersistedSegmentCount];
+      for (int i = 0; i < nPersistedSegmentCount; ++i)
+      {
+        aSegmentFiles[i] = getIO ().getFile (_getSegmentFilename (sFilename, nPersistedSegmentCount, i, aPersistedGenerations[i]));
+        // Segment files of a write that failed before the main file was written
+        // are not referenced
+        getIO ().deleteFileIfExisting (_getSegmentFilename (sFilename, nPersistedSegmentCount, i, aPersistedGenerations[i] + 1));
+      }
+
+      if (isParallelRecovery () && nPersistedSegmentCount > 1)
+      {
+        // Parse in parallel
+        final ICommonsList <Callable <Void>> aTasks = new CommonsArrayList <> (nPersistedSegmentCount);
+        for (int i = 0; i < nPersistedSegmentCount; ++i)
+        {
+          final int nSegment = i;
+          aTasks.add ( () -> {
+            aSegmentDocs[nSegment] = MicroReader.readMicroXML (aSegmentFiles[nSegment]);
+            return null;
+          });
+        }
+        invokeAllInParallel (aTasks);
+      }
+      else
+      {
+        for (int i = 0; i < nPersistedSegmentCount; ++i)
+          aSegmentDocs[i] = MicroReader.readMicroXML (aSegmentFiles[i]);
+      }
+
+      // Add the items in a deterministic order
+      for (int i = 0; i < nPersistedSegmentCount; ++i)
+      {
+        final IMicroDocument aSegmentDoc = aSegmentDocs[i];
+        if (aSegmentDoc == null || aSegmentDoc.getDocumentElement () == null)
+          throw new IllegalStateException ("Failed to read DAO segment file '" + aSegmentFiles[i].getAbsolutePath () + "'");
+        _readItems (aSegmentDoc.getDocumentElement (), aChange);
+      }
+    }
+    else
+      _readItems (eRoot, aChange);
+    m_nPersistedSegmentCount = nPersistedSegmentCount;
+    m_aPersistedGenerations = aPersistedGenerations;
+
+    if (nPersistedSegmentCount != m_nSegmentCount)
+    {
+      // The segmentation changed - write everything in the new layout
+      m_aDirtySegments.set (0, m_nSegmentCount);
+      aChange.set (EChange.CHANGED);
+    }
     return aChange.get ();
   }
 
@@ -206,6 +393,77 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
     return m_aMap.getSortedByKey (Comparator.naturalOrder ()).values ();
   }
 
+  /**
+   * Write all segments that contain changed items to new segment files of the
+   * next generation. The segment files referenced by the main file on disk are
+   * not touched.
+   *
+   * @param aGenerations
+   *        The generation of each segment to be referenced by the main file.
+   *        Never <code>null</code>.
+   * @throws DAOException
+   *         If writing a segment fails
+   */
+  @MustBeLocked (ELockType.WRITE)
+  private void _writeDirtySegments (@Nonnull final int [] aGenerations) throws DAOException
+  {
+    if (m_aDirtySegments.isEmpty ())
+      return;
+
+    // Collect the items of all dirty segments in a single pass
+    @SuppressWarnings ("unchecked")
+    final ICommonsList <IMPLTYPE> [] aSegmentItems = new ICommonsList [m_nSegmentCount];
+    for (int i = m_aDirtySegments.nextSetBit (0); i >= 0; i = m_aDirtySegments.nextSetBit (i + 1))
+      aSegmentItems[i] = new CommonsArrayList <> ();
+    for (final IMPLTYPE aItem : m_aMap.values ())
+    {
+      final ICommonsList <IMPLTYPE> aItems = aSegmentItems[Math.floorMod (aItem.getID ().hashCode (), m_nSegmentCount)];
+      if (aItems != null)
+        aItems.add (aItem);
+    }
+
+    final String sFilename = getFilenameProvider ().get ();
+    for (int i = m_aDirtySegments.nextSetBit (0); i >= 0; i = m_aDirtySegments.nextSetBit (i + 1))
+    {
+      final IMicroDocument aSegmentDoc = new MicroDocument ();
+      final IMicroElement eRoot = aSegmentDoc.appendElement (ELEMENT_ROOT);
+      for (final IMPLTYPE aItem : aSegmentItems[i].getSortedInline (Comparator.comparing (IMPLTYPE::getID)))
+        eRoot.appendChild (MicroTypeConverter.convertToMicroElement (aItem, ELEMENT_ITEM));
+
+      writeXMLFileAtomically (_getSegmentFilename (sFilename, m_nSegmentCount, i, aGenerations[i]), aSegmentDoc);
+    }
+  }
+
+  /**
+   * {@inheritDoc}<br>
+   * If segmentation is enabled, all changed segments are written to new
+   * segment files by this method. They only become effective, if the main file
+   * referencing them was written successfully.
+   */
+  @Override
+  @OverridingMethodsMustInvokeSuper
+  @MustBeLocked (ELockType.WRITE)
+  protected void onBeforeWriteToFile () throws DAOException
+  {
+    super.onBeforeWriteToFile ();
+    m_aPendingGenerations = null;
+    if (m_nSegmentCount > 0)
+    {
+      final int [] aGenerations = new int [m_nSegmentCount];
+      if (m_nPersistedSegmentCount == m_nSegmentCount)
+        System.arraycopy (m_aPersistedGenerations, 0, aGenerations, 0, m_nSegmentCount);
+      for (int i = m_aDirtySegments.nextSetBit (0); i >= 0; i = m_aDirtySegments.nextSetBit (i + 1))
+        aGenerations[i]++;
+      _writeDirtySegments (aGenerations);
+      m_aPendingGenerations = aGenerations;
+    }
+  }
+
+  /**
+   * {@inheritDoc}<br>
+   * If segmentation is enabled, the returned document only references the
+   * segment files written in {@link #onBeforeWriteToFile()}.
+   */
   @Override
   @Nonnull
   @MustBeLocked (ELockType.READ)
@@ -213,11 +471,42 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
   {
     final IMicroDocument aDoc = new MicroDocument ();
     final IMicroElement eRoot = aDoc.appendElement (ELEMENT_ROOT);
-    for (final IMPLTYPE aItem : internalGetAllSortedByKey ())
-      eRoot.appendChild (MicroTypeConverter.convertToMicroElement (aItem, ELEMENT_ITEM));
+    if (m_nSegmentCount > 0)
+    {
+      if (m_aPendingGenerations == null)
+        throw new IllegalStateException ("The segment files were not written");
+      eRoot.setAttribute (ATTR_SEGMENT_COUNT, m_nSegmentCount);
+      for (int i = 0; i < m_nSegmentCount; ++i)
+        eRoot.appendElement (ELEMENT_SEGMENT).setAttribute (ATTR_INDEX, i).setAttribute (ATTR_GENERATION, m_aPendingGenerations[i]);
+    }
+    else
+    {
+      for (final IMPLTYPE aItem : internalGetAllSortedByKey ())
+        eRoot.appendChild (MicroTypeConverter.convertToMicroElement (aItem, ELEMENT_ITEM));
+    }
     return aDoc;
   }
 
+  @Override
+  @OverridingMethodsMustInvokeSuper
+  @MustBeLocked (ELockType.WRITE)
+  protected void onAfterWriteToFile ()
+  {
+    super.onAfterWriteToFile ();
+
+    // The new main file references the pending segment files - only now the
+    // superseded segment files can be deleted
+    final int [] aGenerations = m_nSegmentCount > 0 ? m_aPendingGenerations : new int [0];
+    final String sFilename = getFilenameProvider ().get ();
+    for (int i = 0; i < m_nPersistedSegmentCount; ++i)
+      if (m_nPersistedSegmentCount != m_nSegmentCount || m_aPersistedGenerations[i] != aGenerations[i])
+        getIO ().deleteFileIfExisting (_getSegmentFilename (sFilename, m_nPersistedSegmentCount, i, m_aPersistedGenerations[i]));
+    m_nPersistedSegmentCount = m_nSegmentCount;
+    m_aPersistedGenerations = aGenerations;
+    m_aPendingGenerations = null;
+    m_aDirtySegments.clear ();
+  }
+
   @Nonnull
   @ReturnsMutableObject
   public final CallbackList <IDAOChangeCallback <INTERFACETYPE>> callbacks ()
@@ -328,6 +617,7 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
   {
     // Add to map
     _addItem (aNewItem, EDAOActionType.CREATE);
+    _markSegmentDirty (aNewItem.getID ());
 
     // Trigger save changes
     super.markAsChanged (aNewItem, EDAOActionType.CREATE);
@@ -373,6 +663,7 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
   {
     // Add to map - ensure to overwrite any existing
     _addItem (aItem, EDAOActionType.UPDATE);
+    _markSegmentDirty (aItem.getID ());
 
     // Trigger save changes
     super.markAsChanged (aItem, EDAOActionType.UPDATE);
@@ -423,6 +714,7 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
     final IMPLTYPE aDeletedItem = m_aMap.remove (sID);
     if (aDeletedItem == null)
       return null;
+    _markSegmentDirty (sID);
 
     // Trigger save changes
     super.markAsChanged (aDeletedItem, EDAOActionType.DELETE);
@@ -464,6 +756,8 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
   @MustBeLocked (ELockType.WRITE)
   protected final void internalMarkItemDeleted (@Nonnull final IMPLTYPE aItem, final boolean bInvokeCallbacks)
   {
+    _markSegmentDirty (aItem.getID ());
+
     // Trigger save changes
     super.markAsChanged (aItem, EDAOActionType.UPDATE);
 
@@ -503,6 +797,8 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
   @MustBeLocked (ELockType.WRITE)
   protected final void internalMarkItemUndeleted (@Nonnull final IMPLTYPE aItem, final boolean bInvokeCallbacks)
   {
+    _markSegmentDirty (aItem.getID ());
+
     // Trigger save changes
     super.markAsChanged (aItem, EDAOActionType.UPDATE);
 
@@ -524,7 +820,10 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
   @Nonnull
   protected final EChange internalRemoveAllItemsNoCallback ()
   {
-    return m_aMap.removeAll ();
+    final EChange eChange = m_aMap.removeAll ();
+    if (eChange.isChanged ())
+      m_aDirtySegments.set (0, m_nSegmentCount);
+    return eChange;
   }
 
   @Nonnull
@@ -814,6 +1113,9 @@ public abstract class AbstractMapBasedWALDAO <INTERFACETYPE extends IHasID <Stri
   @Override
   public String toString ()
   {
-    return ToStringGenerator.getDerived (super.toString ()).append ("Map", m_aMap).getToString ();
+    return ToStringGenerator.getDerived (super.toString ())
+                            .append ("Map", m_aMap)
+                            .append ("SegmentCount", m_nSegmentCount)
+                            .getToString ();
   }
 }
@@ -28,6 +28,11 @@ import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Supplier;
 
 import javax.annotation.Nonnegative;
@@ -46,9 +51,9 @@ import com.helger.commons.annotation.MustBeLocked;
 import com.helger.commons.annotation.Nonempty;
 import com.helger.commons.annotation.OverrideOnDemand;
 import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.datetime.PDTFactory;
 import com.helger.commons.datetime.PDTToString;
-import com.helger.commons.io.EAppend;
 import com.helger.commons.io.file.EFileIOErrorCode;
 import com.helger.commons.io.file.EFileIOOperation;
 import com.helger.commons.io.file.FileHelper;
@@ -57,7 +62,8 @@ import com.helger.commons.io.file.FileOperationManager;
 import com.helger.commons.io.relative.IFileRelativeIO;
 import com.helger.commons.io.resource.FileSystemResource;
 import com.helger.commons.io.resource.IReadableResource;
-import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.io.stream.NonBlockingBufferedInputStream;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
 import com.helger.commons.state.EChange;
 import com.helger.commons.state.ESuccess;
 import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
@@ -83,7 +89,11 @@ import com.helger.xml.serialize.write.XMLWriterSettings;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
- * Base class for a simple DAO using write ahead logging (WAL).
+ * Base class for a simple DAO using write ahead logging (WAL).<br>
+ * The format of the WAL records is defined by an {@link IWALCodec}. The WAL
+ * file is kept open between writes and can optionally be forced to the storage
+ * device (see {@link EWALDurability}). Using a group commit window, multiple
+ * changes can be written to the WAL file with a single I/O operation.
  *
  * @author Philip Helger
  * @param <DATATYPE>
@@ -93,6 +103,37 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
 {
   public static final Duration DEFAULT_WAITING_TIME = Duration.ofSeconds (10);
+  /**
+   * The default interval for {@link EWALDurability#FORCE_PER_INTERVAL}
+   *
+   * @since 11.0.1
+   */
+  public static final Duration DEFAULT_WAL_FORCE_INTERVAL = Duration.ofSeconds (1);
+  /**
+   * The maximum number of bytes collected via group commit, before they are
+   * written
+   *
+   * @since 11.0.1
+   */
+  public static final int WAL_GROUP_COMMIT_MAX_BYTES = 64 * 1024;
+  /**
+   * The default WAL compaction threshold in bytes. 0 means disabled.
+   *
+   * @since 11.0.1
+   */
+  public static final long DEFAULT_WAL_COMPACTION_THRESHOLD = 0;
+  /**
+   * By default parallel recovery is disabled.
+   *
+   * @since 11.0.1
+   */
+  public static final boolean DEFAULT_PARALLEL_RECOVERY = false;
+  /**
+   * The minimum number of WAL elements to use parallel recovery.
+   *
+   * @since 11.0.1
+   */
+  public static final int PARALLEL_RECOVERY_MIN_ELEMENTS = 64;
   private static final Logger LOGGER = LoggerFactory.getLogger (AbstractWALDAO.class);
 
   private final IMutableStatisticsHandlerCounter m_aStatsCounterInitTotal = StatisticsManager.getCounterHandler (getClass ().getName () +
@@ -107,6 +148,12 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
                                                                                                                    "$read-success");
   private final IMutableStatisticsHandlerTimer m_aStatsCounterReadTimer = StatisticsManager.getTimerHandler (getClass ().getName () +
                                                                                                              "$read");
+  private final IMutableStatisticsHandlerTimer m_aStatsCounterReadParseTimer = StatisticsManager.getTimerHandler (getClass ().getName () +
+                                                                                                                  "$read-parse");
+  private final IMutableStatisticsHandlerTimer m_aStatsCounterWALRecoveryDecodeTimer = StatisticsManager.getTimerHandler (getClass ().getName () +
+                                                                                                                          "$wal-recovery-decode");
+  private final IMutableStatisticsHandlerTimer m_aStatsCounterWALRecoveryApplyTimer = StatisticsManager.getTimerHandler (getClass ().getName () +
+                                                                                                                         "$wal-recovery-apply");
   private final IMutableStatisticsHandlerCounter m_aStatsCounterWriteTotal = StatisticsManager.getCounterHandler (getClass ().getName () +
                                                                                                                   "$write-total");
   private final IMutableStatisticsHandlerCounter m_aStatsCounterWriteSuccess = StatisticsManager.getCounterHandler (getClass ().getName () +
@@ -115,6 +162,10 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
                                                                                                                        "$write-exceptions");
   private final IMutableStatisticsHandlerTimer m_aStatsCounterWriteTimer = StatisticsManager.getTimerHandler (getClass ().getName () +
                                                                                                               "$write");
+  private final IMutableStatisticsHandlerCounter m_aStatsCounterWALCompactions = StatisticsManager.getCounterHandler (getClass ().getName () +
+                                                                                                                     "$wal-compactions");
+  private final IMutableStatisticsHandlerTimer m_aStatsCounterWALWriteTimer = StatisticsManager.getTimerHandler (getClass ().getName () +
+                                                                                                                 "$wal-write");
   // Performance and small version
   public static final IXMLWriterSettings WRITE_XWS = new XMLWriterSettings ().setIncorrectCharacterHandling (EXMLIncorrectCharacterHandling.WRITE_TO_FILE_NO_LOG);
   public static final IXMLWriterSettings WAL_XWS = new XMLWriterSettings ().setIncorrectCharacterHandling (EXMLIncorrectCharacterHandling.WRITE_TO_FILE_NO_LOG)
@@ -132,6 +183,15 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
   private LocalDateTime m_aLastWriteDT;
   private boolean m_bCanWriteWAL = true;
   private Duration m_aWaitingTime = DEFAULT_WAITING_TIME;
+  private IWALCodec m_aWALCodec = LegacyWALCodec.INSTANCE;
+  private EWALDurability m_eWALDurability = EWALDurability.DEFAULT;
+  private Duration m_aWALForceInterval = DEFAULT_WAL_FORCE_INTERVAL;
+  private Duration m_aWALGroupCommitWindow = Duration.ZERO;
+  private WALWriter m_aWALWriter;
+  private boolean m_bWALSyncScheduled = false;
+  private long m_nWALCompactionThreshold = DEFAULT_WAL_COMPACTION_THRESHOLD;
+  private boolean m_bParallelRecovery = DEFAULT_PARALLEL_RECOVERY;
+  private boolean m_bWALCompactionScheduled = false;
 
   // Status vars
   private final WALListener m_aWALListener;
@@ -332,6 +392,107 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
     return MicroTypeConverter.convertToNative (aDoc.getDocumentElement (), m_aDataTypeClass);
   }
 
+  /**
+   * Run all passed tasks in the common fork join pool and wait until all of
+   * them are finished. All side effects of the tasks are visible to the caller
+   * afterwards.
+   *
+   * @param aTasks
+   *        The tasks to execute. May not be <code>null</code>.
+   * @throws RuntimeException
+   *         The first exception thrown by any of the tasks
+   */
+  static void invokeAllInParallel (@Nonnull final ICommonsList <Callable <Void>> aTasks)
+  {
+    try
+    {
+      // Future.get ensures the visibility of the results
+      for (final Future <Void> aFuture : ForkJoinPool.commonPool ().invokeAll (aTasks))
+        aFuture.get ();
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new IllegalStateException ("Interrupted while waiting for parallel tasks", ex);
+    }
+    catch (final ExecutionException ex)
+    {
+      if (ex.getCause () instanceof RuntimeException)
+        throw (RuntimeException) ex.getCause ();
+      throw new IllegalStateException ("Failed to execute parallel tasks", ex.getCause ());
+    }
+  }
+
+  /**
+   * Convert all WAL strings to their native representation using
+   * {@link #convertWALStringToNative(String)}. If parallel recovery is enabled,
+   * the conversion is distributed over multiple threads.
+   *
+   * @param aElements
+   *        The WAL strings to convert. May not be <code>null</code>.
+   * @return An array with the same size as the input list, containing the
+   *         native objects (or <code>null</code> if conversion failed) in the
+   *         same order.
+   */
+  @Nonnull
+  @MustBeLocked (ELockType.WRITE)
+  private Object [] _convertWALStringsToNative (@Nonnull final ICommonsList <String> aElements)
+  {
+    final int nCount = aElements.size ();
+    final Object [] ret = new Object [nCount];
+    if (m_bParallelRecovery && nCount >= PARALLEL_RECOVERY_MIN_ELEMENTS)
+    {
+      // One chunk per processor
+      final int nChunks = Math.min (Runtime.getRuntime ().availableProcessors (), nCount);
+      final ICommonsList <Callable <Void>> aTasks = new CommonsArrayList <> (nChunks);
+      for (int nChunk = 0; nChunk < nChunks; ++nChunk)
+      {
+        final int nStart = (int) ((long) nChunk * nCount / nChunks);
+        final int nEnd = (int) ((long) (nChunk + 1) * nCount / nChunks);
+        aTasks.add ( () -> {
+          for (int i = nStart; i < nEnd; ++i)
+            ret[i] = convertWALStringToNative (aElements.get (i));
+          return null;
+        });
+      }
+      invokeAllInParallel (aTasks);
+    }
+    else
+    {
+      for (int i = 0; i < nCount; ++i)
+        ret[i] = convertWALStringToNative (aElements.get (i));
+    }
+    return ret;
+  }
+
+  /**
+   * @return <code>true</code> if parallel recovery is enabled,
+   *         <code>false</code> if not. Default is
+   *         {@link #DEFAULT_PARALLEL_RECOVERY}.
+   * @since 11.0.1
+   */
+  public final boolean isParallelRecovery ()
+  {
+    return m_aRWLock.readLockedBoolean ( () -> m_bParallelRecovery);
+  }
+
+  /**
+   * Enable or disable parallel recovery. If enabled, the strings read from the
+   * WAL file are converted to native objects on multiple threads, and applied
+   * in the original order afterwards. Only enable this, if
+   * {@link #convertWALStringToNative(String)} is thread-safe - the default
+   * implementation is. This must be called before {@link #initialRead()} to
+   * have an effect.
+   *
+   * @param bParallelRecovery
+   *        <code>true</code> to enable, <code>false</code> to disable.
+   * @since 11.0.1
+   */
+  protected final void setParallelRecovery (final boolean bParallelRecovery)
+  {
+    m_aRWLock.writeLocked ( () -> m_bParallelRecovery = bParallelRecovery);
+  }
+
   /**
    * Called between initial read and WAL handling.
    *
@@ -470,7 +631,9 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
               LOGGER.info ("Trying to read WAL DAO XML file '" + aFile.getAbsolutePath () + "'");
 
           m_aStatsCounterReadTotal.increment ();
+          final StopWatch aSWParse = StopWatch.createdStarted ();
           aDoc = MicroReader.readMicroXML (aFile);
+          m_aStatsCounterReadParseTimer.addTime (aSWParse.stopAndGetMillis ());
           if (aDoc == null)
           {
             if (LOGGER.isErrorEnabled ())
@@ -541,34 +704,66 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
         boolean bRecoveryContainedErrors = false;
 
         // Avoid writing the recovery actions to the WAL file again :)
-        try (final DataInputStream aOIS = new DataInputStream (FileHelper.getInputStream (aWALFile)))
+        try (final DataInputStream aDIS = new DataInputStream (new NonBlockingBufferedInputStream (FileHelper.getInputStream (aWALFile))))
         {
+          // Phase 1: read and decode all records
+          final StopWatch aSWDecode = StopWatch.createdStarted ();
+          final ICommonsList <WALRecord> aRecords = new CommonsArrayList <> ();
+          final ICommonsList <String> aAllElements = new CommonsArrayList <> ();
           while (true)
           {
-            // Read action type
-            final String sActionTypeID;
+            // Determine the codec from the first byte of the record
+            aDIS.mark (1);
+            final int nRecordMarker = aDIS.read ();
+            if (nRecordMarker < 0)
+            {
+              // End of file
+              break;
+            }
+            aDIS.reset ();
+            final IWALCodec aCodec = _getWALCodecOfRecord (nRecordMarker);
+            if (aCodec == null)
+              throw new IOException ("Unsupported WAL record marker " + nRecordMarker);
+
+            final WALRecord aRecord;
             try
             {
-              sActionTypeID = StreamHelper.readSafeUTF (aOIS);
+              aRecord = aCodec.readRecord (aDIS);
             }
             catch (final EOFException ex)
             {
-              // End of file
+              // The last record was not completely written, e.g. because of a
+              // crash
+              if (LOGGER.isWarnEnabled ())
+                LOGGER.warn ("The WAL file '" + aWALFile.getAbsolutePath () + "' ends with an incomplete record that is ignored");
+              bRecoveryContainedErrors = true;
               break;
             }
-            final EDAOActionType eActionType = EDAOActionType.getFromIDOrThrow (sActionTypeID);
+            aRecords.add (aRecord);
+            aAllElements.addAll (aRecord.getAllElements ());
+          }
+          final Object [] aAllNatives = _convertWALStringsToNative (aAllElements);
+          m_aStatsCounterWALRecoveryDecodeTimer.addTime (aSWDecode.stopAndGetMillis ());
 
-            // Read number of elements
-            final int nElements = aOIS.readInt ();
+          // Phase 2: apply all elements in the original order
+          final StopWatch aSWApply = StopWatch.createdStarted ();
+          int nIndex = 0;
+          for (final WALRecord aRecord : aRecords)
+          {
+            final EDAOActionType eActionType = aRecord.getActionType ();
+            final ICommonsList <String> aElements = aRecord.getAllElements ();
+
+            final int nElements = aElements.size ();
             if (!isSilentMode ())
               if (LOGGER.isInfoEnabled ())
                 LOGGER.info ("Trying to recover " + nElements + " " + eActionType + " actions from WAL file");
 
-            // Read all elements
-            for (int i = 0; i < nElements; ++i)
+            // Handle all elements
+            for (int i = 0; i < nElements; ++i, ++nIndex)
             {
-              final String sElement = StreamHelper.readSafeUTF (aOIS);
-              final DATATYPE aElement = convertWALStringToNative (sElement);
+              final String sElement = aElements.get (i);
+              @SuppressWarnings ("unchecked")
+              final DATATYPE aElement = (DATATYPE) aAllNatives[nIndex];
               if (aElement == null)
               {
                 // Cannot recover, because conversion fails
@@ -635,6 +830,7 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
               }
             }
           }
+          m_aStatsCounterWALRecoveryApplyTimer.addTime (aSWApply.stopAndGetMillis ());
           if (!isSilentMode ())
             if (LOGGER.isInfoEnabled ())
               LOGGER.info ("Successfully finished recovery from WAL file " + aWALFile.getAbsolutePath ());
@@ -767,6 +963,102 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
     }
   }
 
+  /**
+   * Write the passed XML document to the file with the passed name. The
+   * document is first written to a temporary file which is than renamed, so
+   * that the file either contains the old or the new content.
+   *
+   * @param sFilename
+   *        The filename to write to. May neither be <code>null</code> nor
+   *        empty.
+   * @param aDoc
+   *        The document to write. May not be <code>null</code>.
+   * @throws DAOException
+   *         If writing fails
+   * @throws IllegalStateException
+   *         If renaming the files fails
+   * @since 11.0.1
+   */
+  @MustBeLocked (ELockType.WRITE)
+  protected final void writeXMLFileAtomically (@Nonnull @Nonempty final String sFilename,
+                                               @Nonnull final IMicroDocument aDoc) throws DAOException
+  {
+    ValueEnforcer.notEmpty (sFilename, "Filename");
+    ValueEnforcer.notNull (aDoc, "Doc");
+
+    final String sFilenameNew = _getFilenameNew (sFilename);
+    final String sFilenamePrev = _getFilenamePrev (sFilename);
+    final File aFileNew = getSafeFile (sFilenameNew, EMode.WRITE);
+
+    // Get the output stream
+    final OutputStream aOS = FileHelper.getOutputStream (aFileNew);
+    if (aOS == null)
+    {
+      // Happens, when another application has the file open!
+      // Logger warning already emitted
+      throw new DAOException ("Failed to open output stream for '" + aFileNew.getAbsolutePath () + "'");
+    }
+
+    // Write to file (closes the OS)
+    final IXMLWriterSettings aXWS = getXMLWriterSettings ();
+    if (MicroWriter.writeToStream (aDoc, aOS, aXWS).isFailure ())
+      throw new DAOException ("Failed to write DAO XML data to file");
+
+    // Rename existing file to old
+    FileIOError aIOError;
+    boolean bRenamedToPrev = false;
+    if (m_aIO.existsFile (sFilename))
+    {
+      aIOError = m_aIO.renameFile (sFilename, sFilenamePrev);
+      bRenamedToPrev = true;
+    }
+    else
+      aIOError = new FileIOError (EFileIOOperation.RENAME_FILE, EFileIOErrorCode.NO_ERROR);
+    if (aIOError.isSuccess ())
+    {
+      // Rename new file to final
+      aIOError = m_aIO.renameFile (sFilenameNew, sFilename);
+      if (aIOError.isSuccess ())
+      {
+        // Finally delete old file
+        aIOError = m_aIO.deleteFileIfExisting (sFilenamePrev);
+      }
+      else
+      {
+        // 2nd rename failed
+        // -> Revert original rename to stay as consistent as possible
+        if (bRenamedToPrev)
+          m_aIO.renameFile (sFilenamePrev, sFilename);
+      }
+    }
+    if (aIOError.isFailure ())
+      throw new IllegalStateException ("Error on rename(existing-old)/rename(new-existing)/delete(old): " + aIOError);
+  }
+
+  /**
+   * Called before the data to be written is created via
+   * {@link #createWriteData()}. If this method throws an exception, the file
+   * is not written.
+   *
+   * @throws DAOException
+   *         In case of an error
+   * @since 11.0.1
+   */
+  @OverrideOnDemand
+  @MustBeLocked (ELockType.WRITE)
+  protected void onBeforeWriteToFile () throws DAOException
+  {}
+
+  /**
+   * Called after the data was successfully written to the file.
+   *
+   * @since 11.0.1
+   */
+  @OverrideOnDemand
+  @MustBeLocked (ELockType.WRITE)
+  protected void onAfterWriteToFile ()
+  {}
+
   /**
    * The main method for writing the new data to a file. This method may only be
    * called within a write lock!
@@ -802,16 +1094,16 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
 
     File aFileNew = null;
     IMicroDocument aDoc = null;
-    final String sFilenameNew = _getFilenameNew (sFilename);
-    final String sFilenamePrev = _getFilenamePrev (sFilename);
     try
     {
       // Get the file handle
-      aFileNew = getSafeFile (sFilenameNew, EMode.WRITE);
+      aFileNew = getSafeFile (_getFilenameNew (sFilename), EMode.WRITE);
 
       m_aStatsCounterWriteTotal.increment ();
       final StopWatch aSW = StopWatch.createdStarted ();
 
+      onBeforeWriteToFile ();
+
       // Create XML document to write
       aDoc = createWriteData ();
       if (aDoc == null)
@@ -820,55 +1112,15 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
       // Generic modification
       modifyWriteData (aDoc);
 
-      // Get the output stream
-      final OutputStream aOS = FileHelper.getOutputStream (aFileNew);
-      if (aOS == null)
-      {
-        // Happens, when another application has the file open!
-        // Logger warning already emitted
-        throw new DAOException ("Failed to open output stream for '" + aFileNew.getAbsolutePath () + "'");
-      }
-
-      // Write to file (closes the OS)
-      final IXMLWriterSettings aXWS = getXMLWriterSettings ();
-      if (MicroWriter.writeToStream (aDoc, aOS, aXWS).isFailure ())
-        throw new DAOException ("Failed to write DAO XML data to file");
-
-      // Rename existing file to old
-      FileIOError aIOError;
-      boolean bRenamedToPrev = false;
-      if (m_aIO.existsFile (sFilename))
-      {
-        aIOError = m_aIO.renameFile (sFilename, sFilenamePrev);
-        bRenamedToPrev = true;
-      }
-      else
-        aIOError = new FileIOError (EFileIOOperation.RENAME_FILE, EFileIOErrorCode.NO_ERROR);
-      if (aIOError.isSuccess ())
-      {
-        // Rename new file to final
-        aIOError = m_aIO.renameFile (sFilenameNew, sFilename);
-        if (aIOError.isSuccess ())
-        {
-          // Finally delete old file
-          aIOError = m_aIO.deleteFileIfExisting (sFilenamePrev);
-        }
-        else
-        {
-          // 2nd rename failed
-          // -> Revert original rename to stay as consistent as possible
-          if (bRenamedToPrev)
-            m_aIO.renameFile (sFilenamePrev, sFilename);
-        }
-      }
-      if (aIOError.isFailure ())
-        throw new IllegalStateException ("Error on rename(existing-old)/rename(new-existing)/delete(old): " + aIOError);
+      writeXMLFileAtomically (sFilename, aDoc);
 
       // Update stats etc.
       m_aStatsCounterWriteTimer.addTime (aSW.stopAndGetMillis ());
       m_aStatsCounterWriteSuccess.increment ();
       m_nWriteCount++;
       m_aLastWriteDT = PDTFactory.getCurrentLocalDateTime ();
+
+      onAfterWriteToFile ();
       return ESuccess.SUCCESS;
     }
     catch (final DAOException | RuntimeException ex)
@@ -909,6 +1161,42 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
     return sWALFilename + ".wal";
   }
 
+  @Nullable
+  private IWALCodec _getWALCodecOfRecord (final int nRecordMarker)
+  {
+    if (m_aWALCodec.getRecordMarker () == nRecordMarker)
+      return m_aWALCodec;
+    // Support changing the codec while a WAL file is present
+    if (nRecordMarker == BinaryWALCodec.RECORD_MARKER)
+      return BinaryWALCodec.INSTANCE;
+    if (nRecordMarker == LegacyWALCodec.RECORD_MARKER)
+      return LegacyWALCodec.INSTANCE;
+    return null;
+  }
+
+  /**
+   * Close the current WAL writer (if any). All pending records are written
+   * before.
+   */
+  @MustBeLocked (ELockType.WRITE)
+  private void _closeWALWriter ()
+  {
+    final WALWriter aWALWriter = m_aWALWriter;
+    if (aWALWriter != null)
+    {
+      m_aWALWriter = null;
+      try
+      {
+        aWALWriter.close ();
+      }
+      catch (final IOException ex)
+      {
+        if (LOGGER.isWarnEnabled ())
+          LOGGER.warn ("Failed to close WAL file '" + aWALWriter.getFile ().getAbsolutePath () + "'", ex);
+      }
+    }
+  }
+
   /**
    * This method is called if recovery from the WAL file (partially) failed an
    * analysis might be needed.
@@ -916,6 +1204,7 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
   final void _maintainWALFileAfterProcessing (@Nonnull @Nonempty final String sWALFilename)
   {
     ValueEnforcer.notEmpty (sWALFilename, "WALFilename");
+    _closeWALWriter ();
     final File aWALFile = m_aIO.getFile (sWALFilename);
     final File aNewFile = new File (aWALFile.getParentFile (), aWALFile.getName () + "." + PDTFactory.getCurrentMillis () + ".bup");
 
@@ -943,8 +1232,11 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
   final void _deleteWALFileAfterProcessing (@Nonnull @Nonempty final String sWALFilename)
   {
     ValueEnforcer.notEmpty (sWALFilename, "WALFilename");
+    // Close the file before deleting it
+    _closeWALWriter ();
     final File aWALFile = m_aIO.getFile (sWALFilename);
-    if (FileOperationManager.INSTANCE.deleteFile (aWALFile).isFailure ())
+    // The file may already be deleted by a previous compaction
+    if (FileOperationManager.INSTANCE.deleteFileIfExisting (aWALFile).isFailure ())
     {
       if (LOGGER.isErrorEnabled ())
         LOGGER.error ("Failed to delete WAL file '" + aWALFile.getAbsolutePath () + "'");
@@ -981,36 +1273,293 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
     return MicroWriter.getNodeAsString (aElement, getWALXMLWriterSettings ());
   }
 
+  @MustBeLocked (ELockType.WRITE)
+  private void _scheduleWALSync (@Nonnull final Duration aDelay)
+  {
+    if (!m_bWALSyncScheduled)
+    {
+      m_bWALSyncScheduled = true;
+      try
+      {
+        m_aWALListener.scheduleWALSync (this, aDelay);
+      }
+      catch (final RejectedExecutionException ex)
+      {
+        // Shutdown is in progress - synchronize now
+        _syncWALFile ();
+      }
+    }
+  }
+
+  /**
+   * Write all pending WAL records and force all outstanding data. If this
+   * fails, the main file is written instead.
+   */
+  @MustBeLocked (ELockType.WRITE)
+  final void _syncWALFile ()
+  {
+    m_bWALSyncScheduled = false;
+    final WALWriter aWALWriter = m_aWALWriter;
+    if (aWALWriter != null)
+    {
+      try
+      {
+        aWALWriter.sync ();
+      }
+      catch (final IOException ex)
+      {
+        final String sWALFilename = aWALWriter.getFile ().getAbsolutePath ();
+        if (LOGGER.isErrorEnabled ())
+          LOGGER.error ("Error synchronizing WAL file '" + sWALFilename + "'", ex);
+        triggerExceptionHandlersWrite (ex, sWALFilename, (IMicroDocument) null);
+        _closeWALWriter ();
+
+        // The WAL is not reliable - write directly
+        _writeToFileAndResetPendingChanges ("syncWALFile");
+      }
+    }
+  }
+
+  @MustBeLocked (ELockType.WRITE)
+  private void _scheduleWALCompaction (@Nonnull @Nonempty final String sWALFilename)
+  {
+    if (!m_bWALCompactionScheduled)
+    {
+      m_bWALCompactionScheduled = true;
+      try
+      {
+        m_aWALListener.scheduleWALCompaction (this, sWALFilename);
+      }
+      catch (final RejectedExecutionException ex)
+      {
+        // Shutdown is in progress - the file will be written anyway
+        m_bWALCompactionScheduled = false;
+      }
+    }
+  }
+
+  /**
+   * Compact the WAL file by writing the main file (a checkpoint) and deleting
+   * the WAL file afterwards. If writing the main file fails, the WAL file is
+   * kept. The scheduled writing of the DAO is no longer needed afterwards.
+   *
+   * @param sWALFilename
+   *        The WAL filename at the time the compaction was scheduled.
+   */
+  @MustBeLocked (ELockType.WRITE)
+  final void _compactWALFile (@Nonnull @Nonempty final String sWALFilename)
+  {
+    m_bWALCompactionScheduled = false;
+    if (hasPendingChanges ())
+    {
+      _writeToFileAndResetPendingChanges ("compactWALFile");
+      if (!hasPendingChanges ())
+      {
+        _deleteWALFileAfterProcessing (sWALFilename);
+        m_aWALListener.cancelLaterWriting (this, sWALFilename);
+        m_aStatsCounterWALCompactions.increment ();
+      }
+    }
+  }
+
   @Nonnull
   @MustBeLocked (ELockType.WRITE)
   private ESuccess _writeWALFile (@Nonnull @Nonempty final List <DATATYPE> aModifiedElements,
                                   @Nonnull final EDAOActionType eActionType,
                                   @Nonnull @Nonempty final String sWALFilename)
   {
-    final FileSystemResource aWALRes = m_aIO.getResource (sWALFilename);
-    try (final DataOutputStream aDOS = new DataOutputStream (aWALRes.getOutputStream (EAppend.APPEND)))
+    final File aWALFile = m_aIO.getFile (sWALFilename);
+    try
     {
-      // Write action type ID
-      StreamHelper.writeSafeUTF (aDOS, eActionType.getID ());
-      // Write number of elements
-      aDOS.writeInt (aModifiedElements.size ());
-      // Write all data elements as XML Strings :)
+      final StopWatch aSW = StopWatch.createdStarted ();
+
+      // Convert all data elements to Strings
+      final ICommonsList <String> aElements = new CommonsArrayList <> (aModifiedElements.size ());
       for (final DATATYPE aModifiedElement : aModifiedElements)
+        aElements.add (convertNativeToWALString (aModifiedElement));
+
+      // Reuse the open writer if the filename did not change
+      WALWriter aWALWriter = m_aWALWriter;
+      if (aWALWriter == null || !aWALWriter.getFile ().equals (aWALFile))
+      {
+        _closeWALWriter ();
+        aWALWriter = new WALWriter (aWALFile, m_eWALDurability, m_aWALForceInterval);
+        m_aWALWriter = aWALWriter;
+      }
+
+      // Encode the record completely before appending it
+      try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+           final DataOutputStream aDOS = new DataOutputStream (aBAOS))
       {
-        final String sElement = convertNativeToWALString (aModifiedElement);
-        StreamHelper.writeSafeUTF (aDOS, sElement);
+        m_aWALCodec.writeRecord (aDOS, new WALRecord (eActionType, aElements));
+        aDOS.flush ();
+        aWALWriter.append (aBAOS.directGetBuffer (), 0, aBAOS.size ());
       }
+
+      // Group commit: collect records until the window elapsed
+      if (m_aWALGroupCommitWindow.isZero () || aWALWriter.getPendingBytes () >= WAL_GROUP_COMMIT_MAX_BYTES)
+        aWALWriter.writePending ();
+      if (aWALWriter.getPendingBytes () > 0)
+        _scheduleWALSync (m_aWALGroupCommitWindow);
+      else
+        if (aWALWriter.isForceOutstanding ())
+          _scheduleWALSync (m_aWALForceInterval);
+
+      // Compact the WAL file if it grew too large
+      if (m_nWALCompactionThreshold > 0 && aWALWriter.getFileSize () >= m_nWALCompactionThreshold)
+        _scheduleWALCompaction (sWALFilename);
+
+      m_aStatsCounterWALWriteTimer.addTime (aSW.stopAndGetMillis ());
       return ESuccess.SUCCESS;
     }
     catch (final Exception ex)
     {
       if (LOGGER.isErrorEnabled ())
-        LOGGER.error ("Error writing WAL file " + aWALRes, ex);
+        LOGGER.error ("Error writing WAL file '" + aWALFile.getAbsolutePath () + "'", ex);
       triggerExceptionHandlersWrite (ex, sWALFilename, (IMicroDocument) null);
+      // Don't continue with a potentially broken file
+      _closeWALWriter ();
     }
     return ESuccess.FAILURE;
   }
 
+  /**
+   * @return The size in bytes a WAL file may reach, before it is compacted in
+   *         the background. 0 means that no compaction happens and the WAL
+   *         file is only removed after the waiting time.
+   * @since 11.0.1
+   */
+  @Nonnegative
+  public final long getWALCompactionThreshold ()
+  {
+    return m_aRWLock.readLockedLong ( () -> m_nWALCompactionThreshold);
+  }
+
+  /**
+   * Set the size in bytes a WAL file may reach, before it is compacted in the
+   * background. Compaction means that the main file is written and the WAL file
+   * is deleted, independent of the waiting time. This is especially useful if
+   * writing the main file is cheap, e.g. with segmented map based DAOs.
+   *
+   * @param nWALCompactionThreshold
+   *        The threshold in bytes. Must be &ge; 0. 0 means disabled.
+   * @since 11.0.1
+   */
+  protected final void setWALCompactionThreshold (@Nonnegative final long nWALCompactionThreshold)
+  {
+    ValueEnforcer.isGE0 (nWALCompactionThreshold, "WALCompactionThreshold");
+    m_aRWLock.writeLocked ( () -> m_nWALCompactionThreshold = nWALCompactionThreshold);
+  }
+
+  /**
+   * @return The codec used to write WAL records. Never <code>null</code>.
+   *         Default is {@link LegacyWALCodec}, so that the WAL files stay
+   *         readable by previous versions.
+   * @since 11.0.1
+   */
+  @Nonnull
+  public final IWALCodec getWALCodec ()
+  {
+    return m_aRWLock.readLockedGet ( () -> m_aWALCodec);
+  }
+
+  /**
+   * Set the codec used to write WAL records. Upon recovery the records written
+   * by {@link LegacyWALCodec} and {@link BinaryWALCodec} are always supported,
+   * independent of this setting.<br>
+   * Using the {@link BinaryWALCodec} adds checksums to all records. Only switch
+   * to it, once a rollback to a version before 11.0.1 is no longer needed, as
+   * previous versions cannot read a WAL file containing binary records. To
+   * roll back, switch back to the {@link LegacyWALCodec} and make sure the WAL
+   * file was applied (e.g. by a regular shutdown) before downgrading.
+   *
+   * @param aWALCodec
+   *        The WAL codec to use. May not be <code>null</code>.
+   * @since 11.0.1
+   */
+  protected final void setWALCodec (@Nonnull final IWALCodec aWALCodec)
+  {
+    ValueEnforcer.notNull (aWALCodec, "WALCodec");
+    m_aRWLock.writeLocked ( () -> m_aWALCodec = aWALCodec);
+  }
+
+  /**
+   * @return When the WAL file is forced to the storage device. Never
+   *         <code>null</code>. Default is {@link EWALDurability#DEFAULT}.
+   * @since 11.0.1
+   */
+  @Nonnull
+  public final EWALDurability getWALDurability ()
+  {
+    return m_aRWLock.readLockedGet ( () -> m_eWALDurability);
+  }
+
+  /**
+   * @return The interval in which the WAL file is forced, if
+   *         {@link EWALDurability#FORCE_PER_INTERVAL} is used. Never
+   *         <code>null</code>.
+   * @since 11.0.1
+   */
+  @Nonnull
+  public final Duration getWALForceInterval ()
+  {
+    return m_aRWLock.readLockedGet ( () -> m_aWALForceInterval);
+  }
+
+  /**
+   * Set when the WAL file should be forced to the storage device.
+   *
+   * @param eWALDurability
+   *        The durability to use. May not be <code>null</code>.
+   * @param aWALForceInterval
+   *        The interval to use for {@link EWALDurability#FORCE_PER_INTERVAL}.
+   *        May not be <code>null</code> and must not be negative.
+   * @since 11.0.1
+   */
+  protected final void setWALDurability (@Nonnull final EWALDurability eWALDurability, @Nonnull final Duration aWALForceInterval)
+  {
+    ValueEnforcer.notNull (eWALDurability, "WALDurability");
+    ValueEnforcer.notNull (aWALForceInterval, "WALForceInterval");
+    ValueEnforcer.isFalse (aWALForceInterval.isNegative (), "WALForceInterval may not be negative");
+    m_aRWLock.writeLocked ( () -> {
+      m_eWALDurability = eWALDurability;
+      m_aWALForceInterval = aWALForceInterval;
+      // Apply to the next write
+      _closeWALWriter ();
+    });
+  }
+
+  /**
+   * @return The group commit window. Never <code>null</code>. Default is
+   *         {@link Duration#ZERO} meaning that group commit is disabled.
+   * @since 11.0.1
+   */
+  @Nonnull
+  public final Duration getWALGroupCommitWindow ()
+  {
+    return m_aRWLock.readLockedGet ( () -> m_aWALGroupCommitWindow);
+  }
+
+  /**
+   * Set the group commit window. If it is larger than zero, all WAL records
+   * created within that time window are collected in memory and written (and
+   * forced, depending on the durability) with a single I/O operation. Changes
+   * within the window may be lost if the process is killed - the regular
+   * shutdown is handled. Using group commit is especially useful together with
+   * {@link EWALDurability#FORCE_PER_BATCH}.
+   *
+   * @param aWALGroupCommitWindow
+   *        The group commit window. May not be <code>null</code> and must not
+   *        be negative.
+   * @since 11.0.1
+   */
+  protected final void setWALGroupCommitWindow (@Nonnull final Duration aWALGroupCommitWindow)
+  {
+    ValueEnforcer.notNull (aWALGroupCommitWindow, "WALGroupCommitWindow");
+    ValueEnforcer.isFalse (aWALGroupCommitWindow.isNegative (), "WALGroupCommitWindow may not be negative");
+    m_aRWLock.writeLocked ( () -> m_aWALGroupCommitWindow = aWALGroupCommitWindow);
+  }
+
   /**
    * @return The waiting time used before the file is effectively written. Never
    *         <code>null</code>. Default value is 10 seconds.
@@ -1151,6 +1700,10 @@ public abstract class AbstractWALDAO <DATATYPE> extends AbstractDAO
                             .appendIfNotNull ("LastReadDT", m_aLastReadDT)
                             .append ("WriteCount", m_nWriteCount)
                             .appendIfNotNull ("LastWriteDT", m_aLastWriteDT)
+                            .append ("WALCodec", m_aWALCodec)
+                            .append ("WALDurability", m_eWALDurability)
+                            .append ("WALForceInterval", m_aWALForceInterval)
+                            .append ("WALGroupCommitWindow", m_aWALGroupCommitWindow)
                             .getToString ();
   }
 }
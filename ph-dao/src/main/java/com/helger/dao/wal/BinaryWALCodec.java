@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.dao.EDAOActionType;
+
+/**
+ * A compact WAL codec with length-prefixed and checksummed records. The layout
+ * of each record is:
+ * <ul>
+ * <li>1 byte record marker {@link #RECORD_MARKER}</li>
+ * <li>1 byte layout version {@link #VERSION}</li>
+ * <li>4 bytes length of the body</li>
+ * <li>The body: the action type ID (modified UTF-8), 4 bytes number of
+ * elements and for each element 4 bytes length followed by the UTF-8
+ * bytes</li>
+ * <li>4 bytes CRC32 checksum of the body</li>
+ * </ul>
+ * That way a record that was only partially written (e.g. because of a crash)
+ * can reliably be detected upon recovery.<br>
+ * This codec must be enabled explicitly via
+ * {@link AbstractWALDAO#setWALCodec(IWALCodec)}.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@Immutable
+public class BinaryWALCodec implements IWALCodec
+{
+  /** The record marker - 'W' */
+  public static final int RECORD_MARKER = 0x57;
+  /** The layout version */
+  public static final int VERSION = 1;
+
+  public static final BinaryWALCodec INSTANCE = new BinaryWALCodec ();
+
+  public int getRecordMarker ()
+  {
+    return RECORD_MARKER;
+  }
+
+  private static int _getChecksum (@Nonnull final byte [] aBuf, final int nLength)
+  {
+    final CRC32 aCRC = new CRC32 ();
+    aCRC.update (aBuf, 0, nLength);
+    return (int) aCRC.getValue ();
+  }
+
+  public void writeRecord (@Nonnull final DataOutput aDO, @Nonnull final WALRecord aRecord) throws IOException
+  {
+    final ICommonsList <String> aElements = aRecord.getAllElements ();
+
+    // Build the body first, to know its length
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+         final DataOutputStream aBody = new DataOutputStream (aBAOS))
+    {
+      aBody.writeUTF (aRecord.getActionType ().getID ());
+      aBody.writeInt (aElements.size ());
+      for (final String sElement : aElements)
+      {
+        final byte [] aBytes = sElement.getBytes (StandardCharsets.UTF_8);
+        aBody.writeInt (aBytes.length);
+        aBody.write (aBytes);
+      }
+      aBody.flush ();
+
+      final byte [] aBuf = aBAOS.directGetBuffer ();
+      final int nLength = aBAOS.size ();
+      aDO.writeByte (RECORD_MARKER);
+      aDO.writeByte (VERSION);
+      aDO.writeInt (nLength);
+      aDO.write (aBuf, 0, nLength);
+      aDO.writeInt (_getChecksum (aBuf, nLength));
+    }
+  }
+
+  @Nonnull
+  public WALRecord readRecord (@Nonnull final DataInput aDI) throws IOException
+  {
+    final int nMarker = aDI.readUnsignedByte ();
+    if (nMarker != RECORD_MARKER)
+      throw new IOException ("Invalid WAL record marker " + nMarker);
+    final int nVersion = aDI.readUnsignedByte ();
+    if (nVersion != VERSION)
+      throw new IOException ("Unsupported WAL record version " + nVersion);
+    final int nLength = aDI.readInt ();
+    if (nLength < 0)
+      throw new IOException ("Invalid WAL record length " + nLength);
+
+    final byte [] aBuf = new byte [nLength];
+    aDI.readFully (aBuf);
+    final int nChecksum = aDI.readInt ();
+    if (nChecksum != _getChecksum (aBuf, nLength))
+      throw new IOException ("WAL record checksum mismatch");
+
+    try (final DataInputStream aBody = new DataInputStream (new NonBlockingByteArrayInputStream (aBuf)))
+    {
+      final EDAOActionType eActionType = EDAOActionType.getFromIDOrNull (aBody.readUTF ());
+      if (eActionType == null)
+        throw new IOException ("Failed to read WAL action type");
+
+      final int nElements = aBody.readInt ();
+      if (nElements < 0)
+        throw new IOException ("Invalid WAL element count " + nElements);
+
+      final ICommonsList <String> aElements = new CommonsArrayList <> (nElements);
+      for (int i = 0; i < nElements; ++i)
+      {
+        final int nElementLength = aBody.readInt ();
+        if (nElementLength < 0 || nElementLength > nLength)
+          throw new IOException ("Invalid WAL element length " + nElementLength);
+        final byte [] aElement = new byte [nElementLength];
+        aBody.readFully (aElement);
+        aElements.add (new String (aElement, StandardCharsets.UTF_8));
+      }
+      return new WALRecord (eActionType, aElements);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Defines when the content of a WAL file is forced to the storage device.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+public enum EWALDurability
+{
+  /**
+   * Never explicitly force - the operating system decides when the data is
+   * written. This is the fastest option and the behaviour of previous versions.
+   */
+  NONE,
+  /**
+   * Force after every batch of records written to the WAL file. This is the
+   * safest but slowest option.
+   */
+  FORCE_PER_BATCH,
+  /**
+   * Force at most once per configured interval. Data written in between is
+   * forced latest after the interval elapsed.
+   */
+  FORCE_PER_INTERVAL;
+
+  /** The default is {@link #NONE} */
+  @Nonnull
+  public static final EWALDurability DEFAULT = NONE;
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Interface for encoding and decoding the records of a WAL file. Each encoded
+ * record must start with the byte returned by {@link #getRecordMarker()} so
+ * that WAL files written with different codecs can be recovered.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ * @see LegacyWALCodec
+ * @see BinaryWALCodec
+ */
+public interface IWALCodec
+{
+  /**
+   * @return The first byte of every record written by this codec. Must be
+   *         unique among all codecs and in the range 0-255.
+   */
+  int getRecordMarker ();
+
+  /**
+   * Write a single record, including the leading record marker.
+   *
+   * @param aDO
+   *        The data output to write to. Never <code>null</code>.
+   * @param aRecord
+   *        The record to write. Never <code>null</code>.
+   * @throws IOException
+   *         In case of a write error
+   */
+  void writeRecord (@Nonnull DataOutput aDO, @Nonnull WALRecord aRecord) throws IOException;
+
+  /**
+   * Read a single record, including the leading record marker.
+   *
+   * @param aDI
+   *        The data input to read from. Never <code>null</code>.
+   * @return The read record. Never <code>null</code>.
+   * @throws java.io.EOFException
+   *         If the record is truncated
+   * @throws IOException
+   *         In case of a read error or if the record is corrupt
+   */
+  @Nonnull
+  WALRecord readRecord (@Nonnull DataInput aDI) throws IOException;
+}
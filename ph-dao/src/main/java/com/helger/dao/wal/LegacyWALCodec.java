@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.dao.EDAOActionType;
+
+/**
+ * The WAL codec that was used up to and including version 11.0.0. Each record
+ * consists of the action type ID, the number of elements and all elements,
+ * where all strings are written via
+ * {@link StreamHelper#writeSafeUTF(DataOutput, String)}. The records contain
+ * no checksum.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@Immutable
+public class LegacyWALCodec implements IWALCodec
+{
+  /**
+   * The layout version byte written by
+   * {@link StreamHelper#writeSafeUTF(DataOutput, String)} for non-<code>null</code>
+   * strings.
+   */
+  public static final int RECORD_MARKER = 2;
+
+  public static final LegacyWALCodec INSTANCE = new LegacyWALCodec ();
+
+  public int getRecordMarker ()
+  {
+    return RECORD_MARKER;
+  }
+
+  public void writeRecord (@Nonnull final DataOutput aDO, @Nonnull final WALRecord aRecord) throws IOException
+  {
+    final ICommonsList <String> aElements = aRecord.getAllElements ();
+    // Write action type ID
+    StreamHelper.writeSafeUTF (aDO, aRecord.getActionType ().getID ());
+    // Write number of elements
+    aDO.writeInt (aElements.size ());
+    // Write all data elements
+    for (final String sElement : aElements)
+      StreamHelper.writeSafeUTF (aDO, sElement);
+  }
+
+  @Nonnull
+  public WALRecord readRecord (@Nonnull final DataInput aDI) throws IOException
+  {
+    // Read action type
+    final EDAOActionType eActionType = EDAOActionType.getFromIDOrNull (StreamHelper.readSafeUTF (aDI));
+    if (eActionType == null)
+      throw new IOException ("Failed to read WAL action type");
+
+    // Read number of elements
+    final int nElements = aDI.readInt ();
+    if (nElements < 0)
+      throw new IOException ("Invalid WAL element count " + nElements);
+
+    // Read all elements
+    final ICommonsList <String> aElements = new CommonsArrayList <> (nElements);
+    for (int i = 0; i < nElements; ++i)
+    {
+      final String sElement = StreamHelper.readSafeUTF (aDI);
+      if (sElement == null)
+        throw new IOException ("Invalid null WAL element [" + i + "]");
+      aElements.add (sElement);
+    }
+    return new WALRecord (eActionType, aElements);
+  }
+}
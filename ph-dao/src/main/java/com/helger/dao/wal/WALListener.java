@@ -120,6 +120,13 @@ public final class WALListener extends AbstractGlobalSingleton
     ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (m_aES);
   }
 
+  @Nonnull
+  private static String _getKey (@Nonnull final AbstractWALDAO <?> aDAO, @Nonnull final String sWALFilename)
+  {
+    // In case many DAOs of the same class exist, the filename is also added
+    return aDAO.getClass ().getName () + "::" + sWALFilename;
+  }
+
   /**
    * This is the main method for registration of later writing.
    *
@@ -136,8 +143,7 @@ public final class WALListener extends AbstractGlobalSingleton
                                        @Nonnull final String sWALFilename,
                                        @Nonnull final Duration aWaitingWime)
   {
-    // In case many DAOs of the same class exist, the filename is also added
-    final String sKey = aDAO.getClass ().getName () + "::" + sWALFilename;
+    final String sKey = _getKey (aDAO, sWALFilename);
 
     // Check if the passed DAO is already scheduled for writing
     final boolean bDoScheduleForWriting = m_aRWLock.writeLockedBoolean ( () -> m_aWaitingDAOs.add (sKey));
@@ -181,4 +187,71 @@ public final class WALListener extends AbstractGlobalSingleton
     // else the writing of the passed DAO is already scheduled and no further
     // action is necessary
   }
+
+  /**
+   * Cancel the scheduled writing of the passed DAO, because it was already
+   * written in the meantime. If the writing is already running, it is not
+   * cancelled.
+   *
+   * @param aDAO
+   *        The DAO that was written. May not be <code>null</code>.
+   * @param sWALFilename
+   *        The filename of the WAL file as passed to
+   *        {@link #registerForLaterWriting(AbstractWALDAO, String, Duration)}.
+   *        May not be <code>null</code>.
+   * @since 11.0.1
+   */
+  void cancelLaterWriting (@Nonnull final AbstractWALDAO <?> aDAO, @Nonnull final String sWALFilename)
+  {
+    final String sKey = _getKey (aDAO, sWALFilename);
+    m_aRWLock.writeLocked ( () -> {
+      final WALListener.WALItem aItem = m_aScheduledItems.get (sKey);
+      if (aItem != null && aItem.m_aFuture.cancel (false))
+      {
+        m_aWaitingDAOs.remove (sKey);
+        m_aScheduledItems.remove (sKey);
+        if (LOGGER.isDebugEnabled ())
+          LOGGER.debug ("Cancelled scheduled writing for DAO " + sKey);
+      }
+    });
+  }
+
+  /**
+   * Schedule the synchronization of the WAL file of the passed DAO. This is
+   * used to write records collected via group commit and to force data
+   * written with {@link EWALDurability#FORCE_PER_INTERVAL}.
+   *
+   * @param aDAO
+   *        The DAO whose WAL file should be synchronized. May not be
+   *        <code>null</code>.
+   * @param aDelay
+   *        The time to wait until the synchronization happens. May not be
+   *        <code>null</code>.
+   * @throws java.util.concurrent.RejectedExecutionException
+   *         if this listener is already shut down
+   * @since 11.0.1
+   */
+  void scheduleWALSync (@Nonnull final AbstractWALDAO <?> aDAO, @Nonnull final Duration aDelay)
+  {
+    m_aES.schedule ( () -> aDAO.internalWriteLocked (aDAO::_syncWALFile), aDelay.toMillis (), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Schedule the compaction of the WAL file of the passed DAO to happen as soon
+   * as possible.
+   *
+   * @param aDAO
+   *        The DAO whose WAL file should be compacted. May not be
+   *        <code>null</code>.
+   * @param sWALFilename
+   *        The filename of the WAL file to be deleted after compaction. May not
+   *        be <code>null</code>.
+   * @throws java.util.concurrent.RejectedExecutionException
+   *         if this listener is already shut down
+   * @since 11.0.1
+   */
+  void scheduleWALCompaction (@Nonnull final AbstractWALDAO <?> aDAO, @Nonnull final String sWALFilename)
+  {
+    m_aES.submit ( () -> aDAO.internalWriteLocked ( () -> aDAO._compactWALFile (sWALFilename)));
+  }
 }
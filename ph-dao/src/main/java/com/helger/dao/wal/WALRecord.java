@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.dao.EDAOActionType;
+
+/**
+ * A single record of a WAL file, consisting of an action type and the
+ * serialized representation of all affected elements.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@Immutable
+public final class WALRecord
+{
+  private final EDAOActionType m_eActionType;
+  private final ICommonsList <String> m_aElements;
+
+  public WALRecord (@Nonnull final EDAOActionType eActionType, @Nonnull final Iterable <String> aElements)
+  {
+    ValueEnforcer.notNull (eActionType, "ActionType");
+    ValueEnforcer.notNull (aElements, "Elements");
+    m_eActionType = eActionType;
+    m_aElements = new CommonsArrayList <> (aElements);
+    ValueEnforcer.noNullValue (m_aElements, "Elements");
+  }
+
+  /**
+   * @return The action type of this record. Never <code>null</code>.
+   */
+  @Nonnull
+  public EDAOActionType getActionType ()
+  {
+    return m_eActionType;
+  }
+
+  /**
+   * @return A copy of all serialized elements of this record. Never
+   *         <code>null</code> but maybe empty.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllElements ()
+  {
+    return m_aElements.getClone ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("ActionType", m_eActionType).append ("Elements", m_aElements).getToString ();
+  }
+}
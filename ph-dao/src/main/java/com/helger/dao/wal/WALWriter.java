@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.functional.IThrowingFunction;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Internal writer for a single WAL file. The file channel is kept open across
+ * writes, and appended records are collected in a buffer until
+ * {@link #writePending()} is called, so that multiple records can be written
+ * with a single I/O operation. If a write fails, the partially written data is
+ * removed from the file, so that the pending records can be written again
+ * completely. All calls must be guarded by the write lock of the owning DAO.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@NotThreadSafe
+final class WALWriter implements Closeable
+{
+  private final File m_aFile;
+  private final EWALDurability m_eDurability;
+  private final long m_nForceIntervalNanos;
+  private final IThrowingFunction <File, FileChannel, IOException> m_aChannelOpener;
+  private final NonBlockingByteArrayOutputStream m_aPending = new NonBlockingByteArrayOutputStream ();
+  private FileChannel m_aChannel;
+  private boolean m_bForceOutstanding = false;
+  // The size of the file with only complete records
+  private long m_nFileSize = 0;
+  // Truncate the file to m_nFileSize before the next write
+  private boolean m_bTruncateOutstanding = false;
+  private long m_nLastForceNanos = System.nanoTime ();
+
+  WALWriter (@Nonnull final File aFile, @Nonnull final EWALDurability eDurability, @Nonnull final Duration aForceInterval)
+  {
+    this (aFile,
+          eDurability,
+          aForceInterval,
+          f -> FileChannel.open (f.toPath (), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+  }
+
+  WALWriter (@Nonnull final File aFile,
+             @Nonnull final EWALDurability eDurability,
+             @Nonnull final Duration aForceInterval,
+             @Nonnull final IThrowingFunction <File, FileChannel, IOException> aChannelOpener)
+  {
+    m_aFile = ValueEnforcer.notNull (aFile, "File");
+    m_eDurability = ValueEnforcer.notNull (eDurability, "Durability");
+    ValueEnforcer.notNull (aForceInterval, "ForceInterval");
+    m_nForceIntervalNanos = aForceInterval.toNanos ();
+    m_aChannelOpener = ValueEnforcer.notNull (aChannelOpener, "ChannelOpener");
+  }
+
+  @Nonnull
+  File getFile ()
+  {
+    return m_aFile;
+  }
+
+  @Nonnull
+  EWALDurability getDurability ()
+  {
+    return m_eDurability;
+  }
+
+  /**
+   * Append an encoded record to the pending buffer. Nothing is written.
+   *
+   * @param aBuf
+   *        Buffer to read from
+   * @param nOfs
+   *        Offset in buffer
+   * @param nLen
+   *        Number of bytes to append
+   */
+  void append (@Nonnull final byte [] aBuf, @Nonnegative final int nOfs, @Nonnegative final int nLen)
+  {
+    m_aPending.write (aBuf, nOfs, nLen);
+  }
+
+  @Nonnegative
+  int getPendingBytes ()
+  {
+    return m_aPending.size ();
+  }
+
+  /**
+   * @return The number of bytes in the WAL file, including the pending bytes.
+   *         Only valid after the first write.
+   */
+  @Nonnegative
+  long getFileSize ()
+  {
+    return m_nFileSize + m_aPending.size ();
+  }
+
+  boolean isForceOutstanding ()
+  {
+    return m_bForceOutstanding;
+  }
+
+  @Nonnull
+  private FileChannel _getChannel () throws IOException
+  {
+    FileChannel ret = m_aChannel;
+    if (ret == null)
+    {
+      ret = m_aChannelOpener.apply (m_aFile);
+      m_aChannel = ret;
+      if (!m_bTruncateOutstanding)
+        m_nFileSize = ret.size ();
+    }
+    if (m_bTruncateOutstanding)
+    {
+      // Remove the partially written data of a previous failed write
+      ret.truncate (m_nFileSize);
+      m_bTruncateOutstanding = false;
+    }
+    return ret;
+  }
+
+  private void _truncateAfterFailedWrite ()
+  {
+    try
+    {
+      m_aChannel.truncate (m_nFileSize);
+    }
+    catch (final IOException ex)
+    {
+      // Try again before the next write
+      m_bTruncateOutstanding = true;
+    }
+  }
+
+  private void _force () throws IOException
+  {
+    // Metadata is not needed, as the content is sufficient for recovery
+    m_aChannel.force (false);
+    m_bForceOutstanding = false;
+    m_nLastForceNanos = System.nanoTime ();
+  }
+
+  /**
+   * Write all pending records as one batch and force them according to the
+   * durability settings.
+   *
+   * @throws IOException
+   *         on error
+   */
+  void writePending () throws IOException
+  {
+    if (m_aPending.isNotEmpty ())
+    {
+      final FileChannel aChannel = _getChannel ();
+      final ByteBuffer aBB = ByteBuffer.wrap (m_aPending.directGetBuffer (), 0, m_aPending.size ());
+      try
+      {
+        while (aBB.hasRemaining ())
+          aChannel.write (aBB);
+      }
+      catch (final IOException ex)
+      {
+        // Don't leave a partial record in the file, as the pending records are
+        // written again completely
+        _truncateAfterFailedWrite ();
+        throw ex;
+      }
+      m_nFileSize += m_aPending.size ();
+      m_aPending.reset ();
+
+      switch (m_eDurability)
+      {
+        case FORCE_PER_BATCH:
+          _force ();
+          break;
+        case FORCE_PER_INTERVAL:
+          if (System.nanoTime () - m_nLastForceNanos >= m_nForceIntervalNanos)
+            _force ();
+          else
+            m_bForceOutstanding = true;
+          break;
+        default:
+          // Nothing to do
+          break;
+      }
+    }
+  }
+
+  /**
+   * Write all pending records and force all outstanding data.
+   *
+   * @throws IOException
+   *         on error
+   */
+  void sync () throws IOException
+  {
+    writePending ();
+    if (m_bForceOutstanding)
+      _force ();
+  }
+
+  /**
+   * Write all pending records and close the underlying channel. The writer
+   * may be used again afterwards. If writing fails, the pending records are
+   * discarded.
+   */
+  public void close () throws IOException
+  {
+    try
+    {
+      sync ();
+    }
+    finally
+    {
+      if (m_aChannel != null)
+      {
+        m_aChannel.close ();
+        m_aChannel = null;
+      }
+      m_aPending.reset ();
+      m_bForceOutstanding = false;
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("File", m_aFile)
+                                       .append ("Durability", m_eDurability)
+                                       .append ("ForceIntervalNanos", m_nForceIntervalNanos)
+                                       .append ("PendingBytes", m_aPending.size ())
+                                       .append ("Open", m_aChannel != null)
+                                       .append ("ForceOutstanding", m_bForceOutstanding)
+                                       .getToString ();
+  }
+}
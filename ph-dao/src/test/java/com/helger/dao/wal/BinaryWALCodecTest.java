@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.dao.EDAOActionType;
+
+/**
+ * Test class for class {@link BinaryWALCodec}.
+ *
+ * @author Philip Helger
+ */
+public final class BinaryWALCodecTest
+{
+  @Test
+  public void testRoundTrip () throws IOException
+  {
+    final BinaryWALCodec aCodec = BinaryWALCodec.INSTANCE;
+    final WALRecord aRecord1 = new WALRecord (EDAOActionType.CREATE, new CommonsArrayList <> ("<item id=\"1\"/>", "<item>äöü€</item>"));
+    final WALRecord aRecord2 = new WALRecord (EDAOActionType.DELETE, new CommonsArrayList <> (""));
+
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+         final DataOutputStream aDOS = new DataOutputStream (aBAOS))
+    {
+      aCodec.writeRecord (aDOS, aRecord1);
+      aCodec.writeRecord (aDOS, aRecord2);
+      aDOS.flush ();
+      assertEquals (BinaryWALCodec.RECORD_MARKER, aBAOS.getByteAt (0));
+
+      try (final DataInputStream aDIS = new DataInputStream (aBAOS.getAsInputStream ()))
+      {
+        final WALRecord aRead1 = aCodec.readRecord (aDIS);
+        assertEquals (EDAOActionType.CREATE, aRead1.getActionType ());
+        assertEquals (aRecord1.getAllElements (), aRead1.getAllElements ());
+        final WALRecord aRead2 = aCodec.readRecord (aDIS);
+        assertEquals (EDAOActionType.DELETE, aRead2.getActionType ());
+        assertEquals (aRecord2.getAllElements (), aRead2.getAllElements ());
+        assertEquals (-1, aDIS.read ());
+      }
+    }
+  }
+
+  @Test
+  public void testCorrupt () throws IOException
+  {
+    final BinaryWALCodec aCodec = BinaryWALCodec.INSTANCE;
+    final byte [] aBytes;
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+         final DataOutputStream aDOS = new DataOutputStream (aBAOS))
+    {
+      aCodec.writeRecord (aDOS, new WALRecord (EDAOActionType.UPDATE, new CommonsArrayList <> ("<item/>")));
+      aDOS.flush ();
+      aBytes = aBAOS.toByteArray ();
+    }
+
+    // Truncated record
+    try (final DataInputStream aDIS = new DataInputStream (new NonBlockingByteArrayInputStream (aBytes, 0, aBytes.length - 2)))
+    {
+      aCodec.readRecord (aDIS);
+      fail ();
+    }
+    catch (final EOFException ex)
+    {
+      // expected
+    }
+
+    // Modified payload
+    aBytes[aBytes.length - 6]++;
+    try (final DataInputStream aDIS = new DataInputStream (new NonBlockingByteArrayInputStream (aBytes)))
+    {
+      aCodec.readRecord (aDIS);
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      // expected
+    }
+  }
+}
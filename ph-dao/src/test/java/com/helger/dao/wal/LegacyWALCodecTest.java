@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.dao.EDAOActionType;
+
+/**
+ * Test class for class {@link LegacyWALCodec}.
+ *
+ * @author Philip Helger
+ */
+public final class LegacyWALCodecTest
+{
+  @Test
+  public void testReadOldFormat () throws IOException
+  {
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+         final DataOutputStream aDOS = new DataOutputStream (aBAOS))
+    {
+      // The way WAL files were written in previous versions
+      StreamHelper.writeSafeUTF (aDOS, EDAOActionType.UPDATE.getID ());
+      aDOS.writeInt (2);
+      StreamHelper.writeSafeUTF (aDOS, "<item id=\"1\"/>");
+      StreamHelper.writeSafeUTF (aDOS, "<item id=\"2\"/>");
+      // Add a record with the codec
+      LegacyWALCodec.INSTANCE.writeRecord (aDOS, new WALRecord (EDAOActionType.CREATE, new CommonsArrayList <> ("<item/>")));
+      aDOS.flush ();
+      assertEquals (LegacyWALCodec.RECORD_MARKER, aBAOS.getByteAt (0));
+
+      try (final DataInputStream aDIS = new DataInputStream (aBAOS.getAsInputStream ()))
+      {
+        WALRecord aRecord = LegacyWALCodec.INSTANCE.readRecord (aDIS);
+        assertEquals (EDAOActionType.UPDATE, aRecord.getActionType ());
+        assertEquals (new CommonsArrayList <> ("<item id=\"1\"/>", "<item id=\"2\"/>"), aRecord.getAllElements ());
+        aRecord = LegacyWALCodec.INSTANCE.readRecord (aDIS);
+        assertEquals (EDAOActionType.CREATE, aRecord.getActionType ());
+        assertEquals (new CommonsArrayList <> ("<item/>"), aRecord.getAllElements ());
+        assertEquals (-1, aDIS.read ());
+      }
+    }
+  }
+}
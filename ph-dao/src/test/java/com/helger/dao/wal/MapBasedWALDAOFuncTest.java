@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.helger.commons.io.file.FileOperationManager;
+import com.helger.scope.mock.ScopeTestRule;
+
+/**
+ * Test class for class {@link AbstractMapBasedWALDAO}.
+ *
+ * @author Philip Helger
+ */
+public final class MapBasedWALDAOFuncTest
+{
+  private static final File BASE_DIR = new File ("target/dao-wal-test").getAbsoluteFile ();
+
+  @Rule
+  public final ScopeTestRule m_aRule = new ScopeTestRule ();
+
+  private static boolean _waitUntil (@Nonnull final BooleanSupplier aCondition) throws InterruptedException
+  {
+    final long nEnd = System.currentTimeMillis () + 10_000;
+    while (!aCondition.getAsBoolean ())
+    {
+      if (System.currentTimeMillis () > nEnd)
+        return false;
+      Thread.sleep (10);
+    }
+    return true;
+  }
+
+  @Test
+  public void testCompaction () throws Exception
+  {
+    FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    FileOperationManager.INSTANCE.createDirRecursiveIfNotExisting (BASE_DIR);
+    try
+    {
+      final File aWALFile = new File (BASE_DIR, MockMapBasedWALDAO.FILENAME + ".wal");
+      final MockMapBasedWALDAO aDAO = new MockMapBasedWALDAO (BASE_DIR);
+      aDAO.setWaitingTime (Duration.ofMillis (300));
+      // Every WAL record exceeds the threshold
+      aDAO.setWALCompactionThreshold (1);
+
+      for (int i = 0; i < 2; ++i)
+      {
+        final int nWriteCount = aDAO.getWriteCount ();
+        aDAO.create (new MockWALItem ("id" + i, "v" + i));
+
+        // Compaction happens in the background
+        assertTrue (_waitUntil ( () -> aDAO.getWriteCount () > nWriteCount));
+        assertFalse (aWALFile.exists ());
+        assertEquals (nWriteCount + 1, aDAO.getWriteCount ());
+
+        // The scheduled writer is obsolete and must not write again
+        Thread.sleep (600);
+        assertEquals (nWriteCount + 1, aDAO.getWriteCount ());
+        assertFalse (aDAO.hasPendingChanges ());
+      }
+
+      // A change after the waiting time is written by the scheduled writer
+      aDAO.setWALCompactionThreshold (0);
+      final int nWriteCount = aDAO.getWriteCount ();
+      aDAO.update (new MockWALItem ("id0", "new0"));
+      assertTrue (aWALFile.exists ());
+      assertTrue (_waitUntil ( () -> aDAO.getWriteCount () > nWriteCount));
+      assertTrue (_waitUntil ( () -> !aWALFile.exists ()));
+
+      // Read again
+      final MockMapBasedWALDAO aDAO2 = new MockMapBasedWALDAO (BASE_DIR);
+      assertEquals (2, aDAO2.size ());
+      assertEquals ("new0", aDAO2.getValue ("id0"));
+      assertEquals ("v1", aDAO2.getValue ("id1"));
+    }
+    finally
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    }
+  }
+
+  @Test
+  public void testGroupCommit () throws Exception
+  {
+    FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    FileOperationManager.INSTANCE.createDirRecursiveIfNotExisting (BASE_DIR);
+    try
+    {
+      final File aWALFile = new File (BASE_DIR, MockMapBasedWALDAO.FILENAME + ".wal");
+      final MockMapBasedWALDAO aDAO = new MockMapBasedWALDAO (BASE_DIR);
+      aDAO.setWaitingTime (Duration.ofHours (1));
+      aDAO.setWALGroupCommitWindow (Duration.ofMillis (200));
+
+      // The records are collected until the window elapsed
+      for (int i = 0; i < 3; ++i)
+        aDAO.create (new MockWALItem ("id" + i, "v" + i));
+      assertEquals (0, aWALFile.length ());
+      assertTrue (_waitUntil ( () -> aWALFile.length () > 0));
+
+      // Simulate a restart
+      final MockMapBasedWALDAO aDAO2 = new MockMapBasedWALDAO (BASE_DIR);
+      assertEquals (3, aDAO2.size ());
+      assertEquals ("v2", aDAO2.getValue ("id2"));
+    }
+    finally
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    }
+  }
+
+  @Test
+  public void testDurability () throws Exception
+  {
+    for (final EWALDurability eDurability : EWALDurability.values ())
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+      FileOperationManager.INSTANCE.createDirRecursiveIfNotExisting (BASE_DIR);
+      try
+      {
+        final File aWALFile = new File (BASE_DIR, MockMapBasedWALDAO.FILENAME + ".wal");
+        final MockMapBasedWALDAO aDAO = new MockMapBasedWALDAO (BASE_DIR);
+        aDAO.setWaitingTime (Duration.ofHours (1));
+        aDAO.setWALDurability (eDurability, Duration.ofMillis (100));
+        assertEquals (eDurability, aDAO.getWALDurability ());
+
+        // Records are written directly without group commit
+        for (int i = 0; i < 3; ++i)
+        {
+          final long nWALSize = aWALFile.length ();
+          aDAO.create (new MockWALItem ("id" + i, "v" + i));
+          assertTrue (aWALFile.length () > nWALSize);
+        }
+
+        // Simulate a restart
+        final MockMapBasedWALDAO aDAO2 = new MockMapBasedWALDAO (BASE_DIR);
+        assertEquals (3, aDAO2.size ());
+        assertEquals ("v2", aDAO2.getValue ("id2"));
+      }
+      finally
+      {
+        FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+      }
+    }
+  }
+
+  @Test
+  public void testRecoveryWithTornTrailingRecord () throws Exception
+  {
+    for (final IWALCodec aCodec : new IWALCodec [] { LegacyWALCodec.INSTANCE, BinaryWALCodec.INSTANCE })
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+      FileOperationManager.INSTANCE.createDirRecursiveIfNotExisting (BASE_DIR);
+      try
+      {
+        final File aWALFile = new File (BASE_DIR, MockMapBasedWALDAO.FILENAME + ".wal");
+        final MockMapBasedWALDAO aDAO = new MockMapBasedWALDAO (BASE_DIR);
+        aDAO.setWaitingTime (Duration.ofHours (1));
+        aDAO.setWALCodec (aCodec);
+        aDAO.create (new MockWALItem ("id0", "v0"));
+        aDAO.update (new MockWALItem ("id0", "new0"));
+        aDAO.create (new MockWALItem ("id1", "v1"));
+
+        // Simulate a crash while the last record was written
+        try (final FileChannel aFC = FileChannel.open (aWALFile.toPath (), StandardOpenOption.WRITE))
+        {
+          aFC.truncate (aFC.size () - 5);
+        }
+
+        // All complete records are recovered
+        final MockMapBasedWALDAO aDAO2 = new MockMapBasedWALDAO (BASE_DIR);
+        assertEquals (1, aDAO2.size ());
+        assertEquals ("new0", aDAO2.getValue ("id0"));
+        // The WAL file is kept for analysis, but not used again
+        assertFalse (aWALFile.exists ());
+        assertEquals (1, new MockMapBasedWALDAO (BASE_DIR).size ());
+      }
+      finally
+      {
+        FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+      }
+    }
+  }
+
+  @Test
+  public void testRecoveryWithMixedCodecs () throws Exception
+  {
+    FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    FileOperationManager.INSTANCE.createDirRecursiveIfNotExisting (BASE_DIR);
+    try
+    {
+      final MockMapBasedWALDAO aDAO = new MockMapBasedWALDAO (BASE_DIR);
+      aDAO.setWaitingTime (Duration.ofHours (1));
+      assertSame (LegacyWALCodec.INSTANCE, aDAO.getWALCodec ());
+      aDAO.create (new MockWALItem ("id0", "v0"));
+      aDAO.create (new MockWALItem ("id1", "v1"));
+
+      // Switch the codec while the WAL file is present
+      aDAO.setWALCodec (BinaryWALCodec.INSTANCE);
+      aDAO.update (new MockWALItem ("id0", "new0"));
+      aDAO.create (new MockWALItem ("id2", "v2"));
+      aDAO.setWALCodec (LegacyWALCodec.INSTANCE);
+      aDAO.delete ("id1");
+
+      // Simulate a restart
+      final MockMapBasedWALDAO aDAO2 = new MockMapBasedWALDAO (BASE_DIR);
+      assertEquals (2, aDAO2.size ());
+      assertEquals ("new0", aDAO2.getValue ("id0"));
+      assertNull (aDAO2.getValue ("id1"));
+      assertEquals ("v2", aDAO2.getValue ("id2"));
+    }
+    finally
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    }
+  }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.time.Duration;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.file.FileOperationManager;
+import com.helger.dao.DAOException;
+import com.helger.dao.IDAO;
+import com.helger.dao.container.DefaultDAOContainer;
+import com.helger.scope.mock.ScopeTestRule;
+import com.helger.xml.microdom.IMicroDocument;
+import com.helger.xml.microdom.IMicroElement;
+import com.helger.xml.microdom.serialize.MicroReader;
+
+/**
+ * Test class for the segmentation of class {@link AbstractMapBasedWALDAO}.
+ *
+ * @author Philip Helger
+ */
+public final class MapBasedWALDAOSegmentFuncTest
+{
+  private static final String FILENAME = MockMapBasedWALDAO.FILENAME;
+  private static final File BASE_DIR = new File ("target/dao-segment-test").getAbsoluteFile ();
+
+  @Rule
+  public final ScopeTestRule m_aRule = new ScopeTestRule ();
+
+  private static int _getSegment (final String sID, final int nSegmentCount)
+  {
+    return Math.floorMod (sID.hashCode (), nSegmentCount);
+  }
+
+  @Nonnull
+  private static File [] _getReferencedSegmentFiles (@Nonnull final File aDir)
+  {
+    final IMicroDocument aMainDoc = MicroReader.readMicroXML (new File (aDir, FILENAME));
+    assertNotNull (aMainDoc);
+    final IMicroElement eRoot = aMainDoc.getDocumentElement ();
+    final int nSegmentCount = Integer.parseInt (eRoot.getAttributeValue (AbstractMapBasedWALDAO.ATTR_SEGMENT_COUNT));
+    final File [] ret = new File [nSegmentCount];
+    eRoot.forAllChildElements (IMicroElement.filterName (AbstractMapBasedWALDAO.ELEMENT_SEGMENT), eSegment -> {
+      final int nIndex = Integer.parseInt (eSegment.getAttributeValue (AbstractMapBasedWALDAO.ATTR_INDEX));
+      ret[nIndex] = new File (aDir,
+                              FILENAME +
+                                    ".seg" +
+                                    nSegmentCount +
+                                    "." +
+                                    nIndex +
+                                    "." +
+                                    eSegment.getAttributeValue (AbstractMapBasedWALDAO.ATTR_GENERATION));
+    });
+    return ret;
+  }
+
+  @Test
+  public void testSegments () throws DAOException
+  {
+    FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    FileOperationManager.INSTANCE.createDirRecursiveIfNotExisting (BASE_DIR);
+    try
+    {
+      MockMapBasedWALDAO aDAO = new MockMapBasedWALDAO (BASE_DIR, 4);
+      assertEquals (4, aDAO.getSegmentCount ());
+      for (int i = 0; i < 20; ++i)
+        aDAO.create (new MockWALItem ("id" + i, "v" + i));
+
+      // The main file only references the segments
+      final IMicroDocument aMainDoc = MicroReader.readMicroXML (new File (BASE_DIR, FILENAME));
+      assertNotNull (aMainDoc);
+      assertEquals ("4", aMainDoc.getDocumentElement ().getAttributeValue (AbstractMapBasedWALDAO.ATTR_SEGMENT_COUNT));
+      assertEquals (0, aMainDoc.getDocumentElement ().getChildElementCount (IMicroElement.filterName (AbstractMapBasedWALDAO.ELEMENT_ITEM)));
+      final File [] aSegmentFiles = _getReferencedSegmentFiles (BASE_DIR);
+      for (int i = 0; i < 4; ++i)
+        assertTrue (aSegmentFiles[i].exists ());
+
+      // Only the changed segment is written to a new file, and the superseded
+      // file is deleted afterwards
+      final int nChangedSegment = _getSegment ("id5", 4);
+      aDAO.update (new MockWALItem ("id5", "new5"));
+      final File [] aNewSegmentFiles = _getReferencedSegmentFiles (BASE_DIR);
+      for (int i = 0; i < 4; ++i)
+      {
+        assertTrue (aNewSegmentFiles[i].exists ());
+        assertEquals (i != nChangedSegment, aNewSegmentFiles[i].equals (aSegmentFiles[i]));
+        assertEquals (i != nChangedSegment, aSegmentFiles[i].exists ());
+      }
+
+      // Write all segments again
+      for (int i = 0; i < 20; ++i)
+        if (i != 5)
+          aDAO.update (new MockWALItem ("id" + i, "w" + i));
+      aDAO.delete ("id7");
+
+      // Read again
+      aDAO = new MockMapBasedWALDAO (BASE_DIR, 4);
+      assertEquals (19, aDAO.size ());
+      assertEquals ("new5", aDAO.getValue ("id5"));
+      assertEquals ("w6", aDAO.getValue ("id6"));
+
+      // Change the number of segments
+      final File [] aSegmentFiles4 = _getReferencedSegmentFiles (BASE_DIR);
+      aDAO = new MockMapBasedWALDAO (BASE_DIR, 3);
+      assertEquals (19, aDAO.size ());
+      for (int i = 0; i < 4; ++i)
+        assertFalse (aSegmentFiles4[i].exists ());
+      final File [] aSegmentFiles3 = _getReferencedSegmentFiles (BASE_DIR);
+      assertEquals (3, aSegmentFiles3.length);
+      for (int i = 0; i < 3; ++i)
+        assertTrue (aSegmentFiles3[i].exists ());
+
+      // Disable segmentation
+      aDAO = new MockMapBasedWALDAO (BASE_DIR, 0);
+      assertEquals (19, aDAO.size ());
+      for (int i = 0; i < 3; ++i)
+        assertFalse (aSegmentFiles3[i].exists ());
+
+      aDAO = new MockMapBasedWALDAO (BASE_DIR, 0);
+      assertEquals (19, aDAO.size ());
+      assertEquals ("new5", aDAO.getValue ("id5"));
+    }
+    finally
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    }
+  }
+
+  @Test
+  public void testRecoveryAfterFailedMainWrite () throws DAOException
+  {
+    FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    FileOperationManager.INSTANCE.createDirRecursiveIfNotExisting (BASE_DIR);
+    try
+    {
+      final MockMapBasedWALDAO aDAO = new MockMapBasedWALDAO (BASE_DIR, 4);
+      for (int i = 0; i < 20; ++i)
+        aDAO.create (new MockWALItem ("id" + i, "v" + i));
+      final File [] aSegmentFiles = _getReferencedSegmentFiles (BASE_DIR);
+
+      // Only write the WAL
+      aDAO.setWaitingTime (Duration.ofHours (1));
+      aDAO.create (new MockWALItem ("new", "n"));
+      aDAO.update (new MockWALItem ("id5", "new5"));
+      assertTrue (new File (BASE_DIR, FILENAME + ".wal").exists ());
+
+      // The segments are written but writing the main file fails
+      aDAO.setFailMainWrite (true);
+      aDAO.writeToFileOnPendingChanges ();
+      assertTrue (aDAO.hasPendingChanges ());
+      assertTrue (new File (BASE_DIR, FILENAME + ".wal").exists ());
+      final File [] aStillSegmentFiles = _getReferencedSegmentFiles (BASE_DIR);
+      for (int i = 0; i < 4; ++i)
+      {
+        assertEquals (aSegmentFiles[i], aStillSegmentFiles[i]);
+        assertTrue (aSegmentFiles[i].exists ());
+      }
+
+      // Simulate a restart - the WAL is replayed onto the previous state
+      MockMapBasedWALDAO aDAO2 = new MockMapBasedWALDAO (BASE_DIR, 4);
+      assertEquals (21, aDAO2.size ());
+      assertEquals ("n", aDAO2.getValue ("new"));
+      assertEquals ("new5", aDAO2.getValue ("id5"));
+      assertFalse (new File (BASE_DIR, FILENAME + ".wal").exists ());
+
+      // The recovered state was written
+      aDAO2 = new MockMapBasedWALDAO (BASE_DIR, 4);
+      assertEquals (21, aDAO2.size ());
+      assertEquals ("n", aDAO2.getValue ("new"));
+      assertEquals ("new5", aDAO2.getValue ("id5"));
+    }
+    finally
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    }
+  }
+
+  @Test
+  public void testParallelRecovery () throws DAOException
+  {
+    FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    try
+    {
+      final ICommonsList <File> aDirs = new CommonsArrayList <> ();
+      for (int nDAO = 0; nDAO < 3; ++nDAO)
+      {
+        final File aDir = new File (BASE_DIR, "dao" + nDAO);
+        FileOperationManager.INSTANCE.createDirRecursiveIfNotExisting (aDir);
+        aDirs.add (aDir);
+
+        final MockMapBasedWALDAO aDAO = new MockMapBasedWALDAO (aDir, 8);
+        for (int i = 0; i < 100; ++i)
+          aDAO.create (new MockWALItem ("id" + i, nDAO + "-" + i));
+      }
+
+      // Read all DAOs in parallel, each parsing its segments in parallel
+      final DefaultDAOContainer aContainer = DefaultDAOContainer.createInParallel (aDirs.getAllMapped (x -> () -> new MockMapBasedWALDAO (x,
+                                                                                                                                8,
+                                                                                                                                true)),
+                                                                                   2);
+      final ICommonsList <IDAO> aDAOs = aContainer.getAllContainedDAOs ();
+      assertEquals (3, aDAOs.size ());
+      for (int nDAO = 0; nDAO < 3; ++nDAO)
+      {
+        final MockMapBasedWALDAO aDAO = (MockMapBasedWALDAO) aDAOs.get (nDAO);
+        assertTrue (aDAO.isParallelRecovery ());
+        assertEquals (100, aDAO.size ());
+        assertEquals (nDAO + "-42", aDAO.getValue ("id42"));
+      }
+    }
+    finally
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    }
+  }
+
+  @Test
+  public void testParallelWALRecovery () throws DAOException
+  {
+    FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    try
+    {
+      final ICommonsList <MockMapBasedWALDAO> aRecoveredDAOs = new CommonsArrayList <> ();
+      for (final boolean bParallel : new boolean [] { false, true })
+      {
+        final File aDir = new File (BASE_DIR, bParallel ? "parallel" : "sequential");
+        FileOperationManager.INSTANCE.createDirRecursiveIfNotExisting (aDir);
+
+        final MockMapBasedWALDAO aDAO = new MockMapBasedWALDAO (aDir, 4);
+        for (int i = 0; i < 50; ++i)
+          aDAO.create (new MockWALItem ("id" + i, "v" + i));
+
+        // Only write the WAL
+        aDAO.setWaitingTime (Duration.ofHours (1));
+        for (int i = 50; i < 150; ++i)
+          aDAO.create (new MockWALItem ("id" + i, "v" + i));
+        for (int i = 0; i < 150; i += 3)
+          aDAO.update (new MockWALItem ("id" + i, "u" + i));
+        for (int i = 0; i < 150; i += 7)
+          aDAO.delete ("id" + i);
+        assertTrue (new File (aDir, FILENAME + ".wal").exists ());
+
+        // Simulate a restart
+        final MockMapBasedWALDAO aDAO2 = new MockMapBasedWALDAO (aDir, 4, bParallel);
+        assertEquals (bParallel, aDAO2.isParallelRecovery ());
+        // Enough elements for the parallel conversion
+        assertTrue (aDAO2.getWALConversionCount () >= AbstractWALDAO.PARALLEL_RECOVERY_MIN_ELEMENTS);
+        assertFalse (new File (aDir, FILENAME + ".wal").exists ());
+        aRecoveredDAOs.add (aDAO2);
+      }
+
+      // Both recoveries result in the same state
+      final MockMapBasedWALDAO aSequential = aRecoveredDAOs.get (0);
+      final MockMapBasedWALDAO aParallel = aRecoveredDAOs.get (1);
+      assertEquals (128, aSequential.size ());
+      assertEquals ("u3", aSequential.getValue ("id3"));
+      assertEquals ("v100", aSequential.getValue ("id100"));
+      assertNull (aSequential.getValue ("id7"));
+      assertEquals (aSequential.size (), aParallel.size ());
+      for (int i = 0; i < 150; ++i)
+        assertEquals (aSequential.getValue ("id" + i), aParallel.getValue ("id" + i));
+    }
+    finally
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    }
+  }
+}
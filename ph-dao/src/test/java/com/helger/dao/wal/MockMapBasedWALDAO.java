@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.commons.io.relative.FileRelativeIO;
+import com.helger.dao.DAOException;
+import com.helger.xml.microdom.IMicroDocument;
+import com.helger.xml.microdom.convert.MicroTypeConverterRegistry;
+
+/**
+ * Mock DAO based on {@link AbstractMapBasedWALDAO} that writes directly by
+ * default.
+ *
+ * @author Philip Helger
+ */
+final class MockMapBasedWALDAO extends AbstractMapBasedWALDAO <MockWALItem, MockWALItem>
+{
+  static final String FILENAME = "mock-dao.xml";
+
+  static
+  {
+    MicroTypeConverterRegistry.getInstance ().registerMicroElementTypeConverter (MockWALItem.class, new MockWALItemMicroTypeConverter ());
+  }
+
+  private volatile boolean m_bFailMainWrite = false;
+  private final AtomicInteger m_aWALConversionCount = new AtomicInteger (0);
+
+  MockMapBasedWALDAO (@Nonnull final File aBaseDir) throws DAOException
+  {
+    this (aBaseDir, 0, false);
+  }
+
+  MockMapBasedWALDAO (@Nonnull final File aBaseDir, @Nonnegative final int nSegmentCount) throws DAOException
+  {
+    this (aBaseDir, nSegmentCount, false);
+  }
+
+  MockMapBasedWALDAO (@Nonnull final File aBaseDir,
+                      @Nonnegative final int nSegmentCount,
+                      final boolean bParallelRecovery) throws DAOException
+  {
+    super (MockWALItem.class,
+           new FileRelativeIO (aBaseDir),
+           FILENAME,
+           new InitSettings <MockWALItem> ().setDoInitialRead (false)
+                                            .setSegmentCount (nSegmentCount)
+                                            .setParallelRecovery (bParallelRecovery));
+    // Write directly
+    setWaitingTime (Duration.ZERO);
+    initialRead ();
+  }
+
+  void setFailMainWrite (final boolean bFailMainWrite)
+  {
+    m_bFailMainWrite = bFailMainWrite;
+  }
+
+  void create (@Nonnull final MockWALItem aItem)
+  {
+    m_aRWLock.writeLocked ( () -> {
+      internalCreateItem (aItem);
+    });
+  }
+
+  void update (@Nonnull final MockWALItem aItem)
+  {
+    m_aRWLock.writeLocked ( () -> internalUpdateItem (aItem));
+  }
+
+  void delete (@Nonnull final String sID)
+  {
+    m_aRWLock.writeLocked ( () -> {
+      internalDeleteItem (sID);
+    });
+  }
+
+  @Nullable
+  String getValue (@Nullable final String sID)
+  {
+    final MockWALItem aItem = getOfID (sID);
+    return aItem == null ? null : aItem.getValue ();
+  }
+
+  /**
+   * @return The number of WAL elements converted to native objects upon
+   *         recovery.
+   */
+  int getWALConversionCount ()
+  {
+    return m_aWALConversionCount.get ();
+  }
+
+  @Override
+  protected MockWALItem convertWALStringToNative (@Nonnull final String sElement)
+  {
+    // Called concurrently in case of parallel recovery
+    m_aWALConversionCount.incrementAndGet ();
+    return super.convertWALStringToNative (sElement);
+  }
+
+  @Override
+  protected void modifyWriteData (@Nonnull final IMicroDocument aDoc)
+  {
+    super.modifyWriteData (aDoc);
+    if (m_bFailMainWrite)
+      throw new IllegalStateException ("Simulated failure writing the main file");
+  }
+}
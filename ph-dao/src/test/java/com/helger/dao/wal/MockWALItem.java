@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.commons.equals.EqualsHelper;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.id.IHasID;
+
+/**
+ * Mock item for {@link MockMapBasedWALDAO}.
+ *
+ * @author Philip Helger
+ */
+final class MockWALItem implements IHasID <String>
+{
+  private final String m_sID;
+  private final String m_sValue;
+
+  MockWALItem (@Nonnull final String sID, @Nullable final String sValue)
+  {
+    m_sID = sID;
+    m_sValue = sValue;
+  }
+
+  @Nonnull
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  @Nullable
+  public String getValue ()
+  {
+    return m_sValue;
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final MockWALItem rhs = (MockWALItem) o;
+    return m_sID.equals (rhs.m_sID) && EqualsHelper.equals (m_sValue, rhs.m_sValue);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_sID).append (m_sValue).getHashCode ();
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.xml.microdom.IMicroElement;
+import com.helger.xml.microdom.MicroElement;
+import com.helger.xml.microdom.convert.IMicroTypeConverter;
+
+/**
+ * Micro type converter for {@link MockWALItem}.
+ *
+ * @author Philip Helger
+ */
+final class MockWALItemMicroTypeConverter implements IMicroTypeConverter <MockWALItem>
+{
+  @Nonnull
+  public IMicroElement convertToMicroElement (@Nonnull final MockWALItem aObject,
+                                              @Nullable final String sNamespaceURI,
+                                              @Nonnull final String sTagName)
+  {
+    return new MicroElement (sNamespaceURI, sTagName).setAttribute ("id", aObject.getID ()).setAttribute ("value", aObject.getValue ());
+  }
+
+  @Nonnull
+  public MockWALItem convertToNative (@Nonnull final IMicroElement aElement)
+  {
+    return new MockWALItem (aElement.getAttributeValue ("id"), aElement.getAttributeValue ("value"));
+  }
+}
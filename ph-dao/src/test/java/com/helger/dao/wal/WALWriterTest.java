@@ -0,0 +1,332 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.dao.wal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.io.file.FileOperationManager;
+
+/**
+ * Test class for class {@link WALWriter}.
+ *
+ * @author Philip Helger
+ */
+public final class WALWriterTest
+{
+  /**
+   * A file channel that can be configured to fail after writing a part of the
+   * data, and to fail truncating.
+   */
+  private static final class MockFailingFileChannel extends FileChannel
+  {
+    private final FileChannel m_aDelegate;
+    private boolean m_bFailWrite = false;
+    private boolean m_bFailTruncate = false;
+
+    MockFailingFileChannel (@Nonnull final FileChannel aDelegate)
+    {
+      m_aDelegate = aDelegate;
+    }
+
+    @Override
+    public int write (final ByteBuffer aSrc) throws IOException
+    {
+      if (!m_bFailWrite)
+        return m_aDelegate.write (aSrc);
+
+      // Write a few bytes and fail afterwards
+      final ByteBuffer aPart = aSrc.duplicate ();
+      aPart.limit (aPart.position () + Math.min (3, aPart.remaining ()));
+      final int ret = m_aDelegate.write (aPart);
+      aSrc.position (aSrc.position () + ret);
+      throw new IOException ("Simulated write error");
+    }
+
+    @Override
+    public FileChannel truncate (final long nSize) throws IOException
+    {
+      if (m_bFailTruncate)
+        throw new IOException ("Simulated truncate error");
+      m_aDelegate.truncate (nSize);
+      return this;
+    }
+
+    @Override
+    public int read (final ByteBuffer aDst) throws IOException
+    {
+      return m_aDelegate.read (aDst);
+    }
+
+    @Override
+    public long read (final ByteBuffer [] aDsts, final int nOffset, final int nLength) throws IOException
+    {
+      return m_aDelegate.read (aDsts, nOffset, nLength);
+    }
+
+    @Override
+    public long write (final ByteBuffer [] aSrcs, final int nOffset, final int nLength) throws IOException
+    {
+      throw new UnsupportedOperationException ();
+    }
+
+    @Override
+    public long position () throws IOException
+    {
+      return m_aDelegate.position ();
+    }
+
+    @Override
+    public FileChannel position (final long nNewPosition) throws IOException
+    {
+      m_aDelegate.position (nNewPosition);
+      return this;
+    }
+
+    @Override
+    public long size () throws IOException
+    {
+      return m_aDelegate.size ();
+    }
+
+    @Override
+    public void force (final boolean bMetaData) throws IOException
+    {
+      m_aDelegate.force (bMetaData);
+    }
+
+    @Override
+    public long transferTo (final long nPosition, final long nCount, final WritableByteChannel aTarget) throws IOException
+    {
+      return m_aDelegate.transferTo (nPosition, nCount, aTarget);
+    }
+
+    @Override
+    public long transferFrom (final ReadableByteChannel aSrc, final long nPosition, final long nCount) throws IOException
+    {
+      throw new UnsupportedOperationException ();
+    }
+
+    @Override
+    public int read (final ByteBuffer aDst, final long nPosition) throws IOException
+    {
+      return m_aDelegate.read (aDst, nPosition);
+    }
+
+    @Override
+    public int write (final ByteBuffer aSrc, final long nPosition) throws IOException
+    {
+      throw new UnsupportedOperationException ();
+    }
+
+    @Override
+    public MappedByteBuffer map (final MapMode eMode, final long nPosition, final long nSize) throws IOException
+    {
+      throw new UnsupportedOperationException ();
+    }
+
+    @Override
+    public FileLock lock (final long nPosition, final long nSize, final boolean bShared) throws IOException
+    {
+      throw new UnsupportedOperationException ();
+    }
+
+    @Override
+    public FileLock tryLock (final long nPosition, final long nSize, final boolean bShared) throws IOException
+    {
+      throw new UnsupportedOperationException ();
+    }
+
+    @Override
+    protected void implCloseChannel () throws IOException
+    {
+      m_aDelegate.close ();
+    }
+  }
+
+  private static final File BASE_DIR = new File ("target/wal-writer-test").getAbsoluteFile ();
+
+  @Nonnull
+  private static File _createEmptyFile (@Nonnull final String sName)
+  {
+    FileOperationManager.INSTANCE.createDirRecursiveIfNotExisting (BASE_DIR);
+    final File aFile = new File (BASE_DIR, sName);
+    FileOperationManager.INSTANCE.deleteFileIfExisting (aFile);
+    return aFile;
+  }
+
+  private static void _append (@Nonnull final WALWriter aWriter, @Nonnull final String s)
+  {
+    final byte [] aBytes = s.getBytes (StandardCharsets.UTF_8);
+    aWriter.append (aBytes, 0, aBytes.length);
+  }
+
+  @Nonnull
+  private static String _read (@Nonnull final File aFile) throws IOException
+  {
+    return new String (Files.readAllBytes (aFile.toPath ()), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testGroupedWrite () throws IOException
+  {
+    final File aFile = _createEmptyFile ("grouped.wal");
+    try
+    {
+      try (final WALWriter aWriter = new WALWriter (aFile, EWALDurability.NONE, Duration.ZERO))
+      {
+        // Nothing is written until writePending is called
+        _append (aWriter, "abc");
+        _append (aWriter, "def");
+        assertEquals (6, aWriter.getPendingBytes ());
+        assertFalse (aFile.exists ());
+
+        // One write for all records
+        aWriter.writePending ();
+        assertEquals (0, aWriter.getPendingBytes ());
+        assertEquals (6, aWriter.getFileSize ());
+        assertEquals ("abcdef", _read (aFile));
+
+        // Pending records are written upon close
+        _append (aWriter, "g");
+        assertEquals (7, aWriter.getFileSize ());
+      }
+      assertEquals ("abcdefg", _read (aFile));
+
+      // A new writer appends to the existing file
+      try (final WALWriter aWriter = new WALWriter (aFile, EWALDurability.NONE, Duration.ZERO))
+      {
+        _append (aWriter, "h");
+        aWriter.writePending ();
+        assertEquals (8, aWriter.getFileSize ());
+      }
+      assertEquals ("abcdefgh", _read (aFile));
+    }
+    finally
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    }
+  }
+
+  @Test
+  public void testDurability () throws IOException
+  {
+    final File aFile = _createEmptyFile ("durability.wal");
+    try
+    {
+      for (final EWALDurability eDurability : new EWALDurability [] { EWALDurability.NONE, EWALDurability.FORCE_PER_BATCH })
+        try (final WALWriter aWriter = new WALWriter (aFile, eDurability, Duration.ofHours (1)))
+        {
+          _append (aWriter, "a");
+          aWriter.writePending ();
+          assertFalse (aWriter.isForceOutstanding ());
+        }
+
+      // The interval did not yet elapse
+      try (final WALWriter aWriter = new WALWriter (aFile, EWALDurability.FORCE_PER_INTERVAL, Duration.ofHours (1)))
+      {
+        _append (aWriter, "b");
+        aWriter.writePending ();
+        assertTrue (aWriter.isForceOutstanding ());
+        aWriter.sync ();
+        assertFalse (aWriter.isForceOutstanding ());
+      }
+
+      // The interval elapsed
+      try (final WALWriter aWriter = new WALWriter (aFile, EWALDurability.FORCE_PER_INTERVAL, Duration.ZERO))
+      {
+        _append (aWriter, "c");
+        aWriter.writePending ();
+        assertFalse (aWriter.isForceOutstanding ());
+      }
+      assertEquals ("aabc", _read (aFile));
+    }
+    finally
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+    }
+  }
+
+  @Test
+  public void testPartialWrite () throws IOException
+  {
+    for (final boolean bFailTruncate : new boolean [] { false, true })
+    {
+      final File aFile = _createEmptyFile ("partial.wal");
+      try
+      {
+        Files.write (aFile.toPath (), "old".getBytes (StandardCharsets.UTF_8));
+        final MockFailingFileChannel [] aChannel = new MockFailingFileChannel [1];
+        try (final WALWriter aWriter = new WALWriter (aFile, EWALDurability.NONE, Duration.ZERO, f -> {
+          aChannel[0] = new MockFailingFileChannel (FileChannel.open (f.toPath (), StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+          return aChannel[0];
+        }))
+        {
+          _append (aWriter, "0123456789");
+          aWriter.writePending ();
+          assertEquals ("old0123456789", _read (aFile));
+
+          aChannel[0].m_bFailWrite = true;
+          aChannel[0].m_bFailTruncate = bFailTruncate;
+          _append (aWriter, "abcdef");
+          try
+          {
+            aWriter.writePending ();
+            fail ();
+          }
+          catch (final IOException ex)
+          {
+            // expected
+          }
+          // The partial record was removed, unless truncation failed
+          assertEquals (bFailTruncate ? "old0123456789abc" : "old0123456789", _read (aFile));
+
+          // Write again
+          aChannel[0].m_bFailWrite = false;
+          aChannel[0].m_bFailTruncate = false;
+          aWriter.writePending ();
+          assertEquals (19, aWriter.getFileSize ());
+        }
+        assertArrayEquals ("old0123456789abcdef".getBytes (StandardCharsets.UTF_8), Files.readAllBytes (aFile.toPath ()));
+      }
+      finally
+      {
+        FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (BASE_DIR);
+      }
+    }
+  }
+}
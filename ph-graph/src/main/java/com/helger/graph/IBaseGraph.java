@@ -28,6 +28,7 @@ import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.collection.impl.ICommonsOrderedSet;
 import com.helger.commons.state.IClearable;
 import com.helger.matrix.Matrix;
+import com.helger.matrix.SparseMatrix;
 
 /**
  * Base interface for a read-only graph.
@@ -150,4 +151,18 @@ public interface IBaseGraph <NODETYPE extends IBaseGraphNode <NODETYPE, RELATION
    */
   @Nonnull
   Matrix createIncidenceMatrix ();
+
+  /**
+   * Create the incidence matrix in sparse form. It has the same content as
+   * {@link #createIncidenceMatrix()} but only requires memory proportional to
+   * the number of relations.
+   *
+   * @return A new sparse incidence matrix (Number of rows and columns is equal
+   *         to the number of nodes).
+   * @throws IllegalArgumentException
+   *         If this graph contains no node
+   * @since 11.0.1
+   */
+  @Nonnull
+  SparseMatrix createSparseIncidenceMatrix ();
 }
@@ -25,7 +25,9 @@ import javax.annotation.concurrent.NotThreadSafe;
 
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.collection.impl.ICommonsOrderedSet;
 import com.helger.commons.hashcode.HashCodeGenerator;
@@ -102,6 +104,22 @@ public abstract class AbstractBaseGraph <NODETYPE extends IMutableBaseGraphNode
     m_aNodes.values ().forEach (aConsumer);
   }
 
+  /**
+   * @return A map from each node ID to the index of the node in iteration
+   *         order. These indices are used as rows and columns of the incidence
+   *         matrices.
+   * @since 11.0.1
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  protected final ICommonsMap <String, Integer> getNodeIndexMap ()
+  {
+    final ICommonsMap <String, Integer> ret = new CommonsHashMap <> (m_aNodes.size ());
+    for (final String sNodeID : m_aNodes.keySet ())
+      ret.put (sNodeID, Integer.valueOf (ret.size ()));
+    return ret;
+  }
+
   @Override
   public boolean equals (final Object o)
   {
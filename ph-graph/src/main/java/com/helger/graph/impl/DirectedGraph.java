@@ -29,6 +29,7 @@ import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.CommonsLinkedHashMap;
 import com.helger.commons.collection.impl.CommonsLinkedHashSet;
 import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.collection.impl.ICommonsOrderedSet;
 import com.helger.commons.collection.impl.ICommonsSet;
@@ -40,6 +41,7 @@ import com.helger.graph.IMutableDirectedGraphObjectFactory;
 import com.helger.graph.IMutableDirectedGraphRelation;
 import com.helger.graph.iterate.DirectedGraphIteratorForward;
 import com.helger.matrix.Matrix;
+import com.helger.matrix.SparseMatrix;
 
 /**
  * A simple graph object that bidirectionally links graph nodes.
@@ -307,22 +309,33 @@ public class DirectedGraph extends AbstractBaseGraph <IMutableDirectedGraphNode,
 
   @Nonnull
   public Matrix createIncidenceMatrix ()
+  {
+    return createSparseIncidenceMatrix ().toMatrix ();
+  }
+
+  @Nonnull
+  public SparseMatrix createSparseIncidenceMatrix ()
   {
     final int nNodeCount = getNodeCount ();
-    final Matrix ret = new Matrix (nNodeCount, nNodeCount, 0);
-    final IMutableDirectedGraphNode [] aNodes = m_aNodes.values ().toArray (new IMutableDirectedGraphNode [nNodeCount]);
-    for (int nRow = 0; nRow < nNodeCount; ++nRow)
+    final SparseMatrix.Builder aBuilder = SparseMatrix.builder (nNodeCount, nNodeCount);
+    final ICommonsMap <String, Integer> aNodeIndex = getNodeIndexMap ();
+    int nRow = 0;
+    // Process the nodes in order, so that for relations in both directions
+    // the one from the later node wins
+    for (final IMutableDirectedGraphNode aNode : m_aNodes.values ())
     {
-      final IMutableDirectedGraphNode aNodeRow = aNodes[nRow];
-      for (int nCol = 0; nCol < nNodeCount; ++nCol)
-        if (nRow != nCol)
-          if (aNodeRow.isToNode (aNodes[nCol]))
-          {
-            ret.set (nRow, nCol, 1);
-            ret.set (nCol, nRow, -1);
-          }
+      final int nFrom = nRow;
+      aNode.forEachOutgoingRelation (aRelation -> {
+        final Integer aCol = aNodeIndex.get (aRelation.getToID ());
+        if (aCol != null && aCol.intValue () != nFrom)
+        {
+          aBuilder.set (nFrom, aCol.intValue (), 1);
+          aBuilder.set (aCol.intValue (), nFrom, -1);
+        }
+      });
+      nRow++;
     }
-    return ret;
+    return aBuilder.build ();
   }
 
   @Override
@@ -28,6 +28,7 @@ import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.CommonsLinkedHashMap;
 import com.helger.commons.collection.impl.CommonsLinkedHashSet;
 import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.collection.impl.ICommonsOrderedSet;
 import com.helger.commons.state.EChange;
@@ -38,6 +39,7 @@ import com.helger.graph.IMutableGraphObjectFactory;
 import com.helger.graph.IMutableGraphRelation;
 import com.helger.graph.iterate.GraphIterator;
 import com.helger.matrix.Matrix;
+import com.helger.matrix.SparseMatrix;
 
 /**
  * A simple graph object that bidirectionally links graph nodes.
@@ -265,22 +267,31 @@ public class Graph extends AbstractBaseGraph <IMutableGraphNode, IMutableGraphRe
 
   @Nonnull
   public Matrix createIncidenceMatrix ()
+  {
+    return createSparseIncidenceMatrix ().toMatrix ();
+  }
+
+  @Nonnull
+  public SparseMatrix createSparseIncidenceMatrix ()
   {
     final int nNodeCount = getNodeCount ();
-    final Matrix ret = new Matrix (nNodeCount, nNodeCount, 0);
-    final IMutableGraphNode [] aNodes = m_aNodes.values ().toArray (new IMutableGraphNode [nNodeCount]);
-    for (int nRow = 0; nRow < nNodeCount; ++nRow)
+    final SparseMatrix.Builder aBuilder = SparseMatrix.builder (nNodeCount, nNodeCount);
+    final ICommonsMap <String, Integer> aNodeIndex = getNodeIndexMap ();
+    int nRow = 0;
+    for (final IMutableGraphNode aNode : m_aNodes.values ())
     {
-      final IMutableGraphNode aNodeRow = aNodes[nRow];
-      for (int nCol = 0; nCol < nNodeCount; ++nCol)
-        if (nRow != nCol)
-          if (aNodeRow.isConnectedWith (aNodes[nCol]))
-          {
-            ret.set (nRow, nCol, 1);
-            ret.set (nCol, nRow, 1);
-          }
+      for (final String sRelatedNodeID : aNode.getAllRelatedNodeIDs ())
+      {
+        final Integer aCol = aNodeIndex.get (sRelatedNodeID);
+        if (aCol != null && aCol.intValue () != nRow)
+        {
+          aBuilder.set (nRow, aCol.intValue (), 1);
+          aBuilder.set (aCol.intValue (), nRow, 1);
+        }
+      }
+      nRow++;
     }
-    return ret;
+    return aBuilder.build ();
   }
 
   @Override
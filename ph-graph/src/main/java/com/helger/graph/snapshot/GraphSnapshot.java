@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.snapshot;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.lang.GenericReflection;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.graph.IBaseGraph;
+import com.helger.graph.IBaseGraphNode;
+import com.helger.graph.IBaseGraphRelation;
+import com.helger.graph.IDirectedGraphNode;
+import com.helger.matrix.SparseMatrix;
+
+/**
+ * An immutable, compact snapshot of a graph. All nodes are mapped to
+ * consecutive int indices (in the iteration order of the source graph) and all
+ * outgoing arcs are stored in "compressed sparse row" (CSR) form in primitive
+ * arrays. For directed graphs each relation results in exactly one arc from
+ * the "from" node to the "to" node, for undirected graphs each relation
+ * results in one arc per direction. Optionally a non-negative int weight is
+ * stored per arc.<br>
+ * Changes to the source graph after the snapshot was created are not
+ * reflected.
+ *
+ * @author Philip Helger
+ * @param <NODETYPE>
+ *        Node class
+ * @since 11.0.1
+ */
+@Immutable
+public final class GraphSnapshot <NODETYPE extends IBaseGraphNode <NODETYPE, ?>>
+{
+  /** The weight of each arc in an unweighted snapshot */
+  public static final int DEFAULT_ARC_WEIGHT = 1;
+
+  private final boolean m_bDirected;
+  private final Object [] m_aNodes;
+  private final ICommonsMap <String, Integer> m_aNodeIndex;
+  // Arcs of node i are in [m_aArcOffsets[i], m_aArcOffsets[i+1])
+  final int [] m_aArcOffsets;
+  final int [] m_aArcTargets;
+  // null for unweighted snapshots
+  final int [] m_aArcWeights;
+
+  private GraphSnapshot (final boolean bDirected,
+                         @Nonnull final Object [] aNodes,
+                         @Nonnull final ICommonsMap <String, Integer> aNodeIndex,
+                         @Nonnull final int [] aArcOffsets,
+                         @Nonnull final int [] aArcTargets,
+                         @Nullable final int [] aArcWeights)
+  {
+    m_bDirected = bDirected;
+    m_aNodes = aNodes;
+    m_aNodeIndex = aNodeIndex;
+    m_aArcOffsets = aArcOffsets;
+    m_aArcTargets = aArcTargets;
+    m_aArcWeights = aArcWeights;
+  }
+
+  /**
+   * @return <code>true</code> if the source graph was a directed graph,
+   *         <code>false</code> if not.
+   */
+  public boolean isDirected ()
+  {
+    return m_bDirected;
+  }
+
+  /**
+   * @return <code>true</code> if this snapshot contains arc weights,
+   *         <code>false</code> if every arc has the weight
+   *         {@value #DEFAULT_ARC_WEIGHT}.
+   */
+  public boolean isWeighted ()
+  {
+    return m_aArcWeights != null;
+  }
+
+  /**
+   * @return The number of nodes in this snapshot. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getNodeCount ()
+  {
+    return m_aNodes.length;
+  }
+
+  /**
+   * @return The number of arcs in this snapshot. For undirected graphs this is
+   *         usually twice the number of relations. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getArcCount ()
+  {
+    return m_aArcTargets.length;
+  }
+
+  /**
+   * Get the index of the node with the provided ID.
+   *
+   * @param sNodeID
+   *        The node ID to search. May be <code>null</code>.
+   * @return -1 if no such node is contained.
+   */
+  @CheckForSigned
+  public int getNodeIndex (@Nullable final String sNodeID)
+  {
+    final Integer aIndex = m_aNodeIndex.get (sNodeID);
+    return aIndex == null ? -1 : aIndex.intValue ();
+  }
+
+  /**
+   * @param nNodeIndex
+   *        Node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The source graph node with the provided index. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public NODETYPE getNode (@Nonnegative final int nNodeIndex)
+  {
+    return GenericReflection.uncheckedCast (m_aNodes[nNodeIndex]);
+  }
+
+  /**
+   * @param nNodeIndex
+   *        Node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The index of the first outgoing arc of the node.
+   */
+  @Nonnegative
+  public int getArcStart (@Nonnegative final int nNodeIndex)
+  {
+    return m_aArcOffsets[nNodeIndex];
+  }
+
+  /**
+   * @param nNodeIndex
+   *        Node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The index after the last outgoing arc of the node.
+   */
+  @Nonnegative
+  public int getArcEnd (@Nonnegative final int nNodeIndex)
+  {
+    return m_aArcOffsets[nNodeIndex + 1];
+  }
+
+  /**
+   * @param nNodeIndex
+   *        Node index. Must be &ge; 0 and &lt; {@link #getNodeCount()}.
+   * @return The number of outgoing arcs of the node.
+   */
+  @Nonnegative
+  public int getOutDegree (@Nonnegative final int nNodeIndex)
+  {
+    return m_aArcOffsets[nNodeIndex + 1] - m_aArcOffsets[nNodeIndex];
+  }
+
+  /**
+   * @param nArcIndex
+   *        Arc index. Must be &ge; 0 and &lt; {@link #getArcCount()}.
+   * @return The index of the node the arc points to.
+   */
+  @Nonnegative
+  public int getArcTarget (@Nonnegative final int nArcIndex)
+  {
+    return m_aArcTargets[nArcIndex];
+  }
+
+  /**
+   * @param nArcIndex
+   *        Arc index. Must be &ge; 0 and &lt; {@link #getArcCount()}.
+   * @return The weight of the arc. Always {@value #DEFAULT_ARC_WEIGHT} for
+   *         unweighted snapshots.
+   */
+  @Nonnegative
+  public int getArcWeight (@Nonnegative final int nArcIndex)
+  {
+    return m_aArcWeights == null ? DEFAULT_ARC_WEIGHT : m_aArcWeights[nArcIndex];
+  }
+
+  /**
+   * Create the sparse adjacency matrix of this snapshot. Rows and columns use
+   * the node indices. The element at (i, j) is the sum of the weights of all
+   * arcs from node i to node j, so it is symmetric for undirected graphs.
+   *
+   * @return A new sparse matrix with {@link #getNodeCount()} rows and columns.
+   * @throws IllegalArgumentException
+   *         If this snapshot contains no node
+   */
+  @Nonnull
+  public SparseMatrix createAdjacencyMatrix ()
+  {
+    final int nNodeCount = getNodeCount ();
+    final SparseMatrix.Builder aBuilder = SparseMatrix.builder (nNodeCount, nNodeCount);
+    for (int nNode = 0; nNode < nNodeCount; ++nNode)
+    {
+      final int nEnd = m_aArcOffsets[nNode + 1];
+      for (int nArc = m_aArcOffsets[nNode]; nArc < nEnd; ++nArc)
+        aBuilder.add (nNode, m_aArcTargets[nArc], getArcWeight (nArc));
+    }
+    return aBuilder.build ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Directed", m_bDirected)
+                                       .append ("Weighted", isWeighted ())
+                                       .append ("NodeCount", getNodeCount ())
+                                       .append ("ArcCount", getArcCount ())
+                                       .getToString ();
+  }
+
+  private static final class Builder
+  {
+    private int [] m_aTargets;
+    private int [] m_aWeights;
+    private int m_nCount = 0;
+
+    Builder (@Nonnegative final int nInitialCapacity, final boolean bWeighted)
+    {
+      final int nCapacity = Math.max (nInitialCapacity, 16);
+      m_aTargets = new int [nCapacity];
+      m_aWeights = bWeighted ? new int [nCapacity] : null;
+    }
+
+    void add (final int nTarget, final int nWeight)
+    {
+      if (m_nCount == m_aTargets.length)
+      {
+        final int nNewCapacity = m_nCount * 2;
+        if (nNewCapacity < 0)
+          throw new IllegalStateException ("Too many arcs for a graph snapshot");
+        m_aTargets = Arrays.copyOf (m_aTargets, nNewCapacity);
+        if (m_aWeights != null)
+          m_aWeights = Arrays.copyOf (m_aWeights, nNewCapacity);
+      }
+      m_aTargets[m_nCount] = nTarget;
+      if (m_aWeights != null)
+        m_aWeights[m_nCount] = nWeight;
+      m_nCount++;
+    }
+  }
+
+  @Nonnull
+  private static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> GraphSnapshot <N> _create (@Nonnull final IBaseGraph <N, R> aGraph,
+                                                                                                                 @Nullable final ToIntFunction <? super R> aRelationCostProvider)
+  {
+    ValueEnforcer.notNull (aGraph, "Graph");
+
+    final Object [] aNodes = aGraph.getAllNodes ().copyOfValues ().toArray ();
+    final int nNodes = aNodes.length;
+    final ICommonsMap <String, Integer> aNodeIndex = new CommonsHashMap <> (nNodes);
+    for (int i = 0; i < nNodes; ++i)
+      aNodeIndex.put (GenericReflection.<Object, N> uncheckedCast (aNodes[i]).getID (), Integer.valueOf (i));
+
+    final boolean bDirected = nNodes > 0 && aNodes[0] instanceof IDirectedGraphNode <?, ?>;
+    final int [] aOffsets = new int [nNodes + 1];
+    final Builder aBuilder = new Builder (nNodes * 2, aRelationCostProvider != null);
+    for (int i = 0; i < nNodes; ++i)
+    {
+      final N aNode = GenericReflection.uncheckedCast (aNodes[i]);
+      final String sNodeID = aNode.getID ();
+      if (bDirected)
+      {
+        ((IDirectedGraphNode <?, ?>) aNode).forEachOutgoingRelation (aRel -> {
+          final int nTarget = aNodeIndex.get (aRel.getToID ()).intValue ();
+          aBuilder.add (nTarget, _getWeight (aRelationCostProvider, GenericReflection.uncheckedCast (aRel)));
+        });
+      }
+      else
+      {
+        aNode.forEachRelation (aRel -> {
+          int nTarget = -1;
+          for (final String sConnectedID : aRel.getAllConnectedNodeIDs ())
+            if (!sConnectedID.equals (sNodeID))
+            {
+              nTarget = aNodeIndex.get (sConnectedID).intValue ();
+              break;
+            }
+          if (nTarget < 0)
+          {
+            // Self-reference
+            nTarget = aNodeIndex.get (sNodeID).intValue ();
+          }
+          aBuilder.add (nTarget, _getWeight (aRelationCostProvider, aRel));
+        });
+      }
+      aOffsets[i + 1] = aBuilder.m_nCount;
+    }
+
+    final int nArcs = aBuilder.m_nCount;
+    return new GraphSnapshot <> (bDirected,
+                                 aNodes,
+                                 aNodeIndex,
+                                 aOffsets,
+                                 Arrays.copyOf (aBuilder.m_aTargets, nArcs),
+                                 aBuilder.m_aWeights == null ? null : Arrays.copyOf (aBuilder.m_aWeights, nArcs));
+  }
+
+  private static <R> int _getWeight (@Nullable final ToIntFunction <? super R> aRelationCostProvider, @Nonnull final R aRelation)
+  {
+    if (aRelationCostProvider == null)
+      return DEFAULT_ARC_WEIGHT;
+    final int ret = aRelationCostProvider.applyAsInt (aRelation);
+    if (ret < 0)
+      throw new IllegalArgumentException ("The relation cost provider returned the negative weight " + ret + " for " + aRelation);
+    return ret;
+  }
+
+  /**
+   * Create an unweighted snapshot of the provided graph. Every arc has the
+   * weight {@value #DEFAULT_ARC_WEIGHT}.
+   *
+   * @param aGraph
+   *        The graph to create the snapshot from. May not be <code>null</code>.
+   * @return The new snapshot and never <code>null</code>.
+   * @param <N>
+   *        Node class
+   * @param <R>
+   *        Relation class
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> GraphSnapshot <N> create (@Nonnull final IBaseGraph <N, R> aGraph)
+  {
+    return _create (aGraph, null);
+  }
+
+  /**
+   * Create a weighted snapshot of the provided graph. The weight of each
+   * relation is determined exactly once.
+   *
+   * @param aGraph
+   *        The graph to create the snapshot from. May not be <code>null</code>.
+   * @param aRelationCostProvider
+   *        The function to determine the weight of a relation. The returned
+   *        value must be &ge; 0. May not be <code>null</code>.
+   * @return The new snapshot and never <code>null</code>.
+   * @param <N>
+   *        Node class
+   * @param <R>
+   *        Relation class
+   * @throws IllegalArgumentException
+   *         If a negative weight is returned
+   */
+  @Nonnull
+  public static <N extends IBaseGraphNode <N, R>, R extends IBaseGraphRelation <N, R>> GraphSnapshot <N> create (@Nonnull final IBaseGraph <N, R> aGraph,
+                                                                                                                @Nonnull final ToIntFunction <? super R> aRelationCostProvider)
+  {
+    ValueEnforcer.notNull (aRelationCostProvider, "RelationCostProvider");
+    return _create (aGraph, aRelationCostProvider);
+  }
+}
@@ -0,0 +1,565 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.snapshot;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+
+/**
+ * Graph algorithms working on a {@link GraphSnapshot}. All algorithms work on
+ * primitive arrays only and process large graphs in parallel in the
+ * {@link ForkJoinPool#commonPool() common fork/join pool}. Small inputs are
+ * processed in the calling thread. All results are deterministic and
+ * independent of the number of threads used.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@Immutable
+public final class GraphSnapshotHelper
+{
+  /**
+   * The number of nodes up to which a chunk of work is processed in a single
+   * task.
+   */
+  public static final int PARALLEL_THRESHOLD = 4096;
+
+  /**
+   * A simple growable int array.
+   */
+  private static final class IntList
+  {
+    private int [] m_aData;
+    private int m_nSize = 0;
+
+    IntList (@Nonnegative final int nInitialCapacity)
+    {
+      m_aData = new int [Math.max (nInitialCapacity, 16)];
+    }
+
+    void add (final int n)
+    {
+      if (m_nSize == m_aData.length)
+        m_aData = Arrays.copyOf (m_aData, m_nSize * 2);
+      m_aData[m_nSize++] = n;
+    }
+
+    @Nonnull
+    static int [] concat (@Nonnull final int [] aLeft, @Nonnull final int [] aRight)
+    {
+      if (aLeft.length == 0)
+        return aRight;
+      if (aRight.length == 0)
+        return aLeft;
+      final int [] ret = Arrays.copyOf (aLeft, aLeft.length + aRight.length);
+      System.arraycopy (aRight, 0, ret, aLeft.length, aRight.length);
+      return ret;
+    }
+
+    @Nonnull
+    int [] toArray ()
+    {
+      return Arrays.copyOf (m_aData, m_nSize);
+    }
+  }
+
+  /**
+   * Base class for all tasks that operate on an index range and collect int
+   * values. The results of the sub tasks are concatenated in index order.
+   */
+  private abstract static class AbstractCollectingTask extends RecursiveTask <int []>
+  {
+    private final int m_nFrom;
+    private final int m_nTo;
+
+    AbstractCollectingTask (final int nFrom, final int nTo)
+    {
+      m_nFrom = nFrom;
+      m_nTo = nTo;
+    }
+
+    @Nonnull
+    protected abstract AbstractCollectingTask createSubTask (int nFrom, int nTo);
+
+    protected abstract void process (int nIndex, @Nonnull IntList aTarget);
+
+    @Override
+    protected final int [] compute ()
+    {
+      if (m_nTo - m_nFrom <= PARALLEL_THRESHOLD)
+      {
+        final IntList aTarget = new IntList (m_nTo - m_nFrom);
+        for (int i = m_nFrom; i < m_nTo; ++i)
+          process (i, aTarget);
+        return aTarget.toArray ();
+      }
+      final int nMid = (m_nFrom + m_nTo) >>> 1;
+      final AbstractCollectingTask aLeft = createSubTask (m_nFrom, nMid);
+      final AbstractCollectingTask aRight = createSubTask (nMid, m_nTo);
+      ForkJoinTask.invokeAll (aLeft, aRight);
+      return IntList.concat (aLeft.join (), aRight.join ());
+    }
+  }
+
+  private GraphSnapshotHelper ()
+  {}
+
+  @Nonnull
+  private static int [] _collect (@Nonnull final AbstractCollectingTask aTask, final int nCount)
+  {
+    // Avoid the overhead of the pool for small inputs
+    if (nCount <= PARALLEL_THRESHOLD)
+      return aTask.compute ();
+    return ForkJoinPool.commonPool ().invoke (aTask);
+  }
+
+  private static void _forEach (final int nCount, @Nonnull final RecursiveAction aAction)
+  {
+    if (nCount <= PARALLEL_THRESHOLD)
+      aAction.invoke ();
+    else
+      ForkJoinPool.commonPool ().invoke (aAction);
+  }
+
+  private static final class BFSStepTask extends AbstractCollectingTask
+  {
+    private final GraphSnapshot <?> m_aSnapshot;
+    private final int [] m_aFrontier;
+    private final AtomicIntegerArray m_aLevels;
+    private final int m_nNextLevel;
+
+    BFSStepTask (@Nonnull final GraphSnapshot <?> aSnapshot,
+                 @Nonnull final int [] aFrontier,
+                 @Nonnull final AtomicIntegerArray aLevels,
+                 final int nNextLevel,
+                 final int nFrom,
+                 final int nTo)
+    {
+      super (nFrom, nTo);
+      m_aSnapshot = aSnapshot;
+      m_aFrontier = aFrontier;
+      m_aLevels = aLevels;
+      m_nNextLevel = nNextLevel;
+    }
+
+    @Override
+    protected AbstractCollectingTask createSubTask (final int nFrom, final int nTo)
+    {
+      return new BFSStepTask (m_aSnapshot, m_aFrontier, m_aLevels, m_nNextLevel, nFrom, nTo);
+    }
+
+    @Override
+    protected void process (final int nIndex, @Nonnull final IntList aTarget)
+    {
+      final int [] aOffsets = m_aSnapshot.m_aArcOffsets;
+      final int [] aTargets = m_aSnapshot.m_aArcTargets;
+      final int nNode = m_aFrontier[nIndex];
+      for (int nArc = aOffsets[nNode], nArcEnd = aOffsets[nNode + 1]; nArc < nArcEnd; ++nArc)
+      {
+        final int nTarget = aTargets[nArc];
+        // Only the first task reaching a node claims it
+        if (m_aLevels.get (nTarget) < 0 && m_aLevels.compareAndSet (nTarget, -1, m_nNextLevel))
+          aTarget.add (nTarget);
+      }
+    }
+  }
+
+  /**
+   * Level synchronous breadth first search.
+   *
+   * @return The nodes in BFS order. Within each level the nodes are sorted by
+   *         index.
+   */
+  @Nonnull
+  private static int [] _bfs (@Nonnull final GraphSnapshot <?> aSnapshot,
+                              @Nonnegative final int nStartIndex,
+                              @Nonnull final AtomicIntegerArray aLevels)
+  {
+    ValueEnforcer.isBetweenInclusive (nStartIndex, "StartIndex", 0, aSnapshot.getNodeCount () - 1);
+
+    for (int i = 0; i < aLevels.length (); ++i)
+      aLevels.set (i, -1);
+    aLevels.set (nStartIndex, 0);
+
+    final IntList aOrder = new IntList (16);
+    int [] aFrontier = { nStartIndex };
+    int nLevel = 0;
+    while (aFrontier.length > 0)
+    {
+      for (final int nNode : aFrontier)
+        aOrder.add (nNode);
+      ++nLevel;
+      aFrontier = _collect (new BFSStepTask (aSnapshot, aFrontier, aLevels, nLevel, 0, aFrontier.length), aFrontier.length);
+      Arrays.sort (aFrontier);
+    }
+    return aOrder.toArray ();
+  }
+
+  @Nonnull
+  private static int [] _toIntArray (@Nonnull final AtomicIntegerArray aArray)
+  {
+    final int [] ret = new int [aArray.length ()];
+    for (int i = 0; i < ret.length; ++i)
+      ret[i] = aArray.get (i);
+    return ret;
+  }
+
+  /**
+   * Perform a breadth first search from the provided start node and determine
+   * the number of arcs between the start node and all other nodes.
+   *
+   * @param aSnapshot
+   *        The snapshot to search. May not be <code>null</code>.
+   * @param nStartIndex
+   *        Index of the start node.
+   * @return An array with the BFS level of each node, indexed by the node
+   *         index. The start node has level 0, nodes that cannot be reached
+   *         from the start node have level -1.
+   */
+  @Nonnull
+  public static int [] getBFSLevels (@Nonnull final GraphSnapshot <?> aSnapshot, @Nonnegative final int nStartIndex)
+  {
+    ValueEnforcer.notNull (aSnapshot, "Snapshot");
+
+    final AtomicIntegerArray aLevels = new AtomicIntegerArray (aSnapshot.getNodeCount ());
+    _bfs (aSnapshot, nStartIndex, aLevels);
+    return _toIntArray (aLevels);
+  }
+
+  /**
+   * Perform a breadth first search from the provided start node and return all
+   * reachable nodes.
+   *
+   * @param aSnapshot
+   *        The snapshot to search. May not be <code>null</code>.
+   * @param nStartIndex
+   *        Index of the start node.
+   * @return The indices of all nodes reachable from the start node (including
+   *         the start node itself) in BFS order. Nodes with the same BFS level
+   *         are ordered by their index.
+   */
+  @Nonnull
+  public static int [] getBFSOrder (@Nonnull final GraphSnapshot <?> aSnapshot, @Nonnegative final int nStartIndex)
+  {
+    ValueEnforcer.notNull (aSnapshot, "Snapshot");
+
+    return _bfs (aSnapshot, nStartIndex, new AtomicIntegerArray (aSnapshot.getNodeCount ()));
+  }
+
+  private static final class InDegreeAction extends RecursiveAction
+  {
+    private final GraphSnapshot <?> m_aSnapshot;
+    private final AtomicIntegerArray m_aInDegree;
+    private final int m_nFrom;
+    private final int m_nTo;
+
+    InDegreeAction (@Nonnull final GraphSnapshot <?> aSnapshot,
+                    @Nonnull final AtomicIntegerArray aInDegree,
+                    final int nFrom,
+                    final int nTo)
+    {
+      m_aSnapshot = aSnapshot;
+      m_aInDegree = aInDegree;
+      m_nFrom = nFrom;
+      m_nTo = nTo;
+    }
+
+    @Override
+    protected void compute ()
+    {
+      if (m_nTo - m_nFrom <= PARALLEL_THRESHOLD)
+      {
+        final int [] aTargets = m_aSnapshot.m_aArcTargets;
+        for (int nArc = m_aSnapshot.m_aArcOffsets[m_nFrom], nArcEnd = m_aSnapshot.m_aArcOffsets[m_nTo]; nArc < nArcEnd; ++nArc)
+          m_aInDegree.incrementAndGet (aTargets[nArc]);
+      }
+      else
+      {
+        final int nMid = (m_nFrom + m_nTo) >>> 1;
+        invokeAll (new InDegreeAction (m_aSnapshot, m_aInDegree, m_nFrom, nMid),
+                   new InDegreeAction (m_aSnapshot, m_aInDegree, nMid, m_nTo));
+      }
+    }
+  }
+
+  private static final class RootScanTask extends AbstractCollectingTask
+  {
+    private final AtomicIntegerArray m_aInDegree;
+
+    RootScanTask (@Nonnull final AtomicIntegerArray aInDegree, final int nFrom, final int nTo)
+    {
+      super (nFrom, nTo);
+      m_aInDegree = aInDegree;
+    }
+
+    @Override
+    protected AbstractCollectingTask createSubTask (final int nFrom, final int nTo)
+    {
+      return new RootScanTask (m_aInDegree, nFrom, nTo);
+    }
+
+    @Override
+    protected void process (final int nIndex, @Nonnull final IntList aTarget)
+    {
+      if (m_aInDegree.get (nIndex) == 0)
+        aTarget.add (nIndex);
+    }
+  }
+
+  private static final class KahnStepTask extends AbstractCollectingTask
+  {
+    private final GraphSnapshot <?> m_aSnapshot;
+    private final int [] m_aFrontier;
+    private final AtomicIntegerArray m_aInDegree;
+
+    KahnStepTask (@Nonnull final GraphSnapshot <?> aSnapshot,
+                  @Nonnull final int [] aFrontier,
+                  @Nonnull final AtomicIntegerArray aInDegree,
+                  final int nFrom,
+                  final int nTo)
+    {
+      super (nFrom, nTo);
+      m_aSnapshot = aSnapshot;
+      m_aFrontier = aFrontier;
+      m_aInDegree = aInDegree;
+    }
+
+    @Override
+    protected AbstractCollectingTask createSubTask (final int nFrom, final int nTo)
+    {
+      return new KahnStepTask (m_aSnapshot, m_aFrontier, m_aInDegree, nFrom, nTo);
+    }
+
+    @Override
+    protected void process (final int nIndex, @Nonnull final IntList aTarget)
+    {
+      final int [] aOffsets = m_aSnapshot.m_aArcOffsets;
+      final int [] aTargets = m_aSnapshot.m_aArcTargets;
+      final int nNode = m_aFrontier[nIndex];
+      for (int nArc = aOffsets[nNode], nArcEnd = aOffsets[nNode + 1]; nArc < nArcEnd; ++nArc)
+      {
+        final int nTarget = aTargets[nArc];
+        // The task removing the last incoming arc owns the node
+        if (m_aInDegree.decrementAndGet (nTarget) == 0)
+          aTarget.add (nTarget);
+      }
+    }
+  }
+
+  /**
+   * Get a topological ordering of all nodes of a directed snapshot, using
+   * Kahn's algorithm. Nodes are ordered by the length of the longest path
+   * leading to them and within that by their index, so the result is
+   * deterministic.
+   *
+   * @param aSnapshot
+   *        The directed snapshot to use. May not be <code>null</code>.
+   * @return <code>null</code> if the snapshot contains at least one cycle. The
+   *         array of all node indices in topological order otherwise.
+   */
+  @Nullable
+  public static int [] getTopologicalOrder (@Nonnull final GraphSnapshot <?> aSnapshot)
+  {
+    ValueEnforcer.notNull (aSnapshot, "Snapshot");
+    ValueEnforcer.isTrue (aSnapshot.isDirected (), "Snapshot must be directed");
+
+    final int nNodes = aSnapshot.getNodeCount ();
+    final AtomicIntegerArray aInDegree = new AtomicIntegerArray (nNodes);
+    _forEach (nNodes, new InDegreeAction (aSnapshot, aInDegree, 0, nNodes));
+
+    final int [] ret = new int [nNodes];
+    int nCount = 0;
+    int [] aFrontier = _collect (new RootScanTask (aInDegree, 0, nNodes), nNodes);
+    while (aFrontier.length > 0)
+    {
+      System.arraycopy (aFrontier, 0, ret, nCount, aFrontier.length);
+      nCount += aFrontier.length;
+      aFrontier = _collect (new KahnStepTask (aSnapshot, aFrontier, aInDegree, 0, aFrontier.length), aFrontier.length);
+      Arrays.sort (aFrontier);
+    }
+
+    // If not all nodes were reached, the remaining nodes are part of a cycle
+    // or reachable from a cycle
+    return nCount == nNodes ? ret : null;
+  }
+
+  private static int _find (@Nonnull final AtomicIntegerArray aParent, final int nNode)
+  {
+    int nCur = nNode;
+    int nParent = aParent.get (nCur);
+    while (nParent != nCur)
+    {
+      final int nGrandParent = aParent.get (nParent);
+      // Path halving - failing is harmless
+      if (nGrandParent != nParent)
+        aParent.compareAndSet (nCur, nParent, nGrandParent);
+      nCur = nParent;
+      nParent = aParent.get (nCur);
+    }
+    return nCur;
+  }
+
+  private static void _union (@Nonnull final AtomicIntegerArray aParent, final int nNode1, final int nNode2)
+  {
+    while (true)
+    {
+      final int nRoot1 = _find (aParent, nNode1);
+      final int nRoot2 = _find (aParent, nNode2);
+      if (nRoot1 == nRoot2)
+        return;
+      // Always link the larger root below the smaller root, so that the root
+      // of each component is its smallest node index
+      final int nLow = Math.min (nRoot1, nRoot2);
+      final int nHigh = Math.max (nRoot1, nRoot2);
+      if (aParent.compareAndSet (nHigh, nHigh, nLow))
+        return;
+      // Another thread modified the root in the meantime - retry
+    }
+  }
+
+  private static final class UnionAction extends RecursiveAction
+  {
+    private final GraphSnapshot <?> m_aSnapshot;
+    private final AtomicIntegerArray m_aParent;
+    private final int m_nFrom;
+    private final int m_nTo;
+
+    UnionAction (@Nonnull final GraphSnapshot <?> aSnapshot, @Nonnull final AtomicIntegerArray aParent, final int nFrom, final int nTo)
+    {
+      m_aSnapshot = aSnapshot;
+      m_aParent = aParent;
+      m_nFrom = nFrom;
+      m_nTo = nTo;
+    }
+
+    @Override
+    protected void compute ()
+    {
+      if (m_nTo - m_nFrom <= PARALLEL_THRESHOLD)
+      {
+        final int [] aOffsets = m_aSnapshot.m_aArcOffsets;
+        final int [] aTargets = m_aSnapshot.m_aArcTargets;
+        for (int nNode = m_nFrom; nNode < m_nTo; ++nNode)
+          for (int nArc = aOffsets[nNode], nArcEnd = aOffsets[nNode + 1]; nArc < nArcEnd; ++nArc)
+            _union (m_aParent, nNode, aTargets[nArc]);
+      }
+      else
+      {
+        final int nMid = (m_nFrom + m_nTo) >>> 1;
+        invokeAll (new UnionAction (m_aSnapshot, m_aParent, m_nFrom, nMid), new UnionAction (m_aSnapshot, m_aParent, nMid, m_nTo));
+      }
+    }
+  }
+
+  @Nonnegative
+  private static int _labelComponents (@Nonnull final GraphSnapshot <?> aSnapshot, @Nonnull final int [] aLabels)
+  {
+    final int nNodes = aLabels.length;
+    final AtomicIntegerArray aParent = new AtomicIntegerArray (nNodes);
+    for (int i = 0; i < nNodes; ++i)
+      aParent.set (i, i);
+    _forEach (nNodes, new UnionAction (aSnapshot, aParent, 0, nNodes));
+
+    int nComponents = 0;
+    for (int i = 0; i < nNodes; ++i)
+    {
+      final int nRoot = _find (aParent, i);
+      // The root is the smallest index of the component and therefore already
+      // handled
+      aLabels[i] = nRoot == i ? nComponents++ : aLabels[nRoot];
+    }
+    return nComponents;
+  }
+
+  /**
+   * Determine the connected components of the snapshot. For directed
+   * snapshots the direction of the arcs is ignored ("weakly connected
+   * components").
+   *
+   * @param aSnapshot
+   *        The snapshot to use. May not be <code>null</code>.
+   * @return An array with the component number of each node, indexed by the
+   *         node index. Components are numbered from 0 in the order of their
+   *         smallest node index.
+   */
+  @Nonnull
+  public static int [] getConnectedComponents (@Nonnull final GraphSnapshot <?> aSnapshot)
+  {
+    ValueEnforcer.notNull (aSnapshot, "Snapshot");
+
+    final int [] ret = new int [aSnapshot.getNodeCount ()];
+    _labelComponents (aSnapshot, ret);
+    return ret;
+  }
+
+  /**
+   * Get the number of connected components of the snapshot. For directed
+   * snapshots the direction of the arcs is ignored.
+   *
+   * @param aSnapshot
+   *        The snapshot to use. May not be <code>null</code>.
+   * @return The number of components. Always &ge; 0.
+   */
+  @Nonnegative
+  public static int getConnectedComponentCount (@Nonnull final GraphSnapshot <?> aSnapshot)
+  {
+    ValueEnforcer.notNull (aSnapshot, "Snapshot");
+
+    return _labelComponents (aSnapshot, new int [aSnapshot.getNodeCount ()]);
+  }
+
+  /**
+   * Check if the snapshot contains cycles. The semantics are identical to
+   * {@link com.helger.graph.IBaseGraph#containsCycles()}: for directed
+   * snapshots this means a directed cycle (including self-references), for
+   * undirected snapshots this means that at least one relation (apart from
+   * self-references) connects two nodes that are already connected otherwise.
+   *
+   * @param aSnapshot
+   *        The snapshot to check. May not be <code>null</code>.
+   * @return <code>true</code> if the snapshot contains a cycle,
+   *         <code>false</code> if not.
+   */
+  public static boolean containsCycles (@Nonnull final GraphSnapshot <?> aSnapshot)
+  {
+    ValueEnforcer.notNull (aSnapshot, "Snapshot");
+
+    if (aSnapshot.isDirected ())
+      return getTopologicalOrder (aSnapshot) == null;
+
+    // An undirected forest has exactly "nodes - components" relations
+    final int nNodes = aSnapshot.getNodeCount ();
+    long nNonSelfArcs = 0;
+    for (int nNode = 0; nNode < nNodes; ++nNode)
+      for (int nArc = aSnapshot.getArcStart (nNode), nArcEnd = aSnapshot.getArcEnd (nNode); nArc < nArcEnd; ++nArc)
+        if (aSnapshot.getArcTarget (nArc) != nNode)
+          nNonSelfArcs++;
+    // Each relation is contained twice
+    return nNonSelfArcs / 2 > nNodes - getConnectedComponentCount (aSnapshot);
+  }
+}
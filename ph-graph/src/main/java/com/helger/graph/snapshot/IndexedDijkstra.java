@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.snapshot;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.graph.IMutableBaseGraph;
+import com.helger.graph.IMutableBaseGraphNode;
+import com.helger.graph.IMutableBaseGraphRelation;
+import com.helger.graph.algo.Dijkstra;
+
+/**
+ * Find the shortest path between 2 graph nodes on a {@link GraphSnapshot},
+ * using Dijkstra's algorithm or A* with an indexed binary heap. Compared to
+ * {@link Dijkstra} this runs in O((V + E) log V) and only works on primitive
+ * arrays. Creating the snapshot is O(V + E), so for multiple queries on the
+ * same graph the snapshot should be created once and reused.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+public final class IndexedDijkstra
+{
+  /**
+   * An indexed binary min heap of node indices, ordered by a long key per
+   * node. Supports "insert or decrease key" in O(log n).
+   */
+  @NotThreadSafe
+  private static final class IndexedMinHeap
+  {
+    private final int [] m_aHeap;
+    // Position of each node in the heap or -1
+    private final int [] m_aPos;
+    private final long [] m_aKey;
+    private int m_nSize = 0;
+
+    IndexedMinHeap (@Nonnegative final int nCapacity)
+    {
+      m_aHeap = new int [nCapacity];
+      m_aPos = new int [nCapacity];
+      Arrays.fill (m_aPos, -1);
+      m_aKey = new long [nCapacity];
+    }
+
+    boolean isEmpty ()
+    {
+      return m_nSize == 0;
+    }
+
+    void insertOrDecrease (final int nNode, final long nKey)
+    {
+      int nPos = m_aPos[nNode];
+      if (nPos < 0)
+      {
+        nPos = m_nSize++;
+        m_aHeap[nPos] = nNode;
+        m_aPos[nNode] = nPos;
+      }
+      m_aKey[nNode] = nKey;
+      _siftUp (nPos);
+    }
+
+    int pollMin ()
+    {
+      final int ret = m_aHeap[0];
+      m_aPos[ret] = -1;
+      final int nLast = m_aHeap[--m_nSize];
+      if (m_nSize > 0)
+      {
+        m_aHeap[0] = nLast;
+        m_aPos[nLast] = 0;
+        _siftDown (0);
+      }
+      return ret;
+    }
+
+    private void _siftUp (final int nStartPos)
+    {
+      int nPos = nStartPos;
+      final int nNode = m_aHeap[nPos];
+      final long nKey = m_aKey[nNode];
+      while (nPos > 0)
+      {
+        final int nParentPos = (nPos - 1) >>> 1;
+        final int nParent = m_aHeap[nParentPos];
+        if (m_aKey[nParent] <= nKey)
+          break;
+        m_aHeap[nPos] = nParent;
+        m_aPos[nParent] = nPos;
+        nPos = nParentPos;
+      }
+      m_aHeap[nPos] = nNode;
+      m_aPos[nNode] = nPos;
+    }
+
+    private void _siftDown (final int nStartPos)
+    {
+      int nPos = nStartPos;
+      final int nNode = m_aHeap[nPos];
+      final long nKey = m_aKey[nNode];
+      final int nHalf = m_nSize >>> 1;
+      while (nPos < nHalf)
+      {
+        int nChildPos = 2 * nPos + 1;
+        int nChild = m_aHeap[nChildPos];
+        final int nRightPos = nChildPos + 1;
+        if (nRightPos < m_nSize && m_aKey[m_aHeap[nRightPos]] < m_aKey[nChild])
+        {
+          nChildPos = nRightPos;
+          nChild = m_aHeap[nChildPos];
+        }
+        if (nKey <= m_aKey[nChild])
+          break;
+        m_aHeap[nPos] = nChild;
+        m_aPos[nChild] = nPos;
+        nPos = nChildPos;
+      }
+      m_aHeap[nPos] = nNode;
+      m_aPos[nNode] = nPos;
+    }
+  }
+
+  private IndexedDijkstra ()
+  {}
+
+  @Nullable
+  private static <N extends IMutableBaseGraphNode <N, ?>> Dijkstra.Result <N> _search (@Nonnull final GraphSnapshot <N> aSnapshot,
+                                                                                      @Nonnull @Nonempty final String sFromID,
+                                                                                      @Nonnull @Nonempty final String sToID,
+                                                                                      @Nullable final ToIntFunction <? super N> aHeuristic)
+  {
+    ValueEnforcer.notNull (aSnapshot, "Snapshot");
+    final int nStart = aSnapshot.getNodeIndex (sFromID);
+    if (nStart < 0)
+      throw new IllegalArgumentException ("Invalid From ID: " + sFromID);
+    final int nEnd = aSnapshot.getNodeIndex (sToID);
+    if (nEnd < 0)
+      throw new IllegalArgumentException ("Invalid To ID: " + sToID);
+
+    final int nNodes = aSnapshot.getNodeCount ();
+    final int [] aOffsets = aSnapshot.m_aArcOffsets;
+    final int [] aTargets = aSnapshot.m_aArcTargets;
+    final int [] aWeights = aSnapshot.m_aArcWeights;
+
+    final long [] aDist = new long [nNodes];
+    Arrays.fill (aDist, Long.MAX_VALUE);
+    final int [] aPred = new int [nNodes];
+    Arrays.fill (aPred, -1);
+    // Cached heuristic values - -1 means "not yet determined"
+    final int [] aEstimate;
+    if (aHeuristic != null)
+    {
+      aEstimate = new int [nNodes];
+      Arrays.fill (aEstimate, -1);
+    }
+    else
+      aEstimate = null;
+
+    final IndexedMinHeap aHeap = new IndexedMinHeap (nNodes);
+    aDist[nStart] = 0;
+    aHeap.insertOrDecrease (nStart, 0);
+    while (!aHeap.isEmpty ())
+    {
+      final int nCur = aHeap.pollMin ();
+      if (nCur == nEnd)
+        break;
+
+      final long nCurDist = aDist[nCur];
+      for (int nArc = aOffsets[nCur], nArcEnd = aOffsets[nCur + 1]; nArc < nArcEnd; ++nArc)
+      {
+        final int nTarget = aTargets[nArc];
+        final long nNewDist = nCurDist + (aWeights == null ? GraphSnapshot.DEFAULT_ARC_WEIGHT : aWeights[nArc]);
+        if (nNewDist < aDist[nTarget])
+        {
+          aDist[nTarget] = nNewDist;
+          aPred[nTarget] = nCur;
+
+          long nKey = nNewDist;
+          if (aEstimate != null)
+          {
+            int nEstimate = aEstimate[nTarget];
+            if (nEstimate < 0)
+            {
+              nEstimate = aHeuristic.applyAsInt (aSnapshot.getNode (nTarget));
+              if (nEstimate < 0)
+                throw new IllegalArgumentException ("The heuristic returned the negative estimate " +
+                                                    nEstimate +
+                                                    " for node '" +
+                                                    aSnapshot.getNode (nTarget).getID () +
+                                                    "'");
+              aEstimate[nTarget] = nEstimate;
+            }
+            nKey += nEstimate;
+          }
+          // Re-inserts the node if it was already removed from the heap (only
+          // possible with an inconsistent heuristic)
+          aHeap.insertOrDecrease (nTarget, nKey);
+        }
+      }
+    }
+
+    final long nResultDistance = aDist[nEnd];
+    if (nResultDistance == Long.MAX_VALUE)
+    {
+      // End node is not reachable
+      return null;
+    }
+    if (nResultDistance > Integer.MAX_VALUE)
+      throw new IllegalStateException ("The distance " + nResultDistance + " between '" + sFromID + "' and '" + sToID + "' exceeds the int range");
+
+    // Now get the result path from back to front
+    final ICommonsList <N> aResultNodes = new CommonsArrayList <> ();
+    int nCur = nEnd;
+    while (nCur >= 0)
+    {
+      aResultNodes.add (aSnapshot.getNode (nCur));
+      nCur = aPred[nCur];
+    }
+    aResultNodes.reverse ();
+    return new Dijkstra.Result <> (aResultNodes, (int) nResultDistance);
+  }
+
+  /**
+   * Find the shortest path between 2 nodes of the provided snapshot using
+   * Dijkstra's algorithm.
+   *
+   * @param aSnapshot
+   *        The snapshot to search. May not be <code>null</code>.
+   * @param sFromID
+   *        ID of the start node. Must be contained in the snapshot.
+   * @param sToID
+   *        ID of the end node. Must be contained in the snapshot.
+   * @return <code>null</code> if the end node cannot be reached from the start
+   *         node.
+   * @param <N>
+   *        Node class
+   */
+  @Nullable
+  public static <N extends IMutableBaseGraphNode <N, ?>> Dijkstra.Result <N> applyDijkstra (@Nonnull final GraphSnapshot <N> aSnapshot,
+                                                                                           @Nonnull @Nonempty final String sFromID,
+                                                                                           @Nonnull @Nonempty final String sToID)
+  {
+    return _search (aSnapshot, sFromID, sToID, null);
+  }
+
+  /**
+   * Find the shortest path between 2 nodes of the provided snapshot using the
+   * A* algorithm.
+   *
+   * @param aSnapshot
+   *        The snapshot to search. May not be <code>null</code>.
+   * @param sFromID
+   *        ID of the start node. Must be contained in the snapshot.
+   * @param sToID
+   *        ID of the end node. Must be contained in the snapshot.
+   * @param aHeuristic
+   *        The function estimating the remaining distance from a node to the
+   *        end node. To find the shortest path, it may never overestimate the
+   *        real distance. The returned value must be &ge; 0. It is called at
+   *        most once per node. May not be <code>null</code>.
+   * @return <code>null</code> if the end node cannot be reached from the start
+   *         node.
+   * @param <N>
+   *        Node class
+   */
+  @Nullable
+  public static <N extends IMutableBaseGraphNode <N, ?>> Dijkstra.Result <N> applyAStar (@Nonnull final GraphSnapshot <N> aSnapshot,
+                                                                                        @Nonnull @Nonempty final String sFromID,
+                                                                                        @Nonnull @Nonempty final String sToID,
+                                                                                        @Nonnull final ToIntFunction <? super N> aHeuristic)
+  {
+    ValueEnforcer.notNull (aHeuristic, "Heuristic");
+    return _search (aSnapshot, sFromID, sToID, aHeuristic);
+  }
+
+  /**
+   * Find the shortest path between 2 graph nodes using Dijkstra's algorithm.
+   * This is a drop-in replacement for
+   * {@link Dijkstra#applyDijkstra(IMutableBaseGraph, String, String, ToIntFunction)}
+   * that creates a temporary {@link GraphSnapshot}.
+   *
+   * @param aGraph
+   *        The graph to search. May not be <code>null</code>.
+   * @param sFromID
+   *        ID of the start node. Must be contained in the graph.
+   * @param sToID
+   *        ID of the end node. Must be contained in the graph.
+   * @param aRelationCostProvider
+   *        The function to determine the weight of a relation. The returned
+   *        value must be &ge; 0. May not be <code>null</code>.
+   * @return <code>null</code> if the end node cannot be reached from the start
+   *         node.
+   * @param <N>
+   *        Node class
+   * @param <R>
+   *        Relation class
+   */
+  @Nullable
+  public static <N extends IMutableBaseGraphNode <N, R>, R extends IMutableBaseGraphRelation <N, R>> Dijkstra.Result <N> applyDijkstra (@Nonnull final IMutableBaseGraph <N, R> aGraph,
+                                                                                                                                        @Nonnull @Nonempty final String sFromID,
+                                                                                                                                        @Nonnull @Nonempty final String sToID,
+                                                                                                                                        @Nonnull final ToIntFunction <? super R> aRelationCostProvider)
+  {
+    return applyDijkstra (GraphSnapshot.create (aGraph, aRelationCostProvider), sFromID, sToID);
+  }
+}
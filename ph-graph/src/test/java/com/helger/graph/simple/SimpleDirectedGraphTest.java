@@ -23,6 +23,8 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 import com.helger.commons.collection.impl.CommonsHashSet;
@@ -32,6 +34,8 @@ import com.helger.commons.mock.CommonsTestHelper;
 import com.helger.graph.AbstractGraphTestCase;
 import com.helger.graph.IMutableDirectedGraphNode;
 import com.helger.graph.impl.DirectedGraphNode;
+import com.helger.matrix.Matrix;
+import com.helger.matrix.SparseMatrix;
 
 /**
  * Test class for class {@link SimpleDirectedGraph}.
@@ -272,4 +276,46 @@ public final class SimpleDirectedGraphTest extends AbstractGraphTestCase
     sg.createRelation (n1, n2);
     assertFalse (sg.isSelfContained ());
   }
+
+  @Test
+  public void testIncidenceMatrix ()
+  {
+    final ISimpleDirectedGraph sg = new SimpleDirectedGraph ();
+    final int nNodes = 30;
+    final IMutableDirectedGraphNode [] aNodes = new IMutableDirectedGraphNode [nNodes];
+    for (int i = 0; i < nNodes; ++i)
+      aNodes[i] = sg.createNode ("n" + i);
+    final Random aRandom = new Random (7);
+    for (int i = 0; i < 100; ++i)
+    {
+      final IMutableDirectedGraphNode aFrom = aNodes[aRandom.nextInt (nNodes)];
+      final IMutableDirectedGraphNode aTo = aNodes[aRandom.nextInt (nNodes)];
+      if (aFrom != aTo && !aFrom.isToNode (aTo))
+        sg.createRelation (aFrom, aTo);
+    }
+    // Relations in both directions
+    if (!aNodes[1].isToNode (aNodes[2]))
+      sg.createRelation (aNodes[1], aNodes[2]);
+    if (!aNodes[2].isToNode (aNodes[1]))
+      sg.createRelation (aNodes[2], aNodes[1]);
+    // Relation to a node outside of the graph
+    sg.createRelation (aNodes[3], new DirectedGraphNode ("other"));
+
+    // The dense reference implementation
+    final Matrix aExpected = new Matrix (nNodes, nNodes, 0);
+    for (int nRow = 0; nRow < nNodes; ++nRow)
+      for (int nCol = 0; nCol < nNodes; ++nCol)
+        if (nRow != nCol && aNodes[nRow].isToNode (aNodes[nCol]))
+        {
+          aExpected.set (nRow, nCol, 1);
+          aExpected.set (nCol, nRow, -1);
+        }
+    assertEquals (-1, aExpected.get (1, 2), 0);
+    assertEquals (1, aExpected.get (2, 1), 0);
+
+    assertEquals (aExpected, sg.createIncidenceMatrix ());
+    final SparseMatrix aSparse = sg.createSparseIncidenceMatrix ();
+    assertEquals (aExpected, aSparse.toMatrix ());
+    assertEquals (SparseMatrix.createFromMatrix (aExpected), aSparse);
+  }
 }
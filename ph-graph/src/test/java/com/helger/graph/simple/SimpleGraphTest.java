@@ -24,6 +24,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.PrintWriter;
+import java.util.Random;
 
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -35,6 +36,7 @@ import com.helger.graph.AbstractGraphTestCase;
 import com.helger.graph.IMutableGraphNode;
 import com.helger.graph.impl.GraphNode;
 import com.helger.matrix.Matrix;
+import com.helger.matrix.SparseMatrix;
 
 /**
  * Test class for class {@link SimpleGraph}.
@@ -203,4 +205,39 @@ public final class SimpleGraphTest extends AbstractGraphTestCase
     sg.createRelation (n1, n2);
     assertFalse (sg.isSelfContained ());
   }
+
+  @Test
+  public void testIncidenceMatrix ()
+  {
+    final ISimpleGraph sg = new SimpleGraph ();
+    final int nNodes = 30;
+    final IMutableGraphNode [] aNodes = new IMutableGraphNode [nNodes];
+    for (int i = 0; i < nNodes; ++i)
+      aNodes[i] = sg.createNode ("n" + i);
+    final Random aRandom = new Random (8);
+    for (int i = 0; i < 100; ++i)
+    {
+      final IMutableGraphNode aNode1 = aNodes[aRandom.nextInt (nNodes)];
+      final IMutableGraphNode aNode2 = aNodes[aRandom.nextInt (nNodes)];
+      if (aNode1 != aNode2 && !aNode1.isConnectedWith (aNode2))
+        sg.createRelation (aNode1, aNode2);
+    }
+    // Relation to a node outside of the graph
+    sg.createRelation (aNodes[3], new GraphNode ("other"));
+
+    // The dense reference implementation
+    final Matrix aExpected = new Matrix (nNodes, nNodes, 0);
+    for (int nRow = 0; nRow < nNodes; ++nRow)
+      for (int nCol = 0; nCol < nNodes; ++nCol)
+        if (nRow != nCol && aNodes[nRow].isConnectedWith (aNodes[nCol]))
+        {
+          aExpected.set (nRow, nCol, 1);
+          aExpected.set (nCol, nRow, 1);
+        }
+
+    assertEquals (aExpected, sg.createIncidenceMatrix ());
+    final SparseMatrix aSparse = sg.createSparseIncidenceMatrix ();
+    assertEquals (aExpected, aSparse.toMatrix ());
+    assertTrue (aSparse.isSymmetric ());
+  }
 }
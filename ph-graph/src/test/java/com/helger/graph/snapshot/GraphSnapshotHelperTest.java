@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.snapshot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.graph.AbstractGraphTestCase;
+import com.helger.graph.IMutableDirectedGraphNode;
+import com.helger.graph.IMutableGraphNode;
+import com.helger.graph.simple.SimpleDirectedGraph;
+import com.helger.graph.simple.SimpleDirectedGraphObjectFastFactory;
+import com.helger.graph.simple.SimpleGraph;
+import com.helger.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Test class for class {@link GraphSnapshotHelper}.
+ *
+ * @author Philip Helger
+ */
+public final class GraphSnapshotHelperTest extends AbstractGraphTestCase
+{
+  @Nonnull
+  private static int [] _getBFSLevelsSequential (@Nonnull final GraphSnapshot <?> aSnapshot, final int nStartIndex)
+  {
+    final int [] ret = new int [aSnapshot.getNodeCount ()];
+    Arrays.fill (ret, -1);
+    ret[nStartIndex] = 0;
+    final ArrayDeque <Integer> aQueue = new ArrayDeque <> ();
+    aQueue.add (Integer.valueOf (nStartIndex));
+    while (!aQueue.isEmpty ())
+    {
+      final int nNode = aQueue.poll ().intValue ();
+      for (int nArc = aSnapshot.getArcStart (nNode); nArc < aSnapshot.getArcEnd (nNode); ++nArc)
+      {
+        final int nTarget = aSnapshot.getArcTarget (nArc);
+        if (ret[nTarget] < 0)
+        {
+          ret[nTarget] = ret[nNode] + 1;
+          aQueue.add (Integer.valueOf (nTarget));
+        }
+      }
+    }
+    return ret;
+  }
+
+  private static void _assertTopologicalOrder (@Nonnull final GraphSnapshot <?> aSnapshot, @Nonnull final int [] aOrder)
+  {
+    assertEquals (aSnapshot.getNodeCount (), aOrder.length);
+    final int [] aPos = new int [aOrder.length];
+    Arrays.fill (aPos, -1);
+    for (int i = 0; i < aOrder.length; ++i)
+    {
+      assertEquals (-1, aPos[aOrder[i]]);
+      aPos[aOrder[i]] = i;
+    }
+    for (int nNode = 0; nNode < aSnapshot.getNodeCount (); ++nNode)
+      for (int nArc = aSnapshot.getArcStart (nNode); nArc < aSnapshot.getArcEnd (nNode); ++nArc)
+        assertTrue (aPos[nNode] < aPos[aSnapshot.getArcTarget (nArc)]);
+  }
+
+  private static void _assertComponents (@Nonnull final GraphSnapshot <?> aSnapshot, @Nonnull final int [] aComponents)
+  {
+    final int nNodes = aSnapshot.getNodeCount ();
+    assertEquals (nNodes, aComponents.length);
+    // All arcs connect nodes of the same component
+    for (int nNode = 0; nNode < nNodes; ++nNode)
+      for (int nArc = aSnapshot.getArcStart (nNode); nArc < aSnapshot.getArcEnd (nNode); ++nArc)
+        assertEquals (aComponents[nNode], aComponents[aSnapshot.getArcTarget (nArc)]);
+    // Components are numbered in the order of their first node
+    int nMax = -1;
+    for (final int nComponent : aComponents)
+    {
+      assertTrue (nComponent <= nMax + 1);
+      nMax = Math.max (nMax, nComponent);
+    }
+    assertEquals (nMax + 1, GraphSnapshotHelper.getConnectedComponentCount (aSnapshot));
+  }
+
+  @Test
+  public void testDirected ()
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    final GraphSnapshot <IMutableDirectedGraphNode> aSnapshot = GraphSnapshot.create (aGraph);
+    final int nStart = aSnapshot.getNodeIndex ("0");
+    assertArrayEquals (new int [] { 0, 1, 2, 2, 3, 1, 2 }, GraphSnapshotHelper.getBFSLevels (aSnapshot, nStart));
+    assertArrayEquals (new int [] { 0, 1, 5, 2, 3, 6, 4 }, GraphSnapshotHelper.getBFSOrder (aSnapshot, nStart));
+    assertArrayEquals (new int [] { -1, -1, -1, 1, 2, 0, 1 }, GraphSnapshotHelper.getBFSLevels (aSnapshot, aSnapshot.getNodeIndex ("5")));
+
+    final int [] aOrder = GraphSnapshotHelper.getTopologicalOrder (aSnapshot);
+    assertNotNull (aOrder);
+    _assertTopologicalOrder (aSnapshot, aOrder);
+    assertFalse (GraphSnapshotHelper.containsCycles (aSnapshot));
+    assertEquals (1, GraphSnapshotHelper.getConnectedComponentCount (aSnapshot));
+
+    final GraphSnapshot <IMutableDirectedGraphNode> aCycle = GraphSnapshot.create (_buildSimpleDirectedGraphCycle2 ());
+    assertNull (GraphSnapshotHelper.getTopologicalOrder (aCycle));
+    assertTrue (GraphSnapshotHelper.containsCycles (aCycle));
+  }
+
+  @Test
+  public void testUndirected ()
+  {
+    final SimpleGraph aGraph = _buildGraph ();
+    final GraphSnapshot <IMutableGraphNode> aSnapshot = GraphSnapshot.create (aGraph);
+    assertArrayEquals (_getBFSLevelsSequential (aSnapshot, 0), GraphSnapshotHelper.getBFSLevels (aSnapshot, 0));
+    assertEquals (aGraph.containsCycles (), GraphSnapshotHelper.containsCycles (aSnapshot));
+    assertEquals (1, GraphSnapshotHelper.getConnectedComponentCount (aSnapshot));
+
+    assertTrue (GraphSnapshotHelper.containsCycles (GraphSnapshot.create (_buildSimpleGraphCycle ())));
+    assertTrue (GraphSnapshotHelper.containsCycles (GraphSnapshot.create (_buildSimpleGraphCycle2 ())));
+  }
+
+  @Test
+  public void testCycles2 ()
+  {
+    final SimpleGraph sg = new SimpleGraph ();
+    final SimpleDirectedGraph sdg = new SimpleDirectedGraph ();
+    for (int i = 1; i <= 6; ++i)
+    {
+      sg.createNode (Integer.toString (i));
+      sdg.createNode (Integer.toString (i));
+    }
+    assertEquals (6, GraphSnapshotHelper.getConnectedComponentCount (GraphSnapshot.create (sg)));
+
+    final String [] [] aRelations = { { "1", "2" }, { "2", "3" }, { "3", "1" }, { "4", "5" }, { "5", "6" }, { "6", "4" } };
+    for (final String [] aRelation : aRelations)
+    {
+      sg.createRelation (aRelation[0], aRelation[1]);
+      sdg.createRelation (aRelation[0], aRelation[1]);
+      assertEquals (sg.containsCycles (), GraphSnapshotHelper.containsCycles (GraphSnapshot.create (sg)));
+      assertEquals (sdg.containsCycles (), GraphSnapshotHelper.containsCycles (GraphSnapshot.create (sdg)));
+    }
+    assertArrayEquals (new int [] { 0, 0, 0, 1, 1, 1 }, GraphSnapshotHelper.getConnectedComponents (GraphSnapshot.create (sg)));
+    assertArrayEquals (new int [] { 0, 0, 0, 1, 1, 1 }, GraphSnapshotHelper.getConnectedComponents (GraphSnapshot.create (sdg)));
+  }
+
+  @Test
+  public void testEmpty ()
+  {
+    final GraphSnapshot <IMutableDirectedGraphNode> aSnapshot = GraphSnapshot.create (new SimpleDirectedGraph ());
+    assertEquals (0, GraphSnapshotHelper.getConnectedComponents (aSnapshot).length);
+    assertEquals (0, GraphSnapshotHelper.getConnectedComponentCount (aSnapshot));
+    assertFalse (GraphSnapshotHelper.containsCycles (aSnapshot));
+  }
+
+  @Test
+  public void testRandomSmall ()
+  {
+    final Random aRandom = new Random (42);
+    for (int nRun = 0; nRun < 100; ++nRun)
+    {
+      final int nNodes = 1 + aRandom.nextInt (15);
+      final int nRelations = aRandom.nextInt (nNodes + 3);
+      final SimpleGraph sg = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+      final SimpleDirectedGraph sdg = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+      for (int i = 0; i < nNodes; ++i)
+      {
+        sg.createNode (Integer.toString (i));
+        sdg.createNode (Integer.toString (i));
+      }
+      for (int i = 0; i < nRelations; ++i)
+      {
+        final String sFrom = Integer.toString (aRandom.nextInt (nNodes));
+        final String sTo = Integer.toString (aRandom.nextInt (nNodes));
+        if (!sFrom.equals (sTo))
+          sg.createRelation (sFrom, sTo);
+        if (!sdg.getNodeOfID (sFrom).isToNode (sdg.getNodeOfID (sTo)))
+          sdg.createRelation (sFrom, sTo);
+      }
+
+      final GraphSnapshot <IMutableGraphNode> aSnapshot = GraphSnapshot.create (sg);
+      assertEquals (sg.containsCycles (), GraphSnapshotHelper.containsCycles (aSnapshot));
+      _assertComponents (aSnapshot, GraphSnapshotHelper.getConnectedComponents (aSnapshot));
+
+      final GraphSnapshot <IMutableDirectedGraphNode> aDirSnapshot = GraphSnapshot.create (sdg);
+      assertEquals (sdg.containsCycles (), GraphSnapshotHelper.containsCycles (aDirSnapshot));
+      final int [] aOrder = GraphSnapshotHelper.getTopologicalOrder (aDirSnapshot);
+      if (aOrder != null)
+        _assertTopologicalOrder (aDirSnapshot, aOrder);
+      _assertComponents (aDirSnapshot, GraphSnapshotHelper.getConnectedComponents (aDirSnapshot));
+      assertArrayEquals (_getBFSLevelsSequential (aDirSnapshot, 0), GraphSnapshotHelper.getBFSLevels (aDirSnapshot, 0));
+    }
+  }
+
+  @Test
+  public void testLarge ()
+  {
+    // Large enough to be processed in parallel
+    final int nNodes = 10 * GraphSnapshotHelper.PARALLEL_THRESHOLD;
+    final Random aRandom = new Random (4711);
+    final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 0; i < nNodes; ++i)
+      g.createNode (Integer.toString (i));
+    // Acyclic: only relations from lower to higher indices
+    for (int i = 0; i < nNodes * 2; ++i)
+    {
+      final int nFrom = aRandom.nextInt (nNodes - 1);
+      final int nTo = nFrom + 1 + aRandom.nextInt (Math.min (nNodes - nFrom - 1, 1000));
+      final IMutableDirectedGraphNode aFrom = g.getNodeOfID (Integer.toString (nFrom));
+      final IMutableDirectedGraphNode aTo = g.getNodeOfID (Integer.toString (nTo));
+      if (!aFrom.isToNode (aTo))
+        g.createRelation (aFrom, aTo);
+    }
+
+    GraphSnapshot <IMutableDirectedGraphNode> aSnapshot = GraphSnapshot.create (g);
+    assertArrayEquals (_getBFSLevelsSequential (aSnapshot, 0), GraphSnapshotHelper.getBFSLevels (aSnapshot, 0));
+    final int [] aOrder = GraphSnapshotHelper.getTopologicalOrder (aSnapshot);
+    assertNotNull (aOrder);
+    _assertTopologicalOrder (aSnapshot, aOrder);
+    // Deterministic result
+    assertArrayEquals (aOrder, GraphSnapshotHelper.getTopologicalOrder (aSnapshot));
+    assertFalse (GraphSnapshotHelper.containsCycles (aSnapshot));
+    _assertComponents (aSnapshot, GraphSnapshotHelper.getConnectedComponents (aSnapshot));
+
+    // Close a cycle
+    g.createRelation (Integer.toString (nNodes - 1), "0");
+    aSnapshot = GraphSnapshot.create (g);
+    assertNull (GraphSnapshotHelper.getTopologicalOrder (aSnapshot));
+    assertTrue (GraphSnapshotHelper.containsCycles (aSnapshot));
+  }
+}
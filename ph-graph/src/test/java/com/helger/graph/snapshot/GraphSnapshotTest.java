@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.graph.AbstractGraphTestCase;
+import com.helger.graph.IMutableDirectedGraphNode;
+import com.helger.graph.IMutableGraphNode;
+import com.helger.graph.IMutableGraphRelation;
+import com.helger.graph.simple.SimpleDirectedGraph;
+import com.helger.graph.simple.SimpleGraph;
+import com.helger.matrix.SparseMatrix;
+
+/**
+ * Test class for class {@link GraphSnapshot}.
+ *
+ * @author Philip Helger
+ */
+public final class GraphSnapshotTest extends AbstractGraphTestCase
+{
+  @Test
+  public void testDirected ()
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    final GraphSnapshot <IMutableDirectedGraphNode> aSnapshot = GraphSnapshot.create (aGraph);
+    assertNotNull (aSnapshot.toString ());
+    assertTrue (aSnapshot.isDirected ());
+    assertFalse (aSnapshot.isWeighted ());
+    assertEquals (aGraph.getNodeCount (), aSnapshot.getNodeCount ());
+    assertEquals (aGraph.getAllRelations ().size (), aSnapshot.getArcCount ());
+    assertEquals (-1, aSnapshot.getNodeIndex ("bla"));
+    assertEquals (-1, aSnapshot.getNodeIndex (null));
+
+    for (final IMutableDirectedGraphNode aNode : aGraph.getAllNodes ().values ())
+    {
+      final int nIndex = aSnapshot.getNodeIndex (aNode.getID ());
+      assertSame (aNode, aSnapshot.getNode (nIndex));
+      assertEquals (aNode.getOutgoingRelationCount (), aSnapshot.getOutDegree (nIndex));
+
+      final ICommonsSet <String> aTargetIDs = new CommonsHashSet <> ();
+      for (int nArc = aSnapshot.getArcStart (nIndex); nArc < aSnapshot.getArcEnd (nIndex); ++nArc)
+      {
+        aTargetIDs.add (aSnapshot.getNode (aSnapshot.getArcTarget (nArc)).getID ());
+        assertEquals (GraphSnapshot.DEFAULT_ARC_WEIGHT, aSnapshot.getArcWeight (nArc));
+      }
+      assertEquals (new CommonsHashSet <> (aNode.getAllToNodes (), IMutableDirectedGraphNode::getID), aTargetIDs);
+    }
+  }
+
+  @Test
+  public void testUndirected ()
+  {
+    final SimpleGraph aGraph = _buildGraph ();
+    final GraphSnapshot <IMutableGraphNode> aSnapshot = GraphSnapshot.create (aGraph, x -> _getNodeValue (x.getNode1 ()));
+    assertFalse (aSnapshot.isDirected ());
+    assertTrue (aSnapshot.isWeighted ());
+    assertEquals (aGraph.getNodeCount (), aSnapshot.getNodeCount ());
+    assertEquals (aGraph.getAllRelations ().size () * 2, aSnapshot.getArcCount ());
+
+    for (final IMutableGraphNode aNode : aGraph.getAllNodes ().values ())
+    {
+      final int nIndex = aSnapshot.getNodeIndex (aNode.getID ());
+      assertEquals (aNode.getRelationCount (), aSnapshot.getOutDegree (nIndex));
+
+      final ICommonsSet <String> aTargetIDs = new CommonsHashSet <> ();
+      for (int nArc = aSnapshot.getArcStart (nIndex); nArc < aSnapshot.getArcEnd (nIndex); ++nArc)
+      {
+        final IMutableGraphNode aTarget = aSnapshot.getNode (aSnapshot.getArcTarget (nArc));
+        aTargetIDs.add (aTarget.getID ());
+        assertEquals (_getNodeValue (aNode.getRelation (aTarget).getNode1 ()), aSnapshot.getArcWeight (nArc));
+      }
+      // The related node IDs contain the ID of the node itself
+      final ICommonsSet <String> aExpectedIDs = new CommonsHashSet <> (aNode.getAllRelatedNodeIDs ());
+      aExpectedIDs.remove (aNode.getID ());
+      assertEquals (aExpectedIDs, aTargetIDs);
+    }
+  }
+
+  @Test
+  public void testAdjacencyMatrix ()
+  {
+    final SimpleDirectedGraph aGraph = _buildDirectedGraph ();
+    final GraphSnapshot <IMutableDirectedGraphNode> aSnapshot = GraphSnapshot.create (aGraph);
+    final SparseMatrix aMatrix = aSnapshot.createAdjacencyMatrix ();
+    assertEquals (aSnapshot.getNodeCount (), aMatrix.getRowDimension ());
+    assertEquals (aSnapshot.getNodeCount (), aMatrix.getColumnDimension ());
+    assertEquals (aSnapshot.getArcCount (), aMatrix.getNonZeroCount ());
+    for (int nRow = 0; nRow < aSnapshot.getNodeCount (); ++nRow)
+      for (int nCol = 0; nCol < aSnapshot.getNodeCount (); ++nCol)
+        assertEquals (aSnapshot.getNode (nRow).isToNode (aSnapshot.getNode (nCol)) ? 1 : 0, aMatrix.get (nRow, nCol), 0);
+
+    final SimpleGraph aGraph2 = _buildGraph ();
+    final GraphSnapshot <IMutableGraphNode> aSnapshot2 = GraphSnapshot.create (aGraph2, x -> _getNodeValue (x.getNode1 ()));
+    final SparseMatrix aMatrix2 = aSnapshot2.createAdjacencyMatrix ();
+    assertTrue (aMatrix2.isSymmetric ());
+    for (final IMutableGraphRelation aRelation : aGraph2.getAllRelations ().values ())
+      assertEquals (_getNodeValue (aRelation.getNode1 ()),
+                    aMatrix2.get (aSnapshot2.getNodeIndex (aRelation.getNode1ID ()),
+                                  aSnapshot2.getNodeIndex (aRelation.getNode2ID ())),
+                    0);
+  }
+
+  @Test
+  public void testEmpty ()
+  {
+    final GraphSnapshot <IMutableGraphNode> aSnapshot = GraphSnapshot.create (new SimpleGraph ());
+    assertEquals (0, aSnapshot.getNodeCount ());
+    assertEquals (0, aSnapshot.getArcCount ());
+    assertEquals (-1, aSnapshot.getNodeIndex ("any"));
+  }
+
+  @Test
+  public void testNegativeWeight ()
+  {
+    final SimpleGraph aGraph = _buildGraph ();
+    try
+    {
+      GraphSnapshot.create (aGraph, x -> -1);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.graph.IMutableBaseGraph;
+import com.helger.graph.IMutableBaseGraphNode;
+import com.helger.graph.IMutableBaseGraphRelation;
+import com.helger.graph.IMutableDirectedGraphNode;
+import com.helger.graph.IMutableDirectedGraphRelation;
+import com.helger.graph.IMutableGraphNode;
+import com.helger.graph.algo.Dijkstra;
+import com.helger.graph.simple.SimpleDirectedGraph;
+import com.helger.graph.simple.SimpleDirectedGraphObjectFastFactory;
+import com.helger.graph.simple.SimpleGraph;
+import com.helger.graph.simple.SimpleGraphObjectFastFactory;
+
+/**
+ * Test class for class {@link IndexedDijkstra}.
+ *
+ * @author Philip Helger
+ */
+public final class IndexedDijkstraTest
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (IndexedDijkstraTest.class);
+  private static final String ATTR_WEIGHT = "weight";
+
+  private static int _getWeight (@Nonnull final IMutableBaseGraphRelation <?, ?> aRel)
+  {
+    return aRel.attrs ().getAsInt (ATTR_WEIGHT, Integer.MIN_VALUE);
+  }
+
+  private static <N extends IMutableBaseGraphNode <N, R>, R extends IMutableBaseGraphRelation <N, R>> void _assertValidPath (@Nonnull final Dijkstra.Result <N> aResult,
+                                                                                                                             @Nonnull final String sFromID,
+                                                                                                                             @Nonnull final String sToID)
+  {
+    final ICommonsList <N> aNodes = aResult.getAllResultNodes ();
+    assertEquals (sFromID, aNodes.getFirst ().getID ());
+    assertEquals (sToID, aNodes.getLast ().getID ());
+    int nDistance = 0;
+    for (int i = 1; i < aNodes.size (); ++i)
+    {
+      final N aFrom = aNodes.get (i - 1);
+      final N aTo = aNodes.get (i);
+      int nMin = Integer.MAX_VALUE;
+      // Consider parallel relations
+      for (final R aRel : aFrom.getAllRelations ())
+        if (aRel.isRelatedTo (aTo) &&
+            (!aRel.isDirected () || ((IMutableDirectedGraphRelation) aRel).getFrom () == (Object) aFrom))
+          nMin = Math.min (nMin, _getWeight (aRel));
+      assertTrue ("No relation between " + aFrom.getID () + " and " + aTo.getID (), nMin != Integer.MAX_VALUE);
+      nDistance += nMin;
+    }
+    assertEquals (aResult.getResultDistance (), nDistance);
+  }
+
+  private static <N extends IMutableBaseGraphNode <N, R>, R extends IMutableBaseGraphRelation <N, R>> void _compareWithDijkstra (@Nonnull final IMutableBaseGraph <N, R> aGraph,
+                                                                                                                                 @Nonnull final String sFromID,
+                                                                                                                                 @Nonnull final String sToID)
+  {
+    final Dijkstra.Result <N> aExpected = Dijkstra.applyDijkstra (aGraph, sFromID, sToID, IndexedDijkstraTest::_getWeight);
+    final Dijkstra.Result <N> aResult = IndexedDijkstra.applyDijkstra (aGraph, sFromID, sToID, IndexedDijkstraTest::_getWeight);
+    assertNotNull (aResult);
+    assertEquals (aExpected.getResultDistance (), aResult.getResultDistance ());
+    _assertValidPath (aResult, sFromID, sToID);
+  }
+
+  @Test
+  public void testExample1aDirected ()
+  {
+    final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    for (int i = 1; i <= 6; ++i)
+      g.createNode (Integer.toString (i));
+    g.createRelation ("1", "2").attrs ().putIn (ATTR_WEIGHT, 3);
+    g.createRelation ("1", "3").attrs ().putIn (ATTR_WEIGHT, 1);
+    g.createRelation ("2", "5").attrs ().putIn (ATTR_WEIGHT, 1);
+    g.createRelation ("3", "4").attrs ().putIn (ATTR_WEIGHT, 1);
+    g.createRelation ("3", "6").attrs ().putIn (ATTR_WEIGHT, 4);
+    g.createRelation ("4", "5").attrs ().putIn (ATTR_WEIGHT, 5);
+    g.createRelation ("4", "6").attrs ().putIn (ATTR_WEIGHT, 5);
+    g.createRelation ("5", "6").attrs ().putIn (ATTR_WEIGHT, 2);
+
+    final Dijkstra.Result <IMutableDirectedGraphNode> r = IndexedDijkstra.applyDijkstra (g,
+                                                                                         "1",
+                                                                                         "6",
+                                                                                         IndexedDijkstraTest::_getWeight);
+    assertNotNull (r);
+    LOGGER.info (r.getAsString ());
+    assertEquals (5, r.getResultDistance ());
+    _assertValidPath (r, "1", "6");
+
+    // Reverse direction is not reachable
+    assertNull (IndexedDijkstra.applyDijkstra (g, "6", "1", IndexedDijkstraTest::_getWeight));
+
+    // Same node
+    final Dijkstra.Result <IMutableDirectedGraphNode> r2 = IndexedDijkstra.applyDijkstra (g,
+                                                                                          "3",
+                                                                                          "3",
+                                                                                          IndexedDijkstraTest::_getWeight);
+    assertNotNull (r2);
+    assertEquals (0, r2.getResultDistance ());
+    assertEquals (1, r2.getResultNodeCount ());
+  }
+
+  @Test
+  public void testCities ()
+  {
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    g.createNode ("Barcelona");
+    g.createNode ("Narbonne");
+    g.createNode ("Marseille");
+    g.createNode ("Toulouse");
+    g.createNode ("Geneve");
+    g.createNode ("Paris");
+    g.createNode ("Lausanne");
+    g.createRelation ("Barcelona", "Narbonne").attrs ().putIn (ATTR_WEIGHT, 250);
+    g.createRelation ("Narbonne", "Marseille").attrs ().putIn (ATTR_WEIGHT, 260);
+    g.createRelation ("Narbonne", "Toulouse").attrs ().putIn (ATTR_WEIGHT, 150);
+    g.createRelation ("Narbonne", "Geneve").attrs ().putIn (ATTR_WEIGHT, 550);
+    g.createRelation ("Marseille", "Geneve").attrs ().putIn (ATTR_WEIGHT, 470);
+    g.createRelation ("Toulouse", "Paris").attrs ().putIn (ATTR_WEIGHT, 680);
+    g.createRelation ("Toulouse", "Geneve").attrs ().putIn (ATTR_WEIGHT, 700);
+    g.createRelation ("Geneve", "Paris").attrs ().putIn (ATTR_WEIGHT, 540);
+    g.createRelation ("Geneve", "Lausanne").attrs ().putIn (ATTR_WEIGHT, 64);
+    g.createRelation ("Lausanne", "Paris").attrs ().putIn (ATTR_WEIGHT, 536);
+
+    final GraphSnapshot <IMutableGraphNode> aSnapshot = GraphSnapshot.create (g, IndexedDijkstraTest::_getWeight);
+    Dijkstra.Result <IMutableGraphNode> r = IndexedDijkstra.applyDijkstra (aSnapshot, "Barcelona", "Lausanne");
+    assertNotNull (r);
+    LOGGER.info (r.getAsString ());
+    assertEquals (864, r.getResultDistance ());
+
+    r = IndexedDijkstra.applyDijkstra (aSnapshot, "Lausanne", "Barcelona");
+    assertNotNull (r);
+    assertEquals (864, r.getResultDistance ());
+
+    // A* with a trivial heuristic
+    r = IndexedDijkstra.applyAStar (aSnapshot, "Barcelona", "Paris", x -> 0);
+    assertNotNull (r);
+    assertEquals (1080, r.getResultDistance ());
+
+    // Invalid IDs
+    try
+    {
+      IndexedDijkstra.applyDijkstra (aSnapshot, "Wien", "Paris");
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+    try
+    {
+      IndexedDijkstra.applyDijkstra (aSnapshot, "Paris", "Wien");
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testAStarGrid ()
+  {
+    // Grid with Manhattan distance as admissible and consistent heuristic
+    final int nSize = 30;
+    final Random aRandom = new Random (1234);
+    final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+    for (int x = 0; x < nSize; ++x)
+      for (int y = 0; y < nSize; ++y)
+        g.createNode (x + "/" + y);
+    for (int x = 0; x < nSize; ++x)
+      for (int y = 0; y < nSize; ++y)
+      {
+        if (x + 1 < nSize)
+          g.createRelation (x + "/" + y, (x + 1) + "/" + y).attrs ().putIn (ATTR_WEIGHT, 1 + aRandom.nextInt (5));
+        if (y + 1 < nSize)
+          g.createRelation (x + "/" + y, x + "/" + (y + 1)).attrs ().putIn (ATTR_WEIGHT, 1 + aRandom.nextInt (5));
+      }
+
+    final GraphSnapshot <IMutableGraphNode> aSnapshot = GraphSnapshot.create (g, IndexedDijkstraTest::_getWeight);
+    final String sToID = (nSize - 1) + "/" + (nSize - 1);
+    for (int i = 0; i < 10; ++i)
+    {
+      final String sFromID = aRandom.nextInt (nSize) + "/" + aRandom.nextInt (nSize);
+      final Dijkstra.Result <IMutableGraphNode> aExpected = IndexedDijkstra.applyDijkstra (aSnapshot, sFromID, sToID);
+      final Dijkstra.Result <IMutableGraphNode> aResult = IndexedDijkstra.applyAStar (aSnapshot, sFromID, sToID, aNode -> {
+        final String [] aParts = aNode.getID ().split ("/");
+        return (nSize - 1 - Integer.parseInt (aParts[0])) + (nSize - 1 - Integer.parseInt (aParts[1]));
+      });
+      assertNotNull (aExpected);
+      assertNotNull (aResult);
+      assertEquals (aExpected.getResultDistance (), aResult.getResultDistance ());
+      _assertValidPath (aResult, sFromID, sToID);
+    }
+  }
+
+  @Test
+  public void testRandomCompareWithDijkstra ()
+  {
+    final Random aRandom = new Random (4711);
+    for (int nRun = 0; nRun < 20; ++nRun)
+    {
+      final int nNodes = 2 + aRandom.nextInt (40);
+
+      // Undirected
+      {
+        final SimpleGraph g = new SimpleGraph (new SimpleGraphObjectFastFactory ());
+        for (int i = 0; i < nNodes; ++i)
+          g.createNode (Integer.toString (i));
+        // Ensure connectivity
+        for (int i = 1; i < nNodes; ++i)
+          g.createRelation (Integer.toString (aRandom.nextInt (i)), Integer.toString (i))
+           .attrs ()
+           .putIn (ATTR_WEIGHT, aRandom.nextInt (100));
+        for (int i = 0; i < nNodes; ++i)
+        {
+          final int nFrom = aRandom.nextInt (nNodes);
+          final int nTo = aRandom.nextInt (nNodes);
+          if (nFrom != nTo && !g.getNodeOfID (Integer.toString (nFrom)).isConnectedWith (g.getNodeOfID (Integer.toString (nTo))))
+            g.createRelation (Integer.toString (nFrom), Integer.toString (nTo)).attrs ().putIn (ATTR_WEIGHT, aRandom.nextInt (100));
+        }
+        _compareWithDijkstra (g, Integer.toString (aRandom.nextInt (nNodes)), Integer.toString (aRandom.nextInt (nNodes)));
+      }
+
+      // Directed - chain from 0 to n-1 ensures reachability
+      {
+        final SimpleDirectedGraph g = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+        for (int i = 0; i < nNodes; ++i)
+          g.createNode (Integer.toString (i));
+        for (int i = 1; i < nNodes; ++i)
+          g.createRelation (Integer.toString (i - 1), Integer.toString (i)).attrs ().putIn (ATTR_WEIGHT, aRandom.nextInt (100));
+        for (int i = 0; i < nNodes * 2; ++i)
+        {
+          final int nFrom = aRandom.nextInt (nNodes);
+          final int nTo = aRandom.nextInt (nNodes);
+          final IMutableDirectedGraphNode aFrom = g.getNodeOfID (Integer.toString (nFrom));
+          final IMutableDirectedGraphNode aTo = g.getNodeOfID (Integer.toString (nTo));
+          if (nFrom != nTo && !aFrom.isConnectedWith (aTo))
+            g.createRelation (aFrom, aTo).attrs ().putIn (ATTR_WEIGHT, aRandom.nextInt (100));
+        }
+        _compareWithDijkstra (g, "0", Integer.toString (nNodes - 1));
+      }
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.graph.supplementary.test;
+
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.timing.StopWatch;
+import com.helger.graph.IMutableDirectedGraphNode;
+import com.helger.graph.iterate.DirectedGraphIteratorForward;
+import com.helger.graph.simple.SimpleDirectedGraph;
+import com.helger.graph.simple.SimpleDirectedGraphObjectFastFactory;
+import com.helger.graph.snapshot.GraphSnapshot;
+import com.helger.graph.snapshot.GraphSnapshotHelper;
+
+/**
+ * Compare the existing graph iteration and cycle detection with the
+ * {@link GraphSnapshotHelper} algorithms on random acyclic directed graphs.
+ * The edge counts can be passed as command line arguments (e.g. "10000000");
+ * the defaults cover 10k to 1M edges. The legacy algorithms are only measured
+ * once and only on small graphs, because they take very long on large graphs.
+ *
+ * @author Philip Helger
+ */
+public final class MainBenchmarkGraphSnapshot
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (MainBenchmarkGraphSnapshot.class);
+  private static final int RUNS = 5;
+  private static final int EDGES_PER_NODE = 4;
+  private static final int LEGACY_ITERATION_MAX_EDGES = 100_000;
+  private static final int LEGACY_CYCLE_MAX_EDGES = 10_000;
+
+  private MainBenchmarkGraphSnapshot ()
+  {}
+
+  @Nonnull
+  private static SimpleDirectedGraph _createGraph (final int nEdges)
+  {
+    final int nNodes = Math.max (2, nEdges / EDGES_PER_NODE);
+    final Random aRandom = new Random (4711);
+    final SimpleDirectedGraph ret = new SimpleDirectedGraph (new SimpleDirectedGraphObjectFastFactory ());
+    final IMutableDirectedGraphNode [] aNodes = new IMutableDirectedGraphNode [nNodes];
+    for (int i = 0; i < nNodes; ++i)
+      aNodes[i] = ret.createNode (Integer.toString (i));
+    // Chain to make all nodes reachable from the first node
+    for (int i = 1; i < nNodes; ++i)
+      ret.createRelation (aNodes[i - 1], aNodes[i]);
+    // Only relations from lower to higher indices, so the graph is acyclic
+    int nCount = nNodes - 1;
+    while (nCount < nEdges)
+    {
+      final int nFrom = aRandom.nextInt (nNodes - 1);
+      final int nTo = nFrom + 1 + aRandom.nextInt (Math.min (nNodes - nFrom - 1, 10_000));
+      if (!aNodes[nFrom].isToNode (aNodes[nTo]))
+      {
+        ret.createRelation (aNodes[nFrom], aNodes[nTo]);
+        nCount++;
+      }
+    }
+    return ret;
+  }
+
+  private static void _measure (@Nonnull final String sName, final int nRuns, @Nonnull final LongSupplier aRunnable)
+  {
+    long nBest = Long.MAX_VALUE;
+    long nChecksum = 0;
+    for (int nRun = 0; nRun < nRuns; ++nRun)
+    {
+      final StopWatch aSW = StopWatch.createdStarted ();
+      nChecksum += aRunnable.getAsLong ();
+      nBest = Math.min (nBest, aSW.stopAndGetDuration ().toNanos ());
+    }
+    LOGGER.info ("  " + sName + ": " + (nBest / 1_000_000d) + " ms [" + nChecksum / nRuns + "]");
+  }
+
+  public static void main (final String [] args)
+  {
+    final int [] aEdgeCounts;
+    if (args.length > 0)
+    {
+      aEdgeCounts = new int [args.length];
+      for (int i = 0; i < args.length; ++i)
+        aEdgeCounts[i] = Integer.parseInt (args[i]);
+    }
+    else
+      aEdgeCounts = new int [] { 10_000, 100_000, 1_000_000 };
+
+    for (final int nEdges : aEdgeCounts)
+    {
+      final SimpleDirectedGraph aGraph = _createGraph (nEdges);
+      final IMutableDirectedGraphNode aStartNode = aGraph.getNodeOfID ("0");
+      LOGGER.info (aGraph.getNodeCount () + " nodes and " + nEdges + " edges:");
+
+      if (nEdges <= LEGACY_ITERATION_MAX_EDGES)
+        _measure ("Legacy forward iteration", 1, () -> {
+          long n = 0;
+          final DirectedGraphIteratorForward it = new DirectedGraphIteratorForward (aStartNode);
+          while (it.hasNext ())
+          {
+            it.next ();
+            n++;
+          }
+          return n;
+        });
+      if (nEdges <= LEGACY_CYCLE_MAX_EDGES)
+        _measure ("Legacy containsCycles", 1, () -> {
+          // Adding and removing a node clears the cached value
+          aGraph.removeNode (aGraph.createNode ("dummy"));
+          return aGraph.containsCycles () ? 1 : 0;
+        });
+
+      _measure ("Snapshot creation", RUNS, () -> GraphSnapshot.create (aGraph).getArcCount ());
+      final GraphSnapshot <IMutableDirectedGraphNode> aSnapshot = GraphSnapshot.create (aGraph);
+      final int nStartIndex = aSnapshot.getNodeIndex (aStartNode.getID ());
+      _measure ("Snapshot BFS", RUNS, () -> GraphSnapshotHelper.getBFSOrder (aSnapshot, nStartIndex).length);
+      _measure ("Snapshot containsCycles", RUNS, () -> GraphSnapshotHelper.containsCycles (aSnapshot) ? 1 : 0);
+      _measure ("Snapshot topological order", RUNS, () -> GraphSnapshotHelper.getTopologicalOrder (aSnapshot).length);
+      _measure ("Snapshot connected components", RUNS, () -> GraphSnapshotHelper.getConnectedComponentCount (aSnapshot));
+    }
+  }
+}
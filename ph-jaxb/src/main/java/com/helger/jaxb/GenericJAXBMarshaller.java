@@ -88,6 +88,7 @@ public class GenericJAXBMarshaller <JAXBTYPE> implements
   private String m_sSchemaLocation = JAXBBuilderDefaultSettings.getDefaultSchemaLocation ();
   private String m_sNoNamespaceSchemaLocation = JAXBBuilderDefaultSettings.getDefaultNoNamespaceSchemaLocation ();
   private boolean m_bUseContextCache = JAXBBuilderDefaultSettings.isDefaultUseContextCache ();
+  private boolean m_bUseMarshallerPool = JAXBBuilderDefaultSettings.isDefaultUseMarshallerPool ();
   private WeakReference <ClassLoader> m_aClassLoader;
   private final CallbackList <IExceptionCallback <JAXBException>> m_aReadExceptionCallbacks = new CallbackList <> ();
   private final CallbackList <IExceptionCallback <JAXBException>> m_aWriteExceptionCallbacks = new CallbackList <> ();
@@ -389,6 +390,34 @@ public class GenericJAXBMarshaller <JAXBTYPE> implements
     return this;
   }
 
+  public final boolean isUseMarshallerPool ()
+  {
+    return m_bUseMarshallerPool;
+  }
+
+  /**
+   * Change whether Marshaller and Unmarshaller objects should be taken from the
+   * {@link JAXBMarshallerPool} or not. Pooled objects are only shared between
+   * marshallers of the same class with the same settings. As a pooled object
+   * may have been used before, the customize methods must not rely on default
+   * values but set all the properties they need. The listener, the event
+   * handler and the schema are reset before an object is returned to the
+   * pool. Objects like the event handler or the namespace context are compared
+   * by identity, so a modification of e.g. the namespace context is visible to
+   * all pooled objects that were created with it.
+   *
+   * @param bUseMarshallerPool
+   *        <code>true</code> to use it, <code>false</code> if not (default).
+   * @return this for chaining
+   * @since 11.0.1
+   */
+  @Nonnull
+  public final GenericJAXBMarshaller <JAXBTYPE> setUseMarshallerPool (final boolean bUseMarshallerPool)
+  {
+    m_bUseMarshallerPool = bUseMarshallerPool;
+    return this;
+  }
+
   /**
    * @return Read exception callbacks. Never <code>null</code>.
    * @since 9.2.2
@@ -455,25 +484,56 @@ public class GenericJAXBMarshaller <JAXBTYPE> implements
   }
 
   /**
-   * @param aClassLoader
-   *        The class loader to be used for XML schema resolving. May be
-   *        <code>null</code>.
+   * Get the key for the {@link JAXBMarshallerPool}. It contains everything
+   * that is used to configure a Marshaller or Unmarshaller. All objects that
+   * might reference a specific class loader are only weakly referenced by the
+   * key and are compared by identity.
+   *
+   * @param aPooledClass
+   *        The class of the pooled objects.
+   * @param aJAXBContext
+   *        The JAXB context to use.
+   * @param aValidationSchema
+   *        The validation schema to use. May be <code>null</code>.
+   * @return The pool key. Never <code>null</code>.
+   */
+  @Nonnull
+  private Object _getPoolKey (@Nonnull final Class <?> aPooledClass,
+                              @Nonnull final JAXBContext aJAXBContext,
+                              @Nullable final Schema aValidationSchema)
+  {
+    return new JAXBMarshallerPoolKey (new CommonsArrayList <> (getClass (),
+                                                               aPooledClass,
+                                                               aJAXBContext,
+                                                               aValidationSchema,
+                                                               m_aEventHandler,
+                                                               m_aNSContext),
+                                      new CommonsArrayList <> (Boolean.valueOf (m_bFormattedOutput),
+                                                               m_aCharset == null ? null : m_aCharset.name (),
+                                                               m_sIndentString,
+                                                               m_sSchemaLocation,
+                                                               m_sNoNamespaceSchemaLocation));
+  }
+
+  /**
+   * @param aJAXBContext
+   *        The JAXB context to use. May not be <code>null</code>.
+   * @param aValidationSchema
+   *        The validation schema to use. May be <code>null</code>.
    * @return The JAXB unmarshaller to use. Never <code>null</code>.
    * @throws JAXBException
    *         In case the creation fails.
    */
   @Nonnull
-  private Unmarshaller _createUnmarshaller (@Nullable final ClassLoader aClassLoader) throws JAXBException
+  private Unmarshaller _createUnmarshaller (@Nonnull final JAXBContext aJAXBContext,
+                                            @Nullable final Schema aValidationSchema) throws JAXBException
   {
-    final JAXBContext aJAXBContext = getJAXBContext (aClassLoader);
-
     // create an Unmarshaller
     final Unmarshaller aUnmarshaller = aJAXBContext.createUnmarshaller ();
     if (m_aEventHandler != null)
       aUnmarshaller.setEventHandler (m_aEventHandler);
 
     // Set XSD (if any)
-    final Schema aValidationSchema = createValidationSchema ();
     if (aValidationSchema != null)
       aUnmarshaller.setSchema (aValidationSchema);
 
@@ -499,9 +559,28 @@ public class GenericJAXBMarshaller <JAXBTYPE> implements
 
     try
     {
-      final Unmarshaller aUnmarshaller = _createUnmarshaller (getClassLoader ());
+      final JAXBContext aJAXBContext = getJAXBContext (getClassLoader ());
+      final Schema aValidationSchema = createValidationSchema ();
+      final Object aPoolKey = m_bUseMarshallerPool ? _getPoolKey (Unmarshaller.class, aJAXBContext, aValidationSchema)
+                                                   : null;
+
+      Unmarshaller aUnmarshaller = aPoolKey == null ? null
+                                                    : JAXBMarshallerPool.getInstance ()
+                                                                        .borrow (aPoolKey, Unmarshaller.class);
+      if (aUnmarshaller == null)
+        aUnmarshaller = _createUnmarshaller (aJAXBContext, aValidationSchema);
       customizeUnmarshaller (aUnmarshaller);
-      return aHandler.doUnmarshal (aUnmarshaller, m_aType).getValue ();
+      final JAXBTYPE ret = aHandler.doUnmarshal (aUnmarshaller, m_aType).getValue ();
+
+      if (aPoolKey != null)
+      {
+        // Only successfully used objects are returned to the pool
+        aUnmarshaller.setListener (null);
+        aUnmarshaller.setEventHandler (m_aEventHandler);
+        aUnmarshaller.setSchema (aValidationSchema);
+        JAXBMarshallerPool.getInstance ().release (aPoolKey, aUnmarshaller);
+      }
+      return ret;
     }
     catch (final JAXBException ex)
     {
@@ -511,20 +590,20 @@ public class GenericJAXBMarshaller <JAXBTYPE> implements
   }
 
   /**
-   * @param aClassLoader
-   *        The class loader to be used for XML schema resolving. May be
-   *        <code>null</code>.
+   * @param aJAXBContext
+   *        The JAXB context to use. May not be <code>null</code>.
+   * @param aValidationSchema
+   *        The validation schema to use. May be <code>null</code>.
    * @return A marshaller for converting document to XML. Never
    *         <code>null</code>.
    * @throws JAXBException
    *         In case of an error.
    */
   @Nonnull
-  private Marshaller _createMarshaller (@Nullable final ClassLoader aClassLoader) throws JAXBException
+  private Marshaller _createMarshaller (@Nonnull final JAXBContext aJAXBContext,
+                                        @Nullable final Schema aValidationSchema) throws JAXBException
   {
-    final JAXBContext aJAXBContext = getJAXBContext (aClassLoader);
-
-    // create an Unmarshaller
+    // create a Marshaller
     final Marshaller aMarshaller = aJAXBContext.createMarshaller ();
     if (m_aEventHandler != null)
       aMarshaller.setEventHandler (m_aEventHandler);
@@ -560,7 +639,6 @@ public class GenericJAXBMarshaller <JAXBTYPE> implements
       JAXBMarshallerHelper.setNoNamespaceSchemaLocation (aMarshaller, m_sNoNamespaceSchemaLocation);
 
     // Set XSD (if any)
-    final Schema aValidationSchema = createValidationSchema ();
     if (aValidationSchema != null)
       aMarshaller.setSchema (aValidationSchema);
 
@@ -588,13 +666,30 @@ public class GenericJAXBMarshaller <JAXBTYPE> implements
 
     try
     {
-      final Marshaller aMarshaller = _createMarshaller (getClassLoader ());
+      final JAXBContext aJAXBContext = getJAXBContext (getClassLoader ());
+      final Schema aValidationSchema = createValidationSchema ();
+      final Object aPoolKey = m_bUseMarshallerPool ? _getPoolKey (Marshaller.class, aJAXBContext, aValidationSchema)
+                                                   : null;
+
+      Marshaller aMarshaller = aPoolKey == null ? null
+                                                : JAXBMarshallerPool.getInstance ().borrow (aPoolKey, Marshaller.class);
+      if (aMarshaller == null)
+        aMarshaller = _createMarshaller (aJAXBContext, aValidationSchema);
       customizeMarshaller (aMarshaller);
 
       final JAXBElement <JAXBTYPE> aJAXBElement = m_aJAXBElementWrapper.apply (aObject);
 
       // Main writing
       aMarshallerFunc.doMarshal (aMarshaller, aJAXBElement);
+
+      if (aPoolKey != null)
+      {
+        // Only successfully used objects are returned to the pool
+        aMarshaller.setListener (null);
+        aMarshaller.setEventHandler (m_aEventHandler);
+        aMarshaller.setSchema (aValidationSchema);
+        JAXBMarshallerPool.getInstance ().release (aPoolKey, aMarshaller);
+      }
       return ESuccess.SUCCESS;
     }
     catch (final JAXBException ex)
@@ -625,7 +720,7 @@ public class GenericJAXBMarshaller <JAXBTYPE> implements
     try
     {
       // create a Marshaller
-      final Marshaller aMarshaller = _createMarshaller (getClassLoader ());
+      final Marshaller aMarshaller = _createMarshaller (getJAXBContext (getClassLoader ()), createValidationSchema ());
 
       // Overwrite event handler
       aMarshaller.setEventHandler (aEventHandler);
@@ -667,6 +762,7 @@ public class GenericJAXBMarshaller <JAXBTYPE> implements
                                        .append ("SchemaLocation", m_sSchemaLocation)
                                        .append ("NoNamespaceSchemaLocation", m_sNoNamespaceSchemaLocation)
                                        .append ("UseContextCache", m_bUseContextCache)
+                                       .append ("UseMarshallerPool", m_bUseMarshallerPool)
                                        .append ("ClassLoader", m_aClassLoader)
                                        .append ("ReadExceptionHandlers", m_aReadExceptionCallbacks)
                                        .append ("WriteExceptionHandlers", m_aWriteExceptionCallbacks)
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jaxb;
+
+import java.lang.ref.SoftReference;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Singleton;
+import com.helger.commons.collection.map.LRUMap;
+import com.helger.commons.concurrent.SimpleLock;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCache;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.StatisticsManager;
+
+/**
+ * A bounded pool for JAXB {@link jakarta.xml.bind.Marshaller} and
+ * {@link jakarta.xml.bind.Unmarshaller} objects. Creating these objects
+ * requires to apply all properties, the validation schema and the event
+ * handler, which is a considerable overhead if many small documents are
+ * processed. Pooled objects are identified by a key that must contain
+ * everything that was used to configure them. Both the number of keys and the
+ * number of idle objects per key are limited, so that the pool cannot grow
+ * without bounds.<br>
+ * As this pool is a global singleton, it must not keep class loaders alive
+ * (e.g. of undeployed web applications). Idle objects are therefore only
+ * softly referenced, and keys of type {@link JAXBMarshallerPoolKey} that
+ * reference garbage collected objects are removed when a new key is added.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+@Singleton
+public final class JAXBMarshallerPool
+{
+  public static final int DEFAULT_MAX_KEYS = 100;
+  public static final int DEFAULT_MAX_IDLE_PER_KEY = 16;
+
+  private static final IMutableStatisticsHandlerCache STATS_POOL = StatisticsManager.getCacheHandler (JAXBMarshallerPool.class);
+  private static final IMutableStatisticsHandlerCounter STATS_DISCARDED = StatisticsManager.getCounterHandler (JAXBMarshallerPool.class.getName () +
+                                                                                                               "$discarded");
+
+  private static final class SingletonHolder
+  {
+    static final JAXBMarshallerPool INSTANCE = new JAXBMarshallerPool ();
+  }
+
+  private final SimpleLock m_aLock = new SimpleLock ();
+  @GuardedBy ("m_aLock")
+  private final LRUMap <Object, Queue <SoftReference <Object>>> m_aPools = new LRUMap <> (DEFAULT_MAX_KEYS);
+
+  private JAXBMarshallerPool ()
+  {}
+
+  @Nonnull
+  public static JAXBMarshallerPool getInstance ()
+  {
+    return SingletonHolder.INSTANCE;
+  }
+
+  @Nonnull
+  private Queue <SoftReference <Object>> _getQueue (@Nonnull final Object aKey)
+  {
+    return m_aLock.lockedGet ( () -> {
+      Queue <SoftReference <Object>> ret = m_aPools.get (aKey);
+      if (ret == null)
+      {
+        // Remove all keys that can never be matched again
+        m_aPools.removeIfKey (x -> x instanceof JAXBMarshallerPoolKey && ((JAXBMarshallerPoolKey) x).isStale ());
+        ret = new ArrayBlockingQueue <> (DEFAULT_MAX_IDLE_PER_KEY);
+        m_aPools.put (aKey, ret);
+      }
+      return ret;
+    });
+  }
+
+  /**
+   * Take an idle object out of the pool.
+   *
+   * @param aKey
+   *        The key describing the configuration of the object. May not be
+   *        <code>null</code>.
+   * @param aClass
+   *        The expected class of the object. May not be <code>null</code>.
+   * @return <code>null</code> if no matching idle object is present.
+   * @param <T>
+   *        The type of the pooled object
+   */
+  @Nullable
+  public <T> T borrow (@Nonnull final Object aKey, @Nonnull final Class <T> aClass)
+  {
+    ValueEnforcer.notNull (aKey, "Key");
+    ValueEnforcer.notNull (aClass, "Class");
+
+    final Queue <SoftReference <Object>> aQueue = _getQueue (aKey);
+    SoftReference <Object> aRef;
+    while ((aRef = aQueue.poll ()) != null)
+    {
+      final Object ret = aRef.get ();
+      if (ret != null)
+      {
+        STATS_POOL.cacheHit ();
+        return aClass.cast (ret);
+      }
+      // Garbage collected - try the next one
+    }
+    STATS_POOL.cacheMiss ();
+    return null;
+  }
+
+  /**
+   * Put an object back into the pool. The caller is responsible for resetting
+   * all state that was changed after borrowing. If the pool for the key is
+   * full, the object is discarded.
+   *
+   * @param aKey
+   *        The key describing the configuration of the object. May not be
+   *        <code>null</code>.
+   * @param aObject
+   *        The object to return. May not be <code>null</code>.
+   */
+  public void release (@Nonnull final Object aKey, @Nonnull final Object aObject)
+  {
+    ValueEnforcer.notNull (aKey, "Key");
+    ValueEnforcer.notNull (aObject, "Object");
+
+    if (!_getQueue (aKey).offer (new SoftReference <> (aObject)))
+      STATS_DISCARDED.increment ();
+  }
+
+  /**
+   * @return The number of different keys currently contained.
+   */
+  @Nonnegative
+  public int getKeyCount ()
+  {
+    return m_aLock.lockedInt (m_aPools::size);
+  }
+
+  /**
+   * Remove all idle objects from the pool.
+   */
+  public void clear ()
+  {
+    m_aLock.locked (m_aPools::clear);
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jaxb;
+
+import java.lang.ref.WeakReference;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.MustImplementEqualsAndHashcode;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * The key class for the {@link JAXBMarshallerPool} as used by
+ * {@link GenericJAXBMarshaller}. Objects like the implementation class, the
+ * JAXB context, the schema, the event handler or the namespace context are
+ * only weakly referenced and compared by identity. That way the key does not
+ * prevent a class loader from being unloaded, and a later modification of a
+ * mutable object (like a namespace context) cannot change the hash code.
+ * Immutable values like Strings are compared by equality.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@Immutable
+@MustImplementEqualsAndHashcode
+final class JAXBMarshallerPoolKey
+{
+  // null elements are kept as null
+  private final ICommonsList <WeakReference <Object>> m_aIdentityObjects;
+  private final ICommonsList <Object> m_aValues;
+  private final int m_nHashCode;
+
+  /**
+   * Constructor.
+   *
+   * @param aIdentityObjects
+   *        The objects to be compared by identity. May not be
+   *        <code>null</code> but may contain <code>null</code> elements.
+   * @param aValues
+   *        The immutable values to be compared by equality. Must not
+   *        reference any class loader specific object. May not be
+   *        <code>null</code> but may contain <code>null</code> elements.
+   */
+  JAXBMarshallerPoolKey (@Nonnull final ICommonsList <?> aIdentityObjects, @Nonnull final ICommonsList <?> aValues)
+  {
+    ValueEnforcer.notNull (aIdentityObjects, "IdentityObjects");
+    ValueEnforcer.notNull (aValues, "Values");
+
+    m_aIdentityObjects = new CommonsArrayList <> (aIdentityObjects, x -> x == null ? null : new WeakReference <> (x));
+    m_aValues = new CommonsArrayList <> (aValues);
+
+    final HashCodeGenerator aHCG = new HashCodeGenerator (this);
+    for (final Object aObj : aIdentityObjects)
+      aHCG.append (System.identityHashCode (aObj));
+    m_nHashCode = aHCG.append (m_aValues).getHashCode ();
+  }
+
+  /**
+   * @return <code>true</code> if at least one of the identity objects was
+   *         garbage collected. A stale key is never equal to any other key.
+   */
+  boolean isStale ()
+  {
+    return m_aIdentityObjects.containsAny (x -> x != null && x.get () == null);
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final JAXBMarshallerPoolKey rhs = (JAXBMarshallerPoolKey) o;
+    if (m_nHashCode != rhs.m_nHashCode ||
+        m_aIdentityObjects.size () != rhs.m_aIdentityObjects.size () ||
+        !m_aValues.equals (rhs.m_aValues))
+      return false;
+
+    for (int i = 0; i < m_aIdentityObjects.size (); ++i)
+    {
+      final WeakReference <Object> aRef = m_aIdentityObjects.get (i);
+      final WeakReference <Object> aRhsRef = rhs.m_aIdentityObjects.get (i);
+      if (aRef == null || aRhsRef == null)
+      {
+        if (aRef != aRhsRef)
+          return false;
+      }
+      else
+      {
+        // Garbage collected objects are never equal
+        final Object aObj = aRef.get ();
+        if (aObj == null || aObj != aRhsRef.get ())
+          return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return m_nHashCode;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("IdentityObjects", m_aIdentityObjects)
+                                       .append ("Values", m_aValues)
+                                       .getToString ();
+  }
+}
@@ -40,6 +40,7 @@ import jakarta.xml.bind.ValidationEventHandler;
 public final class JAXBBuilderDefaultSettings
 {
   public static final boolean DEFAULT_USE_CONTEXT_CACHE = true;
+  public static final boolean DEFAULT_USE_MARSHALLER_POOL = false;
   public static final ValidationEventHandler DEFAULT_VALIDATION_EVENT_HANDLER = LoggingValidationEventHandler.DEFAULT_INSTANCE;
   public static final boolean DEFAULT_FORMATTED_OUTPUT = false;
   public static final Charset DEFAULT_CHARSET = XMLWriterSettings.DEFAULT_XML_CHARSET_OBJ;
@@ -48,6 +49,8 @@ public final class JAXBBuilderDefaultSettings
   @GuardedBy ("RW_LOCK")
   private static boolean s_bUseContextCache = DEFAULT_USE_CONTEXT_CACHE;
   @GuardedBy ("RW_LOCK")
+  private static boolean s_bUseMarshallerPool = DEFAULT_USE_MARSHALLER_POOL;
+  @GuardedBy ("RW_LOCK")
   private static ValidationEventHandler s_aEventHandler = DEFAULT_VALIDATION_EVENT_HANDLER;
   @GuardedBy ("RW_LOCK")
   private static NamespaceContext s_aNamespaceContext;
@@ -86,6 +89,30 @@ public final class JAXBBuilderDefaultSettings
     return RW_LOCK.readLockedBoolean ( () -> s_bUseContextCache);
   }
 
+  /**
+   * Enable or disable the pooling of JAXB Marshaller and Unmarshaller objects.
+   * By default it is disabled.
+   *
+   * @param bUseMarshallerPool
+   *        <code>true</code> to enable it, <code>false</code> to disable it.
+   * @since 11.0.1
+   * @see com.helger.jaxb.JAXBMarshallerPool
+   */
+  public static void setDefaultUseMarshallerPool (final boolean bUseMarshallerPool)
+  {
+    RW_LOCK.writeLocked ( () -> s_bUseMarshallerPool = bUseMarshallerPool);
+  }
+
+  /**
+   * @return <code>true</code> if JAXB Marshaller and Unmarshaller objects
+   *         should be pooled. Default is <code>false</code>.
+   * @since 11.0.1
+   */
+  public static boolean isDefaultUseMarshallerPool ()
+  {
+    return RW_LOCK.readLockedBoolean ( () -> s_bUseMarshallerPool);
+  }
+
   /**
    * Set a global event handler that should be passed to all read/write actions.
    * If no global validation handler is defined, a default logging event handler
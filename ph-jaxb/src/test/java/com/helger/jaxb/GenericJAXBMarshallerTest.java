@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jaxb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import javax.annotation.Nonnull;
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.resource.ClassPathResource;
+import com.helger.jaxb.mock.external.MockJAXBArchive;
+import com.helger.jaxb.mock.external.MockJAXBCollection;
+import com.helger.jaxb.validation.LoggingValidationEventHandler;
+import com.helger.xml.namespace.MapBasedNamespaceContext;
+
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+
+/**
+ * Test class for class {@link GenericJAXBMarshaller}.
+ *
+ * @author Philip Helger
+ */
+public final class GenericJAXBMarshallerTest
+{
+  private static final ClassPathResource XSD = new ClassPathResource ("xml/mock-without-ns.xsd",
+                                                                      GenericJAXBMarshallerTest.class.getClassLoader ());
+
+  /**
+   * Records all used (un)marshallers, checks that they are in their initial
+   * state and modifies them afterwards.
+   */
+  private static final class MockPooledMarshaller extends GenericJAXBMarshaller <MockJAXBArchive>
+  {
+    private final ICommonsList <Marshaller> m_aMarshallers = new CommonsArrayList <> ();
+    private final ICommonsList <Unmarshaller> m_aUnmarshallers = new CommonsArrayList <> ();
+
+    MockPooledMarshaller ()
+    {
+      super (MockJAXBArchive.class,
+             new CommonsArrayList <> (XSD),
+             x -> new JAXBElement <> (new QName ("", "Root"), MockJAXBArchive.class, x));
+      setValidationEventHandler (LoggingValidationEventHandler.DEFAULT_INSTANCE);
+      setUseMarshallerPool (true);
+    }
+
+    @Override
+    protected void customizeMarshaller (@Nonnull final Marshaller aMarshaller)
+    {
+      try
+      {
+        assertNull (aMarshaller.getListener ());
+        assertSame (getValidationEventHandler (), aMarshaller.getEventHandler ());
+        assertSame (createValidationSchema (), aMarshaller.getSchema ());
+        m_aMarshallers.add (aMarshaller);
+
+        aMarshaller.setListener (new Marshaller.Listener ()
+        {});
+        aMarshaller.setEventHandler (x -> true);
+      }
+      catch (final JAXBException ex)
+      {
+        throw new IllegalStateException (ex);
+      }
+    }
+
+    @Override
+    protected void customizeUnmarshaller (@Nonnull final Unmarshaller aUnmarshaller)
+    {
+      try
+      {
+        assertNull (aUnmarshaller.getListener ());
+        assertSame (getValidationEventHandler (), aUnmarshaller.getEventHandler ());
+        assertSame (createValidationSchema (), aUnmarshaller.getSchema ());
+        m_aUnmarshallers.add (aUnmarshaller);
+
+        aUnmarshaller.setListener (new Unmarshaller.Listener ()
+        {});
+        aUnmarshaller.setEventHandler (x -> true);
+        // Disable validation for this usage only
+        aUnmarshaller.setSchema (null);
+      }
+      catch (final JAXBException ex)
+      {
+        throw new IllegalStateException (ex);
+      }
+    }
+  }
+
+  @Nonnull
+  private static MockJAXBArchive _createArchive ()
+  {
+    final MockJAXBArchive ret = new MockJAXBArchive ();
+    ret.setVersion ("1.23");
+    final MockJAXBCollection aCollection = new MockJAXBCollection ();
+    aCollection.setDescription ("Internal bla foo");
+    aCollection.setID (1);
+    ret.getCollection ().add (aCollection);
+    return ret;
+  }
+
+  @Test
+  public void testRoundTripWithMarshallerPool ()
+  {
+    JAXBMarshallerPool.getInstance ().clear ();
+
+    final MockPooledMarshaller aMarshaller = new MockPooledMarshaller ();
+    final MockJAXBArchive aArc = _createArchive ();
+    for (int i = 0; i < 3; ++i)
+    {
+      final String sXML = aMarshaller.getAsString (aArc);
+      assertNotNull (sXML);
+
+      final MockJAXBArchive aArc2 = aMarshaller.read (sXML);
+      assertNotNull (aArc2);
+      assertEquals (sXML, aMarshaller.getAsString (aArc2));
+    }
+
+    // The same objects were reused all the time
+    assertEquals (6, aMarshaller.m_aMarshallers.size ());
+    for (final Marshaller aItem : aMarshaller.m_aMarshallers)
+      assertSame (aMarshaller.m_aMarshallers.getFirst (), aItem);
+    assertEquals (3, aMarshaller.m_aUnmarshallers.size ());
+    for (final Unmarshaller aItem : aMarshaller.m_aUnmarshallers)
+      assertSame (aMarshaller.m_aUnmarshallers.getFirst (), aItem);
+
+    // Another instance with the same settings shares the pool
+    final MockPooledMarshaller aMarshaller2 = new MockPooledMarshaller ();
+    assertNotNull (aMarshaller2.getAsString (aArc));
+    assertSame (aMarshaller.m_aMarshallers.getFirst (), aMarshaller2.m_aMarshallers.getFirst ());
+
+    // Different settings use different objects
+    aMarshaller2.setFormattedOutput (!aMarshaller2.isFormattedOutput ());
+    assertNotNull (aMarshaller2.getAsString (aArc));
+    assertNotSame (aMarshaller.m_aMarshallers.getFirst (), aMarshaller2.m_aMarshallers.getLast ());
+  }
+
+  @Test
+  public void testMarshallerPoolWithModifiedNamespaceContext ()
+  {
+    JAXBMarshallerPool.getInstance ().clear ();
+
+    final MapBasedNamespaceContext aNSContext = new MapBasedNamespaceContext ().addMapping ("def", "");
+    final MockPooledMarshaller aMarshaller = new MockPooledMarshaller ();
+    aMarshaller.setNamespaceContext (aNSContext);
+    final MockJAXBArchive aArc = _createArchive ();
+    assertNotNull (aMarshaller.getAsString (aArc));
+
+    // Modifying the namespace context must not change the pool key
+    aNSContext.addMapping ("foo", "urn:foo");
+    assertNotNull (aMarshaller.getAsString (aArc));
+    assertEquals (2, aMarshaller.m_aMarshallers.size ());
+    assertSame (aMarshaller.m_aMarshallers.getFirst (), aMarshaller.m_aMarshallers.getLast ());
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.jaxb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+
+/**
+ * Test class for class {@link JAXBMarshallerPool}.
+ *
+ * @author Philip Helger
+ */
+public final class JAXBMarshallerPoolTest
+{
+  @Test
+  public void testBorrowAndRelease ()
+  {
+    final JAXBMarshallerPool aPool = JAXBMarshallerPool.getInstance ();
+    final Object aKey = new CommonsArrayList <> ("testBorrowAndRelease", Boolean.TRUE);
+
+    assertNull (aPool.borrow (aKey, StringBuilder.class));
+
+    final StringBuilder aObj = new StringBuilder ("x");
+    aPool.release (aKey, aObj);
+    // Equal keys share the pool
+    assertSame (aObj, aPool.borrow (new CommonsArrayList <> ("testBorrowAndRelease", Boolean.TRUE), StringBuilder.class));
+    assertNull (aPool.borrow (aKey, StringBuilder.class));
+
+    // Different keys don't share the pool
+    aPool.release (aKey, aObj);
+    assertNull (aPool.borrow (new CommonsArrayList <> ("testBorrowAndRelease", Boolean.FALSE), StringBuilder.class));
+    assertSame (aObj, aPool.borrow (aKey, StringBuilder.class));
+  }
+
+  @Test
+  public void testBounded ()
+  {
+    final JAXBMarshallerPool aPool = JAXBMarshallerPool.getInstance ();
+    final Object aKey = "testBounded";
+
+    for (int i = 0; i < JAXBMarshallerPool.DEFAULT_MAX_IDLE_PER_KEY + 5; ++i)
+      aPool.release (aKey, new StringBuilder ());
+
+    int nCount = 0;
+    while (aPool.borrow (aKey, StringBuilder.class) != null)
+      ++nCount;
+    assertEquals (JAXBMarshallerPool.DEFAULT_MAX_IDLE_PER_KEY, nCount);
+
+    for (int i = 0; i < JAXBMarshallerPool.DEFAULT_MAX_KEYS + 5; ++i)
+      aPool.release ("testBounded" + i, new StringBuilder ());
+    assertEquals (JAXBMarshallerPool.DEFAULT_MAX_KEYS, aPool.getKeyCount ());
+
+    aPool.release (aKey, new StringBuilder ());
+    assertNotNull (aPool.borrow (aKey, StringBuilder.class));
+    aPool.clear ();
+    assertEquals (0, aPool.getKeyCount ());
+  }
+
+  @Nonnull
+  private static JAXBMarshallerPoolKey _createKey (@Nullable final Object aIdentityObject1,
+                                                  @Nullable final Object aIdentityObject2,
+                                                  @Nullable final String sValue)
+  {
+    final ICommonsList <Object> aIdentityObjects = new CommonsArrayList <> ();
+    aIdentityObjects.add (aIdentityObject1);
+    aIdentityObjects.add (aIdentityObject2);
+    final ICommonsList <Object> aValues = new CommonsArrayList <> ();
+    aValues.add (sValue);
+    return new JAXBMarshallerPoolKey (aIdentityObjects, aValues);
+  }
+
+  @Test
+  public void testPoolKey ()
+  {
+    final ICommonsList <String> aMutable = new CommonsArrayList <> ("a");
+    final JAXBMarshallerPoolKey aKey = _createKey (aMutable, null, "a");
+    final int nHashCode = aKey.hashCode ();
+    assertEquals (aKey, _createKey (aMutable, null, new String ("a")));
+    assertNotEquals (aKey, _createKey (aMutable, null, "b"));
+
+    // Identity objects are not compared by equals
+    assertNotEquals (aKey, _createKey (new CommonsArrayList <> ("a"), null, "a"));
+    assertNotEquals (aKey, _createKey (aMutable, aMutable, "a"));
+
+    // Modifications of identity objects don't change the key
+    aMutable.add ("b");
+    assertEquals (nHashCode, aKey.hashCode ());
+    assertEquals (aKey, _createKey (aMutable, null, "a"));
+    assertFalse (aKey.isStale ());
+  }
+
+  @Test
+  public void testStaleKeysAreRemoved () throws Exception
+  {
+    final JAXBMarshallerPool aPool = JAXBMarshallerPool.getInstance ();
+    aPool.clear ();
+
+    Object aObj = new Object ();
+    final JAXBMarshallerPoolKey aKey = _createKey (aObj, null, null);
+    aPool.release (aKey, new StringBuilder ());
+    assertEquals (1, aPool.getKeyCount ());
+
+    // The key must not keep the object alive
+    aObj = null;
+    for (int i = 0; i < 100 && !aKey.isStale (); ++i)
+    {
+      System.gc ();
+      Thread.sleep (10);
+    }
+    assertTrue (aKey.isStale ());
+
+    // Adding a new key removes the stale one
+    aPool.release ("testStaleKeysAreRemoved", new StringBuilder ());
+    assertEquals (1, aPool.getKeyCount ());
+    aPool.clear ();
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.json.parser;
+
+/**
+ * The tokens returned by {@link JsonStreamReader}.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+public enum EJsonStreamToken
+{
+  /** Start of a JSON object */
+  OBJECT_START,
+  /** End of a JSON object */
+  OBJECT_END,
+  /** Start of a JSON array */
+  ARRAY_START,
+  /** End of a JSON array */
+  ARRAY_END,
+  /** Name of an object member */
+  NAME,
+  /** A string value */
+  STRING,
+  /** A number value */
+  NUMBER,
+  /** The constant <code>true</code> */
+  TRUE,
+  /** The constant <code>false</code> */
+  FALSE,
+  /** The constant <code>null</code> */
+  NULL,
+  /** No more tokens are available */
+  END_OF_INPUT;
+
+  /**
+   * @return <code>true</code> if this token starts a JSON object or a JSON
+   *         array.
+   */
+  public boolean isStructureStart ()
+  {
+    return this == OBJECT_START || this == ARRAY_START;
+  }
+
+  /**
+   * @return <code>true</code> if this token ends a JSON object or a JSON
+   *         array.
+   */
+  public boolean isStructureEnd ()
+  {
+    return this == OBJECT_END || this == ARRAY_END;
+  }
+
+  /**
+   * @return <code>true</code> if this token is a simple value (string, number,
+   *         boolean or null).
+   */
+  public boolean isScalarValue ()
+  {
+    return this == STRING || this == NUMBER || this == TRUE || this == FALSE || this == NULL;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.json.parser;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+
+/**
+ * A small direct mapped cache for JSON object names. Object names tend to
+ * repeat a lot in larger documents, so this avoids creating a new String object
+ * for every occurrence. An entry is simply replaced in case of a collision.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@NotThreadSafe
+final class JsonNameCache
+{
+  /** Longer names are not cached */
+  static final int MAX_NAME_LENGTH = 64;
+
+  private final String [] m_aEntries;
+  private final int m_nMask;
+
+  JsonNameCache (@Nonnegative final int nSize)
+  {
+    ValueEnforcer.isTrue (nSize > 0 && Integer.bitCount (nSize) == 1, "Size must be a power of 2");
+    m_aEntries = new String [nSize];
+    m_nMask = nSize - 1;
+  }
+
+  /**
+   * Get the content of the provided builder as a String, reusing a previously
+   * created String with the same content if possible.
+   *
+   * @param aSB
+   *        The builder to get the content from. May not be <code>null</code>.
+   * @return The String representation and never <code>null</code>.
+   */
+  @Nonnull
+  String getAsString (@Nonnull final JsonStringBuilder aSB)
+  {
+    final int nLen = aSB.m_nLen;
+    if (nLen > MAX_NAME_LENGTH)
+      return aSB.getAsString ();
+
+    final char [] aBuf = aSB.m_aBuf;
+    int nHash = 0;
+    for (int i = 0; i < nLen; ++i)
+      nHash = 31 * nHash + aBuf[i];
+    final int nIndex = (nHash ^ (nHash >>> 16)) & m_nMask;
+
+    final String sCached = m_aEntries[nIndex];
+    if (sCached != null && aSB.contentEquals (sCached))
+      return sCached;
+
+    final String ret = aSB.getAsString ();
+    m_aEntries[nIndex] = ret;
+    return ret;
+  }
+}
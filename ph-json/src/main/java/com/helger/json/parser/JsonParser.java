@@ -77,8 +77,10 @@ public class JsonParser
   public static final boolean DEFAULT_REQUIRE_STRING_QUOTES = true;
   public static final boolean DEFAULT_ALLOW_SPECIAL_CHARS_IN_STRING = false;
   public static final boolean DEFAULT_CHECK_FOR_EOI = true;
+  public static final boolean DEFAULT_CACHE_OBJECT_NAMES = true;
 
   private static final int MAX_PUSH_BACK_CHARS = 2;
+  private static final int NAME_CACHE_SIZE = 512;
 
   // Constructor parameters
   private final NonBlockingPushbackReader m_aReader;
@@ -91,6 +93,8 @@ public class JsonParser
   private boolean m_bRequireStringQuotes = DEFAULT_REQUIRE_STRING_QUOTES;
   private boolean m_bAllowSpecialCharsInStrings = DEFAULT_ALLOW_SPECIAL_CHARS_IN_STRING;
   private boolean m_bCheckForEOI = DEFAULT_CHECK_FOR_EOI;
+  private boolean m_bCacheObjectNames = DEFAULT_CACHE_OBJECT_NAMES;
+  private final boolean m_bOriginalStringsRequired;
 
   // Status variables
   // Position tracking
@@ -99,6 +103,11 @@ public class JsonParser
   // string reading cache
   private final JsonStringBuilder m_aSB1 = new JsonStringBuilder (256);
   private final JsonStringBuilder m_aSB2 = new JsonStringBuilder (256);
+  // object name cache
+  private JsonNameCache m_aNameCache;
+  // integer value of the last read number
+  private long m_nNumLong;
+  private boolean m_bNumFitsLong;
 
   public JsonParser (@Nonnull @WillNotClose final Reader aReader, @Nonnull final IJsonParserHandler aCallback)
   {
@@ -107,6 +116,7 @@ public class JsonParser
     // Maximum of 2 pushbacks
     m_aReader = new NonBlockingPushbackReader (aReader, MAX_PUSH_BACK_CHARS);
     m_aCallback = aCallback;
+    m_bOriginalStringsRequired = aCallback.isOriginalStringRequired ();
   }
 
   /**
@@ -209,6 +219,34 @@ public class JsonParser
     return this;
   }
 
+  /**
+   * @return <code>true</code> if the String objects of object names should be
+   *         reused within a single parse run, <code>false</code> if not. By
+   *         default it is enabled - see {@link #DEFAULT_CACHE_OBJECT_NAMES}
+   * @since 11.0.1
+   */
+  public final boolean isCacheObjectNames ()
+  {
+    return m_bCacheObjectNames;
+  }
+
+  /**
+   * Enable or disable the caching of object names. Object names usually repeat
+   * a lot in larger documents, so caching them reduces the number of created
+   * objects and the memory footprint of the resulting JSON tree.
+   *
+   * @param bCacheObjectNames
+   *        <code>true</code> to cache object names, <code>false</code> if not.
+   * @return this for chaining
+   * @since 11.0.1
+   */
+  @Nonnull
+  public final JsonParser setCacheObjectNames (final boolean bCacheObjectNames)
+  {
+    m_bCacheObjectNames = bCacheObjectNames;
+    return this;
+  }
+
   /**
    * @return The current line number. First line has a value of 1.
    */
@@ -406,11 +444,12 @@ public class JsonParser
   }
 
   private void _readStringEscapeChar (@Nonnull final IJsonParsePosition aStartPos,
-                                      @Nonnull final JsonStringBuilder aStrStringOriginalContent,
+                                      @Nullable final JsonStringBuilder aStrStringOriginalContent,
                                       @Nonnull final JsonStringBuilder aStrStringUnescapedContent) throws JsonParseException
   {
     final int c2 = _readChar ();
-    aStrStringOriginalContent.append ((char) c2);
+    if (aStrStringOriginalContent != null)
+      aStrStringOriginalContent.append ((char) c2);
     if (c2 == '"' || c2 == '/' || c2 == '\\')
       aStrStringUnescapedContent.append ((char) c2);
     else
@@ -439,10 +478,13 @@ public class JsonParser
                   final int n2 = _getHexValue (aStartPos, ch2);
                   final int ch3 = _readChar ();
                   final int n3 = _getHexValue (aStartPos, ch3);
-                  aStrStringOriginalContent.append ((char) ch0);
-                  aStrStringOriginalContent.append ((char) ch1);
-                  aStrStringOriginalContent.append ((char) ch2);
-                  aStrStringOriginalContent.append ((char) ch3);
+                  if (aStrStringOriginalContent != null)
+                  {
+                    aStrStringOriginalContent.append ((char) ch0);
+                    aStrStringOriginalContent.append ((char) ch1);
+                    aStrStringOriginalContent.append ((char) ch2);
+                    aStrStringOriginalContent.append ((char) ch3);
+                  }
 
                   final int nUnescapedChar = (n0 & 0xff) << 12 | (n1 & 0xff) << 8 | (n2 & 0xff) << 4 | (n3 & 0xff);
                   aStrStringUnescapedContent.append ((char) nUnescapedChar);
@@ -471,16 +513,20 @@ public class JsonParser
   /**
    * @param eQuoteMode
    *        The quoting mode used. May not be <code>null</code>.
+   * @param bIsObjectName
+   *        <code>true</code> if an object name is read, <code>false</code> for
+   *        a string value.
    * @return A pair where the first string is the original read string whereas
    *         the second part is the unescaped read string without leading and
-   *         trailing quotes
+   *         trailing quotes. If the handler does not require the original
+   *         strings, both parts are the unescaped string.
    * @throws JsonParseException
    */
   @Nonnull
-  private TwoStrings _readString (@Nonnull final EStringQuoteMode eQuoteMode) throws JsonParseException
+  private TwoStrings _readString (@Nonnull final EStringQuoteMode eQuoteMode, final boolean bIsObjectName) throws JsonParseException
   {
     final IJsonParsePosition aStartPos = _getCurrentParsePos ();
-    final JsonStringBuilder aStrStringOriginalContent = m_aSB1.reset ();
+    final JsonStringBuilder aStrStringOriginalContent = m_bOriginalStringsRequired ? m_aSB1.reset () : null;
     final JsonStringBuilder aStrStringUnescapedContent = m_aSB2.reset ();
 
     final int cQuoteChar = eQuoteMode.getQuoteChar ();
@@ -489,7 +535,8 @@ public class JsonParser
     final boolean bStringIsQuoted = cStart == cQuoteChar;
     if (bStringIsQuoted)
     {
-      aStrStringOriginalContent.append ((char) cQuoteChar);
+      if (aStrStringOriginalContent != null)
+        aStrStringOriginalContent.append ((char) cQuoteChar);
     }
     else
     {
@@ -501,13 +548,15 @@ public class JsonParser
                                    _getPrintableChar (cQuoteChar));
 
       _backupChar (cStart);
-      aStrStringOriginalContent.append ((char) cQuoteChar);
+      if (aStrStringOriginalContent != null)
+        aStrStringOriginalContent.append ((char) cQuoteChar);
     }
 
     outer: while (true)
     {
       final int c = _readChar ();
-      aStrStringOriginalContent.append ((char) c);
+      if (aStrStringOriginalContent != null)
+        aStrStringOriginalContent.append ((char) c);
 
       switch (c)
       {
@@ -545,13 +594,16 @@ public class JsonParser
 
               // Remove from original content
               _backupChar (c);
-              aStrStringOriginalContent.backup (1);
 
               if (aStrStringUnescapedContent.getLength () == 0)
                 throw _parseEx (aStartPos, "Empty unquoted JSON String encountered");
 
-              // Since it is present on open, it must also be present on close
-              aStrStringOriginalContent.append ((char) cQuoteChar);
+              if (aStrStringOriginalContent != null)
+              {
+                // Since it is present on open, it must also be present on close
+                aStrStringOriginalContent.backup (1);
+                aStrStringOriginalContent.append ((char) cQuoteChar);
+              }
               break outer;
             }
           }
@@ -562,85 +614,17 @@ public class JsonParser
       }
     }
 
-    return new TwoStrings (aStrStringOriginalContent.getAsString (), aStrStringUnescapedContent.getAsString ());
-  }
-
-  @Nonnull
-  private static Number _parseNumberInt (@Nonnull final JsonStringBuilder s)
-  {
-    final int nLen = s.getLength ();
-
-    // pos
-    int nPos = 0;
-    // max pos long base 10 len
-    int nMax = 19;
-
-    final boolean bNeg = s.charAt (0) == '-';
-    if (bNeg)
-    {
-      nPos++;
-      nMax++;
-    }
-
-    if (nLen > nMax)
+    final String sUnescaped;
+    if (bIsObjectName && m_bCacheObjectNames)
     {
-      // BigInteger anyway
-      return s.getAsBigInteger ();
-    }
-
-    boolean bMustCheck;
-    if (nLen < nMax)
-    {
-      // Never BigInteger
-      nMax = nLen;
-      bMustCheck = false;
+      if (m_aNameCache == null)
+        m_aNameCache = new JsonNameCache (NAME_CACHE_SIZE);
+      sUnescaped = m_aNameCache.getAsString (aStrStringUnescapedContent);
     }
     else
-    {
-      // nLen == nMax
-      nMax = nLen - 1;
-      bMustCheck = true;
-    }
-
-    // r gets negative since the negative maximas are 1 "larger" than the
-    // positive maximas
-    long r = 0;
-    while (nPos < nMax)
-      r = (r * 10L) + ('0' - s.charAt (nPos++));
-
-    if (bMustCheck)
-    {
-      final boolean bIsBig;
-      if (r > -922337203685477580L)
-      {
-        bIsBig = false;
-      }
-      else
-        if (r < -922337203685477580L)
-        {
-          bIsBig = true;
-        }
-        else
-        {
-          if (bNeg)
-            bIsBig = s.charAt (nPos) > '8';
-          else
-            bIsBig = s.charAt (nPos) > '7';
-        }
-      if (bIsBig)
-        return s.getAsBigInteger ();
-
-      // Add the last char
-      r = (r * 10L) + ('0' - s.charAt (nPos));
-    }
-
-    if (!bNeg)
-      r = -r;
-
-    if (r >= Integer.MIN_VALUE && r <= Integer.MAX_VALUE)
-      return Integer.valueOf ((int) r);
-
-    return Long.valueOf (r);
+      sUnescaped = aStrStringUnescapedContent.getAsString ();
+    return new TwoStrings (aStrStringOriginalContent != null ? aStrStringOriginalContent.getAsString () : sUnescaped,
+                           sUnescaped);
   }
 
   @Nonnull
@@ -677,10 +661,14 @@ public class JsonParser
       }
 
       // No exponent present
-      if (m_bAlwaysUseBigNumber)
+      if (m_bAlwaysUseBigNumber || !m_bNumFitsLong)
         return aNumChars.getAsBigInteger ();
 
-      return _parseNumberInt (aNumChars);
+      // Already calculated while reading
+      final long nValue = m_nNumLong;
+      if (nValue >= Integer.MIN_VALUE && nValue <= Integer.MAX_VALUE)
+        return Integer.valueOf ((int) nValue);
+      return Long.valueOf (nValue);
     }
     catch (final NumberFormatException ex)
     {
@@ -695,8 +683,13 @@ public class JsonParser
     final IJsonParsePosition aStartPos = _getCurrentParsePos ();
 
     final JsonStringBuilder aStrNumber = m_aSB1.reset ();
+    // The integer part is accumulated negative while reading, as the negative
+    // range of long is one larger
+    long nValue = 0;
+    boolean bFitsLong = true;
     int c = _readChar ();
-    if (c == '-')
+    final boolean bNeg = c == '-';
+    if (bNeg)
     {
       // Leading minus?
       // Note: leading plus is not allowed
@@ -713,17 +706,33 @@ public class JsonParser
     else
       if (c >= '1' && c <= '9')
       {
-        aStrNumber.append ((char) c);
-        c = _readChar ();
-        while (c >= '0' && c <= '9')
+        do
         {
           aStrNumber.append ((char) c);
+          if (bFitsLong)
+          {
+            final int nDigit = c - '0';
+            if (nValue < Long.MIN_VALUE / 10 || (nValue == Long.MIN_VALUE / 10 && nDigit > 8))
+              bFitsLong = false;
+            else
+              nValue = nValue * 10 - nDigit;
+          }
           c = _readChar ();
-        }
+        } while (c >= '0' && c <= '9');
       }
       else
         throw _parseEx (aStartPos, "Invalid JSON Number start character " + _getPrintableChar (c));
 
+    if (bFitsLong && !bNeg)
+    {
+      if (nValue == Long.MIN_VALUE)
+        bFitsLong = false;
+      else
+        nValue = -nValue;
+    }
+    m_nNumLong = nValue;
+    m_bNumFitsLong = bFitsLong;
+
     final boolean bIsDecimal = c == '.';
     if (bIsDecimal)
     {
@@ -777,7 +786,8 @@ public class JsonParser
     _backupChar (c);
 
     final Number aNum = _parseNumber (aStartPos, bIsDecimal, bHasExponent, bHasPositiveExponent, aStrNumber);
-    m_aCallback.onNumber (aStrNumber.getAsString (), aNum);
+    // The common number types are parsed without creating a String
+    m_aCallback.onNumber (m_bOriginalStringsRequired ? aStrNumber.getAsString () : "", aNum);
   }
 
   private void _expect (@Nonnull final String sKeyword) throws JsonParseException
@@ -858,7 +868,7 @@ public class JsonParser
       final EStringQuoteMode eQuoteMode = EStringQuoteMode.getFromCharOrDefault (c);
       _backupChar (c);
 
-      final TwoStrings aName = _readString (eQuoteMode);
+      final TwoStrings aName = _readString (eQuoteMode, true);
       m_aCallback.onObjectName (aName.m_sOriginal, aName.m_sUnescaped);
 
       _skipSpaces ();
@@ -917,14 +927,14 @@ public class JsonParser
       case '\'':
       {
         _backupChar (cFirst);
-        final TwoStrings aString = _readString (EStringQuoteMode.SINGLE);
+        final TwoStrings aString = _readString (EStringQuoteMode.SINGLE, false);
         m_aCallback.onString (aString.m_sOriginal, aString.m_sUnescaped);
         break;
       }
       case '"':
       {
         _backupChar (cFirst);
-        final TwoStrings aString = _readString (EStringQuoteMode.DOUBLE);
+        final TwoStrings aString = _readString (EStringQuoteMode.DOUBLE, false);
         m_aCallback.onString (aString.m_sOriginal, aString.m_sUnescaped);
         break;
       }
@@ -0,0 +1,1174 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.json.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.WillNotClose;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.NonBlockingStack;
+import com.helger.commons.string.StringHelper;
+import com.helger.json.CJson;
+import com.helger.json.IJson;
+import com.helger.json.IJsonCollection;
+import com.helger.json.JsonArray;
+import com.helger.json.JsonObject;
+import com.helger.json.JsonValue;
+
+/**
+ * A pull style JSON reader. In contrast to {@link JsonParser} the caller
+ * requests one token after the other via {@link #nextToken()} and decides
+ * what to do with it. No JSON tree is created, unless explicitly requested via
+ * {@link #readValueAsJson()} or {@link #readMatching(String, Consumer)}. This
+ * makes it suitable for processing very large JSON documents with a small
+ * memory footprint.<br>
+ * Internal buffers are reused for all tokens, so the values of a token are only
+ * valid until the next call to {@link #nextToken()}. Object member names are
+ * always required to be quoted.<br>
+ * Paths are expressed as JSON Pointers (RFC 6901), e.g. <code>/items/3/id</code>
+ * with the empty string denoting the root value.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@NotThreadSafe
+public class JsonStreamReader
+{
+  /** The end of input special value */
+  public static final int EOI = -1;
+  public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+  /** The path segment in a path pattern that matches every name and index */
+  public static final String PATH_WILDCARD = "*";
+
+  private static final int CTX_ROOT = 0;
+  private static final int CTX_ARRAY = 1;
+  private static final int CTX_OBJECT = 2;
+
+  private static final int STATE_FIRST = 0;
+  private static final int STATE_AFTER_NAME = 1;
+  private static final int STATE_AFTER_VALUE = 2;
+
+  // Constructor parameters
+  private final Reader m_aReader;
+  private final char [] m_aBuffer;
+  private int m_nBufferPos = 0;
+  private int m_nBufferLen = 0;
+
+  // Settings
+  private boolean m_bTrackPosition = JsonParser.DEFAULT_TRACK_POSITION;
+  private int m_nTabSize = JsonParser.DEFAULT_TAB_SIZE;
+  private boolean m_bAlwaysUseBigNumber = JsonParser.DEFAULT_ALWAYS_USE_BIG_NUMBER;
+  private boolean m_bAllowSpecialCharsInStrings = JsonParser.DEFAULT_ALLOW_SPECIAL_CHARS_IN_STRING;
+  private boolean m_bCheckForEOI = JsonParser.DEFAULT_CHECK_FOR_EOI;
+
+  // Position tracking
+  private final JsonParsePosition m_aParsePos = new JsonParsePosition ();
+  private int m_nBackupChars = 0;
+
+  // Structure stack - index 0 is the root level
+  private int m_nDepth = 0;
+  private int [] m_aCtxType = new int [16];
+  private int [] m_aCtxState = new int [16];
+  private int [] m_aCtxIndex = new int [16];
+  private String [] m_aCtxName = new String [16];
+  private boolean m_bRootValueRead = false;
+
+  // Current token
+  private EJsonStreamToken m_eToken;
+  private int m_nTokenPathDepth = 0;
+  private final JsonStringBuilder m_aSB = new JsonStringBuilder (256);
+  private final JsonNameCache m_aNameCache = new JsonNameCache (512);
+  private boolean m_bNumDecimal;
+  private boolean m_bNumExponent;
+  private boolean m_bNumPositiveExponent;
+  private boolean m_bNumFitsLong;
+  private long m_nNumLong;
+
+  public JsonStreamReader (@Nonnull @WillNotClose final Reader aReader)
+  {
+    this (aReader, DEFAULT_BUFFER_SIZE);
+  }
+
+  public JsonStreamReader (@Nonnull @WillNotClose final Reader aReader, @Nonnegative final int nBufferSize)
+  {
+    ValueEnforcer.notNull (aReader, "Reader");
+    ValueEnforcer.isGT0 (nBufferSize, "BufferSize");
+    m_aReader = aReader;
+    m_aBuffer = new char [nBufferSize];
+    m_aCtxType[0] = CTX_ROOT;
+  }
+
+  /**
+   * @return <code>true</code> if position tracking is enabled,
+   *         <code>false</code> if not. By default it is disabled.
+   */
+  public final boolean isTrackPosition ()
+  {
+    return m_bTrackPosition;
+  }
+
+  /**
+   * @param bTrackPosition
+   *        <code>true</code> to track the position, <code>false</code> if not.
+   *        Tracking the position disables the bulk reading of strings.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final JsonStreamReader setTrackPosition (final boolean bTrackPosition)
+  {
+    m_bTrackPosition = bTrackPosition;
+    return this;
+  }
+
+  @Nonnegative
+  public final int getTabSize ()
+  {
+    return m_nTabSize;
+  }
+
+  @Nonnull
+  public final JsonStreamReader setTabSize (@Nonnegative final int nTabSize)
+  {
+    ValueEnforcer.isGT0 (nTabSize, "TabSize");
+    m_nTabSize = nTabSize;
+    return this;
+  }
+
+  public final boolean isAlwaysUseBigNumber ()
+  {
+    return m_bAlwaysUseBigNumber;
+  }
+
+  @Nonnull
+  public final JsonStreamReader setAlwaysUseBigNumber (final boolean bAlwaysUseBigNumber)
+  {
+    m_bAlwaysUseBigNumber = bAlwaysUseBigNumber;
+    return this;
+  }
+
+  public final boolean isAllowSpecialCharsInStrings ()
+  {
+    return m_bAllowSpecialCharsInStrings;
+  }
+
+  @Nonnull
+  public final JsonStreamReader setAllowSpecialCharsInStrings (final boolean bAllowSpecialCharsInStrings)
+  {
+    m_bAllowSpecialCharsInStrings = bAllowSpecialCharsInStrings;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if a check for end of input after the root value
+   *         should be performed, <code>false</code> if not.
+   */
+  public final boolean isCheckForEOI ()
+  {
+    return m_bCheckForEOI;
+  }
+
+  /**
+   * Enable or disable the check for end of input. If disabled, multiple root
+   * values in a row can be read with the same reader.
+   *
+   * @param bCheckForEOI
+   *        <code>true</code> to check for EOI, <code>false</code> if not.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final JsonStreamReader setCheckForEOI (final boolean bCheckForEOI)
+  {
+    m_bCheckForEOI = bCheckForEOI;
+    return this;
+  }
+
+  /**
+   * @return The current line number. First line has a value of 1.
+   */
+  @Nonnegative
+  public int getLineNumber ()
+  {
+    return m_aParsePos.getLineNumber ();
+  }
+
+  /**
+   * @return The current column number. First column has a value of 1.
+   */
+  @Nonnegative
+  public int getColumn ()
+  {
+    return m_aParsePos.getColumnNumber ();
+  }
+
+  private int _readChar ()
+  {
+    if (m_nBufferPos >= m_nBufferLen)
+    {
+      try
+      {
+        int nRead;
+        do
+        {
+          nRead = m_aReader.read (m_aBuffer, 0, m_aBuffer.length);
+        } while (nRead == 0);
+        if (nRead < 0)
+          return EOI;
+        m_nBufferPos = 0;
+        m_nBufferLen = nRead;
+      }
+      catch (final IOException ex)
+      {
+        // Same as in JsonParser
+        return EOI;
+      }
+    }
+
+    final int c = m_aBuffer[m_nBufferPos++];
+    if (m_bTrackPosition)
+    {
+      if (m_nBackupChars > 0)
+      {
+        // If previously a char was backed up, don't increase the position!
+        m_nBackupChars--;
+      }
+      else
+        m_aParsePos.updatePosition (c, m_nTabSize);
+    }
+    return c;
+  }
+
+  /**
+   * Backup the last read char. Only a single char can be backed up, and it is
+   * always still contained in the buffer.
+   *
+   * @param c
+   *        The last read char
+   */
+  private void _backupChar (final int c)
+  {
+    if (c != EOI)
+    {
+      m_nBufferPos--;
+      m_nBackupChars++;
+    }
+  }
+
+  @Nonnull
+  private static String _getPrintableChar (final int c)
+  {
+    if (c == EOI)
+      return "<EOI>";
+    if (c <= 32)
+      return "0x" + StringHelper.getHexStringLeadingZero (c, 2);
+    if (c >= 127)
+      return "0x" + StringHelper.getHexStringLeadingZero (c, 4);
+    return "'" + (char) c + "'";
+  }
+
+  @Nonnull
+  private JsonParseException _parseEx (@Nullable final IJsonParsePosition aTokenStart, @Nonnull final String sMsg)
+  {
+    if (m_bTrackPosition)
+      return new JsonParseException (aTokenStart, m_aParsePos, sMsg);
+
+    return new JsonParseException (sMsg);
+  }
+
+  @Nullable
+  private IJsonParsePosition _getCurrentParsePos ()
+  {
+    return m_bTrackPosition ? m_aParsePos.getClone () : null;
+  }
+
+  private void _skipComment () throws JsonParseException
+  {
+    final IJsonParsePosition aStartPos = _getCurrentParsePos ();
+    while (true)
+    {
+      final int c1 = _readChar ();
+      if (c1 == '*')
+      {
+        final int c2 = _readChar ();
+        if (c2 == '/')
+          return;
+        _backupChar (c2);
+      }
+      if (c1 == EOI)
+        throw _parseEx (aStartPos, "Unclosed JSON comment at end of input");
+    }
+  }
+
+  /**
+   * Skip all whitespaces and comments and return the first other char.
+   *
+   * @return The first non-whitespace char or {@link #EOI}.
+   * @throws JsonParseException
+   *         on invalid comments
+   */
+  private int _readNonSpaceChar () throws JsonParseException
+  {
+    while (true)
+    {
+      final int c = _readChar ();
+      if (c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f')
+        continue;
+      if (c == '/')
+      {
+        final int c2 = _readChar ();
+        if (c2 != '*')
+          throw _parseEx (_getCurrentParsePos (), "Syntax error in JSON. Found " + _getPrintableChar (c));
+        _skipComment ();
+        continue;
+      }
+      return c;
+    }
+  }
+
+  private int _getHexValue (@Nullable final IJsonParsePosition aStartPos, final int c) throws JsonParseException
+  {
+    final int ret = StringHelper.getHexValue ((char) c);
+    if (ret == -1)
+      throw _parseEx (aStartPos, "Invalid hex character " + _getPrintableChar (c) + " provided!");
+    return ret;
+  }
+
+  private void _readStringEscapeChar (@Nullable final IJsonParsePosition aStartPos) throws JsonParseException
+  {
+    final int c2 = _readChar ();
+    switch (c2)
+    {
+      case '"':
+      case '\'':
+      case '/':
+      case '\\':
+        m_aSB.append ((char) c2);
+        break;
+      case 'b':
+        m_aSB.append ('\b');
+        break;
+      case 'f':
+        m_aSB.append ('\f');
+        break;
+      case 'n':
+        m_aSB.append ('\n');
+        break;
+      case 'r':
+        m_aSB.append ('\r');
+        break;
+      case 't':
+        m_aSB.append ('\t');
+        break;
+      case 'u':
+      {
+        final int n0 = _getHexValue (aStartPos, _readChar ());
+        final int n1 = _getHexValue (aStartPos, _readChar ());
+        final int n2 = _getHexValue (aStartPos, _readChar ());
+        final int n3 = _getHexValue (aStartPos, _readChar ());
+        m_aSB.append ((char) (n0 << 12 | n1 << 8 | n2 << 4 | n3));
+        break;
+      }
+      default:
+        throw _parseEx (aStartPos, "Invalid JSON String escape character " + _getPrintableChar (c2));
+    }
+  }
+
+  /**
+   * Read the unescaped content of a string into {@link #m_aSB}. The opening
+   * quote char was already consumed.
+   *
+   * @param cQuote
+   *        The quote char used
+   * @throws JsonParseException
+   *         in case of error
+   */
+  private void _readStringContent (final int cQuote) throws JsonParseException
+  {
+    final IJsonParsePosition aStartPos = _getCurrentParsePos ();
+    final JsonStringBuilder aSB = m_aSB.reset ();
+    while (true)
+    {
+      if (!m_bTrackPosition)
+      {
+        // Copy all regular chars from the buffer in one go
+        final char [] aBuffer = m_aBuffer;
+        final int nStart = m_nBufferPos;
+        final int nEnd = m_nBufferLen;
+        int i = nStart;
+        while (i < nEnd)
+        {
+          final char c = aBuffer[i];
+          if (c == cQuote || c == '\\' || c < 0x20)
+            break;
+          ++i;
+        }
+        if (i > nStart)
+        {
+          aSB.append (aBuffer, nStart, i - nStart);
+          m_nBufferPos = i;
+        }
+      }
+
+      final int c = _readChar ();
+      switch (c)
+      {
+        case '\\':
+          _readStringEscapeChar (aStartPos);
+          break;
+        case EOI:
+          throw _parseEx (aStartPos, "Unclosed JSON String at end of input");
+        case '\b':
+        case '\f':
+        case '\n':
+        case '\r':
+        case '\t':
+          if (!m_bAllowSpecialCharsInStrings)
+            throw _parseEx (aStartPos, "Invalid JSON String character " + _getPrintableChar (c));
+          aSB.append ((char) c);
+          break;
+        default:
+          if (c == cQuote)
+            return;
+          aSB.append ((char) c);
+          break;
+      }
+    }
+  }
+
+  private void _skipStringContent (final int cQuote) throws JsonParseException
+  {
+    final IJsonParsePosition aStartPos = _getCurrentParsePos ();
+    while (true)
+    {
+      final int c = _readChar ();
+      if (c == cQuote)
+        return;
+      if (c == '\\')
+        _readChar ();
+      else
+        if (c == EOI)
+          throw _parseEx (aStartPos, "Unclosed JSON String at end of input");
+    }
+  }
+
+  private void _readNumber (final int cFirst) throws JsonParseException
+  {
+    final IJsonParsePosition aStartPos = _getCurrentParsePos ();
+    final JsonStringBuilder aSB = m_aSB.reset ();
+
+    // Accumulate negative, as the negative range is one larger
+    long nValue = 0;
+    boolean bFitsLong = true;
+
+    int c = cFirst;
+    final boolean bNeg = c == '-';
+    if (bNeg)
+    {
+      // Note: leading plus is not allowed
+      aSB.append ((char) c);
+      c = _readChar ();
+    }
+
+    if (c == '0')
+    {
+      // No additional numbers allowed
+      aSB.append ((char) c);
+      c = _readChar ();
+    }
+    else
+      if (c >= '1' && c <= '9')
+      {
+        do
+        {
+          aSB.append ((char) c);
+          if (bFitsLong)
+          {
+            final int nDigit = c - '0';
+            if (nValue < Long.MIN_VALUE / 10 || (nValue == Long.MIN_VALUE / 10 && nDigit > 8))
+              bFitsLong = false;
+            else
+              nValue = nValue * 10 - nDigit;
+          }
+          c = _readChar ();
+        } while (c >= '0' && c <= '9');
+      }
+      else
+        throw _parseEx (aStartPos, "Invalid JSON Number start character " + _getPrintableChar (c));
+
+    if (bFitsLong && !bNeg)
+    {
+      if (nValue == Long.MIN_VALUE)
+        bFitsLong = false;
+      else
+        nValue = -nValue;
+    }
+
+    final boolean bIsDecimal = c == '.';
+    if (bIsDecimal)
+    {
+      aSB.append ((char) c);
+      c = _readChar ();
+      boolean bDecimalDigits = false;
+      while (c >= '0' && c <= '9')
+      {
+        aSB.append ((char) c);
+        bDecimalDigits = true;
+        c = _readChar ();
+      }
+      if (!bDecimalDigits)
+        throw _parseEx (aStartPos, "Missing digits after decimal point in JSON Number '" + aSB.getAsString () + "'");
+    }
+
+    final boolean bHasExponent = c == 'e' || c == 'E';
+    boolean bHasPositiveExponent = false;
+    if (bHasExponent)
+    {
+      aSB.append ((char) c);
+      c = _readChar ();
+
+      // Any char other than "-" means the exponent is positive
+      bHasPositiveExponent = c != '-';
+
+      if (c == '+' || c == '-')
+      {
+        aSB.append ((char) c);
+        c = _readChar ();
+      }
+
+      boolean bExponentDigits = false;
+      while (c >= '0' && c <= '9')
+      {
+        aSB.append ((char) c);
+        bExponentDigits = true;
+        c = _readChar ();
+      }
+      if (!bExponentDigits)
+        throw _parseEx (aStartPos, "Missing digits after exponent sign in JSON Number '" + aSB.getAsString () + "'");
+    }
+
+    // Backup last (unused) char
+    _backupChar (c);
+
+    m_bNumDecimal = bIsDecimal;
+    m_bNumExponent = bHasExponent;
+    m_bNumPositiveExponent = bHasPositiveExponent;
+    m_bNumFitsLong = bFitsLong && !bIsDecimal && !bHasExponent;
+    m_nNumLong = nValue;
+  }
+
+  private void _expectRest (@Nonnull final String sKeyword) throws JsonParseException
+  {
+    final IJsonParsePosition aStartPos = _getCurrentParsePos ();
+    // First char was already read
+    for (int i = 1; i < sKeyword.length (); ++i)
+    {
+      final char cExpected = sKeyword.charAt (i);
+      final int c = _readChar ();
+      if (c != cExpected)
+        throw _parseEx (aStartPos,
+                        "Expected " +
+                                   _getPrintableChar (cExpected) +
+                                   " but got " +
+                                   _getPrintableChar (c) +
+                                   " as part of JSON keyword \"" +
+                                   sKeyword +
+                                   "\"");
+    }
+  }
+
+  @Nonnull
+  private EJsonStreamToken _setToken (@Nonnull final EJsonStreamToken eToken, @Nonnegative final int nPathDepth)
+  {
+    m_eToken = eToken;
+    m_nTokenPathDepth = nPathDepth;
+    return eToken;
+  }
+
+  @Nonnull
+  private EJsonStreamToken _startStructure (final int nCtxType, @Nonnull final EJsonStreamToken eToken)
+  {
+    final int nNewDepth = m_nDepth + 1;
+    if (nNewDepth >= m_aCtxType.length)
+    {
+      final int nNewLen = m_aCtxType.length * 2;
+      m_aCtxType = Arrays.copyOf (m_aCtxType, nNewLen);
+      m_aCtxState = Arrays.copyOf (m_aCtxState, nNewLen);
+      m_aCtxIndex = Arrays.copyOf (m_aCtxIndex, nNewLen);
+      m_aCtxName = Arrays.copyOf (m_aCtxName, nNewLen);
+    }
+    m_aCtxType[nNewDepth] = nCtxType;
+    m_aCtxState[nNewDepth] = STATE_FIRST;
+    m_aCtxIndex[nNewDepth] = -1;
+    m_aCtxName[nNewDepth] = null;
+    m_nDepth = nNewDepth;
+    return _setToken (eToken, nNewDepth - 1);
+  }
+
+  @Nonnull
+  private EJsonStreamToken _endStructure (@Nonnull final EJsonStreamToken eToken)
+  {
+    m_nDepth--;
+    return _setToken (eToken, m_nDepth);
+  }
+
+  @Nonnull
+  private EJsonStreamToken _readValue (final int c) throws JsonParseException
+  {
+    switch (c)
+    {
+      case '"':
+      case '\'':
+        _readStringContent (c);
+        return _setToken (EJsonStreamToken.STRING, m_nDepth);
+      case '-':
+      case '0':
+      case '1':
+      case '2':
+      case '3':
+      case '4':
+      case '5':
+      case '6':
+      case '7':
+      case '8':
+      case '9':
+        _readNumber (c);
+        return _setToken (EJsonStreamToken.NUMBER, m_nDepth);
+      case 't':
+        _expectRest (CJson.KEYWORD_TRUE);
+        return _setToken (EJsonStreamToken.TRUE, m_nDepth);
+      case 'f':
+        _expectRest (CJson.KEYWORD_FALSE);
+        return _setToken (EJsonStreamToken.FALSE, m_nDepth);
+      case 'n':
+        _expectRest (CJson.KEYWORD_NULL);
+        return _setToken (EJsonStreamToken.NULL, m_nDepth);
+      case CJson.ARRAY_START:
+        return _startStructure (CTX_ARRAY, EJsonStreamToken.ARRAY_START);
+      case CJson.OBJECT_START:
+        return _startStructure (CTX_OBJECT, EJsonStreamToken.OBJECT_START);
+      case EOI:
+        throw _parseEx (_getCurrentParsePos (), "Unexpected end of input in JSON");
+      default:
+        throw _parseEx (_getCurrentParsePos (), "Syntax error in JSON. Found " + _getPrintableChar (c));
+    }
+  }
+
+  @Nonnull
+  private EJsonStreamToken _readName (final int c) throws JsonParseException
+  {
+    if (c != '"' && c != '\'')
+      throw _parseEx (_getCurrentParsePos (),
+                      "Invalid JSON Object name start character " + _getPrintableChar (c) + " - expected '\"'");
+    _readStringContent (c);
+    m_aCtxName[m_nDepth] = m_aNameCache.getAsString (m_aSB);
+    m_aCtxState[m_nDepth] = STATE_AFTER_NAME;
+    return _setToken (EJsonStreamToken.NAME, m_nDepth);
+  }
+
+  /**
+   * Read the next token.
+   *
+   * @return The next token and never <code>null</code>. After the end of input
+   *         was reached, {@link EJsonStreamToken#END_OF_INPUT} is returned for
+   *         all subsequent calls.
+   * @throws JsonParseException
+   *         In case of a syntax error
+   */
+  @Nonnull
+  public EJsonStreamToken nextToken () throws JsonParseException
+  {
+    if (m_eToken == EJsonStreamToken.END_OF_INPUT)
+      return m_eToken;
+
+    final int nDepth = m_nDepth;
+    switch (m_aCtxType[nDepth])
+    {
+      case CTX_ARRAY:
+      {
+        int c = _readNonSpaceChar ();
+        if (c == CJson.ARRAY_END)
+          return _endStructure (EJsonStreamToken.ARRAY_END);
+        if (m_aCtxState[nDepth] == STATE_AFTER_VALUE)
+        {
+          if (c != CJson.ITEM_SEPARATOR)
+            throw _parseEx (_getCurrentParsePos (), "Unexpected character " + _getPrintableChar (c) + " in JSON array");
+          c = _readNonSpaceChar ();
+        }
+        m_aCtxState[nDepth] = STATE_AFTER_VALUE;
+        m_aCtxIndex[nDepth]++;
+        return _readValue (c);
+      }
+      case CTX_OBJECT:
+      {
+        int c = _readNonSpaceChar ();
+        switch (m_aCtxState[nDepth])
+        {
+          case STATE_FIRST:
+            if (c == CJson.OBJECT_END)
+              return _endStructure (EJsonStreamToken.OBJECT_END);
+            return _readName (c);
+          case STATE_AFTER_NAME:
+            if (c != CJson.NAME_VALUE_SEPARATOR)
+              throw _parseEx (_getCurrentParsePos (),
+                              "Expected colon character in JSON Object but found " + _getPrintableChar (c));
+            m_aCtxState[nDepth] = STATE_AFTER_VALUE;
+            return _readValue (_readNonSpaceChar ());
+          default:
+            if (c == CJson.OBJECT_END)
+              return _endStructure (EJsonStreamToken.OBJECT_END);
+            if (c != CJson.ITEM_SEPARATOR)
+              throw _parseEx (_getCurrentParsePos (), "Unexpected character " + _getPrintableChar (c) + " in JSON Object");
+            c = _readNonSpaceChar ();
+            return _readName (c);
+        }
+      }
+      default:
+      {
+        // Root level
+        final int c = _readNonSpaceChar ();
+        if (c == EOI)
+          return _setToken (EJsonStreamToken.END_OF_INPUT, 0);
+        if (m_bRootValueRead && m_bCheckForEOI)
+          throw _parseEx (_getCurrentParsePos (), "Invalid character " + _getPrintableChar (c) + " after JSON root object");
+        m_bRootValueRead = true;
+        return _readValue (c);
+      }
+    }
+  }
+
+  /**
+   * @return The last token returned by {@link #nextToken()}. May be
+   *         <code>null</code> if {@link #nextToken()} was not yet called.
+   */
+  @Nullable
+  public EJsonStreamToken getCurrentToken ()
+  {
+    return m_eToken;
+  }
+
+  /**
+   * @return The number of currently open JSON objects and arrays.
+   *         {@link EJsonStreamToken#OBJECT_START} and
+   *         {@link EJsonStreamToken#ARRAY_START} increase the depth,
+   *         {@link EJsonStreamToken#OBJECT_END} and
+   *         {@link EJsonStreamToken#ARRAY_END} decrease it.
+   */
+  @Nonnegative
+  public int getDepth ()
+  {
+    return m_nDepth;
+  }
+
+  /**
+   * @return The name of the object member the current token belongs to, or
+   *         <code>null</code> if the current token is not part of an object
+   *         member.
+   */
+  @Nullable
+  public String getCurrentName ()
+  {
+    final int nPathDepth = m_nTokenPathDepth;
+    if (nPathDepth > 0 && m_aCtxType[nPathDepth] == CTX_OBJECT)
+      return m_aCtxName[nPathDepth];
+    return null;
+  }
+
+  /**
+   * @return The index in the parent array the current token belongs to, or -1
+   *         if the current token is not an array element.
+   */
+  @CheckForSigned
+  public int getCurrentIndex ()
+  {
+    final int nPathDepth = m_nTokenPathDepth;
+    if (nPathDepth > 0 && m_aCtxType[nPathDepth] == CTX_ARRAY)
+      return m_aCtxIndex[nPathDepth];
+    return -1;
+  }
+
+  @Nonnull
+  private static String _escapePathSegment (@Nonnull final String s)
+  {
+    return StringHelper.replaceAll (StringHelper.replaceAll (s, "~", "~0"), "/", "~1");
+  }
+
+  /**
+   * @return The JSON Pointer of the current token. For structure starts and
+   *         ends this is the path of the structure itself. Never
+   *         <code>null</code> but maybe empty for the root value.
+   */
+  @Nonnull
+  public String getCurrentPath ()
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    for (int i = 1; i <= m_nTokenPathDepth; ++i)
+    {
+      aSB.append ('/');
+      if (m_aCtxType[i] == CTX_ARRAY)
+        aSB.append (m_aCtxIndex[i]);
+      else
+        aSB.append (_escapePathSegment (m_aCtxName[i]));
+    }
+    return aSB.toString ();
+  }
+
+  private void _checkToken (@Nonnull final EJsonStreamToken eExpected1, @Nullable final EJsonStreamToken eExpected2)
+  {
+    if (m_eToken != eExpected1 && (eExpected2 == null || m_eToken != eExpected2))
+      throw new IllegalStateException ("The current token is " +
+                                       m_eToken +
+                                       " and not " +
+                                       eExpected1 +
+                                       (eExpected2 == null ? "" : " or " + eExpected2));
+  }
+
+  /**
+   * @return The unescaped value of the current {@link EJsonStreamToken#STRING}
+   *         or {@link EJsonStreamToken#NAME} token.
+   * @throws IllegalStateException
+   *         If the current token is neither a string nor a name
+   */
+  @Nonnull
+  public String getStringValue ()
+  {
+    _checkToken (EJsonStreamToken.STRING, EJsonStreamToken.NAME);
+    return m_aSB.getAsString ();
+  }
+
+  /**
+   * Compare the unescaped value of the current string or name token without
+   * creating a String object.
+   *
+   * @param s
+   *        The string to compare to. May be <code>null</code>.
+   * @return <code>true</code> if the current token is a string or a name with
+   *         the provided value.
+   */
+  public boolean isStringValue (@Nullable final String s)
+  {
+    return (m_eToken == EJsonStreamToken.STRING || m_eToken == EJsonStreamToken.NAME) && m_aSB.contentEquals (s);
+  }
+
+  /**
+   * @return The value of the current {@link EJsonStreamToken#TRUE} or
+   *         {@link EJsonStreamToken#FALSE} token.
+   * @throws IllegalStateException
+   *         If the current token is not a boolean
+   */
+  public boolean getBooleanValue ()
+  {
+    _checkToken (EJsonStreamToken.TRUE, EJsonStreamToken.FALSE);
+    return m_eToken == EJsonStreamToken.TRUE;
+  }
+
+  /**
+   * @return The textual representation of the current
+   *         {@link EJsonStreamToken#NUMBER} token as contained in the source.
+   */
+  @Nonnull
+  public String getNumberText ()
+  {
+    _checkToken (EJsonStreamToken.NUMBER, null);
+    return m_aSB.getAsString ();
+  }
+
+  /**
+   * @return <code>true</code> if the current number token is an integral
+   *         number that fits into a <code>long</code> and can therefore be read
+   *         via {@link #getLongValue()}.
+   */
+  public boolean isLongValue ()
+  {
+    return m_eToken == EJsonStreamToken.NUMBER && m_bNumFitsLong;
+  }
+
+  /**
+   * Get the value of the current number token as a primitive long. No object
+   * is created for this.
+   *
+   * @return The long value
+   * @throws IllegalStateException
+   *         If the current token is not a number that fits into a long
+   * @see #isLongValue()
+   */
+  public long getLongValue ()
+  {
+    _checkToken (EJsonStreamToken.NUMBER, null);
+    if (!m_bNumFitsLong)
+      throw new IllegalStateException ("The JSON Number '" + m_aSB.getAsString () + "' cannot be represented as a long");
+    return m_nNumLong;
+  }
+
+  /**
+   * @return The value of the current number token as a primitive double.
+   * @throws IllegalStateException
+   *         If the current token is not a number
+   */
+  public double getDoubleValue ()
+  {
+    _checkToken (EJsonStreamToken.NUMBER, null);
+    if (m_bNumFitsLong)
+      return m_nNumLong;
+    return m_aSB.getAsDoubleValue ();
+  }
+
+  /**
+   * Get the value of the current number token as an object. The same types as
+   * in {@link JsonParser} are used.
+   *
+   * @return The number value and never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the current token is not a number
+   */
+  @Nonnull
+  public Number getNumberValue ()
+  {
+    _checkToken (EJsonStreamToken.NUMBER, null);
+    if (m_bNumDecimal)
+    {
+      if (m_aSB.getLength () > 18 || m_bAlwaysUseBigNumber)
+        return m_aSB.getAsBigDecimal ();
+      return m_aSB.getAsDouble ();
+    }
+    if (m_bNumExponent)
+    {
+      final BigDecimal aBD = m_aSB.getAsBigDecimal ();
+      // Required for correct "e" handling
+      return m_bNumPositiveExponent ? aBD.toBigIntegerExact () : aBD;
+    }
+    if (m_bAlwaysUseBigNumber || !m_bNumFitsLong)
+      return m_aSB.getAsBigInteger ();
+    if (m_nNumLong >= Integer.MIN_VALUE && m_nNumLong <= Integer.MAX_VALUE)
+      return Integer.valueOf ((int) m_nNumLong);
+    return Long.valueOf (m_nNumLong);
+  }
+
+  /**
+   * Skip all children of the current {@link EJsonStreamToken#OBJECT_START} or
+   * {@link EJsonStreamToken#ARRAY_START} token. Afterwards the current token is
+   * the matching end token. The skipped content is only checked for balanced
+   * brackets, strings and comments, but no tokens are created. If the current
+   * token is not a structure start, nothing happens.
+   *
+   * @throws JsonParseException
+   *         In case the structure is not closed properly
+   */
+  public void skipChildren () throws JsonParseException
+  {
+    if (m_eToken == null || !m_eToken.isStructureStart ())
+      return;
+
+    final IJsonParsePosition aStartPos = _getCurrentParsePos ();
+    int nLevel = 1;
+    int c;
+    while (true)
+    {
+      c = _readChar ();
+      switch (c)
+      {
+        case CJson.ARRAY_START:
+        case CJson.OBJECT_START:
+          nLevel++;
+          break;
+        case CJson.ARRAY_END:
+        case CJson.OBJECT_END:
+          nLevel--;
+          break;
+        case '"':
+        case '\'':
+          _skipStringContent (c);
+          break;
+        case '/':
+          if (_readChar () != '*')
+            throw _parseEx (aStartPos, "Syntax error in JSON. Found " + _getPrintableChar (c));
+          _skipComment ();
+          break;
+        case EOI:
+          throw _parseEx (aStartPos, "Unclosed JSON structure at end of input");
+      }
+      if (nLevel == 0)
+        break;
+    }
+
+    final boolean bIsArray = m_aCtxType[m_nDepth] == CTX_ARRAY;
+    if (c != (bIsArray ? CJson.ARRAY_END : CJson.OBJECT_END))
+      throw _parseEx (aStartPos, "Unexpected character " + _getPrintableChar (c) + " at end of skipped JSON structure");
+    _endStructure (bIsArray ? EJsonStreamToken.ARRAY_END : EJsonStreamToken.OBJECT_END);
+  }
+
+  @Nonnull
+  private IJson _getScalarAsJson ()
+  {
+    switch (m_eToken)
+    {
+      case STRING:
+        return JsonValue.create (m_aSB.getAsString ());
+      case NUMBER:
+        return JsonValue.create (getNumberValue ());
+      case TRUE:
+        return JsonValue.TRUE;
+      case FALSE:
+        return JsonValue.FALSE;
+      case NULL:
+        return JsonValue.NULL;
+      default:
+        throw new IllegalStateException ("The current token " + m_eToken + " is not a JSON value");
+    }
+  }
+
+  private void _addToParent (@Nonnull final IJsonCollection aParent, @Nonnull final IJson aValue)
+  {
+    if (aParent.isArray ())
+      aParent.getAsArray ().add (aValue);
+    else
+      aParent.getAsObject ().addJson (getCurrentName (), aValue);
+  }
+
+  /**
+   * Materialize the value starting at the current token as a JSON tree. For
+   * structure start tokens, all tokens until the matching end token are
+   * consumed.
+   *
+   * @return The JSON value and never <code>null</code>.
+   * @throws JsonParseException
+   *         In case of a syntax error
+   * @throws IllegalStateException
+   *         If the current token is not the start of a value
+   */
+  @Nonnull
+  public IJson readValueAsJson () throws JsonParseException
+  {
+    if (m_eToken == null || !m_eToken.isStructureStart ())
+      return _getScalarAsJson ();
+
+    final IJsonCollection aRoot = m_eToken == EJsonStreamToken.OBJECT_START ? new JsonObject () : new JsonArray ();
+    final NonBlockingStack <IJsonCollection> aStack = new NonBlockingStack <> ();
+    aStack.push (aRoot);
+    while (true)
+    {
+      final EJsonStreamToken eToken = nextToken ();
+      switch (eToken)
+      {
+        case NAME:
+          // Name is remembered in the current context
+          break;
+        case OBJECT_END:
+        case ARRAY_END:
+          aStack.pop ();
+          if (aStack.isEmpty ())
+            return aRoot;
+          break;
+        case OBJECT_START:
+        case ARRAY_START:
+        {
+          final IJsonCollection aChild = eToken == EJsonStreamToken.OBJECT_START ? new JsonObject () : new JsonArray ();
+          _addToParent (aStack.peek (), aChild);
+          aStack.push (aChild);
+          break;
+        }
+        default:
+          _addToParent (aStack.peek (), _getScalarAsJson ());
+          break;
+      }
+    }
+  }
+
+  @Nonnull
+  private static String [] _getPathSegments (@Nonnull final String sPath)
+  {
+    if (sPath.isEmpty ())
+      return new String [0];
+    if (sPath.charAt (0) != '/')
+      throw new IllegalArgumentException ("The path '" + sPath + "' must be empty or start with a '/'");
+
+    final String sSegments = sPath.substring (1);
+    final String [] ret = sSegments.isEmpty () ? new String [] { "" } : StringHelper.getExplodedArray ('/', sSegments);
+    for (int i = 0; i < ret.length; ++i)
+      ret[i] = StringHelper.replaceAll (StringHelper.replaceAll (ret[i], "~1", "/"), "~0", "~");
+    return ret;
+  }
+
+  private boolean _isSegmentMatching (@Nonnull final String sSegment, @Nonnegative final int nLevel)
+  {
+    if (PATH_WILDCARD.equals (sSegment))
+      return true;
+    if (m_aCtxType[nLevel] == CTX_ARRAY)
+      return sSegment.equals (Integer.toString (m_aCtxIndex[nLevel]));
+    return sSegment.equals (m_aCtxName[nLevel]);
+  }
+
+  private boolean _isPathPrefixMatching (@Nonnull final String [] aSegments, @Nonnegative final int nLevels)
+  {
+    for (int i = 0; i < nLevels; ++i)
+      if (!_isSegmentMatching (aSegments[i], i + 1))
+        return false;
+    return true;
+  }
+
+  /**
+   * Read the whole remaining input and materialize only the values matching
+   * the provided path pattern. All other structures are skipped without
+   * creating any tokens.
+   *
+   * @param sPathPattern
+   *        The path pattern in JSON Pointer syntax. A segment consisting only
+   *        of {@link #PATH_WILDCARD} matches every name or index. May not be
+   *        <code>null</code>.
+   * @param aConsumer
+   *        The consumer that is invoked for every matching value in document
+   *        order. May not be <code>null</code>.
+   * @throws JsonParseException
+   *         In case of a syntax error
+   */
+  public void readMatching (@Nonnull final String sPathPattern,
+                            @Nonnull final Consumer <? super IJson> aConsumer) throws JsonParseException
+  {
+    ValueEnforcer.notNull (sPathPattern, "PathPattern");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    final String [] aSegments = _getPathSegments (sPathPattern);
+    final int nSegments = aSegments.length;
+    EJsonStreamToken eToken;
+    while ((eToken = nextToken ()) != EJsonStreamToken.END_OF_INPUT)
+    {
+      if (eToken == EJsonStreamToken.NAME || eToken.isStructureEnd ())
+        continue;
+
+      final int nPathDepth = m_nTokenPathDepth;
+      if (nPathDepth == nSegments && _isPathPrefixMatching (aSegments, nSegments))
+      {
+        // Matching value
+        aConsumer.accept (readValueAsJson ());
+      }
+      else
+        if (eToken.isStructureStart () && (nPathDepth >= nSegments || !_isPathPrefixMatching (aSegments, nPathDepth)))
+        {
+          // Nothing inside can match
+          skipChildren ();
+        }
+    }
+  }
+}
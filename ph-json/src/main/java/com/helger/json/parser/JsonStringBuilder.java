@@ -22,6 +22,7 @@ import java.util.Arrays;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import com.helger.commons.string.ToStringGenerator;
@@ -35,6 +36,16 @@ import com.helger.commons.string.ToStringGenerator;
 @NotThreadSafe
 public class JsonStringBuilder
 {
+  private static final int MAX_FAST_DOUBLE_DIGITS = 15;
+  private static final int MAX_FAST_DOUBLE_EXP10 = 22;
+  private static final double [] POW10 = new double [MAX_FAST_DOUBLE_EXP10 + 1];
+  static
+  {
+    POW10[0] = 1;
+    for (int i = 1; i < POW10.length; ++i)
+      POW10[i] = POW10[i - 1] * 10;
+  }
+
   protected char [] m_aBuf;
   protected int m_nLen;
   // Status vars
@@ -71,6 +82,27 @@ public class JsonStringBuilder
     m_aBuf[m_nLen++] = c;
   }
 
+  /**
+   * Append a range of characters at once.
+   *
+   * @param aChars
+   *        The source array. May not be <code>null</code>.
+   * @param nOfs
+   *        Offset into the source array. Must be &ge; 0.
+   * @param nLen
+   *        Number of chars to append. Must be &ge; 0.
+   * @since 11.0.1
+   */
+  public void append (@Nonnull final char [] aChars, @Nonnegative final int nOfs, @Nonnegative final int nLen)
+  {
+    m_sCache = null;
+    final int nNewLen = m_nLen + nLen;
+    if (nNewLen > m_aBuf.length)
+      _expandCapacity (nNewLen);
+    System.arraycopy (aChars, nOfs, m_aBuf, m_nLen, nLen);
+    m_nLen = nNewLen;
+  }
+
   public boolean hasContent ()
   {
     return m_nLen > 0;
@@ -102,6 +134,26 @@ public class JsonStringBuilder
     m_nLen -= n;
   }
 
+  /**
+   * Check if the content of this builder equals the provided string, without
+   * creating a new String object.
+   *
+   * @param s
+   *        The string to compare to. May be <code>null</code>.
+   * @return <code>true</code> if the content is equal, <code>false</code> if
+   *         not.
+   * @since 11.0.1
+   */
+  public boolean contentEquals (@Nullable final String s)
+  {
+    if (s == null || s.length () != m_nLen)
+      return false;
+    for (int i = 0; i < m_nLen; ++i)
+      if (m_aBuf[i] != s.charAt (i))
+        return false;
+    return true;
+  }
+
   @Nonnull
   public BigDecimal getAsBigDecimal ()
   {
@@ -117,7 +169,108 @@ public class JsonStringBuilder
   @Nonnull
   public Double getAsDouble ()
   {
-    return Double.valueOf (Double.parseDouble (getAsString ()));
+    return Double.valueOf (getAsDoubleValue ());
+  }
+
+  /**
+   * Get the content as a primitive double. Numbers with at most 15 significant
+   * digits and a decimal exponent in the range -22 to 22 are converted
+   * directly from the char buffer, as the result of a single multiplication or
+   * division of two exactly representable doubles is correctly rounded. All
+   * other numbers are parsed via {@link Double#parseDouble(String)}.
+   *
+   * @return The double value
+   * @throws NumberFormatException
+   *         If the content is not a valid number
+   * @since 11.0.1
+   */
+  public double getAsDoubleValue ()
+  {
+    final char [] aBuf = m_aBuf;
+    final int nLen = m_nLen;
+    int nPos = 0;
+    final boolean bNeg = nLen > 0 && aBuf[0] == '-';
+    if (bNeg)
+      nPos++;
+
+    long nMantissa = 0;
+    int nDigits = 0;
+    int nExp10 = 0;
+    boolean bAnyDigit = false;
+    boolean bFastPath = true;
+
+    // Integer part
+    while (nPos < nLen && aBuf[nPos] >= '0' && aBuf[nPos] <= '9')
+    {
+      final int nDigit = aBuf[nPos++] - '0';
+      bAnyDigit = true;
+      if (nDigits > 0 || nDigit != 0)
+      {
+        if (nDigits == MAX_FAST_DOUBLE_DIGITS)
+          bFastPath = false;
+        nMantissa = nMantissa * 10 + nDigit;
+        nDigits++;
+      }
+    }
+
+    // Fraction part
+    if (nPos < nLen && aBuf[nPos] == '.')
+    {
+      nPos++;
+      while (nPos < nLen && aBuf[nPos] >= '0' && aBuf[nPos] <= '9')
+      {
+        final int nDigit = aBuf[nPos++] - '0';
+        bAnyDigit = true;
+        if (nDigits > 0 || nDigit != 0)
+        {
+          if (nDigits == MAX_FAST_DOUBLE_DIGITS)
+            bFastPath = false;
+          nMantissa = nMantissa * 10 + nDigit;
+          nDigits++;
+        }
+        nExp10--;
+      }
+    }
+
+    // Exponent part
+    if (nPos < nLen && (aBuf[nPos] == 'e' || aBuf[nPos] == 'E'))
+    {
+      nPos++;
+      boolean bNegExp = false;
+      if (nPos < nLen && (aBuf[nPos] == '+' || aBuf[nPos] == '-'))
+        bNegExp = aBuf[nPos++] == '-';
+      int nExp = 0;
+      boolean bAnyExpDigit = false;
+      while (nPos < nLen && aBuf[nPos] >= '0' && aBuf[nPos] <= '9')
+      {
+        // Avoid overflow - such exponents are handled by the slow path
+        if (nExp < 10_000)
+          nExp = nExp * 10 + (aBuf[nPos] - '0');
+        bAnyExpDigit = true;
+        nPos++;
+      }
+      if (!bAnyExpDigit)
+        bFastPath = false;
+      nExp10 += bNegExp ? -nExp : nExp;
+    }
+
+    if (bFastPath && bAnyDigit && nPos == nLen)
+    {
+      if (nMantissa == 0)
+        return bNeg ? -0d : 0d;
+
+      double ret = nMantissa;
+      if (nExp10 >= 0 && nExp10 <= MAX_FAST_DOUBLE_EXP10)
+        ret *= POW10[nExp10];
+      else
+        if (nExp10 < 0 && nExp10 >= -MAX_FAST_DOUBLE_EXP10)
+          ret /= POW10[-nExp10];
+        else
+          ret = Double.NaN;
+      if (!Double.isNaN (ret))
+        return bNeg ? -ret : ret;
+    }
+    return Double.parseDouble (getAsString ());
   }
 
   @Nonnull
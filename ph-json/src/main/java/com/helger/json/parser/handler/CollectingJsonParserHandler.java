@@ -79,6 +79,12 @@ public class CollectingJsonParserHandler implements IJsonParserHandler
     m_aStack.push (aValue);
   }
 
+  @Override
+  public boolean isOriginalStringRequired ()
+  {
+    return false;
+  }
+
   public void onWhitespace (@Nonnull @Nonempty final String sWhitespace)
   {}
 
@@ -31,6 +31,12 @@ import com.helger.commons.annotation.Nonempty;
 @Immutable
 public class DoNothingJsonParserHandler implements IJsonParserHandler
 {
+  @Override
+  public boolean isOriginalStringRequired ()
+  {
+    return false;
+  }
+
   public void onWhitespace (@Nonnull @Nonempty final String sWhitespace)
   {}
 
@@ -28,6 +28,23 @@ import com.helger.commons.annotation.Nonempty;
  */
 public interface IJsonParserHandler
 {
+  /**
+   * Determine whether this handler uses the original (escaped) representation
+   * of strings, object names and numbers. If not, the parser avoids building
+   * it, and passes the unescaped content for both parameters of
+   * {@link #onString(String, String)} and
+   * {@link #onObjectName(String, String)}, and an empty string as the first
+   * parameter of {@link #onNumber(String, Number)}.
+   *
+   * @return <code>true</code> if the original strings are required,
+   *         <code>false</code> if not. The default is <code>true</code>.
+   * @since 11.0.1
+   */
+  default boolean isOriginalStringRequired ()
+  {
+    return true;
+  }
+
   /**
    * Called when reading whitespace characters. If a comment is mixed within
    * whitespaces this method is called for every whitespaces part.
@@ -60,7 +77,9 @@ public interface IJsonParserHandler
    *
    * @param sNumber
    *        The read string representation of the number. Never
-   *        <code>null</code>.
+   *        <code>null</code>. If {@link #isOriginalStringRequired()} returns
+   *        <code>false</code> this is an empty string, and a string
+   *        representation must be derived from the parsed number if needed.
    * @param aNumber
    *        The parsed number. Never <code>null</code>.
    */
@@ -18,6 +18,8 @@ package com.helger.json.parser;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -33,12 +35,15 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.io.stream.LoggingInputStream;
 import com.helger.commons.io.stream.NonBlockingStringReader;
 import com.helger.commons.io.stream.StringInputStream;
 import com.helger.json.IJson;
 import com.helger.json.IJsonValue;
 import com.helger.json.parser.handler.CollectingJsonParserHandler;
+import com.helger.json.parser.handler.DoNothingJsonParserHandler;
 import com.helger.json.serialize.JsonReader;
 
 /**
@@ -173,4 +178,57 @@ public final class JsonParserTest
       assertEquals (2, nCount);
     }
   }
+
+  @Test
+  public void testCacheObjectNames ()
+  {
+    final String sJson = "[{\"name\":1},{\"name\":2}]";
+    IJson aJson = _read (sJson, null);
+    assertSame (aJson.getAsArray ().get (0).getAsObject ().keySet ().getFirst (),
+                aJson.getAsArray ().get (1).getAsObject ().keySet ().getFirst ());
+
+    aJson = _read (sJson, aParser -> aParser.setCacheObjectNames (false));
+    assertNotSame (aJson.getAsArray ().get (0).getAsObject ().keySet ().getFirst (),
+                   aJson.getAsArray ().get (1).getAsObject ().keySet ().getFirst ());
+  }
+
+  @Test
+  public void testLongBoundaries ()
+  {
+    assertEquals (Long.valueOf (Long.MAX_VALUE), ((IJsonValue) _read ("9223372036854775807", null)).getValue ());
+    assertEquals (Long.valueOf (Long.MIN_VALUE), ((IJsonValue) _read ("-9223372036854775808", null)).getValue ());
+    assertEquals (new BigInteger ("9223372036854775808"), ((IJsonValue) _read ("9223372036854775808", null)).getValue ());
+    assertEquals (new BigInteger ("-9223372036854775809"), ((IJsonValue) _read ("-9223372036854775809", null)).getValue ());
+    assertEquals (Integer.valueOf (Integer.MIN_VALUE), ((IJsonValue) _read ("-2147483648", null)).getValue ());
+    assertEquals (Long.valueOf (2147483648L), ((IJsonValue) _read ("2147483648", null)).getValue ());
+    assertEquals (Integer.valueOf (0), ((IJsonValue) _read ("-0", null)).getValue ());
+  }
+
+  @Test
+  public void testNumberStringOnlyIfRequired () throws JsonParseException
+  {
+    for (final boolean bRequired : new boolean [] { true, false })
+    {
+      final ICommonsList <String> aNumbers = new CommonsArrayList <> ();
+      final DoNothingJsonParserHandler aHandler = new DoNothingJsonParserHandler ()
+      {
+        @Override
+        public boolean isOriginalStringRequired ()
+        {
+          return bRequired;
+        }
+
+        @Override
+        public void onNumber (@Nonnull final String sNumber, @Nonnull final Number aNumber)
+        {
+          aNumbers.add (sNumber);
+        }
+      };
+      new JsonParser (new NonBlockingStringReader ("[1, -2.5, 1.5E3]"), aHandler).parse ();
+      if (bRequired)
+        assertEquals (new CommonsArrayList <> ("1", "-2.5", "1.5E3"), aNumbers);
+      else
+        assertEquals (new CommonsArrayList <> ("", "", ""), aNumbers);
+    }
+  }
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.json.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigInteger;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.stream.NonBlockingStringReader;
+import com.helger.json.IJson;
+import com.helger.json.serialize.JsonReader;
+
+/**
+ * Test class for class {@link JsonStreamReader}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonStreamReaderTest
+{
+  @Nonnull
+  private static JsonStreamReader _create (@Nonnull final String sJson)
+  {
+    // Small buffer to test the buffer boundaries
+    return new JsonStreamReader (new NonBlockingStringReader (sJson), 3);
+  }
+
+  @Test
+  public void testTokens () throws JsonParseException
+  {
+    final JsonStreamReader aReader = _create ("{\"a\" : [1, -2.5, \"x\\ty\", true, false, null], /* c */ \"b\":{}}");
+    assertEquals (EJsonStreamToken.OBJECT_START, aReader.nextToken ());
+    assertEquals ("", aReader.getCurrentPath ());
+    assertEquals (1, aReader.getDepth ());
+    assertEquals (EJsonStreamToken.NAME, aReader.nextToken ());
+    assertEquals ("a", aReader.getStringValue ());
+    assertTrue (aReader.isStringValue ("a"));
+    assertEquals (EJsonStreamToken.ARRAY_START, aReader.nextToken ());
+    assertEquals ("/a", aReader.getCurrentPath ());
+    assertEquals (EJsonStreamToken.NUMBER, aReader.nextToken ());
+    assertTrue (aReader.isLongValue ());
+    assertEquals (1, aReader.getLongValue ());
+    assertEquals ("/a/0", aReader.getCurrentPath ());
+    assertEquals (EJsonStreamToken.NUMBER, aReader.nextToken ());
+    assertFalse (aReader.isLongValue ());
+    assertEquals (-2.5, aReader.getDoubleValue (), 0);
+    assertEquals (Double.valueOf (-2.5), aReader.getNumberValue ());
+    assertEquals (EJsonStreamToken.STRING, aReader.nextToken ());
+    assertEquals ("x\ty", aReader.getStringValue ());
+    assertEquals (2, aReader.getCurrentIndex ());
+    assertEquals (EJsonStreamToken.TRUE, aReader.nextToken ());
+    assertTrue (aReader.getBooleanValue ());
+    assertEquals (EJsonStreamToken.FALSE, aReader.nextToken ());
+    assertEquals (EJsonStreamToken.NULL, aReader.nextToken ());
+    assertEquals ("/a/5", aReader.getCurrentPath ());
+    assertEquals (EJsonStreamToken.ARRAY_END, aReader.nextToken ());
+    assertEquals ("/a", aReader.getCurrentPath ());
+    assertEquals (EJsonStreamToken.NAME, aReader.nextToken ());
+    assertEquals ("b", aReader.getCurrentName ());
+    assertEquals (EJsonStreamToken.OBJECT_START, aReader.nextToken ());
+    assertEquals (EJsonStreamToken.OBJECT_END, aReader.nextToken ());
+    assertEquals (EJsonStreamToken.OBJECT_END, aReader.nextToken ());
+    assertEquals (0, aReader.getDepth ());
+    assertEquals (EJsonStreamToken.END_OF_INPUT, aReader.nextToken ());
+    assertEquals (EJsonStreamToken.END_OF_INPUT, aReader.nextToken ());
+  }
+
+  @Test
+  public void testNumbers () throws JsonParseException
+  {
+    final JsonStreamReader aReader = _create ("[9223372036854775807, -9223372036854775808, 9223372036854775808, 12, 1e2]");
+    assertEquals (EJsonStreamToken.ARRAY_START, aReader.nextToken ());
+    aReader.nextToken ();
+    assertEquals (Long.MAX_VALUE, aReader.getLongValue ());
+    aReader.nextToken ();
+    assertEquals (Long.MIN_VALUE, aReader.getLongValue ());
+    aReader.nextToken ();
+    assertFalse (aReader.isLongValue ());
+    assertEquals (new BigInteger ("9223372036854775808"), aReader.getNumberValue ());
+    aReader.nextToken ();
+    assertEquals (Integer.valueOf (12), aReader.getNumberValue ());
+    aReader.nextToken ();
+    assertEquals (BigInteger.valueOf (100), aReader.getNumberValue ());
+    assertEquals (EJsonStreamToken.ARRAY_END, aReader.nextToken ());
+  }
+
+  @Test
+  public void testSkipChildren () throws JsonParseException
+  {
+    final JsonStreamReader aReader = _create ("[{\"a\":[1,{\"b\":\"]}\"}]}, 5]");
+    assertEquals (EJsonStreamToken.ARRAY_START, aReader.nextToken ());
+    assertEquals (EJsonStreamToken.OBJECT_START, aReader.nextToken ());
+    aReader.skipChildren ();
+    assertEquals (EJsonStreamToken.OBJECT_END, aReader.getCurrentToken ());
+    assertEquals (EJsonStreamToken.NUMBER, aReader.nextToken ());
+    assertEquals (5, aReader.getLongValue ());
+    assertEquals ("/1", aReader.getCurrentPath ());
+    assertEquals (EJsonStreamToken.ARRAY_END, aReader.nextToken ());
+    assertEquals (EJsonStreamToken.END_OF_INPUT, aReader.nextToken ());
+  }
+
+  @Test
+  public void testReadValueAsJson () throws JsonParseException
+  {
+    final String sJson = "{\"a\":[1,2,{\"b\":null}],\"c\":\"d\",\"e\":{\"f\":[]}}";
+    final JsonStreamReader aReader = _create (sJson);
+    aReader.nextToken ();
+    final IJson aJson = aReader.readValueAsJson ();
+    assertEquals (JsonReader.readFromString (sJson), aJson);
+    assertEquals (EJsonStreamToken.END_OF_INPUT, aReader.nextToken ());
+  }
+
+  @Test
+  public void testReadMatching () throws JsonParseException
+  {
+    final String sJson = "{\"items\":[{\"id\":1,\"x\":{\"id\":9}},{\"id\":2},{\"y\":3}],\"id\":4,\"a/b\":{\"id\":5}}";
+    final ICommonsList <IJson> aList = new CommonsArrayList <> ();
+    _create (sJson).readMatching ("/items/*/id", aList::add);
+    assertEquals (2, aList.size ());
+    assertEquals (1, aList.get (0).getAsValue ().getAsInt ());
+    assertEquals (2, aList.get (1).getAsValue ().getAsInt ());
+
+    aList.clear ();
+    _create (sJson).readMatching ("/items/1", aList::add);
+    assertEquals (1, aList.size ());
+    assertEquals (JsonReader.readFromString ("{\"id\":2}"), aList.get (0));
+
+    aList.clear ();
+    _create (sJson).readMatching ("/a~1b/id", aList::add);
+    assertEquals (1, aList.size ());
+    assertEquals (5, aList.get (0).getAsValue ().getAsInt ());
+
+    aList.clear ();
+    _create (sJson).readMatching ("", aList::add);
+    assertEquals (1, aList.size ());
+    assertEquals (JsonReader.readFromString (sJson), aList.get (0));
+  }
+
+  @Test
+  public void testMultipleRoots () throws JsonParseException
+  {
+    final ICommonsList <IJson> aList = new CommonsArrayList <> ();
+    _create ("{\"a\":1} [2] 3").setCheckForEOI (false).readMatching ("", aList::add);
+    assertEquals (3, aList.size ());
+
+    try
+    {
+      _create ("{\"a\":1} [2]").readMatching ("", aList::add);
+      fail ();
+    }
+    catch (final JsonParseException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testSyntaxErrors ()
+  {
+    for (final String sJson : new String [] { "[1,]", "[1 2]", "{\"a\" 1}", "{a:1}", "{\"a\":1,}", "[\"abc", "tru", "-", "1.", "[" })
+      try
+      {
+        final JsonStreamReader aReader = _create (sJson);
+        while (aReader.nextToken () != EJsonStreamToken.END_OF_INPUT)
+        {}
+        fail (sJson);
+      }
+      catch (final JsonParseException ex)
+      {
+        // expected
+      }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.json.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link JsonStringBuilder}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonStringBuilderTest
+{
+  @Nonnull
+  private static JsonStringBuilder _create (@Nonnull final String s)
+  {
+    final JsonStringBuilder ret = new JsonStringBuilder (2);
+    ret.append (s.toCharArray (), 0, s.length ());
+    return ret;
+  }
+
+  private static void _checkDouble (@Nonnull final String s)
+  {
+    final double dExpected = Double.parseDouble (s);
+    final double dActual = _create (s).getAsDoubleValue ();
+    // Compare the bits to also differentiate 0 and -0
+    assertEquals (s, Double.doubleToLongBits (dExpected), Double.doubleToLongBits (dActual));
+  }
+
+  @Test
+  public void testContentEquals ()
+  {
+    final JsonStringBuilder aSB = _create ("abc");
+    assertTrue (aSB.contentEquals ("abc"));
+    assertFalse (aSB.contentEquals ("abd"));
+    assertFalse (aSB.contentEquals ("ab"));
+    assertFalse (aSB.contentEquals (null));
+    aSB.append ('d');
+    assertTrue (aSB.contentEquals ("abcd"));
+    assertEquals ("abcd", aSB.getAsString ());
+  }
+
+  @Test
+  public void testGetAsDoubleValue ()
+  {
+    for (final String s : new String [] { "0",
+                                          "-0",
+                                          "0.0",
+                                          "-0.0",
+                                          "1",
+                                          "1.5",
+                                          "-1.5",
+                                          "0.1",
+                                          "0.001",
+                                          "123456789012345",
+                                          "1234567890123456",
+                                          "12345678901234567890",
+                                          "0.1234567890123456789",
+                                          "1e22",
+                                          "1e23",
+                                          "1e-22",
+                                          "1e-23",
+                                          "1.7976931348623157e308",
+                                          "4.9e-324",
+                                          "1e400",
+                                          "1e-400",
+                                          "2.5E+3",
+                                          "2.5e-3",
+                                          "9007199254740993",
+                                          "0.30000000000000004" })
+      _checkDouble (s);
+
+    final Random aRandom = new Random (42);
+    for (int i = 0; i < 10_000; ++i)
+    {
+      _checkDouble (Double.toString (aRandom.nextDouble () * Math.pow (10, aRandom.nextInt (40) - 20)));
+      _checkDouble (Long.toString (aRandom.nextLong () % 1_000_000_000_000L) + "." + aRandom.nextInt (1000));
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.json.supplementary.test;
+
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.io.stream.NonBlockingStringReader;
+import com.helger.commons.timing.StopWatch;
+import com.helger.json.parser.JsonParseException;
+import com.helger.json.parser.JsonParser;
+import com.helger.json.parser.JsonStringBuilder;
+import com.helger.json.parser.handler.CollectingJsonParserHandler;
+import com.helger.json.parser.handler.IJsonParserHandler;
+
+/**
+ * Compare the different JSON decoding modes of {@link JsonParser}.
+ *
+ * @author Philip Helger
+ */
+public final class MainBenchmarkJsonParserDecoding
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (MainBenchmarkJsonParserDecoding.class);
+  private static final int RUNS = 20;
+
+  private MainBenchmarkJsonParserDecoding ()
+  {}
+
+  @Nonnull
+  private static String _createJson ()
+  {
+    final Random aRandom = new Random (1234);
+    final StringBuilder aSB = new StringBuilder ("[");
+    for (int i = 0; i < 50_000; ++i)
+    {
+      if (i > 0)
+        aSB.append (',');
+      aSB.append ("{\"id\":")
+         .append (i)
+         .append (",\"name\":\"item \\\"")
+         .append (i)
+         .append ("\\\"\",\"price\":")
+         .append (aRandom.nextInt (100_000) / 100d)
+         .append (",\"ratio\":")
+         .append (aRandom.nextDouble ())
+         .append (",\"tags\":[\"a\",\"b\"]}");
+    }
+    return aSB.append (']').toString ();
+  }
+
+  private static long _parse (@Nonnull final String sJson,
+                              @Nonnull final IJsonParserHandler aHandler,
+                              final boolean bCacheObjectNames) throws JsonParseException
+  {
+    final StopWatch aSW = StopWatch.createdStarted ();
+    new JsonParser (new NonBlockingStringReader (sJson), aHandler).setCacheObjectNames (bCacheObjectNames).parse ();
+    return aSW.stopAndGetDuration ().toNanos ();
+  }
+
+  private static void _benchmarkParser (@Nonnull final String sJson) throws JsonParseException
+  {
+    final String [] aNames = { "original strings, no name cache", "original strings, name cache", "no original strings, name cache" };
+    final long [] aBest = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+    for (int nRun = 0; nRun < RUNS; ++nRun)
+      for (int i = 0; i < aNames.length; ++i)
+      {
+        final IJsonParserHandler aHandler;
+        if (i < 2)
+          aHandler = new CollectingJsonParserHandler ()
+          {
+            @Override
+            public boolean isOriginalStringRequired ()
+            {
+              return true;
+            }
+          };
+        else
+          aHandler = new CollectingJsonParserHandler ();
+        aBest[i] = Math.min (aBest[i], _parse (sJson, aHandler, i > 0));
+      }
+    for (int i = 0; i < aNames.length; ++i)
+      LOGGER.info ("Parse " + aNames[i] + ": " + aBest[i] / 1_000_000d + " ms");
+  }
+
+  private static void _benchmarkDouble ()
+  {
+    final Random aRandom = new Random (1234);
+    final JsonStringBuilder [] aValues = new JsonStringBuilder [100_000];
+    for (int i = 0; i < aValues.length; ++i)
+    {
+      final String s = Double.toString (aRandom.nextInt (1_000_000) / 1000d);
+      aValues[i] = new JsonStringBuilder (s.length ());
+      aValues[i].append (s.toCharArray (), 0, s.length ());
+    }
+
+    long nBestString = Long.MAX_VALUE;
+    long nBestFast = Long.MAX_VALUE;
+    double dSum = 0;
+    for (int nRun = 0; nRun < RUNS; ++nRun)
+    {
+      StopWatch aSW = StopWatch.createdStarted ();
+      for (final JsonStringBuilder aValue : aValues)
+        dSum += Double.parseDouble (aValue.getAsString ());
+      nBestString = Math.min (nBestString, aSW.stopAndGetDuration ().toNanos ());
+
+      aSW = StopWatch.createdStarted ();
+      for (final JsonStringBuilder aValue : aValues)
+        dSum += aValue.getAsDoubleValue ();
+      nBestFast = Math.min (nBestFast, aSW.stopAndGetDuration ().toNanos ());
+    }
+    LOGGER.info ("Double via String: " + nBestString / 1_000_000d + " ms");
+    LOGGER.info ("Double via char buffer: " + nBestFast / 1_000_000d + " ms");
+    LOGGER.info ("Checksum: " + dSum);
+  }
+
+  public static void main (final String [] args) throws JsonParseException
+  {
+    final String sJson = _createJson ();
+    LOGGER.info ("JSON has " + sJson.length () + " chars");
+    _benchmarkParser (sJson);
+    _benchmarkDouble ();
+  }
+}
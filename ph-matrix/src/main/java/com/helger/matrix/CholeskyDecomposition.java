@@ -66,6 +66,19 @@ public class CholeskyDecomposition
     // Initialize.
     final double [] [] aArray = aMatrix.internalGetArray ();
     m_nDim = aMatrix.getRowDimension ();
+    if (aMatrix.getColumnDimension () == m_nDim && MatrixKernels.isUseForDecomposition (m_nDim, m_nDim))
+    {
+      // Cache blocked and potentially parallel - only works for symmetric
+      // positive definite matrices
+      final double [] [] aData = new double [m_nDim] [m_nDim];
+      if (MatrixKernels.decomposeCholesky (aArray, aData, m_nDim))
+      {
+        m_aData = aData;
+        m_bIsSPD = true;
+        return;
+      }
+      // Fall through to build the partial decomposition
+    }
     m_aData = new double [m_nDim] [m_nDim];
     boolean bIsSPD = (aMatrix.getColumnDimension () == m_nDim);
     // Main loop.
@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableObject;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Iterative solvers for linear systems A x = b with a square
+ * {@link SparseMatrix}. Iteration stops as soon as the residual norm
+ * ||b - A x|| is not larger than the tolerance times ||b||.
+ * <ul>
+ * <li>Conjugate gradient (CG) for symmetric positive definite matrices</li>
+ * <li>Biconjugate gradient stabilized (BiCGSTAB) for general non-singular
+ * matrices</li>
+ * </ul>
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@Immutable
+public final class IterativeSolver
+{
+  /** The default relative tolerance */
+  public static final double DEFAULT_TOLERANCE = 1e-10;
+
+  /**
+   * The result of an iterative solver.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class Result
+  {
+    private final double [] m_aSolution;
+    private final int m_nIterations;
+    private final double m_dResidualNorm;
+    private final boolean m_bConverged;
+
+    Result (@Nonnull final double [] aSolution,
+            @Nonnegative final int nIterations,
+            final double dResidualNorm,
+            final boolean bConverged)
+    {
+      m_aSolution = aSolution;
+      m_nIterations = nIterations;
+      m_dResidualNorm = dResidualNorm;
+      m_bConverged = bConverged;
+    }
+
+    /**
+     * @return The last approximation of the solution x. If the solver did not
+     *         converge, this is not a solution of the system.
+     */
+    @Nonnull
+    @ReturnsMutableObject
+    public double [] getSolution ()
+    {
+      return m_aSolution;
+    }
+
+    /**
+     * @return The number of performed iterations. Always &ge; 0.
+     */
+    @Nonnegative
+    public int getIterationCount ()
+    {
+      return m_nIterations;
+    }
+
+    /**
+     * @return The relative residual norm ||b - A x|| / ||b|| of the solution,
+     *         as computed by the solver.
+     */
+    public double getResidualNorm ()
+    {
+      return m_dResidualNorm;
+    }
+
+    /**
+     * @return <code>true</code> if the requested tolerance was reached,
+     *         <code>false</code> if the maximum number of iterations was
+     *         reached or the method broke down.
+     */
+    public boolean isConverged ()
+    {
+      return m_bConverged;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (this).append ("Iterations", m_nIterations)
+                                         .append ("ResidualNorm", m_dResidualNorm)
+                                         .append ("Converged", m_bConverged)
+                                         .getToString ();
+    }
+  }
+
+  private IterativeSolver ()
+  {}
+
+  private static double _dot (@Nonnull final double [] aX, @Nonnull final double [] aY)
+  {
+    double ret = 0;
+    for (int i = 0; i < aX.length; ++i)
+      ret += aX[i] * aY[i];
+    return ret;
+  }
+
+  /**
+   * Check the parameters and get the start vector.
+   */
+  @Nonnull
+  private static double [] _getStart (@Nonnull final SparseMatrix aA,
+                                      @Nonnull final double [] aB,
+                                      @Nullable final double [] aX0,
+                                      final double dTolerance,
+                                      final int nMaxIterations)
+  {
+    ValueEnforcer.notNull (aA, "A");
+    ValueEnforcer.notNull (aB, "B");
+    ValueEnforcer.isTrue (aA.getRowDimension () == aA.getColumnDimension (), "Matrix must be square.");
+    ValueEnforcer.isTrue (aB.length == aA.getRowDimension (), "Vector length must match matrix dimension.");
+    if (aX0 != null)
+      ValueEnforcer.isTrue (aX0.length == aB.length, "Start vector length must match matrix dimension.");
+    ValueEnforcer.isGT0 (dTolerance, "Tolerance");
+    ValueEnforcer.isGE0 (nMaxIterations, "MaxIterations");
+    return aX0 == null ? new double [aB.length] : aX0.clone ();
+  }
+
+  /**
+   * Solve A x = b with the conjugate gradient method, starting at x = 0, with
+   * the default tolerance and at most 10 times the dimension iterations.
+   *
+   * @param aA
+   *        The symmetric positive definite matrix A. May not be
+   *        <code>null</code>.
+   * @param aB
+   *        The right hand side b. May not be <code>null</code>.
+   * @return The result and never <code>null</code>.
+   */
+  @Nonnull
+  public static Result solveConjugateGradient (@Nonnull final SparseMatrix aA, @Nonnull final double [] aB)
+  {
+    return solveConjugateGradient (aA, aB, null, DEFAULT_TOLERANCE, 10 * aB.length);
+  }
+
+  /**
+   * Solve A x = b with the conjugate gradient method. The matrix is not checked
+   * for symmetry; if it is not positive definite, the method may break down
+   * and return an unconverged result.
+   *
+   * @param aA
+   *        The symmetric positive definite matrix A. May not be
+   *        <code>null</code>.
+   * @param aB
+   *        The right hand side b. May not be <code>null</code>.
+   * @param aX0
+   *        The start vector. May be <code>null</code> to start with x = 0. Is
+   *        not modified.
+   * @param dTolerance
+   *        The relative tolerance. Must be &gt; 0.
+   * @param nMaxIterations
+   *        The maximum number of iterations. Must be &ge; 0.
+   * @return The result and never <code>null</code>.
+   */
+  @Nonnull
+  public static Result solveConjugateGradient (@Nonnull final SparseMatrix aA,
+                                               @Nonnull final double [] aB,
+                                               @Nullable final double [] aX0,
+                                               final double dTolerance,
+                                               @Nonnegative final int nMaxIterations)
+  {
+    final double [] x = _getStart (aA, aB, aX0, dTolerance, nMaxIterations);
+    final int n = aB.length;
+    final double dNormB = Math.sqrt (_dot (aB, aB));
+    if (dNormB == 0)
+    {
+      // The trivial solution
+      Arrays.fill (x, 0);
+      return new Result (x, 0, 0, true);
+    }
+    final double dLimit = dTolerance * dNormB;
+
+    // r = b - A x
+    final double [] r = aA.times (x);
+    for (int i = 0; i < n; ++i)
+      r[i] = aB[i] - r[i];
+    final double [] p = r.clone ();
+    final double [] aAp = new double [n];
+    double dRR = _dot (r, r);
+
+    int nIteration = 0;
+    while (Math.sqrt (dRR) > dLimit && nIteration < nMaxIterations)
+    {
+      aA.multiply (p, aAp);
+      final double dPAp = _dot (p, aAp);
+      if (!(dPAp > 0))
+      {
+        // Not positive definite
+        break;
+      }
+      final double dAlpha = dRR / dPAp;
+      for (int i = 0; i < n; ++i)
+      {
+        x[i] += dAlpha * p[i];
+        r[i] -= dAlpha * aAp[i];
+      }
+      final double dRRNew = _dot (r, r);
+      final double dBeta = dRRNew / dRR;
+      for (int i = 0; i < n; ++i)
+        p[i] = r[i] + dBeta * p[i];
+      dRR = dRRNew;
+      nIteration++;
+    }
+    final double dNormR = Math.sqrt (dRR);
+    return new Result (x, nIteration, dNormR / dNormB, dNormR <= dLimit);
+  }
+
+  /**
+   * Solve A x = b with the BiCGSTAB method, starting at x = 0, with the
+   * default tolerance and at most 10 times the dimension iterations.
+   *
+   * @param aA
+   *        The non-singular matrix A. May not be <code>null</code>.
+   * @param aB
+   *        The right hand side b. May not be <code>null</code>.
+   * @return The result and never <code>null</code>.
+   */
+  @Nonnull
+  public static Result solveBiCGSTAB (@Nonnull final SparseMatrix aA, @Nonnull final double [] aB)
+  {
+    return solveBiCGSTAB (aA, aB, null, DEFAULT_TOLERANCE, 10 * aB.length);
+  }
+
+  /**
+   * Solve A x = b with the biconjugate gradient stabilized method. If the
+   * method breaks down, an unconverged result is returned.
+   *
+   * @param aA
+   *        The non-singular matrix A. May not be <code>null</code>.
+   * @param aB
+   *        The right hand side b. May not be <code>null</code>.
+   * @param aX0
+   *        The start vector. May be <code>null</code> to start with x = 0. Is
+   *        not modified.
+   * @param dTolerance
+   *        The relative tolerance. Must be &gt; 0.
+   * @param nMaxIterations
+   *        The maximum number of iterations. Must be &ge; 0.
+   * @return The result and never <code>null</code>.
+   */
+  @Nonnull
+  public static Result solveBiCGSTAB (@Nonnull final SparseMatrix aA,
+                                      @Nonnull final double [] aB,
+                                      @Nullable final double [] aX0,
+                                      final double dTolerance,
+                                      @Nonnegative final int nMaxIterations)
+  {
+    final double [] x = _getStart (aA, aB, aX0, dTolerance, nMaxIterations);
+    final int n = aB.length;
+    final double dNormB = Math.sqrt (_dot (aB, aB));
+    if (dNormB == 0)
+    {
+      // The trivial solution
+      Arrays.fill (x, 0);
+      return new Result (x, 0, 0, true);
+    }
+    final double dLimit = dTolerance * dNormB;
+
+    // r = b - A x
+    final double [] r = aA.times (x);
+    for (int i = 0; i < n; ++i)
+      r[i] = aB[i] - r[i];
+    // The shadow residual
+    final double [] aR0 = r.clone ();
+    final double [] p = new double [n];
+    final double [] v = new double [n];
+    final double [] s = new double [n];
+    final double [] t = new double [n];
+    double dRho = 1;
+    double dAlpha = 1;
+    double dOmega = 1;
+    double dNormR = Math.sqrt (_dot (r, r));
+
+    int nIteration = 0;
+    while (dNormR > dLimit && nIteration < nMaxIterations)
+    {
+      final double dRhoNew = _dot (aR0, r);
+      if (dRhoNew == 0 || dOmega == 0)
+        break;
+      final double dBeta = (dRhoNew / dRho) * (dAlpha / dOmega);
+      for (int i = 0; i < n; ++i)
+        p[i] = r[i] + dBeta * (p[i] - dOmega * v[i]);
+      aA.multiply (p, v);
+      final double dR0V = _dot (aR0, v);
+      if (dR0V == 0)
+        break;
+      dAlpha = dRhoNew / dR0V;
+      for (int i = 0; i < n; ++i)
+        s[i] = r[i] - dAlpha * v[i];
+      nIteration++;
+
+      final double dNormS = Math.sqrt (_dot (s, s));
+      if (dNormS <= dLimit)
+      {
+        // Converged after the first half step
+        for (int i = 0; i < n; ++i)
+          x[i] += dAlpha * p[i];
+        dNormR = dNormS;
+        break;
+      }
+
+      aA.multiply (s, t);
+      final double dTT = _dot (t, t);
+      if (dTT == 0)
+        break;
+      dOmega = _dot (t, s) / dTT;
+      for (int i = 0; i < n; ++i)
+      {
+        x[i] += dAlpha * p[i] + dOmega * s[i];
+        r[i] = s[i] - dOmega * t[i];
+      }
+      dNormR = Math.sqrt (_dot (r, r));
+      dRho = dRhoNew;
+    }
+    return new Result (x, nIteration, dNormR / dNormB, dNormR <= dLimit);
+  }
+}
@@ -75,28 +75,43 @@ public class LUDecomposition
 
   public LUDecomposition (@Nonnull final Matrix aMatrix)
   {
-    // Use a "left-looking", dot-product, Crout/Doolittle algorithm.
     m_aLU = aMatrix.getArrayCopy ();
     m_nRows = aMatrix.getRowDimension ();
     m_nCols = aMatrix.getColumnDimension ();
     m_aPivot = new int [m_nRows];
     for (int i = 0; i < m_nRows; i++)
       m_aPivot[i] = i;
+
+    if (m_nRows >= m_nCols && MatrixKernels.isUseForDecomposition (m_nRows, m_nCols))
+    {
+      // Cache blocked and potentially parallel
+      m_nPivSign = MatrixKernels.decomposeLU (m_aLU, m_nRows, m_nCols, m_aPivot);
+    }
+    else
+      m_nPivSign = _decompose (m_aLU, m_nRows, m_nCols, m_aPivot);
+  }
+
+  private static int _decompose (@Nonnull final double [] [] aLU,
+                                 final int nRows,
+                                 final int nCols,
+                                 @Nonnull final int [] aPivot)
+  {
+    // Use a "left-looking", dot-product, Crout/Doolittle algorithm.
     int nPivSign = 1;
     double [] aLUrowi;
-    final double [] aLUcolj = new double [m_nRows];
+    final double [] aLUcolj = new double [nRows];
 
     // Outer loop.
-    for (int j = 0; j < m_nCols; j++)
+    for (int j = 0; j < nCols; j++)
     {
       // Make a copy of the j-th column to localize references.
-      for (int i = 0; i < m_nRows; i++)
-        aLUcolj[i] = m_aLU[i][j];
+      for (int i = 0; i < nRows; i++)
+        aLUcolj[i] = aLU[i][j];
 
       // Apply previous transformations.
-      for (int i = 0; i < m_nRows; i++)
+      for (int i = 0; i < nRows; i++)
       {
-        aLUrowi = m_aLU[i];
+        aLUrowi = aLU[i];
 
         // Most of the time is spent in the following dot product.
         final int kmax = Math.min (i, j);
@@ -109,31 +124,31 @@ public class LUDecomposition
 
       // Find pivot and exchange if necessary.
       int p = j;
-      for (int i = j + 1; i < m_nRows; i++)
+      for (int i = j + 1; i < nRows; i++)
         if (MathHelper.abs (aLUcolj[i]) > MathHelper.abs (aLUcolj[p]))
           p = i;
-      final double [] aLUj = m_aLU[j];
+      final double [] aLUj = aLU[j];
       if (p != j)
       {
-        final double [] aLUp = m_aLU[p];
-        for (int k = 0; k < m_nCols; k++)
+        final double [] aLUp = aLU[p];
+        for (int k = 0; k < nCols; k++)
         {
           final double t = aLUp[k];
           aLUp[k] = aLUj[k];
           aLUj[k] = t;
         }
-        final int k = m_aPivot[p];
-        m_aPivot[p] = m_aPivot[j];
-        m_aPivot[j] = k;
+        final int k = aPivot[p];
+        aPivot[p] = aPivot[j];
+        aPivot[j] = k;
         nPivSign = -nPivSign;
       }
 
       // Compute multipliers.
-      if (j < m_nRows && aLUj[j] != 0.0)
-        for (int i = j + 1; i < m_nRows; i++)
-          m_aLU[i][j] /= aLUj[j];
+      if (j < nRows && aLUj[j] != 0.0)
+        for (int i = j + 1; i < nRows; i++)
+          aLU[i][j] /= aLUj[j];
     }
-    m_nPivSign = nPivSign;
+    return nPivSign;
   }
 
   /*
@@ -1023,7 +1023,8 @@ public class Matrix implements ICloneable <Matrix>, Serializable
   }
 
   /**
-   * Linear algebraic matrix multiplication, A * B
+   * Linear algebraic matrix multiplication, A * B. For large matrices the
+   * blocked kernels of {@link MatrixKernels} are used.
    *
    * @param aMatrix
    *        another matrix
@@ -1040,6 +1041,13 @@ public class Matrix implements ICloneable <Matrix>, Serializable
 
     final Matrix aNewMatrix = new Matrix (m_nRows, aMatrix.m_nCols);
     final double [] [] aNewArray = aNewMatrix.internalGetArray ();
+    if (MatrixKernels.isUseForMultiply (m_nRows, m_nCols, aMatrix.m_nCols))
+    {
+      // Cache blocked and potentially parallel
+      MatrixKernels.multiply (m_aData, aMatrix.m_aData, aNewArray, m_nRows, m_nCols, aMatrix.m_nCols);
+      return aNewMatrix;
+    }
+
     final double [] aRhsCol = new double [m_nCols];
     for (int nCol = 0; nCol < aMatrix.m_nCols; nCol++)
     {
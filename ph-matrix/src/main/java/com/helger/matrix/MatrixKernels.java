@@ -0,0 +1,566 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntBinaryOperator;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.equals.EqualsHelper;
+import com.helger.commons.math.MathHelper;
+
+/**
+ * Cache blocked and multi-threaded implementations of the most expensive
+ * dense matrix kernels. They are used transparently by
+ * {@link Matrix#times(Matrix)}, {@link LUDecomposition} and
+ * {@link CholeskyDecomposition} for large matrices, while small matrices use
+ * the classic algorithms.<br>
+ * All kernels work on the row arrays of the matrices. Row blocks are
+ * distributed to the {@link ForkJoinPool#commonPool() common fork/join pool}
+ * and the right hand side of a multiplication is packed into flat, tile
+ * ordered arrays so that the inner loops run over contiguous memory.<br>
+ * The matrix product is bitwise identical to the classic implementation,
+ * because the summation order per element is retained. The decompositions
+ * use a different operation order and may therefore differ in the last bits.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+public final class MatrixKernels
+{
+  /** By default the blocked kernels are enabled */
+  public static final boolean DEFAULT_ENABLED = true;
+  /** By default the blocked kernels run multi-threaded */
+  public static final boolean DEFAULT_PARALLEL = true;
+  /** The default block size */
+  public static final int DEFAULT_BLOCK_SIZE = 64;
+  /**
+   * The default minimum dimension from which on the blocked kernels are used
+   */
+  public static final int DEFAULT_MIN_DIMENSION = 128;
+
+  private static volatile boolean s_bEnabled = DEFAULT_ENABLED;
+  private static volatile boolean s_bParallel = DEFAULT_PARALLEL;
+  private static volatile int s_nBlockSize = DEFAULT_BLOCK_SIZE;
+  private static volatile int s_nMinDimension = DEFAULT_MIN_DIMENSION;
+
+  private MatrixKernels ()
+  {}
+
+  /**
+   * @return <code>true</code> if the blocked kernels are used for large
+   *         matrices, <code>false</code> if the classic algorithms are always
+   *         used. Default is {@value #DEFAULT_ENABLED}.
+   */
+  public static boolean isEnabled ()
+  {
+    return s_bEnabled;
+  }
+
+  /**
+   * Enable or disable the blocked kernels globally.
+   *
+   * @param bEnabled
+   *        <code>true</code> to enable them, <code>false</code> to always use
+   *        the classic algorithms.
+   */
+  public static void setEnabled (final boolean bEnabled)
+  {
+    s_bEnabled = bEnabled;
+  }
+
+  /**
+   * @return <code>true</code> if the blocked kernels use multiple threads,
+   *         <code>false</code> if they run in the calling thread only. Default
+   *         is {@value #DEFAULT_PARALLEL}.
+   */
+  public static boolean isParallel ()
+  {
+    return s_bParallel;
+  }
+
+  /**
+   * @param bParallel
+   *        <code>true</code> to run the blocked kernels multi-threaded,
+   *        <code>false</code> to run them in the calling thread only.
+   */
+  public static void setParallel (final boolean bParallel)
+  {
+    s_bParallel = bParallel;
+  }
+
+  /**
+   * @return The edge length of the square blocks (tiles) used. Always &gt; 0.
+   *         Default is {@value #DEFAULT_BLOCK_SIZE}.
+   */
+  @Nonnegative
+  public static int getBlockSize ()
+  {
+    return s_nBlockSize;
+  }
+
+  /**
+   * @param nBlockSize
+   *        The edge length of the square blocks (tiles) to use. Must be &gt;
+   *        0.
+   */
+  public static void setBlockSize (@Nonnegative final int nBlockSize)
+  {
+    ValueEnforcer.isGT0 (nBlockSize, "BlockSize");
+    s_nBlockSize = nBlockSize;
+  }
+
+  /**
+   * @return The minimum dimension from which on the blocked kernels are used.
+   *         Always &gt; 0. Default is {@value #DEFAULT_MIN_DIMENSION}.
+   */
+  @Nonnegative
+  public static int getMinDimension ()
+  {
+    return s_nMinDimension;
+  }
+
+  /**
+   * @param nMinDimension
+   *        The minimum dimension from which on the blocked kernels should be
+   *        used. For a multiplication the product of all three dimensions is
+   *        compared with the third power of this value. Must be &gt; 0.
+   */
+  public static void setMinDimension (@Nonnegative final int nMinDimension)
+  {
+    ValueEnforcer.isGT0 (nMinDimension, "MinDimension");
+    s_nMinDimension = nMinDimension;
+  }
+
+  static boolean isUseForMultiply (final int nRows, final int nInner, final int nCols)
+  {
+    if (!s_bEnabled)
+      return false;
+    final long nMin = s_nMinDimension;
+    return (long) nRows * nInner * nCols >= nMin * nMin * nMin;
+  }
+
+  static boolean isUseForDecomposition (final int nRows, final int nCols)
+  {
+    return s_bEnabled && Math.min (nRows, nCols) >= s_nMinDimension;
+  }
+
+  private static final class RangeAction extends RecursiveAction
+  {
+    private final int m_nFrom;
+    private final int m_nTo;
+    private final int m_nGrain;
+    private final IntBinaryOperator m_aRange;
+
+    RangeAction (final int nFrom, final int nTo, final int nGrain, @Nonnull final IntBinaryOperator aRange)
+    {
+      m_nFrom = nFrom;
+      m_nTo = nTo;
+      m_nGrain = nGrain;
+      m_aRange = aRange;
+    }
+
+    @Override
+    protected void compute ()
+    {
+      if (m_nTo - m_nFrom <= m_nGrain)
+        m_aRange.applyAsInt (m_nFrom, m_nTo);
+      else
+      {
+        // Split at a multiple of the grain size
+        final int nMid = m_nFrom + Math.max ((m_nTo - m_nFrom) / m_nGrain / 2, 1) * m_nGrain;
+        invokeAll (new RangeAction (m_nFrom, nMid, m_nGrain, m_aRange), new RangeAction (nMid, m_nTo, m_nGrain, m_aRange));
+      }
+    }
+  }
+
+  /**
+   * Invoke the provided operation for sub ranges of [nFrom, nTo), potentially
+   * in parallel.
+   *
+   * @param nFrom
+   *        Start index, inclusive
+   * @param nTo
+   *        End index, exclusive
+   * @param nGrain
+   *        Minimum size of a sub range
+   * @param aRange
+   *        Operation receiving the start and end index of a sub range. The
+   *        return value is ignored.
+   */
+  static void forRange (final int nFrom, final int nTo, final int nGrain, @Nonnull final IntBinaryOperator aRange)
+  {
+    if (nTo <= nFrom)
+      return;
+    final int nLength = nTo - nFrom;
+    if (!s_bParallel || nLength <= nGrain)
+      aRange.applyAsInt (nFrom, nTo);
+    else
+    {
+      // Not more than a few tasks per thread, to reuse cached data as long as
+      // possible
+      final int nMaxTasks = ForkJoinPool.getCommonPoolParallelism () * 4;
+      final int nMinChunk = (nLength + nMaxTasks - 1) / nMaxTasks;
+      final int nChunk = Math.max (1, (nMinChunk + nGrain - 1) / nGrain) * nGrain;
+      if (nLength <= nChunk)
+        aRange.applyAsInt (nFrom, nTo);
+      else
+        ForkJoinPool.commonPool ().invoke (new RangeAction (nFrom, nTo, nChunk, aRange));
+    }
+  }
+
+  /**
+   * Compute C = A * B. C must be initialized with 0.
+   *
+   * @param aA
+   *        Rows of A (nRows x nInner)
+   * @param aB
+   *        Rows of B (nInner x nCols)
+   * @param aC
+   *        Rows of C (nRows x nCols)
+   * @param nRows
+   *        Row count of A
+   * @param nInner
+   *        Column count of A and row count of B
+   * @param nCols
+   *        Column count of B
+   */
+  static void multiply (@Nonnull final double [] [] aA,
+                        @Nonnull final double [] [] aB,
+                        @Nonnull final double [] [] aC,
+                        final int nRows,
+                        final int nInner,
+                        final int nCols)
+  {
+    final int nBS = s_nBlockSize;
+    // The tiles of B are wider than high, to have longer inner loops
+    final int nTileRows = nBS * 2;
+    final int nTileCols = nBS * 4;
+
+    // Pack B tile by tile: tiles of the same column band are stored
+    // consecutively, each tile in row major order
+    final double [] aPackedB = new double [nInner * nCols];
+    {
+      int nPos = 0;
+      for (int nColStart = 0; nColStart < nCols; nColStart += nTileCols)
+      {
+        final int nColEnd = Math.min (nColStart + nTileCols, nCols);
+        final int nWidth = nColEnd - nColStart;
+        for (int k = 0; k < nInner; ++k)
+        {
+          System.arraycopy (aB[k], nColStart, aPackedB, nPos, nWidth);
+          nPos += nWidth;
+        }
+      }
+    }
+
+    forRange (0, nRows, nBS, (nRowStart, nRowEnd) -> {
+      int nBandOffset = 0;
+      for (int nColStart = 0; nColStart < nCols; nColStart += nTileCols)
+      {
+        final int nColEnd = Math.min (nColStart + nTileCols, nCols);
+        final int nWidth = nColEnd - nColStart;
+        for (int nKStart = 0; nKStart < nInner; nKStart += nTileRows)
+        {
+          final int nKEnd = Math.min (nKStart + nTileRows, nInner);
+          final int nTileOffset = nBandOffset + nKStart * nWidth;
+          int i = nRowStart;
+          // Four rows at once, so that each element of B is loaded only once
+          for (; i + 3 < nRowEnd; i += 4)
+            _multiplyRows4 (aA, aC, i, aPackedB, nTileOffset, nKStart, nKEnd, nColStart, nWidth);
+          for (; i < nRowEnd; ++i)
+          {
+            final double [] aRowA = aA[i];
+            final double [] aRowC = aC[i];
+            int nPos = nTileOffset;
+            // Keep the summation order over k of the classic implementation
+            for (int k = nKStart; k < nKEnd; ++k)
+            {
+              final double dA = aRowA[k];
+              for (int j = 0; j < nWidth; ++j)
+                aRowC[nColStart + j] += dA * aPackedB[nPos + j];
+              nPos += nWidth;
+            }
+          }
+        }
+        nBandOffset += nInner * nWidth;
+      }
+      return 0;
+    });
+  }
+
+  private static void _multiplyRows4 (@Nonnull final double [] [] aA,
+                                     @Nonnull final double [] [] aC,
+                                     final int nRow,
+                                     @Nonnull final double [] aPackedB,
+                                     final int nTileOffset,
+                                     final int nKStart,
+                                     final int nKEnd,
+                                     final int nColStart,
+                                     final int nWidth)
+  {
+    final double [] aRowA0 = aA[nRow];
+    final double [] aRowA1 = aA[nRow + 1];
+    final double [] aRowA2 = aA[nRow + 2];
+    final double [] aRowA3 = aA[nRow + 3];
+    final double [] aRowC0 = aC[nRow];
+    final double [] aRowC1 = aC[nRow + 1];
+    final double [] aRowC2 = aC[nRow + 2];
+    final double [] aRowC3 = aC[nRow + 3];
+    int nPos = nTileOffset;
+    for (int k = nKStart; k < nKEnd; ++k)
+    {
+      final double dA0 = aRowA0[k];
+      final double dA1 = aRowA1[k];
+      final double dA2 = aRowA2[k];
+      final double dA3 = aRowA3[k];
+      for (int j = 0; j < nWidth; ++j)
+      {
+        final double dB = aPackedB[nPos + j];
+        final int nCol = nColStart + j;
+        aRowC0[nCol] += dA0 * dB;
+        aRowC1[nCol] += dA1 * dB;
+        aRowC2[nCol] += dA2 * dB;
+        aRowC3[nCol] += dA3 * dB;
+      }
+      nPos += nWidth;
+    }
+  }
+
+  /**
+   * Blocked right looking LU decomposition with partial pivoting. The pivoting
+   * strategy is the same as the one of the classic implementation.
+   *
+   * @param aLU
+   *        The rows of the matrix to decompose. Is modified in place and rows
+   *        are exchanged.
+   * @param nRows
+   *        Row count
+   * @param nCols
+   *        Column count
+   * @param aPivot
+   *        The pivot vector, initialized with the identity permutation.
+   * @return The pivot sign
+   */
+  static int decomposeLU (@Nonnull final double [] [] aLU, final int nRows, final int nCols, @Nonnull final int [] aPivot)
+  {
+    final int nBS = s_nBlockSize;
+    final int nMin = Math.min (nRows, nCols);
+    int nPivSign = 1;
+    for (int nBlock = 0; nBlock < nMin; nBlock += nBS)
+    {
+      final int nBlockStart = nBlock;
+      final int nBlockEnd = Math.min (nBlockStart + nBS, nMin);
+
+      // Factorize the panel (all rows below the block start, only the columns
+      // of this block)
+      for (int nPanelCol = nBlockStart; nPanelCol < nBlockEnd; ++nPanelCol)
+      {
+        final int j = nPanelCol;
+        // Find pivot and exchange if necessary.
+        int p = j;
+        for (int i = j + 1; i < nRows; i++)
+          if (MathHelper.abs (aLU[i][j]) > MathHelper.abs (aLU[p][j]))
+            p = i;
+        if (p != j)
+        {
+          final double [] aTmpRow = aLU[p];
+          aLU[p] = aLU[j];
+          aLU[j] = aTmpRow;
+          final int k = aPivot[p];
+          aPivot[p] = aPivot[j];
+          aPivot[j] = k;
+          nPivSign = -nPivSign;
+        }
+
+        // Compute multipliers and update the remaining panel columns
+        final double [] aRowJ = aLU[j];
+        final double dPivot = aRowJ[j];
+        if (dPivot != 0.0)
+        {
+          final int nColStart = j + 1;
+          forRange (j + 1, nRows, nBS * 4, (nFrom, nTo) -> {
+            for (int i = nFrom; i < nTo; ++i)
+            {
+              final double [] aRowI = aLU[i];
+              final double dFactor = aRowI[j] /= dPivot;
+              for (int c = nColStart; c < nBlockEnd; ++c)
+                aRowI[c] -= dFactor * aRowJ[c];
+            }
+            return 0;
+          });
+        }
+      }
+
+      if (nBlockEnd < nCols)
+      {
+        // Compute U12 = L11^-1 * A12 (unit lower triangular)
+        for (int r = nBlockStart + 1; r < nBlockEnd; ++r)
+        {
+          final double [] aRowR = aLU[r];
+          for (int t = nBlockStart; t < r; ++t)
+          {
+            final double dFactor = aRowR[t];
+            final double [] aRowT = aLU[t];
+            for (int c = nBlockEnd; c < nCols; ++c)
+              aRowR[c] -= dFactor * aRowT[c];
+          }
+        }
+
+        // Update the trailing matrix A22 -= L21 * U12
+        final int nTileCols = nBS * 4;
+        forRange (nBlockEnd, nRows, nBS, (nFrom, nTo) -> {
+          // Column tiles keep the used part of U12 in the cache
+          for (int nColStart = nBlockEnd; nColStart < nCols; nColStart += nTileCols)
+          {
+            final int nColEnd = Math.min (nColStart + nTileCols, nCols);
+            for (int i = nFrom; i < nTo; ++i)
+            {
+              final double [] aRowI = aLU[i];
+              for (int t = nBlockStart; t < nBlockEnd; ++t)
+              {
+                final double dFactor = aRowI[t];
+                final double [] aRowT = aLU[t];
+                for (int c = nColStart; c < nColEnd; ++c)
+                  aRowI[c] -= dFactor * aRowT[c];
+              }
+            }
+          }
+          return 0;
+        });
+      }
+    }
+    return nPivSign;
+  }
+
+  private static double _dot (@Nonnull final double [] aRow1,
+                              @Nonnull final double [] aRow2,
+                              final int nFrom,
+                              final int nTo)
+  {
+    double ret = 0;
+    for (int t = nFrom; t < nTo; ++t)
+      ret += aRow1[t] * aRow2[t];
+    return ret;
+  }
+
+  /**
+   * Blocked right looking Cholesky decomposition A = L*L'.
+   *
+   * @param aA
+   *        The rows of the square source matrix. Not modified.
+   * @param aL
+   *        The rows of the resulting lower triangular matrix. Must be
+   *        initialized with 0.
+   * @param nDim
+   *        Dimension of the matrix
+   * @return <code>true</code> if the matrix is symmetric and positive
+   *         definite and the decomposition succeeded, <code>false</code> if
+   *         not. In the latter case the content of aL is undefined.
+   */
+  static boolean decomposeCholesky (@Nonnull final double [] [] aA, @Nonnull final double [] [] aL, final int nDim)
+  {
+    final int nBS = s_nBlockSize;
+
+    // Check symmetry and copy the lower triangle
+    final boolean [] aSymmetrical = { true };
+    forRange (0, nDim, nBS, (nFrom, nTo) -> {
+      for (int i = nFrom; i < nTo; ++i)
+      {
+        final double [] aRowA = aA[i];
+        final double [] aRowL = aL[i];
+        for (int j = 0; j <= i; ++j)
+        {
+          if (!EqualsHelper.equals (aA[j][i], aRowA[j]))
+          {
+            // Benign race - only ever set to false
+            aSymmetrical[0] = false;
+            return 0;
+          }
+          aRowL[j] = aRowA[j];
+        }
+      }
+      return 0;
+    });
+    if (!aSymmetrical[0])
+      return false;
+
+    for (int nBlock = 0; nBlock < nDim; nBlock += nBS)
+    {
+      final int nBlockStart = nBlock;
+      final int nBlockEnd = Math.min (nBlockStart + nBS, nDim);
+
+      // Factorize the diagonal block
+      for (int j = nBlockStart; j < nBlockEnd; ++j)
+      {
+        final double [] aRowJ = aL[j];
+        final double d = aRowJ[j] - _dot (aRowJ, aRowJ, nBlockStart, j);
+        if (!(d > 0.0))
+          return false;
+        final double dDiag = Math.sqrt (d);
+        aRowJ[j] = dDiag;
+        for (int i = j + 1; i < nBlockEnd; ++i)
+        {
+          final double [] aRowI = aL[i];
+          aRowI[j] = (aRowI[j] - _dot (aRowI, aRowJ, nBlockStart, j)) / dDiag;
+        }
+      }
+
+      if (nBlockEnd < nDim)
+      {
+        // Compute the panel below the diagonal block: L21 = A21 * L11^-T
+        forRange (nBlockEnd, nDim, nBS, (nFrom, nTo) -> {
+          for (int i = nFrom; i < nTo; ++i)
+          {
+            final double [] aRowI = aL[i];
+            for (int j = nBlockStart; j < nBlockEnd; ++j)
+            {
+              final double [] aRowJ = aL[j];
+              aRowI[j] = (aRowI[j] - _dot (aRowI, aRowJ, nBlockStart, j)) / aRowJ[j];
+            }
+          }
+          return 0;
+        });
+
+        // Update the lower triangle of the trailing matrix A22 -= L21 * L21'
+        final int nTileRows = nBS * 4;
+        forRange (nBlockEnd, nDim, nBS, (nFrom, nTo) -> {
+          // Row tiles keep the used part of L21 in the cache
+          for (int nTileStart = nBlockEnd; nTileStart < nTo; nTileStart += nTileRows)
+          {
+            final int nTileEnd = nTileStart + nTileRows;
+            for (int i = Math.max (nFrom, nTileStart); i < nTo; ++i)
+            {
+              final double [] aRowI = aL[i];
+              final int nLast = Math.min (nTileEnd - 1, i);
+              for (int j = nTileStart; j <= nLast; ++j)
+                aRowI[j] -= _dot (aRowI, aL[j], nBlockStart, nBlockEnd);
+            }
+          }
+          return 0;
+        });
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,778 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.builder.IBuilder;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * An immutable sparse matrix in the compressed sparse row (CSR) format. Only
+ * the non-zero elements are stored: per row the column indices in ascending
+ * order together with the values. The compressed sparse column (CSC) format of
+ * a matrix is the CSR format of its transposition, so {@link #transpose()} can
+ * be used to get column oriented access.<br>
+ * Instances are created via {@link #builder(int, int)}, via
+ * {@link #createFromMatrix(Matrix)} or as the result of operations. Large
+ * products are computed multi-threaded based on the
+ * {@link MatrixKernels#isParallel()} setting. The linear systems of sparse
+ * matrices can be solved with {@link IterativeSolver}.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@Immutable
+public final class SparseMatrix implements Serializable
+{
+  /** Minimum number of non-zero elements to work multi-threaded */
+  private static final int PARALLEL_NON_ZERO_THRESHOLD = 64 * 1024;
+  /** Minimum number of rows per parallel task */
+  private static final int PARALLEL_ROW_GRAIN = 256;
+
+  private final int m_nRows;
+  private final int m_nCols;
+  // Index into m_aColIndices and m_aValues per row, plus the end index
+  private final int [] m_aRowOffsets;
+  private final int [] m_aColIndices;
+  private final double [] m_aValues;
+
+  SparseMatrix (@Nonnegative final int nRows,
+                @Nonnegative final int nCols,
+                @Nonnull final int [] aRowOffsets,
+                @Nonnull final int [] aColIndices,
+                @Nonnull final double [] aValues)
+  {
+    m_nRows = nRows;
+    m_nCols = nCols;
+    m_aRowOffsets = aRowOffsets;
+    m_aColIndices = aColIndices;
+    m_aValues = aValues;
+  }
+
+  /**
+   * @return Number of rows. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getRowDimension ()
+  {
+    return m_nRows;
+  }
+
+  /**
+   * @return Number of columns. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getColumnDimension ()
+  {
+    return m_nCols;
+  }
+
+  /**
+   * @return The number of stored non-zero elements. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getNonZeroCount ()
+  {
+    return m_aValues.length;
+  }
+
+  /**
+   * Get the index of the first non-zero element of a row. The elements of row
+   * <code>nRow</code> have the indices <code>getRowStart (nRow)</code>
+   * (inclusive) to <code>getRowEnd (nRow)</code> (exclusive).
+   *
+   * @param nRow
+   *        Row index. Must be &ge; 0 and &lt; row dimension.
+   * @return The start index for {@link #getColumnIndex(int)} and
+   *         {@link #getValue(int)}.
+   */
+  @Nonnegative
+  public int getRowStart (final int nRow)
+  {
+    return m_aRowOffsets[nRow];
+  }
+
+  /**
+   * Get the index after the last non-zero element of a row.
+   *
+   * @param nRow
+   *        Row index. Must be &ge; 0 and &lt; row dimension.
+   * @return The exclusive end index for {@link #getColumnIndex(int)} and
+   *         {@link #getValue(int)}.
+   * @see #getRowStart(int)
+   */
+  @Nonnegative
+  public int getRowEnd (final int nRow)
+  {
+    return m_aRowOffsets[nRow + 1];
+  }
+
+  /**
+   * @param nIndex
+   *        Element index. Must be &ge; 0 and &lt; non-zero count.
+   * @return The column index of the element.
+   */
+  @Nonnegative
+  public int getColumnIndex (final int nIndex)
+  {
+    return m_aColIndices[nIndex];
+  }
+
+  /**
+   * @param nIndex
+   *        Element index. Must be &ge; 0 and &lt; non-zero count.
+   * @return The value of the element. Never 0.
+   */
+  public double getValue (final int nIndex)
+  {
+    return m_aValues[nIndex];
+  }
+
+  /**
+   * Get a single element.
+   *
+   * @param nRow
+   *        Row index. Must be &ge; 0 and &lt; row dimension.
+   * @param nCol
+   *        Column index. Must be &ge; 0 and &lt; column dimension.
+   * @return The element at the passed position or 0 if it is not stored.
+   */
+  public double get (final int nRow, final int nCol)
+  {
+    ValueEnforcer.isBetweenInclusive (nRow, "Row", 0, m_nRows - 1);
+    ValueEnforcer.isBetweenInclusive (nCol, "Col", 0, m_nCols - 1);
+    final int nIndex = Arrays.binarySearch (m_aColIndices, m_aRowOffsets[nRow], m_aRowOffsets[nRow + 1], nCol);
+    return nIndex >= 0 ? m_aValues[nIndex] : 0;
+  }
+
+  private boolean _isParallel (final long nWork)
+  {
+    return nWork >= PARALLEL_NON_ZERO_THRESHOLD && MatrixKernels.isParallel ();
+  }
+
+  /**
+   * Compute y = A * x into an existing array.
+   *
+   * @param aX
+   *        Vector with the column dimension as length.
+   * @param aY
+   *        Vector with the row dimension as length. Is overwritten.
+   */
+  void multiply (@Nonnull final double [] aX, @Nonnull final double [] aY)
+  {
+    if (_isParallel (m_aValues.length))
+      MatrixKernels.forRange (0, m_nRows, PARALLEL_ROW_GRAIN, (nFrom, nTo) -> {
+        _multiply (aX, aY, nFrom, nTo);
+        return 0;
+      });
+    else
+      _multiply (aX, aY, 0, m_nRows);
+  }
+
+  private void _multiply (@Nonnull final double [] aX, @Nonnull final double [] aY, final int nFromRow, final int nToRow)
+  {
+    for (int nRow = nFromRow; nRow < nToRow; ++nRow)
+    {
+      double dSum = 0;
+      final int nEnd = m_aRowOffsets[nRow + 1];
+      for (int i = m_aRowOffsets[nRow]; i < nEnd; ++i)
+        dSum += m_aValues[i] * aX[m_aColIndices[i]];
+      aY[nRow] = dSum;
+    }
+  }
+
+  /**
+   * Sparse matrix times vector, y = A * x
+   *
+   * @param aX
+   *        Vector with the column dimension as length.
+   * @return A new vector with the row dimension as length.
+   */
+  @Nonnull
+  @CheckReturnValue
+  public double [] times (@Nonnull final double [] aX)
+  {
+    ValueEnforcer.notNull (aX, "X");
+    ValueEnforcer.isTrue (aX.length == m_nCols, "Vector length must match column dimension.");
+    final double [] ret = new double [m_nRows];
+    multiply (aX, ret);
+    return ret;
+  }
+
+  /**
+   * Sparse matrix times dense matrix, C = A * B
+   *
+   * @param aB
+   *        another matrix. The row dimension must match the column dimension
+   *        of this matrix.
+   * @return A new dense matrix.
+   */
+  @Nonnull
+  @CheckReturnValue
+  public Matrix times (@Nonnull final Matrix aB)
+  {
+    ValueEnforcer.notNull (aB, "B");
+    ValueEnforcer.isTrue (aB.getRowDimension () == m_nCols, "Matrix inner dimensions must agree.");
+    final int nCols = aB.getColumnDimension ();
+    final double [] [] aArrayB = aB.internalGetArray ();
+    final Matrix ret = new Matrix (m_nRows, nCols);
+    final double [] [] aArrayC = ret.internalGetArray ();
+    if (_isParallel ((long) m_aValues.length * nCols))
+      MatrixKernels.forRange (0, m_nRows, Math.max (1, PARALLEL_ROW_GRAIN / nCols), (nFrom, nTo) -> {
+        _multiply (aArrayB, aArrayC, nCols, nFrom, nTo);
+        return 0;
+      });
+    else
+      _multiply (aArrayB, aArrayC, nCols, 0, m_nRows);
+    return ret;
+  }
+
+  private void _multiply (@Nonnull final double [] [] aB,
+                          @Nonnull final double [] [] aC,
+                          final int nCols,
+                          final int nFromRow,
+                          final int nToRow)
+  {
+    for (int nRow = nFromRow; nRow < nToRow; ++nRow)
+    {
+      final double [] aRowC = aC[nRow];
+      final int nEnd = m_aRowOffsets[nRow + 1];
+      for (int i = m_aRowOffsets[nRow]; i < nEnd; ++i)
+      {
+        final double dA = m_aValues[i];
+        final double [] aRowB = aB[m_aColIndices[i]];
+        for (int j = 0; j < nCols; ++j)
+          aRowC[j] += dA * aRowB[j];
+      }
+    }
+  }
+
+  /**
+   * The rows of a sparse product, computed for a range of rows
+   */
+  private static final class ProductRows
+  {
+    private final int [] m_aRowCounts;
+    private int [] m_aColIndices;
+    private double [] m_aValues;
+    private int m_nCount = 0;
+
+    ProductRows (@Nonnegative final int nRows, @Nonnegative final int nCapacity)
+    {
+      m_aRowCounts = new int [nRows];
+      m_aColIndices = new int [nCapacity];
+      m_aValues = new double [nCapacity];
+    }
+
+    void add (final int nCol, final double dValue)
+    {
+      if (m_nCount == m_aValues.length)
+      {
+        final int nNewCapacity = Math.max (16, m_nCount * 2);
+        m_aColIndices = Arrays.copyOf (m_aColIndices, nNewCapacity);
+        m_aValues = Arrays.copyOf (m_aValues, nNewCapacity);
+      }
+      m_aColIndices[m_nCount] = nCol;
+      m_aValues[m_nCount] = dValue;
+      m_nCount++;
+    }
+  }
+
+  /**
+   * Dense accumulator for one row of a sparse product. As it is marked with the
+   * absolute row index, it can be reused for all rows without resetting it.
+   */
+  private static final class ProductAccumulator
+  {
+    private final double [] m_aSums;
+    private final int [] m_aLastRow;
+    private final int [] m_aUsedCols;
+
+    ProductAccumulator (@Nonnegative final int nCols)
+    {
+      m_aSums = new double [nCols];
+      m_aLastRow = new int [nCols];
+      Arrays.fill (m_aLastRow, -1);
+      m_aUsedCols = new int [nCols];
+    }
+  }
+
+  @Nonnull
+  private ProductRows _multiply (@Nonnull final SparseMatrix aB,
+                                 final int nFromRow,
+                                 final int nToRow,
+                                 @Nonnull final ProductAccumulator aAccumulator)
+  {
+    final ProductRows ret = new ProductRows (nToRow - nFromRow, m_aRowOffsets[nToRow] - m_aRowOffsets[nFromRow]);
+    final double [] aSums = aAccumulator.m_aSums;
+    final int [] aLastRow = aAccumulator.m_aLastRow;
+    final int [] aUsedCols = aAccumulator.m_aUsedCols;
+    for (int nRow = nFromRow; nRow < nToRow; ++nRow)
+    {
+      int nUsedCols = 0;
+      final int nEnd = m_aRowOffsets[nRow + 1];
+      for (int i = m_aRowOffsets[nRow]; i < nEnd; ++i)
+      {
+        final double dA = m_aValues[i];
+        final int k = m_aColIndices[i];
+        final int nEndB = aB.m_aRowOffsets[k + 1];
+        for (int j = aB.m_aRowOffsets[k]; j < nEndB; ++j)
+        {
+          final int nCol = aB.m_aColIndices[j];
+          if (aLastRow[nCol] != nRow)
+          {
+            aLastRow[nCol] = nRow;
+            aUsedCols[nUsedCols++] = nCol;
+            aSums[nCol] = dA * aB.m_aValues[j];
+          }
+          else
+            aSums[nCol] += dA * aB.m_aValues[j];
+        }
+      }
+      Arrays.sort (aUsedCols, 0, nUsedCols);
+      final int nOldCount = ret.m_nCount;
+      for (int j = 0; j < nUsedCols; ++j)
+      {
+        final double dSum = aSums[aUsedCols[j]];
+        // Cancellation may result in 0
+        if (dSum != 0)
+          ret.add (aUsedCols[j], dSum);
+      }
+      ret.m_aRowCounts[nRow - nFromRow] = ret.m_nCount - nOldCount;
+    }
+    return ret;
+  }
+
+  /**
+   * Sparse matrix times sparse matrix, C = A * B
+   *
+   * @param aB
+   *        another sparse matrix. The row dimension must match the column
+   *        dimension of this matrix.
+   * @return A new sparse matrix.
+   */
+  @Nonnull
+  @CheckReturnValue
+  public SparseMatrix times (@Nonnull final SparseMatrix aB)
+  {
+    ValueEnforcer.notNull (aB, "B");
+    ValueEnforcer.isTrue (aB.m_nRows == m_nCols, "Matrix inner dimensions must agree.");
+
+    // Each chunk of rows is computed independently
+    final int nChunkSize = _isParallel (m_aValues.length) ? PARALLEL_ROW_GRAIN : m_nRows;
+    final int nChunks = (m_nRows + nChunkSize - 1) / nChunkSize;
+    final ProductRows [] aChunks = new ProductRows [nChunks];
+    MatrixKernels.forRange (0, nChunks, 1, (nFrom, nTo) -> {
+      // forRange creates only a few tasks per thread, so the accumulator is
+      // shared by all chunks of a task
+      final ProductAccumulator aAccumulator = new ProductAccumulator (aB.m_nCols);
+      for (int nChunk = nFrom; nChunk < nTo; ++nChunk)
+      {
+        final int nFromRow = nChunk * nChunkSize;
+        aChunks[nChunk] = _multiply (aB, nFromRow, Math.min (nFromRow + nChunkSize, m_nRows), aAccumulator);
+      }
+      return 0;
+    });
+
+    // Concatenate in row order
+    int nTotal = 0;
+    for (final ProductRows aChunk : aChunks)
+      nTotal += aChunk.m_nCount;
+    final int [] aRowOffsets = new int [m_nRows + 1];
+    final int [] aColIndices = new int [nTotal];
+    final double [] aValues = new double [nTotal];
+    int nRow = 0;
+    int nIndex = 0;
+    for (final ProductRows aChunk : aChunks)
+    {
+      for (final int nRowCount : aChunk.m_aRowCounts)
+      {
+        aRowOffsets[nRow + 1] = aRowOffsets[nRow] + nRowCount;
+        nRow++;
+      }
+      System.arraycopy (aChunk.m_aColIndices, 0, aColIndices, nIndex, aChunk.m_nCount);
+      System.arraycopy (aChunk.m_aValues, 0, aValues, nIndex, aChunk.m_nCount);
+      nIndex += aChunk.m_nCount;
+    }
+    return new SparseMatrix (m_nRows, aB.m_nCols, aRowOffsets, aColIndices, aValues);
+  }
+
+  /**
+   * Multiply a matrix by a scalar, C = s*A
+   *
+   * @param s
+   *        scalar
+   * @return s*A
+   */
+  @Nonnull
+  @CheckReturnValue
+  public SparseMatrix times (final double s)
+  {
+    final int [] aRowOffsets = new int [m_nRows + 1];
+    final int [] aColIndices = new int [m_aValues.length];
+    final double [] aValues = new double [m_aValues.length];
+    int nIndex = 0;
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final int nEnd = m_aRowOffsets[nRow + 1];
+      for (int i = m_aRowOffsets[nRow]; i < nEnd; ++i)
+      {
+        // May underflow to 0
+        final double dValue = s * m_aValues[i];
+        if (dValue != 0)
+        {
+          aColIndices[nIndex] = m_aColIndices[i];
+          aValues[nIndex] = dValue;
+          nIndex++;
+        }
+      }
+      aRowOffsets[nRow + 1] = nIndex;
+    }
+    return new SparseMatrix (m_nRows, m_nCols, aRowOffsets, Arrays.copyOf (aColIndices, nIndex), Arrays.copyOf (aValues, nIndex));
+  }
+
+  /**
+   * Matrix transpose. The result is the compressed sparse column
+   * representation of this matrix.
+   *
+   * @return A'
+   */
+  @Nonnull
+  @CheckReturnValue
+  public SparseMatrix transpose ()
+  {
+    final int nNonZero = m_aValues.length;
+    final int [] aRowOffsets = new int [m_nCols + 1];
+    for (int i = 0; i < nNonZero; ++i)
+      aRowOffsets[m_aColIndices[i] + 1]++;
+    for (int nCol = 0; nCol < m_nCols; ++nCol)
+      aRowOffsets[nCol + 1] += aRowOffsets[nCol];
+
+    // Iterating the rows in order keeps the new column indices sorted
+    final int [] aNext = Arrays.copyOf (aRowOffsets, m_nCols);
+    final int [] aColIndices = new int [nNonZero];
+    final double [] aValues = new double [nNonZero];
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final int nEnd = m_aRowOffsets[nRow + 1];
+      for (int i = m_aRowOffsets[nRow]; i < nEnd; ++i)
+      {
+        final int nIndex = aNext[m_aColIndices[i]]++;
+        aColIndices[nIndex] = nRow;
+        aValues[nIndex] = m_aValues[i];
+      }
+    }
+    return new SparseMatrix (m_nCols, m_nRows, aRowOffsets, aColIndices, aValues);
+  }
+
+  /**
+   * @return <code>true</code> if this matrix is square and equal to its
+   *         transposition.
+   */
+  public boolean isSymmetric ()
+  {
+    return m_nRows == m_nCols && equals (transpose ());
+  }
+
+  /**
+   * @return A new dense matrix with the same content.
+   */
+  @Nonnull
+  @CheckReturnValue
+  public Matrix toMatrix ()
+  {
+    final Matrix ret = new Matrix (m_nRows, m_nCols);
+    final double [] [] aArray = ret.internalGetArray ();
+    for (int nRow = 0; nRow < m_nRows; ++nRow)
+    {
+      final double [] aRow = aArray[nRow];
+      final int nEnd = m_aRowOffsets[nRow + 1];
+      for (int i = m_aRowOffsets[nRow]; i < nEnd; ++i)
+        aRow[m_aColIndices[i]] = m_aValues[i];
+    }
+    return ret;
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final SparseMatrix rhs = (SparseMatrix) o;
+    // Zero values are never stored, so the representation is unique
+    return m_nRows == rhs.m_nRows &&
+           m_nCols == rhs.m_nCols &&
+           Arrays.equals (m_aRowOffsets, rhs.m_aRowOffsets) &&
+           Arrays.equals (m_aColIndices, rhs.m_aColIndices) &&
+           Arrays.equals (m_aValues, rhs.m_aValues);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_nRows)
+                                       .append (m_nCols)
+                                       .append (m_aRowOffsets)
+                                       .append (m_aColIndices)
+                                       .append (m_aValues)
+                                       .getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Rows", m_nRows)
+                                       .append ("Cols", m_nCols)
+                                       .append ("NonZeroCount", m_aValues.length)
+                                       .getToString ();
+  }
+
+  /**
+   * Create a sparse matrix with the non-zero elements of a dense matrix.
+   *
+   * @param aMatrix
+   *        The matrix to convert. May not be <code>null</code>.
+   * @return A new sparse matrix with the same content.
+   */
+  @Nonnull
+  public static SparseMatrix createFromMatrix (@Nonnull final Matrix aMatrix)
+  {
+    ValueEnforcer.notNull (aMatrix, "Matrix");
+    final int nRows = aMatrix.getRowDimension ();
+    final int nCols = aMatrix.getColumnDimension ();
+    final double [] [] aArray = aMatrix.internalGetArray ();
+    final int [] aRowOffsets = new int [nRows + 1];
+    for (int nRow = 0; nRow < nRows; ++nRow)
+    {
+      int nCount = 0;
+      for (final double dValue : aArray[nRow])
+        if (dValue != 0)
+          nCount++;
+      aRowOffsets[nRow + 1] = aRowOffsets[nRow] + nCount;
+    }
+    final int [] aColIndices = new int [aRowOffsets[nRows]];
+    final double [] aValues = new double [aRowOffsets[nRows]];
+    int nIndex = 0;
+    for (int nRow = 0; nRow < nRows; ++nRow)
+    {
+      final double [] aRow = aArray[nRow];
+      for (int nCol = 0; nCol < nCols; ++nCol)
+        if (aRow[nCol] != 0)
+        {
+          aColIndices[nIndex] = nCol;
+          aValues[nIndex] = aRow[nCol];
+          nIndex++;
+        }
+    }
+    return new SparseMatrix (nRows, nCols, aRowOffsets, aColIndices, aValues);
+  }
+
+  /**
+   * Create a sparse identity matrix.
+   *
+   * @param nDim
+   *        Number of rows and columns. Must be &gt; 0.
+   * @return An nDim-by-nDim sparse matrix with ones on the diagonal.
+   */
+  @Nonnull
+  public static SparseMatrix identity (@Nonnegative final int nDim)
+  {
+    ValueEnforcer.isGT0 (nDim, "Dim");
+    final int [] aRowOffsets = new int [nDim + 1];
+    final int [] aColIndices = new int [nDim];
+    final double [] aValues = new double [nDim];
+    for (int i = 0; i < nDim; ++i)
+    {
+      aRowOffsets[i + 1] = i + 1;
+      aColIndices[i] = i;
+      aValues[i] = 1;
+    }
+    return new SparseMatrix (nDim, nDim, aRowOffsets, aColIndices, aValues);
+  }
+
+  /**
+   * Create a new builder for a sparse matrix.
+   *
+   * @param nRows
+   *        Number of rows. Must be &gt; 0.
+   * @param nCols
+   *        Number of columns. Must be &gt; 0.
+   * @return A new builder and never <code>null</code>.
+   */
+  @Nonnull
+  public static Builder builder (@Nonnegative final int nRows, @Nonnegative final int nCols)
+  {
+    return new Builder (nRows, nCols);
+  }
+
+  /**
+   * A builder for {@link SparseMatrix} instances, collecting the elements in
+   * arbitrary order. If an element is provided multiple times, the operations
+   * are applied in the order they were called. Elements that result in 0 are
+   * not stored.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  public static final class Builder implements IBuilder <SparseMatrix>
+  {
+    private final int m_nRows;
+    private final int m_nCols;
+    private int [] m_aRows = new int [16];
+    private int [] m_aCols = new int [16];
+    private double [] m_aValues = new double [16];
+    private boolean [] m_aAdd = new boolean [16];
+    private int m_nCount = 0;
+
+    Builder (@Nonnegative final int nRows, @Nonnegative final int nCols)
+    {
+      ValueEnforcer.isGT0 (nRows, "Rows");
+      ValueEnforcer.isGT0 (nCols, "Cols");
+      m_nRows = nRows;
+      m_nCols = nCols;
+    }
+
+    @Nonnull
+    private Builder _append (final int nRow, final int nCol, final double dValue, final boolean bAdd)
+    {
+      ValueEnforcer.isBetweenInclusive (nRow, "Row", 0, m_nRows - 1);
+      ValueEnforcer.isBetweenInclusive (nCol, "Col", 0, m_nCols - 1);
+      if (m_nCount == m_aValues.length)
+      {
+        final int nNewCapacity = m_nCount * 2;
+        m_aRows = Arrays.copyOf (m_aRows, nNewCapacity);
+        m_aCols = Arrays.copyOf (m_aCols, nNewCapacity);
+        m_aValues = Arrays.copyOf (m_aValues, nNewCapacity);
+        m_aAdd = Arrays.copyOf (m_aAdd, nNewCapacity);
+      }
+      m_aRows[m_nCount] = nRow;
+      m_aCols[m_nCount] = nCol;
+      m_aValues[m_nCount] = dValue;
+      m_aAdd[m_nCount] = bAdd;
+      m_nCount++;
+      return this;
+    }
+
+    /**
+     * Set a single element, overwriting a previously provided value.
+     *
+     * @param nRow
+     *        Row index. Must be &ge; 0 and &lt; row dimension.
+     * @param nCol
+     *        Column index. Must be &ge; 0 and &lt; column dimension.
+     * @param dValue
+     *        The value to set.
+     * @return this for chaining
+     */
+    @Nonnull
+    public Builder set (final int nRow, final int nCol, final double dValue)
+    {
+      return _append (nRow, nCol, dValue, false);
+    }
+
+    /**
+     * Add a value to a single element.
+     *
+     * @param nRow
+     *        Row index. Must be &ge; 0 and &lt; row dimension.
+     * @param nCol
+     *        Column index. Must be &ge; 0 and &lt; column dimension.
+     * @param dValue
+     *        The value to add.
+     * @return this for chaining
+     */
+    @Nonnull
+    public Builder add (final int nRow, final int nCol, final double dValue)
+    {
+      return _append (nRow, nCol, dValue, true);
+    }
+
+    @Nonnull
+    public SparseMatrix build ()
+    {
+      // Stable counting sort by row
+      final int [] aRowStarts = new int [m_nRows + 1];
+      for (int i = 0; i < m_nCount; ++i)
+        aRowStarts[m_aRows[i] + 1]++;
+      int nMaxRowCount = 0;
+      for (int nRow = 0; nRow < m_nRows; ++nRow)
+      {
+        nMaxRowCount = Math.max (nMaxRowCount, aRowStarts[nRow + 1]);
+        aRowStarts[nRow + 1] += aRowStarts[nRow];
+      }
+      final int [] aNext = Arrays.copyOf (aRowStarts, m_nRows);
+      final int [] aOrder = new int [m_nCount];
+      for (int i = 0; i < m_nCount; ++i)
+        aOrder[aNext[m_aRows[i]]++] = i;
+
+      final int [] aRowOffsets = new int [m_nRows + 1];
+      final int [] aColIndices = new int [m_nCount];
+      final double [] aValues = new double [m_nCount];
+      // Column index in the upper half, call order in the lower half
+      final long [] aKeys = new long [nMaxRowCount];
+      int nIndex = 0;
+      for (int nRow = 0; nRow < m_nRows; ++nRow)
+      {
+        final int nStart = aRowStarts[nRow];
+        final int nRowCount = aRowStarts[nRow + 1] - nStart;
+        for (int i = 0; i < nRowCount; ++i)
+          aKeys[i] = ((long) m_aCols[aOrder[nStart + i]] << 32) | i;
+        Arrays.sort (aKeys, 0, nRowCount);
+
+        int i = 0;
+        while (i < nRowCount)
+        {
+          final int nCol = (int) (aKeys[i] >>> 32);
+          double dValue = 0;
+          do
+          {
+            final int nElement = aOrder[nStart + (int) aKeys[i]];
+            if (m_aAdd[nElement])
+              dValue += m_aValues[nElement];
+            else
+              dValue = m_aValues[nElement];
+            ++i;
+          } while (i < nRowCount && (int) (aKeys[i] >>> 32) == nCol);
+          if (dValue != 0)
+          {
+            aColIndices[nIndex] = nCol;
+            aValues[nIndex] = dValue;
+            nIndex++;
+          }
+        }
+        aRowOffsets[nRow + 1] = nIndex;
+      }
+      return new SparseMatrix (m_nRows,
+                               m_nCols,
+                               aRowOffsets,
+                               Arrays.copyOf (aColIndices, nIndex),
+                               Arrays.copyOf (aValues, nIndex));
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link IterativeSolver}.
+ *
+ * @author Philip Helger
+ */
+public final class IterativeSolverTest
+{
+  /**
+   * The 5-point discretization of a 2D convection-diffusion problem on a grid
+   * with nSize x nSize inner points. It is symmetric positive definite for
+   * dConvection = 0.
+   */
+  @Nonnull
+  private static SparseMatrix _createGridMatrix (final int nSize, final double dConvection)
+  {
+    final int n = nSize * nSize;
+    final SparseMatrix.Builder aBuilder = SparseMatrix.builder (n, n);
+    for (int y = 0; y < nSize; ++y)
+      for (int x = 0; x < nSize; ++x)
+      {
+        final int i = y * nSize + x;
+        aBuilder.set (i, i, 4);
+        if (x > 0)
+          aBuilder.set (i, i - 1, -1 - dConvection);
+        if (x < nSize - 1)
+          aBuilder.set (i, i + 1, -1 + dConvection);
+        if (y > 0)
+          aBuilder.set (i, i - nSize, -1);
+        if (y < nSize - 1)
+          aBuilder.set (i, i + nSize, -1);
+      }
+    return aBuilder.build ();
+  }
+
+  @Nonnull
+  private static double [] _random (@Nonnull final Random aRandom, final int n)
+  {
+    final double [] ret = new double [n];
+    for (int i = 0; i < n; ++i)
+      ret[i] = aRandom.nextDouble () * 2 - 1;
+    return ret;
+  }
+
+  private static void _assertSolution (@Nonnull final SparseMatrix aA,
+                                       @Nonnull final double [] aB,
+                                       @Nonnull final IterativeSolver.Result aResult)
+  {
+    assertTrue (aResult.toString (), aResult.isConverged ());
+    assertTrue (aResult.getResidualNorm () <= 1e-9);
+    final double [] aAx = aA.times (aResult.getSolution ());
+    for (int i = 0; i < aB.length; ++i)
+      assertEquals (aB[i], aAx[i], 1e-8);
+  }
+
+  @Test
+  public void testConjugateGradient ()
+  {
+    final SparseMatrix a = _createGridMatrix (30, 0);
+    assertTrue (a.isSymmetric ());
+    final double [] b = _random (new Random (1), a.getRowDimension ());
+    final IterativeSolver.Result aResult = IterativeSolver.solveConjugateGradient (a, b);
+    _assertSolution (a, b, aResult);
+    // Much less than the dimension
+    assertTrue (aResult.getIterationCount () < 200);
+
+    // Same result as the dense solver
+    final Matrix aExpected = a.toMatrix ().solve (new Matrix (b, b.length));
+    for (int i = 0; i < b.length; ++i)
+      assertEquals (aExpected.get (i, 0), aResult.getSolution ()[i], 1e-8);
+
+    // Starting with the solution requires no iteration
+    final IterativeSolver.Result aResult2 = IterativeSolver.solveConjugateGradient (a,
+                                                                                    b,
+                                                                                    aResult.getSolution (),
+                                                                                    1e-6,
+                                                                                    100);
+    assertEquals (0, aResult2.getIterationCount ());
+    assertArrayEquals (aResult.getSolution (), aResult2.getSolution (), 0);
+  }
+
+  @Test
+  public void testConjugateGradientNotPositiveDefinite ()
+  {
+    final SparseMatrix a = SparseMatrix.identity (10).times (-1);
+    final IterativeSolver.Result aResult = IterativeSolver.solveConjugateGradient (a, _random (new Random (2), 10));
+    assertFalse (aResult.isConverged ());
+    assertEquals (0, aResult.getIterationCount ());
+  }
+
+  @Test
+  public void testBiCGSTAB ()
+  {
+    final SparseMatrix a = _createGridMatrix (30, 0.4);
+    assertFalse (a.isSymmetric ());
+    final double [] b = _random (new Random (3), a.getRowDimension ());
+    final IterativeSolver.Result aResult = IterativeSolver.solveBiCGSTAB (a, b);
+    _assertSolution (a, b, aResult);
+    assertTrue (aResult.getIterationCount () < 200);
+
+    // Also works for symmetric matrices
+    final SparseMatrix a2 = _createGridMatrix (20, 0);
+    final double [] b2 = _random (new Random (4), a2.getRowDimension ());
+    _assertSolution (a2, b2, IterativeSolver.solveBiCGSTAB (a2, b2));
+  }
+
+  @Test
+  public void testMaxIterations ()
+  {
+    final SparseMatrix a = _createGridMatrix (30, 0);
+    final double [] b = _random (new Random (5), a.getRowDimension ());
+    IterativeSolver.Result aResult = IterativeSolver.solveConjugateGradient (a, b, null, 1e-12, 3);
+    assertFalse (aResult.isConverged ());
+    assertEquals (3, aResult.getIterationCount ());
+    assertTrue (aResult.getResidualNorm () > 1e-12);
+
+    aResult = IterativeSolver.solveBiCGSTAB (a, b, null, 1e-12, 3);
+    assertFalse (aResult.isConverged ());
+    assertEquals (3, aResult.getIterationCount ());
+  }
+
+  @Test
+  public void testZeroRightHandSide ()
+  {
+    final SparseMatrix a = _createGridMatrix (5, 0);
+    final double [] b = new double [25];
+    final double [] x0 = _random (new Random (6), 25);
+    IterativeSolver.Result aResult = IterativeSolver.solveConjugateGradient (a, b, x0, 1e-6, 10);
+    assertTrue (aResult.isConverged ());
+    assertArrayEquals (b, aResult.getSolution (), 0);
+    aResult = IterativeSolver.solveBiCGSTAB (a, b, x0, 1e-6, 10);
+    assertTrue (aResult.isConverged ());
+    assertArrayEquals (b, aResult.getSolution (), 0);
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for class {@link MatrixKernels}.
+ *
+ * @author Philip Helger
+ */
+public final class MatrixKernelsTest
+{
+  @Before
+  public void before ()
+  {
+    // Small values to test many blocks with small matrices
+    MatrixKernels.setBlockSize (4);
+    MatrixKernels.setMinDimension (5);
+  }
+
+  @After
+  public void after ()
+  {
+    MatrixKernels.setEnabled (MatrixKernels.DEFAULT_ENABLED);
+    MatrixKernels.setParallel (MatrixKernels.DEFAULT_PARALLEL);
+    MatrixKernels.setBlockSize (MatrixKernels.DEFAULT_BLOCK_SIZE);
+    MatrixKernels.setMinDimension (MatrixKernels.DEFAULT_MIN_DIMENSION);
+  }
+
+  @Nonnull
+  private static Matrix _random (@Nonnull final Random aRandom, final int nRows, final int nCols)
+  {
+    final Matrix ret = new Matrix (nRows, nCols);
+    for (int i = 0; i < nRows; ++i)
+      for (int j = 0; j < nCols; ++j)
+        ret.set (i, j, aRandom.nextDouble () * 2 - 1);
+    return ret;
+  }
+
+  @Nonnull
+  private static Matrix _randomSPD (@Nonnull final Random aRandom, final int nDim)
+  {
+    final Matrix a = _random (aRandom, nDim, nDim);
+    final Matrix ret = a.times (a.transpose ());
+    for (int i = 0; i < nDim; ++i)
+      ret.set (i, i, ret.get (i, i) + nDim);
+    // Ensure exact symmetry
+    for (int i = 0; i < nDim; ++i)
+      for (int j = 0; j < i; ++j)
+        ret.set (i, j, ret.get (j, i));
+    return ret;
+  }
+
+  private static void _assertClose (@Nonnull final Matrix aExpected, @Nonnull final Matrix aActual)
+  {
+    assertEquals (aExpected.getRowDimension (), aActual.getRowDimension ());
+    assertEquals (aExpected.getColumnDimension (), aActual.getColumnDimension ());
+    final double dNorm = Math.max (1, aExpected.normF ());
+    assertTrue (aExpected.minus (aActual).normF () / dNorm < 1e-10);
+  }
+
+  @Test
+  public void testMultiply ()
+  {
+    final Random aRandom = new Random (1);
+    for (final int [] aDims : new int [] [] { { 5, 5, 5 },
+                                              { 17, 9, 23 },
+                                              { 40, 1, 40 },
+                                              { 1, 200, 1 },
+                                              { 33, 70, 3 },
+                                              { 64, 64, 64 } })
+    {
+      final Matrix a = _random (aRandom, aDims[0], aDims[1]);
+      final Matrix b = _random (aRandom, aDims[1], aDims[2]);
+
+      MatrixKernels.setEnabled (false);
+      final Matrix aExpected = a.times (b);
+      for (final boolean bParallel : new boolean [] { false, true })
+      {
+        MatrixKernels.setEnabled (true);
+        MatrixKernels.setParallel (bParallel);
+        // The summation order is retained, so the results are identical
+        assertEquals (aExpected, a.times (b));
+      }
+    }
+  }
+
+  @Test
+  public void testLU ()
+  {
+    final Random aRandom = new Random (2);
+    for (final int [] aDims : new int [] [] { { 5, 5 }, { 30, 30 }, { 41, 17 }, { 64, 64 } })
+    {
+      final Matrix a = _random (aRandom, aDims[0], aDims[1]);
+
+      MatrixKernels.setEnabled (false);
+      final LUDecomposition aExpected = a.lu ();
+      MatrixKernels.setEnabled (true);
+      final LUDecomposition aLU = a.lu ();
+
+      assertArrayEquals (aExpected.getPivot (), aLU.getPivot ());
+      _assertClose (aExpected.getL (), aLU.getL ());
+      _assertClose (aExpected.getU (), aLU.getU ());
+      if (aDims[0] == aDims[1])
+        assertEquals (aExpected.det (), aLU.det (), Math.abs (aExpected.det ()) * 1e-10);
+
+      // L*U = A(piv,:)
+      _assertClose (a.getMatrix (aLU.getPivot (), 0, aDims[1] - 1), aLU.getL ().times (aLU.getU ()));
+    }
+  }
+
+  @Test
+  public void testLUSingular ()
+  {
+    // Only 3 different rows
+    final Matrix a = new Matrix (20, 20);
+    for (int i = 0; i < 20; ++i)
+      for (int j = 0; j < 20; ++j)
+        a.set (i, j, (i % 3 + 1) * (j + 1));
+    MatrixKernels.setEnabled (false);
+    final LUDecomposition aExpected = a.lu ();
+    MatrixKernels.setEnabled (true);
+    final LUDecomposition aLU = a.lu ();
+    assertFalse (aExpected.isNonsingular ());
+    assertFalse (aLU.isNonsingular ());
+    assertArrayEquals (aExpected.getPivot (), aLU.getPivot ());
+    _assertClose (aExpected.getU (), aLU.getU ());
+  }
+
+  @Test
+  public void testCholesky ()
+  {
+    final Random aRandom = new Random (3);
+    for (final int nDim : new int [] { 5, 13, 32, 50 })
+    {
+      final Matrix a = _randomSPD (aRandom, nDim);
+
+      MatrixKernels.setEnabled (false);
+      final CholeskyDecomposition aExpected = a.chol ();
+      MatrixKernels.setEnabled (true);
+      final CholeskyDecomposition aChol = a.chol ();
+
+      assertTrue (aExpected.isSPD ());
+      assertTrue (aChol.isSPD ());
+      _assertClose (aExpected.getL (), aChol.getL ());
+      _assertClose (a, aChol.getL ().times (aChol.getL ().transpose ()));
+
+      final Matrix b = _random (aRandom, nDim, 2);
+      _assertClose (aExpected.solve (b), aChol.solve (b));
+    }
+  }
+
+  @Test
+  public void testCholeskyNotSPD ()
+  {
+    final Random aRandom = new Random (4);
+
+    // Not symmetric
+    Matrix a = _random (aRandom, 20, 20);
+    MatrixKernels.setEnabled (false);
+    CholeskyDecomposition aExpected = a.chol ();
+    MatrixKernels.setEnabled (true);
+    CholeskyDecomposition aChol = a.chol ();
+    assertFalse (aChol.isSPD ());
+    assertEquals (aExpected.getL (), aChol.getL ());
+
+    // Symmetric but not positive definite
+    a = _randomSPD (aRandom, 20);
+    a.set (7, 7, -100);
+    MatrixKernels.setEnabled (false);
+    aExpected = a.chol ();
+    MatrixKernels.setEnabled (true);
+    aChol = a.chol ();
+    assertFalse (aExpected.isSPD ());
+    assertFalse (aChol.isSPD ());
+    assertEquals (aExpected.getL (), aChol.getL ());
+  }
+
+  @Test
+  public void testDefaultSettings ()
+  {
+    after ();
+    final Random aRandom = new Random (5);
+    final Matrix a = _random (aRandom, 150, 130);
+    final Matrix b = _random (aRandom, 130, 140);
+    MatrixKernels.setEnabled (false);
+    final Matrix aExpected = a.times (b);
+    final LUDecomposition aExpectedLU = a.lu ();
+    MatrixKernels.setEnabled (true);
+    assertEquals (aExpected, a.times (b));
+    final LUDecomposition aLU = a.lu ();
+    assertArrayEquals (aExpectedLU.getPivot (), aLU.getPivot ());
+    _assertClose (aExpectedLU.getU (), aLU.getU ());
+  }
+}
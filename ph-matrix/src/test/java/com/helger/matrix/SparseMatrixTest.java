@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.mock.CommonsTestHelper;
+
+/**
+ * Test class for class {@link SparseMatrix}.
+ *
+ * @author Philip Helger
+ */
+public final class SparseMatrixTest
+{
+  @Nonnull
+  private static SparseMatrix _random (@Nonnull final Random aRandom,
+                                       final int nRows,
+                                       final int nCols,
+                                       final double dDensity)
+  {
+    final SparseMatrix.Builder aBuilder = SparseMatrix.builder (nRows, nCols);
+    final int nCount = (int) (nRows * (long) nCols * dDensity);
+    for (int i = 0; i < nCount; ++i)
+      aBuilder.add (aRandom.nextInt (nRows), aRandom.nextInt (nCols), aRandom.nextDouble () * 2 - 1);
+    return aBuilder.build ();
+  }
+
+  private static void _assertClose (@Nonnull final Matrix aExpected, @Nonnull final Matrix aActual)
+  {
+    assertEquals (aExpected.getRowDimension (), aActual.getRowDimension ());
+    assertEquals (aExpected.getColumnDimension (), aActual.getColumnDimension ());
+    assertTrue (aExpected.minus (aActual).normInf () < 1e-12);
+  }
+
+  @Test
+  public void testBuilder ()
+  {
+    final SparseMatrix m = SparseMatrix.builder (3, 4)
+                                       .set (2, 3, 5)
+                                       .add (0, 1, 1)
+                                       .add (0, 1, 2)
+                                       .set (1, 0, 7)
+                                       .set (1, 0, 8)
+                                       .set (2, 0, 4)
+                                       .add (2, 0, -4)
+                                       .set (0, 0, 0)
+                                       .set (1, 2, 1)
+                                       .add (1, 2, 1)
+                                       .set (1, 2, 6)
+                                       .build ();
+    assertEquals (3, m.getRowDimension ());
+    assertEquals (4, m.getColumnDimension ());
+    // Zero values are not stored
+    assertEquals (4, m.getNonZeroCount ());
+    assertEquals (3, m.get (0, 1), 0);
+    assertEquals (8, m.get (1, 0), 0);
+    assertEquals (6, m.get (1, 2), 0);
+    assertEquals (5, m.get (2, 3), 0);
+    assertEquals (0, m.get (2, 0), 0);
+    assertEquals (0, m.get (0, 0), 0);
+
+    assertEquals (0, m.getRowStart (0));
+    assertEquals (1, m.getRowEnd (0));
+    assertEquals (1, m.getColumnIndex (0));
+    assertEquals (3, m.getRowEnd (1));
+    assertEquals (0, m.getColumnIndex (1));
+    assertEquals (2, m.getColumnIndex (2));
+    assertEquals (6, m.getValue (2), 0);
+
+    try
+    {
+      SparseMatrix.builder (3, 4).set (3, 0, 1);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+    try
+    {
+      SparseMatrix.builder (0, 4);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testConversion ()
+  {
+    final Matrix a = new Matrix (new double [] [] { { 1, 0, 0, 2 }, { 0, 0, 0, 0 }, { 0, -3, 4, 0 } });
+    final SparseMatrix s = SparseMatrix.createFromMatrix (a);
+    assertEquals (4, s.getNonZeroCount ());
+    assertEquals (a, s.toMatrix ());
+    assertEquals (SparseMatrix.builder (3, 4).set (2, 2, 4).set (0, 0, 1).set (2, 1, -3).set (0, 3, 2).build (), s);
+    assertEquals (a.transpose (), s.transpose ().toMatrix ());
+    assertEquals (s, s.transpose ().transpose ());
+    assertEquals (Matrix.identity (5, 5), SparseMatrix.identity (5).toMatrix ());
+    assertEquals (a.times (2.5), s.times (2.5).toMatrix ());
+    assertEquals (0, s.times (0).getNonZeroCount ());
+    assertFalse (s.isSymmetric ());
+    assertTrue (SparseMatrix.createFromMatrix (a.times (a.transpose ())).isSymmetric ());
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (s, SparseMatrix.createFromMatrix (a));
+    CommonsTestHelper.testDefaultImplementationWithDifferentContentObject (s, s.times (2));
+    assertNotEquals (s, s.transpose ());
+  }
+
+  @Test
+  public void testMultiply ()
+  {
+    final Random aRandom = new Random (3);
+    for (final int [] aDims : new int [] [] { { 1, 1, 1 }, { 7, 5, 9 }, { 60, 40, 50 } })
+    {
+      final SparseMatrix a = _random (aRandom, aDims[0], aDims[1], 0.2);
+      final SparseMatrix b = _random (aRandom, aDims[1], aDims[2], 0.2);
+      final Matrix aDenseA = a.toMatrix ();
+      final Matrix aDenseB = b.toMatrix ();
+      _assertClose (aDenseA.times (aDenseB), a.times (aDenseB));
+      _assertClose (aDenseA.times (aDenseB), a.times (b).toMatrix ());
+      _assertClose (aDenseB.transpose ().times (aDenseA.transpose ()), b.transpose ().times (a.transpose ()).toMatrix ());
+
+      final double [] x = new double [aDims[1]];
+      for (int i = 0; i < x.length; ++i)
+        x[i] = aRandom.nextDouble ();
+      final double [] y = a.times (x);
+      final Matrix aExpected = aDenseA.times (new Matrix (x, x.length));
+      for (int i = 0; i < y.length; ++i)
+        assertEquals (aExpected.get (i, 0), y[i], 1e-12);
+    }
+  }
+
+  @Test
+  public void testMultiplyLarge ()
+  {
+    // Large enough to be computed in parallel
+    final Random aRandom = new Random (4);
+    final SparseMatrix a = _random (aRandom, 2000, 1500, 0.03);
+    final SparseMatrix b = _random (aRandom, 1500, 1000, 0.03);
+    final SparseMatrix c = a.times (b);
+
+    final boolean bOld = MatrixKernels.isParallel ();
+    MatrixKernels.setParallel (false);
+    try
+    {
+      // Same result sequentially
+      assertEquals (c, a.times (b));
+      final Matrix aDenseB = b.toMatrix ();
+      final Matrix aSequential = a.times (aDenseB);
+      MatrixKernels.setParallel (true);
+      assertEquals (aSequential, a.times (aDenseB));
+      _assertClose (a.toMatrix ().times (aDenseB), c.toMatrix ());
+    }
+    finally
+    {
+      MatrixKernels.setParallel (bOld);
+    }
+  }
+
+  @Test
+  public void testMultiplyManyChunks ()
+  {
+    // Many row chunks, so that each parallel task handles several of them
+    final Random aRandom = new Random (5);
+    final SparseMatrix a = _random (aRandom, 40000, 500, 0.005);
+    final SparseMatrix b = _random (aRandom, 500, 300, 0.05);
+
+    final boolean bOld = MatrixKernels.isParallel ();
+    try
+    {
+      MatrixKernels.setParallel (true);
+      final SparseMatrix c = a.times (b);
+      MatrixKernels.setParallel (false);
+      assertEquals (a.times (b), c);
+    }
+    finally
+    {
+      MatrixKernels.setParallel (bOld);
+    }
+  }
+}
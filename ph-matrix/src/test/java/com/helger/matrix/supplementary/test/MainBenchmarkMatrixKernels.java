@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.matrix.supplementary.test;
+
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.timing.StopWatch;
+import com.helger.matrix.Matrix;
+import com.helger.matrix.MatrixKernels;
+
+/**
+ * Compare the classic matrix algorithms with the blocked (single and multi
+ * threaded) kernels of {@link MatrixKernels} for multiplication, LU and
+ * Cholesky decomposition. The matrix dimensions can be passed as command line
+ * arguments; the defaults cover 100x100 to 4000x4000. The classic algorithms
+ * are only measured up to {@value #CLASSIC_MAX_DIMENSION}, because they take
+ * very long for larger matrices.
+ *
+ * @author Philip Helger
+ */
+public final class MainBenchmarkMatrixKernels
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (MainBenchmarkMatrixKernels.class);
+  private static final int CLASSIC_MAX_DIMENSION = 2000;
+
+  private MainBenchmarkMatrixKernels ()
+  {}
+
+  private enum EMode
+  {
+    CLASSIC,
+    BLOCKED,
+    PARALLEL;
+
+    void apply ()
+    {
+      MatrixKernels.setEnabled (this != CLASSIC);
+      MatrixKernels.setParallel (this == PARALLEL);
+    }
+  }
+
+  private static void _measure (@Nonnull final String sName, final int nDim, @Nonnull final Supplier <?> aSupplier)
+  {
+    // Fewer runs for large matrices
+    final int nRuns = nDim <= 500 ? 10 : nDim <= 1000 ? 3 : 1;
+    final StringBuilder aSB = new StringBuilder ("  ").append (sName).append (':');
+    for (final EMode eMode : EMode.values ())
+    {
+      if (eMode == EMode.CLASSIC && nDim > CLASSIC_MAX_DIMENSION)
+        continue;
+      eMode.apply ();
+      // Warm up
+      aSupplier.get ();
+      long nBest = Long.MAX_VALUE;
+      for (int nRun = 0; nRun < nRuns; ++nRun)
+      {
+        final StopWatch aSW = StopWatch.createdStarted ();
+        aSupplier.get ();
+        nBest = Math.min (nBest, aSW.stopAndGetDuration ().toNanos ());
+      }
+      aSB.append (' ').append (eMode.name ().toLowerCase ()).append ('=').append (nBest / 1_000_000d).append (" ms");
+    }
+    LOGGER.info (aSB.toString ());
+  }
+
+  public static void main (final String [] args)
+  {
+    final int [] aDims;
+    if (args.length > 0)
+    {
+      aDims = new int [args.length];
+      for (int i = 0; i < args.length; ++i)
+        aDims[i] = Integer.parseInt (args[i]);
+    }
+    else
+      aDims = new int [] { 100, 250, 500, 1000, 2000, 4000 };
+
+    try
+    {
+      for (final int nDim : aDims)
+      {
+        LOGGER.info (nDim + "x" + nDim + ":");
+        final Matrix a = Matrix.random (nDim, nDim);
+        final Matrix b = Matrix.random (nDim, nDim);
+        // Symmetric positive definite
+        final Matrix aSPD = a.times (a.transpose ()).plusEquals (Matrix.identity (nDim, nDim).timesEquals (nDim));
+
+        _measure ("times", nDim, () -> a.times (b));
+        _measure ("lu", nDim, a::lu);
+        _measure ("chol", nDim, aSPD::chol);
+      }
+    }
+    finally
+    {
+      MatrixKernels.setEnabled (MatrixKernels.DEFAULT_ENABLED);
+      MatrixKernels.setParallel (MatrixKernels.DEFAULT_PARALLEL);
+    }
+  }
+}
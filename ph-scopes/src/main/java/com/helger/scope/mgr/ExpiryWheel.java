@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A simple hashed timing wheel. Items are put into the bucket of their
+ * deadline tick and are handed out, when the wheel is advanced past that tick.
+ * Deadlines further away than one rotation end up in a bucket that is visited
+ * too early, so the consumer must check the deadline of each item and
+ * re-schedule the item if it is not yet due.<br>
+ * Scheduling is thread-safe, but only one thread may advance the wheel at a
+ * time.
+ *
+ * @author Philip Helger
+ * @param <T>
+ *        Item type
+ * @since 11.0.1
+ */
+@ThreadSafe
+final class ExpiryWheel <T>
+{
+  private final long m_nOriginNanos;
+  private final long m_nTickNanos;
+  private final int m_nMask;
+  private final Queue <T> [] m_aBuckets;
+  // The last tick that was already handed out
+  private volatile long m_nLastTick;
+
+  @SuppressWarnings ("unchecked")
+  ExpiryWheel (@Nonnegative final int nBucketCount, @Nonnegative final long nTickNanos, final long nNowNanos)
+  {
+    ValueEnforcer.isGT0 (nBucketCount, "BucketCount");
+    ValueEnforcer.isTrue (Integer.bitCount (nBucketCount) == 1, "BucketCount must be a power of 2");
+    ValueEnforcer.isGT0 (nTickNanos, "TickNanos");
+    m_nOriginNanos = nNowNanos;
+    m_nTickNanos = nTickNanos;
+    m_nMask = nBucketCount - 1;
+    m_aBuckets = new Queue [nBucketCount];
+    for (int i = 0; i < nBucketCount; ++i)
+      m_aBuckets[i] = new ConcurrentLinkedQueue <> ();
+    m_nLastTick = 0;
+  }
+
+  @Nonnegative
+  long getTickNanos ()
+  {
+    return m_nTickNanos;
+  }
+
+  private long _getTick (final long nNanos)
+  {
+    return Math.max (0, nNanos - m_nOriginNanos) / m_nTickNanos;
+  }
+
+  /**
+   * Schedule an item.
+   *
+   * @param aItem
+   *        The item to schedule. May not be <code>null</code>.
+   * @param nDeadlineNanos
+   *        The deadline in {@link System#nanoTime()} units.
+   */
+  void schedule (@Nonnull final T aItem, final long nDeadlineNanos)
+  {
+    // Never schedule into a bucket that was already handed out
+    final long nTick = Math.max (_getTick (nDeadlineNanos), m_nLastTick + 1);
+    m_aBuckets[(int) (nTick & m_nMask)].add (aItem);
+  }
+
+  /**
+   * Advance the wheel to the passed point in time and pass all items of the
+   * elapsed buckets to the consumer. The consumer may re-schedule items.
+   *
+   * @param nNowNanos
+   *        The current time in {@link System#nanoTime()} units.
+   * @param aConsumer
+   *        The consumer for all items of the elapsed buckets. May not be
+   *        <code>null</code>.
+   */
+  void advance (final long nNowNanos, @Nonnull final Consumer <? super T> aConsumer)
+  {
+    final long nNowTick = _getTick (nNowNanos);
+    final long nLastTick = m_nLastTick;
+    if (nNowTick <= nLastTick)
+      return;
+
+    // Visit each bucket at most once, even if the wheel was not advanced for
+    // more than a rotation
+    final ICommonsList <T> aElapsed = new CommonsArrayList <> ();
+    for (long nTick = Math.max (nLastTick + 1, nNowTick - m_nMask); nTick <= nNowTick; ++nTick)
+    {
+      final Queue <T> aBucket = m_aBuckets[(int) (nTick & m_nMask)];
+      T aItem;
+      while ((aItem = aBucket.poll ()) != null)
+        aElapsed.add (aItem);
+    }
+    // Set before invoking the consumer so that re-scheduled items end up in
+    // future buckets
+    m_nLastTick = nNowTick;
+    aElapsed.forEach (aConsumer);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("TickNanos", m_nTickNanos)
+                                       .append ("BucketCount", m_aBuckets.length)
+                                       .append ("LastTick", m_nLastTick)
+                                       .getToString ();
+  }
+}
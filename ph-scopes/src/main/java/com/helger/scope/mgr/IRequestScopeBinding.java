@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.scope.IRequestScope;
+
+/**
+ * Strategy interface that defines how the current request scope is bound to
+ * the executing thread. The binding is selected once at startup via
+ * {@link ScopeManager#setRequestScopeBinding(IRequestScopeBinding)}.
+ * Implementations must be thread-safe.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+public interface IRequestScopeBinding
+{
+  /**
+   * @return The request scope bound to the current thread or <code>null</code>
+   *         if none is bound.
+   */
+  @Nullable
+  IRequestScope get ();
+
+  /**
+   * Bind the passed request scope to the current thread, replacing any
+   * previous binding.
+   *
+   * @param aRequestScope
+   *        The request scope to bind. May not be <code>null</code>.
+   */
+  void set (@Nonnull IRequestScope aRequestScope);
+
+  /**
+   * Remove the binding of the current thread. Must not fail if nothing is
+   * bound.
+   */
+  void remove ();
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.scope.IRequestScope;
+
+/**
+ * An {@link IRequestScopeBinding} that propagates the current request scope to
+ * all threads created while the request scope is bound. This is meant for
+ * thread-per-task models (like virtual threads), where each task forked from a
+ * request runs in a newly created thread. Pooled threads are created only once
+ * and inherit the request scope of the request that created them. An inherited
+ * request scope is dropped as soon as it is destroyed, but until then all tasks
+ * of the pool thread see it, so for thread pools use
+ * {@link ScopeManager#wrapInCurrentRequestScope(Runnable)} instead.<br>
+ * Note: only the thread that started a request may end it. Child threads
+ * can use the request scope, but they don't own it.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+public class InheritableRequestScopeBinding extends ThreadLocalRequestScopeBinding
+{
+  public InheritableRequestScopeBinding ()
+  {
+    super (new InheritableThreadLocal <> ());
+  }
+
+  @Override
+  @Nullable
+  public IRequestScope get ()
+  {
+    final IRequestScope ret = super.get ();
+    if (ret != null && ret.isDestroyed ())
+    {
+      // Inherited from a thread whose request already ended
+      remove ();
+      return null;
+    }
+    return ret;
+  }
+}
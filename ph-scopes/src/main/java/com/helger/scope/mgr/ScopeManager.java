@@ -18,6 +18,7 @@ package com.helger.scope.mgr;
 
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -69,12 +70,16 @@ public final class ScopeManager
 
   private static final SimpleReadWriteLock RW_LOCK = new SimpleReadWriteLock ();
 
-  /** Global scope */
+  /**
+   * Global scope. Modified only in the write lock, but volatile so that the
+   * frequent read access needs no lock.
+   */
   @GuardedBy ("RW_LOCK")
-  private static IGlobalScope s_aGlobalScope;
+  private static volatile IGlobalScope s_aGlobalScope;
 
-  /** Request scope */
-  private static final ThreadLocal <IRequestScope> REQUEST_SCOPE_THREAD_LOCAL = new ThreadLocal <> ();
+  /** Request scope binding - can only be changed without a global scope */
+  @GuardedBy ("RW_LOCK")
+  private static volatile IRequestScopeBinding s_aRequestScopeBinding = new ThreadLocalRequestScopeBinding ();
 
   @PresentForCodeCoverage
   private static final ScopeManager INSTANCE = new ScopeManager ();
@@ -139,7 +144,7 @@ public final class ScopeManager
   @Nullable
   public static IGlobalScope getGlobalScopeOrNull ()
   {
-    final IGlobalScope ret = RW_LOCK.readLockedGet ( () -> s_aGlobalScope);
+    final IGlobalScope ret = s_aGlobalScope;
     if (ret != null && ret.isValid ())
       return ret;
     // Return null if it is not set, in destruction or already destroyed
@@ -196,6 +201,44 @@ public final class ScopeManager
       LOGGER.warn ("No global scope present that could be shut down!");
   }
 
+  // --- request scope binding ---
+
+  /**
+   * @return The strategy how request scopes are bound to threads. Never
+   *         <code>null</code>.
+   * @since 11.0.1
+   */
+  @Nonnull
+  public static IRequestScopeBinding getRequestScopeBinding ()
+  {
+    return s_aRequestScopeBinding;
+  }
+
+  /**
+   * Set the strategy how request scopes are bound to threads. This can only be
+   * done at startup, before the global scope is created.
+   *
+   * @param aRequestScopeBinding
+   *        The binding to use. May not be <code>null</code>.
+   * @throws IllegalStateException
+   *         If a global scope is already present
+   * @see ThreadLocalRequestScopeBinding
+   * @see InheritableRequestScopeBinding
+   * @since 11.0.1
+   */
+  public static void setRequestScopeBinding (@Nonnull final IRequestScopeBinding aRequestScopeBinding)
+  {
+    ValueEnforcer.notNull (aRequestScopeBinding, "RequestScopeBinding");
+
+    RW_LOCK.writeLocked ( () -> {
+      if (s_aGlobalScope != null)
+        throw new IllegalStateException ("The request scope binding cannot be changed while the global scope with ID '" +
+                                         s_aGlobalScope.getID () +
+                                         "' is present!");
+      s_aRequestScopeBinding = aRequestScopeBinding;
+    });
+  }
+
   // --- session scope ---
 
   /**
@@ -246,7 +289,8 @@ public final class ScopeManager
       final String sSessionID = aRequestScope.getSessionID (bCreateIfNotExisting);
 
       // Check if a matching session scope is present
-      ISessionScope aSessionScope = aSSM.getSessionScopeOfID (sSessionID);
+      // Accessing the session via the request resets the idle time
+      ISessionScope aSessionScope = aSSM.getAndTouchSessionScopeOfID (sSessionID);
       if (aSessionScope == null && bCreateIfNotExisting)
       {
         if (sSessionID == null)
@@ -300,7 +344,8 @@ public final class ScopeManager
 
     // Happens if an internal redirect happens in a web-application (e.g. for
     // 404 page)
-    final IRequestScope aExistingRequestScope = REQUEST_SCOPE_THREAD_LOCAL.get ();
+    final IRequestScopeBinding aBinding = s_aRequestScopeBinding;
+    final IRequestScope aExistingRequestScope = aBinding.get ();
     if (aExistingRequestScope != null)
     {
       if (LOGGER.isWarnEnabled ())
@@ -315,7 +360,7 @@ public final class ScopeManager
     }
 
     // set request context
-    REQUEST_SCOPE_THREAD_LOCAL.set (aRequestScope);
+    aBinding.set (aRequestScope);
 
     // Now init the scope
     aRequestScope.initScope ();
@@ -347,7 +392,7 @@ public final class ScopeManager
   @Nullable
   public static IRequestScope getRequestScopeOrNull ()
   {
-    return REQUEST_SCOPE_THREAD_LOCAL.get ();
+    return s_aRequestScopeBinding.get ();
   }
 
   /**
@@ -390,7 +435,85 @@ public final class ScopeManager
   public static void internalClearRequestScope ()
   {
     // Remove from ThreadLocal
-    REQUEST_SCOPE_THREAD_LOCAL.remove ();
+    s_aRequestScopeBinding.remove ();
+  }
+
+  /**
+   * Run the passed supplier with the passed request scope bound to the current
+   * thread. The request scope is neither initialized nor destroyed - it must be
+   * owned by the thread that called
+   * {@link #onRequestBegin(String, String)}. Afterwards the previous binding of
+   * the current thread is restored. This can be used to propagate a request
+   * scope to other threads.
+   *
+   * @param <T>
+   *        Return type
+   * @param aRequestScope
+   *        The request scope to bind. May not be <code>null</code>.
+   * @param aSupplier
+   *        The supplier to invoke. May not be <code>null</code>.
+   * @return The result of the supplier. May be <code>null</code>.
+   * @since 11.0.1
+   */
+  @Nullable
+  public static <T> T getInRequestScope (@Nonnull final IRequestScope aRequestScope, @Nonnull final Supplier <T> aSupplier)
+  {
+    ValueEnforcer.notNull (aRequestScope, "RequestScope");
+    ValueEnforcer.notNull (aSupplier, "Supplier");
+
+    final IRequestScopeBinding aBinding = s_aRequestScopeBinding;
+    final IRequestScope aPrevRequestScope = aBinding.get ();
+    aBinding.set (aRequestScope);
+    try
+    {
+      return aSupplier.get ();
+    }
+    finally
+    {
+      if (aPrevRequestScope != null)
+        aBinding.set (aPrevRequestScope);
+      else
+        aBinding.remove ();
+    }
+  }
+
+  /**
+   * Run the passed runnable with the passed request scope bound to the current
+   * thread.
+   *
+   * @param aRequestScope
+   *        The request scope to bind. May not be <code>null</code>.
+   * @param aRunnable
+   *        The runnable to invoke. May not be <code>null</code>.
+   * @see #getInRequestScope(IRequestScope, Supplier)
+   * @since 11.0.1
+   */
+  public static void runInRequestScope (@Nonnull final IRequestScope aRequestScope, @Nonnull final Runnable aRunnable)
+  {
+    ValueEnforcer.notNull (aRunnable, "Runnable");
+    getInRequestScope (aRequestScope, () -> {
+      aRunnable.run ();
+      return null;
+    });
+  }
+
+  /**
+   * Wrap the passed runnable so that it runs in the request scope of the
+   * current thread, independent of the thread that finally executes it.
+   *
+   * @param aRunnable
+   *        The runnable to wrap. May not be <code>null</code>.
+   * @return The wrapping runnable. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         If no request scope is present
+   * @since 11.0.1
+   */
+  @Nonnull
+  public static Runnable wrapInCurrentRequestScope (@Nonnull final Runnable aRunnable)
+  {
+    ValueEnforcer.notNull (aRunnable, "Runnable");
+    final IRequestScope aRequestScope = getRequestScope ();
+    return () -> runInRequestScope (aRequestScope, aRunnable);
   }
 
   /**
@@ -16,6 +16,15 @@
  */
 package com.helger.scope.mgr;
 
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.CheckForSigned;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -29,14 +38,19 @@ import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.annotation.Singleton;
 import com.helger.commons.annotation.UsedViaReflection;
+import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.CommonsHashSet;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.concurrent.BasicThreadFactory;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.concurrent.SimpleReadWriteLock;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.state.EChange;
 import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.IMutableStatisticsHandlerSize;
 import com.helger.commons.statistics.StatisticsManager;
 import com.helger.commons.string.StringHelper;
 import com.helger.scope.IScope;
@@ -48,6 +62,11 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
  * Internal manager class for session scopes.<br>
+ * The sessions are stored in {@link #SHARD_COUNT} shards with separate locks,
+ * so that concurrent access to different sessions does not contend. Optionally
+ * sessions that were not accessed for a certain duration are destroyed
+ * incrementally in the background - see
+ * {@link #setSessionIdleTimeout(Duration)}.<br>
  * This class is only non-final so that the WebScopeSessionManager can be used
  * for web scopes!
  *
@@ -59,21 +78,79 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
 {
   public static final boolean DEFAULT_DESTROY_ALL_SESSIONS_ON_SCOPE_END = true;
   public static final boolean DEFAULT_END_ALL_SESSIONS_ON_SCOPE_END = true;
+  /**
+   * The number of session shards.
+   *
+   * @since 11.0.1
+   */
+  public static final int SHARD_COUNT = 64;
+  /** The number of buckets of the expiry wheel - must be a power of 2 */
+  private static final int EXPIRY_BUCKET_COUNT = 128;
+  /** The minimum time between two expiry checks */
+  private static final long MIN_EXPIRY_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos (1);
+
   private static final Logger LOGGER = LoggerFactory.getLogger (ScopeSessionManager.class);
   private static final IMutableStatisticsHandlerCounter STATS_UNIQUE_SESSIONS = StatisticsManager.getCounterHandler (ScopeSessionManager.class.getName () +
                                                                                                                      "$UNIQUE_SESSIONS");
+  private static final IMutableStatisticsHandlerCounter STATS_DESTROYED_SESSIONS = StatisticsManager.getCounterHandler (ScopeSessionManager.class.getName () +
+                                                                                                                        "$DESTROYED_SESSIONS");
+  private static final IMutableStatisticsHandlerCounter STATS_EXPIRED_SESSIONS = StatisticsManager.getCounterHandler (ScopeSessionManager.class.getName () +
+                                                                                                                      "$EXPIRED_SESSIONS");
+  private static final IMutableStatisticsHandlerSize STATS_SESSION_COUNT = StatisticsManager.getSizeHandler (ScopeSessionManager.class.getName () +
+                                                                                                             "$SESSION_COUNT");
 
   private static ScopeSessionManager s_aInstance;
 
-  /** All contained session scopes. */
-  @GuardedBy ("m_aRWLock")
-  private final ICommonsMap <String, ISessionScope> m_aSessionScopes = new CommonsHashMap <> ();
-  @GuardedBy ("m_aRWLock")
-  private final ICommonsSet <String> m_aSessionsInDestruction = new CommonsHashSet <> ();
+  /**
+   * A single managed session scope together with the time of the last access.
+   */
+  private static final class SessionEntry
+  {
+    private final ISessionScope m_aSessionScope;
+    private volatile long m_nLastAccessNanos;
+    private volatile boolean m_bEnded = false;
+
+    SessionEntry (@Nonnull final ISessionScope aSessionScope)
+    {
+      m_aSessionScope = aSessionScope;
+      m_nLastAccessNanos = System.nanoTime ();
+    }
+  }
+
+  /**
+   * A part of all session scopes with its own lock.
+   */
+  private static final class Shard
+  {
+    private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
+    @GuardedBy ("m_aRWLock")
+    private final ICommonsMap <String, SessionEntry> m_aSessionScopes = new CommonsHashMap <> ();
+    @GuardedBy ("m_aRWLock")
+    private final ICommonsSet <String> m_aSessionsInDestruction = new CommonsHashSet <> ();
+
+    @Nonnull
+    @ReturnsMutableCopy
+    ICommonsList <ISessionScope> getAllSessionScopes ()
+    {
+      return m_aRWLock.readLockedGet ( () -> m_aSessionScopes.copyOfValuesMapped (x -> x.m_aSessionScope));
+    }
+  }
+
+  private final Shard [] m_aShards = new Shard [SHARD_COUNT];
+  private final AtomicInteger m_aSessionCount = new AtomicInteger (0);
+
   @GuardedBy ("m_aRWLock")
   private boolean m_bDestroyAllSessionsOnScopeEnd = DEFAULT_DESTROY_ALL_SESSIONS_ON_SCOPE_END;
   @GuardedBy ("m_aRWLock")
   private boolean m_bEndAllSessionsOnScopeEnd = DEFAULT_END_ALL_SESSIONS_ON_SCOPE_END;
+  @GuardedBy ("m_aRWLock")
+  private Duration m_aSessionIdleTimeout;
+  // Volatile, because it is read without lock when a session begins
+  private volatile ExpiryWheel <SessionEntry> m_aExpiryWheel;
+  @GuardedBy ("m_aRWLock")
+  private ScheduledExecutorService m_aExpiryES;
+  // Only one thread may expire sessions at a time
+  private final Lock m_aExpiryLock = new ReentrantLock ();
 
   /**
    * Invoked internally.
@@ -83,7 +160,10 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
   @Deprecated
   @UsedViaReflection
   public ScopeSessionManager ()
-  {}
+  {
+    for (int i = 0; i < SHARD_COUNT; ++i)
+      m_aShards[i] = new Shard ();
+  }
 
   @Nonnull
   public static ScopeSessionManager getInstance ()
@@ -96,6 +176,23 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
     return ret;
   }
 
+  @Nonnull
+  private Shard _getShard (@Nonnull final String sScopeID)
+  {
+    final int nHash = sScopeID.hashCode ();
+    return m_aShards[(nHash ^ (nHash >>> 16)) & (SHARD_COUNT - 1)];
+  }
+
+  @Nullable
+  private SessionEntry _getEntry (@Nullable final String sScopeID)
+  {
+    if (StringHelper.hasNoText (sScopeID))
+      return null;
+
+    final Shard aShard = _getShard (sScopeID);
+    return aShard.m_aRWLock.readLockedGet ( () -> aShard.m_aSessionScopes.get (sScopeID));
+  }
+
   /**
    * Get the session scope with the specified ID. If no such scope exists, no
    * further actions are taken.
@@ -107,10 +204,28 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
   @Nullable
   public ISessionScope getSessionScopeOfID (@Nullable final String sScopeID)
   {
-    if (StringHelper.hasNoText (sScopeID))
-      return null;
+    final SessionEntry aEntry = _getEntry (sScopeID);
+    return aEntry == null ? null : aEntry.m_aSessionScope;
+  }
 
-    return m_aRWLock.readLockedGet ( () -> m_aSessionScopes.get (sScopeID));
+  /**
+   * Get the session scope with the specified ID and remember that it was
+   * accessed now. This resets the idle time of the session.
+   *
+   * @param sScopeID
+   *        The ID to be resolved. May be <code>null</code>.
+   * @return <code>null</code> if no such scope exists.
+   * @see #setSessionIdleTimeout(Duration)
+   * @since 11.0.1
+   */
+  @Nullable
+  public ISessionScope getAndTouchSessionScopeOfID (@Nullable final String sScopeID)
+  {
+    final SessionEntry aEntry = _getEntry (sScopeID);
+    if (aEntry == null)
+      return null;
+    aEntry.m_nLastAccessNanos = System.nanoTime ();
+    return aEntry.m_aSessionScope;
   }
 
   /**
@@ -127,10 +242,25 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
     ValueEnforcer.notNull (aSessionScope, "SessionScope");
 
     final String sSessionID = aSessionScope.getID ();
-    m_aRWLock.writeLocked ( () -> {
-      if (m_aSessionScopes.put (sSessionID, aSessionScope) != null)
-        LOGGER.error ("Overwriting session scope with ID '" + sSessionID + "'");
-    });
+    final SessionEntry aEntry = new SessionEntry (aSessionScope);
+    final Shard aShard = _getShard (sSessionID);
+    final SessionEntry aOldEntry = aShard.m_aRWLock.writeLockedGet ( () -> aShard.m_aSessionScopes.put (sSessionID, aEntry));
+    if (aOldEntry != null)
+    {
+      LOGGER.error ("Overwriting session scope with ID '" + sSessionID + "'");
+      aOldEntry.m_bEnded = true;
+    }
+    else
+      STATS_SESSION_COUNT.addSize (m_aSessionCount.incrementAndGet ());
+
+    // Register for idle expiry
+    final ExpiryWheel <SessionEntry> aExpiryWheel = m_aExpiryWheel;
+    if (aExpiryWheel != null)
+    {
+      final Duration aIdleTimeout = getSessionIdleTimeout ();
+      if (aIdleTimeout != null)
+        aExpiryWheel.schedule (aEntry, aEntry.m_nLastAccessNanos + aIdleTimeout.toNanos ());
+    }
 
     // Init the scope after it was registered
     aSessionScope.initScope ();
@@ -158,14 +288,24 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
     if (aSessionScope.isValid ())
     {
       final String sSessionID = aSessionScope.getID ();
+      final Shard aShard = _getShard (sSessionID);
 
-      final boolean bCanDestroyScope = m_aRWLock.writeLockedBoolean ( () -> {
+      final boolean bCanDestroyScope = aShard.m_aRWLock.writeLockedBoolean ( () -> {
         boolean bWLCanDestroyScope = false;
         // Only if we're not just in destruction of exactly this session
-        if (m_aSessionsInDestruction.add (sSessionID))
+        if (aShard.m_aSessionsInDestruction.add (sSessionID))
         {
           // Remove from map
-          final ISessionScope aRemovedScope = m_aSessionScopes.remove (sSessionID);
+          final SessionEntry aRemovedEntry = aShard.m_aSessionScopes.remove (sSessionID);
+          final ISessionScope aRemovedScope;
+          if (aRemovedEntry != null)
+          {
+            aRemovedEntry.m_bEnded = true;
+            aRemovedScope = aRemovedEntry.m_aSessionScope;
+            STATS_SESSION_COUNT.addSize (m_aSessionCount.decrementAndGet ());
+          }
+          else
+            aRemovedScope = null;
           if (!EqualsHelper.identityEqual (aRemovedScope, aSessionScope))
           {
             LOGGER.error ("Ending an unknown session with ID '" + sSessionID + "'");
@@ -193,8 +333,9 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
         finally
         {
           // Remove from "in destruction" list
-          m_aRWLock.writeLockedBoolean ( () -> m_aSessionsInDestruction.remove (sSessionID));
+          aShard.m_aRWLock.writeLockedBoolean ( () -> aShard.m_aSessionsInDestruction.remove (sSessionID));
         }
+        STATS_DESTROYED_SESSIONS.increment ();
       }
     }
   }
@@ -205,7 +346,7 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
    */
   public boolean containsAnySession ()
   {
-    return m_aRWLock.readLockedBoolean (m_aSessionScopes::isNotEmpty);
+    return m_aSessionCount.get () > 0;
   }
 
   /**
@@ -214,7 +355,7 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
   @Nonnegative
   public int getSessionCount ()
   {
-    return m_aRWLock.readLockedInt (m_aSessionScopes::size);
+    return m_aSessionCount.get ();
   }
 
   /**
@@ -225,17 +366,33 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
   @ReturnsMutableCopy
   public ICommonsList <ISessionScope> getAllSessionScopes ()
   {
-    return m_aRWLock.readLockedGet (m_aSessionScopes::copyOfValues);
+    final ICommonsList <ISessionScope> ret = new CommonsArrayList <> (m_aSessionCount.get ());
+    for (final Shard aShard : m_aShards)
+      aShard.m_aRWLock.readLocked ( () -> {
+        for (final SessionEntry aEntry : aShard.m_aSessionScopes.values ())
+          ret.add (aEntry.m_aSessionScope);
+      });
+    return ret;
   }
 
   private void _checkIfAnySessionsExist ()
   {
     if (containsAnySession ())
     {
-      m_aRWLock.writeLocked ( () -> {
-        LOGGER.error ("The following " + m_aSessionScopes.size () + " session scopes are left over: " + m_aSessionScopes.toString ());
-        m_aSessionScopes.clear ();
-      });
+      for (final Shard aShard : m_aShards)
+        aShard.m_aRWLock.writeLocked ( () -> {
+          if (aShard.m_aSessionScopes.isNotEmpty ())
+          {
+            LOGGER.error ("The following " +
+                          aShard.m_aSessionScopes.size () +
+                          " session scopes are left over: " +
+                          aShard.m_aSessionScopes.keySet ().toString ());
+            for (final SessionEntry aEntry : aShard.m_aSessionScopes.values ())
+              aEntry.m_bEnded = true;
+            m_aSessionCount.addAndGet (-aShard.m_aSessionScopes.size ());
+            aShard.m_aSessionScopes.clear ();
+          }
+        });
     }
   }
 
@@ -245,18 +402,19 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
    */
   public void destroyAllSessions ()
   {
-    // destroy all session scopes (use a copy, because we're invalidating
-    // the sessions internally!)
-    for (final ISessionScope aSessionScope : getAllSessionScopes ())
-    {
-      // Unfortunately we need a special handling here
-      if (aSessionScope.selfDestruct ().isContinue ())
+    // destroy all session scopes shard by shard (use a copy, because we're
+    // invalidating the sessions internally!)
+    for (final Shard aShard : m_aShards)
+      for (final ISessionScope aSessionScope : aShard.getAllSessionScopes ())
       {
-        // Remove from map
-        onScopeEnd (aSessionScope);
+        // Unfortunately we need a special handling here
+        if (aSessionScope.selfDestruct ().isContinue ())
+        {
+          // Remove from map
+          onScopeEnd (aSessionScope);
+        }
+        // Else the destruction was already started!
       }
-      // Else the destruction was already started!
-    }
 
     // Sanity check in case something went wrong
     _checkIfAnySessionsExist ();
@@ -270,16 +428,173 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
   {
     // end all session scopes without destroying the underlying sessions (make a
     // copy, because we're invalidating the sessions!)
-    for (final ISessionScope aSessionScope : getAllSessionScopes ())
-    {
-      // Remove from map
-      onScopeEnd (aSessionScope);
-    }
+    for (final Shard aShard : m_aShards)
+      for (final ISessionScope aSessionScope : aShard.getAllSessionScopes ())
+      {
+        // Remove from map
+        onScopeEnd (aSessionScope);
+      }
 
     // Sanity check in case something went wrong
     _checkIfAnySessionsExist ();
   }
 
+  /**
+   * @return The duration after which sessions that were not accessed are
+   *         destroyed automatically or <code>null</code> if sessions never
+   *         expire. The default is <code>null</code>.
+   * @since 11.0.1
+   */
+  @Nullable
+  public final Duration getSessionIdleTimeout ()
+  {
+    return m_aRWLock.readLockedGet ( () -> m_aSessionIdleTimeout);
+  }
+
+  /**
+   * Set the duration after which sessions that were not accessed via
+   * {@link #getAndTouchSessionScopeOfID(String)} are destroyed automatically.
+   * Idle sessions are collected in a timing wheel and are destroyed
+   * incrementally by a background thread.
+   *
+   * @param aSessionIdleTimeout
+   *        The idle timeout. May be <code>null</code> to disable the automatic
+   *        expiry. Must be positive if not <code>null</code>.
+   * @return {@link EChange}
+   * @since 11.0.1
+   */
+  @Nonnull
+  public final EChange setSessionIdleTimeout (@Nullable final Duration aSessionIdleTimeout)
+  {
+    if (aSessionIdleTimeout != null)
+      ValueEnforcer.isFalse (aSessionIdleTimeout.isNegative () || aSessionIdleTimeout.isZero (), "SessionIdleTimeout must be positive");
+
+    final ScheduledExecutorService [] aOldES = new ScheduledExecutorService [1];
+    final EChange eChange = m_aRWLock.writeLockedGet ( () -> {
+      if (EqualsHelper.equals (m_aSessionIdleTimeout, aSessionIdleTimeout))
+        return EChange.UNCHANGED;
+      m_aSessionIdleTimeout = aSessionIdleTimeout;
+      aOldES[0] = m_aExpiryES;
+      m_aExpiryES = null;
+      m_aExpiryWheel = null;
+
+      if (aSessionIdleTimeout != null)
+      {
+        final long nTimeoutNanos = aSessionIdleTimeout.toNanos ();
+        // A rotation of the wheel covers two timeouts
+        final long nTickNanos = Math.max (MIN_EXPIRY_TICK_NANOS, nTimeoutNanos / (EXPIRY_BUCKET_COUNT / 2));
+        final ExpiryWheel <SessionEntry> aExpiryWheel = new ExpiryWheel <> (EXPIRY_BUCKET_COUNT, nTickNanos, System.nanoTime ());
+
+        // Register all existing sessions
+        for (final Shard aShard : m_aShards)
+          aShard.m_aRWLock.readLocked ( () -> {
+            for (final SessionEntry aEntry : aShard.m_aSessionScopes.values ())
+              aExpiryWheel.schedule (aEntry, aEntry.m_nLastAccessNanos + nTimeoutNanos);
+          });
+        m_aExpiryWheel = aExpiryWheel;
+
+        // custom ThreadFactory to give the baby a name
+        m_aExpiryES = Executors.newSingleThreadScheduledExecutor (BasicThreadFactory.builder ()
+                                                                                    .namingPattern ("SessionExpiry-%d")
+                                                                                    .daemon (true)
+                                                                                    .build ());
+        m_aExpiryES.scheduleWithFixedDelay (this::expireIdleSessions, nTickNanos, nTickNanos, TimeUnit.NANOSECONDS);
+      }
+      return EChange.CHANGED;
+    });
+
+    // Outside of the lock, because a running expiry needs the lock as well
+    if (aOldES[0] != null)
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aOldES[0]);
+    return eChange;
+  }
+
+  /**
+   * Destroy all sessions of the elapsed buckets of the expiry wheel that were
+   * not accessed for longer than the idle timeout. This is called regularly
+   * in the background if an idle timeout is set and only needs to be called
+   * manually for testing purposes.
+   *
+   * @return The number of destroyed sessions. Always &ge; 0.
+   * @since 11.0.1
+   */
+  @Nonnegative
+  public int expireIdleSessions ()
+  {
+    // Avoid concurrent runs
+    if (!m_aExpiryLock.tryLock ())
+      return 0;
+
+    final ICommonsList <ISessionScope> aExpired = new CommonsArrayList <> ();
+    try
+    {
+      final ExpiryWheel <SessionEntry> aExpiryWheel = m_aExpiryWheel;
+      final Duration aIdleTimeout = getSessionIdleTimeout ();
+      if (aExpiryWheel == null || aIdleTimeout == null)
+        return 0;
+
+      final long nTimeoutNanos = aIdleTimeout.toNanos ();
+      final long nNowNanos = System.nanoTime ();
+      aExpiryWheel.advance (nNowNanos, aEntry -> {
+        // Ignore all sessions that were ended in the meantime
+        if (!aEntry.m_bEnded)
+        {
+          final long nDeadlineNanos = aEntry.m_nLastAccessNanos + nTimeoutNanos;
+          if (nDeadlineNanos - nNowNanos <= 0)
+            aExpired.add (aEntry.m_aSessionScope);
+          else
+            aExpiryWheel.schedule (aEntry, nDeadlineNanos);
+        }
+      });
+    }
+    finally
+    {
+      m_aExpiryLock.unlock ();
+    }
+
+    int ret = 0;
+    for (final ISessionScope aSessionScope : aExpired)
+    {
+      try
+      {
+        if (aSessionScope.selfDestruct ().isContinue ())
+        {
+          onScopeEnd (aSessionScope);
+          ret++;
+        }
+      }
+      catch (final RuntimeException ex)
+      {
+        LOGGER.error ("Failed to destroy expired session scope '" + aSessionScope.getID () + "'", ex);
+      }
+    }
+    if (ret > 0)
+    {
+      STATS_EXPIRED_SESSIONS.increment (ret);
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Destroyed " + ret + " idle session scopes");
+    }
+    return ret;
+  }
+
+  /**
+   * Get the time since the last access of a session.
+   *
+   * @param sScopeID
+   *        The ID of the session to check. May be <code>null</code>.
+   * @return The idle time in milliseconds of the session with the passed ID or
+   *         -1 if no such session exists.
+   * @since 11.0.1
+   */
+  @CheckForSigned
+  public long getSessionIdleMillis (@Nullable final String sScopeID)
+  {
+    final SessionEntry aEntry = _getEntry (sScopeID);
+    if (aEntry == null)
+      return -1;
+    return TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - aEntry.m_nLastAccessNanos);
+  }
+
   public final boolean isDestroyAllSessionsOnScopeEnd ()
   {
     return m_aRWLock.readLockedBoolean ( () -> m_bDestroyAllSessionsOnScopeEnd);
@@ -316,6 +631,9 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
   @Override
   protected void onDestroy (@Nonnull final IScope aScopeInDestruction)
   {
+    // Stop the background expiry first
+    setSessionIdleTimeout (null);
+
     if (isDestroyAllSessionsOnScopeEnd ())
       destroyAllSessions ();
     else
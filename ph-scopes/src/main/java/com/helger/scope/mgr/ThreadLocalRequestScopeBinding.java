@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.scope.IRequestScope;
+
+/**
+ * The default {@link IRequestScopeBinding} that binds the request scope to a
+ * plain {@link ThreadLocal}. The request scope is only visible in the thread
+ * that started the request.
+ *
+ * @author Philip Helger
+ * @since 11.0.1
+ */
+@ThreadSafe
+public class ThreadLocalRequestScopeBinding implements IRequestScopeBinding
+{
+  private final ThreadLocal <IRequestScope> m_aTL;
+
+  public ThreadLocalRequestScopeBinding ()
+  {
+    this (new ThreadLocal <> ());
+  }
+
+  protected ThreadLocalRequestScopeBinding (@Nonnull final ThreadLocal <IRequestScope> aTL)
+  {
+    ValueEnforcer.notNull (aTL, "ThreadLocal");
+    m_aTL = aTL;
+  }
+
+  @Nullable
+  public IRequestScope get ()
+  {
+    return m_aTL.get ();
+  }
+
+  public void set (@Nonnull final IRequestScope aRequestScope)
+  {
+    ValueEnforcer.notNull (aRequestScope, "RequestScope");
+    m_aTL.set (aRequestScope);
+  }
+
+  public void remove ()
+  {
+    m_aTL.remove ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).getToString ();
+  }
+}
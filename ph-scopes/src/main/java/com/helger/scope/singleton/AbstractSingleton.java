@@ -21,10 +21,12 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.lang.reflect.Constructor;
 import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
 import org.slf4j.Logger;
@@ -62,11 +64,40 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
   private static final int DEFAULT_KEY_LENGTH = 255;
   private static final Logger LOGGER = LoggerFactory.getLogger (AbstractSingleton.class);
   private static final IMutableStatisticsHandlerKeyedCounter STATS_INSTANCE_COUNTER = StatisticsManager.getKeyedCounterHandler (AbstractSingleton.class);
-  private static final SimpleReadWriteLock RW_LOCK = new SimpleReadWriteLock ();
+  private static final ClassValue <String> SCOPE_KEYS = new ClassValue <String> ()
+  {
+    @Override
+    protected String computeValue (@Nonnull final Class <?> aClass)
+    {
+      // Preallocate some bytes
+      return new StringBuilder (DEFAULT_KEY_LENGTH).append ("singleton.").append (aClass.getName ()).toString ();
+    }
+  };
+  /**
+   * The guard of a single singleton in instantiation. The owning thread is
+   * remembered to detect circular waits.
+   */
+  private static final class InstantiationGuard extends ReentrantLock
+  {
+    private volatile Thread m_aOwnerThread;
+  }
+
+  /**
+   * The guards for singletons currently in instantiation. Key is the scope ID
+   * plus the singleton scope key. Entries only exist while an instantiation is
+   * running, so a slow singleton constructor blocks only the threads waiting
+   * for the very same singleton in the very same scope.
+   */
+  private static final ConcurrentHashMap <String, InstantiationGuard> INSTANTIATION_GUARDS = new ConcurrentHashMap <> ();
+  /**
+   * The guard each thread is currently waiting for. Used to detect threads
+   * that instantiate singletons depending on each other.
+   */
+  private static final ConcurrentHashMap <Thread, InstantiationGuard> WAITING_GUARDS = new ConcurrentHashMap <> ();
 
   protected final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
-  @GuardedBy ("m_aRWLock")
-  private BitSet m_aStatus = new BitSet (16);
+  // Bit set of the STATUS_* constants - atomic to keep the lookup lock-free
+  private final AtomicInteger m_aStatus = new AtomicInteger (0);
 
   /**
    * Write the internal status variables to the passed
@@ -80,7 +111,7 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   protected final void writeAbstractSingletonFields (@Nonnull final ObjectOutputStream aOOS) throws IOException
   {
-    aOOS.writeObject (m_aStatus);
+    aOOS.writeObject (_getStatusBitSet ());
   }
 
   /**
@@ -97,7 +128,26 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   protected final void readAbstractSingletonFields (@Nonnull final ObjectInputStream aOIS) throws IOException, ClassNotFoundException
   {
-    m_aStatus = (BitSet) aOIS.readObject ();
+    final BitSet aStatus = (BitSet) aOIS.readObject ();
+    final long [] aBits = aStatus.toLongArray ();
+    m_aStatus.set (aBits.length == 0 ? 0 : (int) aBits[0]);
+  }
+
+  @Nonnull
+  private BitSet _getStatusBitSet ()
+  {
+    return BitSet.valueOf (new long [] { m_aStatus.get () });
+  }
+
+  private void _setStatus (final int nStatus, final boolean bSet)
+  {
+    final int nMask = 1 << nStatus;
+    m_aStatus.updateAndGet (x -> bSet ? x | nMask : x & ~nMask);
+  }
+
+  private boolean _isStatus (final int nStatus)
+  {
+    return (m_aStatus.get () & (1 << nStatus)) != 0;
   }
 
   /**
@@ -158,7 +208,7 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
 
   protected final void setInInstantiation (final boolean bInInstantiation)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_IN_INSTANTIATION, bInInstantiation));
+    _setStatus (STATUS_IN_INSTANTIATION, bInInstantiation);
   }
 
   /**
@@ -168,12 +218,12 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isInInstantiation ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_aStatus.get (STATUS_IN_INSTANTIATION));
+    return _isStatus (STATUS_IN_INSTANTIATION);
   }
 
   protected final void setInstantiated (final boolean bInstantiated)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_INSTANTIATED, bInstantiated));
+    _setStatus (STATUS_INSTANTIATED, bInstantiated);
   }
 
   /**
@@ -182,12 +232,12 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isInstantiated ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_aStatus.get (STATUS_INSTANTIATED));
+    return _isStatus (STATUS_INSTANTIATED);
   }
 
   protected final void setInPreDestruction (final boolean bInPreDestruction)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_IN_PRE_DESTRUCTION, bInPreDestruction));
+    _setStatus (STATUS_IN_PRE_DESTRUCTION, bInPreDestruction);
   }
 
   /**
@@ -197,12 +247,12 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isInPreDestruction ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_aStatus.get (STATUS_IN_PRE_DESTRUCTION));
+    return _isStatus (STATUS_IN_PRE_DESTRUCTION);
   }
 
   protected final void setInDestruction (final boolean bInDestruction)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_IN_DESTRUCTION, bInDestruction));
+    _setStatus (STATUS_IN_DESTRUCTION, bInDestruction);
   }
 
   /**
@@ -212,12 +262,12 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isInDestruction ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_aStatus.get (STATUS_IN_DESTRUCTION));
+    return _isStatus (STATUS_IN_DESTRUCTION);
   }
 
   protected final void setDestroyed (final boolean bDestroyed)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_DESTROYED, bDestroyed));
+    _setStatus (STATUS_DESTROYED, bDestroyed);
   }
 
   /**
@@ -226,7 +276,7 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isDestroyed ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_aStatus.get (STATUS_DESTROYED));
+    return _isStatus (STATUS_DESTROYED);
   }
 
   /**
@@ -388,8 +438,7 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
   {
     ValueEnforcer.notNull (aClass, "Class");
 
-    // Preallocate some bytes
-    return new StringBuilder (DEFAULT_KEY_LENGTH).append ("singleton.").append (aClass.getName ()).toString ();
+    return SCOPE_KEYS.get (aClass);
   }
 
   /**
@@ -415,7 +464,8 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
     if (aScope != null)
     {
       final String sSingletonScopeKey = getSingletonScopeKey (aClass);
-      final Object aObject = RW_LOCK.readLockedGet ( () -> aScope.attrs ().get (sSingletonScopeKey));
+      // The attributes are thread-safe, so no lock is needed
+      final Object aObject = aScope.attrs ().get (sSingletonScopeKey);
       if (aObject != null)
       {
         // Object is in the scope
@@ -509,6 +559,99 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
     }
   }
 
+  /**
+   * Check if waiting for the passed guard would close a cycle of threads
+   * waiting for each other.
+   *
+   * @param aGuard
+   *        The guard the current thread wants to wait for. May not be
+   *        <code>null</code>.
+   * @return <code>true</code> if the owner of the guard is (indirectly)
+   *         waiting for the current thread.
+   */
+  private static boolean _isCircularWait (@Nonnull final InstantiationGuard aGuard)
+  {
+    final Thread aCurrentThread = Thread.currentThread ();
+    InstantiationGuard aCurGuard = aGuard;
+    // Limit the steps in case the chain changes concurrently
+    for (int nSteps = WAITING_GUARDS.size (); nSteps >= 0 && aCurGuard != null; --nSteps)
+    {
+      final Thread aOwnerThread = aCurGuard.m_aOwnerThread;
+      if (aOwnerThread == null)
+        return false;
+      if (aOwnerThread == aCurrentThread)
+        return true;
+      aCurGuard = WAITING_GUARDS.get (aOwnerThread);
+    }
+    return false;
+  }
+
+  /**
+   * Lock the instantiation guard for the passed key. If another thread retired
+   * the guard in the meantime, a new one is used.
+   *
+   * @param sGuardKey
+   *        The guard key consisting of scope ID and singleton key. May not be
+   *        <code>null</code>.
+   * @return The locked guard or <code>null</code> if the owner of the guard is
+   *         waiting for a singleton the current thread is instantiating, so
+   *         that waiting would result in a deadlock.
+   */
+  @Nullable
+  private static InstantiationGuard _lockInstantiationGuard (@Nonnull final String sGuardKey)
+  {
+    final Thread aCurrentThread = Thread.currentThread ();
+    while (true)
+    {
+      final InstantiationGuard aGuard = INSTANTIATION_GUARDS.computeIfAbsent (sGuardKey, k -> new InstantiationGuard ());
+      if (!aGuard.tryLock ())
+      {
+        // Register before checking, so that if two threads close a cycle
+        // concurrently, at least one of them notices it
+        WAITING_GUARDS.put (aCurrentThread, aGuard);
+        try
+        {
+          if (_isCircularWait (aGuard))
+            return null;
+          aGuard.lock ();
+        }
+        finally
+        {
+          WAITING_GUARDS.remove (aCurrentThread);
+        }
+      }
+      if (INSTANTIATION_GUARDS.get (sGuardKey) == aGuard)
+      {
+        aGuard.m_aOwnerThread = aCurrentThread;
+        return aGuard;
+      }
+
+      // Guard was retired while we were waiting - try again
+      aGuard.unlock ();
+    }
+  }
+
+  private static void _unlockInstantiationGuard (@Nonnull final String sGuardKey, @Nonnull final InstantiationGuard aGuard)
+  {
+    try
+    {
+      if (aGuard.getHoldCount () == 1)
+      {
+        aGuard.m_aOwnerThread = null;
+
+        // Retire the guard when the outermost call finishes and nobody is
+        // waiting for it. Threads that fetched it anyway will notice this and
+        // retry.
+        if (!aGuard.hasQueuedThreads ())
+          INSTANTIATION_GUARDS.remove (sGuardKey, aGuard);
+      }
+    }
+    finally
+    {
+      aGuard.unlock ();
+    }
+  }
+
   /**
    * Get the singleton object in the passed scope, using the passed class. If
    * the singleton is not yet instantiated, a new instance is created.
@@ -531,58 +674,77 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
     final String sSingletonScopeKey = getSingletonScopeKey (aClass);
 
     // check if already contained in passed scope
-    T aInstance = RW_LOCK.readLockedGet ( () -> aScope.attrs ().getCastedValue (sSingletonScopeKey));
-    if (aInstance == null || aInstance.isInInstantiation ())
+    // The attributes are thread-safe, so the hit path needs no lock
+    T aInstance = aScope.attrs ().getCastedValue (sSingletonScopeKey);
+    if (aInstance == null || !aInstance.isInstantiated ())
     {
-      // Not yet present or just in instantiation
+      // Not yet present or not yet completely instantiated
 
-      // Safe instantiation check in write lock
-      RW_LOCK.writeLock ().lock ();
-      try
+      // Safe instantiation check in the guard of this singleton only
+      final String sGuardKey = aScope.getID () + '\n' + sSingletonScopeKey;
+      final InstantiationGuard aGuard = _lockInstantiationGuard (sGuardKey);
+      if (aGuard == null)
       {
-        // Check again in write lock
+        // Another thread instantiates this singleton and waits for a singleton
+        // instantiated by this thread. Behave like a recursive call in the
+        // same thread and use the instance in instantiation.
         aInstance = aScope.attrs ().getCastedValue (sSingletonScopeKey);
         if (aInstance == null)
+          throw new IllegalStateException ("Singleton of class " +
+                                           aClass.getName () +
+                                           " in scope " +
+                                           aScope.getID () +
+                                           " is constructed by another thread that waits for a singleton instantiated by this thread");
+      }
+      else
+      {
+        try
         {
-          // Main instantiation
-          aInstance = _instantiateSingleton (aClass, aScope);
-
-          // Set in scope so that recursive calls to the same singleton are
-          // caught appropriately
-          aScope.attrs ().putIn (sSingletonScopeKey, aInstance);
-
-          // Start the initialization process
-          // Do this after the instance was added to the scope
-          aInstance.setInInstantiation (true);
-          try
+          // Check again while holding the guard
+          aInstance = aScope.attrs ().getCastedValue (sSingletonScopeKey);
+          if (aInstance == null)
           {
-            // Invoke callback method
-            aInstance.onAfterInstantiation (aScope);
-
-            // Set "instantiated" only if no exception was thrown
-            aInstance.setInstantiated (true);
+            // Main instantiation
+            aInstance = _instantiateSingleton (aClass, aScope);
+
+            // Start the initialization process
+            // Do this before the instance is added to the scope, so that other
+            // threads never see it as completely instantiated
+            aInstance.setInInstantiation (true);
+
+            // Set in scope so that recursive calls to the same singleton are
+            // caught appropriately
+            aScope.attrs ().putIn (sSingletonScopeKey, aInstance);
+            try
+            {
+              // Invoke callback method
+              aInstance.onAfterInstantiation (aScope);
+
+              // Set "instantiated" only if no exception was thrown
+              aInstance.setInstantiated (true);
+            }
+            finally
+            {
+              // Ensure field is reset even in case of an exception
+              aInstance.setInInstantiation (false);
+            }
+
+            // And some statistics
+            STATS_INSTANCE_COUNTER.increment (sSingletonScopeKey);
           }
-          finally
+          else
           {
-            // Ensure field is reset even in case of an exception
-            aInstance.setInInstantiation (false);
+            // May not be instantiated if this method is called from the same
+            // thread as the original instantiation
           }
 
-          // And some statistics
-          STATS_INSTANCE_COUNTER.increment (sSingletonScopeKey);
+          // We have the instance - maybe from re-querying the scope, maybe from
+          // instantiation
         }
-        else
+        finally
         {
-          // May not be instantiated if this method is called from the same
-          // thread as the original instantiation
+          _unlockInstantiationGuard (sGuardKey, aGuard);
         }
-
-        // We have the instance - maybe from re-querying the scope, maybe from
-        // instantiation
-      }
-      finally
-      {
-        RW_LOCK.writeLock ().unlock ();
       }
     }
 
@@ -632,6 +794,6 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
   @Nonnull
   public String toString ()
   {
-    return new ToStringGenerator (this).append ("Status", m_aStatus).getToString ();
+    return new ToStringGenerator (this).append ("Status", _getStatusBitSet ()).getToString ();
   }
 }
@@ -16,11 +16,11 @@
  */
 package com.helger.scope.singleton;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
-import com.helger.commons.concurrent.SimpleReadWriteLock;
 import com.helger.commons.debug.GlobalDebug;
 
 /**
@@ -34,11 +34,9 @@ public final class SingletonHelper
   public static final boolean DEFAULT_DEBUG_CONSISTENCY = GlobalDebug.isDebugMode ();
   public static final boolean DEFAULT_DEBUG_WITH_STACK_TRACE = false;
 
-  private static final SimpleReadWriteLock RW_LOCK = new SimpleReadWriteLock ();
-  @GuardedBy ("RW_LOCK")
-  private static boolean s_bDebugConsistency = DEFAULT_DEBUG_CONSISTENCY;
-  @GuardedBy ("RW_LOCK")
-  private static boolean s_bDebugWithStackTrace = DEFAULT_DEBUG_WITH_STACK_TRACE;
+  // Atomic instead of locked, because they are queried on each singleton access
+  private static final AtomicBoolean DEBUG_CONSISTENCY = new AtomicBoolean (DEFAULT_DEBUG_CONSISTENCY);
+  private static final AtomicBoolean DEBUG_WITH_STACK_TRACE = new AtomicBoolean (DEFAULT_DEBUG_WITH_STACK_TRACE);
 
   private SingletonHelper ()
   {}
@@ -52,7 +50,7 @@ public final class SingletonHelper
    */
   public static void setDebugConsistency (final boolean bDebugConsistency)
   {
-    RW_LOCK.writeLocked ( () -> s_bDebugConsistency = bDebugConsistency);
+    DEBUG_CONSISTENCY.set (bDebugConsistency);
   }
 
   /**
@@ -62,7 +60,7 @@ public final class SingletonHelper
    */
   public static boolean isDebugConsistency ()
   {
-    return RW_LOCK.readLockedBoolean ( () -> s_bDebugConsistency);
+    return DEBUG_CONSISTENCY.get ();
   }
 
   /**
@@ -74,7 +72,7 @@ public final class SingletonHelper
    */
   public static void setDebugWithStackTrace (final boolean bDebugWithStackTrace)
   {
-    RW_LOCK.writeLocked ( () -> s_bDebugWithStackTrace = bDebugWithStackTrace);
+    DEBUG_WITH_STACK_TRACE.set (bDebugWithStackTrace);
   }
 
   /**
@@ -83,7 +81,7 @@ public final class SingletonHelper
    */
   public static boolean isDebugWithStackTrace ()
   {
-    return RW_LOCK.readLockedBoolean ( () -> s_bDebugWithStackTrace);
+    return DEBUG_WITH_STACK_TRACE.get ();
   }
 
   /**
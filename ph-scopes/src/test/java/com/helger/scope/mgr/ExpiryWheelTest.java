@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+
+/**
+ * Test class for class {@link ExpiryWheel}.
+ *
+ * @author Philip Helger
+ */
+public final class ExpiryWheelTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final ExpiryWheel <String> aWheel = new ExpiryWheel <> (8, 10, 0);
+    aWheel.schedule ("a", 10);
+    aWheel.schedule ("b", 25);
+    aWheel.schedule ("c", 75);
+
+    final ICommonsList <String> aList = new CommonsArrayList <> ();
+    aWheel.advance (5, aList::add);
+    assertTrue (aList.isEmpty ());
+
+    aWheel.advance (10, aList::add);
+    assertEquals (new CommonsArrayList <> ("a"), aList);
+
+    aList.clear ();
+    aWheel.advance (29, aList::add);
+    assertEquals (new CommonsArrayList <> ("b"), aList);
+
+    aList.clear ();
+    aWheel.advance (80, aList::add);
+    assertEquals (new CommonsArrayList <> ("c"), aList);
+  }
+
+  @Test
+  public void testBeyondOneRotation ()
+  {
+    final ExpiryWheel <String> aWheel = new ExpiryWheel <> (4, 10, 0);
+    // Tick 10 is in the same bucket as tick 2
+    aWheel.schedule ("a", 100);
+
+    final ICommonsList <String> aList = new CommonsArrayList <> ();
+    aWheel.advance (20, aList::add);
+    // Handed out too early - consumer must re-schedule
+    assertEquals (new CommonsArrayList <> ("a"), aList);
+
+    aList.clear ();
+    aWheel.schedule ("a", 100);
+    // Skipping many rotations visits each bucket only once
+    aWheel.advance (1000, aList::add);
+    assertEquals (new CommonsArrayList <> ("a"), aList);
+  }
+
+  @Test
+  public void testScheduleInPast ()
+  {
+    final ExpiryWheel <String> aWheel = new ExpiryWheel <> (8, 10, 0);
+    final ICommonsList <String> aList = new CommonsArrayList <> ();
+    aWheel.advance (50, aList::add);
+    assertTrue (aList.isEmpty ());
+
+    // Deadline already passed - must be in the next bucket
+    aWheel.schedule ("a", 20);
+    aWheel.advance (59, aList::add);
+    assertTrue (aList.isEmpty ());
+    aWheel.advance (60, aList::add);
+    assertEquals (new CommonsArrayList <> ("a"), aList);
+  }
+
+  @Test
+  public void testRescheduleInConsumer ()
+  {
+    final ExpiryWheel <String> aWheel = new ExpiryWheel <> (8, 10, 0);
+    aWheel.schedule ("a", 10);
+    final ICommonsList <String> aList = new CommonsArrayList <> ();
+    aWheel.advance (10, x -> {
+      aList.add (x);
+      aWheel.schedule (x, 0);
+    });
+    assertEquals (1, aList.size ());
+    aWheel.advance (20, aList::add);
+    assertEquals (2, aList.size ());
+  }
+}
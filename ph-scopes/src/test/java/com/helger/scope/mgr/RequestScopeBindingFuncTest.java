@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.scope.IRequestScope;
+import com.helger.scope.mock.ScopeAwareTestSetup;
+import com.helger.scope.singleton.MockRequestSingleton;
+
+/**
+ * Test class for the {@link IRequestScopeBinding} handling of
+ * {@link ScopeManager}.
+ *
+ * @author Philip Helger
+ */
+public final class RequestScopeBindingFuncTest
+{
+  private static final int REQUEST_COUNT = 20_000;
+
+  private static void _runInGlobalScope (@Nonnull final IRequestScopeBinding aBinding, @Nonnull final Runnable aRunnable)
+  {
+    ScopeManager.setRequestScopeBinding (aBinding);
+    try
+    {
+      ScopeManager.onGlobalBegin (ScopeAwareTestSetup.MOCK_GLOBAL_SCOPE_ID);
+      try
+      {
+        aRunnable.run ();
+      }
+      finally
+      {
+        ScopeManager.onGlobalEnd ();
+      }
+    }
+    finally
+    {
+      ScopeManager.setRequestScopeBinding (new ThreadLocalRequestScopeBinding ());
+    }
+  }
+
+  /**
+   * @return A thread per task executor with virtual threads if the runtime
+   *         supports it, a large thread pool otherwise.
+   */
+  @Nonnull
+  private static ExecutorService _createRequestExecutor ()
+  {
+    try
+    {
+      return (ExecutorService) Executors.class.getMethod ("newVirtualThreadPerTaskExecutor").invoke (null);
+    }
+    catch (final ReflectiveOperationException ex)
+    {
+      // Not supported by this runtime
+      return Executors.newFixedThreadPool (256);
+    }
+  }
+
+  private static void _runManyRequests ()
+  {
+    final ExecutorService aES = _createRequestExecutor ();
+    final AtomicInteger aSuccess = new AtomicInteger (0);
+    final ICommonsList <Future <?>> aFutures = new CommonsArrayList <> (REQUEST_COUNT);
+    for (int i = 0; i < REQUEST_COUNT; ++i)
+    {
+      final String sRequestID = "request-" + i;
+      aFutures.add (aES.submit ( () -> {
+        final IRequestScope aRequestScope = ScopeManager.onRequestBegin (sRequestID, "session");
+        try
+        {
+          assertSame (aRequestScope, ScopeManager.getRequestScope ());
+          final MockRequestSingleton aSingleton = MockRequestSingleton.getInstance ();
+          aSingleton.inc ();
+          // Ensure many requests overlap
+          Thread.sleep (1);
+          assertSame (aSingleton, MockRequestSingleton.getInstance ());
+          assertEquals (1, aSingleton.get ());
+          assertEquals (sRequestID, ScopeManager.getRequestScope ().getID ());
+        }
+        finally
+        {
+          ScopeManager.onRequestEnd ();
+        }
+        assertTrue (aRequestScope.isDestroyed ());
+        assertNull (ScopeManager.getRequestScopeOrNull ());
+        aSuccess.incrementAndGet ();
+        return null;
+      }));
+    }
+    try
+    {
+      for (final Future <?> aFuture : aFutures)
+        aFuture.get (1, TimeUnit.MINUTES);
+    }
+    catch (final Exception ex)
+    {
+      throw new IllegalStateException (ex);
+    }
+    finally
+    {
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    }
+    assertEquals (REQUEST_COUNT, aSuccess.get ());
+  }
+
+  @Test
+  public void testManyConcurrentRequestsThreadLocal ()
+  {
+    _runInGlobalScope (new ThreadLocalRequestScopeBinding (), RequestScopeBindingFuncTest::_runManyRequests);
+  }
+
+  @Test
+  public void testManyConcurrentRequestsInheritable ()
+  {
+    _runInGlobalScope (new InheritableRequestScopeBinding (), RequestScopeBindingFuncTest::_runManyRequests);
+  }
+
+  @Test
+  public void testInheritable () throws Exception
+  {
+    final ExecutorService aES = Executors.newSingleThreadExecutor ();
+    try
+    {
+      _runInGlobalScope (new InheritableRequestScopeBinding (), () -> {
+        final AtomicReference <IRequestScope> aChildScope = new AtomicReference <> ();
+        final IRequestScope aRequestScope = ScopeManager.onRequestBegin ("request", "session");
+        try
+        {
+          final Thread aThread = new Thread ( () -> aChildScope.set (ScopeManager.getRequestScopeOrNull ()));
+          aThread.start ();
+          aThread.join ();
+          assertSame (aRequestScope, aChildScope.get ());
+
+          // The pool thread is created now and inherits the request scope
+          aES.submit ( () -> aChildScope.set (ScopeManager.getRequestScopeOrNull ())).get ();
+          assertSame (aRequestScope, aChildScope.get ());
+        }
+        catch (final Exception ex)
+        {
+          throw new IllegalStateException (ex);
+        }
+        finally
+        {
+          ScopeManager.onRequestEnd ();
+        }
+        assertNull (ScopeManager.getRequestScopeOrNull ());
+
+        try
+        {
+          // The destroyed request scope is no longer visible in the pool thread
+          aES.submit ( () -> aChildScope.set (ScopeManager.getRequestScopeOrNull ())).get ();
+          assertNull (aChildScope.get ());
+        }
+        catch (final Exception ex)
+        {
+          throw new IllegalStateException (ex);
+        }
+      });
+    }
+    finally
+    {
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    }
+  }
+
+  @Test
+  public void testWrapInCurrentRequestScope () throws Exception
+  {
+    final ExecutorService aES = Executors.newSingleThreadExecutor ();
+    try
+    {
+      _runInGlobalScope (new ThreadLocalRequestScopeBinding (), () -> {
+        final IRequestScope aRequestScope = ScopeManager.onRequestBegin ("request", "session");
+        try
+        {
+          // Not propagated without wrapping
+          final AtomicReference <IRequestScope> aOtherScope = new AtomicReference <> ();
+          aES.submit ( () -> aOtherScope.set (ScopeManager.getRequestScopeOrNull ())).get ();
+          assertNull (aOtherScope.get ());
+
+          aES.submit (ScopeManager.wrapInCurrentRequestScope ( () -> aOtherScope.set (ScopeManager.getRequestScopeOrNull ())))
+             .get ();
+          assertSame (aRequestScope, aOtherScope.get ());
+
+          // Binding was removed after the wrapped runnable finished
+          aES.submit ( () -> aOtherScope.set (ScopeManager.getRequestScopeOrNull ())).get ();
+          assertNull (aOtherScope.get ());
+
+          // Nested binding restores the previous scope
+          final IRequestScope aOther = ScopeManager.onRequestBegin ("other", "session");
+          ScopeManager.runInRequestScope (aRequestScope, () -> assertSame (aRequestScope, ScopeManager.getRequestScope ()));
+          assertSame (aOther, ScopeManager.getRequestScope ());
+          assertSame (aRequestScope, ScopeManager.getInRequestScope (aRequestScope, ScopeManager::getRequestScope));
+          assertSame (aOther, ScopeManager.getRequestScope ());
+        }
+        catch (final Exception ex)
+        {
+          throw new IllegalStateException (ex);
+        }
+        finally
+        {
+          ScopeManager.onRequestEnd ();
+        }
+      });
+    }
+    finally
+    {
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    }
+  }
+
+  @Test
+  public void testChangeBindingWithGlobalScope ()
+  {
+    _runInGlobalScope (new ThreadLocalRequestScopeBinding (), () -> {
+      try
+      {
+        ScopeManager.setRequestScopeBinding (new InheritableRequestScopeBinding ());
+        fail ();
+      }
+      catch (final IllegalStateException ex)
+      {
+        // Expected
+      }
+    });
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.commons.concurrent.ThreadHelper;
+import com.helger.commons.state.EChange;
+import com.helger.scope.ISessionScope;
+import com.helger.scope.SessionScope;
+import com.helger.scope.mock.ScopeTestRule;
+
+/**
+ * Test class for class {@link ScopeSessionManager}.
+ *
+ * @author Philip Helger
+ */
+public final class ScopeSessionManagerTest
+{
+  @Rule
+  public final TestRule m_aScopeRule = new ScopeTestRule ();
+
+  @Test
+  public void testManySessions ()
+  {
+    final ScopeSessionManager aSSM = ScopeSessionManager.getInstance ();
+    assertFalse (aSSM.containsAnySession ());
+
+    final int nCount = 10_000;
+    for (int i = 0; i < nCount; ++i)
+      aSSM.onScopeBegin (new SessionScope ("session" + i));
+    assertTrue (aSSM.containsAnySession ());
+    assertEquals (nCount, aSSM.getSessionCount ());
+    assertEquals (nCount, aSSM.getAllSessionScopes ().size ());
+
+    final ISessionScope aSession = aSSM.getSessionScopeOfID ("session4711");
+    assertNotNull (aSession);
+    assertNull (aSSM.getSessionScopeOfID ("session-1"));
+    assertNull (aSSM.getSessionScopeOfID (null));
+
+    aSSM.onScopeEnd (aSession);
+    assertTrue (aSession.isDestroyed ());
+    assertNull (aSSM.getSessionScopeOfID ("session4711"));
+    assertEquals (nCount - 1, aSSM.getSessionCount ());
+
+    aSSM.destroyAllSessions ();
+    assertFalse (aSSM.containsAnySession ());
+    assertEquals (0, aSSM.getSessionCount ());
+    assertTrue (aSSM.getAllSessionScopes ().isEmpty ());
+  }
+
+  @Test
+  public void testIdleExpiry ()
+  {
+    final ScopeSessionManager aSSM = ScopeSessionManager.getInstance ();
+    assertNull (aSSM.getSessionIdleTimeout ());
+    assertEquals (0, aSSM.expireIdleSessions ());
+
+    final ISessionScope aActive = new SessionScope ("active");
+    final ISessionScope aIdle = new SessionScope ("idle");
+    aSSM.onScopeBegin (aActive);
+    aSSM.onScopeBegin (aIdle);
+    assertEquals (-1, aSSM.getSessionIdleMillis ("unknown"));
+    assertTrue (aSSM.getSessionIdleMillis ("idle") >= 0);
+
+    final Duration aTimeout = Duration.ofMillis (300);
+    assertTrue (aSSM.setSessionIdleTimeout (aTimeout).isChanged ());
+    assertSame (EChange.UNCHANGED, aSSM.setSessionIdleTimeout (aTimeout));
+    try
+    {
+      // Keep one session alive
+      for (int i = 0; i < 30 && !aIdle.isDestroyed (); ++i)
+      {
+        ThreadHelper.sleep (50);
+        assertSame (aActive, aSSM.getAndTouchSessionScopeOfID ("active"));
+        aSSM.expireIdleSessions ();
+      }
+      assertTrue (aIdle.isDestroyed ());
+      assertNull (aSSM.getSessionScopeOfID ("idle"));
+      assertFalse (aActive.isDestroyed ());
+      assertSame (aActive, aSSM.getSessionScopeOfID ("active"));
+      assertEquals (1, aSSM.getSessionCount ());
+    }
+    finally
+    {
+      aSSM.setSessionIdleTimeout (null);
+    }
+    assertEquals (0, aSSM.expireIdleSessions ());
+  }
+}
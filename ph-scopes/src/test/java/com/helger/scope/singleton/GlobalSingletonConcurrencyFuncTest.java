@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.singleton;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.scope.IScope;
+import com.helger.scope.mock.ScopeTestRule;
+
+/**
+ * Test concurrent access to {@link AbstractGlobalSingleton}.
+ *
+ * @author Philip Helger
+ */
+public final class GlobalSingletonConcurrencyFuncTest
+{
+  private static final CountDownLatch CTOR_ENTERED = new CountDownLatch (1);
+  private static final CountDownLatch CTOR_RELEASE = new CountDownLatch (1);
+  private static final AtomicInteger CTOR_COUNT = new AtomicInteger (0);
+  private static final CountDownLatch CYCLIC_ENTERED = new CountDownLatch (2);
+  private static final CountDownLatch INIT_ENTERED = new CountDownLatch (1);
+  private static final CountDownLatch INIT_RELEASE = new CountDownLatch (1);
+
+  @Rule
+  public final TestRule m_aScopeRule = new ScopeTestRule ();
+
+  public static final class MockSlowGlobalSingleton extends AbstractGlobalSingleton
+  {
+    public MockSlowGlobalSingleton () throws InterruptedException
+    {
+      CTOR_COUNT.incrementAndGet ();
+      CTOR_ENTERED.countDown ();
+      // Block until the test allows us to continue
+      assertTrue (CTOR_RELEASE.await (10, TimeUnit.SECONDS));
+    }
+
+    static MockSlowGlobalSingleton getInstance ()
+    {
+      return getGlobalSingleton (MockSlowGlobalSingleton.class);
+    }
+  }
+
+  public static final class MockFastGlobalSingleton extends AbstractGlobalSingleton
+  {
+    public MockFastGlobalSingleton ()
+    {}
+
+    static MockFastGlobalSingleton getInstance ()
+    {
+      return getGlobalSingleton (MockFastGlobalSingleton.class);
+    }
+  }
+
+  public static final class MockSlowInitGlobalSingleton extends AbstractGlobalSingleton
+  {
+    public MockSlowInitGlobalSingleton ()
+    {}
+
+    static MockSlowInitGlobalSingleton getInstance ()
+    {
+      return getGlobalSingleton (MockSlowInitGlobalSingleton.class);
+    }
+
+    @Override
+    protected void onAfterInstantiation (@Nonnull final IScope aScope)
+    {
+      INIT_ENTERED.countDown ();
+      try
+      {
+        // Block until the test allows us to continue
+        assertTrue (INIT_RELEASE.await (10, TimeUnit.SECONDS));
+      }
+      catch (final InterruptedException ex)
+      {
+        throw new IllegalStateException (ex);
+      }
+    }
+  }
+
+  public static final class MockCyclicGlobalSingletonA extends AbstractGlobalSingleton
+  {
+    private MockCyclicGlobalSingletonB m_aOther;
+
+    public MockCyclicGlobalSingletonA ()
+    {}
+
+    static MockCyclicGlobalSingletonA getInstance ()
+    {
+      return getGlobalSingleton (MockCyclicGlobalSingletonA.class);
+    }
+
+    @Override
+    protected void onAfterInstantiation (@Nonnull final IScope aScope)
+    {
+      // Ensure both singletons are in instantiation at the same time
+      CYCLIC_ENTERED.countDown ();
+      try
+      {
+        assertTrue (CYCLIC_ENTERED.await (10, TimeUnit.SECONDS));
+      }
+      catch (final InterruptedException ex)
+      {
+        throw new IllegalStateException (ex);
+      }
+      m_aOther = MockCyclicGlobalSingletonB.getInstance ();
+    }
+  }
+
+  public static final class MockCyclicGlobalSingletonB extends AbstractGlobalSingleton
+  {
+    private MockCyclicGlobalSingletonA m_aOther;
+
+    public MockCyclicGlobalSingletonB ()
+    {}
+
+    static MockCyclicGlobalSingletonB getInstance ()
+    {
+      return getGlobalSingleton (MockCyclicGlobalSingletonB.class);
+    }
+
+    @Override
+    protected void onAfterInstantiation (@Nonnull final IScope aScope)
+    {
+      CYCLIC_ENTERED.countDown ();
+      try
+      {
+        assertTrue (CYCLIC_ENTERED.await (10, TimeUnit.SECONDS));
+      }
+      catch (final InterruptedException ex)
+      {
+        throw new IllegalStateException (ex);
+      }
+      m_aOther = MockCyclicGlobalSingletonA.getInstance ();
+    }
+  }
+
+  @Test
+  public void testConcurrentMutuallyDependentSingletons () throws Exception
+  {
+    final ExecutorService aES = Executors.newFixedThreadPool (2);
+    try
+    {
+      final Future <MockCyclicGlobalSingletonA> aFutureA = aES.submit (MockCyclicGlobalSingletonA::getInstance);
+      final Future <MockCyclicGlobalSingletonB> aFutureB = aES.submit (MockCyclicGlobalSingletonB::getInstance);
+
+      // Would block forever in case of a deadlock
+      final MockCyclicGlobalSingletonA aA = aFutureA.get (10, TimeUnit.SECONDS);
+      final MockCyclicGlobalSingletonB aB = aFutureB.get (10, TimeUnit.SECONDS);
+      assertSame (aB, aA.m_aOther);
+      assertSame (aA, aB.m_aOther);
+      assertTrue (aA.isUsableObject ());
+      assertTrue (aB.isUsableObject ());
+      assertSame (aA, MockCyclicGlobalSingletonA.getInstance ());
+      assertSame (aB, MockCyclicGlobalSingletonB.getInstance ());
+    }
+    finally
+    {
+      aES.shutdownNow ();
+    }
+  }
+
+  @Test
+  public void testNoAccessDuringInstantiation () throws Exception
+  {
+    final ExecutorService aES = Executors.newFixedThreadPool (8);
+    try
+    {
+      final ICommonsList <Future <Boolean>> aFutures = new CommonsArrayList <> ();
+      aFutures.add (aES.submit ( () -> Boolean.valueOf (MockSlowInitGlobalSingleton.getInstance ().isInstantiated ())));
+      assertTrue (INIT_ENTERED.await (10, TimeUnit.SECONDS));
+
+      // The instance is already in the scope, but may not be returned yet
+      for (int i = 0; i < 7; ++i)
+        aFutures.add (aES.submit ( () -> Boolean.valueOf (MockSlowInitGlobalSingleton.getInstance ().isInstantiated ())));
+      Thread.sleep (100);
+      for (final Future <Boolean> aFuture : aFutures)
+        assertFalse (aFuture.isDone ());
+
+      INIT_RELEASE.countDown ();
+      for (final Future <Boolean> aFuture : aFutures)
+        assertTrue (aFuture.get (10, TimeUnit.SECONDS).booleanValue ());
+    }
+    finally
+    {
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    }
+  }
+
+  @Test
+  public void testSlowSingletonDoesNotBlockOthers () throws Exception
+  {
+    final ExecutorService aES = Executors.newFixedThreadPool (8);
+    try
+    {
+      final ICommonsList <Future <MockSlowGlobalSingleton>> aFutures = new CommonsArrayList <> ();
+      aFutures.add (aES.submit (MockSlowGlobalSingleton::getInstance));
+      assertTrue (CTOR_ENTERED.await (10, TimeUnit.SECONDS));
+
+      // More threads waiting for the same singleton
+      for (int i = 0; i < 7; ++i)
+        aFutures.add (aES.submit (MockSlowGlobalSingleton::getInstance));
+
+      // Another singleton must be available while the slow one is created
+      assertNotNull (MockFastGlobalSingleton.getInstance ());
+      assertFalse (AbstractGlobalSingleton.isGlobalSingletonInstantiated (MockSlowGlobalSingleton.class));
+
+      CTOR_RELEASE.countDown ();
+      final MockSlowGlobalSingleton aFirst = aFutures.getFirst ().get (10, TimeUnit.SECONDS);
+      for (final Future <MockSlowGlobalSingleton> aFuture : aFutures)
+        assertSame (aFirst, aFuture.get (10, TimeUnit.SECONDS));
+      assertEquals (1, CTOR_COUNT.get ());
+      assertTrue (aFirst.isUsableObject ());
+      assertSame (aFirst, MockSlowGlobalSingleton.getInstance ());
+    }
+    finally
+    {
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.supplementary.test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.concurrent.SimpleReadWriteLock;
+import com.helger.commons.timing.StopWatch;
+import com.helger.scope.mgr.ScopeManager;
+import com.helger.scope.singleton.AbstractGlobalSingleton;
+import com.helger.scope.singleton.MockGlobalSingleton;
+import com.helger.scope.singleton.MockRequestSingleton;
+
+/**
+ * Measure the throughput of {@link AbstractGlobalSingleton#getGlobalSingleton}
+ * and the request singleton lookup under heavy multi-threaded load. The
+ * "locked" variant emulates the previous implementation with a global read
+ * lock around each lookup.
+ *
+ * @author Philip Helger
+ */
+public final class MainBenchmarkSingletonLookup
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (MainBenchmarkSingletonLookup.class);
+  private static final int LOOKUPS_PER_THREAD = 2_000_000;
+  private static final int RUNS = 5;
+  private static final SimpleReadWriteLock LEGACY_LOCK = new SimpleReadWriteLock ();
+
+  private MainBenchmarkSingletonLookup ()
+  {}
+
+  private interface ILookup
+  {
+    long lookup ();
+  }
+
+  private static long _run (final int nThreads, final boolean bWithRequestScope, @Nonnull final ILookup aLookup) throws InterruptedException
+  {
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads);
+    final CountDownLatch aStart = new CountDownLatch (1);
+    final AtomicLong aChecksum = new AtomicLong ();
+    for (int nThread = 0; nThread < nThreads; ++nThread)
+    {
+      final String sRequestID = "request" + nThread;
+      aES.submit ( () -> {
+        if (bWithRequestScope)
+          ScopeManager.onRequestBegin (sRequestID, "session");
+        try
+        {
+          aStart.await ();
+          long nSum = 0;
+          for (int i = 0; i < LOOKUPS_PER_THREAD; ++i)
+            nSum += aLookup.lookup ();
+          aChecksum.addAndGet (nSum);
+        }
+        catch (final InterruptedException ex)
+        {
+          Thread.currentThread ().interrupt ();
+        }
+        finally
+        {
+          if (bWithRequestScope)
+            ScopeManager.onRequestEnd ();
+        }
+      });
+    }
+    // Give the threads the chance to set up the request scopes
+    TimeUnit.MILLISECONDS.sleep (100);
+    final StopWatch aSW = StopWatch.createdStarted ();
+    aStart.countDown ();
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    final long nNanos = aSW.stopAndGetDuration ().toNanos ();
+    if (aChecksum.get () == 0)
+      throw new IllegalStateException ();
+    return nNanos;
+  }
+
+  private static void _benchmark (@Nonnull final String sName,
+                                  final boolean bWithRequestScope,
+                                  @Nonnull final ILookup aLookup) throws InterruptedException
+  {
+    for (final int nThreads : new int [] { 1, 4, 16, 64 })
+    {
+      long nBest = Long.MAX_VALUE;
+      for (int nRun = 0; nRun < RUNS; ++nRun)
+        nBest = Math.min (nBest, _run (nThreads, bWithRequestScope, aLookup));
+      final double dLookupsPerMs = (double) nThreads * LOOKUPS_PER_THREAD / (nBest / 1_000_000d);
+      LOGGER.info (sName + " with " + nThreads + " threads: " + (long) dLookupsPerMs + " lookups/ms");
+    }
+  }
+
+  public static void main (final String [] args) throws InterruptedException
+  {
+    ScopeManager.onGlobalBegin ("benchmark");
+    try
+    {
+      _benchmark ("Global singleton locked", false, () -> LEGACY_LOCK.readLockedGet (MockGlobalSingleton::getInstance).hashCode ());
+      _benchmark ("Global singleton", false, () -> MockGlobalSingleton.getInstance ().hashCode ());
+      _benchmark ("Request singleton locked", true, () -> LEGACY_LOCK.readLockedGet (MockRequestSingleton::getInstance).hashCode ());
+      _benchmark ("Request singleton", true, () -> MockRequestSingleton.getInstance ().hashCode ());
+    }
+    finally
+    {
+      ScopeManager.onGlobalEnd ();
+    }
+  }
+}
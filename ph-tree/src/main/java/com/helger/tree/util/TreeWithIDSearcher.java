@@ -26,8 +26,11 @@ import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.hierarchy.visit.DefaultHierarchyVisitorCallback;
 import com.helger.commons.hierarchy.visit.EHierarchyVisitorReturn;
+import com.helger.commons.lang.GenericReflection;
 import com.helger.tree.IBasicTree;
+import com.helger.tree.withid.BasicTreeWithID;
 import com.helger.tree.withid.ITreeItemWithID;
+import com.helger.tree.withid.TreeWithIDPathIndex;
 
 /**
  * A utility class that helps searching items within trees.
@@ -44,7 +47,8 @@ public final class TreeWithIDSearcher
   {}
 
   /**
-   * Fill all items with the same ID by linearly scanning of the tree.
+   * Fill all items with the same ID by linearly scanning of the tree. If the
+   * tree has the path index enabled, the index is used instead.
    *
    * @param <KEYTYPE>
    *        tree ID type
@@ -63,6 +67,19 @@ public final class TreeWithIDSearcher
   public static <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE>> ICommonsList <ITEMTYPE> findAllItemsWithIDRecursive (@Nonnull final IBasicTree <DATATYPE, ITEMTYPE> aTree,
                                                                                                                                                          @Nullable final KEYTYPE aSearchID)
   {
+    if (aTree instanceof BasicTreeWithID <?, ?, ?>)
+    {
+      final BasicTreeWithID <KEYTYPE, DATATYPE, ITEMTYPE> aTreeWithID = GenericReflection.uncheckedCast (aTree);
+      final TreeWithIDPathIndex <KEYTYPE, DATATYPE, ITEMTYPE> aPathIndex = aTreeWithID.getPathIndex ();
+      if (aPathIndex != null)
+      {
+        final ICommonsList <ITEMTYPE> ret = aPathIndex.getAllItemsWithID (aSearchID);
+        // The root item itself is not part of the result and always first
+        if (ret.isNotEmpty () && ret.getFirst () == aTree.getRootItem ())
+          ret.removeFirst ();
+        return ret;
+      }
+    }
     return findAllItemsWithIDRecursive (aTree.getRootItem (), aSearchID);
   }
 
@@ -76,6 +76,9 @@ public class BasicTreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemW
   private ICommonsMap <KEYTYPE, ITEMTYPE> m_aChildMap = null;
   private ICommonsList <ITEMTYPE> m_aChildren = null;
 
+  // entry of the path index of the owning tree - null if not indexed
+  TreeWithIDPathIndex.Entry <KEYTYPE, DATATYPE, ITEMTYPE> m_aPathIndexEntry = null;
+
   /**
    * Constructor for root object with a <code>null</code> data ID
    *
@@ -360,6 +363,8 @@ public class BasicTreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemW
       }
       m_aChildMap.put (aDataID, aItem);
       m_aChildren.add (aItem);
+      if (m_aPathIndexEntry != null)
+        m_aPathIndexEntry.getIndex ().onAddItem (m_aPathIndexEntry, aItem);
     }
     return aItem;
   }
@@ -433,6 +438,8 @@ public class BasicTreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemW
 
     m_aChildMap.put (aDataID, aChild);
     m_aChildren.add (aChild);
+    if (m_aPathIndexEntry != null)
+      m_aPathIndexEntry.getIndex ().onAddItem (m_aPathIndexEntry, aChild);
     m_aFactory.onAddItem (aChild);
     return EChange.CHANGED;
   }
@@ -462,6 +469,8 @@ public class BasicTreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemW
       return EChange.UNCHANGED;
     if (!m_aChildren.remove (aItem))
       throw new IllegalStateException ("Failed to remove item from list: " + aItem);
+    if (m_aPathIndexEntry != null)
+      m_aPathIndexEntry.getIndex ().onRemoveItem (aItem);
 
     // Notify factory
     _recursiveRemoveFromFactory (aItem);
@@ -480,6 +489,9 @@ public class BasicTreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemW
     // Remove all children
     m_aChildMap.clear ();
     m_aChildren.clear ();
+    if (m_aPathIndexEntry != null)
+      for (final ITEMTYPE aChild : aAllChildren)
+        m_aPathIndexEntry.getIndex ().onRemoveItem (aChild);
 
     // Notify factory after removal
     for (final ITEMTYPE aChild : aAllChildren)
@@ -490,7 +502,11 @@ public class BasicTreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemW
   public final void reorderChildrenByItems (@Nonnull final Comparator <? super ITEMTYPE> aComparator)
   {
     if (m_aChildren != null)
+    {
       m_aChildren.sort (aComparator);
+      if (m_aPathIndexEntry != null)
+        m_aPathIndexEntry.getIndex ().onReorder ();
+    }
   }
 
   @Override
@@ -22,6 +22,7 @@ import java.util.function.Predicate;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import com.helger.commons.ValueEnforcer;
@@ -30,6 +31,7 @@ import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.ICommonsCollection;
 import com.helger.commons.collection.impl.ICommonsIterable;
 import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.state.EChange;
 import com.helger.commons.state.EContinue;
 import com.helger.commons.string.ToStringGenerator;
 
@@ -52,6 +54,8 @@ public class BasicTreeWithID <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemWithI
 {
   // Root item.
   private final ITEMTYPE m_aRootItem;
+  // Optional global index
+  private TreeWithIDPathIndex <KEYTYPE, DATATYPE, ITEMTYPE> m_aPathIndex;
 
   public BasicTreeWithID (@Nonnull final ITreeItemWithIDFactory <KEYTYPE, DATATYPE, ITEMTYPE> aFactory)
   {
@@ -127,6 +131,57 @@ public class BasicTreeWithID <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemWithI
     return m_aRootItem;
   }
 
+  /**
+   * @return <code>true</code> if the global path index is enabled,
+   *         <code>false</code> if not. Disabled by default.
+   * @since 11.0.1
+   */
+  public final boolean isPathIndexEnabled ()
+  {
+    return m_aPathIndex != null;
+  }
+
+  /**
+   * Enable or disable the global path index of this tree. When enabling, all
+   * existing items are indexed and the index is automatically updated on all
+   * subsequent modifications of the tree. This requires all items to be
+   * derived from {@link BasicTreeItemWithID}.
+   *
+   * @param bEnabled
+   *        <code>true</code> to enable, <code>false</code> to disable.
+   * @return {@link EChange}
+   * @throws IllegalStateException
+   *         If an item is not derived from {@link BasicTreeItemWithID}
+   * @see TreeWithIDPathIndex
+   * @since 11.0.1
+   */
+  @Nonnull
+  public final EChange setPathIndexEnabled (final boolean bEnabled)
+  {
+    if (bEnabled == isPathIndexEnabled ())
+      return EChange.UNCHANGED;
+    if (bEnabled)
+      m_aPathIndex = new TreeWithIDPathIndex <> (m_aRootItem);
+    else
+    {
+      m_aPathIndex.detach ();
+      m_aPathIndex = null;
+    }
+    return EChange.CHANGED;
+  }
+
+  /**
+   * @return The global path index of this tree or <code>null</code> if it is
+   *         not enabled.
+   * @see #setPathIndexEnabled(boolean)
+   * @since 11.0.1
+   */
+  @Nullable
+  public final TreeWithIDPathIndex <KEYTYPE, DATATYPE, ITEMTYPE> getPathIndex ()
+  {
+    return m_aPathIndex;
+  }
+
   @Override
   public boolean equals (final Object o)
   {
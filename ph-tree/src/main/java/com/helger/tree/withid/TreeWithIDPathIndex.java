@@ -0,0 +1,552 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.tree.withid;
+
+import java.util.Iterator;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.lang.GenericReflection;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A global index over all items of a {@link BasicTreeWithID}, created via
+ * {@link BasicTreeWithID#setPathIndexEnabled(boolean)}. It provides
+ * <ul>
+ * <li>the lookup of items by ID over the whole tree,</li>
+ * <li>the depth and the ancestor chain of each item,</li>
+ * <li>the pre-order and post-order number and the subtree size of each item,
+ * allowing for O(1) ancestor checks and for subtree range queries.</li>
+ * </ul>
+ * The ID lookup, the parent chain and the depths are maintained incrementally
+ * when items are added or removed. The order numbers are recalculated with a
+ * single traversal upon the first order based query after a modification, so
+ * this query costs O(n), whereas all following queries cost O(1) until the
+ * next modification. That way a series of modifications does not require
+ * repeated renumbering.<br>
+ * Modifications must be synchronized externally like all tree modifications,
+ * but concurrent queries without modifications are safe, as the order numbers
+ * are recalculated by a single thread and published afterwards.<br>
+ * All items of the tree must be derived from {@link BasicTreeItemWithID}.
+ *
+ * @author Philip Helger
+ * @param <KEYTYPE>
+ *        tree item key type
+ * @param <DATATYPE>
+ *        tree item value type
+ * @param <ITEMTYPE>
+ *        tree item implementation type
+ * @since 11.0.1
+ */
+@NotThreadSafe
+public final class TreeWithIDPathIndex <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE>>
+{
+  /**
+   * The index information of a single item.
+   *
+   * @param <KEYTYPE>
+   *        tree item key type
+   * @param <DATATYPE>
+   *        tree item value type
+   * @param <ITEMTYPE>
+   *        tree item implementation type
+   */
+  static final class Entry <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE>>
+  {
+    private final TreeWithIDPathIndex <KEYTYPE, DATATYPE, ITEMTYPE> m_aIndex;
+    private final ITEMTYPE m_aItem;
+    private final Entry <KEYTYPE, DATATYPE, ITEMTYPE> m_aParent;
+    private final int m_nDepth;
+    // Linked list of all entries with the same ID
+    private Entry <KEYTYPE, DATATYPE, ITEMTYPE> m_aPrevSameID;
+    private Entry <KEYTYPE, DATATYPE, ITEMTYPE> m_aNextSameID;
+    // Only valid if the order of the index is valid. Written before the order is
+    // published via the volatile field.
+    private int m_nPreOrder;
+    private int m_nSubtreeSize;
+
+    Entry (@Nonnull final TreeWithIDPathIndex <KEYTYPE, DATATYPE, ITEMTYPE> aIndex,
+           @Nonnull final ITEMTYPE aItem,
+           @Nullable final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aParent)
+    {
+      m_aIndex = aIndex;
+      m_aItem = aItem;
+      m_aParent = aParent;
+      m_nDepth = aParent == null ? 0 : aParent.m_nDepth + 1;
+    }
+
+    @Nonnull
+    TreeWithIDPathIndex <KEYTYPE, DATATYPE, ITEMTYPE> getIndex ()
+    {
+      return m_aIndex;
+    }
+  }
+
+  private final Entry <KEYTYPE, DATATYPE, ITEMTYPE> m_aRootEntry;
+  // Head of the linked list of entries per ID
+  private final ICommonsMap <KEYTYPE, Entry <KEYTYPE, DATATYPE, ITEMTYPE>> m_aIDMap = new CommonsHashMap <> ();
+  private int m_nItemCount = 0;
+  // All entries in pre-order. null if invalid.
+  private volatile Entry <KEYTYPE, DATATYPE, ITEMTYPE> [] m_aPreOrder;
+
+  /**
+   * Create a new index for all items below and including the passed root item.
+   *
+   * @param aRootItem
+   *        The root item of the tree. May not be <code>null</code>.
+   */
+  TreeWithIDPathIndex (@Nonnull final ITEMTYPE aRootItem)
+  {
+    m_aRootEntry = _addSubtree (null, aRootItem);
+  }
+
+  @Nonnull
+  private static <KEYTYPE, DATATYPE, ITEMTYPE extends ITreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE>> BasicTreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE> _asBasic (@Nonnull final ITEMTYPE aItem)
+  {
+    if (!(aItem instanceof BasicTreeItemWithID <?, ?, ?>))
+      throw new IllegalStateException ("The path index requires all items to be BasicTreeItemWithID instances: " + aItem);
+    return GenericReflection.uncheckedCast (aItem);
+  }
+
+  private void _linkID (@Nonnull final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry)
+  {
+    final KEYTYPE aID = aEntry.m_aItem.getID ();
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aHead = m_aIDMap.put (aID, aEntry);
+    if (aHead != null)
+    {
+      aEntry.m_aNextSameID = aHead;
+      aHead.m_aPrevSameID = aEntry;
+    }
+  }
+
+  private void _unlinkID (@Nonnull final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry)
+  {
+    if (aEntry.m_aPrevSameID != null)
+      aEntry.m_aPrevSameID.m_aNextSameID = aEntry.m_aNextSameID;
+    else
+      if (aEntry.m_aNextSameID != null)
+        m_aIDMap.put (aEntry.m_aItem.getID (), aEntry.m_aNextSameID);
+      else
+        m_aIDMap.remove (aEntry.m_aItem.getID ());
+    if (aEntry.m_aNextSameID != null)
+      aEntry.m_aNextSameID.m_aPrevSameID = aEntry.m_aPrevSameID;
+    aEntry.m_aPrevSameID = null;
+    aEntry.m_aNextSameID = null;
+  }
+
+  /**
+   * Create the entries for the passed item and all its descendants.
+   */
+  @Nonnull
+  private Entry <KEYTYPE, DATATYPE, ITEMTYPE> _addSubtree (@Nullable final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aParentEntry,
+                                                          @Nonnull final ITEMTYPE aItem)
+  {
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> ret = new Entry <> (this, aItem, aParentEntry);
+    final ICommonsList <Entry <KEYTYPE, DATATYPE, ITEMTYPE>> aOpen = new CommonsArrayList <> (ret);
+    while (aOpen.isNotEmpty ())
+    {
+      final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry = aOpen.removeLast ();
+      _asBasic (aEntry.m_aItem).m_aPathIndexEntry = aEntry;
+      _linkID (aEntry);
+      m_nItemCount++;
+      aEntry.m_aItem.forAllChildren (x -> aOpen.add (new Entry <> (this, x, aEntry)));
+    }
+    m_aPreOrder = null;
+    return ret;
+  }
+
+  /**
+   * To be called after an item was added as child.
+   *
+   * @param aParentEntry
+   *        The entry of the parent item. May not be <code>null</code>.
+   * @param aItem
+   *        The added item, potentially having children itself. May not be
+   *        <code>null</code>.
+   */
+  void onAddItem (@Nonnull final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aParentEntry, @Nonnull final ITEMTYPE aItem)
+  {
+    _addSubtree (aParentEntry, aItem);
+  }
+
+  /**
+   * To be called after an item was removed from its parent.
+   *
+   * @param aItem
+   *        The removed item, potentially having children itself. May not be
+   *        <code>null</code>.
+   */
+  void onRemoveItem (@Nonnull final ITEMTYPE aItem)
+  {
+    final ICommonsList <ITEMTYPE> aOpen = new CommonsArrayList <> (aItem);
+    while (aOpen.isNotEmpty ())
+    {
+      final BasicTreeItemWithID <KEYTYPE, DATATYPE, ITEMTYPE> aCur = _asBasic (aOpen.removeLast ());
+      final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry = aCur.m_aPathIndexEntry;
+      if (aEntry != null && aEntry.m_aIndex == this)
+      {
+        _unlinkID (aEntry);
+        aCur.m_aPathIndexEntry = null;
+        m_nItemCount--;
+      }
+      aCur.forAllChildren (aOpen::add);
+    }
+    m_aPreOrder = null;
+  }
+
+  /**
+   * To be called after the children of an item were reordered.
+   */
+  void onReorder ()
+  {
+    m_aPreOrder = null;
+  }
+
+  /**
+   * Detach this index from all items.
+   */
+  void detach ()
+  {
+    onRemoveItem (m_aRootEntry.m_aItem);
+  }
+
+  @Nonnull
+  private Entry <KEYTYPE, DATATYPE, ITEMTYPE> _getEntry (@Nonnull final ITEMTYPE aItem)
+  {
+    ValueEnforcer.notNull (aItem, "Item");
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> ret = aItem instanceof BasicTreeItemWithID <?, ?, ?> ? _asBasic (aItem).m_aPathIndexEntry
+                                                                                                    : null;
+    if (ret == null || ret.m_aIndex != this)
+      throw new IllegalArgumentException ("The passed item is not part of this index: " + aItem);
+    return ret;
+  }
+
+  @Nonnull
+  private Entry <KEYTYPE, DATATYPE, ITEMTYPE> [] _getPreOrder ()
+  {
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> [] ret = m_aPreOrder;
+    return ret != null ? ret : _buildPreOrder ();
+  }
+
+  /**
+   * Number all entries and publish the result. Synchronized, so that
+   * concurrent queries don't write the entries concurrently. O(n).
+   */
+  @Nonnull
+  private synchronized Entry <KEYTYPE, DATATYPE, ITEMTYPE> [] _buildPreOrder ()
+  {
+    Entry <KEYTYPE, DATATYPE, ITEMTYPE> [] ret = m_aPreOrder;
+    if (ret == null)
+    {
+      ret = GenericReflection.uncheckedCast (new Entry <?, ?, ?> [m_nItemCount]);
+
+      // Iterative depth first traversal in the order of the children
+      final ICommonsList <Iterator <? extends ITEMTYPE>> aOpen = new CommonsArrayList <> ();
+      int nIndex = 0;
+      m_aRootEntry.m_nPreOrder = nIndex;
+      ret[nIndex++] = m_aRootEntry;
+      if (m_aRootEntry.m_aItem.hasChildren ())
+        aOpen.add (m_aRootEntry.m_aItem.getChildren ().iterator ());
+      while (aOpen.isNotEmpty ())
+      {
+        final Iterator <? extends ITEMTYPE> aIt = aOpen.getLast ();
+        if (aIt.hasNext ())
+        {
+          final ITEMTYPE aChild = aIt.next ();
+          final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry = _getEntry (aChild);
+          aEntry.m_nPreOrder = nIndex;
+          ret[nIndex++] = aEntry;
+          if (aChild.hasChildren ())
+            aOpen.add (aChild.getChildren ().iterator ());
+        }
+        else
+          aOpen.removeLast ();
+      }
+
+      // Sum up the subtree sizes bottom up
+      for (final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry : ret)
+        aEntry.m_nSubtreeSize = 1;
+      for (int i = ret.length - 1; i > 0; --i)
+        ret[i].m_aParent.m_nSubtreeSize += ret[i].m_nSubtreeSize;
+
+      // Publish only after all entries are filled
+      m_aPreOrder = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * @return The number of items in the tree, including the root item. Always
+   *         &gt; 0.
+   */
+  @Nonnegative
+  public int getItemCount ()
+  {
+    return m_nItemCount;
+  }
+
+  /**
+   * Check if an item with the passed ID is contained in the tree.
+   *
+   * @param aID
+   *        The ID to search. May be <code>null</code>.
+   * @return <code>true</code> if at least one item has the passed ID.
+   */
+  public boolean containsItemWithID (@Nullable final KEYTYPE aID)
+  {
+    return m_aIDMap.containsKey (aID);
+  }
+
+  /**
+   * Get an item with the passed ID. As IDs are only unique per parent item,
+   * multiple items may have the same ID. In this case an arbitrary one of them
+   * is returned - use {@link #getAllItemsWithID(Object)} to get all of them.
+   *
+   * @param aID
+   *        The ID to search. May be <code>null</code>.
+   * @return <code>null</code> if no such item is contained.
+   */
+  @Nullable
+  public ITEMTYPE getItemWithID (@Nullable final KEYTYPE aID)
+  {
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry = m_aIDMap.get (aID);
+    return aEntry == null ? null : aEntry.m_aItem;
+  }
+
+  /**
+   * Get all items with the passed ID.
+   *
+   * @param aID
+   *        The ID to search. May be <code>null</code>.
+   * @return A non-<code>null</code> list of all matching items in pre-order.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ITEMTYPE> getAllItemsWithID (@Nullable final KEYTYPE aID)
+  {
+    final ICommonsList <ITEMTYPE> ret = new CommonsArrayList <> ();
+    Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry = m_aIDMap.get (aID);
+    if (aEntry != null)
+    {
+      if (aEntry.m_aNextSameID == null)
+        ret.add (aEntry.m_aItem);
+      else
+      {
+        _getPreOrder ();
+        final ICommonsList <Entry <KEYTYPE, DATATYPE, ITEMTYPE>> aEntries = new CommonsArrayList <> ();
+        while (aEntry != null)
+        {
+          aEntries.add (aEntry);
+          aEntry = aEntry.m_aNextSameID;
+        }
+        aEntries.sort ( (x, y) -> Integer.compare (x.m_nPreOrder, y.m_nPreOrder));
+        for (final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aSortedEntry : aEntries)
+          ret.add (aSortedEntry.m_aItem);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Get the depth of an item.
+   *
+   * @param aItem
+   *        The item to check. May not be <code>null</code>.
+   * @return The depth of the item. 0 for the root item, 1 for its children
+   *         etc.
+   * @throws IllegalArgumentException
+   *         If the item is not part of this index
+   */
+  @Nonnegative
+  public int getDepth (@Nonnull final ITEMTYPE aItem)
+  {
+    return _getEntry (aItem).m_nDepth;
+  }
+
+  /**
+   * Get the ancestor chain of an item.
+   *
+   * @param aItem
+   *        The item to check. May not be <code>null</code>.
+   * @return A non-<code>null</code> list with all ancestors of the passed item,
+   *         starting with the root item and ending with the parent item. Empty
+   *         for the root item.
+   * @throws IllegalArgumentException
+   *         If the item is not part of this index
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ITEMTYPE> getAllAncestors (@Nonnull final ITEMTYPE aItem)
+  {
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry = _getEntry (aItem);
+    final ICommonsList <ITEMTYPE> ret = new CommonsArrayList <> (aEntry.m_nDepth);
+    Entry <KEYTYPE, DATATYPE, ITEMTYPE> aCur = aEntry.m_aParent;
+    while (aCur != null)
+    {
+      ret.add (aCur.m_aItem);
+      aCur = aCur.m_aParent;
+    }
+    return ret.reverse ();
+  }
+
+  /**
+   * Check if an item is a real ancestor of another item. If the order numbers
+   * are up to date this is an O(1) operation, otherwise the parent chain is
+   * followed.
+   *
+   * @param aAncestor
+   *        The potential ancestor. May not be <code>null</code>.
+   * @param aItem
+   *        The potential descendant. May not be <code>null</code>.
+   * @return <code>true</code> if aAncestor is a parent, grand parent etc. of
+   *         aItem, <code>false</code> otherwise (also if both are the same).
+   * @throws IllegalArgumentException
+   *         If one of the items is not part of this index
+   */
+  public boolean isAncestor (@Nonnull final ITEMTYPE aAncestor, @Nonnull final ITEMTYPE aItem)
+  {
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aAncestorEntry = _getEntry (aAncestor);
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry = _getEntry (aItem);
+    if (aAncestorEntry.m_nDepth >= aEntry.m_nDepth)
+      return false;
+    if (m_aPreOrder != null)
+    {
+      // Volatile read before reading the numbers
+      return aEntry.m_nPreOrder > aAncestorEntry.m_nPreOrder &&
+             aEntry.m_nPreOrder < aAncestorEntry.m_nPreOrder + aAncestorEntry.m_nSubtreeSize;
+    }
+
+    // Go up to the depth of the potential ancestor
+    Entry <KEYTYPE, DATATYPE, ITEMTYPE> aCur = aEntry;
+    while (aCur.m_nDepth > aAncestorEntry.m_nDepth)
+      aCur = aCur.m_aParent;
+    return aCur == aAncestorEntry;
+  }
+
+  /**
+   * Get the position of an item in a pre-order traversal (parents before their
+   * children, children in the order of the tree) of the tree.
+   *
+   * @param aItem
+   *        The item to check. May not be <code>null</code>.
+   * @return The 0-based pre-order number. 0 for the root item.
+   * @throws IllegalArgumentException
+   *         If the item is not part of this index
+   */
+  @Nonnegative
+  public int getPreOrderNumber (@Nonnull final ITEMTYPE aItem)
+  {
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry = _getEntry (aItem);
+    _getPreOrder ();
+    return aEntry.m_nPreOrder;
+  }
+
+  /**
+   * Get the position of an item in a post-order traversal (children before
+   * their parents) of the tree.
+   *
+   * @param aItem
+   *        The item to check. May not be <code>null</code>.
+   * @return The 0-based post-order number. The root item has the largest
+   *         number.
+   * @throws IllegalArgumentException
+   *         If the item is not part of this index
+   */
+  @Nonnegative
+  public int getPostOrderNumber (@Nonnull final ITEMTYPE aItem)
+  {
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry = _getEntry (aItem);
+    _getPreOrder ();
+    // Before this item are all previous items that are no ancestors, and all
+    // descendants
+    return aEntry.m_nPreOrder - aEntry.m_nDepth + aEntry.m_nSubtreeSize - 1;
+  }
+
+  /**
+   * Get the number of items in the subtree of an item.
+   *
+   * @param aItem
+   *        The item to check. May not be <code>null</code>.
+   * @return The number of descendants plus 1 for the item itself.
+   * @throws IllegalArgumentException
+   *         If the item is not part of this index
+   */
+  @Nonnegative
+  public int getSubtreeSize (@Nonnull final ITEMTYPE aItem)
+  {
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry = _getEntry (aItem);
+    _getPreOrder ();
+    return aEntry.m_nSubtreeSize;
+  }
+
+  /**
+   * Get the item with the passed pre-order number.
+   *
+   * @param nPreOrderNumber
+   *        The pre-order number. Must be &ge; 0 and &lt;
+   *        {@link #getItemCount()}.
+   * @return The matching item. Never <code>null</code>.
+   * @see #getPreOrderNumber(ITreeItemWithID)
+   */
+  @Nonnull
+  public ITEMTYPE getItemAtPreOrderNumber (@Nonnegative final int nPreOrderNumber)
+  {
+    ValueEnforcer.isBetweenInclusive (nPreOrderNumber, "PreOrderNumber", 0, m_nItemCount - 1);
+    return _getPreOrder ()[nPreOrderNumber].m_aItem;
+  }
+
+  /**
+   * Get all descendants of an item. They form the range of pre-order numbers
+   * directly following the item.
+   *
+   * @param aItem
+   *        The item to start at. May not be <code>null</code>.
+   * @return A non-<code>null</code> list of all descendants in pre-order,
+   *         excluding the passed item.
+   * @throws IllegalArgumentException
+   *         If the item is not part of this index
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ITEMTYPE> getAllDescendants (@Nonnull final ITEMTYPE aItem)
+  {
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> aEntry = _getEntry (aItem);
+    final Entry <KEYTYPE, DATATYPE, ITEMTYPE> [] aPreOrder = _getPreOrder ();
+    final int nEnd = aEntry.m_nPreOrder + aEntry.m_nSubtreeSize;
+    final ICommonsList <ITEMTYPE> ret = new CommonsArrayList <> (aEntry.m_nSubtreeSize - 1);
+    for (int i = aEntry.m_nPreOrder + 1; i < nEnd; ++i)
+      ret.add (aPreOrder[i].m_aItem);
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("ItemCount", m_nItemCount)
+                                       .append ("OrderValid", m_aPreOrder != null)
+                                       .getToString ();
+  }
+}
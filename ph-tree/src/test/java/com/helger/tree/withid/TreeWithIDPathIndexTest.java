@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2014-2022 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.tree.withid;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.tree.util.TreeWithIDSearcher;
+
+/**
+ * Test class for class {@link TreeWithIDPathIndex}.
+ *
+ * @author Philip Helger
+ */
+public final class TreeWithIDPathIndexTest
+{
+  private static void _fillPreOrder (@Nonnull final DefaultTreeItemWithID <String, String> aItem,
+                                     @Nonnull final ICommonsList <DefaultTreeItemWithID <String, String>> aPreOrder,
+                                     @Nonnull final ICommonsList <DefaultTreeItemWithID <String, String>> aPostOrder)
+  {
+    aPreOrder.add (aItem);
+    aItem.forAllChildren (x -> _fillPreOrder (x, aPreOrder, aPostOrder));
+    aPostOrder.add (aItem);
+  }
+
+  /**
+   * Compare the index with a plain traversal of the tree.
+   */
+  private static void _assertIndex (@Nonnull final DefaultTreeWithID <String, String> aTree)
+  {
+    final TreeWithIDPathIndex <String, String, DefaultTreeItemWithID <String, String>> aIndex = aTree.getPathIndex ();
+    final ICommonsList <DefaultTreeItemWithID <String, String>> aPreOrder = new CommonsArrayList <> ();
+    final ICommonsList <DefaultTreeItemWithID <String, String>> aPostOrder = new CommonsArrayList <> ();
+    _fillPreOrder (aTree.getRootItem (), aPreOrder, aPostOrder);
+    assertEquals (aPreOrder.size (), aIndex.getItemCount ());
+
+    for (int i = 0; i < aPreOrder.size (); ++i)
+    {
+      final DefaultTreeItemWithID <String, String> aItem = aPreOrder.get (i);
+      assertEquals (i, aIndex.getPreOrderNumber (aItem));
+      assertSame (aItem, aIndex.getItemAtPreOrderNumber (i));
+      assertSame (aItem, aPostOrder.get (aIndex.getPostOrderNumber (aItem)));
+      assertEquals (aItem.getLevel (), aIndex.getDepth (aItem));
+      assertTrue (aIndex.containsItemWithID (aItem.getID ()));
+      assertTrue (aIndex.getAllItemsWithID (aItem.getID ()).containsAny (x -> x == aItem));
+
+      // Ancestors
+      final ICommonsList <DefaultTreeItemWithID <String, String>> aAncestors = new CommonsArrayList <> ();
+      DefaultTreeItemWithID <String, String> aCur = aItem.getParent ();
+      while (aCur != null)
+      {
+        aAncestors.add (0, aCur);
+        aCur = aCur.getParent ();
+      }
+      assertEquals (aAncestors, aIndex.getAllAncestors (aItem));
+
+      // Descendants
+      final ICommonsList <DefaultTreeItemWithID <String, String>> aDescendants = new CommonsArrayList <> ();
+      _fillPreOrder (aItem, aDescendants, new CommonsArrayList <> ());
+      aDescendants.remove (0);
+      assertEquals (aDescendants, aIndex.getAllDescendants (aItem));
+      assertEquals (aDescendants.size () + 1, aIndex.getSubtreeSize (aItem));
+    }
+
+    // Ancestor checks
+    for (final DefaultTreeItemWithID <String, String> aItem1 : aPreOrder)
+      for (final DefaultTreeItemWithID <String, String> aItem2 : aPreOrder)
+        assertEquals (aItem1 != aItem2 && aItem2.isSameOrChildOf (aItem1), aIndex.isAncestor (aItem1, aItem2));
+  }
+
+  @Nonnull
+  private static DefaultTreeWithID <String, String> _createTree ()
+  {
+    final DefaultTreeWithID <String, String> aTree = new DefaultTreeWithID <> ();
+    final DefaultTreeItemWithID <String, String> a = aTree.getRootItem ().createChildItem ("a", "a");
+    final DefaultTreeItemWithID <String, String> b = aTree.getRootItem ().createChildItem ("b", "b");
+    a.createChildItem ("a1", "a1").createChildItem ("x", "a1x");
+    a.createChildItem ("a2", "a2");
+    b.createChildItem ("x", "bx");
+    b.createChildItem ("b2", "b2").createChildItem ("b21", "b21");
+    return aTree;
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final DefaultTreeWithID <String, String> aTree = _createTree ();
+    assertFalse (aTree.isPathIndexEnabled ());
+    assertNull (aTree.getPathIndex ());
+    assertTrue (aTree.setPathIndexEnabled (true).isChanged ());
+    assertFalse (aTree.setPathIndexEnabled (true).isChanged ());
+    assertTrue (aTree.isPathIndexEnabled ());
+
+    final TreeWithIDPathIndex <String, String, DefaultTreeItemWithID <String, String>> aIndex = aTree.getPathIndex ();
+    assertNotNull (aIndex);
+    assertNotNull (aIndex.toString ());
+    assertEquals (9, aIndex.getItemCount ());
+    _assertIndex (aTree);
+
+    final DefaultTreeItemWithID <String, String> a = aIndex.getItemWithID ("a");
+    final DefaultTreeItemWithID <String, String> b21 = aIndex.getItemWithID ("b21");
+    assertEquals ("a", a.getData ());
+    assertEquals (3, aIndex.getDepth (b21));
+    assertTrue (aIndex.isAncestor (aTree.getRootItem (), b21));
+    assertFalse (aIndex.isAncestor (a, b21));
+    assertFalse (aIndex.isAncestor (b21, b21));
+    assertNull (aIndex.getItemWithID ("c"));
+    assertFalse (aIndex.containsItemWithID ("c"));
+    assertTrue (aIndex.getAllItemsWithID ("c").isEmpty ());
+
+    // Same ID in different subtrees, in pre-order
+    final ICommonsList <DefaultTreeItemWithID <String, String>> aXs = aIndex.getAllItemsWithID ("x");
+    assertEquals (2, aXs.size ());
+    assertEquals ("a1x", aXs.get (0).getData ());
+    assertEquals ("bx", aXs.get (1).getData ());
+    assertEquals (TreeWithIDSearcher.findAllItemsWithIDRecursive (aTree.getRootItem (), "x"),
+                  TreeWithIDSearcher.findAllItemsWithIDRecursive (aTree, "x"));
+
+    // Items of another tree
+    final DefaultTreeWithID <String, String> aOther = _createTree ();
+    try
+    {
+      aIndex.getDepth (aOther.getRootItem ());
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+
+    assertTrue (aTree.setPathIndexEnabled (false).isChanged ());
+    assertNull (aTree.getPathIndex ());
+    try
+    {
+      aIndex.getDepth (a);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testModifications ()
+  {
+    final DefaultTreeWithID <String, String> aTree = _createTree ();
+    aTree.setPathIndexEnabled (true);
+    final TreeWithIDPathIndex <String, String, DefaultTreeItemWithID <String, String>> aIndex = aTree.getPathIndex ();
+    final DefaultTreeItemWithID <String, String> a = aIndex.getItemWithID ("a");
+    final DefaultTreeItemWithID <String, String> b = aIndex.getItemWithID ("b");
+
+    // Add
+    final DefaultTreeItemWithID <String, String> a3 = a.createChildItem ("a3", "a3");
+    // Without renumbering
+    assertTrue (aIndex.isAncestor (a, a3));
+    assertFalse (aIndex.isAncestor (b, a3));
+    assertEquals (2, aIndex.getDepth (a3));
+    _assertIndex (aTree);
+
+    // Overwrite does not add
+    assertSame (a3, a.createChildItem ("a3", "new"));
+    assertEquals (10, aIndex.getItemCount ());
+
+    // Remove a subtree
+    final DefaultTreeItemWithID <String, String> a1 = a.getChildItemOfDataID ("a1");
+    assertTrue (a.removeChild ("a1").isChanged ());
+    assertEquals (8, aIndex.getItemCount ());
+    assertEquals (1, aIndex.getAllItemsWithID ("x").size ());
+    assertFalse (aIndex.containsItemWithID ("a1"));
+    try
+    {
+      aIndex.getDepth (a1);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+    _assertIndex (aTree);
+
+    // Move a subtree
+    final DefaultTreeItemWithID <String, String> b2 = b.getChildItemOfDataID ("b2");
+    assertTrue (b2.changeParent (a3).isSuccess ());
+    assertEquals (8, aIndex.getItemCount ());
+    assertEquals (4, aIndex.getDepth (aIndex.getItemWithID ("b21")));
+    assertTrue (aIndex.isAncestor (a, aIndex.getItemWithID ("b21")));
+    _assertIndex (aTree);
+
+    // Reorder
+    a.reorderChildrenByItems (Comparator.comparing (DefaultTreeItemWithID::getID, Comparator.reverseOrder ()));
+    assertEquals (aIndex.getPreOrderNumber (a) + 1, aIndex.getPreOrderNumber (a3));
+    _assertIndex (aTree);
+
+    // Remove all
+    assertTrue (a.removeAllChildren ().isChanged ());
+    assertEquals (4, aIndex.getItemCount ());
+    _assertIndex (aTree);
+  }
+
+  @Test
+  public void testRandom ()
+  {
+    final Random aRandom = new Random (11);
+    final DefaultTreeWithID <String, String> aTree = new DefaultTreeWithID <> ();
+    aTree.setPathIndexEnabled (true);
+    final ICommonsList <DefaultTreeItemWithID <String, String>> aItems = new CommonsArrayList <> (aTree.getRootItem ());
+    for (int nRound = 0; nRound < 300; ++nRound)
+    {
+      final DefaultTreeItemWithID <String, String> aItem = aItems.get (aRandom.nextInt (aItems.size ()));
+      final int nAction = aRandom.nextInt (10);
+      if (nAction < 7)
+      {
+        final String sID = Integer.toString (aRandom.nextInt (50));
+        if (!aItem.containsChildItemWithDataID (sID))
+          aItems.add (aItem.createChildItem (sID, sID));
+      }
+      else
+        if (nAction < 9)
+        {
+          if (!aItem.isRootItem ())
+          {
+            aItem.getParent ().removeChild (aItem.getID ());
+            aItems.removeIf (x -> x.isSameOrChildOf (aItem));
+          }
+        }
+        else
+        {
+          final DefaultTreeItemWithID <String, String> aNewParent = aItems.get (aRandom.nextInt (aItems.size ()));
+          if (!aItem.isRootItem () && !aNewParent.containsChildItemWithDataID (aItem.getID ()))
+            aItem.changeParent (aNewParent);
+        }
+      if (nRound % 50 == 0)
+        _assertIndex (aTree);
+    }
+    _assertIndex (aTree);
+    for (int i = 0; i < 50; ++i)
+    {
+      final String sID = Integer.toString (i);
+      assertEquals (TreeWithIDSearcher.findAllItemsWithIDRecursive (aTree.getRootItem (), sID),
+                    TreeWithIDSearcher.findAllItemsWithIDRecursive (aTree, sID));
+    }
+  }
+
+  @Test
+  public void testConcurrentQueries () throws Exception
+  {
+    final DefaultTreeWithID <String, String> aTree = new DefaultTreeWithID <> ();
+    aTree.setPathIndexEnabled (true);
+    final TreeWithIDPathIndex <String, String, DefaultTreeItemWithID <String, String>> aIndex = aTree.getPathIndex ();
+    final ICommonsList <DefaultTreeItemWithID <String, String>> aItems = new CommonsArrayList <> (aTree.getRootItem ());
+    final Random aRandom = new Random (17);
+    final ExecutorService aES = Executors.newFixedThreadPool (8);
+    try
+    {
+      for (int nRound = 0; nRound < 20; ++nRound)
+      {
+        // Modify the tree, so that the order is invalidated
+        for (int i = 0; i < 200; ++i)
+        {
+          final String sID = nRound + "-" + i;
+          aItems.add (aItems.get (aRandom.nextInt (aItems.size ())).createChildItem (sID, sID));
+        }
+
+        final ICommonsList <DefaultTreeItemWithID <String, String>> aPreOrder = new CommonsArrayList <> ();
+        _fillPreOrder (aTree.getRootItem (), aPreOrder, new CommonsArrayList <> ());
+
+        // Query concurrently
+        final ICommonsList <Future <?>> aFutures = new CommonsArrayList <> ();
+        for (int t = 0; t < 8; ++t)
+          aFutures.add (aES.submit ( () -> {
+            for (int i = aPreOrder.size () - 1; i >= 0; --i)
+            {
+              final DefaultTreeItemWithID <String, String> aItem = aPreOrder.get (i);
+              if (aIndex.getPreOrderNumber (aItem) != i)
+                throw new IllegalStateException ("Wrong pre-order number of " + aItem.getID ());
+              if (!aItem.isRootItem () && !aIndex.isAncestor (aTree.getRootItem (), aItem))
+                throw new IllegalStateException ("Root is no ancestor of " + aItem.getID ());
+            }
+          }));
+        for (final Future <?> aFuture : aFutures)
+          aFuture.get ();
+      }
+    }
+    finally
+    {
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    }
+  }
+}
@@ -107,6 +107,16 @@ public abstract class AbstractMicroNode implements IMicroNode
     throw new MicroException ("Cannot insert children in class " + getClass ().getName ());
   }
 
+  /**
+   * Callback that is invoked to release spare storage capacity of this node.
+   * The content of the node must not be changed. By default nothing happens.
+   *
+   * @since 11.0.1
+   */
+  @OverrideOnDemand
+  void onCompactStorage ()
+  {}
+
   @Nullable
   public final <NODETYPE extends IMicroNode> NODETYPE appendChild (@Nullable final NODETYPE aChildNode)
   {
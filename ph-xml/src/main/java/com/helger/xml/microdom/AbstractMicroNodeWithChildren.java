@@ -283,6 +283,30 @@ public abstract class AbstractMicroNodeWithChildren extends AbstractMicroNode im
     return m_aChildren == null ? null : m_aChildren.getLast ();
   }
 
+  @Override
+  void onCompactStorage ()
+  {
+    if (m_aChildren instanceof CommonsArrayList <?>)
+      ((CommonsArrayList <?>) m_aChildren).trimToSize ();
+  }
+
+  /**
+   * Release the spare storage capacity of this node and all direct children.
+   * Afterwards the child list and the data of text-like child nodes occupy only
+   * the memory required for their current content. The content itself is not
+   * changed, so this is purely a memory optimization. It is automatically
+   * invoked by the SAX reader for each element that was completely read.
+   *
+   * @since 11.0.1
+   */
+  public final void compactStorage ()
+  {
+    onCompactStorage ();
+    if (m_aChildren != null)
+      for (final IMicroNode aChild : m_aChildren)
+        ((AbstractMicroNode) aChild).onCompactStorage ();
+  }
+
   @Nullable
   public String getTextContent ()
   {
@@ -108,6 +108,12 @@ public final class MicroCDATA extends AbstractMicroNode implements IMicroCDATA
     m_aData.setData (sData);
   }
 
+  @Override
+  void onCompactStorage ()
+  {
+    m_aData.compact ();
+  }
+
   @Nonnull
   public IMicroCDATA getClone ()
   {
@@ -108,6 +108,12 @@ public final class MicroComment extends AbstractMicroNode implements IMicroComme
     m_aData.setData (sData);
   }
 
+  @Override
+  void onCompactStorage ()
+  {
+    m_aData.compact ();
+  }
+
   @Nonnull
   public IMicroComment getClone ()
   {
@@ -21,81 +21,105 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.helger.commons.ValueEnforcer;
-import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
 import com.helger.commons.lang.ICloneable;
 import com.helger.commons.string.StringHelper;
 import com.helger.commons.string.ToStringGenerator;
 
 /**
- * Default implementation of the {@link IMicroDataAware} interface.
+ * Default implementation of the {@link IMicroDataAware} interface.<br>
+ * The data is stored as an immutable {@link String} as long as it is not
+ * modified, so that no spare capacity is retained for the vast majority of
+ * nodes that are only read. Only upon the first modification it is switched to
+ * a {@link StringBuilder}. See {@link #compact()} to switch back.
  *
  * @author Philip Helger
  */
 final class MicroDataAware implements IMicroDataAware, ICloneable <MicroDataAware>
 {
-  private final StringBuilder m_aSB;
+  // Either a String or a StringBuilder
+  private CharSequence m_aData;
 
   public MicroDataAware (@Nonnull final char [] aChars, @Nonnegative final int nOfs, @Nonnegative final int nLen)
   {
     ValueEnforcer.isArrayOfsLen (aChars, nOfs, nLen);
-    m_aSB = new StringBuilder (nLen + 16).append (aChars, nOfs, nLen);
+    m_aData = new String (aChars, nOfs, nLen);
   }
 
   public MicroDataAware (@Nullable final CharSequence aText)
   {
     if (StringHelper.hasNoText (aText))
-      m_aSB = new StringBuilder ();
+      m_aData = "";
     else
-      m_aSB = new StringBuilder (aText);
+      m_aData = aText.toString ();
   }
 
   @Nonnull
-  public StringBuilder getData ()
+  private StringBuilder _getMutable ()
   {
-    return m_aSB;
+    if (m_aData instanceof StringBuilder)
+      return (StringBuilder) m_aData;
+    final StringBuilder ret = new StringBuilder (m_aData);
+    m_aData = ret;
+    return ret;
+  }
+
+  @Nonnull
+  public CharSequence getData ()
+  {
+    return m_aData;
   }
 
   public void setData (@Nullable final CharSequence aData)
   {
-    m_aSB.setLength (0);
-    m_aSB.append (aData);
+    // Same as "append" on an empty StringBuilder
+    m_aData = String.valueOf (aData);
   }
 
   public void appendData (@Nullable final CharSequence sData)
   {
-    m_aSB.append (sData);
+    _getMutable ().append (sData);
   }
 
   public void appendData (@Nonnull final char [] aChars, @Nonnegative final int nOfs, @Nonnegative final int nLen)
   {
-    m_aSB.append (aChars, nOfs, nLen);
+    _getMutable ().append (aChars, nOfs, nLen);
   }
 
   public void appendData (final char cChar)
   {
-    m_aSB.append (cChar);
+    _getMutable ().append (cChar);
   }
 
   public void prependData (@Nullable final CharSequence sData)
   {
-    m_aSB.insert (0, sData);
+    _getMutable ().insert (0, sData);
   }
 
   public void prependData (@Nonnull final char [] aChars, @Nonnegative final int nOfs, @Nonnegative final int nLen)
   {
-    m_aSB.insert (0, aChars, nOfs, nLen);
+    _getMutable ().insert (0, aChars, nOfs, nLen);
   }
 
   public void prependData (final char cChar)
   {
-    m_aSB.insert (0, cChar);
+    _getMutable ().insert (0, cChar);
+  }
+
+  /**
+   * Switch back to the compact immutable representation, if the data was
+   * modified. The content is not altered.
+   */
+  void compact ()
+  {
+    if (m_aData instanceof StringBuilder)
+      m_aData = m_aData.toString ();
   }
 
   @Nonnull
   public MicroDataAware getClone ()
   {
-    return new MicroDataAware (m_aSB);
+    return new MicroDataAware (m_aData);
   }
 
   @Override
@@ -106,18 +130,18 @@ final class MicroDataAware implements IMicroDataAware, ICloneable <MicroDataAwar
     if (o == null || !getClass ().equals (o.getClass ()))
       return false;
     final MicroDataAware rhs = (MicroDataAware) o;
-    return EqualsHelper.equals (m_aSB, rhs.m_aSB);
+    return m_aData.toString ().equals (rhs.m_aData.toString ());
   }
 
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_aSB).getHashCode ();
+    return new HashCodeGenerator (this).append (m_aData.toString ()).getHashCode ();
   }
 
   @Override
   public String toString ()
   {
-    return new ToStringGenerator (this).append ("data", m_aSB).getToString ();
+    return new ToStringGenerator (this).append ("data", m_aData).getToString ();
   }
 }
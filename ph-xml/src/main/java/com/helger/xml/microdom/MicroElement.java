@@ -16,11 +16,15 @@
  */
 package com.helger.xml.microdom;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import javax.annotation.CheckForSigned;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -34,6 +38,7 @@ import com.helger.commons.annotation.ReturnsImmutableObject;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.CommonsLinkedHashSet;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.collection.impl.ICommonsOrderedSet;
@@ -58,9 +63,14 @@ public final class MicroElement extends AbstractMicroNodeWithChildren implements
 {
   private static final Logger LOGGER = LoggerFactory.getLogger (MicroElement.class);
 
+  private static final int DEFAULT_ATTR_CAPACITY = 4;
+
   private String m_sNamespaceURI;
   private final String m_sTagName;
-  private ICommonsOrderedMap <IMicroQName, MicroAttribute> m_aAttrs;
+  // The attributes are stored in a packed array in insertion order instead of a
+  // linked hash map, because most elements have only few attributes
+  private MicroAttribute [] m_aAttrs;
+  private int m_nAttrCount = 0;
 
   public MicroElement (@Nonnull @Nonempty final String sTagName)
   {
@@ -110,18 +120,33 @@ public final class MicroElement extends AbstractMicroNodeWithChildren implements
 
   public boolean hasAttributes ()
   {
-    return m_aAttrs != null && m_aAttrs.isNotEmpty ();
+    return m_nAttrCount > 0;
   }
 
   public boolean hasNoAttributes ()
   {
-    return m_aAttrs == null || m_aAttrs.isEmpty ();
+    return m_nAttrCount == 0;
   }
 
   @Nonnegative
   public int getAttributeCount ()
   {
-    return m_aAttrs == null ? 0 : m_aAttrs.size ();
+    return m_nAttrCount;
+  }
+
+  @Nonnull
+  private List <MicroAttribute> _getAttributeList ()
+  {
+    return Arrays.asList (m_aAttrs).subList (0, m_nAttrCount);
+  }
+
+  @CheckForSigned
+  private int _getAttributeIndex (@Nonnull final IMicroQName aQName)
+  {
+    for (int i = 0; i < m_nAttrCount; ++i)
+      if (m_aAttrs[i].getAttributeQName ().equals (aQName))
+        return i;
+    return -1;
   }
 
   @Nullable
@@ -130,7 +155,7 @@ public final class MicroElement extends AbstractMicroNodeWithChildren implements
   {
     if (hasNoAttributes ())
       return null;
-    return m_aAttrs.values ();
+    return Collections.unmodifiableList (_getAttributeList ());
   }
 
   @Nullable
@@ -139,7 +164,7 @@ public final class MicroElement extends AbstractMicroNodeWithChildren implements
   {
     if (hasNoAttributes ())
       return null;
-    return m_aAttrs.copyOfValues ();
+    return new CommonsArrayList <> (_getAttributeList ());
   }
 
   @Nullable
@@ -148,7 +173,7 @@ public final class MicroElement extends AbstractMicroNodeWithChildren implements
   {
     if (hasNoAttributes ())
       return null;
-    return new CommonsLinkedHashMap <> (m_aAttrs.values (), IMicroAttribute::getAttributeQName, IMicroAttribute::getAttributeValue);
+    return new CommonsLinkedHashMap <> (_getAttributeList (), IMicroAttribute::getAttributeQName, IMicroAttribute::getAttributeValue);
   }
 
   @Nullable
@@ -157,31 +182,43 @@ public final class MicroElement extends AbstractMicroNodeWithChildren implements
   {
     if (hasNoAttributes ())
       return null;
-    return m_aAttrs.copyOfKeySet ();
+    final ICommonsOrderedSet <IMicroQName> ret = new CommonsLinkedHashSet <> (m_nAttrCount);
+    for (int i = 0; i < m_nAttrCount; ++i)
+      ret.add (m_aAttrs[i].getAttributeQName ());
+    return ret;
   }
 
   public void forAllAttributes (@Nonnull final Consumer <? super IMicroAttribute> aConsumer)
   {
-    if (m_aAttrs != null)
-      m_aAttrs.forEachValue (aConsumer);
+    for (int i = 0; i < m_nAttrCount; ++i)
+      aConsumer.accept (m_aAttrs[i]);
   }
 
   public void forAllAttributes (@Nonnull final BiConsumer <? super IMicroQName, ? super String> aConsumer)
   {
-    if (m_aAttrs != null)
-      m_aAttrs.forEachValue (a -> aConsumer.accept (a.getAttributeQName (), a.getAttributeValue ()));
+    for (int i = 0; i < m_nAttrCount; ++i)
+    {
+      final MicroAttribute aAttr = m_aAttrs[i];
+      aConsumer.accept (aAttr.getAttributeQName (), aAttr.getAttributeValue ());
+    }
   }
 
   public void forAllAttributes (@Nonnull final ITriConsumer <? super String, ? super String, ? super String> aConsumer)
   {
-    if (m_aAttrs != null)
-      m_aAttrs.forEachValue (x -> aConsumer.accept (x.getNamespaceURI (), x.getAttributeName (), x.getAttributeValue ()));
+    for (int i = 0; i < m_nAttrCount; ++i)
+    {
+      final MicroAttribute aAttr = m_aAttrs[i];
+      aConsumer.accept (aAttr.getNamespaceURI (), aAttr.getAttributeName (), aAttr.getAttributeValue ());
+    }
   }
 
   @Nullable
   public MicroAttribute getAttributeObj (@Nullable final IMicroQName aQName)
   {
-    return aQName == null || m_aAttrs == null ? null : m_aAttrs.get (aQName);
+    if (aQName == null)
+      return null;
+    final int nIndex = _getAttributeIndex (aQName);
+    return nIndex < 0 ? null : m_aAttrs[nIndex];
   }
 
   @Nullable
@@ -203,15 +240,24 @@ public final class MicroElement extends AbstractMicroNodeWithChildren implements
 
   public boolean hasAttribute (@Nullable final IMicroQName aAttrName)
   {
-    return m_aAttrs != null && aAttrName != null && m_aAttrs.containsKey (aAttrName);
+    return aAttrName != null && _getAttributeIndex (aAttrName) >= 0;
   }
 
   @Nonnull
   public EChange removeAttribute (@Nullable final IMicroQName aAttrName)
   {
-    if (m_aAttrs == null || aAttrName == null)
+    if (aAttrName == null)
       return EChange.UNCHANGED;
-    return m_aAttrs.removeObject (aAttrName);
+    final int nIndex = _getAttributeIndex (aAttrName);
+    if (nIndex < 0)
+      return EChange.UNCHANGED;
+
+    final int nMoved = m_nAttrCount - nIndex - 1;
+    if (nMoved > 0)
+      System.arraycopy (m_aAttrs, nIndex + 1, m_aAttrs, nIndex, nMoved);
+    m_nAttrCount--;
+    m_aAttrs[m_nAttrCount] = null;
+    return EChange.CHANGED;
   }
 
   @Nonnull
@@ -220,9 +266,22 @@ public final class MicroElement extends AbstractMicroNodeWithChildren implements
     ValueEnforcer.notNull (aAttrName, "AttrName");
     if (sAttrValue != null)
     {
-      if (m_aAttrs == null)
-        m_aAttrs = new CommonsLinkedHashMap <> ();
-      m_aAttrs.put (aAttrName, new MicroAttribute (aAttrName, sAttrValue));
+      final MicroAttribute aAttr = new MicroAttribute (aAttrName, sAttrValue);
+      final int nIndex = _getAttributeIndex (aAttrName);
+      if (nIndex >= 0)
+      {
+        // Overwrite existing attribute at the same position
+        m_aAttrs[nIndex] = aAttr;
+      }
+      else
+      {
+        if (m_aAttrs == null)
+          m_aAttrs = new MicroAttribute [DEFAULT_ATTR_CAPACITY];
+        else
+          if (m_nAttrCount == m_aAttrs.length)
+            m_aAttrs = Arrays.copyOf (m_aAttrs, m_nAttrCount * 2);
+        m_aAttrs[m_nAttrCount++] = aAttr;
+      }
     }
     else
       removeAttribute (aAttrName);
@@ -232,9 +291,19 @@ public final class MicroElement extends AbstractMicroNodeWithChildren implements
   @Nonnull
   public EChange removeAllAttributes ()
   {
-    if (m_aAttrs == null)
+    if (m_nAttrCount == 0)
       return EChange.UNCHANGED;
-    return m_aAttrs.removeAll ();
+    m_aAttrs = null;
+    m_nAttrCount = 0;
+    return EChange.CHANGED;
+  }
+
+  @Override
+  void onCompactStorage ()
+  {
+    super.onCompactStorage ();
+    if (m_aAttrs != null && m_aAttrs.length > m_nAttrCount)
+      m_aAttrs = m_nAttrCount == 0 ? null : Arrays.copyOf (m_aAttrs, m_nAttrCount);
   }
 
   @Nullable
@@ -376,14 +445,32 @@ public final class MicroElement extends AbstractMicroNodeWithChildren implements
     final MicroElement ret = new MicroElement (m_sNamespaceURI, m_sTagName);
 
     // Copy attributes
-    if (m_aAttrs != null)
-      ret.m_aAttrs = new CommonsLinkedHashMap <> (m_aAttrs);
+    if (m_nAttrCount > 0)
+    {
+      ret.m_aAttrs = Arrays.copyOf (m_aAttrs, m_nAttrCount);
+      ret.m_nAttrCount = m_nAttrCount;
+    }
 
     // Deep clone all child nodes
     forAllChildren (aChildNode -> ret.appendChild (aChildNode.getClone ()));
     return ret;
   }
 
+  private boolean _isEqualAttributes (@Nonnull final MicroElement rhs)
+  {
+    // Attribute order is not relevant
+    if (m_nAttrCount != rhs.m_nAttrCount)
+      return false;
+    for (int i = 0; i < m_nAttrCount; ++i)
+    {
+      final MicroAttribute aAttr = m_aAttrs[i];
+      final MicroAttribute aRhsAttr = rhs.getAttributeObj (aAttr.getAttributeQName ());
+      if (aRhsAttr == null || !aAttr.getAttributeValue ().equals (aRhsAttr.getAttributeValue ()))
+        return false;
+    }
+    return true;
+  }
+
   @Override
   public boolean isEqualContent (@Nullable final IMicroNode o)
   {
@@ -394,7 +481,7 @@ public final class MicroElement extends AbstractMicroNodeWithChildren implements
     final MicroElement rhs = (MicroElement) o;
     return EqualsHelper.equals (m_sNamespaceURI, rhs.m_sNamespaceURI) &&
            m_sTagName.equals (rhs.m_sTagName) &&
-           EqualsHelper.equals (m_aAttrs, rhs.m_aAttrs);
+           _isEqualAttributes (rhs);
   }
 
   @Override
@@ -403,7 +490,7 @@ public final class MicroElement extends AbstractMicroNodeWithChildren implements
     return ToStringGenerator.getDerived (super.toString ())
                             .appendIfNotNull ("namespace", m_sNamespaceURI)
                             .append ("tagname", m_sTagName)
-                            .appendIfNotNull ("attrs", m_aAttrs)
+                            .appendIfNotNull ("attrs", getAllQAttributes ())
                             .getToString ();
   }
 }
@@ -137,6 +137,12 @@ public final class MicroText extends AbstractMicroNode implements IMicroText
     m_aData.setData (sData);
   }
 
+  @Override
+  void onCompactStorage ()
+  {
+    m_aData.compact ();
+  }
+
   public boolean isElementContentWhitespace ()
   {
     return m_bIgnorableWhitespace;
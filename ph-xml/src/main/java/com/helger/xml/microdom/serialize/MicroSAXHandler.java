@@ -40,18 +40,23 @@ import org.xml.sax.ext.LexicalHandler;
 import org.xml.sax.ext.Locator2;
 
 import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.error.level.EErrorLevel;
 import com.helger.commons.error.level.IErrorLevel;
 import com.helger.commons.location.SimpleLocation;
 import com.helger.commons.string.StringHelper;
+import com.helger.xml.microdom.AbstractMicroNodeWithChildren;
 import com.helger.xml.microdom.IMicroCDATA;
 import com.helger.xml.microdom.IMicroDocument;
 import com.helger.xml.microdom.IMicroDocumentType;
 import com.helger.xml.microdom.IMicroElement;
 import com.helger.xml.microdom.IMicroNode;
+import com.helger.xml.microdom.IMicroQName;
 import com.helger.xml.microdom.IMicroText;
 import com.helger.xml.microdom.MicroDocument;
 import com.helger.xml.microdom.MicroDocumentType;
+import com.helger.xml.microdom.MicroQName;
 import com.helger.xml.sax.AbstractSAXErrorHandler;
 
 /**
@@ -62,6 +67,7 @@ import com.helger.xml.sax.AbstractSAXErrorHandler;
 public class MicroSAXHandler implements EntityResolver2, DTDHandler, ContentHandler, ErrorHandler, LexicalHandler
 {
   private static final Logger LOGGER = LoggerFactory.getLogger (MicroSAXHandler.class);
+  private static final int MAX_CACHED_NAMES = 1024;
 
   private IMicroDocument m_aDoc;
   private IMicroDocumentType m_aDocType;
@@ -76,6 +82,9 @@ public class MicroSAXHandler implements EntityResolver2, DTDHandler, ContentHand
   private Locator m_aLocator;
   private String m_sSourceXMLVersion;
   private String m_sSourceXMLEncoding;
+  // Per-document caches, so that recurring names are shared between nodes
+  private final ICommonsMap <String, String> m_aNameCache = new CommonsHashMap <> ();
+  private final ICommonsMap <String, ICommonsMap <String, IMicroQName>> m_aAttrQNameCache = new CommonsHashMap <> ();
 
   public MicroSAXHandler (final boolean bSaveIgnorableWhitespaces,
                           @Nullable final EntityResolver aEntityResolver,
@@ -87,6 +96,34 @@ public class MicroSAXHandler implements EntityResolver2, DTDHandler, ContentHand
     m_bTrackPosition = bTrackPosition;
   }
 
+  @Nullable
+  private String _getShared (@Nullable final String s)
+  {
+    if (s == null)
+      return null;
+    final String ret = m_aNameCache.get (s);
+    if (ret != null)
+      return ret;
+    if (m_aNameCache.size () < MAX_CACHED_NAMES)
+      m_aNameCache.put (s, s);
+    return s;
+  }
+
+  @Nonnull
+  private IMicroQName _getSharedAttrQName (@Nullable final String sNamespaceURI, @Nonnull final String sName)
+  {
+    final String sNSKey = sNamespaceURI == null ? "" : sNamespaceURI;
+    final ICommonsMap <String, IMicroQName> aPerNS = m_aAttrQNameCache.computeIfAbsent (sNSKey, k -> new CommonsHashMap <> ());
+    IMicroQName ret = aPerNS.get (sName);
+    if (ret == null)
+    {
+      ret = new MicroQName (_getShared (sNamespaceURI), _getShared (sName));
+      if (aPerNS.size () < MAX_CACHED_NAMES)
+        aPerNS.put (sName, ret);
+    }
+    return ret;
+  }
+
   private void _createParentDocument ()
   {
     if (m_aParent == null)
@@ -131,6 +168,10 @@ public class MicroSAXHandler implements EntityResolver2, DTDHandler, ContentHand
   public void endDocument ()
   {
     _updatePosition ("endDocument");
+    if (m_aDoc instanceof AbstractMicroNodeWithChildren)
+      ((AbstractMicroNodeWithChildren) m_aDoc).compactStorage ();
+    m_aNameCache.clear ();
+    m_aAttrQNameCache.clear ();
   }
 
   public void startDTD (final String sName, final String sPublicId, final String sSystemId) throws SAXException
@@ -159,9 +200,9 @@ public class MicroSAXHandler implements EntityResolver2, DTDHandler, ContentHand
 
     final IMicroElement aElement;
     if (StringHelper.hasText (sNamespaceURI))
-      aElement = m_aParent.appendElement (sNamespaceURI, sLocalName);
+      aElement = m_aParent.appendElement (_getShared (sNamespaceURI), _getShared (sLocalName));
     else
-      aElement = m_aParent.appendElement (sLocalName);
+      aElement = m_aParent.appendElement (_getShared (sLocalName));
 
     // copy attributes
     if (aAttributes != null)
@@ -176,7 +217,7 @@ public class MicroSAXHandler implements EntityResolver2, DTDHandler, ContentHand
         // Ignore the "xmlns" attributes, as the SAX handler passes the correct
         // namespace URIs
         if (!sAttrName.startsWith (XMLConstants.XMLNS_ATTRIBUTE))
-          aElement.setAttribute (sAttrNamespaceURI, sAttrName, sAttrValue);
+          aElement.setAttribute (_getSharedAttrQName (sAttrNamespaceURI, sAttrName), sAttrValue);
       }
     }
 
@@ -187,6 +228,10 @@ public class MicroSAXHandler implements EntityResolver2, DTDHandler, ContentHand
   {
     _updatePosition ("endElement");
 
+    // The element is complete - release all spare capacity
+    if (m_aParent instanceof AbstractMicroNodeWithChildren)
+      ((AbstractMicroNodeWithChildren) m_aParent).compactStorage ();
+
     // Go one level up in the stack
     m_aParent = m_aParent.getParent ();
   }
@@ -40,7 +40,7 @@ import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.PresentForCodeCoverage;
 import com.helger.commons.io.resource.IReadableResource;
 import com.helger.commons.io.stream.StreamHelper;
-import com.helger.commons.pool.ObjectPool;
+import com.helger.commons.pool.ConcurrentObjectPool;
 import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
 import com.helger.commons.statistics.IMutableStatisticsHandlerTimer;
 import com.helger.commons.statistics.StatisticsManager;
@@ -64,7 +64,9 @@ public final class DOMReader
   private static final IMutableStatisticsHandlerCounter STATS_DOM_ERROR_COUNTER = StatisticsManager.getCounterHandler (DOMReader.class.getName () +
                                                                                                                        "$DOMERRORS");
 
-  private static final ObjectPool <DocumentBuilder> POOL = new ObjectPool <> (20, XMLFactory::createDocumentBuilder);
+  private static final ConcurrentObjectPool <DocumentBuilder> POOL = new ConcurrentObjectPool <> (DOMReader.class.getName () + "$pool",
+                                                                                                  20,
+                                                                                                  XMLFactory::createDocumentBuilder);
 
   @PresentForCodeCoverage
   private static final DOMReader INSTANCE = new DOMReader ();
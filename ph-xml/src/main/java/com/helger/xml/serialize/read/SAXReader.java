@@ -37,8 +37,8 @@ import com.helger.commons.annotation.PresentForCodeCoverage;
 import com.helger.commons.io.IHasInputStream;
 import com.helger.commons.io.resource.IReadableResource;
 import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.pool.ConcurrentObjectPool;
 import com.helger.commons.pool.IMutableObjectPool;
-import com.helger.commons.pool.ObjectPool;
 import com.helger.commons.state.ESuccess;
 import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
 import com.helger.commons.statistics.IMutableStatisticsHandlerTimer;
@@ -61,8 +61,10 @@ public final class SAXReader
                                                                                                                        "$error");
 
   // In practice no more than 5 readers are required (even 3 would be enough)
-  private static final IMutableObjectPool <org.xml.sax.XMLReader> POOL = new ObjectPool <> (10,
-                                                                                            new SAXReaderFactory ());
+  private static final IMutableObjectPool <org.xml.sax.XMLReader> POOL = new ConcurrentObjectPool <> (SAXReader.class.getName () +
+                                                                                                      "$pool",
+                                                                                                      10,
+                                                                                                      new SAXReaderFactory ());
 
   @PresentForCodeCoverage
   private static final SAXReader INSTANCE = new SAXReader ();
@@ -19,11 +19,14 @@ package com.helger.xml.util.statistics;
 import java.util.Comparator;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.statistics.IStatisticsHandlerCache;
 import com.helger.commons.statistics.IStatisticsHandlerCounter;
+import com.helger.commons.statistics.IStatisticsHandlerHistogram;
 import com.helger.commons.statistics.IStatisticsHandlerKeyedCounter;
+import com.helger.commons.statistics.IStatisticsHandlerKeyedHistogram;
 import com.helger.commons.statistics.IStatisticsHandlerKeyedSize;
 import com.helger.commons.statistics.IStatisticsHandlerKeyedTimer;
 import com.helger.commons.statistics.IStatisticsHandlerSize;
@@ -67,21 +70,40 @@ public class StatisticsVisitorCallbackToXML implements IStatisticsVisitorCallbac
              .setAttribute (StatisticsExporter.ATTR_MISSES, aHandler.getMisses ());
   }
 
+  @Nullable
+  private IMicroElement _appendTimer (@Nonnull final String sName, @Nonnull final IStatisticsHandlerTimer aHandler)
+  {
+    if (aHandler.getInvocationCount () == 0)
+      return null;
+    return m_eRoot.appendElement (StatisticsExporter.ELEMENT_TIMER)
+                  .setAttribute (StatisticsExporter.ATTR_NAME, sName)
+                  .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT, aHandler.getInvocationCount ())
+                  .setAttribute (StatisticsExporter.ATTR_MIN, aHandler.getMin ())
+                  .setAttribute (StatisticsExporter.ATTR_AVERAGE, aHandler.getAverage ())
+                  .setAttribute (StatisticsExporter.ATTR_MAX, aHandler.getMax ())
+                  .setAttributeWithConversion (StatisticsExporter.ATTR_SUM, aHandler.getSum ());
+  }
+
   @Override
   public void onTimer (final String sName, final IStatisticsHandlerTimer aHandler)
   {
-    if (aHandler.getInvocationCount () > 0)
-      m_eRoot.appendElement (StatisticsExporter.ELEMENT_TIMER)
-             .setAttribute (StatisticsExporter.ATTR_NAME, sName)
-             .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT, aHandler.getInvocationCount ())
-             .setAttribute (StatisticsExporter.ATTR_MIN, aHandler.getMin ())
-             .setAttribute (StatisticsExporter.ATTR_AVERAGE, aHandler.getAverage ())
-             .setAttribute (StatisticsExporter.ATTR_MAX, aHandler.getMax ())
-             .setAttributeWithConversion (StatisticsExporter.ATTR_SUM, aHandler.getSum ());
+    _appendTimer (sName, aHandler);
   }
 
   @Override
-  public void onKeyedTimer (final String sName, final IStatisticsHandlerKeyedTimer aHandler)
+  public void onHistogramTimer (final String sName, final IStatisticsHandlerTimer aHandler, final IStatisticsHandlerHistogram aHistogram)
+  {
+    final IMicroElement eTimer = _appendTimer (sName, aHandler);
+    if (eTimer != null)
+      eTimer.setAttribute (StatisticsExporter.ATTR_P50, aHistogram.getPercentile50 ())
+            .setAttribute (StatisticsExporter.ATTR_P90, aHistogram.getPercentile90 ())
+            .setAttribute (StatisticsExporter.ATTR_P99, aHistogram.getPercentile99 ())
+            .setAttribute (StatisticsExporter.ATTR_P999, aHistogram.getPercentile999 ());
+  }
+
+  private void _appendKeyedTimer (@Nonnull final String sName,
+                                  @Nonnull final IStatisticsHandlerKeyedTimer aHandler,
+                                  @Nullable final IStatisticsHandlerKeyedHistogram aHistogram)
   {
     if (aHandler.getInvocationCount () > 0)
     {
@@ -90,17 +112,36 @@ public class StatisticsVisitorCallbackToXML implements IStatisticsVisitorCallbac
                                                .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT, aHandler.getInvocationCount ());
       for (final String sKey : aHandler.getAllKeys ().getSorted (Comparator.naturalOrder ()))
       {
-        eKeyedTimer.appendElement (StatisticsExporter.ELEMENT_KEY)
-                   .setAttribute (StatisticsExporter.ATTR_NAME, sKey)
-                   .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT, aHandler.getInvocationCount (sKey))
-                   .setAttribute (StatisticsExporter.ATTR_MIN, aHandler.getMin (sKey))
-                   .setAttribute (StatisticsExporter.ATTR_AVERAGE, aHandler.getAverage (sKey))
-                   .setAttribute (StatisticsExporter.ATTR_MAX, aHandler.getMax (sKey))
-                   .setAttributeWithConversion (StatisticsExporter.ATTR_SUM, aHandler.getSum (sKey));
+        final IMicroElement eKey = eKeyedTimer.appendElement (StatisticsExporter.ELEMENT_KEY)
+                                              .setAttribute (StatisticsExporter.ATTR_NAME, sKey)
+                                              .setAttribute (StatisticsExporter.ATTR_INVOCATIONCOUNT, aHandler.getInvocationCount (sKey))
+                                              .setAttribute (StatisticsExporter.ATTR_MIN, aHandler.getMin (sKey))
+                                              .setAttribute (StatisticsExporter.ATTR_AVERAGE, aHandler.getAverage (sKey))
+                                              .setAttribute (StatisticsExporter.ATTR_MAX, aHandler.getMax (sKey))
+                                              .setAttributeWithConversion (StatisticsExporter.ATTR_SUM, aHandler.getSum (sKey));
+        if (aHistogram != null)
+          eKey.setAttribute (StatisticsExporter.ATTR_P50, aHistogram.getPercentile50 (sKey))
+              .setAttribute (StatisticsExporter.ATTR_P90, aHistogram.getPercentile90 (sKey))
+              .setAttribute (StatisticsExporter.ATTR_P99, aHistogram.getPercentile99 (sKey))
+              .setAttribute (StatisticsExporter.ATTR_P999, aHistogram.getPercentile999 (sKey));
       }
     }
   }
 
+  @Override
+  public void onKeyedTimer (final String sName, final IStatisticsHandlerKeyedTimer aHandler)
+  {
+    _appendKeyedTimer (sName, aHandler, null);
+  }
+
+  @Override
+  public void onKeyedHistogramTimer (final String sName,
+                                     final IStatisticsHandlerKeyedTimer aHandler,
+                                     final IStatisticsHandlerKeyedHistogram aHistogram)
+  {
+    _appendKeyedTimer (sName, aHandler, aHistogram);
+  }
+
   @Override
   public void onSize (final String sName, final IStatisticsHandlerSize aHandler)
   {
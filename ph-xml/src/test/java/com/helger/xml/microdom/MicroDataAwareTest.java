@@ -17,6 +17,7 @@
 package com.helger.xml.microdom;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
@@ -42,4 +43,23 @@ public final class MicroDataAwareTest
     md.appendData ("obar");
     assertEquals ("foobar", md.getData ().toString ());
   }
+
+  @Test
+  public void testCompact ()
+  {
+    final MicroDataAware md = new MicroDataAware ("abc".toCharArray (), 0, 3);
+    assertTrue (md.getData () instanceof String);
+    md.appendData ('d');
+    md.prependData ("x");
+    assertEquals ("xabcd", md.getData ().toString ());
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (md, new MicroDataAware ("xabcd"));
+
+    md.compact ();
+    assertTrue (md.getData () instanceof String);
+    assertEquals ("xabcd", md.getData ());
+    CommonsTestHelper.testDefaultImplementationWithEqualContentObject (md, new MicroDataAware ("xabcd"));
+
+    md.setData ("y");
+    assertEquals ("y", md.getData ());
+  }
 }
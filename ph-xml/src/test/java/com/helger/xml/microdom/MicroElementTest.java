@@ -723,4 +723,74 @@ public final class MicroElementTest
     assertEquals (1, e1.getAllChildElementsRecursive ().size ());
     assertEquals (1, e2.getAllChildElementsRecursive ().size ());
   }
+
+  @Test
+  public void testAttributeOrder ()
+  {
+    final MicroElement e = new MicroElement ("x");
+    for (int i = 0; i < 10; ++i)
+      e.setAttribute ("a" + i, Integer.toString (i));
+    assertEquals (10, e.getAttributeCount ());
+
+    // Overwrite keeps the position
+    e.setAttribute ("a3", "neu");
+    assertEquals (10, e.getAttributeCount ());
+    assertEquals ("neu", e.getAttributeValue ("a3"));
+    assertEquals ("a3", e.getAllAttributeObjs ().get (3).getAttributeName ());
+
+    // Remove from the middle
+    assertTrue (e.removeAttribute ("a5").isChanged ());
+    assertFalse (e.removeAttribute ("a5").isChanged ());
+    assertEquals (9, e.getAttributeCount ());
+    assertNull (e.getAttributeValue ("a5"));
+    assertEquals ("a6", e.getAllAttributeObjs ().get (5).getAttributeName ());
+    assertEquals ("a9", e.getAllAttributeQNames ().getLast ().getName ());
+
+    // Setting null removes
+    e.setAttribute ("a0", (String) null);
+    assertEquals (8, e.getAttributeCount ());
+    assertEquals ("a1", e.getAllQAttributes ().getFirstKey ().getName ());
+
+    // Clone is independent
+    final IMicroElement aClone = e.getClone ();
+    assertTrue (aClone.isEqualContent (e));
+    aClone.removeAttribute ("a1");
+    assertEquals (8, e.getAttributeCount ());
+    assertEquals (7, aClone.getAttributeCount ());
+    assertFalse (aClone.isEqualContent (e));
+
+    // Attribute order is irrelevant for equality
+    final MicroElement e1 = new MicroElement ("y");
+    e1.setAttribute ("a", "1").setAttribute ("b", "2");
+    final MicroElement e2 = new MicroElement ("y");
+    e2.setAttribute ("b", "2").setAttribute ("a", "1");
+    assertTrue (e1.isEqualContent (e2));
+    e2.setAttribute ("a", "3");
+    assertFalse (e1.isEqualContent (e2));
+
+    assertTrue (e.removeAllAttributes ().isChanged ());
+    assertFalse (e.removeAllAttributes ().isChanged ());
+    assertFalse (e.hasAttributes ());
+    assertNull (e.getAllAttributeObjs ());
+  }
+
+  @Test
+  public void testCompactStorage ()
+  {
+    final MicroElement e = new MicroElement ("x");
+    e.setAttribute ("a", "1");
+    e.appendText ("abc").appendData ("def");
+    e.appendElement ("y");
+    e.compactStorage ();
+
+    assertEquals ("1", e.getAttributeValue ("a"));
+    assertEquals ("abcdef", e.getTextContent ());
+    assertEquals (2, e.getChildCount ());
+
+    // Still modifiable afterwards
+    e.setAttribute ("b", "2");
+    assertEquals (2, e.getAttributeCount ());
+    ((IMicroText) e.getFirstChild ()).appendData ("g");
+    assertEquals ("abcdefg", e.getTextContent ());
+  }
 }
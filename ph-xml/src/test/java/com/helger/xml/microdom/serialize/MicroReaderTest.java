@@ -19,6 +19,7 @@ package com.helger.xml.microdom.serialize;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
@@ -31,6 +32,7 @@ import javax.xml.XMLConstants;
 import org.junit.Test;
 import org.xml.sax.InputSource;
 
+import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.io.IHasInputStream;
 import com.helger.commons.io.resource.ClassPathResource;
 import com.helger.commons.io.resource.IReadableResource;
@@ -42,6 +44,7 @@ import com.helger.commons.system.ENewLineMode;
 import com.helger.xml.EXMLParserFeature;
 import com.helger.xml.microdom.IMicroDocument;
 import com.helger.xml.microdom.IMicroElement;
+import com.helger.xml.microdom.MicroQName;
 import com.helger.xml.namespace.MapBasedNamespaceContext;
 import com.helger.xml.sax.EmptyEntityResolver;
 import com.helger.xml.sax.InputSourceFactory;
@@ -424,4 +427,21 @@ public final class MicroReaderTest
     // Ensure they are written as well
     assertEquals (s, MicroWriter.getNodeAsString (aDoc, new XMLWriterSettings ().setIndent (EXMLSerializeIndent.NONE)));
   }
+
+  @Test
+  public void testSharedNames ()
+  {
+    final IMicroDocument aDoc = MicroReader.readMicroXML ("<root xmlns='urn:x'><a id='1'>t</a><a id='2'>u</a></root>");
+    assertNotNull (aDoc);
+    final ICommonsList <IMicroElement> aChildren = aDoc.getDocumentElement ().getAllChildElements ();
+    assertEquals (2, aChildren.size ());
+    final IMicroElement e1 = aChildren.get (0);
+    final IMicroElement e2 = aChildren.get (1);
+    assertSame (e1.getTagName (), e2.getTagName ());
+    assertSame (e1.getNamespaceURI (), e2.getNamespaceURI ());
+    assertSame (e1.getAttributeObj (new MicroQName ("id")).getAttributeQName (),
+                e2.getAttributeObj (new MicroQName ("id")).getAttributeQName ());
+    assertEquals ("1", e1.getAttributeValue ("id"));
+    assertEquals ("u", e2.getTextContent ());
+  }
 }
@@ -16,11 +16,18 @@
  */
 package com.helger.xml.util.statistics;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import org.junit.Test;
 
+import com.helger.commons.statistics.HistogramStatisticsHandlerKeyedTimer;
+import com.helger.commons.statistics.HistogramStatisticsHandlerTimer;
+import com.helger.commons.statistics.StatisticsHandlerTimer;
 import com.helger.xml.microdom.IMicroDocument;
+import com.helger.xml.microdom.IMicroElement;
+import com.helger.xml.microdom.MicroElement;
 
 /**
  * Test class for class {@link StatisticsExporter}.
@@ -35,4 +42,35 @@ public final class StatisticsExporterTest
     final IMicroDocument aDoc = StatisticsExporter.getAsXMLDocument ();
     assertNotNull (aDoc);
   }
+
+  @Test
+  public void testPercentiles ()
+  {
+    final HistogramStatisticsHandlerTimer aTimer = new HistogramStatisticsHandlerTimer ();
+    final HistogramStatisticsHandlerKeyedTimer aKeyedTimer = new HistogramStatisticsHandlerKeyedTimer ();
+    for (int i = 0; i < 10; ++i)
+    {
+      aTimer.addTime (5);
+      aKeyedTimer.addTime ("key", 5);
+    }
+
+    final IMicroElement eRoot = new MicroElement ("root");
+    final StatisticsVisitorCallbackToXML aCB = new StatisticsVisitorCallbackToXML (eRoot);
+    aCB.onHistogramTimer ("histo", aTimer, aTimer);
+    aCB.onKeyedHistogramTimer ("keyedhisto", aKeyedTimer, aKeyedTimer);
+
+    final IMicroElement eTimer = eRoot.getFirstChildElement (StatisticsExporter.ELEMENT_TIMER);
+    assertEquals ("5", eTimer.getAttributeValue (StatisticsExporter.ATTR_P50));
+    assertEquals ("5", eTimer.getAttributeValue (StatisticsExporter.ATTR_P999));
+    final IMicroElement eKey = eRoot.getFirstChildElement (StatisticsExporter.ELEMENT_KEYEDTIMER)
+                                    .getFirstChildElement (StatisticsExporter.ELEMENT_KEY);
+    assertEquals ("5", eKey.getAttributeValue (StatisticsExporter.ATTR_P99));
+
+    // No percentiles for regular timers
+    final StatisticsHandlerTimer aRegularTimer = new StatisticsHandlerTimer ();
+    aRegularTimer.addTime (5);
+    final IMicroElement eRoot2 = new MicroElement ("root");
+    new StatisticsVisitorCallbackToXML (eRoot2).onTimer ("regular", aRegularTimer);
+    assertNull (eRoot2.getFirstChildElement ().getAttributeValue (StatisticsExporter.ATTR_P50));
+  }
 }